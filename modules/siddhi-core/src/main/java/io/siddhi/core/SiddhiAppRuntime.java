@@ -30,7 +30,9 @@ import io.siddhi.core.exception.QueryNotExistException;
 import io.siddhi.core.exception.SiddhiAppRuntimeException;
 import io.siddhi.core.exception.StoreQueryCreationException;
 import io.siddhi.core.partition.PartitionRuntime;
+import io.siddhi.core.query.PreparedStoreQuery;
 import io.siddhi.core.query.QueryRuntime;
+import io.siddhi.core.query.StoreQueryResultIterator;
 import io.siddhi.core.query.StoreQueryRuntime;
 import io.siddhi.core.query.input.stream.StreamRuntime;
 import io.siddhi.core.query.input.stream.single.SingleStreamRuntime;
@@ -53,9 +55,13 @@ import io.siddhi.core.util.Scheduler;
 import io.siddhi.core.util.SiddhiConstants;
 import io.siddhi.core.util.StringUtil;
 import io.siddhi.core.util.extension.holder.ExternalReferencedHolder;
+import io.siddhi.core.util.parser.PreparedStoreQueryParser;
 import io.siddhi.core.util.parser.StoreQueryParser;
 import io.siddhi.core.util.parser.helper.QueryParserHelper;
 import io.siddhi.core.util.persistence.util.PersistenceHelper;
+import io.siddhi.core.util.snapshot.CapturedSnapshot;
+import io.siddhi.core.util.snapshot.IncrementalSnapshot;
+import io.siddhi.core.util.snapshot.PersistencePipeline;
 import io.siddhi.core.util.snapshot.PersistenceReference;
 import io.siddhi.core.util.statistics.BufferedEventsTracker;
 import io.siddhi.core.util.statistics.LatencyTracker;
@@ -74,6 +80,9 @@ import io.siddhi.query.compiler.SiddhiCompiler;
 import org.apache.log4j.Logger;
 
 import java.beans.ExceptionListener;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -166,6 +175,16 @@ public class SiddhiAppRuntime {
             monitorBufferedEvents();
             storeQueryLatencyTracker = QueryParserHelper.createLatencyTracker(siddhiAppContext, "query",
                     SiddhiConstants.METRIC_INFIX_STORE_QUERIES, null);
+            siddhiAppContext.getSnapshotService().setPauseLatencyTracker(QueryParserHelper.createLatencyTracker(
+                    siddhiAppContext, "pause", SiddhiConstants.METRIC_INFIX_SNAPSHOTS, null));
+            siddhiAppContext.getSnapshotService().setBarrierWaitLatencyTracker(
+                    QueryParserHelper.createLatencyTracker(siddhiAppContext, "barrierWait",
+                            SiddhiConstants.METRIC_INFIX_SNAPSHOTS, null));
+            siddhiAppContext.getPersistencePipeline().setWriteLatencyTracker(QueryParserHelper.createLatencyTracker(
+                    siddhiAppContext, "write", SiddhiConstants.METRIC_INFIX_SNAPSHOTS, null));
+            siddhiAppContext.getPersistencePipeline().setPersistedBytesTracker(
+                    QueryParserHelper.createThroughputTracker(siddhiAppContext, "persistedBytes",
+                            SiddhiConstants.METRIC_INFIX_SNAPSHOTS, null));
         }
 
         for (Map.Entry<String, List<Sink>> sinkEntries : sinkMap.entrySet()) {
@@ -318,6 +337,85 @@ public class SiddhiAppRuntime {
         }
     }
 
+    /**
+     * Executes a store query, returning an iterator that reads the resulting events from the store in parts of the
+     * given size, such that large results, such as exports of whole tables, are not held in memory at once.
+     *
+     * @param storeQuery store query
+     * @param fetchSize  maximum number of events to read from the store at a time
+     * @return an iterator over the resulting events, to be closed if it is not read to the end
+     */
+    public StoreQueryResultIterator queryStream(String storeQuery, int fetchSize) {
+        return queryStream(SiddhiCompiler.parseStoreQuery(storeQuery), storeQuery, fetchSize);
+    }
+
+    public StoreQueryResultIterator queryStream(StoreQuery storeQuery, int fetchSize) {
+        return queryStream(storeQuery, null, fetchSize);
+    }
+
+    private StoreQueryResultIterator queryStream(StoreQuery storeQuery, String storeQueryString, int fetchSize) {
+        if (fetchSize <= 0) {
+            throw new StoreQueryCreationException("Fetch size of a store query should be positive, but found '" +
+                    fetchSize + "'");
+        }
+        try {
+            if (Level.BASIC.compareTo(siddhiAppContext.getRootMetricsLevel()) <= 0 &&
+                    storeQueryLatencyTracker != null) {
+                storeQueryLatencyTracker.markIn();
+            }
+            StoreQueryRuntime storeQueryRuntime = StoreQueryParser.parse(storeQuery, siddhiAppContext, tableMap,
+                    windowMap, aggregationMap);
+            return storeQueryRuntime.executeStream(fetchSize);
+        } catch (RuntimeException e) {
+            if (e instanceof SiddhiAppContextException) {
+                throw new StoreQueryCreationException(((SiddhiAppContextException) e).getMessageWithOutContext(), e,
+                        ((SiddhiAppContextException) e).getQueryContextStartIndex(),
+                        ((SiddhiAppContextException) e).getQueryContextEndIndex(), null, storeQueryString);
+            }
+            throw new StoreQueryCreationException(e.getMessage(), e);
+        } finally {
+            if (Level.BASIC.compareTo(siddhiAppContext.getRootMetricsLevel()) <= 0 &&
+                    storeQueryLatencyTracker != null) {
+                storeQueryLatencyTracker.markOut();
+            }
+        }
+    }
+
+    /**
+     * Prepares a store query whose parameters are written as '?name', such as "from StockTable on symbol == ?symbol
+     * select *", to be executed many times with different parameter values. The query is parsed only once, and the
+     * returned query can be executed concurrently.
+     *
+     * @param storeQuery store query with parameters
+     * @return the prepared store query
+     */
+    public PreparedStoreQuery prepareQuery(String storeQuery) {
+        return prepareQuery(storeQuery, Collections.emptyMap());
+    }
+
+    /**
+     * Prepares a store query whose parameters are written as '?name', to be executed many times with different
+     * parameter values.
+     *
+     * @param storeQuery     store query with parameters
+     * @param parameterTypes types of the parameters whose types cannot be inferred from the attributes they are
+     *                       compared with or assigned to, keyed by their names without the leading '?'
+     * @return the prepared store query
+     */
+    public PreparedStoreQuery prepareQuery(String storeQuery, Map<String, Attribute.Type> parameterTypes) {
+        try {
+            return PreparedStoreQueryParser.parse(storeQuery, parameterTypes, siddhiAppContext, tableMap, windowMap,
+                    aggregationMap, storeQueryLatencyTracker);
+        } catch (RuntimeException e) {
+            if (e instanceof SiddhiAppContextException) {
+                throw new StoreQueryCreationException(((SiddhiAppContextException) e).getMessageWithOutContext(), e,
+                        ((SiddhiAppContextException) e).getQueryContextStartIndex(),
+                        ((SiddhiAppContextException) e).getQueryContextEndIndex(), null, storeQuery);
+            }
+            throw new StoreQueryCreationException(e.getMessage(), e);
+        }
+    }
+
     public Attribute[] getStoreQueryOutputAttributes(String storeQuery) {
         return getStoreQueryOutputAttributes(SiddhiCompiler.parseStoreQuery(storeQuery), storeQuery);
     }
@@ -562,6 +660,7 @@ public class SiddhiAppRuntime {
                 }
                 siddhiAppContext.getScheduledExecutorService().shutdownNow();
                 siddhiAppContext.getExecutorService().shutdownNow();
+                siddhiAppContext.getSnapshotService().shutdown();
 
             }
         }, "Siddhi-SiddhiApp-" + siddhiAppContext.getName() + "-Shutdown-Cleaner");
@@ -602,33 +701,68 @@ public class SiddhiAppRuntime {
     }
 
     public PersistenceReference persist() {
+        PersistencePipeline persistencePipeline = siddhiAppContext.getPersistencePipeline();
+        boolean incremental = siddhiAppContext.getSiddhiContext().getPersistenceStore() == null;
+        // waits while too many checkpoints are still being persisted, before capturing the state
+        PersistencePipeline.Checkpoint checkpoint = persistencePipeline.awaitCheckpoint(incremental);
+        CapturedSnapshot capturedSnapshot = null;
+        IncrementalSnapshot incrementalSnapshot = null;
         try {
             // first, pause all the event sources
             sourceMap.values().forEach(list -> list.forEach(Source::pause));
             // take snapshots of execution units
-            if (siddhiAppContext.getSiddhiContext().getPersistenceStore() != null) {
-                return PersistenceHelper.persist(siddhiAppContext.getSnapshotService().fullSnapshot(),
-                        siddhiAppContext);
+            if (!incremental) {
+                capturedSnapshot = siddhiAppContext.getSnapshotService().captureFullSnapshot();
             } else {
-                return PersistenceHelper.persist(siddhiAppContext.getSnapshotService().incrementalSnapshot(),
-                        siddhiAppContext);
+                incrementalSnapshot = siddhiAppContext.getSnapshotService().incrementalSnapshot();
             }
+        } catch (RuntimeException | Error e) {
+            checkpoint.abort(e);
+            throw e;
         } finally {
             // at the end, resume the event sources
             sourceMap.values().forEach(list -> list.forEach(Source::resume));
         }
+        // snapshots are persisted after resuming the event sources, overlapping with event processing
+        if (incremental) {
+            return PersistenceHelper.persist(incrementalSnapshot, siddhiAppContext, checkpoint);
+        }
+        // captured states are serialized along with persisting, after resuming the event sources
+        return PersistenceHelper.persist(capturedSnapshot, siddhiAppContext, checkpoint);
     }
 
     public byte[] snapshot() {
+        CapturedSnapshot capturedSnapshot;
         try {
             // first, pause all the event sources
             sourceMap.values().forEach(list -> list.forEach(Source::pause));
             // take snapshots of execution units
-            return siddhiAppContext.getSnapshotService().fullSnapshot();
+            capturedSnapshot = siddhiAppContext.getSnapshotService().captureFullSnapshot();
         } finally {
             // at the end, resume the event sources
             sourceMap.values().forEach(list -> list.forEach(Source::resume));
         }
+        return capturedSnapshot.serialize();
+    }
+
+    /**
+     * Writes a full snapshot of the Siddhi app to the given stream without materializing it as a byte array.
+     *
+     * @param outputStream stream to write the snapshot to, which is left open
+     * @throws IOException if the snapshot cannot be written
+     */
+    public void snapshot(OutputStream outputStream) throws IOException {
+        CapturedSnapshot capturedSnapshot;
+        try {
+            // first, pause all the event sources
+            sourceMap.values().forEach(list -> list.forEach(Source::pause));
+            // take snapshots of execution units
+            capturedSnapshot = siddhiAppContext.getSnapshotService().captureFullSnapshot();
+        } finally {
+            // at the end, resume the event sources
+            sourceMap.values().forEach(list -> list.forEach(Source::resume));
+        }
+        capturedSnapshot.writeTo(outputStream);
     }
 
     public void restore(byte[] snapshot) throws CannotRestoreSiddhiAppStateException {
@@ -643,6 +777,24 @@ public class SiddhiAppRuntime {
         }
     }
 
+    /**
+     * Restores a full snapshot of the Siddhi app read from the given stream.
+     *
+     * @param snapshot stream of the snapshot, which is left open
+     * @throws CannotRestoreSiddhiAppStateException if the snapshot cannot be read or restored
+     */
+    public void restore(InputStream snapshot) throws CannotRestoreSiddhiAppStateException {
+        try {
+            // first, pause all the event sources
+            sourceMap.values().forEach(list -> list.forEach(Source::pause));
+            // start the restoring process
+            siddhiAppContext.getSnapshotService().restore(snapshot);
+        } finally {
+            // at the end, resume the event sources
+            sourceMap.values().forEach(list -> list.forEach(Source::resume));
+        }
+    }
+
     public void restoreRevision(String revision) throws CannotRestoreSiddhiAppStateException {
         try {
             // first, pause all the event sources
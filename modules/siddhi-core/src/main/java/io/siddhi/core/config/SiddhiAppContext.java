@@ -20,11 +20,13 @@ package io.siddhi.core.config;
 
 import com.lmax.disruptor.ExceptionHandler;
 import io.siddhi.core.function.Script;
+import io.siddhi.core.query.selector.attribute.aggregator.SharedPanes;
 import io.siddhi.core.util.IdGenerator;
 import io.siddhi.core.util.Scheduler;
 import io.siddhi.core.util.SiddhiConstants;
 import io.siddhi.core.util.ThreadBarrier;
 import io.siddhi.core.util.extension.holder.ExternalReferencedHolder;
+import io.siddhi.core.util.snapshot.PersistencePipeline;
 import io.siddhi.core.util.snapshot.SnapshotService;
 import io.siddhi.core.util.snapshot.state.EmptyStateHolder;
 import io.siddhi.core.util.snapshot.state.SingleStateHolder;
@@ -62,6 +64,7 @@ public class SiddhiAppContext {
     private ScheduledExecutorService scheduledExecutorService;
     private List<ExternalReferencedHolder> externalReferencedHolders;
     private SnapshotService snapshotService;
+    private PersistencePipeline persistencePipeline;
 
     private ThreadBarrier threadBarrier = null;
     private TimestampGenerator timestampGenerator = null;
@@ -73,7 +76,10 @@ public class SiddhiAppContext {
     private String siddhiAppString;
     private List<String> includedMetrics;
     private boolean transportChannelCreationEnabled;
+    private boolean snapshotCopyEnabled;
+    private long operationChangeLogBudget = SiddhiConstants.DEFAULT_OPERATION_CHANGE_LOG_BUDGET;
     private List<Scheduler> schedulerList;
+    private Map<String, SharedPanes> sharedPanesMap;
     private static final ThreadLocal<String> GROUP_BY_KEY = new ThreadLocal<>();
     private static final ThreadLocal<String> PARTITION_KEY = new ThreadLocal<>();
 
@@ -81,6 +87,7 @@ public class SiddhiAppContext {
         this.externalReferencedHolders = Collections.synchronizedList(new LinkedList<>());
         this.scriptFunctionMap = new HashMap<String, Script>();
         this.schedulerList = new ArrayList<Scheduler>();
+        this.sharedPanesMap = new HashMap<>();
         this.rootMetricsLevel = Level.OFF;
     }
 
@@ -208,6 +215,14 @@ public class SiddhiAppContext {
         this.snapshotService = snapshotService;
     }
 
+    public PersistencePipeline getPersistencePipeline() {
+        return persistencePipeline;
+    }
+
+    public void setPersistencePipeline(PersistencePipeline persistencePipeline) {
+        this.persistencePipeline = persistencePipeline;
+    }
+
 //    public IdGenerator getElementIdGenerator() {
 //        return idGenerator;
 //    }
@@ -280,6 +295,22 @@ public class SiddhiAppContext {
         this.transportChannelCreationEnabled = transportChannelCreationEnabled;
     }
 
+    public boolean isSnapshotCopyEnabled() {
+        return snapshotCopyEnabled;
+    }
+
+    public void setSnapshotCopyEnabled(boolean snapshotCopyEnabled) {
+        this.snapshotCopyEnabled = snapshotCopyEnabled;
+    }
+
+    public long getOperationChangeLogBudget() {
+        return operationChangeLogBudget;
+    }
+
+    public void setOperationChangeLogBudget(long operationChangeLogBudget) {
+        this.operationChangeLogBudget = operationChangeLogBudget;
+    }
+
     public void addScheduler(Scheduler scheduler) {
         this.schedulerList.add(scheduler);
     }
@@ -288,6 +319,17 @@ public class SiddhiAppContext {
         return schedulerList;
     }
 
+    /**
+     * Provides the closed panes shared by the pane mode aggregations of the Siddhi app having the same sharing key.
+     *
+     * @param paneSharingKey key identifying the stream, pane time, group by and aggregator of the aggregation
+     * @param paneTime       length of a pane in milliseconds
+     * @return the shared panes of the key
+     */
+    public SharedPanes getSharedPanes(String paneSharingKey, long paneTime) {
+        return sharedPanesMap.computeIfAbsent(paneSharingKey, key -> new SharedPanes(paneTime));
+    }
+
     public StateHolder generateStateHolder(String name, StateFactory stateFactory) {
         return generateStateHolder(name, stateFactory, false);
     }
@@ -18,6 +18,8 @@
 
 package io.siddhi.core.config;
 
+import io.siddhi.core.query.StoreQueryParameters;
+import io.siddhi.core.query.selector.attribute.aggregator.SharedPanes;
 import io.siddhi.core.util.IdGenerator;
 import io.siddhi.core.util.SiddhiConstants;
 import io.siddhi.core.util.snapshot.SnapshotService;
@@ -31,8 +33,10 @@ import io.siddhi.core.util.snapshot.state.StateHolder;
 import io.siddhi.core.util.statistics.LatencyTracker;
 import io.siddhi.query.api.SiddhiApp;
 import io.siddhi.query.api.execution.query.output.stream.OutputStream;
+import io.siddhi.query.api.expression.Expression;
 
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Holder object for context information of {@link SiddhiApp}.
@@ -47,6 +51,11 @@ public class SiddhiQueryContext {
     private LatencyTracker latencyTracker;
     private Map<String, StateHolder> stateHolderMap;
     private IdGenerator idGenerator;
+    private long paneWindowTime = -1;
+    private long paneTime = -1;
+    private String paneSharingScope;
+    private Set<Expression> paneSharableAggregations;
+    private StoreQueryParameters storeQueryParameters;
 
     public SiddhiQueryContext(SiddhiAppContext siddhiAppContext, String queryName) {
         this(siddhiAppContext, queryName, SiddhiConstants.PARTITION_ID_DEFAULT);
@@ -103,6 +112,66 @@ public class SiddhiQueryContext {
         partitioned = partitionable;
     }
 
+    /**
+     * Set by sliding time windows running in pane mode, so that the aggregators of the query aggregate over panes
+     * instead of relying on expired events.
+     *
+     * @param paneWindowTime length of the sliding window in milliseconds
+     * @param paneTime       length of a pane in milliseconds
+     */
+    public void setPaneConfiguration(long paneWindowTime, long paneTime) {
+        this.paneWindowTime = paneWindowTime;
+        this.paneTime = paneTime;
+    }
+
+    public boolean isPaned() {
+        return paneTime > 0;
+    }
+
+    public long getPaneWindowTime() {
+        return paneWindowTime;
+    }
+
+    public long getPaneTime() {
+        return paneTime;
+    }
+
+    /**
+     * Set when the query consumes a stream only through a sliding time window in pane mode, so that the given
+     * aggregations share their panes with the same aggregations of other queries in the same scope.
+     *
+     * @param paneSharingScope         scope identifying the stream, pane time and group by of the query
+     * @param paneSharableAggregations aggregations evaluated for every event, compared by identity
+     */
+    public void setPaneSharing(String paneSharingScope, Set<Expression> paneSharableAggregations) {
+        this.paneSharingScope = paneSharingScope;
+        this.paneSharableAggregations = paneSharableAggregations;
+    }
+
+    /**
+     * @param aggregation aggregation of the query
+     * @return the panes shared by the aggregation, or null if the panes of the aggregation are not shareable
+     */
+    public SharedPanes getSharedPanes(Expression aggregation) {
+        if (paneSharingScope == null || !paneSharableAggregations.contains(aggregation)) {
+            return null;
+        }
+        return siddhiAppContext.getSharedPanes(paneSharingScope + ":" + aggregation, paneTime);
+    }
+
+    /**
+     * Set when compiling a prepared store query, so that its parameters are bound to their executors.
+     *
+     * @param storeQueryParameters parameters of the prepared store query
+     */
+    public void setStoreQueryParameters(StoreQueryParameters storeQueryParameters) {
+        this.storeQueryParameters = storeQueryParameters;
+    }
+
+    public StoreQueryParameters getStoreQueryParameters() {
+        return storeQueryParameters;
+    }
+
     public String generateNewId() {
         return idGenerator.createNewId();
     }
@@ -25,6 +25,11 @@ import java.io.Serializable;
  */
 public class Operation implements Serializable {
 
+    private static final int OBJECT_SIZE = 16;
+    private static final int REFERENCE_SIZE = 8;
+    private static final int EVENT_SIZE = 48;
+    private static final int STRING_SIZE = 40;
+
     public Operator operation;
     public Object parameters;
 
@@ -37,6 +42,49 @@ public class Operation implements Serializable {
         this.operation = operation;
     }
 
+    /**
+     * Estimates the size of the operation from the number and the type of the values it holds, without
+     * traversing object graphs, such that operation change logs can be bounded at the cost of a few additions
+     * per operation.
+     *
+     * @return estimated size of the operation in bytes
+     */
+    public long estimateSize() {
+        return OBJECT_SIZE + REFERENCE_SIZE * 2 + estimateSize(parameters);
+    }
+
+    /**
+     * Estimates the size of a value held by an operation, where stream events are estimated along with the events
+     * chained to them.
+     *
+     * @param value value held by an operation
+     * @return estimated size of the value in bytes
+     */
+    public static long estimateSize(Object value) {
+        if (value == null) {
+            return 0;
+        } else if (value instanceof StreamEvent) {
+            long size = 0;
+            for (StreamEvent streamEvent = (StreamEvent) value; streamEvent != null;
+                 streamEvent = streamEvent.getNext()) {
+                size += EVENT_SIZE + estimateSize(streamEvent.getBeforeWindowData()) +
+                        estimateSize(streamEvent.getOnAfterWindowData()) + estimateSize(streamEvent.getOutputData());
+            }
+            return size;
+        } else if (value instanceof Object[]) {
+            Object[] values = (Object[]) value;
+            long size = OBJECT_SIZE + (long) REFERENCE_SIZE * values.length;
+            for (Object element : values) {
+                size += estimateSize(element);
+            }
+            return size;
+        } else if (value instanceof String) {
+            return STRING_SIZE + 2L * ((String) value).length();
+        } else {
+            return OBJECT_SIZE;
+        }
+    }
+
     /**
      * Possible Operator actions
      */
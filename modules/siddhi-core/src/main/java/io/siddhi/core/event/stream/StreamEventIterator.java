@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.core.event.stream;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterator over a chain of {@link StreamEvent}s, detaching each event from the chain as it is returned.
+ */
+public class StreamEventIterator implements Iterator<StreamEvent> {
+
+    private StreamEvent next;
+
+    public StreamEventIterator(StreamEvent first) {
+        this.next = first;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return next != null;
+    }
+
+    @Override
+    public StreamEvent next() {
+        if (next == null) {
+            throw new NoSuchElementException();
+        }
+        StreamEvent streamEvent = next;
+        next = streamEvent.getNext();
+        streamEvent.setNext(null);
+        return streamEvent;
+    }
+}
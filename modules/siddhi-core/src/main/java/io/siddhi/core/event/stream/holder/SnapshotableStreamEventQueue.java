@@ -20,6 +20,7 @@ package io.siddhi.core.event.stream.holder;
 import io.siddhi.core.event.stream.Operation;
 import io.siddhi.core.event.stream.Operation.Operator;
 import io.siddhi.core.event.stream.StreamEvent;
+import io.siddhi.core.util.SiddhiConstants;
 import io.siddhi.core.util.snapshot.SnapshotRequest;
 import io.siddhi.core.util.snapshot.state.Snapshot;
 import io.siddhi.core.util.snapshot.state.SnapshotStateList;
@@ -32,7 +33,9 @@ import java.util.NoSuchElementException;
 import java.util.TreeMap;
 
 /**
- * The class to hold stream events in a queue and by managing its snapshots
+ * The class to hold stream events in a queue and by managing its snapshots. Between snapshots the operations on the
+ * queue are logged, where events added and polled again within the same log cancel out, and the log is dropped in
+ * favour of a base snapshot once its estimated size exceeds the change log budget.
  */
 public class SnapshotableStreamEventQueue implements Iterator<StreamEvent>, Serializable {
     private static final long serialVersionUID = 3185987841726255019L;
@@ -41,9 +44,17 @@ public class SnapshotableStreamEventQueue implements Iterator<StreamEvent>, Seri
     protected StreamEvent lastReturned;
     protected StreamEvent last;
     private int operationChangeLogThreshold;
+    private long operationChangeLogBudget;
     private transient StreamEventClonerHolder eventClonerHolder;
     private ArrayList<Operation> operationChangeLog;
     private long operationChangeLogSize;
+    private long operationChangeLogBytes;
+    // events held when the log started, which are polled before any of the logged events
+    private int baseEventCount;
+    // index of the first logged addition having events that are not yet polled
+    private int firstAddIndex;
+    private boolean isOperationLogCancellable = true;
+    private int eventCount;
     private boolean forceFullSnapshot = true;
     private boolean isOperationLogEnabled = true;
     private int eventIndex = -1;
@@ -54,21 +65,20 @@ public class SnapshotableStreamEventQueue implements Iterator<StreamEvent>, Seri
     }
 
     public SnapshotableStreamEventQueue(StreamEventClonerHolder eventClonerHolder, int operationChangeLogThreshold) {
+        this(eventClonerHolder, operationChangeLogThreshold, SiddhiConstants.DEFAULT_OPERATION_CHANGE_LOG_BUDGET);
+    }
+
+    public SnapshotableStreamEventQueue(StreamEventClonerHolder eventClonerHolder, int operationChangeLogThreshold,
+                                        long operationChangeLogBudget) {
         this.operationChangeLog = new ArrayList<>();
         this.eventClonerHolder = eventClonerHolder;
         this.operationChangeLogThreshold = operationChangeLogThreshold;
+        this.operationChangeLogBudget = operationChangeLogBudget;
     }
 
     public void add(StreamEvent events) {
-        if (!isFullSnapshot()) {
-            if (isOperationLogEnabled) {
-                operationChangeLog.add(new Operation(Operator.ADD, copyEvents(events)));
-            }
-            operationChangeLogSize++;
-        } else {
-            operationChangeLog.clear();
-            operationChangeLogSize = 0;
-            forceFullSnapshot = true;
+        if (isOperationLogged()) {
+            appendOperation(new Operation(Operator.ADD, copyEvents(events)));
         }
 
         if (first == null) {
@@ -76,7 +86,10 @@ public class SnapshotableStreamEventQueue implements Iterator<StreamEvent>, Seri
         } else {
             last.setNext(events);
         }
-        last = getLastEvent(events);
+        for (StreamEvent event = events; event != null; event = event.getNext()) {
+            last = event;
+            eventCount++;
+        }
     }
 
     /**
@@ -97,6 +110,7 @@ public class SnapshotableStreamEventQueue implements Iterator<StreamEvent>, Seri
         if (lastReturned == null) {
             throw new IllegalStateException();
         }
+        boolean isFirstRemoved = previousToLastReturned == null;
         if (previousToLastReturned != null) {
             previousToLastReturned.setNext(lastReturned.getNext());
         } else {
@@ -107,28 +121,20 @@ public class SnapshotableStreamEventQueue implements Iterator<StreamEvent>, Seri
         }
         lastReturned.setNext(null);
         lastReturned = null;
-        if (!isFullSnapshot()) {
-            if (isOperationLogEnabled) {
-                operationChangeLog.add(new Operation(Operator.DELETE_BY_INDEX, eventIndex));
+        if (isOperationLogged()) {
+            if (isFirstRemoved) {
+                logFirstRemoved();
+            } else {
+                // removals can no longer be matched with the logged additions once events are removed by index
+                isOperationLogCancellable = false;
+                appendOperation(new Operation(Operator.DELETE_BY_INDEX, eventIndex));
             }
-            operationChangeLogSize++;
-        } else {
-            operationChangeLog.clear();
-            operationChangeLogSize = 0;
-            forceFullSnapshot = true;
         }
         eventIndex--;
+        eventCount--;
         size--;
     }
 
-    private StreamEvent getLastEvent(StreamEvent complexEvents) {
-        StreamEvent lastEvent = complexEvents;
-        while (lastEvent != null && lastEvent.getNext() != null) {
-            lastEvent = lastEvent.getNext();
-        }
-        return lastEvent;
-    }
-
     /**
      * Returns <tt>true</tt> if the iteration has more elements. (In other
      * words, returns <tt>true</tt> if <tt>next</tt> would return an element
@@ -171,15 +177,15 @@ public class SnapshotableStreamEventQueue implements Iterator<StreamEvent>, Seri
     }
 
     public void clear() {
-        this.operationChangeLog.clear();
-        operationChangeLogSize = 0;
-        forceFullSnapshot = true;
-
         previousToLastReturned = null;
         lastReturned = null;
         first = null;
         last = null;
         eventIndex = -1;
+        eventCount = 0;
+
+        clearOperationChangeLog();
+        forceFullSnapshot = true;
     }
 
     public void reset() {
@@ -202,16 +208,10 @@ public class SnapshotableStreamEventQueue implements Iterator<StreamEvent>, Seri
             StreamEvent firstEvent = first;
             first = first.getNext();
             firstEvent.setNext(null);
+            eventCount--;
 
-            if (!isFullSnapshot()) {
-                if (isOperationLogEnabled) {
-                    operationChangeLog.add(new Operation(Operator.REMOVE));
-                }
-                operationChangeLogSize++;
-            } else {
-                operationChangeLog.clear();
-                operationChangeLogSize = 0;
-                forceFullSnapshot = true;
+            if (isOperationLogged()) {
+                logFirstRemoved();
             }
             return firstEvent;
         } else {
@@ -274,20 +274,101 @@ public class SnapshotableStreamEventQueue implements Iterator<StreamEvent>, Seri
     public Snapshot getSnapshot() {
         if (isFullSnapshot()) {
             forceFullSnapshot = false;
+            if (!SnapshotRequest.isRequestForFullSnapshot()) {
+                clearOperationChangeLog();
+            }
             return new Snapshot(this.getFirst(), false);
         } else {
-            Snapshot snapshot = new Snapshot(operationChangeLog, true);
-            operationChangeLog = new ArrayList<>();
-            return snapshot;
+            ArrayList<Operation> operations = new ArrayList<>((int) operationChangeLogSize);
+            for (Operation operation : operationChangeLog) {
+                if (operation != null) {
+                    operations.add(operation);
+                }
+            }
+            clearOperationChangeLog();
+            return new Snapshot(operations, true);
         }
     }
 
     private boolean isFullSnapshot() {
-        return operationChangeLogSize > 100 || operationChangeLogSize > operationChangeLogThreshold
+        return operationChangeLogSize > operationChangeLogThreshold
                 || forceFullSnapshot || SnapshotRequest.isRequestForFullSnapshot();
 
     }
 
+    private boolean isOperationLogged() {
+        if (isFullSnapshot()) {
+            clearOperationChangeLog();
+            forceFullSnapshot = true;
+            return false;
+        }
+        return isOperationLogEnabled;
+    }
+
+    /**
+     * Appends an operation to the log, dropping the log once its estimated size exceeds the change log budget, as
+     * restoring from a base snapshot is then cheaper.
+     */
+    private void appendOperation(Operation operation) {
+        operationChangeLog.add(operation);
+        operationChangeLogSize++;
+        operationChangeLogBytes += operation.estimateSize();
+        if (operationChangeLogBytes > operationChangeLogBudget) {
+            clearOperationChangeLog();
+            forceFullSnapshot = true;
+        }
+    }
+
+    /**
+     * Logs the removal of the first event of the queue, which is restored by a poll. Once the events held when the
+     * log started are removed, the removed event is dropped from the logged addition holding it instead.
+     */
+    private void logFirstRemoved() {
+        if (isOperationLogCancellable && baseEventCount == 0) {
+            cancelFirstAddedEvent();
+        } else {
+            if (baseEventCount > 0) {
+                baseEventCount--;
+            }
+            appendOperation(new Operation(Operator.REMOVE));
+        }
+    }
+
+    /**
+     * Drops the first event of the first logged addition that still has events. This holds only while the log
+     * consists of additions and removals of the first event, as the queue then removes the events held when the log
+     * started before the logged ones, and the logged ones in their order of addition.
+     */
+    private void cancelFirstAddedEvent() {
+        for (; firstAddIndex < operationChangeLog.size(); firstAddIndex++) {
+            Operation operation = operationChangeLog.get(firstAddIndex);
+            if (operation != null && operation.operation == Operator.ADD) {
+                StreamEvent cancelledEvent = (StreamEvent) operation.parameters;
+                operation.parameters = cancelledEvent.getNext();
+                cancelledEvent.setNext(null);
+                operationChangeLogBytes -= Operation.estimateSize(cancelledEvent);
+                if (operation.parameters == null) {
+                    operationChangeLog.set(firstAddIndex, null);
+                    operationChangeLogSize--;
+                    operationChangeLogBytes -= operation.estimateSize();
+                }
+                return;
+            }
+        }
+        // the queue held events that were not logged, hence the removal is logged as is
+        isOperationLogCancellable = false;
+        appendOperation(new Operation(Operator.REMOVE));
+    }
+
+    private void clearOperationChangeLog() {
+        operationChangeLog.clear();
+        operationChangeLogSize = 0;
+        operationChangeLogBytes = 0;
+        baseEventCount = eventCount;
+        firstAddIndex = 0;
+        isOperationLogCancellable = true;
+    }
+
     public void restore(SnapshotStateList snapshotStatelist) {
         TreeMap<Long, Snapshot> revisions = snapshotStatelist.getSnapshotStates();
         Iterator<Map.Entry<Long, Snapshot>> itr = revisions.entrySet().iterator();
@@ -340,6 +421,7 @@ public class SnapshotableStreamEventQueue implements Iterator<StreamEvent>, Seri
                 }
             }
         }
+        clearOperationChangeLog();
         this.isOperationLogEnabled = true;
     }
 
@@ -359,17 +441,11 @@ public class SnapshotableStreamEventQueue implements Iterator<StreamEvent>, Seri
     }
 
     public void overwrite(StreamEvent streamEvent) {
-        if (!isFullSnapshot()) {
-            if (isOperationLogEnabled) {
-                operationChangeLog.add(new Operation(Operator.OVERWRITE,
-                        new Object[]{eventIndex,
-                                eventClonerHolder.getStreamEventCloner().copyStreamEvent(streamEvent)}));
-            }
-            operationChangeLogSize++;
-        } else {
-            operationChangeLog.clear();
-            operationChangeLogSize = 0;
-            forceFullSnapshot = true;
+        if (isOperationLogged()) {
+            // the overwritten event might be a logged one, which the log would no longer hold when polled
+            isOperationLogCancellable = false;
+            appendOperation(new Operation(Operator.OVERWRITE,
+                    new Object[]{eventIndex, eventClonerHolder.getStreamEventCloner().copyStreamEvent(streamEvent)}));
         }
 
         if (previousToLastReturned != null) {
@@ -0,0 +1,259 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.siddhi.core.event.stream.holder;
+
+import io.siddhi.core.event.stream.Operation;
+import io.siddhi.core.event.stream.StreamEvent;
+import io.siddhi.core.util.snapshot.SnapshotRequest;
+import io.siddhi.core.util.snapshot.state.Snapshot;
+import io.siddhi.core.util.snapshot.state.SnapshotStateList;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * The class to hold a bounded number of stream events in insertion order using a ring buffer, and to manage its
+ * snapshots. Slots are reused in place, hence unlike {@link SnapshotableStreamEventQueue} events are not linked
+ * to each other and no operation is recorded per add or remove.
+ * <p>
+ * Full snapshots contain the events from the oldest to the newest as a contiguous array, and incremental snapshots
+ * contain the current size and the events added since the last snapshot that are still retained.
+ */
+public class SnapshotableStreamEventRingBuffer extends AbstractCollection<StreamEvent> {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int capacity;
+    private StreamEvent[] buffer;
+    private int head = 0;
+    private int size = 0;
+    private int addedSinceSnapshot = 0;
+    private boolean forceFullSnapshot = true;
+
+    /**
+     * @param capacity maximum number of events retained, slots are allocated on demand up to this capacity
+     */
+    public SnapshotableStreamEventRingBuffer(int capacity) {
+        this.capacity = capacity;
+        this.buffer = new StreamEvent[Math.min(capacity, INITIAL_CAPACITY)];
+    }
+
+    @Override
+    public boolean add(StreamEvent streamEvent) {
+        if (size == capacity) {
+            throw new IllegalStateException("Ring buffer is full, capacity: " + capacity);
+        }
+        if (size == buffer.length) {
+            grow();
+        }
+        buffer[(head + size) % buffer.length] = streamEvent;
+        size++;
+        if (addedSinceSnapshot < capacity) {
+            addedSinceSnapshot++;
+        }
+        return true;
+    }
+
+    /**
+     * Removes and returns the oldest event.
+     *
+     * @return the oldest event, or null if the buffer is empty
+     */
+    public StreamEvent poll() {
+        if (size == 0) {
+            return null;
+        }
+        StreamEvent streamEvent = buffer[head];
+        buffer[head] = null;
+        head = (head + 1) % buffer.length;
+        size--;
+        return streamEvent;
+    }
+
+    public StreamEvent getFirst() {
+        return size == 0 ? null : buffer[head];
+    }
+
+    public StreamEvent getLast() {
+        return size == 0 ? null : buffer[(head + size - 1) % buffer.length];
+    }
+
+    /**
+     * @param index position from the oldest event
+     * @return the event at the given position
+     */
+    public StreamEvent get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return buffer[(head + index) % buffer.length];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    public boolean isFull() {
+        return size == capacity;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            buffer[(head + i) % buffer.length] = null;
+        }
+        head = 0;
+        size = 0;
+        addedSinceSnapshot = 0;
+        forceFullSnapshot = true;
+    }
+
+    @Override
+    public Iterator<StreamEvent> iterator() {
+        return new Iterator<StreamEvent>() {
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < size;
+            }
+
+            @Override
+            public StreamEvent next() {
+                if (index >= size) {
+                    throw new NoSuchElementException();
+                }
+                return buffer[(head + index++) % buffer.length];
+            }
+        };
+    }
+
+    public Snapshot getSnapshot() {
+        Snapshot snapshot;
+        if (forceFullSnapshot || SnapshotRequest.isRequestForFullSnapshot() || addedSinceSnapshot >= size) {
+            forceFullSnapshot = false;
+            snapshot = new Snapshot(toEventArray(0), false);
+        } else {
+            snapshot = new Snapshot(new Object[]{size, toEventArray(size - addedSinceSnapshot)}, true);
+        }
+        addedSinceSnapshot = 0;
+        return snapshot;
+    }
+
+    public void restore(SnapshotStateList snapshotStateList) {
+        for (Map.Entry<Long, Snapshot> snapshotEntry : snapshotStateList.getSnapshotStates().entrySet()) {
+            Snapshot snapshot = snapshotEntry.getValue();
+            if (!snapshot.isIncrementalSnapshot()) {
+                clear();
+                if (snapshot.getState() instanceof StreamEvent) {
+                    appendEvents((StreamEvent) snapshot.getState());
+                } else {
+                    appendEvents((StreamEvent[]) snapshot.getState());
+                }
+            } else if (snapshot.getState() instanceof ArrayList) {
+                restoreOperations((ArrayList<Operation>) snapshot.getState());
+            } else {
+                Object[] increment = (Object[]) snapshot.getState();
+                appendEvents((StreamEvent[]) increment[1]);
+                int retainedSize = (int) increment[0];
+                while (size > retainedSize) {
+                    poll();
+                }
+            }
+        }
+        forceFullSnapshot = false;
+        addedSinceSnapshot = 0;
+    }
+
+    /**
+     * Restores operations recorded by {@link SnapshotableStreamEventQueue}, to support snapshots taken before
+     * the window moved to a ring buffer.
+     */
+    private void restoreOperations(ArrayList<Operation> operations) {
+        for (Operation operation : operations) {
+            switch (operation.operation) {
+                case ADD:
+                    appendEvents((StreamEvent) operation.parameters);
+                    break;
+                case REMOVE:
+                    poll();
+                    break;
+                case CLEAR:
+                    clear();
+                    break;
+                default:
+                    throw new IllegalStateException("Operation " + operation.operation +
+                            " is not supported by the ring buffer");
+            }
+        }
+    }
+
+    private void appendEvents(StreamEvent streamEvent) {
+        while (streamEvent != null) {
+            StreamEvent next = streamEvent.getNext();
+            streamEvent.setNext(null);
+            addEvicting(streamEvent);
+            streamEvent = next;
+        }
+    }
+
+    private void appendEvents(StreamEvent[] streamEvents) {
+        for (StreamEvent streamEvent : streamEvents) {
+            addEvicting(streamEvent);
+        }
+    }
+
+    private void addEvicting(StreamEvent streamEvent) {
+        if (size == capacity) {
+            poll();
+        }
+        add(streamEvent);
+    }
+
+    private StreamEvent[] toEventArray(int fromIndex) {
+        StreamEvent[] streamEvents = new StreamEvent[size - fromIndex];
+        for (int i = fromIndex; i < size; i++) {
+            streamEvents[i - fromIndex] = buffer[(head + i) % buffer.length];
+        }
+        return streamEvents;
+    }
+
+    private void grow() {
+        int newLength = (int) Math.min(capacity, Math.max(1L, (long) buffer.length << 1));
+        StreamEvent[] newBuffer = Arrays.copyOf(toEventArray(0), newLength);
+        head = 0;
+        buffer = newBuffer;
+    }
+
+    @Override
+    public String toString() {
+        return "EventRingBuffer{" +
+                "size=" + size +
+                ", capacity=" + capacity +
+                '}';
+    }
+}
@@ -33,6 +33,9 @@ import io.siddhi.core.stream.StreamJunction;
 import io.siddhi.core.util.SiddhiConstants;
 import io.siddhi.core.util.parser.helper.DefinitionParserHelper;
 import io.siddhi.core.util.parser.helper.QueryParserHelper;
+import io.siddhi.core.util.snapshot.SnapshotRequest;
+import io.siddhi.core.util.snapshot.state.Snapshot;
+import io.siddhi.core.util.snapshot.state.SnapshotStateList;
 import io.siddhi.core.util.snapshot.state.State;
 import io.siddhi.core.util.snapshot.state.StateHolder;
 import io.siddhi.core.util.statistics.MemoryUsageTracker;
@@ -353,11 +356,11 @@ public class PartitionRuntime {
                             queryRuntime.initPartition();
                         }
                     }
-                    state.partitionKeys.put(SiddhiAppContext.getPartitionFlowId(),
+                    state.putPartitionKey(SiddhiAppContext.getPartitionFlowId(),
                             siddhiAppContext.getTimestampGenerator().currentTime());
                 }
             } else {
-                state.partitionKeys.put(SiddhiAppContext.getPartitionFlowId(),
+                state.putPartitionKey(SiddhiAppContext.getPartitionFlowId(),
                         siddhiAppContext.getTimestampGenerator().currentTime());
             }
         } finally {
@@ -374,7 +377,7 @@ public class PartitionRuntime {
                             HashMap<String, Long> partitions = new HashMap<>(state.partitionKeys);
                             for (Map.Entry<String, Long> partition : partitions.entrySet()) {
                                 if (partition.getValue() + purgeIdlePeriod < currentTime) {
-                                    state.partitionKeys.remove(partition.getKey());
+                                    state.removePartitionKey(partition.getKey());
                                     SiddhiAppContext.startPartitionFlow(partition.getKey());
                                     try {
                                         for (QueryRuntime queryRuntime : queryRuntimeList) {
@@ -409,11 +412,34 @@ public class PartitionRuntime {
     }
 
     /**
-     * State of partition
+     * State of partition, which snapshots only the partition keys updated and removed since its last incremental
+     * snapshot, unless most of the keys have changed. The changed keys are only tracked when an incremental
+     * persistence store is configured as the state is created, as they are only cleared by incremental snapshots.
      */
     public class PartitionState extends State {
 
         private Map<String, Long> partitionKeys = new ConcurrentHashMap<>();
+        private Map<String, Long> updatedPartitionKeys = new ConcurrentHashMap<>();
+        private Set<String> removedPartitionKeys = ConcurrentHashMap.newKeySet();
+        private boolean forceFullSnapshot = true;
+        private final boolean trackChanges =
+                siddhiAppContext.getSiddhiContext().getIncrementalPersistenceStore() != null;
+
+        private void putPartitionKey(String partitionKey, Long time) {
+            partitionKeys.put(partitionKey, time);
+            if (trackChanges) {
+                updatedPartitionKeys.put(partitionKey, time);
+                removedPartitionKeys.remove(partitionKey);
+            }
+        }
+
+        private void removePartitionKey(String partitionKey) {
+            partitionKeys.remove(partitionKey);
+            if (trackChanges) {
+                updatedPartitionKeys.remove(partitionKey);
+                removedPartitionKeys.add(partitionKey);
+            }
+        }
 
         @Override
         public boolean canDestroy() {
@@ -423,13 +449,39 @@ public class PartitionRuntime {
         @Override
         public Map<String, Object> snapshot() {
             Map<String, Object> state = new HashMap<>();
-            state.put("PartitionKeys", partitionKeys);
+            if (SnapshotRequest.isRequestForFullSnapshot()) {
+                state.put("PartitionKeys", new Snapshot(partitionKeys));
+            } else {
+                if (!trackChanges || forceFullSnapshot ||
+                        updatedPartitionKeys.size() + removedPartitionKeys.size() > partitionKeys.size() / 2) {
+                    state.put("PartitionKeys", new Snapshot(partitionKeys));
+                    forceFullSnapshot = false;
+                } else {
+                    state.put("PartitionKeys", new Snapshot(new Object[]{new HashMap<>(updatedPartitionKeys),
+                            new HashSet<>(removedPartitionKeys)}, true));
+                }
+                updatedPartitionKeys.clear();
+                removedPartitionKeys.clear();
+            }
             return state;
         }
 
         @Override
         public void restore(Map<String, Object> state) {
-            partitionKeys = (Map<String, Long>) state.get("PartitionKeys");
+            Object partitionKeysState = state.get("PartitionKeys");
+            if (partitionKeysState instanceof SnapshotStateList) {
+                for (Snapshot snapshot : ((SnapshotStateList) partitionKeysState).getSnapshotStates().values()) {
+                    if (!snapshot.isIncrementalSnapshot()) {
+                        partitionKeys = new ConcurrentHashMap<>((Map<String, Long>) snapshot.getState());
+                    } else {
+                        Object[] changes = (Object[]) snapshot.getState();
+                        partitionKeys.putAll((Map<String, Long>) changes[0]);
+                        partitionKeys.keySet().removeAll((Set<String>) changes[1]);
+                    }
+                }
+            } else {
+                partitionKeys = (Map<String, Long>) partitionKeysState;
+            }
         }
     }
 
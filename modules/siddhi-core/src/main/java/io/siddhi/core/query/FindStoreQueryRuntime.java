@@ -25,12 +25,14 @@ import io.siddhi.core.event.Event;
 import io.siddhi.core.event.state.StateEvent;
 import io.siddhi.core.event.stream.MetaStreamEvent;
 import io.siddhi.core.event.stream.StreamEvent;
+import io.siddhi.core.event.stream.StreamEventIterator;
 import io.siddhi.core.exception.StoreQueryRuntimeException;
 import io.siddhi.core.table.Table;
 import io.siddhi.core.util.collection.operator.CompiledCondition;
 import io.siddhi.core.window.Window;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 import static io.siddhi.core.util.StoreQueryRuntimeUtil.executeSelector;
@@ -116,6 +118,31 @@ public class FindStoreQueryRuntime extends StoreQueryRuntime {
         }
     }
 
+    @Override
+    public StoreQueryResultIterator executeStream(int fetchSize) {
+        if (selector != null && !selector.isProcessableInParts()) {
+            return super.executeStream(fetchSize);
+        }
+        try {
+            StateEvent stateEvent = new StateEvent(1, 0);
+            Iterator<StreamEvent> streamEvents;
+            switch (eventType) {
+                case TABLE:
+                    streamEvents = table.findEvents(stateEvent, compiledCondition);
+                    break;
+                case WINDOW:
+                    streamEvents = new StreamEventIterator(window.find(stateEvent, compiledCondition));
+                    break;
+                default:
+                    return super.executeStream(fetchSize);
+            }
+            return new StoreQueryResultIterator(queryName, streamEvents, selector, stateEventFactory, eventType,
+                    fetchSize);
+        } catch (Throwable t) {
+            throw new StoreQueryRuntimeException("Error executing '" + queryName + "', " + t.getMessage(), t);
+        }
+    }
+
     @Override
     public void reset() {
         if (selector != null) {
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.core.query;
+
+import io.siddhi.core.aggregation.AggregationRuntime;
+import io.siddhi.core.config.SiddhiAppContext;
+import io.siddhi.core.event.Event;
+import io.siddhi.core.exception.StoreQueryCreationException;
+import io.siddhi.core.table.Table;
+import io.siddhi.core.util.parser.StoreQueryParser;
+import io.siddhi.core.util.statistics.LatencyTracker;
+import io.siddhi.core.util.statistics.metrics.Level;
+import io.siddhi.core.window.Window;
+import io.siddhi.query.api.definition.Attribute;
+import io.siddhi.query.api.exception.SiddhiAppContextException;
+import io.siddhi.query.api.execution.query.StoreQuery;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Store query parsed once, with parameters bound to values on each execution. Runtimes of the query are compiled on
+ * demand and pooled, so that the query can be executed concurrently without recompiling it and without locking the
+ * Siddhi App runtime.
+ */
+public class PreparedStoreQuery {
+
+    private final StoreQuery storeQuery;
+    private final String storeQueryString;
+    private final Map<String, Attribute.Type> parameterTypes;
+    private final SiddhiAppContext siddhiAppContext;
+    private final Map<String, Table> tableMap;
+    private final Map<String, Window> windowMap;
+    private final Map<String, AggregationRuntime> aggregationMap;
+    private final LatencyTracker latencyTracker;
+    private final Queue<CompiledStoreQuery> compiledStoreQueries = new ConcurrentLinkedQueue<>();
+    private final Attribute[] outputAttributes;
+
+    public PreparedStoreQuery(StoreQuery storeQuery, String storeQueryString,
+                              Map<String, Attribute.Type> parameterTypes, SiddhiAppContext siddhiAppContext,
+                              Map<String, Table> tableMap, Map<String, Window> windowMap,
+                              Map<String, AggregationRuntime> aggregationMap, LatencyTracker latencyTracker) {
+        this.storeQuery = storeQuery;
+        this.storeQueryString = storeQueryString;
+        this.parameterTypes = Collections.unmodifiableMap(parameterTypes);
+        this.siddhiAppContext = siddhiAppContext;
+        this.tableMap = tableMap;
+        this.windowMap = windowMap;
+        this.aggregationMap = aggregationMap;
+        this.latencyTracker = latencyTracker;
+        CompiledStoreQuery compiledStoreQuery = compile();
+        this.outputAttributes = compiledStoreQuery.storeQueryRuntime.getStoreQueryOutputAttributes();
+        compiledStoreQueries.add(compiledStoreQuery);
+    }
+
+    /**
+     * Executes the query with the given parameter values.
+     *
+     * @param parameterValues values of all the parameters, keyed by their names without the leading '?'
+     * @return an array of Events.
+     */
+    public Event[] execute(Map<String, Object> parameterValues) {
+        try {
+            if (Level.BASIC.compareTo(siddhiAppContext.getRootMetricsLevel()) <= 0 && latencyTracker != null) {
+                latencyTracker.markIn();
+            }
+            CompiledStoreQuery compiledStoreQuery = compiledStoreQueries.poll();
+            if (compiledStoreQuery == null) {
+                compiledStoreQuery = compile();
+            } else {
+                compiledStoreQuery.storeQueryRuntime.reset();
+            }
+            try {
+                compiledStoreQuery.storeQueryParameters.bind(parameterValues);
+                return compiledStoreQuery.storeQueryRuntime.execute();
+            } finally {
+                compiledStoreQueries.offer(compiledStoreQuery);
+            }
+        } catch (RuntimeException e) {
+            if (e instanceof SiddhiAppContextException) {
+                throw new StoreQueryCreationException(((SiddhiAppContextException) e).getMessageWithOutContext(), e,
+                        ((SiddhiAppContextException) e).getQueryContextStartIndex(),
+                        ((SiddhiAppContextException) e).getQueryContextEndIndex(), null, storeQueryString);
+            }
+            throw new StoreQueryCreationException(e.getMessage(), e);
+        } finally {
+            if (Level.BASIC.compareTo(siddhiAppContext.getRootMetricsLevel()) <= 0 && latencyTracker != null) {
+                latencyTracker.markOut();
+            }
+        }
+    }
+
+    /**
+     * @return names of the parameters without the leading '?', and their types
+     */
+    public Map<String, Attribute.Type> getParameterTypes() {
+        return parameterTypes;
+    }
+
+    public Attribute[] getStoreQueryOutputAttributes() {
+        return outputAttributes.clone();
+    }
+
+    private synchronized CompiledStoreQuery compile() {
+        StoreQueryParameters storeQueryParameters = new StoreQueryParameters(parameterTypes);
+        StoreQueryRuntime storeQueryRuntime = StoreQueryParser.parse(storeQuery, siddhiAppContext, tableMap,
+                windowMap, aggregationMap, storeQueryParameters);
+        return new CompiledStoreQuery(storeQueryRuntime, storeQueryParameters);
+    }
+
+    /**
+     * Runtime of the query together with the parameters it reads, used by a single execution at a time.
+     */
+    private static class CompiledStoreQuery {
+        private final StoreQueryRuntime storeQueryRuntime;
+        private final StoreQueryParameters storeQueryParameters;
+
+        private CompiledStoreQuery(StoreQueryRuntime storeQueryRuntime, StoreQueryParameters storeQueryParameters) {
+            this.storeQueryRuntime = storeQueryRuntime;
+            this.storeQueryParameters = storeQueryParameters;
+        }
+    }
+}
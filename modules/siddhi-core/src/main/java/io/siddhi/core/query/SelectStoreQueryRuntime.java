@@ -25,11 +25,13 @@ import io.siddhi.core.event.stream.MetaStreamEvent;
 import io.siddhi.core.event.stream.StreamEvent;
 import io.siddhi.core.exception.StoreQueryRuntimeException;
 import io.siddhi.core.query.processor.stream.window.QueryableProcessor;
+import io.siddhi.core.table.record.AbstractQueryableRecordTable;
 import io.siddhi.core.util.collection.operator.CompiledCondition;
 import io.siddhi.core.util.collection.operator.CompiledSelection;
 import io.siddhi.query.api.definition.Attribute;
 
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -72,6 +74,21 @@ public class SelectStoreQueryRuntime extends StoreQueryRuntime {
         }
     }
 
+    @Override
+    public StoreQueryResultIterator executeStream(int fetchSize) {
+        if (!(queryableProcessor instanceof AbstractQueryableRecordTable)) {
+            return super.executeStream(fetchSize);
+        }
+        try {
+            StateEvent stateEvent = new StateEvent(1, 0);
+            Iterator<StreamEvent> streamEvents = ((AbstractQueryableRecordTable) queryableProcessor).queryEvents(
+                    stateEvent, compiledCondition, compiledSelection, outputAttributes);
+            return new StoreQueryResultIterator(queryName, streamEvents, fetchSize);
+        } catch (Throwable t) {
+            throw new StoreQueryRuntimeException("Error executing '" + queryName + "', " + t.getMessage(), t);
+        }
+    }
+
     @Override
     public void reset() {
         if (selector != null) {
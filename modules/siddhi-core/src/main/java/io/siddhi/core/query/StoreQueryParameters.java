@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.core.query;
+
+import io.siddhi.core.exception.SiddhiAppCreationException;
+import io.siddhi.core.exception.StoreQueryRuntimeException;
+import io.siddhi.core.executor.ParameterExpressionExecutor;
+import io.siddhi.query.api.definition.Attribute;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parameters of a compiled prepared store query, holding the executors the parameter values are bound to.
+ */
+public class StoreQueryParameters {
+
+    private final Map<String, Attribute.Type> parameterTypes;
+    private final Map<String, List<ParameterExpressionExecutor>> parameterExecutors = new HashMap<>();
+
+    public StoreQueryParameters(Map<String, Attribute.Type> parameterTypes) {
+        this.parameterTypes = parameterTypes;
+    }
+
+    public Attribute.Type getType(String name) {
+        Attribute.Type type = parameterTypes.get(name);
+        if (type == null) {
+            throw new SiddhiAppCreationException("Parameter '?" + name + "' is not defined");
+        }
+        return type;
+    }
+
+    /**
+     * Creates an executor returning the value bound to the parameter.
+     *
+     * @param name name of the parameter
+     * @return executor of the parameter
+     */
+    public ParameterExpressionExecutor createExecutor(String name) {
+        ParameterExpressionExecutor parameterExpressionExecutor = new ParameterExpressionExecutor(name,
+                getType(name));
+        parameterExecutors.computeIfAbsent(name, k -> new ArrayList<>()).add(parameterExpressionExecutor);
+        return parameterExpressionExecutor;
+    }
+
+    /**
+     * Binds the values to the executors of the parameters.
+     *
+     * @param parameterValues values of all the parameters, keyed by their names
+     */
+    public void bind(Map<String, Object> parameterValues) {
+        for (Map.Entry<String, Attribute.Type> entry : parameterTypes.entrySet()) {
+            String name = entry.getKey();
+            if (!parameterValues.containsKey(name)) {
+                throw new StoreQueryRuntimeException("No value given for the parameter '?" + name + "'");
+            }
+            Object value = parameterValues.get(name);
+            if (value != null && !isOfType(value, entry.getValue())) {
+                throw new StoreQueryRuntimeException("Parameter '?" + name + "' expects a value of type " +
+                        entry.getValue() + ", but found '" + value + "' of " + value.getClass());
+            }
+            List<ParameterExpressionExecutor> executors = parameterExecutors.get(name);
+            if (executors != null) {
+                for (ParameterExpressionExecutor executor : executors) {
+                    executor.setValue(value);
+                }
+            }
+        }
+    }
+
+    private static boolean isOfType(Object value, Attribute.Type type) {
+        switch (type) {
+            case STRING:
+                return value instanceof String;
+            case INT:
+                return value instanceof Integer;
+            case LONG:
+                return value instanceof Long;
+            case FLOAT:
+                return value instanceof Float;
+            case DOUBLE:
+                return value instanceof Double;
+            case BOOL:
+                return value instanceof Boolean;
+            default:
+                return true;
+        }
+    }
+}
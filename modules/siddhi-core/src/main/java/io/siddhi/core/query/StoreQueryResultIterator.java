@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.core.query;
+
+import io.siddhi.core.event.Event;
+import io.siddhi.core.event.state.StateEventFactory;
+import io.siddhi.core.event.stream.MetaStreamEvent;
+import io.siddhi.core.event.stream.StreamEvent;
+import io.siddhi.core.exception.StoreQueryRuntimeException;
+import io.siddhi.core.query.selector.QuerySelector;
+import io.siddhi.core.util.SiddhiConstants;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static io.siddhi.core.util.StoreQueryRuntimeUtil.executeSelectorPart;
+
+/**
+ * Iterator over the result of a store query, which reads the matching events a part at a time, such that large
+ * results are never held in memory at once. Offset and limit of the query are applied as the parts are read, and
+ * reading stops as soon as the limit is reached. The iterator has to be closed if it is not read to the end, to
+ * release the resources of the underlying store.
+ */
+public class StoreQueryResultIterator implements Iterator<Event>, Closeable {
+
+    private final String queryName;
+    private final Iterator<StreamEvent> streamEvents;
+    private final QuerySelector selector;
+    private final StateEventFactory stateEventFactory;
+    private final MetaStreamEvent.EventType eventType;
+    private final int fetchSize;
+    private final Queue<Event> fetchedEvents = new ArrayDeque<>();
+    private long eventsToSkip = SiddhiConstants.UNKNOWN_STATE;
+    private long eventsToReturn = SiddhiConstants.UNKNOWN_STATE;
+    private boolean closed = false;
+
+    StoreQueryResultIterator(String queryName, Event[] events) {
+        this(queryName, Collections.emptyIterator(), 1);
+        if (events != null) {
+            Collections.addAll(fetchedEvents, events);
+        }
+    }
+
+    StoreQueryResultIterator(String queryName, Iterator<StreamEvent> streamEvents, int fetchSize) {
+        this(queryName, streamEvents, null, null, null, fetchSize);
+    }
+
+    StoreQueryResultIterator(String queryName, Iterator<StreamEvent> streamEvents, QuerySelector selector,
+                             StateEventFactory stateEventFactory, MetaStreamEvent.EventType eventType,
+                             int fetchSize) {
+        this.queryName = queryName;
+        this.streamEvents = streamEvents;
+        this.selector = selector;
+        this.stateEventFactory = stateEventFactory;
+        this.eventType = eventType;
+        this.fetchSize = fetchSize;
+        if (selector != null) {
+            this.eventsToSkip = selector.getOffset();
+            this.eventsToReturn = selector.getLimit();
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (fetchedEvents.isEmpty() && !closed) {
+            fetch();
+        }
+        return !fetchedEvents.isEmpty();
+    }
+
+    @Override
+    public Event next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return fetchedEvents.poll();
+    }
+
+    /**
+     * @return a sequential stream over the remaining events, which closes this iterator when it is closed
+     */
+    public Stream<Event> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this,
+                Spliterator.ORDERED | Spliterator.NONNULL), false).onClose(this::close);
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        fetchedEvents.clear();
+        if (streamEvents instanceof Closeable) {
+            try {
+                ((Closeable) streamEvents).close();
+            } catch (IOException e) {
+                throw new StoreQueryRuntimeException("Error closing the result of '" + queryName + "', " +
+                        e.getMessage(), e);
+            }
+        }
+    }
+
+    private void fetch() {
+        if (eventsToReturn == 0 || !streamEvents.hasNext()) {
+            close();
+            return;
+        }
+        try {
+            StreamEvent first = null;
+            StreamEvent last = null;
+            for (int i = 0; i < fetchSize && streamEvents.hasNext(); i++) {
+                StreamEvent streamEvent = streamEvents.next();
+                if (first == null) {
+                    first = streamEvent;
+                } else {
+                    last.setNext(streamEvent);
+                }
+                last = streamEvent;
+            }
+            if (selector != null) {
+                Event[] events = executeSelectorPart(first, selector, stateEventFactory, eventType);
+                if (events != null) {
+                    for (Event event : events) {
+                        addFetchedEvent(event);
+                    }
+                }
+            } else {
+                for (StreamEvent streamEvent = first; streamEvent != null; streamEvent = streamEvent.getNext()) {
+                    addFetchedEvent(new Event(streamEvent.getTimestamp(), streamEvent.getOutputData()));
+                }
+            }
+        } catch (RuntimeException e) {
+            close();
+            throw new StoreQueryRuntimeException("Error reading the result of '" + queryName + "', " +
+                    e.getMessage(), e);
+        }
+    }
+
+    private void addFetchedEvent(Event event) {
+        if (eventsToSkip > 0) {
+            eventsToSkip--;
+        } else if (eventsToReturn != 0) {
+            fetchedEvents.add(event);
+            if (eventsToReturn > 0) {
+                eventsToReturn--;
+            }
+        }
+    }
+}
@@ -68,6 +68,17 @@ public abstract class StoreQueryRuntime {
         }
     }
 
+    /**
+     * This method initiates the execution of store query, returning an iterator that reads the resulting events in
+     * parts of the given size where the queried store supports it, and reads them all at once otherwise.
+     *
+     * @param fetchSize maximum number of events to read from the store at a time
+     * @return an iterator over the resulting events, to be closed if it is not read to the end.
+     */
+    public StoreQueryResultIterator executeStream(int fetchSize) {
+        return new StoreQueryResultIterator(queryName, execute());
+    }
+
     /**
      * This method sets a state event pool for store query runtime.
      *
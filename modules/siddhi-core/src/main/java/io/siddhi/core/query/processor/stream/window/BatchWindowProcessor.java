@@ -215,7 +215,8 @@ public class BatchWindowProcessor extends BatchingFindableWindowProcessor<BatchW
         WindowState(StreamEventClonerHolder streamEventClonerHolder,
                     boolean outputExpectsExpiredEvents, boolean findToBeExecuted) {
             if (outputExpectsExpiredEvents || findToBeExecuted) {
-                expiredEventQueue = new SnapshotableStreamEventQueue(streamEventClonerHolder);
+                expiredEventQueue = new SnapshotableStreamEventQueue(streamEventClonerHolder, Integer.MAX_VALUE,
+                        siddhiQueryContext.getSiddhiAppContext().getOperationChangeLogBudget());
             }
         }
 
@@ -246,8 +246,10 @@ public class CronWindowProcessor extends BatchingWindowProcessor<CronWindowProce
         private SnapshotableStreamEventQueue expiredEventQueue;
 
         WindowState(StreamEventClonerHolder streamEventClonerHolder) {
-            currentEventQueue = new SnapshotableStreamEventQueue(streamEventClonerHolder);
-            expiredEventQueue = new SnapshotableStreamEventQueue(streamEventClonerHolder);
+            currentEventQueue = new SnapshotableStreamEventQueue(streamEventClonerHolder, Integer.MAX_VALUE,
+                    siddhiQueryContext.getSiddhiAppContext().getOperationChangeLogBudget());
+            expiredEventQueue = new SnapshotableStreamEventQueue(streamEventClonerHolder, Integer.MAX_VALUE,
+                    siddhiQueryContext.getSiddhiAppContext().getOperationChangeLogBudget());
         }
 
         @Override
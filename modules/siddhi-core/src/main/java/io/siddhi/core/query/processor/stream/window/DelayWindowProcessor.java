@@ -182,7 +182,8 @@ public class DelayWindowProcessor extends TimeWindowProcessor {
 
         DelayedWindowState(StreamEventClonerHolder streamEventClonerHolder) {
             super(streamEventClonerHolder);
-            this.delayedEventQueue = new SnapshotableStreamEventQueue(streamEventClonerHolder);
+            this.delayedEventQueue = new SnapshotableStreamEventQueue(streamEventClonerHolder, Integer.MAX_VALUE,
+                    siddhiQueryContext.getSiddhiAppContext().getOperationChangeLogBudget());
         }
 
         @Override
@@ -182,7 +182,8 @@ public class ExternalTimeWindowProcessor
 
     class WindowState extends State {
         private SnapshotableStreamEventQueue expiredEventQueue =
-                new SnapshotableStreamEventQueue(streamEventClonerHolder);
+                new SnapshotableStreamEventQueue(streamEventClonerHolder, Integer.MAX_VALUE,
+                        siddhiQueryContext.getSiddhiAppContext().getOperationChangeLogBudget());
 
         @Override
         public boolean canDestroy() {
@@ -27,7 +27,7 @@ import io.siddhi.core.event.ComplexEventChunk;
 import io.siddhi.core.event.state.StateEvent;
 import io.siddhi.core.event.stream.StreamEvent;
 import io.siddhi.core.event.stream.StreamEventCloner;
-import io.siddhi.core.event.stream.holder.SnapshotableStreamEventQueue;
+import io.siddhi.core.event.stream.holder.SnapshotableStreamEventRingBuffer;
 import io.siddhi.core.event.stream.holder.StreamEventClonerHolder;
 import io.siddhi.core.executor.ConstantExpressionExecutor;
 import io.siddhi.core.executor.ExpressionExecutor;
@@ -141,8 +141,7 @@ public class LengthBatchWindowProcessor extends
                     "window.length) or two parameters (<int> window.length, <bool> stream.current.event), " +
                     "but found " + attributeExpressionExecutors.length + " input parameters.");
         }
-        return () -> new WindowState(streamEventClonerHolder, isStreamCurrentEvents,
-                outputExpectsExpiredEvents, findToBeExecuted);
+        return () -> new WindowState(isStreamCurrentEvents, outputExpectsExpiredEvents, findToBeExecuted);
     }
 
     @Override
@@ -206,14 +205,7 @@ public class LengthBatchWindowProcessor extends
         state.currentEventQueue.add(clonedStreamEvent);
         state.count++;
         if (state.count == length) {
-            if (outputExpectsExpiredEvents && state.expiredEventQueue.getFirst() != null) {
-                while (state.expiredEventQueue.hasNext()) {
-                    StreamEvent expiredEvent = state.expiredEventQueue.next();
-                    expiredEvent.setTimestamp(currentTime);
-                }
-                outputStreamEventChunk.add(state.expiredEventQueue.getFirst());
-                state.expiredEventQueue.clear();
-            }
+            flushExpiredEvents(outputStreamEventChunk, currentTime, state);
 
             if (state.resetEvent != null) {
                 state.resetEvent.setTimestamp(currentTime);
@@ -221,17 +213,15 @@ public class LengthBatchWindowProcessor extends
                 state.resetEvent = null;
             }
 
-            if (state.currentEventQueue.getFirst() != null) {
-                if (state.expiredEventQueue != null) {
-                    state.currentEventQueue.reset();
-                    while (state.currentEventQueue.hasNext()) {
-                        StreamEvent currentEvent = state.currentEventQueue.next();
+            if (!state.currentEventQueue.isEmpty()) {
+                for (StreamEvent currentEvent : state.currentEventQueue) {
+                    if (state.expiredEventQueue != null) {
                         StreamEvent toExpireEvent = streamEventCloner.copyStreamEvent(currentEvent);
                         toExpireEvent.setType(StreamEvent.Type.EXPIRED);
                         state.expiredEventQueue.add(toExpireEvent);
                     }
+                    outputStreamEventChunk.add(currentEvent);
                 }
-                outputStreamEventChunk.add(state.currentEventQueue.getFirst());
                 state.currentEventQueue.clear();
             }
             state.count = 0;
@@ -244,14 +234,7 @@ public class LengthBatchWindowProcessor extends
                                             StreamEventCloner streamEventCloner) {
         state.count++;
         if (state.count == length + 1) {
-            if (outputExpectsExpiredEvents && state.expiredEventQueue.getFirst() != null) {
-                while (state.expiredEventQueue.hasNext()) {
-                    StreamEvent expiredEvent = state.expiredEventQueue.next();
-                    expiredEvent.setTimestamp(currentTime);
-                }
-                outputStreamEventChunk.add(state.expiredEventQueue.getFirst());
-                state.expiredEventQueue.clear();
-            }
+            flushExpiredEvents(outputStreamEventChunk, currentTime, state);
 
             if (state.resetEvent != null) {
                 state.resetEvent.setTimestamp(currentTime);
@@ -269,6 +252,19 @@ public class LengthBatchWindowProcessor extends
 
     }
 
+    private void flushExpiredEvents(ComplexEventChunk<StreamEvent> outputStreamEventChunk, long currentTime,
+                                    WindowState state) {
+        if (state.expiredEventQueue != null && !state.expiredEventQueue.isEmpty()) {
+            if (outputExpectsExpiredEvents) {
+                for (StreamEvent expiredEvent : state.expiredEventQueue) {
+                    expiredEvent.setTimestamp(currentTime);
+                    outputStreamEventChunk.add(expiredEvent);
+                }
+            }
+            state.expiredEventQueue.clear();
+        }
+    }
+
     @Override
     public void start() {
         //Do nothing
@@ -298,24 +294,24 @@ public class LengthBatchWindowProcessor extends
     class WindowState extends State {
 
         private int count = 0;
-        private SnapshotableStreamEventQueue currentEventQueue = null;
-        private SnapshotableStreamEventQueue expiredEventQueue = null;
+        private SnapshotableStreamEventRingBuffer currentEventQueue = null;
+        private SnapshotableStreamEventRingBuffer expiredEventQueue = null;
         private StreamEvent resetEvent = null;
 
-        public WindowState(StreamEventClonerHolder streamEventClonerHolder, boolean isStreamCurrentEvents,
-                           boolean outputExpectsExpiredEvents, boolean findToBeExecuted) {
+        public WindowState(boolean isStreamCurrentEvents, boolean outputExpectsExpiredEvents,
+                           boolean findToBeExecuted) {
             if (!isStreamCurrentEvents) {
-                currentEventQueue = new SnapshotableStreamEventQueue(streamEventClonerHolder);
+                currentEventQueue = new SnapshotableStreamEventRingBuffer(length);
             }
             if (outputExpectsExpiredEvents || findToBeExecuted) {
-                expiredEventQueue = new SnapshotableStreamEventQueue(streamEventClonerHolder);
+                expiredEventQueue = new SnapshotableStreamEventRingBuffer(length);
             }
         }
 
         @Override
         public boolean canDestroy() {
-            return (currentEventQueue == null || currentEventQueue.getFirst() == null) &&
-                    (expiredEventQueue == null || expiredEventQueue.getFirst() == null) &&
+            return (currentEventQueue == null || currentEventQueue.isEmpty()) &&
+                    (expiredEventQueue == null || expiredEventQueue.isEmpty()) &&
                     resetEvent == null && count == 0;
         }
 
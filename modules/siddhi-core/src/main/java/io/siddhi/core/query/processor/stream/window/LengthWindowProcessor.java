@@ -27,7 +27,7 @@ import io.siddhi.core.event.ComplexEventChunk;
 import io.siddhi.core.event.state.StateEvent;
 import io.siddhi.core.event.stream.StreamEvent;
 import io.siddhi.core.event.stream.StreamEventCloner;
-import io.siddhi.core.event.stream.holder.SnapshotableStreamEventQueue;
+import io.siddhi.core.event.stream.holder.SnapshotableStreamEventRingBuffer;
 import io.siddhi.core.executor.ConstantExpressionExecutor;
 import io.siddhi.core.executor.ExpressionExecutor;
 import io.siddhi.core.executor.VariableExpressionExecutor;
@@ -107,8 +107,7 @@ public class LengthWindowProcessor extends SlidingFindableWindowProcessor<Length
                 StreamEvent streamEvent = streamEventChunk.next();
                 StreamEvent clonedEvent = streamEventCloner.copyStreamEvent(streamEvent);
                 clonedEvent.setType(StreamEvent.Type.EXPIRED);
-                if (state.count < length) {
-                    state.count++;
+                if (!state.expiredEventQueue.isFull()) {
                     state.expiredEventQueue.add(clonedEvent);
                 } else {
                     StreamEvent firstEvent = state.expiredEventQueue.poll();
@@ -166,26 +165,22 @@ public class LengthWindowProcessor extends SlidingFindableWindowProcessor<Length
 
     class WindowState extends State {
 
-        private int count = 0;
-        private SnapshotableStreamEventQueue expiredEventQueue =
-                new SnapshotableStreamEventQueue(streamEventClonerHolder, length);
+        private SnapshotableStreamEventRingBuffer expiredEventQueue = new SnapshotableStreamEventRingBuffer(length);
 
         @Override
         public boolean canDestroy() {
-            return count == 0 && expiredEventQueue.getFirst() == null;
+            return expiredEventQueue.isEmpty();
         }
 
         @Override
         public Map<String, Object> snapshot() {
             Map<String, Object> state = new HashMap<>();
-            state.put("Count", count);
             state.put("ExpiredEventQueue", expiredEventQueue.getSnapshot());
             return state;
         }
 
         @Override
         public void restore(Map<String, Object> state) {
-            count = (int) state.get("Count");
             expiredEventQueue.clear();
             expiredEventQueue.restore((SnapshotStateList) state.get("ExpiredEventQueue"));
         }
@@ -47,12 +47,10 @@ import io.siddhi.query.api.exception.SiddhiAppValidationException;
 import io.siddhi.query.api.expression.Expression;
 import org.apache.log4j.Logger;
 
-import java.util.ArrayList;
-import java.util.Collection;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -272,6 +270,7 @@ public class SessionWindowProcessor extends GroupingFindableWindowProcessor<Sess
                             addLateEvent(streamEventChunk, eventTimestamp, clonedStreamEvent, state);
                         }
                     }
+                    updateSessionTimestamps(state.sessionContainer, state);
                 } else {
                     currentSessionTimeout(eventTimestamp, state);
                     if (allowedLatency > 0) {
@@ -413,143 +412,90 @@ public class SessionWindowProcessor extends GroupingFindableWindowProcessor<Sess
     }
 
     /**
-     * Checks all the sessions and get the expired session.
+     * Checks the sessions in the order of their end timestamps and get the expired sessions.
      */
     private void currentSessionTimeout(long eventTimestamp, WindowState state) {
-        Map<String, Long> currentEndTimestamps = findAllCurrentEndTimestamps(state);
-
-        //sort on endTimestamps
-        if (currentEndTimestamps.size() > 1) {
-            List<Map.Entry<String, Long>> toSort = new ArrayList<>();
-            toSort.addAll(currentEndTimestamps.entrySet());
-            toSort.sort(Map.Entry.comparingByValue());
-            Map<String, Long> map = new LinkedHashMap<>();
-            for (Map.Entry<String, Long> e : toSort) {
-                map.putIfAbsent(e.getKey(), e.getValue());
+        while (!state.currentSessionEndTimestamps.isEmpty()) {
+            SessionTimestamp sessionEndTimestamp = state.currentSessionEndTimestamps.first();
+            if (eventTimestamp < sessionEndTimestamp.timestamp) {
+                break;
             }
-            currentEndTimestamps = map;
-        }
-
-        for (Map.Entry<String, Long> entry : currentEndTimestamps.entrySet()) {
-            long sessionEndTime = entry.getValue();
-            SessionComplexEventChunk<StreamEvent> currentSession = state.sessionMap.get(entry.getKey())
-                    .getCurrentSession();
-            SessionComplexEventChunk<StreamEvent> previousSession = state.sessionMap.get(entry.getKey())
-                    .getPreviousSession();
-            if (currentSession.getFirst() != null && eventTimestamp >= sessionEndTime) {
-
-                if (allowedLatency > 0) {
-                    //move current session to previous session
-                    previousSession.add(currentSession.getFirst());
-                    previousSession.setTimestamps(currentSession.getStartTimestamp(),
-                            currentSession.getEndTimestamp(),
-                            currentSession.getAliveTimestamp());
-                    scheduler.notifyAt(currentSession.getAliveTimestamp());
-                    currentSession.clear();
-                } else {
-                    state.expiredEventChunk.setKey(currentSession.getKey());
-                    state.expiredEventChunk.setTimestamps(currentSession.getStartTimestamp(),
-                            currentSession.getEndTimestamp(),
-                            currentSession.getAliveTimestamp());
-                    state.expiredEventChunk.add(currentSession.getFirst());
-                    currentSession.clear();
-                }
+            SessionContainer sessionContainer = state.sessionMap.get(sessionEndTimestamp.key);
+            SessionComplexEventChunk<StreamEvent> currentSession = sessionContainer.getCurrentSession();
+            SessionComplexEventChunk<StreamEvent> previousSession = sessionContainer.getPreviousSession();
+            if (allowedLatency > 0) {
+                //move current session to previous session
+                previousSession.add(currentSession.getFirst());
+                previousSession.setTimestamps(currentSession.getStartTimestamp(),
+                        currentSession.getEndTimestamp(),
+                        currentSession.getAliveTimestamp());
+                scheduler.notifyAt(currentSession.getAliveTimestamp());
+                currentSession.clear();
             } else {
-                break;
+                state.expiredEventChunk.setKey(currentSession.getKey());
+                state.expiredEventChunk.setTimestamps(currentSession.getStartTimestamp(),
+                        currentSession.getEndTimestamp(),
+                        currentSession.getAliveTimestamp());
+                state.expiredEventChunk.add(currentSession.getFirst());
+                currentSession.clear();
             }
+            updateSessionTimestamps(sessionContainer, state);
         }
     }
 
     /**
-     * Checks all the previous sessions and get the expired sessions.
+     * Checks the previous sessions in the order of their alive timestamps and get the expired sessions.
      */
     private void previousSessionTimeout(long eventTimestamp, WindowState state) {
-
-        Map<String, Long> previousEndTimestamps = findAllPreviousEndTimestamps(state);
-        SessionComplexEventChunk<StreamEvent> previousSession;
-
-        //sort on endTimestamps
-        if (previousEndTimestamps.size() > 1) {
-            List<Map.Entry<String, Long>> toSort = new ArrayList<>();
-            for (Map.Entry<String, Long> e : previousEndTimestamps.entrySet()) {
-                toSort.add(e);
-            }
-            toSort.sort(Map.Entry.comparingByValue());
-            LinkedHashMap<String, Long> map = new LinkedHashMap<>();
-            for (Map.Entry<String, Long> e : toSort) {
-                map.putIfAbsent(e.getKey(), e.getValue());
-            }
-            previousEndTimestamps = map;
-        }
-
-        for (Map.Entry<String, Long> entry : previousEndTimestamps.entrySet()) {
-            previousSession = state.sessionMap.get(entry.getKey()).getPreviousSession();
-
-            if (previousSession != null && previousSession.getFirst() != null &&
-                    eventTimestamp >= previousSession.getAliveTimestamp()) {
-
-                state.expiredEventChunk.setKey(previousSession.getKey());
-                state.expiredEventChunk.setTimestamps(previousSession.getStartTimestamp(),
-                        previousSession.getEndTimestamp(), previousSession.getAliveTimestamp());
-
-                state.expiredEventChunk.add(previousSession.getFirst());
-                previousSession.clear();
-            } else {
+        while (!state.previousSessionAliveTimestamps.isEmpty()) {
+            SessionTimestamp sessionAliveTimestamp = state.previousSessionAliveTimestamps.first();
+            if (eventTimestamp < sessionAliveTimestamp.timestamp) {
                 break;
             }
+            SessionContainer sessionContainer = state.sessionMap.get(sessionAliveTimestamp.key);
+            SessionComplexEventChunk<StreamEvent> previousSession = sessionContainer.getPreviousSession();
 
-        }
-
-    }
-
-    /**
-     * Gets all end timestamps of current sessions.
-     *
-     * @param state current state
-     * @return map with the values of each current session's end timestamp and with the key as the session key
-     */
-    private Map<String, Long> findAllCurrentEndTimestamps(WindowState state) {
-
-        Collection<SessionContainer> sessionContainerList = state.sessionMap.values();
-
-        if (!state.sessionKeyEndTimeMap.isEmpty()) {
-            state.sessionKeyEndTimeMap.clear();
-        }
+            state.expiredEventChunk.setKey(previousSession.getKey());
+            state.expiredEventChunk.setTimestamps(previousSession.getStartTimestamp(),
+                    previousSession.getEndTimestamp(), previousSession.getAliveTimestamp());
 
-        for (SessionContainer sessionContainer : sessionContainerList) {
-            //not getting empty session details
-            if (sessionContainer.getCurrentSessionEndTimestamp() != -1) {
-                state.sessionKeyEndTimeMap.put(sessionContainer.getKey(),
-                        sessionContainer.getCurrentSessionEndTimestamp());
-            }
+            state.expiredEventChunk.add(previousSession.getFirst());
+            previousSession.clear();
+            updateSessionTimestamps(sessionContainer, state);
         }
-
-        return state.sessionKeyEndTimeMap;
     }
 
     /**
-     * Gets all the end timestamps of previous sessions.
+     * Re-indexes the end timestamp of the current session and the alive timestamp of the previous session of the
+     * given session key, such that only the expiring sessions are visited on timeout. Empty sessions are not indexed.
      *
-     * @param state
-     * @return map with the values of each previous session's end timestamp and with the key as the sesssio key
+     * @param sessionContainer sessions of the session key
+     * @param state            current state
      */
-    private Map<String, Long> findAllPreviousEndTimestamps(WindowState state) {
-
-        Collection<SessionContainer> sessionContainerList = state.sessionMap.values();
-
-        if (!state.sessionKeyEndTimeMap.isEmpty()) {
-            state.sessionKeyEndTimeMap.clear();
-        }
+    private void updateSessionTimestamps(SessionContainer sessionContainer, WindowState state) {
+        String key = sessionContainer.getKey();
+        SessionComplexEventChunk<StreamEvent> previousSession = sessionContainer.getPreviousSession();
+        updateSessionTimestamp(key, sessionContainer.getCurrentSessionEndTimestamp(),
+                state.currentSessionEndTimestamps, state.currentSessionEndTimestampMap);
+        updateSessionTimestamp(key, previousSession.getFirst() != null ? previousSession.getAliveTimestamp() : -1,
+                state.previousSessionAliveTimestamps, state.previousSessionAliveTimestampMap);
+    }
 
-        for (SessionContainer sessionContainer : sessionContainerList) {
-            //not getting empty session details
-            if (sessionContainer.getPreviousSessionEndTimestamp() != -1) {
-                state.sessionKeyEndTimeMap.put(sessionContainer.getKey(),
-                        sessionContainer.getPreviousSessionEndTimestamp());
+    private void updateSessionTimestamp(String key, long timestamp, TreeSet<SessionTimestamp> sessionTimestamps,
+                                        Map<String, Long> sessionTimestampMap) {
+        Long indexedTimestamp = sessionTimestampMap.get(key);
+        if (indexedTimestamp != null) {
+            if (indexedTimestamp == timestamp) {
+                return;
             }
+            sessionTimestamps.remove(new SessionTimestamp(indexedTimestamp, key));
+        }
+        if (timestamp != -1) {
+            sessionTimestamps.add(new SessionTimestamp(timestamp, key));
+            sessionTimestampMap.put(key, timestamp);
+        } else if (indexedTimestamp != null) {
+            sessionTimestampMap.remove(key);
         }
-
-        return state.sessionKeyEndTimeMap;
     }
 
     @Override
@@ -639,16 +585,42 @@ public class SessionWindowProcessor extends GroupingFindableWindowProcessor<Sess
         }
     }
 
+    /**
+     * Timestamp of a session, ordered by the timestamp and then by the session key.
+     */
+    private static final class SessionTimestamp implements Comparable<SessionTimestamp> {
+
+        private final long timestamp;
+        private final String key;
+
+        private SessionTimestamp(long timestamp, String key) {
+            this.timestamp = timestamp;
+            this.key = key;
+        }
+
+        @Override
+        public int compareTo(SessionTimestamp other) {
+            int result = Long.compare(timestamp, other.timestamp);
+            return result != 0 ? result : key.compareTo(other.key);
+        }
+    }
+
     class WindowState extends State {
 
         private Map<String, SessionContainer> sessionMap;
-        private Map<String, Long> sessionKeyEndTimeMap;
+        private TreeSet<SessionTimestamp> currentSessionEndTimestamps;
+        private Map<String, Long> currentSessionEndTimestampMap;
+        private TreeSet<SessionTimestamp> previousSessionAliveTimestamps;
+        private Map<String, Long> previousSessionAliveTimestampMap;
         private SessionContainer sessionContainer;
         private SessionComplexEventChunk<StreamEvent> expiredEventChunk;
 
         public WindowState() {
             this.sessionMap = new ConcurrentHashMap<>();
-            this.sessionKeyEndTimeMap = new HashMap<>();
+            this.currentSessionEndTimestamps = new TreeSet<>();
+            this.currentSessionEndTimestampMap = new HashMap<>();
+            this.previousSessionAliveTimestamps = new TreeSet<>();
+            this.previousSessionAliveTimestampMap = new HashMap<>();
             this.sessionContainer = new SessionContainer();
             this.expiredEventChunk = new SessionComplexEventChunk<>();
         }
@@ -674,6 +646,13 @@ public class SessionWindowProcessor extends GroupingFindableWindowProcessor<Sess
             sessionMap = (ConcurrentHashMap<String, SessionContainer>) state.get("sessionMap");
             sessionContainer = (SessionContainer) state.get("sessionContainer");
             expiredEventChunk = (SessionComplexEventChunk<StreamEvent>) state.get("expiredEventChunk");
+            currentSessionEndTimestamps.clear();
+            currentSessionEndTimestampMap.clear();
+            previousSessionAliveTimestamps.clear();
+            previousSessionAliveTimestampMap.clear();
+            for (SessionContainer sessionContainer : sessionMap.values()) {
+                updateSessionTimestamps(sessionContainer, this);
+            }
         }
     }
 }
@@ -43,11 +43,10 @@ import io.siddhi.query.api.definition.Attribute;
 import io.siddhi.query.api.expression.Expression;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 /**
  * Sample Query:
@@ -98,8 +97,8 @@ public class SortWindowProcessor extends SlidingFindableWindowProcessor<SortWind
     private static final String ASC = "asc";
     private static final String DESC = "desc";
     private int lengthToKeep;
-    private List<Object[]> parameterInfo;
-    private EventComparator eventComparator;
+    private int[][] sortAttributePositions;
+    private int[] sortOrders;
 
     @Override
     protected StateFactory init(ExpressionExecutor[] attributeExpressionExecutors, ConfigReader configReader,
@@ -110,8 +109,7 @@ public class SortWindowProcessor extends SlidingFindableWindowProcessor<SortWind
         } else {
             throw new UnsupportedOperationException("The first parameter should be an integer");
         }
-        parameterInfo = new ArrayList<Object[]>();
-        eventComparator = new EventComparator();
+        List<Object[]> parameterInfo = new ArrayList<Object[]>();
         for (int i = 1, parametersLength = attributeExpressionExecutors.length; i < parametersLength; i++) {
             if (!(attributeExpressionExecutors[i] instanceof VariableExpressionExecutor)) {
                 throw new UnsupportedOperationException("Required a variable, but found a string parameter");
@@ -139,6 +137,12 @@ public class SortWindowProcessor extends SlidingFindableWindowProcessor<SortWind
                 parameterInfo.add(new Object[]{variableExpressionExecutor, order});
             }
         }
+        sortAttributePositions = new int[parameterInfo.size()][];
+        sortOrders = new int[parameterInfo.size()];
+        for (int i = 0; i < parameterInfo.size(); i++) {
+            sortAttributePositions[i] = ((VariableExpressionExecutor) parameterInfo.get(i)[0]).getPosition();
+            sortOrders[i] = (Integer) parameterInfo.get(i)[1];
+        }
         return () -> new WindowState();
     }
 
@@ -160,10 +164,9 @@ public class SortWindowProcessor extends SlidingFindableWindowProcessor<SortWind
                 streamEvent.setNext(null);
                 streamEventChunk.add(streamEvent);
 
-                state.sortedWindow.add(clonedEvent);
+                state.add(clonedEvent);
                 if (state.sortedWindow.size() > lengthToKeep) {
-                    Collections.sort(state.sortedWindow, eventComparator);
-                    StreamEvent expiredEvent = state.sortedWindow.remove(state.sortedWindow.size() - 1);
+                    StreamEvent expiredEvent = state.sortedWindow.pollLastEntry().getValue();
                     expiredEvent.setTimestamp(currentTime);
                     streamEventChunk.add(expiredEvent);
                 }
@@ -189,36 +192,53 @@ public class SortWindowProcessor extends SlidingFindableWindowProcessor<SortWind
                                               List<VariableExpressionExecutor> variableExpressionExecutors,
                                               Map<String, Table> tableMap, WindowState state,
                                               SiddhiQueryContext siddhiQueryContext) {
-        return OperatorParser.constructOperator(state.sortedWindow, condition, matchingMetaInfoHolder,
+        return OperatorParser.constructOperator(state.sortedWindow.values(), condition, matchingMetaInfoHolder,
                 variableExpressionExecutors, tableMap, siddhiQueryContext);
     }
 
     @Override
     public StreamEvent find(StateEvent matchingEvent, CompiledCondition compiledCondition,
                             StreamEventCloner streamEventCloner, WindowState state) {
-        return ((Operator) compiledCondition).find(matchingEvent, state.sortedWindow, streamEventCloner);
+        return ((Operator) compiledCondition).find(matchingEvent, state.sortedWindow.values(), streamEventCloner);
 
     }
 
-    private class EventComparator implements Comparator<StreamEvent> {
+    /**
+     * Sort key of an event, holding the values of the sort attributes extracted once when the event is added to the
+     * window. Events with equal values are ordered by their arrival, hence the newest of them is expired first.
+     */
+    private class SortKey implements Comparable<SortKey> {
+
+        private final Comparable[] values;
+        private final long sequence;
+
+        private SortKey(StreamEvent streamEvent, long sequence) {
+            this.values = new Comparable[sortAttributePositions.length];
+            for (int i = 0; i < sortAttributePositions.length; i++) {
+                values[i] = (Comparable) streamEvent.getAttribute(sortAttributePositions[i]);
+            }
+            this.sequence = sequence;
+        }
+
         @Override
-        public int compare(StreamEvent e1, StreamEvent e2) {
-            int comparisonResult;
-            for (Object[] listItem : parameterInfo) {
-                int[] variablePosition = ((VariableExpressionExecutor) listItem[0]).getPosition();
-                Comparable comparableVariable1 = (Comparable) e1.getAttribute(variablePosition);
-                Comparable comparableVariable2 = (Comparable) e2.getAttribute(variablePosition);
-                comparisonResult = comparableVariable1.compareTo(comparableVariable2);
+        public int compareTo(SortKey other) {
+            for (int i = 0; i < values.length; i++) {
+                int comparisonResult = values[i].compareTo(other.values[i]);
                 if (comparisonResult != 0) {
-                    return ((Integer) listItem[1]) * comparisonResult;
+                    return sortOrders[i] * comparisonResult;
                 }
             }
-            return 0;
+            return Long.compare(sequence, other.sequence);
         }
     }
 
     class WindowState extends State {
-        private List<StreamEvent> sortedWindow = new ArrayList<StreamEvent>();
+        private TreeMap<SortKey, StreamEvent> sortedWindow = new TreeMap<>();
+        private long sequence = 0;
+
+        private void add(StreamEvent streamEvent) {
+            sortedWindow.put(new SortKey(streamEvent, sequence++), streamEvent);
+        }
 
         @Override
         public boolean canDestroy() {
@@ -228,13 +248,17 @@ public class SortWindowProcessor extends SlidingFindableWindowProcessor<SortWind
         @Override
         public Map<String, Object> snapshot() {
             Map<String, Object> state = new HashMap<>();
-            state.put("SortedWindow", sortedWindow);
+            state.put("SortedWindow", new ArrayList<>(sortedWindow.values()));
             return state;
         }
 
         @Override
         public void restore(Map<String, Object> state) {
-            sortedWindow = (List<StreamEvent>) state.get("SortedWindow");
+            sortedWindow.clear();
+            sequence = 0;
+            for (StreamEvent streamEvent : (List<StreamEvent>) state.get("SortedWindow")) {
+                add(streamEvent);
+            }
         }
     }
 }
@@ -374,10 +374,12 @@ public class TimeBatchWindowProcessor extends BatchingFindableWindowProcessor<Ti
         WindowState(StreamEventClonerHolder streamEventClonerHolder,
                     boolean outputExpectsExpiredEvents, boolean findToBeExecuted) {
             if (!isStreamCurrentEvents) {
-                this.currentEventQueue = new SnapshotableStreamEventQueue(streamEventClonerHolder);
+                this.currentEventQueue = new SnapshotableStreamEventQueue(streamEventClonerHolder, Integer.MAX_VALUE,
+                        siddhiQueryContext.getSiddhiAppContext().getOperationChangeLogBudget());
             }
             if (outputExpectsExpiredEvents || findToBeExecuted) {
-                this.expiredEventQueue = new SnapshotableStreamEventQueue(streamEventClonerHolder);
+                this.expiredEventQueue = new SnapshotableStreamEventQueue(streamEventClonerHolder, Integer.MAX_VALUE,
+                        siddhiQueryContext.getSiddhiAppContext().getOperationChangeLogBudget());
             }
         }
 
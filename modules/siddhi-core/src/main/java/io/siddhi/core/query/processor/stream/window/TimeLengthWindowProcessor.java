@@ -220,7 +220,8 @@ public class TimeLengthWindowProcessor extends SlidingFindableWindowProcessor<Ti
         private int count = 0;
 
         WindowState(StreamEventClonerHolder streamEventClonerHolder) {
-            expiredEventQueue = new SnapshotableStreamEventQueue(streamEventClonerHolder);
+            expiredEventQueue = new SnapshotableStreamEventQueue(streamEventClonerHolder, Integer.MAX_VALUE,
+                    siddhiQueryContext.getSiddhiAppContext().getOperationChangeLogBudget());
         }
 
         @Override
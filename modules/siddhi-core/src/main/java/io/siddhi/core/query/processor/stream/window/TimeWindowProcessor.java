@@ -20,10 +20,12 @@ package io.siddhi.core.query.processor.stream.window;
 import io.siddhi.annotation.Example;
 import io.siddhi.annotation.Extension;
 import io.siddhi.annotation.Parameter;
+import io.siddhi.annotation.ParameterOverload;
 import io.siddhi.annotation.util.DataType;
 import io.siddhi.core.config.SiddhiQueryContext;
 import io.siddhi.core.event.ComplexEventChunk;
 import io.siddhi.core.event.state.StateEvent;
+import io.siddhi.core.event.stream.MetaStreamEvent;
 import io.siddhi.core.event.stream.StreamEvent;
 import io.siddhi.core.event.stream.StreamEventCloner;
 import io.siddhi.core.event.stream.holder.SnapshotableStreamEventQueue;
@@ -43,6 +45,7 @@ import io.siddhi.core.util.parser.OperatorParser;
 import io.siddhi.core.util.snapshot.state.SnapshotStateList;
 import io.siddhi.core.util.snapshot.state.State;
 import io.siddhi.core.util.snapshot.state.StateFactory;
+import io.siddhi.query.api.definition.AbstractDefinition;
 import io.siddhi.query.api.definition.Attribute;
 import io.siddhi.query.api.exception.SiddhiAppValidationException;
 import io.siddhi.query.api.expression.Expression;
@@ -62,7 +65,24 @@ import java.util.Map;
         parameters = {
                 @Parameter(name = "window.time",
                         description = "The sliding time period for which the window should hold events.",
-                        type = {DataType.INT, DataType.LONG, DataType.TIME})
+                        type = {DataType.INT, DataType.LONG, DataType.TIME}),
+                @Parameter(name = "pane.time",
+                        description = "Runs the window in pane mode, where events are not retained by the window " +
+                                "and the aggregations of the query are computed over panes of this period. " +
+                                "Memory hence scales with the number of panes rather than the number of events, " +
+                                "while events expire in pane granularity when newer events arrive. Pane mode is " +
+                                "only supported when the query outputs current events and uses aggregators that " +
+                                "support pane based aggregation, such as sum, count, avg, min and max. Queries " +
+                                "consuming a stream only through time windows with the same pane time share the " +
+                                "panes of the aggregations they select with the same group by, even when their " +
+                                "window times differ.",
+                        type = {DataType.INT, DataType.LONG, DataType.TIME},
+                        optional = true,
+                        defaultValue = "Pane mode disabled")
+        },
+        parameterOverloads = {
+                @ParameterOverload(parameterNames = {"window.time"}),
+                @ParameterOverload(parameterNames = {"window.time", "pane.time"})
         },
         examples = {
                 @Example(
@@ -76,6 +96,14 @@ import java.util.Map;
                                 "select symbol, sum(price) as price\n" +
                                 "insert all events into outputStream ;",
                         description = "This will processing events that arrived within the last 20 milliseconds."
+                ),
+                @Example(
+                        syntax = "from cseEventStream#window.time(1 hour, 1 min)\n" +
+                                "select symbol, sum(price) as totalPrice\n" +
+                                "group by symbol\n" +
+                                "insert into outputStream ;",
+                        description = "This will sum the prices of each symbol over the last hour using one " +
+                                "minute panes, hence only sixty partial sums are retained per symbol."
                 )
         }
 )
@@ -83,6 +111,7 @@ public class TimeWindowProcessor extends SlidingFindableWindowProcessor<TimeWind
         implements SchedulingProcessor {
 
     private long timeInMilliSeconds;
+    private long paneTimeInMilliSeconds = -1;
     private Scheduler scheduler;
     private SiddhiQueryContext siddhiQueryContext;
 
@@ -96,38 +125,79 @@ public class TimeWindowProcessor extends SlidingFindableWindowProcessor<TimeWind
         this.scheduler = scheduler;
     }
 
+    @Override
+    protected StateFactory<WindowState> init(MetaStreamEvent metaStreamEvent, AbstractDefinition inputDefinition,
+                                             ExpressionExecutor[] attributeExpressionExecutors,
+                                             ConfigReader configReader,
+                                             StreamEventClonerHolder streamEventClonerHolder,
+                                             boolean outputExpectsExpiredEvents, boolean findToBeExecuted,
+                                             SiddhiQueryContext siddhiQueryContext) {
+        StateFactory<WindowState> stateFactory = init(attributeExpressionExecutors, configReader,
+                siddhiQueryContext);
+        if (paneTimeInMilliSeconds > 0) {
+            if (outputExpectsExpiredEvents || findToBeExecuted ||
+                    metaStreamEvent.getEventType() == MetaStreamEvent.EventType.WINDOW) {
+                throw new SiddhiAppValidationException("Time window in pane mode does not retain events, hence " +
+                        "it can neither output expired events, be joined, nor be used as a defined window, " +
+                        "in query '" + siddhiQueryContext.getName() + "'");
+            }
+            siddhiQueryContext.setPaneConfiguration(timeInMilliSeconds, paneTimeInMilliSeconds);
+        }
+        return stateFactory;
+    }
+
     @Override
     protected StateFactory<WindowState> init(ExpressionExecutor[] attributeExpressionExecutors,
                                              ConfigReader configReader, SiddhiQueryContext siddhiQueryContext) {
         this.siddhiQueryContext = siddhiQueryContext;
 
-        if (attributeExpressionExecutors.length == 1) {
-            if (attributeExpressionExecutors[0] instanceof ConstantExpressionExecutor) {
-                if (attributeExpressionExecutors[0].getReturnType() == Attribute.Type.INT) {
-                    timeInMilliSeconds = (Integer) ((ConstantExpressionExecutor) attributeExpressionExecutors[0])
-                            .getValue();
-
-                } else if (attributeExpressionExecutors[0].getReturnType() == Attribute.Type.LONG) {
-                    timeInMilliSeconds = (Long) ((ConstantExpressionExecutor) attributeExpressionExecutors[0])
-                            .getValue();
-                } else {
-                    throw new SiddhiAppValidationException("Time window's parameter attribute should be either " +
-                            "int or long, but found " + attributeExpressionExecutors[0].getReturnType());
+        if (attributeExpressionExecutors.length == 1 || attributeExpressionExecutors.length == 2) {
+            timeInMilliSeconds = getTimeParameter(attributeExpressionExecutors[0]);
+            if (attributeExpressionExecutors.length == 2) {
+                paneTimeInMilliSeconds = getTimeParameter(attributeExpressionExecutors[1]);
+                if (paneTimeInMilliSeconds <= 0 || paneTimeInMilliSeconds > timeInMilliSeconds) {
+                    throw new SiddhiAppValidationException("Time window's pane time should be greater than zero " +
+                            "and not greater than the window time " + timeInMilliSeconds + ", but found " +
+                            paneTimeInMilliSeconds);
                 }
-            } else {
-                throw new SiddhiAppValidationException("Time window should have constant parameter attribute but " +
-                        "found a dynamic attribute " + attributeExpressionExecutors[0].getClass().getCanonicalName());
             }
         } else {
-            throw new SiddhiAppValidationException("Time window should only have one parameter (<int|long|time> " +
-                    "windowTime), but found " + attributeExpressionExecutors.length + " input attributes");
+            throw new SiddhiAppValidationException("Time window should only have one or two parameters " +
+                    "(<int|long|time> windowTime, <int|long|time> paneTime), but found " +
+                    attributeExpressionExecutors.length + " input attributes");
         }
         return () -> new WindowState(streamEventClonerHolder);
     }
 
+    private long getTimeParameter(ExpressionExecutor attributeExpressionExecutor) {
+        if (attributeExpressionExecutor instanceof ConstantExpressionExecutor) {
+            if (attributeExpressionExecutor.getReturnType() == Attribute.Type.INT) {
+                return (Integer) ((ConstantExpressionExecutor) attributeExpressionExecutor).getValue();
+            } else if (attributeExpressionExecutor.getReturnType() == Attribute.Type.LONG) {
+                return (Long) ((ConstantExpressionExecutor) attributeExpressionExecutor).getValue();
+            } else {
+                throw new SiddhiAppValidationException("Time window's parameter attribute should be either " +
+                        "int or long, but found " + attributeExpressionExecutor.getReturnType());
+            }
+        } else {
+            throw new SiddhiAppValidationException("Time window should have constant parameter attribute but " +
+                    "found a dynamic attribute " + attributeExpressionExecutor.getClass().getCanonicalName());
+        }
+    }
+
     @Override
     protected void process(ComplexEventChunk<StreamEvent> streamEventChunk, Processor nextProcessor,
                            StreamEventCloner streamEventCloner, WindowState state) {
+        if (paneTimeInMilliSeconds > 0) {
+            // In pane mode the aggregators expire the panes, hence only the current events are passed through.
+            while (streamEventChunk.hasNext()) {
+                if (streamEventChunk.next().getType() != StreamEvent.Type.CURRENT) {
+                    streamEventChunk.remove();
+                }
+            }
+            nextProcessor.process(streamEventChunk);
+            return;
+        }
         synchronized (state) {
             SnapshotableStreamEventQueue expiredEventQueue = state.expiredEventQueue;
             while (streamEventChunk.hasNext()) {
@@ -195,7 +265,8 @@ public class TimeWindowProcessor extends SlidingFindableWindowProcessor<TimeWind
 
 
         WindowState(StreamEventClonerHolder streamEventClonerHolder) {
-            expiredEventQueue = new SnapshotableStreamEventQueue(streamEventClonerHolder);
+            expiredEventQueue = new SnapshotableStreamEventQueue(streamEventClonerHolder, Integer.MAX_VALUE,
+                    siddhiQueryContext.getSiddhiAppContext().getOperationChangeLogBudget());
         }
 
         @Override
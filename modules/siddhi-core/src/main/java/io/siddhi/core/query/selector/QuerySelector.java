@@ -119,7 +119,41 @@ public class QuerySelector implements Processor {
         }
     }
 
+    /**
+     * Processes a part of a larger result, leaving the offset and limit of the whole result to the caller. Valid only
+     * for selectors that can process a result in parts.
+     *
+     * @param complexEventChunk part of the result
+     * @return the selected events of the part, or null if there are none
+     */
+    public ComplexEventChunk executePart(ComplexEventChunk complexEventChunk) {
+        selectNoGroupBy(complexEventChunk);
+        complexEventChunk.reset();
+        if (complexEventChunk.hasNext()) {
+            return complexEventChunk;
+        }
+        return null;
+    }
+
     private ComplexEventChunk processNoGroupBy(ComplexEventChunk complexEventChunk) {
+        selectNoGroupBy(complexEventChunk);
+        if (isOrderBy) {
+            orderEventChunk(complexEventChunk);
+        }
+        if (offset != SiddhiConstants.UNKNOWN_STATE) {
+            offsetEventChunk(complexEventChunk);
+        }
+        if (limit != SiddhiConstants.UNKNOWN_STATE) {
+            limitEventChunk(complexEventChunk);
+        }
+        complexEventChunk.reset();
+        if (complexEventChunk.hasNext()) {
+            return complexEventChunk;
+        }
+        return null;
+    }
+
+    private void selectNoGroupBy(ComplexEventChunk complexEventChunk) {
         complexEventChunk.reset();
         synchronized (this) {
             while (complexEventChunk.hasNext()) {
@@ -149,20 +183,6 @@ public class QuerySelector implements Processor {
                 }
             }
         }
-        if (isOrderBy) {
-            orderEventChunk(complexEventChunk);
-        }
-        if (offset != SiddhiConstants.UNKNOWN_STATE) {
-            offsetEventChunk(complexEventChunk);
-        }
-        if (limit != SiddhiConstants.UNKNOWN_STATE) {
-            limitEventChunk(complexEventChunk);
-        }
-        complexEventChunk.reset();
-        if (complexEventChunk.hasNext()) {
-            return complexEventChunk;
-        }
-        return null;
     }
 
     private ComplexEventChunk<ComplexEvent> processGroupBy(ComplexEventChunk complexEventChunk) {
@@ -394,6 +414,22 @@ public class QuerySelector implements Processor {
         this.eventPopulator = eventPopulator;
     }
 
+    /**
+     * @return whether each event is selected independently of the others, such that a result can be processed in
+     * parts through {@link #executePart(ComplexEventChunk)}
+     */
+    public boolean isProcessableInParts() {
+        return !containsAggregator && !isGroupBy && !isOrderBy;
+    }
+
+    public long getLimit() {
+        return limit;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
     public void setLimit(long limit) {
         if (limit < 0) {
             throw new SiddhiAppCreationException("'limit' cannot have negative value, but found '" + limit + "'",
@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.siddhi.core.query.selector.attribute.aggregator;
+
+import io.siddhi.core.config.SiddhiQueryContext;
+import io.siddhi.core.executor.ExpressionExecutor;
+import io.siddhi.core.query.processor.ProcessingMode;
+import io.siddhi.core.util.config.ConfigReader;
+import io.siddhi.core.util.snapshot.state.State;
+import io.siddhi.core.util.snapshot.state.StateFactory;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Abstract parent class for attribute aggregators that can be expressed as an associative combine of partial
+ * aggregates, such as min, max, first or concat. Unlike {@link AttributeAggregatorExecutor} the implementations do
+ * not need to support removal, expired events of sliding windows are handled by a
+ * {@link TwoStacksSlidingAggregator} in amortised O(1). Associative aggregators also support windows in pane mode.
+ * <p>
+ * Partial aggregates are retained as part of the state snapshot, hence they should be serializable, and they
+ * should implement equals so that evicted values can be matched.
+ *
+ * @param <T> type of the partial aggregate
+ */
+public abstract class AssociativeAttributeAggregatorExecutor<T>
+        extends AttributeAggregatorExecutor<AssociativeAttributeAggregatorExecutor<T>.AggregatorState> {
+
+    @Override
+    protected StateFactory<AggregatorState> init(ExpressionExecutor[] attributeExpressionExecutors,
+                                                 ProcessingMode processingMode,
+                                                 boolean outputExpectsExpiredEvents, ConfigReader configReader,
+                                                 SiddhiQueryContext siddhiQueryContext) {
+        init(attributeExpressionExecutors, configReader, siddhiQueryContext);
+        boolean trackFutureStates = false;
+        if (processingMode == ProcessingMode.SLIDE || outputExpectsExpiredEvents) {
+            trackFutureStates = true;
+        }
+        boolean finalTrackFutureStates = trackFutureStates;
+        return () -> new AggregatorState(finalTrackFutureStates);
+    }
+
+    /**
+     * The initialization method for the associative aggregator
+     *
+     * @param attributeExpressionExecutors are the executors of each attributes in the function
+     * @param configReader                 this hold the {@link AssociativeAttributeAggregatorExecutor} extensions
+     *                                     configuration reader.
+     * @param siddhiQueryContext           Siddhi query runtime context
+     */
+    protected abstract void init(ExpressionExecutor[] attributeExpressionExecutors, ConfigReader configReader,
+                                 SiddhiQueryContext siddhiQueryContext);
+
+    /**
+     * Convert the attribute value of an event to a partial aggregate.
+     *
+     * @param data attribute value
+     * @return the partial aggregate, or null if the value need to be ignored
+     */
+    protected abstract T lift(Object data);
+
+    /**
+     * Convert the attribute values of an event to a partial aggregate.
+     *
+     * @param data attribute values
+     * @return the partial aggregate, or null if the values need to be ignored
+     */
+    protected abstract T lift(Object[] data);
+
+    /**
+     * Associative function combining two partial aggregates, this should not modify the given partial aggregates.
+     *
+     * @param older partial aggregate of the older events
+     * @param newer partial aggregate of the newer events
+     * @return the combined partial aggregate
+     */
+    protected abstract T combine(T older, T newer);
+
+    /**
+     * Convert the partial aggregate to the output of the aggregator.
+     *
+     * @param aggregate partial aggregate of all events, null when there are no events
+     * @return the aggregated value
+     */
+    protected abstract Object lower(T aggregate);
+
+    @Override
+    public Object processAdd(Object data, AggregatorState state) {
+        return state.processAdd(lift(data));
+    }
+
+    @Override
+    public Object processAdd(Object[] data, AggregatorState state) {
+        return state.processAdd(lift(data));
+    }
+
+    @Override
+    public Object processRemove(Object data, AggregatorState state) {
+        return state.processRemove(lift(data));
+    }
+
+    @Override
+    public Object processRemove(Object[] data, AggregatorState state) {
+        return state.processRemove(lift(data));
+    }
+
+    @Override
+    public Object reset(AggregatorState state) {
+        state.slidingAggregator.clear();
+        return lower(null);
+    }
+
+    @Override
+    protected PaneAggregation<T> getPaneAggregation() {
+        return new PaneAggregation<T>() {
+            @Override
+            public T lift(Object data) {
+                return AssociativeAttributeAggregatorExecutor.this.lift(data);
+            }
+
+            @Override
+            public T lift(Object[] data) {
+                return AssociativeAttributeAggregatorExecutor.this.lift(data);
+            }
+
+            @Override
+            public T combine(T older, T newer) {
+                return AssociativeAttributeAggregatorExecutor.this.combine(older, newer);
+            }
+
+            @Override
+            public Object lower(T aggregate) {
+                return AssociativeAttributeAggregatorExecutor.this.lower(aggregate);
+            }
+        };
+    }
+
+    class AggregatorState extends State {
+
+        private final TwoStacksSlidingAggregator<T> slidingAggregator;
+        private final boolean trackFutureStates;
+
+        AggregatorState(boolean trackFutureStates) {
+            this.trackFutureStates = trackFutureStates;
+            this.slidingAggregator = new TwoStacksSlidingAggregator<>(
+                    AssociativeAttributeAggregatorExecutor.this::combine, trackFutureStates);
+        }
+
+        private Object processAdd(T value) {
+            if (value != null) {
+                slidingAggregator.add(value);
+            }
+            return lower(slidingAggregator.query());
+        }
+
+        private Object processRemove(T value) {
+            if (value != null && trackFutureStates) {
+                slidingAggregator.evict(value);
+            }
+            return lower(slidingAggregator.query());
+        }
+
+        @Override
+        public boolean canDestroy() {
+            return slidingAggregator.isEmpty();
+        }
+
+        @Override
+        public Map<String, Object> snapshot() {
+            Map<String, Object> state = new HashMap<>();
+            if (trackFutureStates) {
+                state.put("Values", slidingAggregator.getValues());
+            } else {
+                state.put("Aggregate", slidingAggregator.query());
+            }
+            return state;
+        }
+
+        @Override
+        public void restore(Map<String, Object> state) {
+            slidingAggregator.restore((List<T>) state.get("Values"), (T) state.get("Aggregate"));
+        }
+    }
+}
@@ -17,6 +17,7 @@
  */
 package io.siddhi.core.query.selector.attribute.aggregator;
 
+import io.siddhi.core.config.SiddhiAppContext;
 import io.siddhi.core.config.SiddhiQueryContext;
 import io.siddhi.core.event.ComplexEvent;
 import io.siddhi.core.exception.SiddhiAppCreationException;
@@ -28,9 +29,17 @@ import io.siddhi.core.util.snapshot.state.State;
 import io.siddhi.core.util.snapshot.state.StateFactory;
 import io.siddhi.core.util.snapshot.state.StateHolder;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Abstract parent class for attribute aggregators. Attribute aggregators are used to perform aggregate operations
  * such as count, average, etc.
+ * <p>
+ * When the query runs a sliding time window in pane mode, aggregators providing a {@link PaneAggregation} aggregate
+ * per pane using a {@link PanedSlidingAggregator}, and no expired events are processed. When other queries on the same
+ * stream run the same aggregation, the closed panes are shared with them through {@link SharedPanes}.
  *
  * @param <S> current state for the Attribute Executor
  */
@@ -39,25 +48,60 @@ public abstract class AttributeAggregatorExecutor<S extends State> implements Ex
     protected ExpressionExecutor[] attributeExpressionExecutors;
     private int attributeSize;
     private StateHolder<S> stateHolder;
+    private PaneAggregation<Object> paneAggregation;
+    private StateHolder<PaneState> paneStateHolder;
 
     public void initAggregator(ExpressionExecutor[] attributeExpressionExecutors, ProcessingMode processingMode,
                                boolean outputExpectsExpiredEvents,
                                ConfigReader configReader, boolean groupBy, SiddhiQueryContext siddhiQueryContext) {
+        initAggregator(attributeExpressionExecutors, processingMode, outputExpectsExpiredEvents, configReader, groupBy,
+                null, siddhiQueryContext);
+    }
+
+    /**
+     * @param sharedPanes closed panes the aggregator can share with other queries when running in pane mode, or null
+     *                    if the panes are not shareable
+     */
+    public void initAggregator(ExpressionExecutor[] attributeExpressionExecutors, ProcessingMode processingMode,
+                               boolean outputExpectsExpiredEvents, ConfigReader configReader, boolean groupBy,
+                               SharedPanes sharedPanes, SiddhiQueryContext siddhiQueryContext) {
         try {
             this.attributeExpressionExecutors = attributeExpressionExecutors;
             this.attributeSize = attributeExpressionExecutors.length;
             InputParameterValidator.validateExpressionExecutors(this, attributeExpressionExecutors);
             StateFactory<S> stateFactory = init(attributeExpressionExecutors, processingMode,
                     outputExpectsExpiredEvents, configReader, siddhiQueryContext);
-            stateHolder = siddhiQueryContext.generateStateHolder(this.getClass().getName(),
-                    groupBy, stateFactory, true);
+            if (siddhiQueryContext.isPaned()) {
+                paneAggregation = (PaneAggregation<Object>) getPaneAggregation();
+                if (paneAggregation == null) {
+                    throw new SiddhiAppCreationException("Aggregator '" + this.getClass().getName() + "' in " +
+                            "query '" + siddhiQueryContext.getName() + "' does not support pane based " +
+                            "aggregation, hence it cannot be used with a window in pane mode");
+                }
+                long windowTime = siddhiQueryContext.getPaneWindowTime();
+                long paneTime = siddhiQueryContext.getPaneTime();
+                if (sharedPanes != null) {
+                    int sharer = sharedPanes.register(siddhiQueryContext);
+                    paneStateHolder = siddhiQueryContext.generateStateHolder(this.getClass().getName(), groupBy,
+                            () -> sharedPanes.isShared() ? new SharedPaneState(windowTime, sharedPanes, sharer) :
+                                    new LocalPaneState(windowTime, paneTime), true);
+                } else {
+                    paneStateHolder = siddhiQueryContext.generateStateHolder(this.getClass().getName(),
+                            groupBy, () -> new LocalPaneState(windowTime, paneTime), true);
+                }
+            } else {
+                stateHolder = siddhiQueryContext.generateStateHolder(this.getClass().getName(),
+                        groupBy, stateFactory, true);
+            }
         } catch (Throwable t) {
             throw new SiddhiAppCreationException(t);
         }
     }
 
     public Object execute(ComplexEvent event) {
-        if (attributeSize > 1) {
+        if (paneStateHolder != null) {
+            return processPane(event);
+        } else if (attributeSize > 1) {
             return processAttributeArray(event);
         } else if (attributeSize == 1) {
             return processAttribute(event);
@@ -150,6 +194,48 @@ public abstract class AttributeAggregatorExecutor<S extends State> implements Ex
         return null;
     }
 
+    private Object processPane(ComplexEvent event) {
+        switch (event.getType()) {
+            case CURRENT:
+                Object value;
+                if (attributeSize > 1) {
+                    Object[] data = new Object[attributeSize];
+                    for (int i = 0; i < attributeSize; i++) {
+                        data[i] = attributeExpressionExecutors[i].execute(event);
+                    }
+                    value = paneAggregation.lift(data);
+                } else if (attributeSize == 1) {
+                    value = paneAggregation.lift(attributeExpressionExecutors[0].execute(event));
+                } else {
+                    value = paneAggregation.lift((Object) null);
+                }
+                PaneState state = paneStateHolder.getState();
+                try {
+                    return paneAggregation.lower(state.aggregate(event.getTimestamp(), value));
+                } finally {
+                    paneStateHolder.returnState(state);
+                }
+            case RESET:
+                PaneState resetState = paneStateHolder.cleanGroupByStates();
+                if (resetState != null) {
+                    resetState.clear();
+                    return paneAggregation.lower(null);
+                }
+                return null;
+        }
+        return null;
+    }
+
+    /**
+     * Provides the associative form of the aggregator, used when the query runs a sliding time window in pane mode.
+     * This is called after the initialization of the aggregator.
+     *
+     * @return the pane aggregation, or null if the aggregator does not support pane based aggregation
+     */
+    protected PaneAggregation<?> getPaneAggregation() {
+        return null;
+    }
+
     /**
      * The initialization method for FunctionExecutor
      *
@@ -175,5 +261,144 @@ public abstract class AttributeAggregatorExecutor<S extends State> implements Ex
 
     public abstract Object reset(S state);
 
+    abstract class PaneState extends State {
+
+        /**
+         * Add the value of an event and aggregate the panes within the window.
+         *
+         * @param timestamp event timestamp in milliseconds
+         * @param value     partial aggregate of the event
+         * @return the aggregate of the window, or null if the window is empty
+         */
+        abstract Object aggregate(long timestamp, Object value);
 
+        abstract void clear();
+    }
+
+    class LocalPaneState extends PaneState {
+
+        private final PanedSlidingAggregator<Object> panedSlidingAggregator;
+
+        LocalPaneState(long windowTime, long paneTime) {
+            this.panedSlidingAggregator = new PanedSlidingAggregator<>(windowTime, paneTime,
+                    paneAggregation::combine);
+        }
+
+        @Override
+        Object aggregate(long timestamp, Object value) {
+            panedSlidingAggregator.add(timestamp, value);
+            return panedSlidingAggregator.query();
+        }
+
+        @Override
+        void clear() {
+            panedSlidingAggregator.clear();
+        }
+
+        @Override
+        public boolean canDestroy() {
+            return panedSlidingAggregator.isEmpty();
+        }
+
+        @Override
+        public Map<String, Object> snapshot() {
+            Map<String, Object> state = new HashMap<>();
+            state.put("PaneStartTimes", panedSlidingAggregator.getPaneStartTimes());
+            state.put("Panes", panedSlidingAggregator.getPanes());
+            return state;
+        }
+
+        @Override
+        public void restore(Map<String, Object> state) {
+            panedSlidingAggregator.restore((List<Long>) state.get("PaneStartTimes"),
+                    (List<Object>) state.get("Panes"));
+        }
+    }
+
+    /**
+     * Keeps the open pane of the query, while the closed panes are kept by the {@link SharedPanes}. The aggregate of
+     * the closed panes within the window is cached, and only recomputed when the window moves to another pane.
+     */
+    class SharedPaneState extends PaneState {
+
+        private final long windowTime;
+        private final SharedPanes sharedPanes;
+        private final int sharer;
+        private long openPaneStartTime = Long.MIN_VALUE;
+        private Object openPane = null;
+        private long closedPanesFrom = Long.MIN_VALUE;
+        private long closedPanesTo = Long.MIN_VALUE;
+        private Object closedPanesAggregate = null;
+
+        SharedPaneState(long windowTime, SharedPanes sharedPanes, int sharer) {
+            this.windowTime = windowTime;
+            this.sharedPanes = sharedPanes;
+            this.sharer = sharer;
+        }
+
+        @Override
+        Object aggregate(long timestamp, Object value) {
+            long paneTime = sharedPanes.getPaneTime();
+            SharedPanes.PaneStore paneStore = sharedPanes.getPaneStore();
+            synchronized (paneStore) {
+                String groupByKey = SiddhiAppContext.getGroupByFlowId();
+                long paneStartTime = timestamp - Math.floorMod(timestamp, paneTime);
+                if (paneStartTime > openPaneStartTime) {
+                    if (openPane != null) {
+                        paneStore.publish(groupByKey, openPaneStartTime, openPane);
+                        openPane = null;
+                    }
+                    openPaneStartTime = paneStartTime;
+                }
+                if (value != null) {
+                    openPane = openPane == null ? value : paneAggregation.combine(openPane, value);
+                }
+                long expiryTime = timestamp - windowTime;
+                paneStore.expire(groupByKey, sharer, expiryTime);
+                long from = expiryTime - Math.floorMod(expiryTime, paneTime);
+                if (from != closedPanesFrom || openPaneStartTime != closedPanesTo) {
+                    closedPanesAggregate = paneStore.aggregate(groupByKey, from, openPaneStartTime,
+                            paneAggregation::combine);
+                    closedPanesFrom = from;
+                    closedPanesTo = openPaneStartTime;
+                }
+            }
+            if (closedPanesAggregate == null) {
+                return openPane;
+            }
+            if (openPane == null) {
+                return closedPanesAggregate;
+            }
+            return paneAggregation.combine(closedPanesAggregate, openPane);
+        }
+
+        @Override
+        void clear() {
+            openPaneStartTime = Long.MIN_VALUE;
+            openPane = null;
+            closedPanesFrom = Long.MIN_VALUE;
+            closedPanesTo = Long.MIN_VALUE;
+            closedPanesAggregate = null;
+        }
+
+        @Override
+        public boolean canDestroy() {
+            return openPane == null;
+        }
+
+        @Override
+        public Map<String, Object> snapshot() {
+            Map<String, Object> state = new HashMap<>();
+            state.put("OpenPaneStartTime", openPaneStartTime);
+            state.put("OpenPane", openPane);
+            return state;
+        }
+
+        @Override
+        public void restore(Map<String, Object> state) {
+            clear();
+            openPaneStartTime = (Long) state.get("OpenPaneStartTime");
+            openPane = state.get("OpenPane");
+        }
+    }
 }
@@ -135,6 +135,36 @@ public class AvgAttributeAggregatorExecutor
         return state.reset();
     }
 
+    /**
+     * Partial aggregates of the panes hold the sum and the count of the values.
+     */
+    @Override
+    protected PaneAggregation<?> getPaneAggregation() {
+        return new PaneAggregation<double[]>() {
+            @Override
+            public double[] lift(Object data) {
+                return data == null ? null : new double[]{((Number) data).doubleValue(), 1};
+            }
+
+            @Override
+            public double[] lift(Object[] data) {
+                // will not occur
+                throw new IllegalStateException("Avg cannot process data array, but found " +
+                        Arrays.deepToString(data));
+            }
+
+            @Override
+            public double[] combine(double[] older, double[] newer) {
+                return new double[]{older[0] + newer[0], older[1] + newer[1]};
+            }
+
+            @Override
+            public Object lower(double[] aggregate) {
+                return aggregate == null ? null : aggregate[0] / aggregate[1];
+            }
+        };
+    }
+
     class AvgAttributeAggregatorStateDouble extends AvgAttributeState {
 
         private double value = 0.0;
@@ -108,6 +108,31 @@ public class CountAttributeAggregatorExecutor
         return state.count;
     }
 
+    @Override
+    protected PaneAggregation<?> getPaneAggregation() {
+        return new PaneAggregation<Long>() {
+            @Override
+            public Long lift(Object data) {
+                return 1L;
+            }
+
+            @Override
+            public Long lift(Object[] data) {
+                return 1L;
+            }
+
+            @Override
+            public Long combine(Long older, Long newer) {
+                return older + newer;
+            }
+
+            @Override
+            public Object lower(Long aggregate) {
+                return aggregate == null ? 0L : aggregate;
+            }
+        };
+    }
+
 
     class AggregatorState extends State {
         private long count = 0L;
@@ -144,6 +144,33 @@ public class MaxAttributeAggregatorExecutor
         return state.reset();
     }
 
+    @Override
+    protected PaneAggregation<?> getPaneAggregation() {
+        return new PaneAggregation<Comparable>() {
+            @Override
+            public Comparable lift(Object data) {
+                return (Comparable) data;
+            }
+
+            @Override
+            public Comparable lift(Object[] data) {
+                // will not occur
+                throw new IllegalStateException("Max cannot process data array, but found " +
+                        Arrays.deepToString(data));
+            }
+
+            @Override
+            public Comparable combine(Comparable older, Comparable newer) {
+                return newer.compareTo(older) > 0 ? newer : older;
+            }
+
+            @Override
+            public Object lower(Comparable aggregate) {
+                return aggregate;
+            }
+        };
+    }
+
     class MaxAttributeAggregatorStateDouble extends MaxAggregatorState {
 
         private Deque<Double> maxDeque = null;
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.siddhi.core.query.selector.attribute.aggregator;
+
+/**
+ * Associative form of an attribute aggregator used when aggregating over panes of a sliding time window. Values of
+ * the events arriving within a pane are combined into a single partial aggregate, and the partial aggregates of the
+ * panes within the window are combined on emission, hence events need not be retained.
+ *
+ * @param <T> type of the partial aggregate
+ */
+public interface PaneAggregation<T> {
+
+    /**
+     * Convert the attribute value of an event to a partial aggregate.
+     *
+     * @param data attribute value
+     * @return the partial aggregate, or null if the value need to be ignored
+     */
+    T lift(Object data);
+
+    /**
+     * Convert the attribute values of an event to a partial aggregate.
+     *
+     * @param data attribute values
+     * @return the partial aggregate, or null if the values need to be ignored
+     */
+    T lift(Object[] data);
+
+    /**
+     * Associative function combining two partial aggregates, this should not modify the given partial aggregates.
+     *
+     * @param older partial aggregate of the older events
+     * @param newer partial aggregate of the newer events
+     * @return the combined partial aggregate
+     */
+    T combine(T older, T newer);
+
+    /**
+     * Convert the partial aggregate to the output of the aggregator.
+     *
+     * @param aggregate partial aggregate of all events, null when there are no events
+     * @return the aggregated value
+     */
+    Object lower(T aggregate);
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.siddhi.core.query.selector.attribute.aggregator;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Sliding time window aggregation engine that combines the values arriving within fixed size panes into a single
+ * partial aggregate per pane. Closed panes are kept in a {@link TwoStacksSlidingAggregator}, hence memory scales
+ * with the number of panes within the window rather than the number of events.
+ * <p>
+ * Panes are aligned to the epoch and evicted lazily when a newer value arrives, once the whole pane falls outside
+ * the window; the window hence covers between windowTime and windowTime + paneTime of values.
+ *
+ * @param <T> type of the partial aggregate
+ */
+public class PanedSlidingAggregator<T> {
+
+    private final long windowTime;
+    private final long paneTime;
+    private final TwoStacksSlidingAggregator.Combiner<T> combiner;
+    private final TwoStacksSlidingAggregator<T> closedPanes;
+    private final LinkedList<Long> closedPaneStartTimes = new LinkedList<>();
+    private long openPaneStartTime = Long.MIN_VALUE;
+    private T openPane = null;
+
+    /**
+     * @param windowTime length of the sliding window in milliseconds
+     * @param paneTime   length of a pane in milliseconds
+     * @param combiner   associative function used to combine the partial aggregates
+     */
+    public PanedSlidingAggregator(long windowTime, long paneTime, TwoStacksSlidingAggregator.Combiner<T> combiner) {
+        this.windowTime = windowTime;
+        this.paneTime = paneTime;
+        this.combiner = combiner;
+        this.closedPanes = new TwoStacksSlidingAggregator<>(combiner, true);
+    }
+
+    /**
+     * Add a value to the pane of the given timestamp, and evict the panes that fall outside the window.
+     *
+     * @param timestamp event timestamp in milliseconds
+     * @param value     partial aggregate of the event, null values only advance the window
+     */
+    public void add(long timestamp, T value) {
+        long paneStartTime = timestamp - Math.floorMod(timestamp, paneTime);
+        if (paneStartTime > openPaneStartTime) {
+            if (openPane != null) {
+                closedPanes.add(openPane);
+                closedPaneStartTimes.addLast(openPaneStartTime);
+                openPane = null;
+            }
+            openPaneStartTime = paneStartTime;
+        }
+        if (value != null) {
+            openPane = openPane == null ? value : combiner.combine(openPane, value);
+        }
+        long expiryTime = timestamp - windowTime;
+        while (!closedPaneStartTimes.isEmpty() && closedPaneStartTimes.getFirst() + paneTime <= expiryTime) {
+            closedPaneStartTimes.removeFirst();
+            closedPanes.evictOldest();
+        }
+    }
+
+    /**
+     * @return the aggregate of all panes in the window, or null if the window is empty
+     */
+    public T query() {
+        T closedAggregate = closedPanes.query();
+        if (closedAggregate == null) {
+            return openPane;
+        }
+        if (openPane == null) {
+            return closedAggregate;
+        }
+        return combiner.combine(closedAggregate, openPane);
+    }
+
+    /**
+     * @return number of panes retained including the open pane
+     */
+    public int getPaneCount() {
+        return closedPanes.size() + (openPane == null ? 0 : 1);
+    }
+
+    public boolean isEmpty() {
+        return openPane == null && closedPanes.isEmpty();
+    }
+
+    public void clear() {
+        closedPanes.clear();
+        closedPaneStartTimes.clear();
+        openPaneStartTime = Long.MIN_VALUE;
+        openPane = null;
+    }
+
+    /**
+     * @return start times of the retained panes ordered from the oldest to the newest, including the open pane
+     */
+    public List<Long> getPaneStartTimes() {
+        List<Long> paneStartTimes = new ArrayList<>(closedPaneStartTimes);
+        if (openPane != null) {
+            paneStartTimes.add(openPaneStartTime);
+        }
+        return paneStartTimes;
+    }
+
+    /**
+     * @return partial aggregates of the retained panes ordered from the oldest to the newest, including the open pane
+     */
+    public List<T> getPanes() {
+        List<T> panes = closedPanes.getValues();
+        if (openPane != null) {
+            panes.add(openPane);
+        }
+        return panes;
+    }
+
+    /**
+     * Replace the content of the window, the newest pane is reopened.
+     *
+     * @param paneStartTimes start times of the panes ordered from the oldest to the newest
+     * @param panes          partial aggregates of the panes ordered from the oldest to the newest
+     */
+    public void restore(List<Long> paneStartTimes, List<T> panes) {
+        clear();
+        if (panes == null || panes.isEmpty()) {
+            return;
+        }
+        int last = panes.size() - 1;
+        for (int i = 0; i < last; i++) {
+            closedPanes.add(panes.get(i));
+            closedPaneStartTimes.addLast(paneStartTimes.get(i));
+        }
+        openPane = panes.get(last);
+        openPaneStartTime = paneStartTimes.get(last);
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.siddhi.core.query.selector.attribute.aggregator;
+
+import io.siddhi.core.config.SiddhiQueryContext;
+import io.siddhi.core.util.snapshot.state.State;
+import io.siddhi.core.util.snapshot.state.StateHolder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Closed panes of a pane mode aggregation shared by the queries that consume the same stream with the same pane
+ * time, group by and aggregator. Each query keeps its own open pane and publishes it here when it closes, where the
+ * first query to close a pane publishes it and the others skip it, as they aggregate the same events. Each query
+ * then combines the closed panes within its own window, hence the window times of the queries may differ.
+ * <p>
+ * Closed panes are kept per group by key, and evicted once they fall outside the windows of all the queries.
+ */
+public class SharedPanes {
+
+    private final long paneTime;
+    private int sharerCount = 0;
+    private StateHolder<PaneStore> paneStoreHolder;
+
+    public SharedPanes(long paneTime) {
+        this.paneTime = paneTime;
+    }
+
+    /**
+     * Register a query aggregating over the shared panes, the first query registered holds the panes as its state.
+     *
+     * @param siddhiQueryContext Siddhi query context of the registering query
+     * @return index of the query among the queries sharing the panes
+     */
+    public int register(SiddhiQueryContext siddhiQueryContext) {
+        if (paneStoreHolder == null) {
+            paneStoreHolder = siddhiQueryContext.generateStateHolder(SharedPanes.class.getName(), false,
+                    PaneStore::new, true);
+        }
+        return sharerCount++;
+    }
+
+    /**
+     * @return true if more than one query is registered, used after all queries of the Siddhi app are parsed
+     */
+    public boolean isShared() {
+        return sharerCount > 1;
+    }
+
+    public long getPaneTime() {
+        return paneTime;
+    }
+
+    public synchronized PaneStore getPaneStore() {
+        return paneStoreHolder.getState();
+    }
+
+    /**
+     * State holding the closed panes, callers synchronize on it as it is accessed by all the sharing queries.
+     */
+    public class PaneStore extends State {
+
+        private final Map<String, GroupPanes> groupPanesMap = new HashMap<>();
+
+        /**
+         * Publish a closed pane, panes not newer than the last published pane of the group are skipped.
+         *
+         * @param groupByKey    group by key of the pane, null when not grouped
+         * @param paneStartTime start time of the pane
+         * @param pane          partial aggregate of the pane
+         */
+        public void publish(String groupByKey, long paneStartTime, Object pane) {
+            GroupPanes groupPanes = groupPanesMap.get(groupByKey);
+            if (groupPanes == null) {
+                groupPanes = new GroupPanes();
+                groupPanesMap.put(groupByKey, groupPanes);
+            }
+            if (groupPanes.paneStartTimes.isEmpty() || groupPanes.paneStartTimes.getLast() < paneStartTime) {
+                groupPanes.paneStartTimes.addLast(paneStartTime);
+                groupPanes.panes.addLast(pane);
+            }
+        }
+
+        /**
+         * Record the expiry time of a query, and evict the panes that fall outside the windows of all the queries.
+         *
+         * @param groupByKey group by key, null when not grouped
+         * @param sharer     index of the query
+         * @param expiryTime time before which the query no longer needs the panes
+         */
+        public void expire(String groupByKey, int sharer, long expiryTime) {
+            GroupPanes groupPanes = groupPanesMap.get(groupByKey);
+            if (groupPanes == null) {
+                return;
+            }
+            if (groupPanes.expiryTimes[sharer] < expiryTime) {
+                groupPanes.expiryTimes[sharer] = expiryTime;
+            }
+            long minExpiryTime = Long.MAX_VALUE;
+            for (long sharerExpiryTime : groupPanes.expiryTimes) {
+                minExpiryTime = Math.min(minExpiryTime, sharerExpiryTime);
+            }
+            while (!groupPanes.paneStartTimes.isEmpty() &&
+                    groupPanes.paneStartTimes.getFirst() + paneTime <= minExpiryTime) {
+                groupPanes.paneStartTimes.removeFirst();
+                groupPanes.panes.removeFirst();
+            }
+            if (groupPanes.paneStartTimes.isEmpty()) {
+                groupPanesMap.remove(groupByKey);
+            }
+        }
+
+        /**
+         * Combine the closed panes starting within the given range.
+         *
+         * @param groupByKey group by key, null when not grouped
+         * @param from       inclusive start time of the oldest pane
+         * @param to         exclusive start time of the newest pane
+         * @param combiner   associative function used to combine the partial aggregates
+         * @return the aggregate of the panes, or null if there are no panes in the range
+         */
+        public Object aggregate(String groupByKey, long from, long to,
+                                TwoStacksSlidingAggregator.Combiner<Object> combiner) {
+            GroupPanes groupPanes = groupPanesMap.get(groupByKey);
+            if (groupPanes == null) {
+                return null;
+            }
+            Object aggregate = null;
+            Iterator<Long> paneStartTimes = groupPanes.paneStartTimes.descendingIterator();
+            Iterator<Object> panes = groupPanes.panes.descendingIterator();
+            while (paneStartTimes.hasNext()) {
+                long paneStartTime = paneStartTimes.next();
+                Object pane = panes.next();
+                if (paneStartTime < from) {
+                    break;
+                }
+                if (paneStartTime < to) {
+                    aggregate = aggregate == null ? pane : combiner.combine(pane, aggregate);
+                }
+            }
+            return aggregate;
+        }
+
+        @Override
+        public boolean canDestroy() {
+            return groupPanesMap.isEmpty();
+        }
+
+        @Override
+        public Map<String, Object> snapshot() {
+            Map<String, List<Long>> paneStartTimes = new HashMap<>();
+            Map<String, List<Object>> panes = new HashMap<>();
+            for (Map.Entry<String, GroupPanes> entry : groupPanesMap.entrySet()) {
+                paneStartTimes.put(entry.getKey(), new ArrayList<>(entry.getValue().paneStartTimes));
+                panes.put(entry.getKey(), new ArrayList<>(entry.getValue().panes));
+            }
+            Map<String, Object> state = new HashMap<>();
+            state.put("PaneStartTimes", paneStartTimes);
+            state.put("Panes", panes);
+            return state;
+        }
+
+        @Override
+        public void restore(Map<String, Object> state) {
+            groupPanesMap.clear();
+            Map<String, List<Long>> paneStartTimes = (Map<String, List<Long>>) state.get("PaneStartTimes");
+            Map<String, List<Object>> panes = (Map<String, List<Object>>) state.get("Panes");
+            for (Map.Entry<String, List<Long>> entry : paneStartTimes.entrySet()) {
+                GroupPanes groupPanes = new GroupPanes();
+                groupPanes.paneStartTimes.addAll(entry.getValue());
+                groupPanes.panes.addAll(panes.get(entry.getKey()));
+                groupPanesMap.put(entry.getKey(), groupPanes);
+            }
+        }
+    }
+
+    private class GroupPanes {
+
+        private final LinkedList<Long> paneStartTimes = new LinkedList<>();
+        private final LinkedList<Object> panes = new LinkedList<>();
+        private final long[] expiryTimes = new long[sharerCount];
+
+        private GroupPanes() {
+            Arrays.fill(expiryTimes, Long.MIN_VALUE);
+        }
+    }
+}
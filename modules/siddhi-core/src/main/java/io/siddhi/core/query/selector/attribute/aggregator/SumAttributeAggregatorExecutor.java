@@ -156,6 +156,58 @@ public class SumAttributeAggregatorExecutor
         return state.reset();
     }
 
+    @Override
+    protected PaneAggregation<?> getPaneAggregation() {
+        if (returnType == Attribute.Type.LONG) {
+            return new PaneAggregation<Long>() {
+                @Override
+                public Long lift(Object data) {
+                    return data == null ? null : ((Number) data).longValue();
+                }
+
+                @Override
+                public Long lift(Object[] data) {
+                    // will not occur
+                    throw new IllegalStateException("Sum cannot process data array, but found " +
+                            Arrays.deepToString(data));
+                }
+
+                @Override
+                public Long combine(Long older, Long newer) {
+                    return older + newer;
+                }
+
+                @Override
+                public Object lower(Long aggregate) {
+                    return aggregate;
+                }
+            };
+        }
+        return new PaneAggregation<Double>() {
+            @Override
+            public Double lift(Object data) {
+                return data == null ? null : ((Number) data).doubleValue();
+            }
+
+            @Override
+            public Double lift(Object[] data) {
+                // will not occur
+                throw new IllegalStateException("Sum cannot process data array, but found " +
+                        Arrays.deepToString(data));
+            }
+
+            @Override
+            public Double combine(Double older, Double newer) {
+                return older + newer;
+            }
+
+            @Override
+            public Object lower(Double aggregate) {
+                return aggregate;
+            }
+        };
+    }
+
     class AggregatorStateDouble extends AggregatorState {
 
         private final Attribute.Type type = Attribute.Type.DOUBLE;
@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.siddhi.core.query.selector.attribute.aggregator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Sliding window aggregation engine based on the two-stacks algorithm. Values are pushed to a back stack that keeps
+ * a running aggregate, and evicted from a front stack that keeps suffix aggregates; when the front stack runs empty
+ * the back stack is flipped onto it. This gives amortised O(1) insert, evict and query for any associative
+ * combine function, without requiring the function to be invertible.
+ * <p>
+ * Values are expected to be evicted in insertion order, as done by sliding windows. When an evicted value does not
+ * match the oldest value it is removed from wherever it is and the stacks are rebuilt, which is O(n).
+ *
+ * @param <T> type of the partial aggregate
+ */
+public class TwoStacksSlidingAggregator<T> {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private final Combiner<T> combiner;
+    private final boolean retainValues;
+
+    private Object[] frontValues;
+    private Object[] frontAggregates;
+    private int frontSize = 0;
+
+    private Object[] backValues;
+    private int backSize = 0;
+    private T backAggregate = null;
+
+    /**
+     * @param combiner     associative function used to combine the partial aggregates
+     * @param retainValues whether values need to be retained for eviction, when false only the running aggregate
+     *                     is maintained and {@link #evict(Object)} is not supported
+     */
+    public TwoStacksSlidingAggregator(Combiner<T> combiner, boolean retainValues) {
+        this.combiner = combiner;
+        this.retainValues = retainValues;
+        if (retainValues) {
+            this.frontValues = new Object[DEFAULT_CAPACITY];
+            this.frontAggregates = new Object[DEFAULT_CAPACITY];
+            this.backValues = new Object[DEFAULT_CAPACITY];
+        }
+    }
+
+    public void add(T value) {
+        if (retainValues) {
+            if (backSize == backValues.length) {
+                backValues = Arrays.copyOf(backValues, backSize << 1);
+            }
+            backValues[backSize++] = value;
+        }
+        backAggregate = backAggregate == null ? value : combiner.combine(backAggregate, value);
+    }
+
+    /**
+     * Evict a value from the window.
+     *
+     * @param value the value to be evicted, this is usually the oldest value in the window
+     * @return true if a value was evicted, false if the value is not in the window
+     */
+    public boolean evict(T value) {
+        if (!retainValues) {
+            throw new IllegalStateException("Values are not retained, hence they cannot be evicted");
+        }
+        if (frontSize == 0) {
+            flip();
+        }
+        if (frontSize == 0) {
+            return false;
+        }
+        if (!Objects.equals(frontValues[frontSize - 1], value)) {
+            List<T> values = getValues();
+            int index = values.indexOf(value);
+            if (index < 0) {
+                return false;
+            }
+            values.remove(index);
+            rebuild(values);
+            return true;
+        }
+        return evictOldest();
+    }
+
+    /**
+     * Evict the oldest value from the window.
+     *
+     * @return true if a value was evicted
+     */
+    public boolean evictOldest() {
+        if (!retainValues) {
+            throw new IllegalStateException("Values are not retained, hence they cannot be evicted");
+        }
+        if (frontSize == 0) {
+            flip();
+        }
+        if (frontSize == 0) {
+            return false;
+        }
+        frontSize--;
+        frontValues[frontSize] = null;
+        frontAggregates[frontSize] = null;
+        return true;
+    }
+
+    /**
+     * @return the aggregate of all values in the window from the oldest to the newest, or null if the window is empty
+     */
+    public T query() {
+        if (frontSize == 0) {
+            return backAggregate;
+        }
+        T frontAggregate = (T) frontAggregates[frontSize - 1];
+        if (backAggregate == null) {
+            return frontAggregate;
+        }
+        return combiner.combine(frontAggregate, backAggregate);
+    }
+
+    public int size() {
+        return frontSize + backSize;
+    }
+
+    public boolean isEmpty() {
+        return frontSize == 0 && backSize == 0 && backAggregate == null;
+    }
+
+    public void clear() {
+        if (retainValues) {
+            Arrays.fill(frontValues, 0, frontSize, null);
+            Arrays.fill(frontAggregates, 0, frontSize, null);
+            Arrays.fill(backValues, 0, backSize, null);
+        }
+        frontSize = 0;
+        backSize = 0;
+        backAggregate = null;
+    }
+
+    /**
+     * @return the retained values ordered from the oldest to the newest
+     */
+    public List<T> getValues() {
+        List<T> values = new ArrayList<>(frontSize + backSize);
+        for (int i = frontSize - 1; i >= 0; i--) {
+            values.add((T) frontValues[i]);
+        }
+        for (int i = 0; i < backSize; i++) {
+            values.add((T) backValues[i]);
+        }
+        return values;
+    }
+
+    /**
+     * Replace the content of the window.
+     *
+     * @param values    values ordered from the oldest to the newest, used when values are retained
+     * @param aggregate running aggregate, used when values are not retained
+     */
+    public void restore(List<T> values, T aggregate) {
+        if (retainValues) {
+            rebuild(values);
+        } else {
+            clear();
+            backAggregate = aggregate;
+        }
+    }
+
+    private void rebuild(List<T> values) {
+        clear();
+        if (values != null) {
+            for (T value : values) {
+                add(value);
+            }
+        }
+    }
+
+    private void flip() {
+        if (backSize == 0) {
+            return;
+        }
+        if (frontValues.length < backSize) {
+            frontValues = new Object[backValues.length];
+            frontAggregates = new Object[backValues.length];
+        }
+        T aggregate = null;
+        for (int i = backSize - 1; i >= 0; i--) {
+            T value = (T) backValues[i];
+            aggregate = aggregate == null ? value : combiner.combine(value, aggregate);
+            frontValues[frontSize] = value;
+            frontAggregates[frontSize] = aggregate;
+            frontSize++;
+            backValues[i] = null;
+        }
+        backSize = 0;
+        backAggregate = null;
+    }
+
+    /**
+     * Associative function combining two partial aggregates.
+     *
+     * @param <T> type of the partial aggregate
+     */
+    @FunctionalInterface
+    public interface Combiner<T> {
+
+        /**
+         * Combine two partial aggregates, the implementation should not modify the given partial aggregates.
+         *
+         * @param older partial aggregate of the older values
+         * @param newer partial aggregate of the newer values
+         * @return the combined partial aggregate
+         */
+        T combine(T older, T newer);
+    }
+}
@@ -155,6 +155,9 @@ public abstract class Source<S extends State> {
         if (!isConnected.get()) {
             isTryingToConnect.set(true);
             state = stateHolder.getState();
+            if (state != null) {
+                state.hold();
+            }
             try {
                 connect(connectionCallback, state);
                 isConnected.set(true);
@@ -205,6 +208,9 @@ public abstract class Source<S extends State> {
         try {
             disconnect();
         } finally {
+            if (state != null) {
+                state.release();
+            }
             stateHolder.returnState(state);
             state = null;
         }
@@ -0,0 +1,715 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.core.table;
+
+import io.siddhi.core.config.SiddhiAppContext;
+import io.siddhi.core.event.ComplexEventChunk;
+import io.siddhi.core.event.state.StateEvent;
+import io.siddhi.core.event.stream.StreamEvent;
+import io.siddhi.core.event.stream.StreamEventCloner;
+import io.siddhi.core.event.stream.StreamEventFactory;
+import io.siddhi.core.event.stream.StreamEventIterator;
+import io.siddhi.core.event.stream.holder.SnapshotableStreamEventQueue;
+import io.siddhi.core.table.holder.CompositePrimaryKey;
+import io.siddhi.core.table.holder.EventHolder;
+import io.siddhi.core.table.holder.IndexEventHolder;
+import io.siddhi.core.table.holder.IndexedEventHolder;
+import io.siddhi.core.table.record.RecordTableHandler;
+import io.siddhi.core.util.SiddhiConstants;
+import io.siddhi.core.util.collection.AddingStreamEventExtractor;
+import io.siddhi.core.util.collection.operator.CompiledCondition;
+import io.siddhi.core.util.collection.operator.Operator;
+import io.siddhi.core.util.config.ConfigReader;
+import io.siddhi.core.util.parser.helper.QueryParserHelper;
+import io.siddhi.core.util.statistics.ThroughputTracker;
+import io.siddhi.core.util.statistics.metrics.Level;
+import io.siddhi.query.api.annotation.Annotation;
+import io.siddhi.query.api.annotation.Element;
+import io.siddhi.query.api.definition.TableDefinition;
+import io.siddhi.query.api.util.AnnotationHelper;
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link InMemoryTable} caching the rows of a record table, holding at most a given number of rows.
+ * <p>
+ * When the table has a primary key, rows beyond the size are evicted based on the {@link Policy}, and rows older
+ * than the retention period are purged periodically and treated as missing when found. The cache is complete while
+ * it holds all the rows of the record table, which is only known when it was loaded with all of them and no row was
+ * evicted or purged since.
+ */
+public class CacheTable extends InMemoryTable {
+
+    private static final Logger log = Logger.getLogger(CacheTable.class);
+
+    private final int maxSize;
+    private final long retentionPeriod;
+    private final long purgeInterval;
+    private final Entries entries;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+    private int[] primaryKeyPositions;
+    private StreamEventCloner storeEventCloner;
+    private SiddhiAppContext siddhiAppContext;
+    private ThroughputTracker hitTracker;
+    private ThroughputTracker missTracker;
+    private ThroughputTracker evictionTracker;
+    private ScheduledFuture<?> purgeFuture;
+    private volatile boolean complete;
+
+    /**
+     * @param policy          policy selecting the rows to evict
+     * @param maxSize         maximum number of rows held
+     * @param retentionPeriod time in milliseconds rows are held after being loaded, or 0 to hold them until evicted
+     * @param purgeInterval   time in milliseconds between purges of the rows older than the retention period
+     */
+    public CacheTable(Policy policy, int maxSize, long retentionPeriod, long purgeInterval) {
+        this.maxSize = maxSize;
+        this.retentionPeriod = retentionPeriod;
+        this.purgeInterval = purgeInterval;
+        this.entries = policy == Policy.LFU ? new FrequencyEntries() : new LinkedEntries(policy == Policy.LRU);
+    }
+
+    @Override
+    public void init(TableDefinition tableDefinition, StreamEventFactory storeEventPool,
+                     StreamEventCloner storeEventCloner, ConfigReader configReader, SiddhiAppContext siddhiAppContext,
+                     RecordTableHandler recordTableHandler) {
+        super.init(tableDefinition, storeEventPool, storeEventCloner, configReader, siddhiAppContext,
+                recordTableHandler);
+        this.storeEventCloner = storeEventCloner;
+        this.siddhiAppContext = siddhiAppContext;
+        Annotation primaryKeyAnnotation = AnnotationHelper.getAnnotation(SiddhiConstants.ANNOTATION_PRIMARY_KEY,
+                tableDefinition.getAnnotations());
+        if (primaryKeyAnnotation != null) {
+            List<Element> elements = primaryKeyAnnotation.getElements();
+            primaryKeyPositions = new int[elements.size()];
+            for (int i = 0; i < elements.size(); i++) {
+                primaryKeyPositions[i] = tableDefinition.getAttributePosition(elements.get(i).getValue());
+            }
+        }
+        if (siddhiAppContext.getStatisticsManager() != null) {
+            hitTracker = QueryParserHelper.createThroughputTracker(siddhiAppContext, tableDefinition.getId(),
+                    SiddhiConstants.METRIC_INFIX_TABLES, SiddhiConstants.METRIC_TYPE_CACHE_HIT);
+            missTracker = QueryParserHelper.createThroughputTracker(siddhiAppContext, tableDefinition.getId(),
+                    SiddhiConstants.METRIC_INFIX_TABLES, SiddhiConstants.METRIC_TYPE_CACHE_MISS);
+            evictionTracker = QueryParserHelper.createThroughputTracker(siddhiAppContext, tableDefinition.getId(),
+                    SiddhiConstants.METRIC_INFIX_TABLES, SiddhiConstants.METRIC_TYPE_CACHE_EVICTION);
+        }
+        if (retentionPeriod > 0 && primaryKeyPositions != null) {
+            purgeFuture = siddhiAppContext.getScheduledExecutorService().scheduleWithFixedDelay(this::purge,
+                    purgeInterval, purgeInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * @return whether rows can be evicted, which requires a primary key to identify them
+     */
+    public boolean isEvictable() {
+        return primaryKeyPositions != null;
+    }
+
+    /**
+     * @return whether the cache holds all the rows of the record table
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Replaces the rows of the cache with the given rows.
+     *
+     * @param streamEvents rows loaded from the record table
+     * @param complete     whether the rows are all the rows of the record table
+     */
+    public void reload(StreamEvent streamEvents, boolean complete) {
+        ComplexEventChunk<StreamEvent> loadedEvents = new ComplexEventChunk<>(true);
+        if (streamEvents != null) {
+            loadedEvents.add(streamEvents);
+        }
+        writeEventHolder(eventHolder -> {
+            if (eventHolder instanceof IndexedEventHolder) {
+                ((IndexedEventHolder) eventHolder).deleteAll();
+            } else {
+                ((SnapshotableStreamEventQueue) eventHolder).clear();
+            }
+            synchronized (entries) {
+                entries.clear();
+            }
+            eventHolder.add(loadedEvents);
+            track(loadedEvents);
+            this.complete = complete;
+            evict(eventHolder);
+        });
+    }
+
+    /**
+     * Adds the rows found in the record table on a cache miss, replacing the cached rows having the same primary
+     * keys.
+     *
+     * @param streamEvents rows found in the record table
+     */
+    public void load(StreamEvent streamEvents) {
+        if (primaryKeyPositions == null || streamEvents == null) {
+            return;
+        }
+        writeEventHolder(eventHolder -> {
+            long currentTime = currentTime();
+            for (StreamEvent streamEvent = streamEvents; streamEvent != null; streamEvent = streamEvent.getNext()) {
+                StreamEvent cachedEvent = storeEventCloner.copyStreamEvent(streamEvent);
+                ((IndexedEventHolder) eventHolder).overwrite(cachedEvent);
+                Object primaryKey = getPrimaryKey(cachedEvent);
+                if (primaryKey != null) {
+                    synchronized (entries) {
+                        entries.put(primaryKey, currentTime, true);
+                    }
+                }
+            }
+            evict(eventHolder);
+        });
+    }
+
+    @Override
+    public void add(ComplexEventChunk<StreamEvent> addingEventChunk) {
+        writeEventHolder(eventHolder -> {
+            eventHolder.add(addingEventChunk);
+            track(addingEventChunk);
+            evict(eventHolder);
+        });
+    }
+
+    @Override
+    public void delete(ComplexEventChunk<StateEvent> deletingEventChunk, CompiledCondition compiledCondition) {
+        writeEventHolder(eventHolder -> {
+            ((Operator) compiledCondition).delete(deletingEventChunk, eventHolder);
+            removeStaleEntries(eventHolder);
+        });
+    }
+
+    @Override
+    public void update(ComplexEventChunk<StateEvent> updatingEventChunk, CompiledCondition compiledCondition,
+                       CompiledUpdateSet compiledUpdateSet) {
+        writeEventHolder(eventHolder -> {
+            ((Operator) compiledCondition).update(updatingEventChunk, eventHolder,
+                    (InMemoryCompiledUpdateSet) compiledUpdateSet);
+            removeStaleEntries(eventHolder);
+        });
+    }
+
+    @Override
+    public void updateOrAdd(ComplexEventChunk<StateEvent> updateOrAddingEventChunk,
+                            CompiledCondition compiledCondition, CompiledUpdateSet compiledUpdateSet,
+                            AddingStreamEventExtractor addingStreamEventExtractor) {
+        writeEventHolder(eventHolder -> {
+            ComplexEventChunk<StreamEvent> failedEvents = ((Operator) compiledCondition).tryUpdate(
+                    updateOrAddingEventChunk, eventHolder, (InMemoryCompiledUpdateSet) compiledUpdateSet,
+                    addingStreamEventExtractor);
+            if (failedEvents.getFirst() != null) {
+                eventHolder.add(failedEvents);
+                track(failedEvents);
+            }
+            removeStaleEntries(eventHolder);
+            evict(eventHolder);
+        });
+    }
+
+    @Override
+    protected Iterator<StreamEvent> findEvents(CompiledCondition compiledCondition, StateEvent matchingEvent) {
+        return new StreamEventIterator(find(compiledCondition, matchingEvent));
+    }
+
+    /**
+     * Finds the matching rows, counting their access for eviction. Matched rows older than the retention period are
+     * removed from the cache, and as the cache then no longer holds all the matching rows, nothing is returned and
+     * the cache is marked incomplete, so that the find falls through to the record table.
+     */
+    @Override
+    public StreamEvent find(CompiledCondition compiledCondition, StateEvent matchingEvent) {
+        StreamEvent foundEvents = super.find(compiledCondition, matchingEvent);
+        if (primaryKeyPositions == null || foundEvents == null) {
+            return foundEvents;
+        }
+        long currentTime = currentTime();
+        List<Object> expiredPrimaryKeys = null;
+        synchronized (entries) {
+            for (StreamEvent streamEvent = foundEvents; streamEvent != null; streamEvent = streamEvent.getNext()) {
+                Object primaryKey = getPrimaryKey(streamEvent);
+                if (primaryKey != null && !entries.access(primaryKey, currentTime, retentionPeriod)) {
+                    if (expiredPrimaryKeys == null) {
+                        expiredPrimaryKeys = new ArrayList<>();
+                    }
+                    expiredPrimaryKeys.add(primaryKey);
+                }
+            }
+        }
+        if (expiredPrimaryKeys != null) {
+            removeExpired(expiredPrimaryKeys, currentTime);
+            return null;
+        }
+        return foundEvents;
+    }
+
+    /**
+     * Checks through {@link #find(CompiledCondition, StateEvent)} when rows are evictable, so that the access is
+     * counted for eviction and expired rows are not reported.
+     */
+    @Override
+    public boolean contains(StateEvent matchingEvent, CompiledCondition compiledCondition) {
+        if (primaryKeyPositions != null) {
+            return find(compiledCondition, matchingEvent) != null;
+        }
+        return super.contains(matchingEvent, compiledCondition);
+    }
+
+    public void recordHit() {
+        hitCount.incrementAndGet();
+        if (hitTracker != null && Level.BASIC.compareTo(siddhiAppContext.getRootMetricsLevel()) <= 0) {
+            hitTracker.eventIn();
+        }
+    }
+
+    public void recordMiss() {
+        missCount.incrementAndGet();
+        if (missTracker != null && Level.BASIC.compareTo(siddhiAppContext.getRootMetricsLevel()) <= 0) {
+            missTracker.eventIn();
+        }
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    @Override
+    protected void destroy() {
+        if (purgeFuture != null) {
+            purgeFuture.cancel(false);
+            purgeFuture = null;
+        }
+    }
+
+    private void track(ComplexEventChunk<StreamEvent> streamEventChunk) {
+        if (primaryKeyPositions == null) {
+            return;
+        }
+        long currentTime = currentTime();
+        synchronized (entries) {
+            streamEventChunk.reset();
+            while (streamEventChunk.hasNext()) {
+                Object primaryKey = getPrimaryKey(streamEventChunk.next());
+                if (primaryKey != null) {
+                    entries.put(primaryKey, currentTime, false);
+                }
+            }
+        }
+    }
+
+    /**
+     * Evicts rows until the cache fits its size. Rows whose primary key was changed by an update are not tracked,
+     * hence the entries are rebuilt from the stored primary keys when there is nothing left to evict.
+     */
+    private void evict(EventHolder eventHolder) {
+        if (primaryKeyPositions == null) {
+            return;
+        }
+        IndexEventHolder indexEventHolder = (IndexEventHolder) eventHolder;
+        int evicted = 0;
+        while (indexEventHolder.size() > maxSize) {
+            Object primaryKey;
+            synchronized (entries) {
+                primaryKey = entries.poll();
+                if (primaryKey == null) {
+                    long currentTime = currentTime();
+                    for (Object storedPrimaryKey : indexEventHolder.getAllPrimaryKeyValues()) {
+                        entries.put(storedPrimaryKey, currentTime, false);
+                    }
+                    continue;
+                }
+            }
+            if (remove(indexEventHolder, primaryKey)) {
+                evicted++;
+            }
+        }
+        if (evicted > 0) {
+            complete = false;
+            evictionCount.addAndGet(evicted);
+            if (evictionTracker != null && Level.BASIC.compareTo(siddhiAppContext.getRootMetricsLevel()) <= 0) {
+                evictionTracker.eventsIn(evicted);
+            }
+        }
+    }
+
+    /**
+     * Drops the entries of deleted rows once they outnumber the rows, keeping the cost amortized over the deletes.
+     */
+    private void removeStaleEntries(EventHolder eventHolder) {
+        if (primaryKeyPositions == null) {
+            return;
+        }
+        synchronized (entries) {
+            if (entries.size() > 2 * eventHolder.size()) {
+                entries.retainAll(((IndexEventHolder) eventHolder).getAllPrimaryKeyValues());
+            }
+        }
+    }
+
+    private void purge() {
+        try {
+            writeEventHolder(eventHolder -> {
+                List<Object> expiredPrimaryKeys;
+                synchronized (entries) {
+                    expiredPrimaryKeys = entries.expire(currentTime() - retentionPeriod);
+                }
+                for (Object primaryKey : expiredPrimaryKeys) {
+                    if (remove((IndexEventHolder) eventHolder, primaryKey)) {
+                        complete = false;
+                    }
+                }
+            });
+        } catch (Throwable t) {
+            log.error("Error while purging the cache of table '" + getTableDefinition().getId() +
+                    "' in Siddhi App '" + siddhiAppContext.getName() + "'", t);
+        }
+    }
+
+    /**
+     * Removes the rows found expired, unless they were reloaded since they were found.
+     */
+    private void removeExpired(List<Object> expiredPrimaryKeys, long currentTime) {
+        writeEventHolder(eventHolder -> {
+            complete = false;
+            for (Object primaryKey : expiredPrimaryKeys) {
+                synchronized (entries) {
+                    if (entries.isLoadedAfter(primaryKey, currentTime - retentionPeriod)) {
+                        continue;
+                    }
+                    entries.remove(primaryKey);
+                }
+                remove((IndexEventHolder) eventHolder, primaryKey);
+            }
+        });
+    }
+
+    private boolean remove(IndexEventHolder eventHolder, Object primaryKey) {
+        StreamEvent streamEvent = eventHolder.getPrimaryKeyEvent(primaryKey);
+        if (streamEvent == null) {
+            return false;
+        }
+        eventHolder.deleteAll(Collections.singletonList(streamEvent));
+        return true;
+    }
+
+    private Object getPrimaryKey(StreamEvent streamEvent) {
+        Object[] data = streamEvent.getOutputData();
+        if (primaryKeyPositions.length == 1) {
+            return data[primaryKeyPositions[0]];
+        }
+        Object[] values = new Object[primaryKeyPositions.length];
+        for (int i = 0; i < primaryKeyPositions.length; i++) {
+            values[i] = data[primaryKeyPositions[i]];
+        }
+        return new CompositePrimaryKey(values);
+    }
+
+    private long currentTime() {
+        return siddhiAppContext.getTimestampGenerator().currentTime();
+    }
+
+    /**
+     * Policy selecting the rows to evict when the cache is full.
+     */
+    public enum Policy {
+        /**
+         * Evicts the least recently used row.
+         */
+        LRU,
+        /**
+         * Evicts the least frequently used row, and the oldest among equally used rows.
+         */
+        LFU,
+        /**
+         * Evicts the row loaded first.
+         */
+        FIFO
+    }
+
+    /**
+     * Time of loading and number of accesses of a cached row.
+     */
+    private static class Entry {
+        private final long loadedTime;
+        private long frequency = 1;
+
+        private Entry(long loadedTime) {
+            this.loadedTime = loadedTime;
+        }
+    }
+
+    /**
+     * Eviction order of the cached rows, identified by their primary keys.
+     */
+    private abstract static class Entries {
+
+        /**
+         * @param reset whether an existing entry is replaced, as its row was reloaded
+         */
+        abstract void put(Object primaryKey, long currentTime, boolean reset);
+
+        /**
+         * @return false if the row is older than the retention period
+         */
+        abstract boolean access(Object primaryKey, long currentTime, long retentionPeriod);
+
+        /**
+         * @return the primary key of the row to evict, removing its entry, or null if there are no entries
+         */
+        abstract Object poll();
+
+        /**
+         * @return the primary keys of the rows loaded before the expiry time, removing their entries
+         */
+        abstract List<Object> expire(long expiryTime);
+
+        /**
+         * @return whether the row has an entry loaded after the given time
+         */
+        abstract boolean isLoadedAfter(Object primaryKey, long time);
+
+        abstract void remove(Object primaryKey);
+
+        abstract void retainAll(Set<Object> primaryKeys);
+
+        abstract int size();
+
+        abstract void clear();
+    }
+
+    /**
+     * Entries in insertion order for FIFO, or in access order for LRU.
+     */
+    private static class LinkedEntries extends Entries {
+
+        private final LinkedHashMap<Object, Entry> entries;
+
+        private LinkedEntries(boolean accessOrder) {
+            entries = new LinkedHashMap<>(16, 0.75f, accessOrder);
+        }
+
+        @Override
+        void put(Object primaryKey, long currentTime, boolean reset) {
+            if (reset) {
+                entries.remove(primaryKey);
+            } else if (entries.containsKey(primaryKey)) {
+                return;
+            }
+            entries.put(primaryKey, new Entry(currentTime));
+        }
+
+        @Override
+        boolean access(Object primaryKey, long currentTime, long retentionPeriod) {
+            Entry entry = entries.get(primaryKey);
+            if (entry == null) {
+                entries.put(primaryKey, new Entry(currentTime));
+                return true;
+            }
+            return retentionPeriod <= 0 || currentTime - entry.loadedTime < retentionPeriod;
+        }
+
+        @Override
+        Object poll() {
+            Iterator<Object> iterator = entries.keySet().iterator();
+            if (!iterator.hasNext()) {
+                return null;
+            }
+            Object primaryKey = iterator.next();
+            iterator.remove();
+            return primaryKey;
+        }
+
+        @Override
+        List<Object> expire(long expiryTime) {
+            List<Object> expiredPrimaryKeys = new ArrayList<>();
+            Iterator<Map.Entry<Object, Entry>> iterator = entries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Object, Entry> entry = iterator.next();
+                if (entry.getValue().loadedTime < expiryTime) {
+                    expiredPrimaryKeys.add(entry.getKey());
+                    iterator.remove();
+                }
+            }
+            return expiredPrimaryKeys;
+        }
+
+        @Override
+        boolean isLoadedAfter(Object primaryKey, long time) {
+            Entry entry = entries.get(primaryKey);
+            return entry != null && entry.loadedTime >= time;
+        }
+
+        @Override
+        void remove(Object primaryKey) {
+            entries.remove(primaryKey);
+        }
+
+        @Override
+        void retainAll(Set<Object> primaryKeys) {
+            entries.keySet().retainAll(primaryKeys);
+        }
+
+        @Override
+        int size() {
+            return entries.size();
+        }
+
+        @Override
+        void clear() {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Entries grouped by their access frequency for LFU, each group in insertion order.
+     */
+    private static class FrequencyEntries extends Entries {
+
+        private final Map<Object, Entry> entries = new HashMap<>();
+        private final TreeMap<Long, LinkedHashSet<Object>> frequencies = new TreeMap<>();
+
+        @Override
+        void put(Object primaryKey, long currentTime, boolean reset) {
+            if (entries.containsKey(primaryKey)) {
+                if (!reset) {
+                    return;
+                }
+                remove(primaryKey);
+            }
+            entries.put(primaryKey, new Entry(currentTime));
+            frequencies.computeIfAbsent(1L, frequency -> new LinkedHashSet<>()).add(primaryKey);
+        }
+
+        @Override
+        boolean access(Object primaryKey, long currentTime, long retentionPeriod) {
+            Entry entry = entries.get(primaryKey);
+            if (entry == null) {
+                put(primaryKey, currentTime, false);
+                return true;
+            }
+            removeFrequency(primaryKey, entry.frequency);
+            entry.frequency++;
+            frequencies.computeIfAbsent(entry.frequency, frequency -> new LinkedHashSet<>()).add(primaryKey);
+            return retentionPeriod <= 0 || currentTime - entry.loadedTime < retentionPeriod;
+        }
+
+        @Override
+        Object poll() {
+            if (frequencies.isEmpty()) {
+                return null;
+            }
+            Map.Entry<Long, LinkedHashSet<Object>> leastFrequent = frequencies.firstEntry();
+            Iterator<Object> iterator = leastFrequent.getValue().iterator();
+            Object primaryKey = iterator.next();
+            iterator.remove();
+            if (leastFrequent.getValue().isEmpty()) {
+                frequencies.remove(leastFrequent.getKey());
+            }
+            entries.remove(primaryKey);
+            return primaryKey;
+        }
+
+        @Override
+        List<Object> expire(long expiryTime) {
+            List<Object> expiredPrimaryKeys = new ArrayList<>();
+            for (Map.Entry<Object, Entry> entry : entries.entrySet()) {
+                if (entry.getValue().loadedTime < expiryTime) {
+                    expiredPrimaryKeys.add(entry.getKey());
+                }
+            }
+            for (Object primaryKey : expiredPrimaryKeys) {
+                remove(primaryKey);
+            }
+            return expiredPrimaryKeys;
+        }
+
+        @Override
+        boolean isLoadedAfter(Object primaryKey, long time) {
+            Entry entry = entries.get(primaryKey);
+            return entry != null && entry.loadedTime >= time;
+        }
+
+        @Override
+        void retainAll(Set<Object> primaryKeys) {
+            List<Object> stalePrimaryKeys = new ArrayList<>();
+            for (Object primaryKey : entries.keySet()) {
+                if (!primaryKeys.contains(primaryKey)) {
+                    stalePrimaryKeys.add(primaryKey);
+                }
+            }
+            for (Object primaryKey : stalePrimaryKeys) {
+                remove(primaryKey);
+            }
+        }
+
+        @Override
+        int size() {
+            return entries.size();
+        }
+
+        @Override
+        void clear() {
+            entries.clear();
+            frequencies.clear();
+        }
+
+        @Override
+        void remove(Object primaryKey) {
+            Entry entry = entries.remove(primaryKey);
+            if (entry != null) {
+                removeFrequency(primaryKey, entry.frequency);
+            }
+        }
+
+        private void removeFrequency(Object primaryKey, long frequency) {
+            LinkedHashSet<Object> primaryKeys = frequencies.get(frequency);
+            primaryKeys.remove(primaryKey);
+            if (primaryKeys.isEmpty()) {
+                frequencies.remove(frequency);
+            }
+        }
+    }
+}
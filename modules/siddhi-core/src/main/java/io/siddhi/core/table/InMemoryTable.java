@@ -25,11 +25,14 @@ import io.siddhi.core.event.state.StateEvent;
 import io.siddhi.core.event.stream.StreamEvent;
 import io.siddhi.core.event.stream.StreamEventCloner;
 import io.siddhi.core.event.stream.StreamEventFactory;
+import io.siddhi.core.event.stream.StreamEventIterator;
 import io.siddhi.core.exception.ConnectionUnavailableException;
 import io.siddhi.core.executor.ExpressionExecutor;
 import io.siddhi.core.executor.VariableExpressionExecutor;
 import io.siddhi.core.query.processor.ProcessingMode;
 import io.siddhi.core.table.holder.EventHolder;
+import io.siddhi.core.table.holder.IndexEventHolder;
+import io.siddhi.core.table.holder.StripedPrimaryKeyLock;
 import io.siddhi.core.table.record.RecordTableHandler;
 import io.siddhi.core.util.collection.AddingStreamEventExtractor;
 import io.siddhi.core.util.collection.operator.CompiledCondition;
@@ -46,20 +49,36 @@ import io.siddhi.query.api.definition.TableDefinition;
 import io.siddhi.query.api.execution.query.output.stream.UpdateSet;
 import io.siddhi.query.api.expression.Expression;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * In-memory event table implementation of SiddhiQL.
+ * <p>
+ * Writes to the table are serialized by the table lock. Finds and contains checks on indexed tables are performed as
+ * optimistic reads, hence readers do not block each other. On tables having a primary key, writes also lock the
+ * primary keys they access with a {@link StripedPrimaryKeyLock}, and reads that only look up primary keys are
+ * validated against the stripe of their keys instead of the table lock. Such reads hence neither block on nor are
+ * repeated for writes to the keys of other stripes. Other reads overlapping a write are repeated holding the read
+ * lock of the table.
  */
 public class InMemoryTable extends Table {
 
+    private static final int FIND_EVENTS_FETCH_SIZE = 1000;
     private TableDefinition tableDefinition;
     private StreamEventCloner tableStreamEventCloner;
-    private ReadWriteLock readWriteLock = new ReentrantReadWriteLock();
+    private final StampedLock lock = new StampedLock();
+    private volatile Thread writeLockOwner;
+    private StripedPrimaryKeyLock primaryKeyLock;
     private StateHolder<TableState> stateHolder;
 
     @Override
@@ -69,6 +88,11 @@ public class InMemoryTable extends Table {
         this.tableDefinition = tableDefinition;
         this.tableStreamEventCloner = storeEventCloner;
         EventHolder eventHolder = EventHolderPasser.parse(tableDefinition, storeEventPool, siddhiAppContext);
+        if (eventHolder instanceof IndexEventHolder &&
+                ((IndexEventHolder) eventHolder).getPrimaryKeyReferenceHolders() != null) {
+            primaryKeyLock = new StripedPrimaryKeyLock();
+            ((IndexEventHolder) eventHolder).setPrimaryKeyLock(primaryKeyLock);
+        }
 
         stateHolder = siddhiAppContext.generateStateHolder(tableDefinition.getId(),
                 () -> new TableState(eventHolder));
@@ -81,40 +105,40 @@ public class InMemoryTable extends Table {
 
     @Override
     public void add(ComplexEventChunk<StreamEvent> addingEventChunk) {
-        readWriteLock.writeLock().lock();
+        long stamp = lockForWrite();
         TableState state = stateHolder.getState();
         try {
             state.eventHolder.add(addingEventChunk);
         } finally {
             stateHolder.returnState(state);
-            readWriteLock.writeLock().unlock();
+            unlockWrite(stamp);
         }
 
     }
 
     @Override
     public void delete(ComplexEventChunk<StateEvent> deletingEventChunk, CompiledCondition compiledCondition) {
-        readWriteLock.writeLock().lock();
+        long stamp = lockForWrite();
         TableState state = stateHolder.getState();
         try {
             ((Operator) compiledCondition).delete(deletingEventChunk, state.eventHolder);
         } finally {
             stateHolder.returnState(state);
-            readWriteLock.writeLock().unlock();
+            unlockWrite(stamp);
         }
     }
 
     @Override
     public void update(ComplexEventChunk<StateEvent> updatingEventChunk, CompiledCondition compiledCondition,
                        CompiledUpdateSet compiledUpdateSet) {
-        readWriteLock.writeLock().lock();
+        long stamp = lockForWrite();
         TableState state = stateHolder.getState();
         try {
             ((Operator) compiledCondition).update(updatingEventChunk, state.eventHolder,
                     (InMemoryCompiledUpdateSet) compiledUpdateSet);
         } finally {
             stateHolder.returnState(state);
-            readWriteLock.writeLock().unlock();
+            unlockWrite(stamp);
         }
 
     }
@@ -124,7 +148,7 @@ public class InMemoryTable extends Table {
                             CompiledCondition compiledCondition,
                             CompiledUpdateSet compiledUpdateSet,
                             AddingStreamEventExtractor addingStreamEventExtractor) {
-        readWriteLock.writeLock().lock();
+        long stamp = lockForWrite();
         TableState state = stateHolder.getState();
         try {
             ComplexEventChunk<StreamEvent> failedEvents = ((Operator) compiledCondition).tryUpdate(
@@ -137,20 +161,18 @@ public class InMemoryTable extends Table {
             }
         } finally {
             stateHolder.returnState(state);
-            readWriteLock.writeLock().unlock();
+            unlockWrite(stamp);
         }
 
     }
 
     @Override
     public boolean contains(StateEvent matchingEvent, CompiledCondition compiledCondition) {
-        readWriteLock.readLock().lock();
         TableState state = stateHolder.getState();
         try {
-            return ((Operator) compiledCondition).contains(matchingEvent, state.eventHolder);
+            return read(state, () -> ((Operator) compiledCondition).contains(matchingEvent, state.eventHolder));
         } finally {
             stateHolder.returnState(state);
-            readWriteLock.readLock().unlock();
         }
 
     }
@@ -168,12 +190,181 @@ public class InMemoryTable extends Table {
     @Override
     public StreamEvent find(CompiledCondition compiledCondition, StateEvent matchingEvent) {
         TableState state = stateHolder.getState();
-        readWriteLock.readLock().lock();
         try {
-            return ((Operator) compiledCondition).find(matchingEvent, state.eventHolder, tableStreamEventCloner);
+            return read(state, () -> ((Operator) compiledCondition).find(matchingEvent, state.eventHolder,
+                    tableStreamEventCloner));
+        } finally {
+            stateHolder.returnState(state);
+        }
+    }
+
+    /**
+     * Finds the matching events of indexed tables {@link #FIND_EVENTS_FETCH_SIZE} events at a time, matching and
+     * copying each part holding the read lock, which is released before the part is consumed. Hence the returned
+     * iterator never blocks writes, even when it is not read to the end, and the parts read after a write may or may
+     * not see that write. Other tables cannot be traversed across writes, hence their matching events are copied at
+     * once.
+     */
+    @Override
+    protected Iterator<StreamEvent> findEvents(CompiledCondition compiledCondition, StateEvent matchingEvent) {
+        TableState state = stateHolder.getState();
+        try {
+            if (!(state.eventHolder instanceof IndexEventHolder)) {
+                return new StreamEventIterator(find(compiledCondition, matchingEvent));
+            }
+            return new FetchingStreamEventIterator(read(state, () -> ((Operator) compiledCondition).findEvents(
+                    matchingEvent, state.eventHolder, tableStreamEventCloner)));
+        } finally {
+            stateHolder.returnState(state);
+        }
+    }
+
+    /**
+     * Runs the writer over the event holder of the table, serialized with the other writes.
+     *
+     * @param writer modifies the event holder
+     */
+    protected void writeEventHolder(Consumer<EventHolder> writer) {
+        long stamp = lockForWrite();
+        TableState state = stateHolder.getState();
+        try {
+            writer.accept(state.eventHolder);
+        } finally {
+            stateHolder.returnState(state);
+            unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Runs the reader over the event holder of the table, the same way finds are performed.
+     *
+     * @param reader reads the event holder without modifying it
+     * @param <T>    type of the read result
+     * @return result of the reader
+     */
+    protected <T> T readEventHolder(Function<EventHolder, T> reader) {
+        TableState state = stateHolder.getState();
+        try {
+            return read(state, () -> reader.apply(state.eventHolder));
         } finally {
             stateHolder.returnState(state);
-            readWriteLock.readLock().unlock();
+        }
+    }
+
+    private long lockForWrite() {
+        long stamp = lock.writeLock();
+        writeLockOwner = Thread.currentThread();
+        if (primaryKeyLock != null) {
+            primaryKeyLock.startWrite();
+        }
+        return stamp;
+    }
+
+    private void unlockWrite(long stamp) {
+        if (primaryKeyLock != null) {
+            primaryKeyLock.endWrite();
+        }
+        writeLockOwner = null;
+        lock.unlockWrite(stamp);
+    }
+
+    /**
+     * Reads the table optimistically without locking when the event holder is an {@link IndexEventHolder}, whose
+     * structures can be traversed while being modified. The result is only used if no write happened during the
+     * read, else the read is repeated holding the read lock. Reads by the thread holding the write lock, such as
+     * conditions of an update referring to the same table, run without locking.
+     */
+    private <T> T read(TableState state, Supplier<T> reader) {
+        if (writeLockOwner == Thread.currentThread()) {
+            return reader.get();
+        }
+        if (primaryKeyLock != null) {
+            return readByPrimaryKey(reader);
+        }
+        if (state.eventHolder instanceof IndexEventHolder) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp != 0) {
+                try {
+                    T result = reader.get();
+                    if (lock.validate(stamp)) {
+                        return result;
+                    }
+                } catch (RuntimeException e) {
+                    if (lock.validate(stamp)) {
+                        throw e;
+                    }
+                }
+            }
+        }
+        long stamp = lock.readLock();
+        try {
+            return reader.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Reads a table having a primary key optimistically. A read that only looked up the primary keys of a single
+     * stripe is only validated against the writes to that stripe, and is repeated holding the read lock of that
+     * stripe, hence it never waits for writes to the keys of other stripes. Other reads are validated against the
+     * table lock, and are repeated holding its read lock.
+     */
+    private <T> T readByPrimaryKey(Supplier<T> reader) {
+        long stamp = lock.tryOptimisticRead();
+        boolean tracked = primaryKeyLock.startRead();
+        int stripe = StripedPrimaryKeyLock.TABLE_WIDE;
+        T result = null;
+        RuntimeException failure = null;
+        try {
+            result = reader.get();
+        } catch (RuntimeException e) {
+            failure = e;
+        } finally {
+            if (tracked) {
+                stripe = primaryKeyLock.endRead();
+            }
+        }
+        boolean valid;
+        if (stripe != StripedPrimaryKeyLock.TABLE_WIDE) {
+            valid = primaryKeyLock.validate(stripe);
+        } else {
+            valid = stamp != 0 && lock.validate(stamp);
+        }
+        if (valid) {
+            if (failure != null) {
+                throw failure;
+            }
+            return result;
+        }
+        if (stripe != StripedPrimaryKeyLock.TABLE_WIDE) {
+            long stripeStamp = primaryKeyLock.readLock(stripe);
+            try {
+                primaryKeyLock.startRead();
+                int lockedStripe;
+                failure = null;
+                try {
+                    result = reader.get();
+                } catch (RuntimeException e) {
+                    failure = e;
+                } finally {
+                    lockedStripe = primaryKeyLock.endRead();
+                }
+                if (lockedStripe == stripe) {
+                    if (failure != null) {
+                        throw failure;
+                    }
+                    return result;
+                }
+            } finally {
+                primaryKeyLock.unlockRead(stripe, stripeStamp);
+            }
+        }
+        long readStamp = lock.readLock();
+        try {
+            return reader.get();
+        } finally {
+            lock.unlockRead(readStamp);
         }
     }
 
@@ -213,6 +404,54 @@ public class InMemoryTable extends Table {
 
     }
 
+    /**
+     * Iterator over the events found on an indexed table, which reads them a part at a time, holding the read lock
+     * only while a part is read.
+     */
+    private class FetchingStreamEventIterator implements Iterator<StreamEvent> {
+        private final Iterator<StreamEvent> streamEvents;
+        private final Deque<StreamEvent> fetchedEvents = new ArrayDeque<>();
+
+        private FetchingStreamEventIterator(Iterator<StreamEvent> streamEvents) {
+            this.streamEvents = streamEvents;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (fetchedEvents.isEmpty()) {
+                fetch();
+            }
+            return !fetchedEvents.isEmpty();
+        }
+
+        @Override
+        public StreamEvent next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return fetchedEvents.poll();
+        }
+
+        private void fetch() {
+            if (writeLockOwner == Thread.currentThread()) {
+                fetchEvents();
+                return;
+            }
+            long stamp = lock.readLock();
+            try {
+                fetchEvents();
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        private void fetchEvents() {
+            for (int i = 0; i < FIND_EVENTS_FETCH_SIZE && streamEvents.hasNext(); i++) {
+                fetchedEvents.add(streamEvents.next());
+            }
+        }
+    }
+
     class TableState extends State {
 
         private final EventHolder eventHolder;
@@ -25,6 +25,7 @@ import io.siddhi.core.event.state.StateEvent;
 import io.siddhi.core.event.stream.StreamEvent;
 import io.siddhi.core.event.stream.StreamEventCloner;
 import io.siddhi.core.event.stream.StreamEventFactory;
+import io.siddhi.core.event.stream.StreamEventIterator;
 import io.siddhi.core.exception.ConnectionUnavailableException;
 import io.siddhi.core.executor.VariableExpressionExecutor;
 import io.siddhi.core.query.processor.stream.window.FindableProcessor;
@@ -46,6 +47,7 @@ import io.siddhi.query.api.definition.TableDefinition;
 import io.siddhi.query.api.execution.query.output.stream.UpdateSet;
 import org.apache.log4j.Logger;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ScheduledExecutorService;
@@ -216,6 +218,60 @@ public abstract class Table implements FindableProcessor, MemoryCalculable {
     protected abstract StreamEvent find(CompiledCondition compiledCondition, StateEvent matchingEvent)
             throws ConnectionUnavailableException;
 
+    /**
+     * Finds the events matching the compiled condition as {@link #find(StateEvent, CompiledCondition)} does, but
+     * returns them as an iterator, which tables can implement by reading the events only as they are consumed. Such
+     * iterators are {@link java.io.Closeable}, and have to be read to the end or closed to release what they hold.
+     *
+     * @param matchingEvent     the event the table events are matched with
+     * @param compiledCondition the compiled condition of the find
+     * @return iterator over the matching events
+     */
+    public Iterator<StreamEvent> findEvents(StateEvent matchingEvent, CompiledCondition compiledCondition) {
+        if (isConnected.get()) {
+            try {
+                if (latencyTrackerFind != null &&
+                        Level.BASIC.compareTo(siddhiAppContext.getRootMetricsLevel()) <= 0) {
+                    latencyTrackerFind.markIn();
+                }
+                Iterator<StreamEvent> results = findEvents(compiledCondition, matchingEvent);
+                if (throughputTrackerFind != null &&
+                        Level.BASIC.compareTo(siddhiAppContext.getRootMetricsLevel()) <= 0) {
+                    throughputTrackerFind.eventIn();
+                }
+                return results;
+            } catch (ConnectionUnavailableException e) {
+                isConnected.set(false);
+                LOG.error(ExceptionUtil.getMessageWithContext(e, siddhiAppContext) +
+                        " Connection unavailable at Table '" + tableDefinition.getId() +
+                        "', will retry connection immediately.", e);
+                connectWithRetry();
+                return findEvents(matchingEvent, compiledCondition);
+            } finally {
+                if (latencyTrackerFind != null &&
+                        Level.BASIC.compareTo(siddhiAppContext.getRootMetricsLevel()) <= 0) {
+                    latencyTrackerFind.markOut();
+                }
+            }
+        } else if (isTryingToConnect.get()) {
+            LOG.warn("Error on '" + siddhiAppContext.getName() + "' while performing find for events '" +
+                    matchingEvent + "', operation busy waiting at Table '" + tableDefinition.getId() +
+                    "' as its trying to reconnect!");
+            waitWhileConnect();
+            LOG.info("SiddhiApp '" + siddhiAppContext.getName() + "' table '" + tableDefinition.getId() +
+                    "' has become available for find operation for events '" + matchingEvent + "'");
+            return findEvents(matchingEvent, compiledCondition);
+        } else {
+            connectWithRetry();
+            return findEvents(matchingEvent, compiledCondition);
+        }
+    }
+
+    protected Iterator<StreamEvent> findEvents(CompiledCondition compiledCondition, StateEvent matchingEvent)
+            throws ConnectionUnavailableException {
+        return new StreamEventIterator(find(compiledCondition, matchingEvent));
+    }
+
     public void deleteEvents(ComplexEventChunk<StateEvent> deletingEventChunk, CompiledCondition compiledCondition,
                              int noOfEvents) {
         if (isConnected.get()) {
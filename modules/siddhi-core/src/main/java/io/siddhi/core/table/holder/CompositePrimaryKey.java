@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.core.table.holder;
+
+import io.siddhi.core.util.SiddhiConstants;
+import io.siddhi.query.api.definition.Attribute;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Primary key of a table defined with multiple primary key attributes. Values are compared field by field in the
+ * order of the table definition, and the hash is computed once at construction.
+ */
+public final class CompositePrimaryKey implements Serializable {
+    private static final long serialVersionUID = -4393476466624128751L;
+    private final Object[] values;
+    private final int hash;
+
+    public CompositePrimaryKey(Object[] values) {
+        this.values = values;
+        this.hash = Arrays.hashCode(values);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CompositePrimaryKey)) {
+            return false;
+        }
+        CompositePrimaryKey that = (CompositePrimaryKey) o;
+        return hash == that.hash && Arrays.equals(values, that.values);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder stringBuilder = new StringBuilder();
+        for (Object value : values) {
+            stringBuilder.append(value).append(SiddhiConstants.KEY_DELIMITER);
+        }
+        return stringBuilder.toString();
+    }
+
+    /**
+     * Keys are compared field by field, hence numeric values used for lookups are converted to the type of the
+     * table attribute so that, for example, an int compared with a long primary key attribute still matches.
+     * Values that the attribute type cannot represent exactly, such as 1.5 for an int attribute, are returned
+     * unconverted so that they never match a stored key.
+     */
+    public static Object toAttributeType(Object value, Attribute.Type type) {
+        if (!(value instanceof Number)) {
+            return value;
+        }
+        Number number = (Number) value;
+        boolean integral = value instanceof Integer || value instanceof Long || value instanceof Short ||
+                value instanceof Byte;
+        switch (type) {
+            case INT:
+                if (value instanceof Integer) {
+                    return value;
+                } else if (integral) {
+                    long longValue = number.longValue();
+                    return longValue == (int) longValue ? (Object) (int) longValue : value;
+                } else {
+                    double doubleValue = number.doubleValue();
+                    return doubleValue == (int) doubleValue ? (Object) (int) doubleValue : value;
+                }
+            case LONG:
+                if (value instanceof Long) {
+                    return value;
+                } else if (integral) {
+                    return number.longValue();
+                } else {
+                    double doubleValue = number.doubleValue();
+                    long longValue = (long) doubleValue;
+                    // Long.MAX_VALUE is where doubles of 2^63 and beyond saturate, and is itself not a double
+                    return doubleValue == longValue && longValue != Long.MAX_VALUE ? (Object) longValue : value;
+                }
+            case FLOAT:
+                if (value instanceof Float) {
+                    return value;
+                } else if (integral) {
+                    long longValue = number.longValue();
+                    float floatValue = longValue;
+                    return (long) floatValue == longValue && longValue != Long.MAX_VALUE ?
+                            (Object) floatValue : value;
+                } else {
+                    double doubleValue = number.doubleValue();
+                    float floatValue = (float) doubleValue;
+                    return floatValue == doubleValue || Double.isNaN(doubleValue) ? (Object) floatValue : value;
+                }
+            case DOUBLE:
+                if (value instanceof Double) {
+                    return value;
+                } else if (integral) {
+                    long longValue = number.longValue();
+                    double doubleValue = longValue;
+                    return (long) doubleValue == longValue && longValue != Long.MAX_VALUE ?
+                            (Object) doubleValue : value;
+                } else {
+                    return number.doubleValue();
+                }
+            default:
+                return value;
+        }
+    }
+}
@@ -29,21 +29,29 @@ import io.siddhi.core.exception.OperationNotSupportedException;
 import io.siddhi.core.util.SiddhiConstants;
 import io.siddhi.core.util.snapshot.SnapshotRequest;
 import io.siddhi.core.util.snapshot.state.Snapshot;
+import io.siddhi.core.util.snapshot.state.SnapshotCopyable;
 import io.siddhi.core.util.snapshot.state.SnapshotStateList;
 import io.siddhi.query.api.definition.AbstractDefinition;
 import io.siddhi.query.api.expression.condition.Compare;
 import org.apache.log4j.Logger;
 
 import java.io.Serializable;
+import java.util.AbstractCollection;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 import static io.siddhi.core.event.stream.Operation.Operator.ADD;
 import static io.siddhi.core.event.stream.Operation.Operator.CLEAR;
@@ -56,16 +64,18 @@ import static io.siddhi.core.event.stream.Operation.Operator.REMOVE;
  * EventHolder implementation where events will be indexed and stored. This will offer faster access compared to
  * other EventHolder implementations. User can only add unique events based on a given primary key.
  */
-public class IndexEventHolder implements IndexedEventHolder, Serializable {
+public class IndexEventHolder implements IndexedEventHolder, SnapshotCopyable, Serializable {
 
     private static final Logger log = Logger.getLogger(IndexEventHolder.class);
     private static final long serialVersionUID = 1272291743721603253L;
     private static final float FULL_SNAPSHOT_THRESHOLD = 2.1f;
+    private static final int COMPACTION_THRESHOLD = 64;
     private final Map<Object, StreamEvent> primaryKeyData;
-    private final Map<String, TreeMap<Object, Set<StreamEvent>>> indexData;
+    private final Map<String, NavigableMap<Object, Set<StreamEvent>>> indexData;
     private final PrimaryKeyReferenceHolder[] primaryKeyReferenceHolders;
     private final String tableName;
     private final String siddhiAppName;
+    private final long operationChangeLogBudget;
     private String primaryKeyAttributes = null;
     private StreamEventFactory tableStreamEventFactory;
     private StreamEventConverter eventConverter;
@@ -73,9 +83,13 @@ public class IndexEventHolder implements IndexedEventHolder, Serializable {
     private Map<String, Integer> multiPrimaryKeyMetaData = new LinkedHashMap<>();
     private Map<String, Integer> allIndexMetaData = new HashMap<>();
     private ArrayList<Operation> operationChangeLog = new ArrayList<>();
+    private transient Map<Object, Integer> operationIndexes;
+    private int operationChangeLogSize;
+    private long operationChangeLogBytes;
     private long eventsCount;
     private boolean forceFullSnapshot = true;
     private boolean isOperationLogEnabled = true;
+    private transient StripedPrimaryKeyLock primaryKeyLock;
 
     public IndexEventHolder(StreamEventFactory tableStreamEventFactory, StreamEventConverter eventConverter,
                             PrimaryKeyReferenceHolder[] primaryKeyReferenceHolders,
@@ -87,12 +101,13 @@ public class IndexEventHolder implements IndexedEventHolder, Serializable {
         this.indexMetaData = indexMetaData;
         this.tableName = tableDefinition.getId();
         this.siddhiAppName = siddhiAppContext.getName();
+        this.operationChangeLogBudget = siddhiAppContext.getOperationChangeLogBudget();
 
         if (primaryKeyReferenceHolders != null) {
             if (isPrimaryNumeric) {
-                primaryKeyData = new TreeMap<Object, StreamEvent>();
+                primaryKeyData = new ConcurrentSkipListMap<Object, StreamEvent>();
             } else {
-                primaryKeyData = new HashMap<Object, StreamEvent>();
+                primaryKeyData = new ConcurrentHashMap<Object, StreamEvent>();
             }
             if (primaryKeyReferenceHolders.length == 1) {
                 allIndexMetaData.put(primaryKeyReferenceHolders[0].getPrimaryKeyAttribute(),
@@ -111,10 +126,11 @@ public class IndexEventHolder implements IndexedEventHolder, Serializable {
         } else {
             primaryKeyData = null;
         }
+        this.operationIndexes = createOperationIndexes();
         if (indexMetaData.size() > 0) {
-            indexData = new HashMap<String, TreeMap<Object, Set<StreamEvent>>>();
+            indexData = new HashMap<String, NavigableMap<Object, Set<StreamEvent>>>();
             for (String indexAttributeName : indexMetaData.keySet()) {
-                indexData.put(indexAttributeName, new TreeMap<Object, Set<StreamEvent>>());
+                indexData.put(indexAttributeName, new ConcurrentSkipListMap<Object, Set<StreamEvent>>());
             }
             allIndexMetaData.putAll(indexMetaData);
         } else {
@@ -123,9 +139,121 @@ public class IndexEventHolder implements IndexedEventHolder, Serializable {
 
     }
 
+    /**
+     * Copies the events of the given holder and their primary key and index entries, such that the copy can be
+     * serialized while the given holder keeps changing.
+     */
+    private IndexEventHolder(IndexEventHolder indexEventHolder) {
+        this.tableStreamEventFactory = indexEventHolder.tableStreamEventFactory;
+        this.eventConverter = indexEventHolder.eventConverter;
+        this.primaryKeyReferenceHolders = indexEventHolder.primaryKeyReferenceHolders;
+        this.indexMetaData = indexEventHolder.indexMetaData;
+        this.tableName = indexEventHolder.tableName;
+        this.siddhiAppName = indexEventHolder.siddhiAppName;
+        this.operationChangeLogBudget = indexEventHolder.operationChangeLogBudget;
+        this.primaryKeyAttributes = indexEventHolder.primaryKeyAttributes;
+        this.multiPrimaryKeyMetaData = new LinkedHashMap<>(indexEventHolder.multiPrimaryKeyMetaData);
+        this.allIndexMetaData = new HashMap<>(indexEventHolder.allIndexMetaData);
+        this.eventsCount = indexEventHolder.eventsCount;
+        this.forceFullSnapshot = indexEventHolder.forceFullSnapshot;
+
+        Map<StreamEvent, StreamEvent> eventCopies = new IdentityHashMap<>();
+        if (indexEventHolder.primaryKeyData != null) {
+            if (indexEventHolder.primaryKeyData instanceof ConcurrentSkipListMap) {
+                primaryKeyData = new ConcurrentSkipListMap<Object, StreamEvent>();
+            } else {
+                primaryKeyData = new ConcurrentHashMap<Object, StreamEvent>();
+            }
+            for (Map.Entry<Object, StreamEvent> entry : indexEventHolder.primaryKeyData.entrySet()) {
+                primaryKeyData.put(entry.getKey(), copyEvent(entry.getValue(), eventCopies));
+            }
+        } else {
+            primaryKeyData = null;
+        }
+        if (indexEventHolder.indexData != null) {
+            indexData = new HashMap<String, NavigableMap<Object, Set<StreamEvent>>>();
+            for (Map.Entry<String, NavigableMap<Object, Set<StreamEvent>>> indexEntry :
+                    indexEventHolder.indexData.entrySet()) {
+                NavigableMap<Object, Set<StreamEvent>> indexMap = new ConcurrentSkipListMap<>();
+                for (Map.Entry<Object, Set<StreamEvent>> entry : indexEntry.getValue().entrySet()) {
+                    Set<StreamEvent> values = ConcurrentHashMap.newKeySet();
+                    for (StreamEvent streamEvent : entry.getValue()) {
+                        values.add(copyEvent(streamEvent, eventCopies));
+                    }
+                    indexMap.put(entry.getKey(), values);
+                }
+                indexData.put(indexEntry.getKey(), indexMap);
+            }
+        } else {
+            indexData = null;
+        }
+        this.operationIndexes = createOperationIndexes();
+    }
+
+    /**
+     * Operations are coalesced by the primary key of their events, or by the events themselves when the table has
+     * no primary key, as events without one are only removed as the instances stored in the table.
+     */
+    private Map<Object, Integer> createOperationIndexes() {
+        if (primaryKeyData != null) {
+            return new HashMap<>();
+        } else {
+            return new IdentityHashMap<>();
+        }
+    }
+
+    private StreamEvent copyEvent(StreamEvent streamEvent, Map<StreamEvent, StreamEvent> eventCopies) {
+        StreamEvent eventCopy = eventCopies.get(streamEvent);
+        if (eventCopy == null) {
+            eventCopy = tableStreamEventFactory.newInstance();
+            System.arraycopy(streamEvent.getOutputData(), 0, eventCopy.getOutputData(), 0,
+                    streamEvent.getOutputData().length);
+            eventCopy.setTimestamp(streamEvent.getTimestamp());
+            eventCopies.put(streamEvent, eventCopy);
+        }
+        return eventCopy;
+    }
+
+    @Override
+    public IndexEventHolder copyForSnapshot() {
+        return new IndexEventHolder(this);
+    }
+
+    /**
+     * Sets the lock to be notified of the primary keys accessed, used by tables having a primary key.
+     *
+     * @param primaryKeyLock lock striped by primary key
+     */
+    public void setPrimaryKeyLock(StripedPrimaryKeyLock primaryKeyLock) {
+        this.primaryKeyLock = primaryKeyLock;
+    }
+
+    private void accessPrimaryKey(Object primaryKey) {
+        if (primaryKeyLock != null) {
+            primaryKeyLock.access(primaryKey);
+        }
+    }
+
+    private void accessAllPrimaryKeys() {
+        if (primaryKeyLock != null) {
+            primaryKeyLock.accessAll();
+        }
+    }
+
+    private boolean isPrimaryKeyLookup(String attribute, Compare.Operator operator) {
+        return primaryKeyData != null && attribute.equals(primaryKeyAttributes) && operator == Compare.Operator.EQUAL;
+    }
+
     @Override
     public Set<Object> getAllPrimaryKeyValues() {
+        accessAllPrimaryKeys();
         if (primaryKeyData != null) {
+            if (!(primaryKeyData instanceof NavigableMap) && primaryKeyData.containsKey(NullPrimaryKey.INSTANCE)) {
+                Set<Object> primaryKeys = new HashSet<>(primaryKeyData.keySet());
+                primaryKeys.remove(NullPrimaryKey.INSTANCE);
+                primaryKeys.add(null);
+                return primaryKeys;
+            }
             return primaryKeyData.keySet();
         } else {
             return null;
@@ -160,24 +288,25 @@ public class IndexEventHolder implements IndexedEventHolder, Serializable {
             StreamEvent streamEvent = tableStreamEventFactory.newInstance();
             eventConverter.convertComplexEvent(complexEvent, streamEvent);
             eventsCount++;
-            if (isOperationLogEnabled) {
-                if (!isFullSnapshot()) {
-                    StreamEvent streamEvent2 = tableStreamEventFactory.newInstance();
-                    eventConverter.convertComplexEvent(complexEvent, streamEvent2);
-                    operationChangeLog.add(new Operation(ADD, streamEvent2));
-                } else {
-                    operationChangeLog.clear();
-                    forceFullSnapshot = true;
-                }
+            if (add(streamEvent)) {
+                logOperation(ADD, streamEvent);
             }
-            add(streamEvent);
         }
     }
 
-    private void add(StreamEvent streamEvent) {
+    /**
+     * @return whether the event is stored, which is not the case when its primary key is null or already taken
+     */
+    private boolean add(StreamEvent streamEvent) {
         StreamEvent existingValue = null;
         if (primaryKeyData != null) {
             Object primaryKey = constructPrimaryKey(streamEvent, primaryKeyReferenceHolders);
+            if (primaryKey == null) {
+                log.error("Siddhi App '" + siddhiAppName + "' table '" + tableName + "' dropping event : " +
+                        streamEvent + ", as its primary key is null");
+                return false;
+            }
+            accessPrimaryKey(primaryKey);
             existingValue = primaryKeyData.putIfAbsent(primaryKey, streamEvent);
             if (existingValue != null) {
                 log.error("Siddhi App '" + siddhiAppName + "' table '" + tableName + "' dropping event : " +
@@ -187,11 +316,11 @@ public class IndexEventHolder implements IndexedEventHolder, Serializable {
 
         if (indexData != null) {
             for (Map.Entry<String, Integer> indexEntry : indexMetaData.entrySet()) {
-                TreeMap<Object, Set<StreamEvent>> indexMap = indexData.get(indexEntry.getKey());
+                NavigableMap<Object, Set<StreamEvent>> indexMap = indexData.get(indexEntry.getKey());
                 Object key = streamEvent.getOutputData()[indexEntry.getValue()];
                 Set<StreamEvent> values = indexMap.get(key);
                 if (values == null) {
-                    values = new HashSet<StreamEvent>();
+                    values = ConcurrentHashMap.newKeySet();
                     values.add(streamEvent);
                     indexMap.put(streamEvent.getOutputData()[indexEntry.getValue()], values);
                 } else {
@@ -199,44 +328,67 @@ public class IndexEventHolder implements IndexedEventHolder, Serializable {
                 }
             }
         }
-
+        return existingValue == null;
     }
 
     private Object constructPrimaryKey(StreamEvent streamEvent,
                                        PrimaryKeyReferenceHolder[] primaryKeyReferenceHolders) {
         if (primaryKeyReferenceHolders.length == 1) {
-            return streamEvent.getOutputData()[primaryKeyReferenceHolders[0].getPrimaryKeyPosition()];
+            return toPrimaryKey(streamEvent.getOutputData()[primaryKeyReferenceHolders[0].getPrimaryKeyPosition()]);
         } else {
-            StringBuilder stringBuilder = new StringBuilder();
-            for (PrimaryKeyReferenceHolder primaryKeyReferenceHolder : primaryKeyReferenceHolders) {
-                stringBuilder.append(streamEvent.getOutputData()[primaryKeyReferenceHolder.getPrimaryKeyPosition()])
-                        .append(SiddhiConstants.KEY_DELIMITER);
+            Object[] values = new Object[primaryKeyReferenceHolders.length];
+            for (int i = 0; i < primaryKeyReferenceHolders.length; i++) {
+                values[i] = streamEvent.getOutputData()[primaryKeyReferenceHolders[i].getPrimaryKeyPosition()];
             }
-            return stringBuilder.toString();
+            return new CompositePrimaryKey(values);
+        }
+    }
+
+    /**
+     * Returns the event stored with the given primary key, which is the attribute value for single attribute
+     * primary keys and a {@link CompositePrimaryKey} otherwise. Null numeric primary keys never match a stored
+     * event, as they cannot be ordered.
+     *
+     * @param primaryKey primary key of the event
+     * @return the stored event, or null if there is none
+     */
+    public StreamEvent getPrimaryKeyEvent(Object primaryKey) {
+        primaryKey = toPrimaryKey(primaryKey);
+        if (primaryKey == null) {
+            return null;
         }
+        accessPrimaryKey(primaryKey);
+        return primaryKeyData.get(primaryKey);
+    }
+
+    /**
+     * Concurrent hash maps do not hold null keys, hence a null single attribute primary key is stored under a
+     * placeholder. Ordered maps of numeric primary keys keep rejecting it, as it cannot be ordered.
+     */
+    private Object toPrimaryKey(Object primaryKey) {
+        if (primaryKey == null && !(primaryKeyData instanceof NavigableMap)) {
+            return NullPrimaryKey.INSTANCE;
+        }
+        return primaryKey;
     }
 
     @Override
     public void overwrite(StreamEvent streamEvent) {
-        if (isOperationLogEnabled) {
-            if (!isFullSnapshot()) {
-                StreamEvent streamEvent2 = tableStreamEventFactory.newInstance();
-                eventConverter.convertComplexEvent(streamEvent, streamEvent2);
-                operationChangeLog.add(new Operation(OVERWRITE, streamEvent2));
-            } else {
-                operationChangeLog.clear();
-                forceFullSnapshot = true;
-            }
-        }
         StreamEvent deletedEvent = null;
         if (primaryKeyData != null) {
             Object primaryKey = constructPrimaryKey(streamEvent, primaryKeyReferenceHolders);
+            if (primaryKey == null) {
+                log.error("Siddhi App '" + siddhiAppName + "' table '" + tableName + "' dropping event : " +
+                        streamEvent + ", as its primary key is null");
+                return;
+            }
+            accessPrimaryKey(primaryKey);
             deletedEvent = primaryKeyData.put(primaryKey, streamEvent);
         }
 
         if (indexData != null) {
             for (Map.Entry<String, Integer> indexEntry : indexMetaData.entrySet()) {
-                TreeMap<Object, Set<StreamEvent>> indexMap = indexData.get(indexEntry.getKey());
+                NavigableMap<Object, Set<StreamEvent>> indexMap = indexData.get(indexEntry.getKey());
                 Object key = streamEvent.getOutputData()[indexEntry.getValue()];
                 if (deletedEvent != null) {
                     Set<StreamEvent> values = indexMap.get(key);
@@ -247,7 +399,7 @@ public class IndexEventHolder implements IndexedEventHolder, Serializable {
                 }
                 Set<StreamEvent> values = indexMap.get(key);
                 if (values == null) {
-                    values = new HashSet<StreamEvent>();
+                    values = ConcurrentHashMap.newKeySet();
                     values.add(streamEvent);
                     indexMap.put(streamEvent.getOutputData()[indexEntry.getValue()], values);
                 } else {
@@ -255,17 +407,19 @@ public class IndexEventHolder implements IndexedEventHolder, Serializable {
                 }
             }
         }
+        logOperation(OVERWRITE, streamEvent);
     }
 
     @Override
     public Collection<StreamEvent> getAllEvents() {
+        accessAllPrimaryKeys();
         if (primaryKeyData != null) {
             return primaryKeyData.values();
         } else if (indexData != null) {
             HashSet<StreamEvent> resultEventSet = new HashSet<StreamEvent>();
-            Iterator<TreeMap<Object, Set<StreamEvent>>> iterator = indexData.values().iterator();
+            Iterator<NavigableMap<Object, Set<StreamEvent>>> iterator = indexData.values().iterator();
             if (iterator.hasNext()) {
-                TreeMap<Object, Set<StreamEvent>> aIndexData = iterator.next();
+                NavigableMap<Object, Set<StreamEvent>> aIndexData = iterator.next();
                 for (Set<StreamEvent> streamEvents : aIndexData.values()) {
                     resultEventSet.addAll(streamEvents);
                 }
@@ -276,8 +430,16 @@ public class IndexEventHolder implements IndexedEventHolder, Serializable {
         }
     }
 
+    /**
+     * Finds the events matching the condition. Results of range and equality conditions are views over the
+     * index, which are iterated lazily and probed by {@link Collection#contains(Object)} without materialising the
+     * matching events, hence they are only valid until the next modification of the event holder.
+     */
     @Override
     public Collection<StreamEvent> findEvents(String attribute, Compare.Operator operator, Object value) {
+        if (!isPrimaryKeyLookup(attribute, operator)) {
+            accessAllPrimaryKeys();
+        }
 
         if (primaryKeyData != null && attribute.equals(primaryKeyAttributes)) {
             StreamEvent resultEvent;
@@ -285,75 +447,61 @@ public class IndexEventHolder implements IndexedEventHolder, Serializable {
 
             switch (operator) {
                 case LESS_THAN:
-                    return ((TreeMap<Object, StreamEvent>) primaryKeyData).headMap(value, false).values();
+                    return new PrimaryKeyRangeEvents(
+                            ((NavigableMap<Object, StreamEvent>) primaryKeyData).headMap(value, false));
                 case GREATER_THAN:
-                    return ((TreeMap<Object, StreamEvent>) primaryKeyData).tailMap(value, false).values();
+                    return new PrimaryKeyRangeEvents(
+                            ((NavigableMap<Object, StreamEvent>) primaryKeyData).tailMap(value, false));
                 case LESS_THAN_EQUAL:
-                    return ((TreeMap<Object, StreamEvent>) primaryKeyData).headMap(value, true).values();
+                    return new PrimaryKeyRangeEvents(
+                            ((NavigableMap<Object, StreamEvent>) primaryKeyData).headMap(value, true));
                 case GREATER_THAN_EQUAL:
-                    return ((TreeMap<Object, StreamEvent>) primaryKeyData).tailMap(value, true).values();
+                    return new PrimaryKeyRangeEvents(
+                            ((NavigableMap<Object, StreamEvent>) primaryKeyData).tailMap(value, true));
                 case EQUAL:
-                    resultEventSet = new HashSet<StreamEvent>();
-                    resultEvent = primaryKeyData.get(value);
+                    resultEvent = getPrimaryKeyEvent(value);
                     if (resultEvent != null) {
-                        resultEventSet.add(resultEvent);
+                        return Collections.singleton(resultEvent);
                     }
-                    return resultEventSet;
+                    return Collections.emptySet();
                 case NOT_EQUAL:
                     if (primaryKeyData.size() > 0) {
                         resultEventSet = new HashSet<StreamEvent>(primaryKeyData.values());
                     } else {
                         return new HashSet<StreamEvent>();
                     }
-                    resultEvent = primaryKeyData.get(value);
+                    resultEvent = getPrimaryKeyEvent(value);
                     if (resultEvent != null) {
                         resultEventSet.remove(resultEvent);
                     }
                     return resultEventSet;
             }
         } else {
-            HashSet<StreamEvent> resultEventSet = new HashSet<StreamEvent>();
-            TreeMap<Object, Set<StreamEvent>> currentIndexedData = indexData.get(attribute);
+            NavigableMap<Object, Set<StreamEvent>> currentIndexedData = indexData.get(attribute);
+            int attributePosition = indexMetaData.get(attribute);
 
             Set<StreamEvent> resultEvents;
             switch (operator) {
                 case LESS_THAN:
-                    for (Set<StreamEvent> eventSet : currentIndexedData.headMap(value, false).values()) {
-                        resultEventSet.addAll(eventSet);
-                    }
-                    return resultEventSet;
+                    return new IndexRangeEvents(currentIndexedData.headMap(value, false), attributePosition);
                 case GREATER_THAN:
-                    for (Set<StreamEvent> eventSet : currentIndexedData.tailMap(value, false).values()) {
-                        resultEventSet.addAll(eventSet);
-                    }
-                    return resultEventSet;
+                    return new IndexRangeEvents(currentIndexedData.tailMap(value, false), attributePosition);
                 case LESS_THAN_EQUAL:
-                    for (Set<StreamEvent> eventSet : currentIndexedData.headMap(value, true).values()) {
-                        resultEventSet.addAll(eventSet);
-                    }
-                    return resultEventSet;
+                    return new IndexRangeEvents(currentIndexedData.headMap(value, true), attributePosition);
                 case GREATER_THAN_EQUAL:
-                    for (Set<StreamEvent> eventSet : currentIndexedData.tailMap(value, true).values()) {
-                        resultEventSet.addAll(eventSet);
-                    }
-                    return resultEventSet;
+                    return new IndexRangeEvents(currentIndexedData.tailMap(value, true), attributePosition);
                 case EQUAL:
-                    resultEvents = currentIndexedData.get(value);
+                    resultEvents = value != null ? currentIndexedData.get(value) : null;
                     if (resultEvents != null) {
-                        resultEventSet.addAll(resultEvents);
+                        return Collections.unmodifiableSet(resultEvents);
                     }
-                    return resultEventSet;
+                    return Collections.emptySet();
                 case NOT_EQUAL:
-                    if (currentIndexedData.size() > 0) {
-                        resultEventSet = new HashSet<StreamEvent>();
-                        for (Set<StreamEvent> eventSet : currentIndexedData.values()) {
-                            resultEventSet.addAll(eventSet);
-                        }
-                    } else {
-                        resultEventSet = new HashSet<StreamEvent>();
+                    HashSet<StreamEvent> resultEventSet = new HashSet<StreamEvent>();
+                    for (Set<StreamEvent> eventSet : currentIndexedData.values()) {
+                        resultEventSet.addAll(eventSet);
                     }
-
-                    resultEvents = currentIndexedData.get(value);
+                    resultEvents = value != null ? currentIndexedData.get(value) : null;
                     if (resultEvents != null) {
                         resultEventSet.removeAll(resultEvents);
                     }
@@ -366,19 +514,17 @@ public class IndexEventHolder implements IndexedEventHolder, Serializable {
 
     @Override
     public void deleteAll() {
-        if (isOperationLogEnabled) {
-            if (!isFullSnapshot()) {
-                operationChangeLog.add(new Operation(CLEAR));
-            } else {
-                operationChangeLog.clear();
-                forceFullSnapshot = true;
-            }
+        accessAllPrimaryKeys();
+        if (isOperationLogged()) {
+            // operations logged before the clear are of no use when restoring
+            clearOperationChangeLog();
+            appendOperation(new Operation(CLEAR));
         }
         if (primaryKeyData != null) {
             primaryKeyData.clear();
         }
         if (indexData != null) {
-            for (TreeMap<Object, Set<StreamEvent>> aIndexedData : indexData.values()) {
+            for (NavigableMap<Object, Set<StreamEvent>> aIndexedData : indexData.values()) {
                 aIndexedData.clear();
             }
         }
@@ -387,26 +533,20 @@ public class IndexEventHolder implements IndexedEventHolder, Serializable {
     @Override
     public void deleteAll(Collection<StreamEvent> storeEventSet) {
         for (StreamEvent streamEvent : storeEventSet) {
-            if (isOperationLogEnabled) {
-                if (!isFullSnapshot()) {
-                    StreamEvent streamEvent2 = tableStreamEventFactory.newInstance();
-                    eventConverter.convertComplexEvent(streamEvent, streamEvent2);
-                    operationChangeLog.add(new Operation(REMOVE, streamEvent));
-                } else {
-                    operationChangeLog.clear();
-                    forceFullSnapshot = true;
-                }
-            }
+            logOperation(REMOVE, streamEvent);
             deleteAll(streamEvent);
-
         }
     }
 
     private void deleteAll(StreamEvent streamEvent) {
         if (primaryKeyData != null) {
             Object primaryKey = constructPrimaryKey(streamEvent, primaryKeyReferenceHolders);
+            if (primaryKey == null) {
+                return;
+            }
+            accessPrimaryKey(primaryKey);
             StreamEvent deletedEvent = primaryKeyData.remove(primaryKey);
-            if (indexData != null) {
+            if (indexData != null && deletedEvent != null) {
                 deleteFromIndexes(deletedEvent);
             }
         } else if (indexData != null) {
@@ -417,12 +557,16 @@ public class IndexEventHolder implements IndexedEventHolder, Serializable {
     @Override
     public void delete(String attribute, Compare.Operator operator, Object value) {
 
-        if (isOperationLogEnabled) {
-            if (!isFullSnapshot()) {
-                operationChangeLog.add(new Operation(DELETE_BY_OPERATOR, new Object[]{attribute, operator, value}));
-            } else {
-                operationChangeLog.clear();
-                forceFullSnapshot = true;
+        if (isPrimaryKeyLookup(attribute, operator)) {
+            // deleting a primary key is logged as a removal, such that it is coalesced with the other operations
+            StreamEvent deletedEvent = getPrimaryKeyEvent(value);
+            if (deletedEvent != null) {
+                logOperation(REMOVE, deletedEvent);
+            }
+        } else {
+            accessAllPrimaryKeys();
+            if (isOperationLogged()) {
+                appendOperation(new Operation(DELETE_BY_OPERATOR, new Object[]{attribute, operator, value}));
             }
         }
 
@@ -430,7 +574,7 @@ public class IndexEventHolder implements IndexedEventHolder, Serializable {
             switch (operator) {
 
                 case LESS_THAN:
-                    for (Iterator<StreamEvent> iterator = ((TreeMap<Object, StreamEvent>) primaryKeyData).
+                    for (Iterator<StreamEvent> iterator = ((NavigableMap<Object, StreamEvent>) primaryKeyData).
                             headMap(value, false).values().iterator();
                          iterator.hasNext(); ) {
                         StreamEvent toDeleteEvent = iterator.next();
@@ -439,7 +583,7 @@ public class IndexEventHolder implements IndexedEventHolder, Serializable {
                     }
                     return;
                 case GREATER_THAN:
-                    for (Iterator<StreamEvent> iterator = ((TreeMap<Object, StreamEvent>) primaryKeyData).
+                    for (Iterator<StreamEvent> iterator = ((NavigableMap<Object, StreamEvent>) primaryKeyData).
                             tailMap(value, false).values().iterator();
                          iterator.hasNext(); ) {
                         StreamEvent toDeleteEvent = iterator.next();
@@ -448,7 +592,7 @@ public class IndexEventHolder implements IndexedEventHolder, Serializable {
                     }
                     return;
                 case LESS_THAN_EQUAL:
-                    for (Iterator<StreamEvent> iterator = ((TreeMap<Object, StreamEvent>) primaryKeyData).
+                    for (Iterator<StreamEvent> iterator = ((NavigableMap<Object, StreamEvent>) primaryKeyData).
                             headMap(value, true).values().iterator();
                          iterator.hasNext(); ) {
                         StreamEvent toDeleteEvent = iterator.next();
@@ -457,7 +601,7 @@ public class IndexEventHolder implements IndexedEventHolder, Serializable {
                     }
                     return;
                 case GREATER_THAN_EQUAL:
-                    for (Iterator<StreamEvent> iterator = ((TreeMap<Object, StreamEvent>) primaryKeyData).
+                    for (Iterator<StreamEvent> iterator = ((NavigableMap<Object, StreamEvent>) primaryKeyData).
                             tailMap(value, true).values().iterator();
                          iterator.hasNext(); ) {
                         StreamEvent toDeleteEvent = iterator.next();
@@ -466,13 +610,14 @@ public class IndexEventHolder implements IndexedEventHolder, Serializable {
                     }
                     return;
                 case EQUAL:
-                    StreamEvent deletedEvent = primaryKeyData.remove(value);
+                    Object primaryKey = toPrimaryKey(value);
+                    StreamEvent deletedEvent = primaryKey != null ? primaryKeyData.remove(primaryKey) : null;
                     if (deletedEvent != null) {
                         deleteFromIndexes(deletedEvent);
                     }
                     return;
                 case NOT_EQUAL:
-                    StreamEvent streamEvent = primaryKeyData.get(value);
+                    StreamEvent streamEvent = getPrimaryKeyEvent(value);
                     deleteAll();
                     if (streamEvent != null) {
                         add(streamEvent);
@@ -539,23 +684,26 @@ public class IndexEventHolder implements IndexedEventHolder, Serializable {
 
     @Override
     public boolean containsEventSet(String attribute, Compare.Operator operator, Object value) {
+        if (!isPrimaryKeyLookup(attribute, operator)) {
+            accessAllPrimaryKeys();
+        }
         if (primaryKeyData != null && attribute.equals(primaryKeyAttributes)) {
             switch (operator) {
                 case LESS_THAN:
-                    return ((TreeMap<Object, StreamEvent>) primaryKeyData).lowerKey(value) != null;
+                    return ((NavigableMap<Object, StreamEvent>) primaryKeyData).lowerKey(value) != null;
                 case GREATER_THAN:
-                    return ((TreeMap<Object, StreamEvent>) primaryKeyData).higherKey(value) != null;
+                    return ((NavigableMap<Object, StreamEvent>) primaryKeyData).higherKey(value) != null;
                 case LESS_THAN_EQUAL:
-                    return ((TreeMap<Object, StreamEvent>) primaryKeyData).ceilingKey(value) != null;
+                    return ((NavigableMap<Object, StreamEvent>) primaryKeyData).ceilingKey(value) != null;
                 case GREATER_THAN_EQUAL:
-                    return ((TreeMap<Object, StreamEvent>) primaryKeyData).floorKey(value) != null;
+                    return ((NavigableMap<Object, StreamEvent>) primaryKeyData).floorKey(value) != null;
                 case EQUAL:
-                    return primaryKeyData.get(value) != null;
+                    return getPrimaryKeyEvent(value) != null;
                 case NOT_EQUAL:
                     return primaryKeyData.size() > 1;
             }
         } else {
-            TreeMap<Object, Set<StreamEvent>> currentIndexedData = indexData.get(attribute);
+            NavigableMap<Object, Set<StreamEvent>> currentIndexedData = indexData.get(attribute);
 
             switch (operator) {
 
@@ -581,11 +729,13 @@ public class IndexEventHolder implements IndexedEventHolder, Serializable {
         for (StreamEvent deletedEvent : deletedEventSet) {
             if (primaryKeyData != null) {
                 Object primaryKey = constructPrimaryKey(deletedEvent, primaryKeyReferenceHolders);
-                primaryKeyData.remove(primaryKey);
+                if (primaryKey != null) {
+                    primaryKeyData.remove(primaryKey);
+                }
             }
             for (Map.Entry<String, Integer> indexEntry : indexMetaData.entrySet()) {
                 if (!currentAttribute.equals(indexEntry.getKey())) {
-                    TreeMap<Object, Set<StreamEvent>> indexMap = indexData.get(indexEntry.getKey());
+                    NavigableMap<Object, Set<StreamEvent>> indexMap = indexData.get(indexEntry.getKey());
                     Object key = deletedEvent.getOutputData()[indexEntry.getValue()];
                     Set<StreamEvent> values = indexMap.get(key);
                     if (values != null) {
@@ -602,7 +752,7 @@ public class IndexEventHolder implements IndexedEventHolder, Serializable {
     private void deleteFromIndexes(StreamEvent toDeleteEvent) {
         if (indexMetaData != null) {
             for (Map.Entry<String, Integer> indexEntry : indexMetaData.entrySet()) {
-                TreeMap<Object, Set<StreamEvent>> indexMap = indexData.get(indexEntry.getKey());
+                NavigableMap<Object, Set<StreamEvent>> indexMap = indexData.get(indexEntry.getKey());
                 Object key = toDeleteEvent.getOutputData()[indexEntry.getValue()];
                 Set<StreamEvent> values = indexMap.get(key);
                 if (values != null) {
@@ -615,8 +765,117 @@ public class IndexEventHolder implements IndexedEventHolder, Serializable {
         }
     }
 
+    /**
+     * Logs an operation on an event, coalescing it with the last operation logged for the same primary key. The
+     * last write of a key wins, and an event removed after being added within the same log is dropped from the log
+     * altogether. Events are logged as the instances stored in the table, hence the log does not copy them.
+     */
+    private void logOperation(Operation.Operator operator, StreamEvent streamEvent) {
+        if (!isOperationLogged()) {
+            return;
+        }
+        Object key = getOperationKey(streamEvent);
+        if (key == null) {
+            return;
+        }
+        Integer previousIndex = operationIndexes.remove(key);
+        if (previousIndex != null) {
+            Operation previousOperation = operationChangeLog.set(previousIndex, null);
+            operationChangeLogSize--;
+            operationChangeLogBytes -= previousOperation.estimateSize();
+            if (operationChangeLog.size() > COMPACTION_THRESHOLD &&
+                    operationChangeLog.size() > operationChangeLogSize * 2) {
+                compactOperationChangeLog();
+            }
+            switch (operator) {
+                case ADD:
+                    // the key might exist when restoring, as the operations removing it might be coalesced
+                    operator = OVERWRITE;
+                    break;
+                case OVERWRITE:
+                    if (previousOperation.operation == ADD) {
+                        operator = ADD;
+                    }
+                    break;
+                case REMOVE:
+                    if (previousOperation.operation == ADD) {
+                        return;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        operationIndexes.put(key, operationChangeLog.size());
+        appendOperation(new Operation(operator, streamEvent));
+    }
+
+    private Object getOperationKey(StreamEvent streamEvent) {
+        if (primaryKeyData != null) {
+            return constructPrimaryKey(streamEvent, primaryKeyReferenceHolders);
+        } else {
+            return streamEvent;
+        }
+    }
+
+    /**
+     * Drops the operations coalesced into later ones from the log, such that churn on the same keys does not grow
+     * the log.
+     */
+    private void compactOperationChangeLog() {
+        ArrayList<Operation> operations = new ArrayList<>(operationChangeLogSize * 2);
+        operationIndexes.clear();
+        for (Operation operation : operationChangeLog) {
+            if (operation != null) {
+                if (operation.parameters instanceof StreamEvent) {
+                    operationIndexes.put(getOperationKey((StreamEvent) operation.parameters), operations.size());
+                }
+                operations.add(operation);
+            }
+        }
+        operationChangeLog = operations;
+    }
+
+    private boolean isOperationLogged() {
+        if (!isOperationLogEnabled) {
+            return false;
+        }
+        if (isFullSnapshot()) {
+            clearOperationChangeLog();
+            forceFullSnapshot = true;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Appends an operation to the log, dropping the log once its estimated size exceeds the change log budget, as
+     * restoring from a base snapshot is then cheaper. The next snapshot hence writes a base, which lets incremental
+     * persistence stores compact the revisions preceding it.
+     */
+    private void appendOperation(Operation operation) {
+        operationChangeLog.add(operation);
+        operationChangeLogSize++;
+        operationChangeLogBytes += operation.estimateSize();
+        if (operationChangeLogBytes > operationChangeLogBudget) {
+            if (log.isDebugEnabled()) {
+                log.debug("Siddhi App '" + siddhiAppName + "' table '" + tableName + "' exceeded the change log " +
+                        "budget of " + operationChangeLogBudget + " bytes, hence its next snapshot is a base snapshot");
+            }
+            clearOperationChangeLog();
+            forceFullSnapshot = true;
+        }
+    }
+
+    private void clearOperationChangeLog() {
+        operationChangeLog.clear();
+        operationIndexes.clear();
+        operationChangeLogSize = 0;
+        operationChangeLogBytes = 0;
+    }
+
     private boolean isFullSnapshot() {
-        return operationChangeLog.size() > (eventsCount * FULL_SNAPSHOT_THRESHOLD)
+        return operationChangeLogSize > (eventsCount * FULL_SNAPSHOT_THRESHOLD)
                 || forceFullSnapshot
                 || SnapshotRequest.isRequestForFullSnapshot();
     }
@@ -626,9 +885,14 @@ public class IndexEventHolder implements IndexedEventHolder, Serializable {
             forceFullSnapshot = false;
             return new Snapshot(this, false);
         } else {
-            Snapshot snapshot = new Snapshot(operationChangeLog, true);
-            operationChangeLog = new ArrayList<>();
-            return snapshot;
+            ArrayList<Operation> operations = new ArrayList<>(operationChangeLogSize);
+            for (Operation operation : operationChangeLog) {
+                if (operation != null) {
+                    operations.add(operation);
+                }
+            }
+            clearOperationChangeLog();
+            return new Snapshot(operations, true);
         }
     }
 
@@ -643,11 +907,28 @@ public class IndexEventHolder implements IndexedEventHolder, Serializable {
                 IndexEventHolder snapshotEventHolder = (IndexEventHolder) snapshotEntry.getValue().getState();
                 if (primaryKeyData != null) {
                     primaryKeyData.clear();
-                    primaryKeyData.putAll(snapshotEventHolder.primaryKeyData);
+                    // keys are rebuilt from the events, as older snapshots hold concatenated composite keys
+                    for (StreamEvent streamEvent : snapshotEventHolder.primaryKeyData.values()) {
+                        Object primaryKey = constructPrimaryKey(streamEvent, primaryKeyReferenceHolders);
+                        if (primaryKey != null) {
+                            primaryKeyData.put(primaryKey, streamEvent);
+                        }
+                    }
                 }
                 if (indexData != null) {
-                    indexData.clear();
-                    indexData.putAll(snapshotEventHolder.indexData);
+                    // copied into the concurrent index structures, as snapshots may hold other map types
+                    for (Map.Entry<String, NavigableMap<Object, Set<StreamEvent>>> indexEntry :
+                            snapshotEventHolder.indexData.entrySet()) {
+                        NavigableMap<Object, Set<StreamEvent>> indexMap = indexData.get(indexEntry.getKey());
+                        if (indexMap == null) {
+                            continue;
+                        }
+                        for (Map.Entry<Object, Set<StreamEvent>> entry : indexEntry.getValue().entrySet()) {
+                            Set<StreamEvent> values = ConcurrentHashMap.newKeySet();
+                            values.addAll(entry.getValue());
+                            indexMap.put(entry.getKey(), values);
+                        }
+                    }
                 }
                 forceFullSnapshot = false;
             } else {
@@ -681,6 +962,120 @@ public class IndexEventHolder implements IndexedEventHolder, Serializable {
 
     @Override
     public int size() {
+        accessAllPrimaryKeys();
         return primaryKeyData.size();
     }
+
+    /**
+     * Lazy view over the events of a range of a primary key index.
+     */
+    private class PrimaryKeyRangeEvents extends AbstractCollection<StreamEvent> {
+
+        private final NavigableMap<Object, StreamEvent> rangePrimaryKeyData;
+
+        private PrimaryKeyRangeEvents(NavigableMap<Object, StreamEvent> rangePrimaryKeyData) {
+            this.rangePrimaryKeyData = rangePrimaryKeyData;
+        }
+
+        @Override
+        public Iterator<StreamEvent> iterator() {
+            return rangePrimaryKeyData.values().iterator();
+        }
+
+        @Override
+        public int size() {
+            return rangePrimaryKeyData.size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return rangePrimaryKeyData.isEmpty();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof StreamEvent)) {
+                return false;
+            }
+            Object primaryKey = constructPrimaryKey((StreamEvent) o, primaryKeyReferenceHolders);
+            return primaryKey != null && rangePrimaryKeyData.get(primaryKey) == o;
+        }
+    }
+
+    /**
+     * Lazy view over the events of a range of an index, the size is computed once by visiting the index keys of
+     * the range.
+     */
+    private static class IndexRangeEvents extends AbstractCollection<StreamEvent> {
+
+        private final NavigableMap<Object, Set<StreamEvent>> rangeIndexData;
+        private final int attributePosition;
+        private int size = -1;
+
+        private IndexRangeEvents(NavigableMap<Object, Set<StreamEvent>> rangeIndexData, int attributePosition) {
+            this.rangeIndexData = rangeIndexData;
+            this.attributePosition = attributePosition;
+        }
+
+        @Override
+        public Iterator<StreamEvent> iterator() {
+            Iterator<Set<StreamEvent>> eventSetIterator = rangeIndexData.values().iterator();
+            return new Iterator<StreamEvent>() {
+                private Iterator<StreamEvent> eventIterator = Collections.emptyIterator();
+
+                @Override
+                public boolean hasNext() {
+                    while (!eventIterator.hasNext() && eventSetIterator.hasNext()) {
+                        eventIterator = eventSetIterator.next().iterator();
+                    }
+                    return eventIterator.hasNext();
+                }
+
+                @Override
+                public StreamEvent next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return eventIterator.next();
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            if (size == -1) {
+                int count = 0;
+                for (Set<StreamEvent> eventSet : rangeIndexData.values()) {
+                    count += eventSet.size();
+                }
+                size = count;
+            }
+            return size;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return rangeIndexData.isEmpty();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof StreamEvent)) {
+                return false;
+            }
+            Object key = ((StreamEvent) o).getOutputData()[attributePosition];
+            if (key == null) {
+                return false;
+            }
+            Set<StreamEvent> eventSet = rangeIndexData.get(key);
+            return eventSet != null && eventSet.contains(o);
+        }
+    }
+
+    /**
+     * Placeholder of a null primary key, which is an enum such that it stays the same instance when deserialized.
+     */
+    private enum NullPrimaryKey {
+        INSTANCE
+    }
 }
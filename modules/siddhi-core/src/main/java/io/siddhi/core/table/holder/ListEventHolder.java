@@ -37,8 +37,8 @@ public class ListEventHolder extends SnapshotableStreamEventQueue implements Eve
     private StreamEventConverter eventConverter;
 
     public ListEventHolder(StreamEventFactory tableStreamEventFactory, StreamEventConverter eventConverter,
-                           StreamEventClonerHolder streamEventClonerHolder) {
-        super(streamEventClonerHolder);
+                           StreamEventClonerHolder streamEventClonerHolder, long operationChangeLogBudget) {
+        super(streamEventClonerHolder, Integer.MAX_VALUE, operationChangeLogBudget);
         this.tableStreamEventFactory = tableStreamEventFactory;
         this.eventConverter = eventConverter;
     }
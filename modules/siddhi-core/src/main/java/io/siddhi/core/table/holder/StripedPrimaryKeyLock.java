@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.siddhi.core.table.holder;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Locks the events of an {@link IndexEventHolder} in stripes by the hash of their primary key, such that primary key
+ * lookups only conflict with the writes to the keys of their stripe.
+ * <p>
+ * The writing thread is marked by {@link #startWrite()}, and the event holder takes the write lock of a stripe when
+ * the writer accesses an event of that stripe, which is held until {@link #endWrite()} as the event might be updated
+ * in place. Accessing events other than by primary key lookups takes the write locks of all stripes. Writes are not
+ * concurrent, as they are serialized by the table.
+ * <p>
+ * Reads are tracked per thread from {@link #startRead()} to {@link #endRead()}. A read that only looked up primary
+ * keys of a single stripe is validated against that stripe, while any other read is reported as table wide.
+ */
+public class StripedPrimaryKeyLock {
+
+    public static final int TABLE_WIDE = -1;
+    private static final int STRIPES = 64;
+
+    private final StampedLock[] stripes = new StampedLock[STRIPES];
+    private final long[] writeStamps = new long[STRIPES];
+    private final ThreadLocal<ReadTracker> readTrackers = ThreadLocal.withInitial(ReadTracker::new);
+    private volatile Thread writer;
+
+    public StripedPrimaryKeyLock() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new StampedLock();
+        }
+    }
+
+    /**
+     * Marks the current thread as the writer, called holding the write lock of the table.
+     */
+    public void startWrite() {
+        writer = Thread.currentThread();
+    }
+
+    /**
+     * Releases the stripes locked by the writer, called before releasing the write lock of the table.
+     */
+    public void endWrite() {
+        writer = null;
+        for (int i = 0; i < STRIPES; i++) {
+            if (writeStamps[i] != 0) {
+                stripes[i].unlockWrite(writeStamps[i]);
+                writeStamps[i] = 0;
+            }
+        }
+    }
+
+    /**
+     * Called by the event holder before accessing the event of a primary key.
+     *
+     * @param primaryKey primary key as stored by the event holder
+     */
+    void access(Object primaryKey) {
+        int stripe = stripe(primaryKey);
+        if (writer == Thread.currentThread()) {
+            if (writeStamps[stripe] == 0) {
+                writeStamps[stripe] = stripes[stripe].writeLock();
+            }
+            return;
+        }
+        ReadTracker readTracker = readTrackers.get();
+        if (readTracker.tracking) {
+            if (readTracker.stripe == TABLE_WIDE && !readTracker.tableWide) {
+                readTracker.stripe = stripe;
+                readTracker.stamp = stripes[stripe].tryOptimisticRead();
+            } else if (readTracker.stripe != stripe) {
+                readTracker.tableWide = true;
+            }
+        }
+    }
+
+    /**
+     * Called by the event holder before accessing events other than by primary key lookups.
+     */
+    void accessAll() {
+        if (writer == Thread.currentThread()) {
+            for (int i = 0; i < STRIPES; i++) {
+                if (writeStamps[i] == 0) {
+                    writeStamps[i] = stripes[i].writeLock();
+                }
+            }
+            return;
+        }
+        ReadTracker readTracker = readTrackers.get();
+        if (readTracker.tracking) {
+            readTracker.tableWide = true;
+        }
+    }
+
+    /**
+     * Starts tracking the events accessed by the current thread.
+     *
+     * @return false if the thread is already tracked by an enclosing read, which then validates this read as well
+     */
+    public boolean startRead() {
+        ReadTracker readTracker = readTrackers.get();
+        if (readTracker.tracking) {
+            return false;
+        }
+        readTracker.tracking = true;
+        readTracker.tableWide = false;
+        readTracker.stripe = TABLE_WIDE;
+        readTracker.stamp = 0;
+        return true;
+    }
+
+    /**
+     * Stops tracking the events accessed by the current thread.
+     *
+     * @return the stripe of the primary keys looked up, or {@link #TABLE_WIDE} if the read was not confined to the
+     * primary key lookups of a single stripe
+     */
+    public int endRead() {
+        ReadTracker readTracker = readTrackers.get();
+        readTracker.tracking = false;
+        if (readTracker.tableWide) {
+            return TABLE_WIDE;
+        }
+        return readTracker.stripe;
+    }
+
+    /**
+     * @param stripe stripe returned by {@link #endRead()}
+     * @return whether the stripe was not written since it was first accessed by the read
+     */
+    public boolean validate(int stripe) {
+        long stamp = readTrackers.get().stamp;
+        return stamp != 0 && stripes[stripe].validate(stamp);
+    }
+
+    public long readLock(int stripe) {
+        return stripes[stripe].readLock();
+    }
+
+    public void unlockRead(int stripe, long stamp) {
+        stripes[stripe].unlockRead(stamp);
+    }
+
+    /**
+     * Numeric keys are hashed by their value, as lookups may use another numeric type than the stored keys.
+     */
+    private static int stripe(Object primaryKey) {
+        int hash;
+        if (primaryKey instanceof Number) {
+            hash = Double.hashCode(((Number) primaryKey).doubleValue());
+        } else {
+            hash = primaryKey.hashCode();
+        }
+        return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+
+    private static class ReadTracker {
+
+        private boolean tracking;
+        private boolean tableWide;
+        private int stripe;
+        private long stamp;
+    }
+}
@@ -0,0 +1,320 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.core.table.offheap;
+
+import io.siddhi.core.exception.SiddhiAppRuntimeException;
+import org.apache.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * {@link OffHeapRowStore} whose segments are memory mapped files of a local directory, so that the rows outlive the
+ * process.
+ * <p>
+ * The segments form an append-only log: each written row is framed as a put record holding its row id and a checksum,
+ * and each removal appends a delete record. The checksum covers the record type and row id along with the row, so that
+ * a corrupt frame is never replayed against another row. On startup the segments are replayed in order to restore the
+ * row ids, stopping at the first torn or corrupt record and truncating the log there, so that the records after it,
+ * including those of later segments, are never replayed over a partial history. Compaction writes the live rows into
+ * the segments of a new generation, and only switches the 'CURRENT' file to it once they are forced to disk, hence a
+ * crash during compaction falls back to the previous generation.
+ */
+public class MappedRowStore extends OffHeapRowStore {
+
+    private static final Logger log = Logger.getLogger(MappedRowStore.class);
+    private static final String CURRENT_FILE = "CURRENT";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final byte END = 0;
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+    private static final int FRAME_SIZE = 1 + Integer.BYTES + Integer.BYTES;
+
+    private final File directory;
+    private final int forceBatchSize;
+    private final CRC32 crc32 = new CRC32();
+    private final byte[] frameHeader = new byte[1 + Integer.BYTES];
+    private final List<MappedByteBuffer> dirtySegments = new ArrayList<>();
+    private long generation;
+    private int segmentCount;
+    private int unforcedSyncCount;
+
+    /**
+     * @param forceBatchSize number of {@link #sync()} calls whose changes are forced to disk together, or zero to
+     *                       leave the write back of the changes to the operating system
+     */
+    public MappedRowStore(int segmentSize, File directory, int forceBatchSize) {
+        super(segmentSize);
+        this.directory = directory;
+        this.forceBatchSize = forceBatchSize;
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new SiddhiAppRuntimeException("Cannot create the table directory '" + directory + "'");
+        }
+        recover();
+    }
+
+    @Override
+    protected ByteBuffer allocateSegment(int size) {
+        File file = new File(directory, generation + "-" + segmentCount++ + SEGMENT_SUFFIX);
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            randomAccessFile.setLength(size);
+            return randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } catch (IOException e) {
+            throw new SiddhiAppRuntimeException("Cannot create the table segment '" + file + "'", e);
+        }
+    }
+
+    @Override
+    protected int recordSize(ByteBuffer encodedRow) {
+        return FRAME_SIZE + encodedRow.limit();
+    }
+
+    @Override
+    protected int writeRecord(ByteBuffer segment, int rowId, ByteBuffer encodedRow) {
+        segment.put(PUT).putInt(rowId).putInt(checksum(PUT, rowId, encodedRow.duplicate()));
+        int offset = segment.position();
+        segment.put(encodedRow);
+        markDirty(segment);
+        return offset;
+    }
+
+    @Override
+    protected void removed(int rowId) {
+        ByteBuffer segment = currentSegment(FRAME_SIZE);
+        segment.put(DELETE).putInt(rowId).putInt(checksum(DELETE, rowId, null));
+        markDirty(segment);
+    }
+
+    @Override
+    protected void compacting() {
+        forceDirtySegments();
+        generation++;
+        segmentCount = 0;
+    }
+
+    @Override
+    protected void compacted(List<ByteBuffer> oldSegments) {
+        for (ByteBuffer segment : getSegments()) {
+            ((MappedByteBuffer) segment).force();
+        }
+        dirtySegments.clear();
+        switchGeneration();
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        dirtySegments.clear();
+        generation++;
+        segmentCount = 0;
+        switchGeneration();
+    }
+
+    @Override
+    public void sync() {
+        if (forceBatchSize > 0 && !dirtySegments.isEmpty() && ++unforcedSyncCount >= forceBatchSize) {
+            forceDirtySegments();
+        }
+    }
+
+    /**
+     * Forces the rows to disk and releases the mappings, keeping the segment files.
+     */
+    @Override
+    public void close() {
+        forceDirtySegments();
+        super.clear();
+    }
+
+    /**
+     * @param row remaining bytes of the row of a put record, or null for a delete record
+     * @return checksum of the record type, the row id and the row
+     */
+    private int checksum(byte type, int rowId, ByteBuffer row) {
+        frameHeader[0] = type;
+        for (int i = 0; i < Integer.BYTES; i++) {
+            frameHeader[1 + i] = (byte) (rowId >>> (Integer.SIZE - Byte.SIZE * (i + 1)));
+        }
+        crc32.reset();
+        crc32.update(frameHeader, 0, frameHeader.length);
+        if (row != null) {
+            crc32.update(row);
+        }
+        return (int) crc32.getValue();
+    }
+
+    private void markDirty(ByteBuffer segment) {
+        if (dirtySegments.isEmpty() || dirtySegments.get(dirtySegments.size() - 1) != segment) {
+            dirtySegments.add((MappedByteBuffer) segment);
+        }
+    }
+
+    private void forceDirtySegments() {
+        for (MappedByteBuffer segment : dirtySegments) {
+            segment.force();
+        }
+        dirtySegments.clear();
+        unforcedSyncCount = 0;
+    }
+
+    /**
+     * Points 'CURRENT' to the current generation and deletes the segments of the other generations.
+     */
+    private void switchGeneration() {
+        try {
+            Path current = new File(directory, CURRENT_FILE).toPath();
+            Path temp = new File(directory, CURRENT_FILE + ".tmp").toPath();
+            Files.write(temp, Long.toString(generation).getBytes(StandardCharsets.UTF_8));
+            Files.move(temp, current, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new SiddhiAppRuntimeException("Cannot update the current generation of the table at '" +
+                    directory + "'", e);
+        }
+        deleteOtherGenerations();
+    }
+
+    private void deleteOtherGenerations() {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(SEGMENT_SUFFIX) &&
+                !name.startsWith(generation + "-"));
+        if (files != null) {
+            for (File file : files) {
+                if (!file.delete()) {
+                    log.warn("Cannot delete the unused table segment '" + file + "'");
+                }
+            }
+        }
+    }
+
+    private void recover() {
+        File current = new File(directory, CURRENT_FILE);
+        try {
+            if (current.exists()) {
+                generation = Long.parseLong(new String(Files.readAllBytes(current.toPath()),
+                        StandardCharsets.UTF_8).trim());
+            }
+        } catch (IOException | NumberFormatException e) {
+            throw new SiddhiAppRuntimeException("Cannot read the current generation of the table at '" +
+                    directory + "'", e);
+        }
+        deleteOtherGenerations();
+
+        TreeMap<Integer, File> segmentFiles = new TreeMap<>();
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(generation + "-") &&
+                name.endsWith(SEGMENT_SUFFIX));
+        if (files != null) {
+            for (File file : files) {
+                String name = file.getName();
+                segmentFiles.put(Integer.parseInt(name.substring(name.indexOf('-') + 1,
+                        name.length() - SEGMENT_SUFFIX.length())), file);
+            }
+        }
+        segmentCount = 0;
+        boolean truncated = false;
+        for (Map.Entry<Integer, File> segmentFile : segmentFiles.entrySet()) {
+            File file = segmentFile.getValue();
+            if (truncated) {
+                if (!file.delete()) {
+                    throw new SiddhiAppRuntimeException("Cannot delete the table segment '" + file + "' written " +
+                            "after a corrupt record");
+                }
+                continue;
+            }
+            try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+                MappedByteBuffer segment = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0,
+                        randomAccessFile.length());
+                restoreSegment(segment);
+                truncated = !replay(segment, file);
+                if (truncated || segmentFile.getKey().equals(segmentFiles.lastKey())) {
+                    truncate(segment);
+                }
+            } catch (IOException e) {
+                throw new SiddhiAppRuntimeException("Cannot read the table segment '" + file + "'", e);
+            }
+            segmentCount = segmentFile.getKey() + 1;
+        }
+        finishRestore();
+    }
+
+    /**
+     * Replays the records of the segment, leaving its position after the last valid record.
+     *
+     * @return false if the replay stopped at a torn or corrupt record rather than at the end of the segment
+     */
+    private boolean replay(MappedByteBuffer segment, File file) {
+        int position = 0;
+        int limit = segment.limit();
+        while (position + FRAME_SIZE <= limit) {
+            byte type = segment.get(position);
+            int rowId = segment.getInt(position + 1);
+            int check = segment.getInt(position + 1 + Integer.BYTES);
+            if (type == PUT && rowId >= 0 && position + FRAME_SIZE + OffHeapRowCodec.HEADER_SIZE <= limit) {
+                int offset = position + FRAME_SIZE;
+                int length = OffHeapRowCodec.readLength(segment, offset);
+                if (length >= OffHeapRowCodec.HEADER_SIZE && offset + length <= limit) {
+                    ByteBuffer row = segment.duplicate();
+                    row.limit(offset + length).position(offset);
+                    if (checksum(type, rowId, row) == check) {
+                        restoreRow(rowId, offset);
+                        position = offset + length;
+                        continue;
+                    }
+                }
+            } else if (type == DELETE && checksum(type, rowId, null) == check) {
+                restoreRemoval(rowId);
+                position += FRAME_SIZE;
+                continue;
+            }
+            if (type != END) {
+                log.warn("Discarding the torn or corrupt records of table segment '" + file + "' after offset " +
+                        position + ", and the segments written after it");
+                segment.position(position);
+                return false;
+            }
+            break;
+        }
+        segment.position(position);
+        return true;
+    }
+
+    /**
+     * Zeroes anything after the position of the segment, so that it is never mistaken for a record once new ones are
+     * appended after it.
+     */
+    private void truncate(MappedByteBuffer segment) {
+        for (int i = segment.position(); i < segment.limit(); i++) {
+            if (segment.get(i) != END) {
+                segment.put(i, END);
+            }
+        }
+        segment.force();
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.core.table.offheap;
+
+import io.siddhi.annotation.Example;
+import io.siddhi.annotation.Extension;
+import io.siddhi.annotation.Parameter;
+import io.siddhi.annotation.util.DataType;
+import io.siddhi.core.config.SiddhiAppContext;
+import io.siddhi.core.exception.SiddhiAppCreationException;
+import io.siddhi.query.api.annotation.Annotation;
+
+import java.io.File;
+
+/**
+ * {@link OffHeapTable} whose rows are kept in memory mapped files of a local directory. The rows survive restarts
+ * and crashes of the process without being part of the Siddhi App snapshots, and are available as soon as the
+ * segment files are replayed on startup.
+ */
+@Extension(
+        name = "mmap",
+        namespace = "store",
+        description = "Local persistent table that stores its rows in memory mapped files. Every change is " +
+                "appended to the files as a log, which is replayed on startup and compacted once most of it is " +
+                "outdated. Conditions matching all the '@PrimaryKey' attributes by equality are served through a " +
+                "hash index rebuilt on startup. All other conditions, including range conditions on the " +
+                "primary key, scan every row of the table. Secondary '@Index' attributes are not supported.",
+        parameters = {
+                @Parameter(name = "path",
+                        description = "Directory holding the files of the table, it is created if it does not " +
+                                "exist and must not be shared with other tables.",
+                        type = {DataType.STRING}),
+                @Parameter(name = "segment.size",
+                        description = "Size in bytes of each file segment holding the rows.",
+                        type = {DataType.INT}, optional = true, defaultValue = "67108864"),
+                @Parameter(name = "force.on.write",
+                        description = "Forces the changes to disk at the end of table operations, so that " +
+                                "they also survive operating system crashes. Else the changes are written back " +
+                                "by the operating system and only survive crashes of the process.",
+                        type = {DataType.BOOL}, optional = true, defaultValue = "false"),
+                @Parameter(name = "force.batch.size",
+                        description = "Number of table operations whose changes are forced to disk together when " +
+                                "'force.on.write' is true. Larger batches force less often, at the cost of " +
+                                "losing the changes of up to that many operations on an operating system crash.",
+                        type = {DataType.INT}, optional = true, defaultValue = "1")
+        },
+        examples = @Example(
+                syntax = "@store(type='mmap', path='/var/siddhi/tables/StockTable')\n" +
+                        "@PrimaryKey('symbol')\n" +
+                        "define table StockTable (symbol string, price float, volume long);",
+                description = "The above defines a table 'StockTable' whose rows are persisted in the " +
+                        "'/var/siddhi/tables/StockTable' directory."
+        )
+)
+public class MemoryMappedTable extends OffHeapTable {
+
+    private static final String PATH = "path";
+    private static final String FORCE_ON_WRITE = "force.on.write";
+    private static final String FORCE_BATCH_SIZE = "force.batch.size";
+    private static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    @Override
+    protected int getDefaultSegmentSize() {
+        return DEFAULT_SEGMENT_SIZE;
+    }
+
+    @Override
+    protected OffHeapRowStore createRowStore(int segmentSize, Annotation storeAnnotation,
+                                             SiddhiAppContext siddhiAppContext) {
+        String path = storeAnnotation.getElement(PATH);
+        if (path == null || path.trim().isEmpty()) {
+            throw new SiddhiAppCreationException("'" + PATH + "' is not defined for the table '" +
+                    tableDefinition.getId() + "' of Siddhi App '" + siddhiAppContext.getName() + "'");
+        }
+        int forceBatchSize = 0;
+        if (Boolean.parseBoolean(storeAnnotation.getElement(FORCE_ON_WRITE))) {
+            forceBatchSize = 1;
+            String forceBatchSizeValue = storeAnnotation.getElement(FORCE_BATCH_SIZE);
+            if (forceBatchSizeValue != null) {
+                try {
+                    forceBatchSize = Integer.parseInt(forceBatchSizeValue.trim());
+                } catch (NumberFormatException e) {
+                    throw new SiddhiAppCreationException("'" + FORCE_BATCH_SIZE + "' of table '" +
+                            tableDefinition.getId() + "' should be an int, but found '" + forceBatchSizeValue + "'",
+                            e);
+                }
+                if (forceBatchSize < 1) {
+                    throw new SiddhiAppCreationException("'" + FORCE_BATCH_SIZE + "' of table '" +
+                            tableDefinition.getId() + "' should be greater than zero, but found '" +
+                            forceBatchSizeValue + "'");
+                }
+            }
+        }
+        return new MappedRowStore(segmentSize, new File(path.trim()), forceBatchSize);
+    }
+
+    @Override
+    protected boolean isSnapshotted() {
+        return false;
+    }
+}
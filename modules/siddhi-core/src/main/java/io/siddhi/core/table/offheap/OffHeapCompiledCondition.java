@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.core.table.offheap;
+
+import io.siddhi.core.event.state.StateEvent;
+import io.siddhi.core.executor.ExpressionExecutor;
+import io.siddhi.core.table.holder.CompositePrimaryKey;
+import io.siddhi.core.util.collection.operator.CompiledCondition;
+import io.siddhi.query.api.definition.Attribute;
+
+/**
+ * Compiled condition created for {@link OffHeapTable}. When the condition matches all primary key attributes by
+ * equality, the values they are matched with are used to look up the row through the primary key index, else all
+ * the rows are scanned.
+ */
+public class OffHeapCompiledCondition implements CompiledCondition {
+
+    private final ExpressionExecutor conditionExecutor;
+    private final int storeEventPosition;
+    private final ExpressionExecutor[] primaryKeyExecutors;
+    private final Attribute.Type[] primaryKeyTypes;
+
+    public OffHeapCompiledCondition(ExpressionExecutor conditionExecutor, int storeEventPosition,
+                                    ExpressionExecutor[] primaryKeyExecutors, Attribute.Type[] primaryKeyTypes) {
+        this.conditionExecutor = conditionExecutor;
+        this.storeEventPosition = storeEventPosition;
+        this.primaryKeyExecutors = primaryKeyExecutors;
+        this.primaryKeyTypes = primaryKeyTypes;
+    }
+
+    public ExpressionExecutor getConditionExecutor() {
+        return conditionExecutor;
+    }
+
+    public int getStoreEventPosition() {
+        return storeEventPosition;
+    }
+
+    public boolean isPrimaryKeyLookup() {
+        return primaryKeyExecutors != null;
+    }
+
+    /**
+     * @return the primary key the matching event refers to, or null if any of its values is null
+     */
+    public Object getPrimaryKey(StateEvent matchingEvent) {
+        if (primaryKeyExecutors.length == 1) {
+            return CompositePrimaryKey.toAttributeType(primaryKeyExecutors[0].execute(matchingEvent),
+                    primaryKeyTypes[0]);
+        }
+        Object[] values = new Object[primaryKeyExecutors.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = CompositePrimaryKey.toAttributeType(primaryKeyExecutors[i].execute(matchingEvent),
+                    primaryKeyTypes[i]);
+            if (values[i] == null) {
+                return null;
+            }
+        }
+        return new CompositePrimaryKey(values);
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.core.table.offheap;
+
+import java.nio.ByteBuffer;
+import java.util.function.IntFunction;
+
+/**
+ * Open addressing hash index from keys to row ids, held in a direct {@link ByteBuffer}.
+ * <p>
+ * Each slot holds the key hash and the row id, the keys themselves are not stored but read back from the rows
+ * through the given key reader when the hashes match. Removal shifts the following entries back instead of leaving
+ * tombstones, hence lookups never degrade with churn.
+ */
+public class OffHeapHashIndex {
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final long EMPTY = 0L;
+
+    private final IntFunction<Object> keyReader;
+    private ByteBuffer slots;
+    private int mask;
+    private int size;
+
+    /**
+     * @param keyReader reads the key of the row with the given row id
+     */
+    public OffHeapHashIndex(IntFunction<Object> keyReader) {
+        this.keyReader = keyReader;
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * @return row id of the row with the given key, or -1 when there is no such row
+     */
+    public int get(Object key) {
+        int slot = find(key, hash(key));
+        return slot >= 0 ? rowId(entry(slot)) : -1;
+    }
+
+    /**
+     * Adds a key that is not already in the index.
+     */
+    public void put(Object key, int rowId) {
+        if ((size + 1) * 2 > mask + 1) {
+            resize((mask + 1) * 2);
+        }
+        insert(hash(key), rowId);
+        size++;
+    }
+
+    public void remove(Object key) {
+        int slot = find(key, hash(key));
+        if (slot < 0) {
+            return;
+        }
+        int free = slot;
+        int next = slot;
+        while (true) {
+            next = (next + 1) & mask;
+            long entry = entry(next);
+            if (entry == EMPTY) {
+                break;
+            }
+            int home = (int) (entry >>> 32) & mask;
+            boolean movable = free <= next ? (home <= free || home > next) : (home <= free && home > next);
+            if (movable) {
+                setEntry(free, entry);
+                free = next;
+            }
+        }
+        setEntry(free, EMPTY);
+        size--;
+    }
+
+    public void clear() {
+        allocate(INITIAL_CAPACITY);
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private int find(Object key, int hash) {
+        int slot = hash & mask;
+        while (true) {
+            long entry = entry(slot);
+            if (entry == EMPTY) {
+                return -1;
+            }
+            if ((int) (entry >>> 32) == hash && key.equals(keyReader.apply(rowId(entry)))) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void insert(int hash, int rowId) {
+        int slot = hash & mask;
+        while (entry(slot) != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        setEntry(slot, ((long) hash << 32) | ((rowId + 1) & 0xFFFFFFFFL));
+    }
+
+    private void resize(int capacity) {
+        ByteBuffer oldSlots = slots;
+        int oldCapacity = mask + 1;
+        allocate(capacity);
+        for (int i = 0; i < oldCapacity; i++) {
+            long entry = oldSlots.getLong(i * Long.BYTES);
+            if (entry != EMPTY) {
+                insert((int) (entry >>> 32), rowId(entry));
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        slots = ByteBuffer.allocateDirect(capacity * Long.BYTES);
+        mask = capacity - 1;
+    }
+
+    private long entry(int slot) {
+        return slots.getLong(slot * Long.BYTES);
+    }
+
+    private void setEntry(int slot, long entry) {
+        slots.putLong(slot * Long.BYTES, entry);
+    }
+
+    private static int rowId(long entry) {
+        return (int) entry - 1;
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+}
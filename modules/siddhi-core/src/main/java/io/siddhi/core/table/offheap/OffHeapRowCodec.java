@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.core.table.offheap;
+
+import io.siddhi.core.config.SiddhiAppContext;
+import io.siddhi.core.util.snapshot.ByteSerializer;
+import io.siddhi.query.api.definition.Attribute;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Encodes table rows into bytes based on the attribute types of the table definition, and decodes them back.
+ * <p>
+ * A row is laid out as its length, the event timestamp, and then each attribute as a null flag followed by the
+ * value. Strings and objects are length prefixed, objects being java serialized. Decoding only uses absolute reads
+ * hence multiple threads can decode from the same buffer concurrently.
+ */
+public class OffHeapRowCodec {
+
+    static final int HEADER_SIZE = Integer.BYTES + Long.BYTES;
+    private static final byte NULL = 0;
+    private static final byte NOT_NULL = 1;
+
+    private final Attribute.Type[] types;
+    private final SiddhiAppContext siddhiAppContext;
+    private ByteBuffer encodeBuffer = ByteBuffer.allocate(1024);
+
+    public OffHeapRowCodec(List<Attribute> attributes, SiddhiAppContext siddhiAppContext) {
+        this.types = new Attribute.Type[attributes.size()];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = attributes.get(i).getType();
+        }
+        this.siddhiAppContext = siddhiAppContext;
+    }
+
+    public int getAttributeCount() {
+        return types.length;
+    }
+
+    /**
+     * Encodes the row into a buffer that is reused across calls, hence the returned buffer is only valid until the
+     * next call and must only be used by a single writer.
+     *
+     * @param timestamp timestamp of the event
+     * @param data      attribute values in the order of the table definition
+     * @return buffer ready to be read from, holding the encoded row
+     */
+    public ByteBuffer encode(long timestamp, Object[] data) {
+        encodeBuffer.clear();
+        ensureCapacity(HEADER_SIZE);
+        encodeBuffer.putInt(0);
+        encodeBuffer.putLong(timestamp);
+        for (int i = 0; i < types.length; i++) {
+            Object value = data[i];
+            if (value == null) {
+                ensureCapacity(1);
+                encodeBuffer.put(NULL);
+                continue;
+            }
+            switch (types[i]) {
+                case STRING:
+                    putBytes(((String) value).getBytes(StandardCharsets.UTF_8));
+                    break;
+                case INT:
+                    ensureCapacity(1 + Integer.BYTES);
+                    encodeBuffer.put(NOT_NULL).putInt((Integer) value);
+                    break;
+                case LONG:
+                    ensureCapacity(1 + Long.BYTES);
+                    encodeBuffer.put(NOT_NULL).putLong((Long) value);
+                    break;
+                case FLOAT:
+                    ensureCapacity(1 + Float.BYTES);
+                    encodeBuffer.put(NOT_NULL).putFloat((Float) value);
+                    break;
+                case DOUBLE:
+                    ensureCapacity(1 + Double.BYTES);
+                    encodeBuffer.put(NOT_NULL).putDouble((Double) value);
+                    break;
+                case BOOL:
+                    ensureCapacity(2);
+                    encodeBuffer.put(NOT_NULL).put((Boolean) value ? (byte) 1 : (byte) 0);
+                    break;
+                default:
+                    putBytes(ByteSerializer.objectToByte(value, siddhiAppContext));
+            }
+        }
+        encodeBuffer.putInt(0, encodeBuffer.position());
+        encodeBuffer.flip();
+        return encodeBuffer;
+    }
+
+    public static int readLength(ByteBuffer buffer, int offset) {
+        return buffer.getInt(offset);
+    }
+
+    public static long readTimestamp(ByteBuffer buffer, int offset) {
+        return buffer.getLong(offset + Integer.BYTES);
+    }
+
+    /**
+     * Decodes all the attributes of the row at the given offset.
+     */
+    public void decode(ByteBuffer buffer, int offset, Object[] target) {
+        int position = offset + HEADER_SIZE;
+        for (int i = 0; i < types.length; i++) {
+            position = read(buffer, position, i, target, i);
+        }
+    }
+
+    /**
+     * Decodes only the attributes at the given ascending positions, skipping over the others.
+     */
+    public void decode(ByteBuffer buffer, int offset, int[] attributePositions, Object[] target) {
+        int position = offset + HEADER_SIZE;
+        int next = 0;
+        for (int i = 0; i < types.length && next < attributePositions.length; i++) {
+            if (attributePositions[next] == i) {
+                position = read(buffer, position, i, target, next++);
+            } else {
+                position = skip(buffer, position, i);
+            }
+        }
+    }
+
+    private int read(ByteBuffer buffer, int position, int attribute, Object[] target, int targetPosition) {
+        if (buffer.get(position) == NULL) {
+            target[targetPosition] = null;
+            return position + 1;
+        }
+        position++;
+        switch (types[attribute]) {
+            case STRING:
+                target[targetPosition] = new String(getBytes(buffer, position), StandardCharsets.UTF_8);
+                return position + Integer.BYTES + buffer.getInt(position);
+            case INT:
+                target[targetPosition] = buffer.getInt(position);
+                return position + Integer.BYTES;
+            case LONG:
+                target[targetPosition] = buffer.getLong(position);
+                return position + Long.BYTES;
+            case FLOAT:
+                target[targetPosition] = buffer.getFloat(position);
+                return position + Float.BYTES;
+            case DOUBLE:
+                target[targetPosition] = buffer.getDouble(position);
+                return position + Double.BYTES;
+            case BOOL:
+                target[targetPosition] = buffer.get(position) == 1;
+                return position + 1;
+            default:
+                target[targetPosition] = ByteSerializer.byteToObject(getBytes(buffer, position), siddhiAppContext);
+                return position + Integer.BYTES + buffer.getInt(position);
+        }
+    }
+
+    private int skip(ByteBuffer buffer, int position, int attribute) {
+        if (buffer.get(position) == NULL) {
+            return position + 1;
+        }
+        position++;
+        switch (types[attribute]) {
+            case INT:
+            case FLOAT:
+                return position + Integer.BYTES;
+            case LONG:
+            case DOUBLE:
+                return position + Long.BYTES;
+            case BOOL:
+                return position + 1;
+            default:
+                return position + Integer.BYTES + buffer.getInt(position);
+        }
+    }
+
+    private static byte[] getBytes(ByteBuffer buffer, int position) {
+        byte[] bytes = new byte[buffer.getInt(position)];
+        int start = position + Integer.BYTES;
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(start + i);
+        }
+        return bytes;
+    }
+
+    private void putBytes(byte[] bytes) {
+        ensureCapacity(1 + Integer.BYTES + bytes.length);
+        encodeBuffer.put(NOT_NULL).putInt(bytes.length).put(bytes);
+    }
+
+    private void ensureCapacity(int required) {
+        if (encodeBuffer.remaining() < required) {
+            ByteBuffer expanded = ByteBuffer.allocate(Math.max(encodeBuffer.capacity() * 2,
+                    encodeBuffer.position() + required));
+            encodeBuffer.flip();
+            expanded.put(encodeBuffer);
+            encodeBuffer = expanded;
+        }
+    }
+}
@@ -0,0 +1,282 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.core.table.offheap;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Holds encoded rows in direct {@link ByteBuffer} segments outside the java heap.
+ * <p>
+ * Rows are appended to the current segment and addressed through a stable row id, hence rewriting a row or
+ * compacting the segments never changes the row ids referred by the indexes. The only on-heap structures are
+ * primitive arrays mapping row ids to segment addresses, so the garbage collector does not traverse the rows.
+ */
+public class OffHeapRowStore {
+
+    private static final long FREE = -1L;
+
+    protected final int segmentSize;
+    private List<ByteBuffer> segments = new ArrayList<>();
+    private ByteBuffer currentSegment;
+    private long[] addresses = new long[1024];
+    private int[] freeRowIds = new int[64];
+    private int freeRowIdCount;
+    private int rowIdLimit;
+    private int rowCount;
+    private long liveBytes;
+    private long garbageBytes;
+
+    public OffHeapRowStore(int segmentSize) {
+        this.segmentSize = segmentSize;
+    }
+
+    public int insert(ByteBuffer encodedRow) {
+        int rowId;
+        if (freeRowIdCount > 0) {
+            rowId = freeRowIds[--freeRowIdCount];
+        } else {
+            ensureRowId(rowIdLimit);
+            rowId = rowIdLimit++;
+        }
+        addresses[rowId] = write(rowId, encodedRow);
+        liveBytes += encodedRow.limit();
+        rowCount++;
+        return rowId;
+    }
+
+    public void replace(int rowId, ByteBuffer encodedRow) {
+        garbageBytes += OffHeapRowCodec.readLength(segment(rowId), offset(rowId));
+        addresses[rowId] = write(rowId, encodedRow);
+        liveBytes += encodedRow.limit();
+        compactIfNeeded();
+    }
+
+    public void remove(int rowId) {
+        garbageBytes += OffHeapRowCodec.readLength(segment(rowId), offset(rowId));
+        addresses[rowId] = FREE;
+        addFreeRowId(rowId);
+        rowCount--;
+        removed(rowId);
+        compactIfNeeded();
+    }
+
+    public void clear() {
+        segments = new ArrayList<>();
+        currentSegment = null;
+        Arrays.fill(addresses, 0, rowIdLimit, FREE);
+        freeRowIdCount = 0;
+        rowIdLimit = 0;
+        rowCount = 0;
+        liveBytes = 0;
+        garbageBytes = 0;
+    }
+
+    /**
+     * Called at the end of every table write operation, to make the changes done so far durable as
+     * far as the store's policy requires. No-op as direct memory does not outlive the process.
+     */
+    public void sync() {
+
+    }
+
+    /**
+     * Releases the rows when the table is shut down.
+     */
+    public void close() {
+        clear();
+    }
+
+    /**
+     * Upper bound of the row ids in use, row ids below it for which {@link #contains(int)} is false are free.
+     */
+    public int getRowIdLimit() {
+        return rowIdLimit;
+    }
+
+    public boolean contains(int rowId) {
+        return addresses[rowId] != FREE;
+    }
+
+    public int size() {
+        return rowCount;
+    }
+
+    public ByteBuffer segment(int rowId) {
+        return segments.get((int) (addresses[rowId] >>> 32));
+    }
+
+    public int offset(int rowId) {
+        return (int) addresses[rowId];
+    }
+
+    /**
+     * Allocates a segment of the given size, subclasses can override this to back the rows by other buffers such as
+     * memory mapped files.
+     */
+    protected ByteBuffer allocateSegment(int size) {
+        return ByteBuffer.allocateDirect(size);
+    }
+
+    /**
+     * @return number of bytes {@link #writeRecord(ByteBuffer, int, ByteBuffer)} writes for the row
+     */
+    protected int recordSize(ByteBuffer encodedRow) {
+        return encodedRow.limit();
+    }
+
+    /**
+     * Writes the row at the current position of the segment, subclasses can override this to frame the row.
+     *
+     * @return offset of the encoded row within the segment
+     */
+    protected int writeRecord(ByteBuffer segment, int rowId, ByteBuffer encodedRow) {
+        int offset = segment.position();
+        segment.put(encodedRow);
+        return offset;
+    }
+
+    /**
+     * Called after the row is removed.
+     */
+    protected void removed(int rowId) {
+
+    }
+
+    /**
+     * Called before the live rows are rewritten into new segments.
+     */
+    protected void compacting() {
+
+    }
+
+    /**
+     * Called after the live rows are rewritten, with the segments that are no longer used.
+     */
+    protected void compacted(List<ByteBuffer> oldSegments) {
+
+    }
+
+    /**
+     * @return the segment to append a record of the given size to, allocating a new one if it does not fit
+     */
+    protected ByteBuffer currentSegment(int recordSize) {
+        if (currentSegment == null || currentSegment.remaining() < recordSize) {
+            currentSegment = allocateSegment(Math.max(segmentSize, recordSize));
+            segments.add(currentSegment);
+        }
+        return currentSegment;
+    }
+
+    protected List<ByteBuffer> getSegments() {
+        return segments;
+    }
+
+    /**
+     * Adds an existing segment when restoring the rows, records are appended after its current position.
+     */
+    void restoreSegment(ByteBuffer segment) {
+        segments.add(segment);
+        currentSegment = segment;
+    }
+
+    /**
+     * Points the row id to the row at the given offset of the last restored segment.
+     */
+    void restoreRow(int rowId, int offset) {
+        ensureRowId(rowId);
+        if (rowId >= rowIdLimit) {
+            Arrays.fill(addresses, rowIdLimit, rowId, FREE);
+            rowIdLimit = rowId + 1;
+        } else if (addresses[rowId] != FREE) {
+            garbageBytes += OffHeapRowCodec.readLength(segment(rowId), offset(rowId));
+            rowCount--;
+        }
+        addresses[rowId] = ((long) (segments.size() - 1) << 32) | offset;
+        liveBytes += OffHeapRowCodec.readLength(currentSegment, offset);
+        rowCount++;
+    }
+
+    void restoreRemoval(int rowId) {
+        if (rowId < rowIdLimit && addresses[rowId] != FREE) {
+            garbageBytes += OffHeapRowCodec.readLength(segment(rowId), offset(rowId));
+            addresses[rowId] = FREE;
+            rowCount--;
+        }
+    }
+
+    /**
+     * Collects the row ids left free by the restored rows.
+     */
+    void finishRestore() {
+        freeRowIdCount = 0;
+        for (int rowId = rowIdLimit - 1; rowId >= 0; rowId--) {
+            if (addresses[rowId] == FREE) {
+                addFreeRowId(rowId);
+            }
+        }
+    }
+
+    private void ensureRowId(int rowId) {
+        if (rowId >= addresses.length) {
+            addresses = Arrays.copyOf(addresses, Math.max(addresses.length * 2, rowId + 1));
+        }
+    }
+
+    private void addFreeRowId(int rowId) {
+        if (freeRowIdCount == freeRowIds.length) {
+            freeRowIds = Arrays.copyOf(freeRowIds, freeRowIds.length * 2);
+        }
+        freeRowIds[freeRowIdCount++] = rowId;
+    }
+
+    private long write(int rowId, ByteBuffer encodedRow) {
+        ByteBuffer segment = currentSegment(recordSize(encodedRow));
+        int offset = writeRecord(segment, rowId, encodedRow);
+        encodedRow.rewind();
+        return ((long) (segments.size() - 1) << 32) | offset;
+    }
+
+    /**
+     * Rewrites the live rows into new segments once more than half of the written bytes belong to removed or
+     * replaced rows, releasing the old segments.
+     */
+    private void compactIfNeeded() {
+        if (garbageBytes < segmentSize || garbageBytes < liveBytes - garbageBytes) {
+            return;
+        }
+        compacting();
+        List<ByteBuffer> oldSegments = segments;
+        segments = new ArrayList<>();
+        currentSegment = null;
+        for (int rowId = 0; rowId < rowIdLimit; rowId++) {
+            if (addresses[rowId] != FREE) {
+                ByteBuffer row = oldSegments.get((int) (addresses[rowId] >>> 32)).duplicate();
+                int offset = (int) addresses[rowId];
+                row.limit(offset + OffHeapRowCodec.readLength(row, offset)).position(offset);
+                addresses[rowId] = write(rowId, row.slice());
+            }
+        }
+        liveBytes -= garbageBytes;
+        garbageBytes = 0;
+        compacted(oldSegments);
+    }
+}
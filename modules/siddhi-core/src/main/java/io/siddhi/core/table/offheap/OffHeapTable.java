@@ -0,0 +1,627 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.core.table.offheap;
+
+import io.siddhi.annotation.Example;
+import io.siddhi.annotation.Extension;
+import io.siddhi.annotation.Parameter;
+import io.siddhi.annotation.util.DataType;
+import io.siddhi.core.config.SiddhiAppContext;
+import io.siddhi.core.config.SiddhiQueryContext;
+import io.siddhi.core.event.ComplexEventChunk;
+import io.siddhi.core.event.state.StateEvent;
+import io.siddhi.core.event.stream.StreamEvent;
+import io.siddhi.core.event.stream.StreamEventCloner;
+import io.siddhi.core.event.stream.StreamEventFactory;
+import io.siddhi.core.exception.ConnectionUnavailableException;
+import io.siddhi.core.exception.SiddhiAppCreationException;
+import io.siddhi.core.executor.ExpressionExecutor;
+import io.siddhi.core.executor.VariableExpressionExecutor;
+import io.siddhi.core.query.processor.ProcessingMode;
+import io.siddhi.core.table.CompiledUpdateSet;
+import io.siddhi.core.table.InMemoryCompiledUpdateSet;
+import io.siddhi.core.table.Table;
+import io.siddhi.core.table.holder.CompositePrimaryKey;
+import io.siddhi.core.table.record.RecordTableHandler;
+import io.siddhi.core.util.SiddhiConstants;
+import io.siddhi.core.util.collection.AddingStreamEventExtractor;
+import io.siddhi.core.util.collection.operator.CompiledCondition;
+import io.siddhi.core.util.collection.operator.MatchingMetaInfoHolder;
+import io.siddhi.core.util.config.ConfigReader;
+import io.siddhi.core.util.parser.ExpressionParser;
+import io.siddhi.core.util.parser.helper.TableConditionHelper;
+import io.siddhi.core.util.snapshot.state.State;
+import io.siddhi.core.util.snapshot.state.StateHolder;
+import io.siddhi.query.api.annotation.Annotation;
+import io.siddhi.query.api.annotation.Element;
+import io.siddhi.query.api.definition.Attribute;
+import io.siddhi.query.api.definition.TableDefinition;
+import io.siddhi.query.api.execution.query.output.stream.UpdateSet;
+import io.siddhi.query.api.expression.Expression;
+import io.siddhi.query.api.util.AnnotationHelper;
+import org.apache.log4j.Logger;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Table implementation that keeps its rows outside the java heap, so that the size of the table does not add to
+ * the garbage collection pause time.
+ * <p>
+ * Rows are encoded by {@link OffHeapRowCodec} into direct buffer segments of {@link OffHeapRowStore}, and the
+ * primary key is indexed by {@link OffHeapHashIndex}. Conditions and update sets are compiled the same way as for
+ * the in-memory table and are evaluated against rows decoded on demand.
+ */
+@Extension(
+        name = "offheap",
+        namespace = "store",
+        description = "In-process table that stores its rows in direct memory outside the java heap. Conditions " +
+                "matching all the '@PrimaryKey' attributes by equality are served through an off-heap hash index. " +
+                "All other conditions, including range conditions on the primary key, scan every row of the table. " +
+                "Secondary '@Index' attributes are not supported.",
+        parameters = @Parameter(name = "segment.size",
+                description = "Size in bytes of each direct memory segment holding the rows.",
+                type = {DataType.INT}, optional = true, defaultValue = "4194304"),
+        examples = @Example(
+                syntax = "@store(type='offheap')\n" +
+                        "@PrimaryKey('symbol')\n" +
+                        "define table StockTable (symbol string, price float, volume long);",
+                description = "The above defines a table 'StockTable' whose rows are stored off-heap and looked " +
+                        "up through the 'symbol' primary key."
+        )
+)
+public class OffHeapTable extends Table {
+
+    private static final Logger log = Logger.getLogger(OffHeapTable.class);
+    private static final String SEGMENT_SIZE = "segment.size";
+    private static final int DEFAULT_SEGMENT_SIZE = 4 * 1024 * 1024;
+
+    private final ReadWriteLock readWriteLock = new ReentrantReadWriteLock();
+    private StreamEventFactory storeEventFactory;
+    private OffHeapRowCodec rowCodec;
+    private int[] primaryKeyPositions;
+    private Attribute.Type[] primaryKeyTypes;
+    private StateHolder<TableState> stateHolder;
+
+    @Override
+    protected void init(TableDefinition tableDefinition, StreamEventFactory storeEventPool,
+                        StreamEventCloner storeEventCloner, ConfigReader configReader,
+                        SiddhiAppContext siddhiAppContext, RecordTableHandler recordTableHandler) {
+        this.storeEventFactory = storeEventPool;
+        this.rowCodec = new OffHeapRowCodec(tableDefinition.getAttributeList(), siddhiAppContext);
+
+        int segmentSize = getDefaultSegmentSize();
+        Annotation storeAnnotation = AnnotationHelper.getAnnotation(SiddhiConstants.ANNOTATION_STORE,
+                tableDefinition.getAnnotations());
+        String segmentSizeValue = storeAnnotation.getElement(SEGMENT_SIZE);
+        if (segmentSizeValue != null) {
+            try {
+                segmentSize = Integer.parseInt(segmentSizeValue.trim());
+            } catch (NumberFormatException e) {
+                throw new SiddhiAppCreationException("'" + SEGMENT_SIZE + "' of table '" + tableDefinition.getId() +
+                        "' should be an int, but found '" + segmentSizeValue + "'", e);
+            }
+        }
+
+        Annotation primaryKeyAnnotation = AnnotationHelper.getAnnotation(SiddhiConstants.ANNOTATION_PRIMARY_KEY,
+                tableDefinition.getAnnotations());
+        if (primaryKeyAnnotation != null) {
+            primaryKeyPositions = new int[primaryKeyAnnotation.getElements().size()];
+            int i = 0;
+            for (Element element : primaryKeyAnnotation.getElements()) {
+                primaryKeyPositions[i++] = tableDefinition.getAttributePosition(element.getValue().trim());
+            }
+            Arrays.sort(primaryKeyPositions);
+            primaryKeyTypes = new Attribute.Type[primaryKeyPositions.length];
+            for (i = 0; i < primaryKeyPositions.length; i++) {
+                primaryKeyTypes[i] = tableDefinition.getAttributeList().get(primaryKeyPositions[i]).getType();
+            }
+        }
+        if (AnnotationHelper.getAnnotation(SiddhiConstants.ANNOTATION_INDEX,
+                tableDefinition.getAnnotations()) != null) {
+            throw new SiddhiAppCreationException("'@" + SiddhiConstants.ANNOTATION_INDEX + "' is not supported " +
+                    "by the off-heap table '" + tableDefinition.getId() + "' of Siddhi App '" +
+                    siddhiAppContext.getName() + "', only its '@" + SiddhiConstants.ANNOTATION_PRIMARY_KEY +
+                    "' is indexed");
+        }
+
+        int rowSegmentSize = segmentSize;
+        stateHolder = siddhiAppContext.generateStateHolder(tableDefinition.getId(),
+                () -> new TableState(createRowStore(rowSegmentSize, storeAnnotation, siddhiAppContext)));
+        // opens the row store when the table is created, rather than on its first use
+        stateHolder.returnState(stateHolder.getState());
+    }
+
+    protected int getDefaultSegmentSize() {
+        return DEFAULT_SEGMENT_SIZE;
+    }
+
+    /**
+     * Creates the store holding the rows, subclasses can override this to keep the rows elsewhere.
+     */
+    protected OffHeapRowStore createRowStore(int segmentSize, Annotation storeAnnotation,
+                                             SiddhiAppContext siddhiAppContext) {
+        return new OffHeapRowStore(segmentSize);
+    }
+
+    /**
+     * @return whether the rows are part of the Siddhi App snapshots, which is not needed when the row store
+     * outlives the process by itself
+     */
+    protected boolean isSnapshotted() {
+        return true;
+    }
+
+    @Override
+    protected void add(ComplexEventChunk<StreamEvent> addingEventChunk) {
+        readWriteLock.writeLock().lock();
+        TableState state = stateHolder.getState();
+        try {
+            addingEventChunk.reset();
+            while (addingEventChunk.hasNext()) {
+                StreamEvent streamEvent = addingEventChunk.next();
+                state.add(streamEvent.getTimestamp(), streamEvent.getOutputData());
+            }
+        } finally {
+            state.rowStore.sync();
+            stateHolder.returnState(state);
+            readWriteLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    protected StreamEvent find(CompiledCondition compiledCondition, StateEvent matchingEvent) {
+        OffHeapCompiledCondition condition = (OffHeapCompiledCondition) compiledCondition;
+        ComplexEventChunk<StreamEvent> returnEventChunk = new ComplexEventChunk<>(false);
+        readWriteLock.readLock().lock();
+        TableState state = stateHolder.getState();
+        try {
+            state.scan(condition, matchingEvent, (rowId, storeEvent) -> {
+                StreamEvent foundEvent = storeEventFactory.newInstance();
+                foundEvent.setTimestamp(storeEvent.getTimestamp());
+                System.arraycopy(storeEvent.getOutputData(), 0, foundEvent.getOutputData(), 0,
+                        storeEvent.getOutputData().length);
+                returnEventChunk.add(foundEvent);
+                return true;
+            });
+        } finally {
+            stateHolder.returnState(state);
+            readWriteLock.readLock().unlock();
+        }
+        return returnEventChunk.getFirst();
+    }
+
+    @Override
+    protected boolean contains(StateEvent matchingEvent, CompiledCondition compiledCondition) {
+        boolean[] found = new boolean[1];
+        readWriteLock.readLock().lock();
+        TableState state = stateHolder.getState();
+        try {
+            state.scan((OffHeapCompiledCondition) compiledCondition, matchingEvent, (rowId, storeEvent) -> {
+                found[0] = true;
+                return false;
+            });
+        } finally {
+            stateHolder.returnState(state);
+            readWriteLock.readLock().unlock();
+        }
+        return found[0];
+    }
+
+    @Override
+    protected void delete(ComplexEventChunk<StateEvent> deletingEventChunk, CompiledCondition compiledCondition) {
+        OffHeapCompiledCondition condition = (OffHeapCompiledCondition) compiledCondition;
+        readWriteLock.writeLock().lock();
+        TableState state = stateHolder.getState();
+        try {
+            deletingEventChunk.reset();
+            while (deletingEventChunk.hasNext()) {
+                StateEvent deletingEvent = deletingEventChunk.next();
+                state.scan(condition, deletingEvent, (rowId, storeEvent) -> {
+                    state.remove(rowId, storeEvent.getOutputData());
+                    return true;
+                });
+            }
+        } finally {
+            state.rowStore.sync();
+            stateHolder.returnState(state);
+            readWriteLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    protected void update(ComplexEventChunk<StateEvent> updatingEventChunk, CompiledCondition compiledCondition,
+                          CompiledUpdateSet compiledUpdateSet) {
+        OffHeapCompiledCondition condition = (OffHeapCompiledCondition) compiledCondition;
+        Map<Integer, ExpressionExecutor> setExecutors =
+                ((InMemoryCompiledUpdateSet) compiledUpdateSet).getExpressionExecutorMap();
+        readWriteLock.writeLock().lock();
+        TableState state = stateHolder.getState();
+        try {
+            updatingEventChunk.reset();
+            while (updatingEventChunk.hasNext()) {
+                StateEvent updatingEvent = updatingEventChunk.next();
+                state.scan(condition, updatingEvent, (rowId, storeEvent) -> {
+                    state.update(rowId, storeEvent, updatingEvent, setExecutors);
+                    return true;
+                });
+            }
+        } finally {
+            state.rowStore.sync();
+            stateHolder.returnState(state);
+            readWriteLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    protected void updateOrAdd(ComplexEventChunk<StateEvent> updateOrAddingEventChunk,
+                               CompiledCondition compiledCondition, CompiledUpdateSet compiledUpdateSet,
+                               AddingStreamEventExtractor addingStreamEventExtractor) {
+        OffHeapCompiledCondition condition = (OffHeapCompiledCondition) compiledCondition;
+        Map<Integer, ExpressionExecutor> setExecutors =
+                ((InMemoryCompiledUpdateSet) compiledUpdateSet).getExpressionExecutorMap();
+        boolean[] updated = new boolean[1];
+        readWriteLock.writeLock().lock();
+        TableState state = stateHolder.getState();
+        try {
+            updateOrAddingEventChunk.reset();
+            while (updateOrAddingEventChunk.hasNext()) {
+                StateEvent updateOrAddingEvent = updateOrAddingEventChunk.next();
+                updated[0] = false;
+                state.scan(condition, updateOrAddingEvent, (rowId, storeEvent) -> {
+                    state.update(rowId, storeEvent, updateOrAddingEvent, setExecutors);
+                    updated[0] = true;
+                    return true;
+                });
+                if (!updated[0]) {
+                    StreamEvent addingEvent = addingStreamEventExtractor.getAddingStreamEvent(updateOrAddingEvent);
+                    state.add(addingEvent.getTimestamp(), addingEvent.getOutputData());
+                }
+            }
+        } finally {
+            state.rowStore.sync();
+            stateHolder.returnState(state);
+            readWriteLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public CompiledCondition compileCondition(Expression condition, MatchingMetaInfoHolder matchingMetaInfoHolder,
+                                              List<VariableExpressionExecutor> variableExpressionExecutors,
+                                              Map<String, Table> tableMap, SiddhiQueryContext siddhiQueryContext) {
+        ExpressionExecutor conditionExecutor = ExpressionParser.parseExpression(condition,
+                matchingMetaInfoHolder.getMetaStateEvent(), matchingMetaInfoHolder.getCurrentState(), tableMap,
+                variableExpressionExecutors, false, 0, ProcessingMode.BATCH, false, siddhiQueryContext);
+        ExpressionExecutor[] primaryKeyExecutors = null;
+        if (primaryKeyPositions != null) {
+            Map<String, Expression> equalities = TableConditionHelper.getTableEqualities(condition,
+                    matchingMetaInfoHolder, tableDefinition);
+            primaryKeyExecutors = new ExpressionExecutor[primaryKeyPositions.length];
+            for (int i = 0; i < primaryKeyPositions.length; i++) {
+                Expression value = equalities.get(tableDefinition.getAttributeList()
+                        .get(primaryKeyPositions[i]).getName());
+                if (value == null) {
+                    primaryKeyExecutors = null;
+                    break;
+                }
+                primaryKeyExecutors[i] = ExpressionParser.parseExpression(value,
+                        matchingMetaInfoHolder.getMetaStateEvent(), matchingMetaInfoHolder.getCurrentState(),
+                        tableMap, variableExpressionExecutors, false, 0, ProcessingMode.BATCH, false,
+                        siddhiQueryContext);
+            }
+        }
+        return new OffHeapCompiledCondition(conditionExecutor, matchingMetaInfoHolder.getStoreEventIndex(),
+                primaryKeyExecutors, primaryKeyTypes);
+    }
+
+    @Override
+    public CompiledUpdateSet compileUpdateSet(UpdateSet updateSet, MatchingMetaInfoHolder matchingMetaInfoHolder,
+                                              List<VariableExpressionExecutor> variableExpressionExecutors,
+                                              Map<String, Table> tableMap, SiddhiQueryContext siddhiQueryContext) {
+        Map<Integer, ExpressionExecutor> expressionExecutorMap = new HashMap<>();
+        for (UpdateSet.SetAttribute setAttribute : updateSet.getSetAttributeList()) {
+            ExpressionExecutor expressionExecutor = ExpressionParser.parseExpression(
+                    setAttribute.getAssignmentExpression(), matchingMetaInfoHolder.getMetaStateEvent(),
+                    matchingMetaInfoHolder.getCurrentState(), tableMap, variableExpressionExecutors,
+                    false, 0, ProcessingMode.BATCH, false,
+                    siddhiQueryContext);
+            int attributePosition = tableDefinition.
+                    getAttributePosition(setAttribute.getTableVariable().getAttributeName());
+            expressionExecutorMap.put(attributePosition, expressionExecutor);
+        }
+        return new InMemoryCompiledUpdateSet(expressionExecutorMap);
+    }
+
+    @Override
+    protected void connectAndLoadCache() throws ConnectionUnavailableException {
+
+    }
+
+    @Override
+    protected void disconnect() {
+
+    }
+
+    @Override
+    protected void destroy() {
+        readWriteLock.writeLock().lock();
+        TableState state = stateHolder.getState();
+        try {
+            state.close();
+        } finally {
+            stateHolder.returnState(state);
+            readWriteLock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        TableState state = stateHolder.getState();
+        try {
+            return state.rowStore.size();
+        } finally {
+            stateHolder.returnState(state);
+        }
+    }
+
+    /**
+     * Visits a row matching a condition.
+     */
+    private interface RowVisitor {
+
+        /**
+         * @return false to stop visiting the remaining rows
+         */
+        boolean visit(int rowId, StreamEvent storeEvent);
+    }
+
+    class TableState extends State {
+
+        private final OffHeapRowStore rowStore;
+        private final OffHeapHashIndex primaryKeyIndex;
+
+        TableState(OffHeapRowStore rowStore) {
+            this.rowStore = rowStore;
+            this.primaryKeyIndex = primaryKeyPositions != null ? new OffHeapHashIndex(this::readPrimaryKey) : null;
+            if (primaryKeyIndex != null) {
+                int rowIdLimit = rowStore.getRowIdLimit();
+                for (int rowId = 0; rowId < rowIdLimit; rowId++) {
+                    if (rowStore.contains(rowId)) {
+                        primaryKeyIndex.put(readPrimaryKey(rowId), rowId);
+                    }
+                }
+            }
+        }
+
+        private void add(long timestamp, Object[] data) {
+            Object primaryKey = null;
+            if (primaryKeyIndex != null) {
+                primaryKey = primaryKey(data);
+                if (primaryKey == null) {
+                    log.error("Table '" + tableDefinition.getId() + "' dropping event : " + Arrays.toString(data) +
+                            ", as its primary key is null");
+                    return;
+                }
+                if (primaryKeyIndex.get(primaryKey) >= 0) {
+                    log.error("Table '" + tableDefinition.getId() + "' dropping event : " + Arrays.toString(data) +
+                            ", as there is already an event stored with primary key '" + primaryKey + "'");
+                    return;
+                }
+            }
+            int rowId = rowStore.insert(rowCodec.encode(timestamp, data));
+            if (primaryKeyIndex != null) {
+                primaryKeyIndex.put(primaryKey, rowId);
+            }
+        }
+
+        private void remove(int rowId, Object[] data) {
+            if (primaryKeyIndex != null) {
+                primaryKeyIndex.remove(primaryKey(data));
+            }
+            rowStore.remove(rowId);
+        }
+
+        private void update(int rowId, StreamEvent storeEvent, StateEvent updatingEvent,
+                            Map<Integer, ExpressionExecutor> setExecutors) {
+            Object[] data = storeEvent.getOutputData();
+            Object oldPrimaryKey = primaryKeyIndex != null ? primaryKey(data) : null;
+            for (Map.Entry<Integer, ExpressionExecutor> entry : setExecutors.entrySet()) {
+                storeEvent.setOutputData(entry.getValue().execute(updatingEvent), entry.getKey());
+            }
+            if (primaryKeyIndex != null) {
+                Object newPrimaryKey = primaryKey(data);
+                if (!oldPrimaryKey.equals(newPrimaryKey)) {
+                    if (newPrimaryKey == null || primaryKeyIndex.get(newPrimaryKey) >= 0) {
+                        log.error("Table '" + tableDefinition.getId() + "' update failed for event : " +
+                                updatingEvent + ", as the primary key '" + newPrimaryKey + "' is null or " +
+                                "already used by another event");
+                        return;
+                    }
+                    primaryKeyIndex.remove(oldPrimaryKey);
+                    rowStore.replace(rowId, rowCodec.encode(storeEvent.getTimestamp(), data));
+                    primaryKeyIndex.put(newPrimaryKey, rowId);
+                    return;
+                }
+            }
+            rowStore.replace(rowId, rowCodec.encode(storeEvent.getTimestamp(), data));
+        }
+
+        /**
+         * Decodes the rows that can match the condition one by one into a single store event, and passes the ones
+         * matching the condition to the visitor. The store event is only valid during the visit.
+         * <p>
+         * Only primary key lookups use the index, any other condition, such as a range condition, is a full scan of
+         * the rows.
+         */
+        private void scan(OffHeapCompiledCondition condition, StateEvent matchingEvent, RowVisitor visitor) {
+            StreamEvent storeEvent = storeEventFactory.newInstance();
+            int storeEventPosition = condition.getStoreEventPosition();
+            try {
+                if (primaryKeyIndex != null && condition.isPrimaryKeyLookup()) {
+                    Object primaryKey = condition.getPrimaryKey(matchingEvent);
+                    int rowId = primaryKey != null ? primaryKeyIndex.get(primaryKey) : -1;
+                    if (rowId >= 0) {
+                        visit(rowId, storeEvent, storeEventPosition, condition, matchingEvent, visitor);
+                    }
+                    return;
+                }
+                int rowIdLimit = rowStore.getRowIdLimit();
+                for (int rowId = 0; rowId < rowIdLimit; rowId++) {
+                    if (rowStore.contains(rowId) &&
+                            !visit(rowId, storeEvent, storeEventPosition, condition, matchingEvent, visitor)) {
+                        return;
+                    }
+                }
+            } finally {
+                matchingEvent.setEvent(storeEventPosition, null);
+            }
+        }
+
+        private boolean visit(int rowId, StreamEvent storeEvent, int storeEventPosition,
+                              OffHeapCompiledCondition condition, StateEvent matchingEvent, RowVisitor visitor) {
+            ByteBuffer segment = rowStore.segment(rowId);
+            int offset = rowStore.offset(rowId);
+            storeEvent.setTimestamp(OffHeapRowCodec.readTimestamp(segment, offset));
+            rowCodec.decode(segment, offset, storeEvent.getOutputData());
+            matchingEvent.setEvent(storeEventPosition, storeEvent);
+            if ((Boolean) condition.getConditionExecutor().execute(matchingEvent)) {
+                return visitor.visit(rowId, storeEvent);
+            }
+            return true;
+        }
+
+        private Object readPrimaryKey(int rowId) {
+            Object[] values = new Object[primaryKeyPositions.length];
+            rowCodec.decode(rowStore.segment(rowId), rowStore.offset(rowId), primaryKeyPositions, values);
+            return values.length == 1 ? values[0] : new CompositePrimaryKey(values);
+        }
+
+        private Object primaryKey(Object[] data) {
+            if (primaryKeyPositions.length == 1) {
+                return data[primaryKeyPositions[0]];
+            }
+            Object[] values = new Object[primaryKeyPositions.length];
+            for (int i = 0; i < primaryKeyPositions.length; i++) {
+                values[i] = data[primaryKeyPositions[i]];
+                if (values[i] == null) {
+                    return null;
+                }
+            }
+            return new CompositePrimaryKey(values);
+        }
+
+        private void clear() {
+            rowStore.clear();
+            if (primaryKeyIndex != null) {
+                primaryKeyIndex.clear();
+            }
+        }
+
+        private void close() {
+            rowStore.close();
+            if (primaryKeyIndex != null) {
+                primaryKeyIndex.clear();
+            }
+        }
+
+        @Override
+        public boolean canDestroy() {
+            return false;
+        }
+
+        /**
+         * Copies the encoded rows into chunks of about the segment size, such that the snapshot is never held in one
+         * large array, and a row larger than the segment size takes a chunk of its own.
+         */
+        @Override
+        public Map<String, Object> snapshot() {
+            if (!isSnapshotted()) {
+                return new HashMap<>();
+            }
+            readWriteLock.readLock().lock();
+            try {
+                List<byte[]> chunks = new ArrayList<>();
+                ByteBuffer chunk = null;
+                int rowIdLimit = rowStore.getRowIdLimit();
+                for (int rowId = 0; rowId < rowIdLimit; rowId++) {
+                    if (rowStore.contains(rowId)) {
+                        ByteBuffer row = rowStore.segment(rowId).duplicate();
+                        int offset = rowStore.offset(rowId);
+                        int length = OffHeapRowCodec.readLength(row, offset);
+                        if (chunk == null || chunk.remaining() < length) {
+                            addChunk(chunks, chunk);
+                            chunk = ByteBuffer.allocate(Math.max(rowStore.segmentSize, length));
+                        }
+                        row.limit(offset + length).position(offset);
+                        chunk.put(row);
+                    }
+                }
+                addChunk(chunks, chunk);
+                Map<String, Object> state = new HashMap<>();
+                state.put("EncodedRowChunks", chunks);
+                return state;
+            } finally {
+                readWriteLock.readLock().unlock();
+            }
+        }
+
+        private void addChunk(List<byte[]> chunks, ByteBuffer chunk) {
+            if (chunk != null) {
+                chunks.add(chunk.position() == chunk.capacity() ? chunk.array() :
+                        Arrays.copyOf(chunk.array(), chunk.position()));
+            }
+        }
+
+        @Override
+        public void restore(Map<String, Object> state) {
+            if (!isSnapshotted()) {
+                return;
+            }
+            readWriteLock.writeLock().lock();
+            try {
+                clear();
+                List<byte[]> chunks = (List<byte[]>) state.get("EncodedRowChunks");
+                if (chunks == null) {
+                    return;
+                }
+                for (byte[] chunk : chunks) {
+                    ByteBuffer rows = ByteBuffer.wrap(chunk);
+                    int offset = 0;
+                    while (offset < chunk.length) {
+                        int length = OffHeapRowCodec.readLength(rows, offset);
+                        rows.limit(offset + length).position(offset);
+                        int rowId = rowStore.insert(rows.slice());
+                        if (primaryKeyIndex != null) {
+                            primaryKeyIndex.put(readPrimaryKey(rowId), rowId);
+                        }
+                        rows.clear();
+                        offset += length;
+                    }
+                }
+            } finally {
+                readWriteLock.writeLock().unlock();
+            }
+        }
+    }
+}
@@ -29,6 +29,7 @@ import io.siddhi.core.event.state.populater.StateEventPopulatorFactory;
 import io.siddhi.core.event.stream.MetaStreamEvent;
 import io.siddhi.core.event.stream.StreamEvent;
 import io.siddhi.core.event.stream.StreamEventCloner;
+import io.siddhi.core.event.stream.StreamEventIterator;
 import io.siddhi.core.exception.ConnectionUnavailableException;
 import io.siddhi.core.exception.SiddhiAppCreationException;
 import io.siddhi.core.executor.ConstantExpressionExecutor;
@@ -37,20 +38,21 @@ import io.siddhi.core.executor.VariableExpressionExecutor;
 import io.siddhi.core.query.processor.ProcessingMode;
 import io.siddhi.core.query.processor.stream.window.QueryableProcessor;
 import io.siddhi.core.query.selector.QuerySelector;
+import io.siddhi.core.table.CacheTable;
 import io.siddhi.core.table.CompiledUpdateSet;
-import io.siddhi.core.table.InMemoryTable;
 import io.siddhi.core.table.Table;
 import io.siddhi.core.util.SiddhiConstants;
 import io.siddhi.core.util.collection.AddingStreamEventExtractor;
 import io.siddhi.core.util.collection.operator.CompiledCondition;
-import io.siddhi.core.util.collection.operator.CompiledExpression;
 import io.siddhi.core.util.collection.operator.CompiledSelection;
 import io.siddhi.core.util.collection.operator.MatchingMetaInfoHolder;
 import io.siddhi.core.util.config.ConfigReader;
 import io.siddhi.core.util.parser.ExpressionParser;
 import io.siddhi.core.util.parser.SelectorParser;
 import io.siddhi.core.util.parser.helper.QueryParserHelper;
+import io.siddhi.core.util.parser.helper.TableConditionHelper;
 import io.siddhi.query.api.annotation.Annotation;
+import io.siddhi.query.api.annotation.Element;
 import io.siddhi.query.api.definition.Attribute;
 import io.siddhi.query.api.definition.TableDefinition;
 import io.siddhi.query.api.execution.query.StoreQuery;
@@ -66,22 +68,32 @@ import io.siddhi.query.api.expression.Variable;
 import org.apache.log4j.Logger;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import static io.siddhi.core.util.CacheUtils.findEventChunkSize;
 import static io.siddhi.core.util.SiddhiConstants.ANNOTATION_CACHE;
+import static io.siddhi.core.util.SiddhiConstants.ANNOTATION_PRIMARY_KEY;
 import static io.siddhi.core.util.SiddhiConstants.ANNOTATION_STORE;
 import static io.siddhi.core.util.SiddhiConstants.CACHE_QUERY_NAME;
+import static io.siddhi.core.util.SiddhiConstants.CACHE_TABLE_POLICY;
+import static io.siddhi.core.util.SiddhiConstants.CACHE_TABLE_PURGE_INTERVAL;
+import static io.siddhi.core.util.SiddhiConstants.CACHE_TABLE_RETENTION_PERIOD;
 import static io.siddhi.core.util.SiddhiConstants.CACHE_TABLE_SIZE;
+import static io.siddhi.core.util.SiddhiConstants.STORE_MISS_CACHE_RETENTION_PERIOD;
+import static io.siddhi.core.util.SiddhiConstants.STORE_MISS_CACHE_SIZE;
 import static io.siddhi.core.util.StoreQueryRuntimeUtil.executeSelector;
 import static io.siddhi.core.util.parser.StoreQueryParser.buildExpectedOutputAttributes;
 import static io.siddhi.core.util.parser.StoreQueryParser.generateMatchingMetaInfoHolderForCacheTable;
+import static io.siddhi.query.api.expression.Expression.Time.timeToLong;
 import static io.siddhi.query.api.util.AnnotationHelper.getAnnotation;
 
 /**
@@ -90,26 +102,58 @@ import static io.siddhi.query.api.util.AnnotationHelper.getAnnotation;
  */
 public abstract class AbstractQueryableRecordTable extends AbstractRecordTable implements QueryableProcessor {
     private static final Logger log = Logger.getLogger(AbstractQueryableRecordTable.class);
+    private static final long DEFAULT_MISS_RETENTION_PERIOD = 60000;
     private int maxCacheSize;
-    private InMemoryTable cachedTable;
-    private boolean isCacheEnabled = false;
+    private CacheTable cachedTable;
+    private volatile boolean isCacheEnabled = false;
     private CompiledCondition compiledConditionForCaching;
     private CompiledSelection compiledSelectionForCaching;
     private Attribute[] outputAttributesForCaching;
     private TableDefinition cacheTableDefinition;
     private SiddhiAppContext siddhiAppContext;
     private ReadWriteLock readWriteLock = new ReentrantReadWriteLock();
+    private RecordFindCoalescer findCoalescer;
 
     @Override
     public void initCache(TableDefinition tableDefinition, SiddhiAppContext siddhiAppContext,
                      StreamEventCloner storeEventCloner, ConfigReader configReader) {
         this.siddhiAppContext = siddhiAppContext;
+        Annotation storeAnnotation = getAnnotation(ANNOTATION_STORE, tableDefinition.getAnnotations());
+        int missCacheSize = 0;
+        long missRetentionPeriod = DEFAULT_MISS_RETENTION_PERIOD;
+        if (storeAnnotation != null) {
+            String size = storeAnnotation.getElement(STORE_MISS_CACHE_SIZE);
+            if (size != null) {
+                missCacheSize = Integer.parseInt(size.trim());
+            }
+            String retentionPeriod = storeAnnotation.getElement(STORE_MISS_CACHE_RETENTION_PERIOD);
+            if (retentionPeriod != null) {
+                missRetentionPeriod = timeToLong(retentionPeriod);
+            }
+        }
+        findCoalescer = new RecordFindCoalescer(missCacheSize, missRetentionPeriod,
+                siddhiAppContext.getTimestampGenerator());
         String[] annotationNames = {ANNOTATION_STORE, ANNOTATION_CACHE};
         Annotation cacheTableAnnotation = getAnnotation(annotationNames, tableDefinition.getAnnotations());
         if (cacheTableAnnotation != null) {
             isCacheEnabled = true;
             maxCacheSize = Integer.parseInt(cacheTableAnnotation.getElement(CACHE_TABLE_SIZE));
-            cachedTable = new InMemoryTable();
+            CacheTable.Policy cachePolicy = CacheTable.Policy.FIFO;
+            String policy = cacheTableAnnotation.getElement(CACHE_TABLE_POLICY);
+            if (policy != null) {
+                try {
+                    cachePolicy = CacheTable.Policy.valueOf(policy.trim().toUpperCase(Locale.ENGLISH));
+                } catch (IllegalArgumentException e) {
+                    throw new SiddhiAppCreationException("Cache policy of table '" + tableDefinition.getId() +
+                            "' should be one of " + Arrays.toString(CacheTable.Policy.values()) + ", but found '" +
+                            policy + "'", e);
+                }
+            }
+            String retentionPeriod = cacheTableAnnotation.getElement(CACHE_TABLE_RETENTION_PERIOD);
+            long cacheRetentionPeriod = retentionPeriod != null ? timeToLong(retentionPeriod) : 0;
+            String purgeInterval = cacheTableAnnotation.getElement(CACHE_TABLE_PURGE_INTERVAL);
+            long cachePurgeInterval = purgeInterval != null ? timeToLong(purgeInterval) : cacheRetentionPeriod;
+            cachedTable = new CacheTable(cachePolicy, maxCacheSize, cacheRetentionPeriod, cachePurgeInterval);
             cacheTableDefinition = TableDefinition.id(tableDefinition.getId());
             for (Attribute attribute: tableDefinition.getAttributeList()) {
                 cacheTableDefinition.attribute(attribute.getName(), attribute.getType());
@@ -148,25 +192,32 @@ public abstract class AbstractQueryableRecordTable extends AbstractRecordTable i
         }
     }
 
+    /**
+     * Connects to the store and preloads the cache. The cache is complete, and hence serves every condition, when
+     * the store fits in it. Otherwise it is warmed up with the preloaded rows and serves only the conditions matching
+     * all the primary key attributes, loading the rows missing in it from the store. Caches of tables without a
+     * primary key cannot evict rows, and are disabled when the store does not fit in them.
+     */
     @Override
     protected void connectAndLoadCache() throws ConnectionUnavailableException {
         connect();
         if (isCacheEnabled) {
             StateEvent stateEventForCaching = new StateEvent(1, 0);
-            StreamEvent preLoadedData = query(stateEventForCaching, compiledConditionForCaching,
+            StreamEvent preLoadedData = querySkippingCache(stateEventForCaching, compiledConditionForCaching,
                     compiledSelectionForCaching, outputAttributesForCaching);
-
-            if (preLoadedData != null) {
-                int preLoadedDataSize = findEventChunkSize(preLoadedData);
+            int preLoadedDataSize = preLoadedData != null ? findEventChunkSize(preLoadedData) : 0;
+            readWriteLock.writeLock().lock();
+            try {
                 if (preLoadedDataSize <= maxCacheSize) {
-                    ComplexEventChunk<StreamEvent> loadedCache = new ComplexEventChunk<>();
-                    loadedCache.add(preLoadedData);
-                    cachedTable.addEvents(loadedCache, preLoadedDataSize);
+                    cachedTable.reload(preLoadedData, true);
+                } else if (cachedTable.isEvictable()) {
+                    cachedTable.reload(preLoadedData, false);
                 } else {
-                    isCacheEnabled = false;
-                    log.warn(siddhiAppContext.getName() + ": " + cacheTableDefinition.getId() + " size is bigger " +
-                            "than cache table size defined as " + maxCacheSize + ". So cache is disabled");
+                    disableCache(cacheTableDefinition.getId() + " size is bigger than cache table size defined " +
+                            "as " + maxCacheSize);
                 }
+            } finally {
+                readWriteLock.writeLock().unlock();
             }
         }
     }
@@ -197,6 +248,21 @@ public abstract class AbstractQueryableRecordTable extends AbstractRecordTable i
                 storeVariableExpressionExecutors, tableMap, siddhiQueryContext);
     }
 
+    /**
+     * Disables the cache when its rows can no longer be kept consistent with the store.
+     */
+    private void disableCache(String reason) {
+        isCacheEnabled = false;
+        log.warn(siddhiAppContext.getName() + ": " + reason + ". So cache is now disabled");
+    }
+
+    private void checkCacheSize() {
+        if (!cachedTable.isEvictable() && cachedTable.size() > maxCacheSize) {
+            disableCache(cacheTableDefinition.getId() + " size is now " + cachedTable.size() + " which is " +
+                    "bigger than cache table size defined as " + maxCacheSize);
+        }
+    }
+
     protected abstract void connect() throws ConnectionUnavailableException;
 
     @Override
@@ -207,20 +273,6 @@ public abstract class AbstractQueryableRecordTable extends AbstractRecordTable i
 
     @Override
     public void add(ComplexEventChunk<StreamEvent> addingEventChunk) throws ConnectionUnavailableException {
-        if (isCacheEnabled) {
-            ComplexEventChunk<StreamEvent> addingEventChunkWithTimestamp = new ComplexEventChunk<>();
-            while (addingEventChunk.hasNext()) {
-                StreamEvent event = addingEventChunk.next();
-                Object[] outputData = event.getOutputData();
-                Object[] outputDataWithTimeStamp = new Object[outputData.length + 1];
-                System.arraycopy(outputData, 0 , outputDataWithTimeStamp, 0, outputData.length);
-                outputDataWithTimeStamp[outputDataWithTimeStamp.length - 1] =
-                        siddhiAppContext.getTimestampGenerator().currentTime();
-                StreamEvent eventWithTimeStamp = new StreamEvent(0, 0, outputDataWithTimeStamp.length);
-                eventWithTimeStamp.setOutputData(outputDataWithTimeStamp);
-                addingEventChunkWithTimestamp.add(eventWithTimeStamp);
-            }
-        }
         List<Object[]> records = new ArrayList<>();
         addingEventChunk.reset();
         long timestamp = 0L;
@@ -229,47 +281,41 @@ public abstract class AbstractQueryableRecordTable extends AbstractRecordTable i
             records.add(event.getOutputData());
             timestamp = event.getTimestamp();
         }
-        if (isCacheEnabled) {
-            readWriteLock.writeLock().lock();
-            try {
-                cachedTable.add(addingEventChunk);
-                if (recordTableHandler != null) {
-                    recordTableHandler.add(timestamp, records);
-                } else {
-                    add(records);
+        try {
+            if (isCacheEnabled) {
+                readWriteLock.writeLock().lock();
+                try {
+                    cachedTable.add(addingEventChunk);
+                    addRecords(timestamp, records);
+                    checkCacheSize();
+                } finally {
+                    readWriteLock.writeLock().unlock();
                 }
-            } finally {
-                readWriteLock.writeLock().unlock();
-            }
-            if (cachedTable.size() > maxCacheSize) {
-                isCacheEnabled = false;
-                log.warn(siddhiAppContext.getName() + ": " + cacheTableDefinition.getId() + " size is now " +
-                        cachedTable.size() + " which is bigger than cache table size defined as " + maxCacheSize +
-                        ". So cache is now disabled");
-            }
-        } else {
-            if (recordTableHandler != null) {
-                recordTableHandler.add(timestamp, records);
             } else {
-                add(records);
+                addRecords(timestamp, records);
             }
+        } finally {
+            findCoalescer.invalidate();
+        }
+    }
+
+    /**
+     * Forgets the remembered misses once buffered records are written, as the reads no longer overlay them.
+     */
+    @Override
+    void addToStore(long timestamp, List<Object[]> records) throws ConnectionUnavailableException {
+        try {
+            super.addToStore(timestamp, records);
+        } finally {
+            findCoalescer.invalidate();
         }
     }
 
     @Override
     public void delete(ComplexEventChunk<StateEvent> deletingEventChunk, CompiledCondition compiledCondition)
             throws ConnectionUnavailableException {
-        RecordStoreCompiledCondition recordStoreCompiledCondition;
-        CompiledConditionWithCache compiledConditionWithCache = null;
-        if (isCacheEnabled) {
-            RecordStoreCompiledCondition compiledConditionTemp = (RecordStoreCompiledCondition) compiledCondition;
-            compiledConditionWithCache = (CompiledConditionWithCache)
-                    compiledConditionTemp.compiledCondition;
-            recordStoreCompiledCondition = new RecordStoreCompiledCondition(compiledConditionTemp.
-                    variableExpressionExecutorMap, compiledConditionWithCache.getStoreCompileCondition());
-        } else {
-            recordStoreCompiledCondition = ((RecordStoreCompiledCondition) compiledCondition);
-        }
+        RecordStoreCompiledCondition recordStoreCompiledCondition =
+                getStoreCompiledCondition((RecordStoreCompiledCondition) compiledCondition);
         List<Map<String, Object>> deleteConditionParameterMaps = new ArrayList<>();
         deletingEventChunk.reset();
         long timestamp = 0L;
@@ -285,51 +331,31 @@ public abstract class AbstractQueryableRecordTable extends AbstractRecordTable i
             deleteConditionParameterMaps.add(variableMap);
             timestamp = stateEvent.getTimestamp();
         }
-        if (isCacheEnabled) {
-            assert compiledConditionWithCache != null;
-            readWriteLock.writeLock().lock();
-            try {
-                cachedTable.delete(deletingEventChunk,
-                        compiledConditionWithCache.getCacheCompileCondition());
-                if (recordTableHandler != null) {
-                    recordTableHandler.delete(timestamp, deleteConditionParameterMaps, recordStoreCompiledCondition.
-                            compiledCondition);
-                } else {
-                    delete(deleteConditionParameterMaps, recordStoreCompiledCondition.compiledCondition);
+        try {
+            if (isCacheEnabled) {
+                readWriteLock.writeLock().lock();
+                try {
+                    cachedTable.delete(deletingEventChunk,
+                            getCacheCompiledCondition(compiledCondition).getCacheCompileCondition());
+                    deleteRecords(timestamp, deleteConditionParameterMaps,
+                            recordStoreCompiledCondition.compiledCondition);
+                } finally {
+                    readWriteLock.writeLock().unlock();
                 }
-            } finally {
-                readWriteLock.writeLock().unlock();
-            }
-        } else {
-            if (recordTableHandler != null) {
-                recordTableHandler.delete(timestamp, deleteConditionParameterMaps, recordStoreCompiledCondition.
-                        compiledCondition);
             } else {
-                delete(deleteConditionParameterMaps, recordStoreCompiledCondition.compiledCondition);
+                deleteRecords(timestamp, deleteConditionParameterMaps, recordStoreCompiledCondition.compiledCondition);
             }
+        } finally {
+            findCoalescer.invalidate();
         }
     }
 
     @Override
     public void update(ComplexEventChunk<StateEvent> updatingEventChunk, CompiledCondition compiledCondition,
                        CompiledUpdateSet compiledUpdateSet) throws ConnectionUnavailableException {
-        RecordStoreCompiledCondition recordStoreCompiledCondition;
-        RecordTableCompiledUpdateSet recordTableCompiledUpdateSet;
-        CompiledConditionWithCache compiledConditionWithCache = null;
-        CompiledUpdateSetWithCache compiledUpdateSetWithCache = null;
-        if (isCacheEnabled) {
-            RecordStoreCompiledCondition compiledConditionTemp = (RecordStoreCompiledCondition) compiledCondition;
-            compiledConditionWithCache = (CompiledConditionWithCache)
-                    compiledConditionTemp.compiledCondition;
-            recordStoreCompiledCondition = new RecordStoreCompiledCondition(compiledConditionTemp.
-                    variableExpressionExecutorMap, compiledConditionWithCache.getStoreCompileCondition());
-            compiledUpdateSetWithCache = (CompiledUpdateSetWithCache) compiledUpdateSet;
-            recordTableCompiledUpdateSet = (RecordTableCompiledUpdateSet)
-                    compiledUpdateSetWithCache.storeCompiledUpdateSet;
-        } else {
-            recordStoreCompiledCondition = ((RecordStoreCompiledCondition) compiledCondition);
-            recordTableCompiledUpdateSet = (RecordTableCompiledUpdateSet) compiledUpdateSet;
-        }
+        RecordStoreCompiledCondition recordStoreCompiledCondition =
+                getStoreCompiledCondition((RecordStoreCompiledCondition) compiledCondition);
+        RecordTableCompiledUpdateSet recordTableCompiledUpdateSet = getStoreCompiledUpdateSet(compiledUpdateSet);
         List<Map<String, Object>> updateConditionParameterMaps = new ArrayList<>();
         List<Map<String, Object>> updateSetParameterMaps = new ArrayList<>();
         updatingEventChunk.reset();
@@ -352,102 +378,77 @@ public abstract class AbstractQueryableRecordTable extends AbstractRecordTable i
             updateSetParameterMaps.add(variableMapForUpdateSet);
             timestamp = stateEvent.getTimestamp();
         }
-        if (isCacheEnabled) {
-            assert compiledConditionWithCache != null & compiledUpdateSetWithCache != null;
-            readWriteLock.writeLock().lock();
-            try {
-            cachedTable.update(updatingEventChunk, compiledConditionWithCache.getCacheCompileCondition(),
-                    compiledUpdateSetWithCache.getCacheCompiledUpdateSet());
-            if (recordTableHandler != null) {
-                recordTableHandler.update(timestamp, recordStoreCompiledCondition.compiledCondition,
-                        updateConditionParameterMaps, recordTableCompiledUpdateSet.getUpdateSetMap(),
-                        updateSetParameterMaps);
-            } else {
-                update(recordStoreCompiledCondition.compiledCondition, updateConditionParameterMaps,
-                        recordTableCompiledUpdateSet.getUpdateSetMap(), updateSetParameterMaps);
-            }
-            } finally {
-                readWriteLock.writeLock().unlock();
-            }
-        } else {
-            if (recordTableHandler != null) {
-                recordTableHandler.update(timestamp, recordStoreCompiledCondition.compiledCondition,
-                        updateConditionParameterMaps, recordTableCompiledUpdateSet.getUpdateSetMap(),
-                        updateSetParameterMaps);
+        try {
+            if (isCacheEnabled) {
+                readWriteLock.writeLock().lock();
+                try {
+                    cachedTable.update(updatingEventChunk,
+                            getCacheCompiledCondition(compiledCondition).getCacheCompileCondition(),
+                            ((CompiledUpdateSetWithCache) compiledUpdateSet).getCacheCompiledUpdateSet());
+                    updateRecords(timestamp, recordStoreCompiledCondition, updateConditionParameterMaps,
+                            recordTableCompiledUpdateSet, updateSetParameterMaps);
+                } finally {
+                    readWriteLock.writeLock().unlock();
+                }
             } else {
-                update(recordStoreCompiledCondition.compiledCondition, updateConditionParameterMaps,
-                        recordTableCompiledUpdateSet.getUpdateSetMap(), updateSetParameterMaps);
+                updateRecords(timestamp, recordStoreCompiledCondition, updateConditionParameterMaps,
+                        recordTableCompiledUpdateSet, updateSetParameterMaps);
             }
+        } finally {
+            findCoalescer.invalidate();
         }
     }
 
     @Override
     public boolean contains(StateEvent matchingEvent, CompiledCondition compiledCondition)
             throws ConnectionUnavailableException {
-        RecordStoreCompiledCondition recordStoreCompiledCondition;
-        CompiledConditionWithCache compiledConditionWithCache = null;
-        if (isCacheEnabled) {
-            RecordStoreCompiledCondition compiledConditionTemp = (RecordStoreCompiledCondition) compiledCondition;
-            compiledConditionWithCache = (CompiledConditionWithCache)
-                    compiledConditionTemp.compiledCondition;
-            recordStoreCompiledCondition = new RecordStoreCompiledCondition(compiledConditionTemp.
-                    variableExpressionExecutorMap, compiledConditionWithCache.getStoreCompileCondition());
-        } else {
-            recordStoreCompiledCondition = ((RecordStoreCompiledCondition) compiledCondition);
-        }
+        RecordStoreCompiledCondition recordStoreCompiledCondition =
+                getStoreCompiledCondition((RecordStoreCompiledCondition) compiledCondition);
         Map<String, Object> containsConditionParameterMap = new HashMap<>();
         for (Map.Entry<String, ExpressionExecutor> entry :
                 recordStoreCompiledCondition.variableExpressionExecutorMap.entrySet()) {
             containsConditionParameterMap.put(entry.getKey(), entry.getValue().execute(matchingEvent));
         }
         if (isCacheEnabled) {
-            assert compiledConditionWithCache != null;
+            CompiledConditionWithCache compiledConditionWithCache = getCacheCompiledCondition(compiledCondition);
             readWriteLock.readLock().lock();
             try {
-                if (cachedTable.contains(matchingEvent, compiledConditionWithCache.getCacheCompileCondition())) {
-                    return true;
-                }
-                if (recordTableHandler != null) {
-                    return recordTableHandler.contains(matchingEvent.getTimestamp(), containsConditionParameterMap,
-                            recordStoreCompiledCondition.compiledCondition);
-                } else {
-                    return contains(containsConditionParameterMap, recordStoreCompiledCondition.compiledCondition);
+                if (isServedByCache(compiledConditionWithCache)) {
+                    if (cachedTable.contains(matchingEvent, compiledConditionWithCache.getCacheCompileCondition())) {
+                        cachedTable.recordHit();
+                        return true;
+                    }
+                    if (cachedTable.isComplete()) {
+                        cachedTable.recordHit();
+                        return false;
+                    }
+                    cachedTable.recordMiss();
                 }
+                return containsInStore(recordStoreCompiledCondition, matchingEvent, containsConditionParameterMap);
             } finally {
                 readWriteLock.readLock().unlock();
             }
         } else {
-            if (recordTableHandler != null) {
-                return recordTableHandler.contains(matchingEvent.getTimestamp(), containsConditionParameterMap,
-                        recordStoreCompiledCondition.compiledCondition);
-            } else {
-                return contains(containsConditionParameterMap, recordStoreCompiledCondition.compiledCondition);
-            }
+            return containsInStore(recordStoreCompiledCondition, matchingEvent, containsConditionParameterMap);
         }
     }
 
+    private boolean containsInStore(RecordStoreCompiledCondition recordStoreCompiledCondition,
+                                    StateEvent matchingEvent, Map<String, Object> containsConditionParameterMap)
+            throws ConnectionUnavailableException {
+        return readStore(recordStoreCompiledCondition, matchingEvent, bufferedRecords ->
+                !bufferedRecords.isEmpty() || containsInStore(matchingEvent.getTimestamp(),
+                        containsConditionParameterMap, recordStoreCompiledCondition.compiledCondition));
+    }
+
     @Override
     public void updateOrAdd(ComplexEventChunk<StateEvent> updateOrAddingEventChunk,
                             CompiledCondition compiledCondition, CompiledUpdateSet compiledUpdateSet,
                             AddingStreamEventExtractor addingStreamEventExtractor)
             throws ConnectionUnavailableException {
-        RecordStoreCompiledCondition recordStoreCompiledCondition;
-        RecordTableCompiledUpdateSet recordTableCompiledUpdateSet;
-        CompiledConditionWithCache compiledConditionWithCache = null;
-        CompiledUpdateSetWithCache compiledUpdateSetWithCache = null;
-        if (isCacheEnabled) {
-            RecordStoreCompiledCondition compiledConditionTemp = (RecordStoreCompiledCondition) compiledCondition;
-            compiledConditionWithCache = (CompiledConditionWithCache)
-                    compiledConditionTemp.compiledCondition;
-            recordStoreCompiledCondition = new RecordStoreCompiledCondition(compiledConditionTemp.
-                    variableExpressionExecutorMap, compiledConditionWithCache.getStoreCompileCondition());
-            compiledUpdateSetWithCache = (CompiledUpdateSetWithCache) compiledUpdateSet;
-            recordTableCompiledUpdateSet = (RecordTableCompiledUpdateSet)
-                    compiledUpdateSetWithCache.storeCompiledUpdateSet;
-        } else {
-            recordStoreCompiledCondition = ((RecordStoreCompiledCondition) compiledCondition);
-            recordTableCompiledUpdateSet = (RecordTableCompiledUpdateSet) compiledUpdateSet;
-        }
+        RecordStoreCompiledCondition recordStoreCompiledCondition =
+                getStoreCompiledCondition((RecordStoreCompiledCondition) compiledCondition);
+        RecordTableCompiledUpdateSet recordTableCompiledUpdateSet = getStoreCompiledUpdateSet(compiledUpdateSet);
         List<Map<String, Object>> updateConditionParameterMaps = new ArrayList<>();
         List<Map<String, Object>> updateSetParameterMaps = new ArrayList<>();
         List<Object[]> addingRecords = new ArrayList<>();
@@ -472,39 +473,36 @@ public abstract class AbstractQueryableRecordTable extends AbstractRecordTable i
             addingRecords.add(stateEvent.getStreamEvent(0).getOutputData());
             timestamp = stateEvent.getTimestamp();
         }
-        if (isCacheEnabled) {
-            assert compiledConditionWithCache != null & compiledUpdateSetWithCache != null;
-            readWriteLock.writeLock().lock();
-            try {
-                cachedTable.updateOrAdd(updateOrAddingEventChunk,
-                        compiledConditionWithCache.getCacheCompileCondition(),
-                        compiledUpdateSetWithCache.getCacheCompiledUpdateSet(), addingStreamEventExtractor);
-                if (recordTableHandler != null) {
-                    recordTableHandler.updateOrAdd(timestamp, recordStoreCompiledCondition.compiledCondition,
+        try {
+            if (isCacheEnabled) {
+                CompiledCondition cacheCompiledCondition =
+                        getCacheCompiledCondition(compiledCondition).getCacheCompileCondition();
+                CompiledUpdateSet cacheCompiledUpdateSet =
+                        ((CompiledUpdateSetWithCache) compiledUpdateSet).getCacheCompiledUpdateSet();
+                readWriteLock.writeLock().lock();
+                try {
+                    if (cachedTable.isComplete()) {
+                        cachedTable.updateOrAdd(updateOrAddingEventChunk, cacheCompiledCondition,
+                                cacheCompiledUpdateSet, addingStreamEventExtractor);
+                    } else {
+                        // rows missing in a partial cache may exist in the store, hence they are loaded on their
+                        // next lookup rather than added from the events
+                        cachedTable.update(updateOrAddingEventChunk, cacheCompiledCondition, cacheCompiledUpdateSet);
+                    }
+                    updateOrAddRecords(timestamp, recordStoreCompiledCondition.compiledCondition,
                             updateConditionParameterMaps, recordTableCompiledUpdateSet.getUpdateSetMap(),
                             updateSetParameterMaps, addingRecords);
-                } else {
-                    updateOrAdd(recordStoreCompiledCondition.compiledCondition, updateConditionParameterMaps,
-                            recordTableCompiledUpdateSet.getUpdateSetMap(), updateSetParameterMaps, addingRecords);
+                    checkCacheSize();
+                } finally {
+                    readWriteLock.writeLock().unlock();
                 }
-            } finally {
-                readWriteLock.writeLock().unlock();
-            }
-            if (cachedTable.size() > maxCacheSize) {
-                isCacheEnabled = false;
-                log.warn(siddhiAppContext.getName() + ": " + cacheTableDefinition.getId() + " size is now " +
-                        cachedTable.size() + " which is bigger than cache table size defined as " + maxCacheSize +
-                        ". So cache is now disabled");
-            }
-        } else {
-            if (recordTableHandler != null) {
-                recordTableHandler.updateOrAdd(timestamp, recordStoreCompiledCondition.compiledCondition,
+            } else {
+                updateOrAddRecords(timestamp, recordStoreCompiledCondition.compiledCondition,
                         updateConditionParameterMaps, recordTableCompiledUpdateSet.getUpdateSetMap(),
                         updateSetParameterMaps, addingRecords);
-            } else {
-                updateOrAdd(recordStoreCompiledCondition.compiledCondition, updateConditionParameterMaps,
-                        recordTableCompiledUpdateSet.getUpdateSetMap(), updateSetParameterMaps, addingRecords);
             }
+        } finally {
+            findCoalescer.invalidate();
         }
 
     }
@@ -514,18 +512,8 @@ public abstract class AbstractQueryableRecordTable extends AbstractRecordTable i
                                               MatchingMetaInfoHolder matchingMetaInfoHolder,
                                               List<VariableExpressionExecutor> variableExpressionExecutors,
                                               Map<String, Table> tableMap, SiddhiQueryContext siddhiQueryContext) {
-        RecordTableCompiledUpdateSet recordTableCompiledUpdateSet = new RecordTableCompiledUpdateSet();
-        Map<String, ExpressionExecutor> parentExecutorMap = new HashMap<>();
-        for (UpdateSet.SetAttribute setAttribute : updateSet.getSetAttributeList()) {
-            ExpressionBuilder expressionBuilder = new ExpressionBuilder(setAttribute.getAssignmentExpression(),
-                    matchingMetaInfoHolder, variableExpressionExecutors, tableMap, siddhiQueryContext);
-            CompiledExpression compiledExpression = compileSetAttribute(expressionBuilder);
-            recordTableCompiledUpdateSet.put(setAttribute.getTableVariable().getAttributeName(), compiledExpression);
-            Map<String, ExpressionExecutor> expressionExecutorMap =
-                    expressionBuilder.getVariableExpressionExecutorMap();
-            parentExecutorMap.putAll(expressionExecutorMap);
-        }
-        recordTableCompiledUpdateSet.setExpressionExecutorMap(parentExecutorMap);
+        CompiledUpdateSet recordTableCompiledUpdateSet = super.compileUpdateSet(updateSet, matchingMetaInfoHolder,
+                variableExpressionExecutors, tableMap, siddhiQueryContext);
         if (isCacheEnabled) {
             CompiledUpdateSet cacheCompileUpdateSet =  cachedTable.compileUpdateSet(updateSet, matchingMetaInfoHolder,
                     variableExpressionExecutors, tableMap, siddhiQueryContext);
@@ -564,104 +552,260 @@ public abstract class AbstractQueryableRecordTable extends AbstractRecordTable i
                 variableExpressionExecutors, tableMap, siddhiQueryContext);
         CompiledCondition compileCondition = compileCondition(expressionBuilder);
         Map<String, ExpressionExecutor> expressionExecutorMap = expressionBuilder.getVariableExpressionExecutorMap();
+        Set<String> tableAttributes = TableConditionHelper.getTableAttributes(condition, matchingMetaInfoHolder,
+                tableDefinition);
 
         if (isCacheEnabled) {
-            CompiledCondition compiledConditionWithCache = new CompiledConditionWithCache(compileCondition,
+            CompiledCondition compiledConditionWithCache = new CompiledConditionWithCache(
+                    compileBufferedRecordCondition(new RecordStoreCompiledCondition(expressionExecutorMap,
+                                    compileCondition, tableAttributes), condition, matchingMetaInfoHolder,
+                            variableExpressionExecutors, tableMap, siddhiQueryContext),
                     generateCacheCompileCondition(condition, matchingMetaInfoHolder, siddhiQueryContext,
-                            variableExpressionExecutors));
-            return new RecordStoreCompiledCondition(expressionExecutorMap, compiledConditionWithCache);
+                            variableExpressionExecutors),
+                    isPrimaryKeyCondition(condition, matchingMetaInfoHolder));
+            return new RecordStoreCompiledCondition(expressionExecutorMap, compiledConditionWithCache,
+                    tableAttributes);
         } else {
-            return new RecordStoreCompiledCondition(expressionExecutorMap, compileCondition);
+            return compileBufferedRecordCondition(new RecordStoreCompiledCondition(expressionExecutorMap,
+                    compileCondition, tableAttributes), condition, matchingMetaInfoHolder,
+                    variableExpressionExecutors, tableMap, siddhiQueryContext);
         }
     }
 
+    /**
+     * Checks whether the condition requires all the primary key attributes to be equal to given values, in which
+     * case a partial cache holding a matching row holds the only matching row.
+     */
+    private boolean isPrimaryKeyCondition(Expression condition, MatchingMetaInfoHolder matchingMetaInfoHolder) {
+        Annotation primaryKeyAnnotation = getAnnotation(ANNOTATION_PRIMARY_KEY, cacheTableDefinition.getAnnotations());
+        if (primaryKeyAnnotation == null) {
+            return false;
+        }
+        Map<String, Expression> equalities = TableConditionHelper.getTableEqualities(condition,
+                matchingMetaInfoHolder, cacheTableDefinition);
+        for (Element element : primaryKeyAnnotation.getElements()) {
+            if (!equalities.containsKey(element.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the cache of the table, exposing its hit, miss and eviction counts, or null if the table is not cached
+     */
+    public CacheTable getCachedTable() {
+        return isCacheEnabled ? cachedTable : null;
+    }
+
+    private boolean isServedByCache(CompiledConditionWithCache compiledConditionWithCache) {
+        return cachedTable.isComplete() || compiledConditionWithCache.isPrimaryKeyCondition();
+    }
+
+    private RecordStoreCompiledCondition getStoreCompiledCondition(
+            RecordStoreCompiledCondition recordStoreCompiledCondition) {
+        if (recordStoreCompiledCondition.compiledCondition instanceof CompiledConditionWithCache) {
+            return ((CompiledConditionWithCache) recordStoreCompiledCondition.compiledCondition)
+                    .getStoreCompileCondition();
+        }
+        return recordStoreCompiledCondition;
+    }
+
+    private CompiledConditionWithCache getCacheCompiledCondition(CompiledCondition compiledCondition) {
+        return (CompiledConditionWithCache) ((RecordStoreCompiledCondition) compiledCondition).compiledCondition;
+    }
+
+    private RecordTableCompiledUpdateSet getStoreCompiledUpdateSet(CompiledUpdateSet compiledUpdateSet) {
+        if (compiledUpdateSet instanceof CompiledUpdateSetWithCache) {
+            return (RecordTableCompiledUpdateSet)
+                    ((CompiledUpdateSetWithCache) compiledUpdateSet).getStoreCompiledUpdateSet();
+        }
+        return (RecordTableCompiledUpdateSet) compiledUpdateSet;
+    }
+
+    /**
+     * Finds the matching rows in the cache when it can serve the condition. A cache miss of a primary key condition
+     * loads the rows found in the store into the cache, holding the read lock so that no write to the store
+     * interleaves between the find and the load.
+     */
     @Override
     public StreamEvent find(CompiledCondition compiledCondition, StateEvent matchingEvent)
             throws ConnectionUnavailableException {
-        RecordStoreCompiledCondition recordStoreCompiledCondition;
-        CompiledConditionWithCache compiledConditionAggregation = null;
+        RecordStoreCompiledCondition recordStoreCompiledCondition =
+                getStoreCompiledCondition((RecordStoreCompiledCondition) compiledCondition);
         if (isCacheEnabled) {
-            RecordStoreCompiledCondition compiledConditionTemp = (RecordStoreCompiledCondition) compiledCondition;
-            compiledConditionAggregation = (CompiledConditionWithCache)
-                    compiledConditionTemp.compiledCondition;
-            recordStoreCompiledCondition = new RecordStoreCompiledCondition(compiledConditionTemp.
-                    variableExpressionExecutorMap, compiledConditionAggregation.getStoreCompileCondition());
-        } else {
-            recordStoreCompiledCondition =
-                    ((RecordStoreCompiledCondition) compiledCondition);
+            CompiledConditionWithCache compiledConditionWithCache = getCacheCompiledCondition(compiledCondition);
+            readWriteLock.readLock().lock();
+            try {
+                if (isServedByCache(compiledConditionWithCache)) {
+                    StreamEvent cacheResults = cachedTable.find(compiledConditionWithCache.getCacheCompileCondition(),
+                            matchingEvent);
+                    if (cacheResults != null || cachedTable.isComplete()) {
+                        cachedTable.recordHit();
+                        return cacheResults;
+                    }
+                    cachedTable.recordMiss();
+                    if (compiledConditionWithCache.isPrimaryKeyCondition()) {
+                        StreamEvent storeResults = findInStore(recordStoreCompiledCondition, matchingEvent);
+                        cachedTable.load(storeResults);
+                        return storeResults;
+                    }
+                }
+                return findInStore(recordStoreCompiledCondition, matchingEvent);
+            } finally {
+                readWriteLock.readLock().unlock();
+            }
         }
+        return findInStore(recordStoreCompiledCondition, matchingEvent);
+    }
 
+    /**
+     * Finds through {@link #find(CompiledCondition, StateEvent)}, as the finds are served by the cache or coalesced
+     * with identical finds, which both need the whole result.
+     */
+    @Override
+    protected Iterator<StreamEvent> findEvents(CompiledCondition compiledCondition, StateEvent matchingEvent)
+            throws ConnectionUnavailableException {
+        return new StreamEventIterator(find(compiledCondition, matchingEvent));
+    }
+
+    private StreamEvent findInStore(RecordStoreCompiledCondition recordStoreCompiledCondition,
+                                    StateEvent matchingEvent) throws ConnectionUnavailableException {
         Map<String, Object> findConditionParameterMap = new HashMap<>();
         for (Map.Entry<String, ExpressionExecutor> entry : recordStoreCompiledCondition.variableExpressionExecutorMap
                 .entrySet()) {
             findConditionParameterMap.put(entry.getKey(), entry.getValue().execute(matchingEvent));
         }
 
-        Iterator<Object[]> records;
-        if (isCacheEnabled) {
-            assert compiledConditionAggregation != null;
+        List<Object[]> records = readStore(recordStoreCompiledCondition, matchingEvent, bufferedRecords -> {
+            List<Object[]> storeRecords = findCoalescer.find(recordStoreCompiledCondition,
+                    findConditionParameterMap, () -> findInStore(matchingEvent.getTimestamp(),
+                            findConditionParameterMap, recordStoreCompiledCondition.compiledCondition));
+            if (bufferedRecords.isEmpty()) {
+                return storeRecords;
+            }
+            // the records found on the store are shared with the coalesced finds
+            List<Object[]> foundRecords = new ArrayList<>(storeRecords);
+            foundRecords.addAll(bufferedRecords);
+            return foundRecords;
+        });
+        ComplexEventChunk<StreamEvent> streamEventComplexEventChunk = new ComplexEventChunk<>(true);
+        for (Object[] record : records) {
+            StreamEvent streamEvent = storeEventPool.newInstance();
+            System.arraycopy(record, 0, streamEvent.getOutputData(), 0, record.length);
+            streamEventComplexEventChunk.add(streamEvent);
+        }
+        return streamEventComplexEventChunk.getFirst();
+
+    }
+
+    /**
+     * Queries the cache when it can serve the condition, applying the selection in memory, else queries the store.
+     */
+    @Override
+    public StreamEvent query(StateEvent matchingEvent, CompiledCondition compiledCondition,
+                             CompiledSelection compiledSelection, Attribute[] outputAttributes)
+            throws ConnectionUnavailableException {
+        if (isCacheEnabled && compiledSelection instanceof CompiledSelectionWithCache) {
+            CompiledConditionWithCache compiledConditionWithCache = getCacheCompiledCondition(compiledCondition);
+            CompiledSelectionWithCache compiledSelectionWithCache = (CompiledSelectionWithCache) compiledSelection;
             readWriteLock.readLock().lock();
             try {
-                StreamEvent cacheResults = cachedTable.find(compiledConditionAggregation.getCacheCompileCondition(),
-                        matchingEvent);
-                if (cacheResults != null) {
-                    return cacheResults;
-                }
-                if (recordTableHandler != null) {
-                    records = recordTableHandler.find(matchingEvent.getTimestamp(), findConditionParameterMap,
-                            recordStoreCompiledCondition.compiledCondition);
-                } else {
-                    records = find(findConditionParameterMap, recordStoreCompiledCondition.compiledCondition);
+                if (isServedByCache(compiledConditionWithCache)) {
+                    StreamEvent cacheResults = cachedTable.find(compiledConditionWithCache.getCacheCompileCondition(),
+                            matchingEvent);
+                    if (cacheResults != null || cachedTable.isComplete()) {
+                        cachedTable.recordHit();
+                        return select(cacheResults, compiledSelectionWithCache, outputAttributes);
+                    }
+                    cachedTable.recordMiss();
+                    if (compiledConditionWithCache.isPrimaryKeyCondition()) {
+                        StreamEvent storeResults = findInStore(
+                                compiledConditionWithCache.getStoreCompileCondition(), matchingEvent);
+                        cachedTable.load(storeResults);
+                        return select(storeResults, compiledSelectionWithCache, outputAttributes);
+                    }
                 }
+                return querySkippingCache(matchingEvent, compiledCondition, compiledSelection, outputAttributes);
             } finally {
                 readWriteLock.readLock().unlock();
             }
-        } else {
-            if (recordTableHandler != null) {
-                records = recordTableHandler.find(matchingEvent.getTimestamp(), findConditionParameterMap,
-                        recordStoreCompiledCondition.compiledCondition);
-            } else {
-                records = find(findConditionParameterMap, recordStoreCompiledCondition.compiledCondition);
-            }
+        }
+        return querySkippingCache(matchingEvent, compiledCondition, compiledSelection, outputAttributes);
+    }
+
+    private StreamEvent select(StreamEvent streamEvents, CompiledSelectionWithCache compiledSelectionWithCache,
+                               Attribute[] outputAttributes) {
+        if (streamEvents == null) {
+            return null;
         }
         ComplexEventChunk<StreamEvent> streamEventComplexEventChunk = new ComplexEventChunk<>(true);
-        if (records != null) {
-            while (records.hasNext()) {
-                Object[] record = records.next();
+        StateEventFactory stateEventFactory = new StateEventFactory(compiledSelectionWithCache.
+                metaStreamInfoHolder.getMetaStateEvent());
+        Event[] resultsAfterSelection = executeSelector(streamEvents,
+                compiledSelectionWithCache.querySelector,
+                stateEventFactory, MetaStreamEvent.EventType.TABLE);
+        if (resultsAfterSelection != null) {
+            for (Event event : resultsAfterSelection) {
+                Object[] record = event.getData();
                 StreamEvent streamEvent = storeEventPool.newInstance();
+                streamEvent.setOutputData(new Object[outputAttributes.length]);
                 System.arraycopy(record, 0, streamEvent.getOutputData(), 0, record.length);
                 streamEventComplexEventChunk.add(streamEvent);
             }
         }
         return streamEventComplexEventChunk.getFirst();
+    }
 
+    private StreamEvent querySkippingCache(StateEvent matchingEvent, CompiledCondition compiledCondition,
+                                           CompiledSelection compiledSelection, Attribute[] outputAttributes)
+            throws ConnectionUnavailableException {
+        Iterator<Object[]> records = queryStore(matchingEvent, compiledCondition, compiledSelection,
+                outputAttributes);
+        ComplexEventChunk<StreamEvent> streamEventComplexEventChunk = new ComplexEventChunk<>(true);
+        if (records != null) {
+            while (records.hasNext()) {
+                streamEventComplexEventChunk.add(newQueryResultEvent(records.next(), outputAttributes));
+            }
+        }
+        return streamEventComplexEventChunk.getFirst();
     }
 
-    @Override
-    public StreamEvent query(StateEvent matchingEvent, CompiledCondition compiledCondition,
-                             CompiledSelection compiledSelection, Attribute[] outputAttributes)
+    /**
+     * Queries as {@link #query(StateEvent, CompiledCondition, CompiledSelection, Attribute[])} does, but reads the
+     * records from the store only as they are consumed, such that large results are not held in memory at once.
+     * Results the cache can serve are already in memory, and are read from it.
+     *
+     * @param matchingEvent     the event to be matched with the records
+     * @param compiledCondition the compiledCondition against which records should be matched
+     * @param compiledSelection the compiledSelection that maps records based to requested format
+     * @param outputAttributes  the output attributes specified in the query
+     * @return iterator of the events of the selected records, to be closed if it is not read to the end
+     * @throws ConnectionUnavailableException
+     */
+    public Iterator<StreamEvent> queryEvents(StateEvent matchingEvent, CompiledCondition compiledCondition,
+                                             CompiledSelection compiledSelection, Attribute[] outputAttributes)
             throws ConnectionUnavailableException {
+        if (isCacheEnabled && compiledSelection instanceof CompiledSelectionWithCache &&
+                isServedByCache(getCacheCompiledCondition(compiledCondition))) {
+            return new StreamEventIterator(query(matchingEvent, compiledCondition, compiledSelection,
+                    outputAttributes));
+        }
+        return new RecordStreamEventIterator(queryStore(matchingEvent, compiledCondition, compiledSelection,
+                outputAttributes), record -> newQueryResultEvent(record, outputAttributes));
+    }
 
-        ComplexEventChunk<StreamEvent> streamEventComplexEventChunk = new ComplexEventChunk<>(true);
-        RecordStoreCompiledCondition recordStoreCompiledCondition;
+    private Iterator<Object[]> queryStore(StateEvent matchingEvent, CompiledCondition compiledCondition,
+                                          CompiledSelection compiledSelection, Attribute[] outputAttributes)
+            throws ConnectionUnavailableException {
+        RecordStoreCompiledCondition recordStoreCompiledCondition =
+                getStoreCompiledCondition((RecordStoreCompiledCondition) compiledCondition);
         RecordStoreCompiledSelection recordStoreCompiledSelection;
-        CompiledConditionWithCache compiledConditionWithCache = null;
-        CompiledSelectionWithCache compiledSelectionWithCache = null;
-        StreamEvent cacheResults = null;
-
-        if (isCacheEnabled) {
-            RecordStoreCompiledCondition compiledConditionTemp = (RecordStoreCompiledCondition) compiledCondition;
-            compiledConditionWithCache = (CompiledConditionWithCache)
-                    compiledConditionTemp.compiledCondition;
-            recordStoreCompiledCondition = new RecordStoreCompiledCondition(
-                    compiledConditionTemp.variableExpressionExecutorMap,
-                    compiledConditionWithCache.getStoreCompileCondition());
-
-            compiledSelectionWithCache = (CompiledSelectionWithCache) compiledSelection;
-            recordStoreCompiledSelection = compiledSelectionWithCache.recordStoreCompiledSelection;
+        if (compiledSelection instanceof CompiledSelectionWithCache) {
+            recordStoreCompiledSelection = ((CompiledSelectionWithCache) compiledSelection)
+                    .recordStoreCompiledSelection;
         } else {
             recordStoreCompiledSelection = ((RecordStoreCompiledSelection) compiledSelection);
-            recordStoreCompiledCondition = ((RecordStoreCompiledCondition) compiledCondition);
         }
 
         Map<String, Object> parameterMap = new HashMap<>();
@@ -674,61 +818,30 @@ public abstract class AbstractQueryableRecordTable extends AbstractRecordTable i
             parameterMap.put(entry.getKey(), entry.getValue().execute(matchingEvent));
         }
 
-        Iterator<Object[]> records;
-        if (isCacheEnabled) {
-            assert compiledConditionWithCache != null;
-            readWriteLock.readLock().lock();
-            try {
-                cacheResults = cachedTable.find(compiledConditionWithCache.getCacheCompileCondition(),
-                        matchingEvent);
-                if (recordTableHandler != null) {
-                    records = recordTableHandler.query(matchingEvent.getTimestamp(), parameterMap,
-                            recordStoreCompiledCondition.compiledCondition,
-                            recordStoreCompiledSelection.compiledSelection, outputAttributes);
-                } else {
-                    records = query(parameterMap, recordStoreCompiledCondition.compiledCondition,
-                            recordStoreCompiledSelection.compiledSelection, outputAttributes);
-                }
-            } finally {
-                readWriteLock.readLock().unlock();
-            }
+        flushPendingWrites();
+        if (recordTableHandler != null) {
+            return recordTableHandler.query(matchingEvent.getTimestamp(), parameterMap,
+                    recordStoreCompiledCondition.compiledCondition,
+                    recordStoreCompiledSelection.compiledSelection, outputAttributes);
         } else {
-            if (recordTableHandler != null) {
-                records = recordTableHandler.query(matchingEvent.getTimestamp(), parameterMap,
-                        recordStoreCompiledCondition.compiledCondition,
-                        recordStoreCompiledSelection.compiledSelection, outputAttributes);
-            } else {
-                records = query(parameterMap, recordStoreCompiledCondition.compiledCondition,
-                        recordStoreCompiledSelection.compiledSelection, outputAttributes);
-            }
+            return query(parameterMap, recordStoreCompiledCondition.compiledCondition,
+                    recordStoreCompiledSelection.compiledSelection, outputAttributes);
         }
-        if (cacheResults != null) {
-            StateEventFactory stateEventFactory = new StateEventFactory(compiledSelectionWithCache.
-                    metaStreamInfoHolder.getMetaStateEvent());
-            Event[] cacheResultsAfterSelection = executeSelector(cacheResults,
-                    compiledSelectionWithCache.querySelector,
-                    stateEventFactory, MetaStreamEvent.EventType.TABLE);
-            assert cacheResultsAfterSelection != null;
-            for (Event event : cacheResultsAfterSelection) {
+    }
 
-                Object[] record = event.getData();
-                StreamEvent streamEvent = storeEventPool.newInstance();
-                streamEvent.setOutputData(new Object[outputAttributes.length]);
-                System.arraycopy(record, 0, streamEvent.getOutputData(), 0, record.length);
-                streamEventComplexEventChunk.add(streamEvent);
-            }
-            return streamEventComplexEventChunk.getFirst();
-        }
-        if (records != null) {
-            while (records.hasNext()) {
-                Object[] record = records.next();
-                StreamEvent streamEvent = storeEventPool.newInstance();
-                streamEvent.setOutputData(new Object[outputAttributes.length]);
-                System.arraycopy(record, 0, streamEvent.getOutputData(), 0, record.length);
-                streamEventComplexEventChunk.add(streamEvent);
-            }
+    private StreamEvent newQueryResultEvent(Object[] record, Attribute[] outputAttributes) {
+        StreamEvent streamEvent = storeEventPool.newInstance();
+        streamEvent.setOutputData(new Object[outputAttributes.length]);
+        System.arraycopy(record, 0, streamEvent.getOutputData(), 0, record.length);
+        return streamEvent;
+    }
+
+    @Override
+    public void shutdown() {
+        super.shutdown();
+        if (cachedTable != null) {
+            cachedTable.shutdown();
         }
-        return streamEventComplexEventChunk.getFirst();
     }
 
 
@@ -898,21 +1011,27 @@ public abstract class AbstractQueryableRecordTable extends AbstractRecordTable i
      */
     private class CompiledConditionWithCache implements CompiledCondition {
         CompiledCondition cacheCompileCondition;
-        CompiledCondition storeCompileCondition;
+        RecordStoreCompiledCondition storeCompileCondition;
+        boolean primaryKeyCondition;
 
-        public CompiledConditionWithCache(CompiledCondition storeCompileCondition,
-                                          CompiledCondition cacheCompileCondition) {
+        public CompiledConditionWithCache(RecordStoreCompiledCondition storeCompileCondition,
+                                          CompiledCondition cacheCompileCondition, boolean primaryKeyCondition) {
             this.storeCompileCondition = storeCompileCondition;
             this.cacheCompileCondition = cacheCompileCondition;
+            this.primaryKeyCondition = primaryKeyCondition;
         }
 
-        public CompiledCondition getStoreCompileCondition() {
+        public RecordStoreCompiledCondition getStoreCompileCondition() {
             return storeCompileCondition;
         }
 
         public CompiledCondition getCacheCompileCondition() {
             return cacheCompileCondition;
         }
+
+        public boolean isPrimaryKeyCondition() {
+            return primaryKeyCondition;
+        }
     }
 
     /**
@@ -18,6 +18,7 @@
 
 package io.siddhi.core.table.record;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import io.siddhi.core.config.SiddhiAppContext;
 import io.siddhi.core.config.SiddhiQueryContext;
 import io.siddhi.core.event.ComplexEventChunk;
@@ -26,8 +27,10 @@ import io.siddhi.core.event.stream.StreamEvent;
 import io.siddhi.core.event.stream.StreamEventCloner;
 import io.siddhi.core.event.stream.StreamEventFactory;
 import io.siddhi.core.exception.ConnectionUnavailableException;
+import io.siddhi.core.exception.SiddhiAppCreationException;
 import io.siddhi.core.executor.ExpressionExecutor;
 import io.siddhi.core.executor.VariableExpressionExecutor;
+import io.siddhi.core.query.processor.ProcessingMode;
 import io.siddhi.core.table.CompiledUpdateSet;
 import io.siddhi.core.table.Table;
 import io.siddhi.core.util.collection.AddingStreamEventExtractor;
@@ -35,16 +38,32 @@ import io.siddhi.core.util.collection.operator.CompiledCondition;
 import io.siddhi.core.util.collection.operator.CompiledExpression;
 import io.siddhi.core.util.collection.operator.MatchingMetaInfoHolder;
 import io.siddhi.core.util.config.ConfigReader;
+import io.siddhi.core.util.parser.ExpressionParser;
+import io.siddhi.core.util.parser.helper.TableConditionHelper;
+import io.siddhi.query.api.annotation.Annotation;
 import io.siddhi.query.api.definition.TableDefinition;
 import io.siddhi.query.api.execution.query.output.stream.UpdateSet;
 import io.siddhi.query.api.expression.Expression;
+import io.siddhi.query.api.util.AnnotationHelper;
 import org.apache.log4j.Logger;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static io.siddhi.core.util.SiddhiConstants.ANNOTATION_STORE;
+import static io.siddhi.core.util.SiddhiConstants.STORE_WRITE_BATCH_SIZE;
+import static io.siddhi.core.util.SiddhiConstants.STORE_WRITE_BUFFER_SIZE;
+import static io.siddhi.core.util.SiddhiConstants.STORE_WRITE_FLUSH_INTERVAL;
+import static io.siddhi.core.util.SiddhiConstants.STORE_WRITE_MODE;
+import static io.siddhi.query.api.expression.Expression.Time.timeToLong;
 
 /**
  * An abstract implementation of table. Abstract implementation will handle {@link ComplexEventChunk} so that
@@ -53,9 +72,14 @@ import java.util.Map;
 public abstract class AbstractRecordTable extends Table {
 
     private static final Logger log = Logger.getLogger(AbstractRecordTable.class);
+    private static final String WRITE_MODE_SYNC = "sync";
+    private static final String WRITE_MODE_ASYNC = "async";
+    private static final int DEFAULT_WRITE_BATCH_SIZE = 1000;
+    private static final long DEFAULT_WRITE_FLUSH_INTERVAL = 1000;
 
     protected StreamEventFactory storeEventPool;
     protected RecordTableHandler recordTableHandler;
+    private RecordTableWriteBehindBuffer writeBehindBuffer;
 
     @Override
     public void init(TableDefinition tableDefinition, StreamEventFactory storeEventPool,
@@ -68,9 +92,44 @@ public abstract class AbstractRecordTable extends Table {
         this.recordTableHandler = recordTableHandler;
         this.storeEventPool = storeEventPool;
         init(tableDefinition, configReader);
+        initWriteBehind(tableDefinition, siddhiAppContext);
         initCache(tableDefinition, siddhiAppContext, storeEventCloner, configReader);
     }
 
+    private void initWriteBehind(TableDefinition tableDefinition, SiddhiAppContext siddhiAppContext) {
+        Annotation storeAnnotation = AnnotationHelper.getAnnotation(ANNOTATION_STORE,
+                tableDefinition.getAnnotations());
+        if (storeAnnotation == null) {
+            return;
+        }
+        String writeMode = storeAnnotation.getElement(STORE_WRITE_MODE);
+        if (writeMode == null || writeMode.trim().equalsIgnoreCase(WRITE_MODE_SYNC)) {
+            return;
+        }
+        if (!writeMode.trim().equalsIgnoreCase(WRITE_MODE_ASYNC)) {
+            throw new SiddhiAppCreationException("'" + STORE_WRITE_MODE + "' of table '" + tableDefinition.getId() +
+                    "' should be either '" + WRITE_MODE_SYNC + "' or '" + WRITE_MODE_ASYNC + "', but found '" +
+                    writeMode + "'");
+        }
+        String batchSize = storeAnnotation.getElement(STORE_WRITE_BATCH_SIZE);
+        int writeBatchSize = batchSize != null ? Integer.parseInt(batchSize.trim()) : DEFAULT_WRITE_BATCH_SIZE;
+        String bufferSize = storeAnnotation.getElement(STORE_WRITE_BUFFER_SIZE);
+        int writeBufferSize = bufferSize != null ? Integer.parseInt(bufferSize.trim()) : 10 * writeBatchSize;
+        String flushInterval = storeAnnotation.getElement(STORE_WRITE_FLUSH_INTERVAL);
+        long writeFlushInterval = flushInterval != null ? timeToLong(flushInterval) : DEFAULT_WRITE_FLUSH_INTERVAL;
+        if (writeBatchSize <= 0 || writeBufferSize < writeBatchSize || writeFlushInterval <= 0) {
+            throw new SiddhiAppCreationException("Write behind of table '" + tableDefinition.getId() + "' needs " +
+                    "a positive '" + STORE_WRITE_BATCH_SIZE + "' and '" + STORE_WRITE_FLUSH_INTERVAL + "', and a '" +
+                    STORE_WRITE_BUFFER_SIZE + "' not smaller than the '" + STORE_WRITE_BATCH_SIZE + "'");
+        }
+        // flushes block on the store, hence they run on a thread of their own rather than delaying the app's timers
+        ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("Siddhi-" + siddhiAppContext.getName() + "-" +
+                        tableDefinition.getId() + "-write-behind-thread-%d").build());
+        writeBehindBuffer = new RecordTableWriteBehindBuffer(this, flusher, writeBatchSize, writeBufferSize,
+                writeFlushInterval);
+    }
+
     protected abstract void initCache(TableDefinition tableDefinition, SiddhiAppContext siddhiAppContext,
                                  StreamEventCloner storeEventCloner, ConfigReader configReader);
 
@@ -97,6 +156,21 @@ public abstract class AbstractRecordTable extends Table {
             records.add(event.getOutputData());
             timestamp = event.getTimestamp();
         }
+        addRecords(timestamp, records);
+    }
+
+    /**
+     * Adds the records to the store, or buffers them when writing behind.
+     */
+    void addRecords(long timestamp, List<Object[]> records) throws ConnectionUnavailableException {
+        if (writeBehindBuffer != null) {
+            writeBehindBuffer.add(timestamp, records);
+        } else {
+            addToStore(timestamp, records);
+        }
+    }
+
+    void addToStore(long timestamp, List<Object[]> records) throws ConnectionUnavailableException {
         if (recordTableHandler != null) {
             recordTableHandler.add(timestamp, records);
         } else {
@@ -116,6 +190,26 @@ public abstract class AbstractRecordTable extends Table {
     @Override
     public StreamEvent find(CompiledCondition compiledCondition, StateEvent matchingEvent)
             throws ConnectionUnavailableException {
+        Iterator<StreamEvent> streamEvents = findEvents(compiledCondition, matchingEvent);
+        ComplexEventChunk<StreamEvent> streamEventComplexEventChunk = new ComplexEventChunk<>(true);
+        while (streamEvents.hasNext()) {
+            streamEventComplexEventChunk.add(streamEvents.next());
+        }
+        return streamEventComplexEventChunk.getFirst();
+    }
+
+    /**
+     * Finds the records matching the compiled condition as {@link #find(CompiledCondition, StateEvent)} does, but
+     * converts them to events only as they are consumed, such that large results are not held in memory at once.
+     *
+     * @param compiledCondition the compiledCondition against which records should be matched
+     * @param matchingEvent     the event the records are matched with
+     * @return {@link RecordIterator} of the events of the matching records
+     * @throws ConnectionUnavailableException
+     */
+    @Override
+    protected Iterator<StreamEvent> findEvents(CompiledCondition compiledCondition, StateEvent matchingEvent)
+            throws ConnectionUnavailableException {
         RecordStoreCompiledCondition recordStoreCompiledCondition =
                 ((RecordStoreCompiledCondition) compiledCondition);
 
@@ -125,23 +219,34 @@ public abstract class AbstractRecordTable extends Table {
             findConditionParameterMap.put(entry.getKey(), entry.getValue().execute(matchingEvent));
         }
 
-        Iterator<Object[]> records;
-        if (recordTableHandler != null) {
-            records = recordTableHandler.find(matchingEvent.getTimestamp(), findConditionParameterMap,
+        Iterator<Object[]> records = readStore(recordStoreCompiledCondition, matchingEvent, bufferedRecords -> {
+            Iterator<Object[]> storeRecords = findInStore(matchingEvent.getTimestamp(), findConditionParameterMap,
                     recordStoreCompiledCondition.compiledCondition);
-        } else {
-            records = find(findConditionParameterMap, recordStoreCompiledCondition.compiledCondition);
-        }
-        ComplexEventChunk<StreamEvent> streamEventComplexEventChunk = new ComplexEventChunk<>(true);
-        if (records != null) {
-            while (records.hasNext()) {
-                Object[] record = records.next();
-                StreamEvent streamEvent = storeEventPool.newInstance();
-                System.arraycopy(record, 0, streamEvent.getOutputData(), 0, record.length);
-                streamEventComplexEventChunk.add(streamEvent);
+            if (writeBehindBuffer == null) {
+                return storeRecords;
+            }
+            // the store is read before the buffered records can be written to it
+            List<Object[]> foundRecords = new ArrayList<>();
+            while (storeRecords != null && storeRecords.hasNext()) {
+                foundRecords.add(storeRecords.next());
             }
+            foundRecords.addAll(bufferedRecords);
+            return foundRecords.iterator();
+        });
+        return new RecordStreamEventIterator(records, record -> {
+            StreamEvent streamEvent = storeEventPool.newInstance();
+            System.arraycopy(record, 0, streamEvent.getOutputData(), 0, record.length);
+            return streamEvent;
+        });
+    }
+
+    Iterator<Object[]> findInStore(long timestamp, Map<String, Object> findConditionParameterMap,
+                                   CompiledCondition compiledCondition) throws ConnectionUnavailableException {
+        if (recordTableHandler != null) {
+            return recordTableHandler.find(timestamp, findConditionParameterMap, compiledCondition);
+        } else {
+            return find(findConditionParameterMap, compiledCondition);
         }
-        return streamEventComplexEventChunk.getFirst();
     }
 
     /**
@@ -167,11 +272,17 @@ public abstract class AbstractRecordTable extends Table {
                 recordStoreCompiledCondition.variableExpressionExecutorMap.entrySet()) {
             containsConditionParameterMap.put(entry.getKey(), entry.getValue().execute(matchingEvent));
         }
+        return readStore(recordStoreCompiledCondition, matchingEvent, bufferedRecords ->
+                !bufferedRecords.isEmpty() || containsInStore(matchingEvent.getTimestamp(),
+                        containsConditionParameterMap, recordStoreCompiledCondition.compiledCondition));
+    }
+
+    boolean containsInStore(long timestamp, Map<String, Object> containsConditionParameterMap,
+                            CompiledCondition compiledCondition) throws ConnectionUnavailableException {
         if (recordTableHandler != null) {
-            return recordTableHandler.contains(matchingEvent.getTimestamp(), containsConditionParameterMap,
-                    recordStoreCompiledCondition.compiledCondition);
+            return recordTableHandler.contains(timestamp, containsConditionParameterMap, compiledCondition);
         } else {
-            return contains(containsConditionParameterMap, recordStoreCompiledCondition.compiledCondition);
+            return contains(containsConditionParameterMap, compiledCondition);
         }
     }
 
@@ -208,11 +319,27 @@ public abstract class AbstractRecordTable extends Table {
             deleteConditionParameterMaps.add(variableMap);
             timestamp = stateEvent.getTimestamp();
         }
+        deleteRecords(timestamp, deleteConditionParameterMaps, recordStoreCompiledCondition.compiledCondition);
+    }
+
+    /**
+     * Deletes the matching records from the store, or buffers the deletion when writing behind.
+     */
+    void deleteRecords(long timestamp, List<Map<String, Object>> deleteConditionParameterMaps,
+                       CompiledCondition compiledCondition) throws ConnectionUnavailableException {
+        if (writeBehindBuffer != null) {
+            writeBehindBuffer.delete(timestamp, deleteConditionParameterMaps, compiledCondition);
+        } else {
+            deleteFromStore(timestamp, deleteConditionParameterMaps, compiledCondition);
+        }
+    }
+
+    void deleteFromStore(long timestamp, List<Map<String, Object>> deleteConditionParameterMaps,
+                         CompiledCondition compiledCondition) throws ConnectionUnavailableException {
         if (recordTableHandler != null) {
-            recordTableHandler.delete(timestamp, deleteConditionParameterMaps, recordStoreCompiledCondition.
-                    compiledCondition);
+            recordTableHandler.delete(timestamp, deleteConditionParameterMaps, compiledCondition);
         } else {
-            delete(deleteConditionParameterMaps, recordStoreCompiledCondition.compiledCondition);
+            delete(deleteConditionParameterMaps, compiledCondition);
         }
     }
 
@@ -256,16 +383,57 @@ public abstract class AbstractRecordTable extends Table {
             updateSetParameterMaps.add(variableMapForUpdateSet);
             timestamp = stateEvent.getTimestamp();
         }
-        if (recordTableHandler != null) {
-            recordTableHandler.update(timestamp, recordStoreCompiledCondition.compiledCondition,
+        updateRecords(timestamp, recordStoreCompiledCondition, updateConditionParameterMaps,
+                recordTableCompiledUpdateSet, updateSetParameterMaps);
+    }
+
+    /**
+     * Updates the matching records of the store, or buffers the update when writing behind.
+     */
+    void updateRecords(long timestamp, RecordStoreCompiledCondition recordStoreCompiledCondition,
+                       List<Map<String, Object>> updateConditionParameterMaps,
+                       RecordTableCompiledUpdateSet recordTableCompiledUpdateSet,
+                       List<Map<String, Object>> updateSetParameterMaps) throws ConnectionUnavailableException {
+        if (writeBehindBuffer != null) {
+            writeBehindBuffer.update(timestamp, recordStoreCompiledCondition.compiledCondition,
                     updateConditionParameterMaps, recordTableCompiledUpdateSet.getUpdateSetMap(),
-                    updateSetParameterMaps);
+                    updateSetParameterMaps, isOverwriting(recordStoreCompiledCondition, recordTableCompiledUpdateSet));
         } else {
-            update(recordStoreCompiledCondition.compiledCondition, updateConditionParameterMaps,
+            updateInStore(timestamp, recordStoreCompiledCondition.compiledCondition, updateConditionParameterMaps,
                     recordTableCompiledUpdateSet.getUpdateSetMap(), updateSetParameterMaps);
         }
     }
 
+    void updateInStore(long timestamp, CompiledCondition compiledCondition,
+                       List<Map<String, Object>> updateConditionParameterMaps,
+                       LinkedHashMap<String, CompiledExpression> updateSetMap,
+                       List<Map<String, Object>> updateSetParameterMaps) throws ConnectionUnavailableException {
+        if (recordTableHandler != null) {
+            recordTableHandler.update(timestamp, compiledCondition, updateConditionParameterMaps, updateSetMap,
+                    updateSetParameterMaps);
+        } else {
+            update(compiledCondition, updateConditionParameterMaps, updateSetMap, updateSetParameterMaps);
+        }
+    }
+
+    /**
+     * Checks whether a later update with the same condition parameters overwrites all the changes of an earlier one,
+     * which holds when the set clause neither reads the table nor changes the records matching the condition.
+     */
+    private boolean isOverwriting(RecordStoreCompiledCondition recordStoreCompiledCondition,
+                                  RecordTableCompiledUpdateSet recordTableCompiledUpdateSet) {
+        if (!recordTableCompiledUpdateSet.isTableIndependent() ||
+                recordStoreCompiledCondition.tableAttributes == null) {
+            return false;
+        }
+        for (String attribute : recordTableCompiledUpdateSet.getUpdateSetMap().keySet()) {
+            if (recordStoreCompiledCondition.tableAttributes.contains(attribute)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
 
     /**
      * Update all matching records
@@ -315,15 +483,100 @@ public abstract class AbstractRecordTable extends Table {
             addingRecords.add(stateEvent.getStreamEvent(0).getOutputData());
             timestamp = stateEvent.getTimestamp();
         }
+        updateOrAddRecords(timestamp, recordStoreCompiledCondition.compiledCondition, updateConditionParameterMaps,
+                recordTableCompiledUpdateSet.getUpdateSetMap(), updateSetParameterMaps, addingRecords);
+    }
+
+    /**
+     * Updates the matching records of the store or adds the records, or buffers them when writing behind.
+     */
+    void updateOrAddRecords(long timestamp, CompiledCondition compiledCondition,
+                            List<Map<String, Object>> updateConditionParameterMaps,
+                            LinkedHashMap<String, CompiledExpression> updateSetMap,
+                            List<Map<String, Object>> updateSetParameterMaps, List<Object[]> addingRecords)
+            throws ConnectionUnavailableException {
+        if (writeBehindBuffer != null) {
+            writeBehindBuffer.updateOrAdd(timestamp, compiledCondition, updateConditionParameterMaps, updateSetMap,
+                    updateSetParameterMaps, addingRecords);
+        } else {
+            updateOrAddInStore(timestamp, compiledCondition, updateConditionParameterMaps, updateSetMap,
+                    updateSetParameterMaps, addingRecords);
+        }
+    }
+
+    void updateOrAddInStore(long timestamp, CompiledCondition compiledCondition,
+                            List<Map<String, Object>> updateConditionParameterMaps,
+                            LinkedHashMap<String, CompiledExpression> updateSetMap,
+                            List<Map<String, Object>> updateSetParameterMaps, List<Object[]> addingRecords)
+            throws ConnectionUnavailableException {
         if (recordTableHandler != null) {
-            recordTableHandler.updateOrAdd(timestamp, recordStoreCompiledCondition.compiledCondition,
-                    updateConditionParameterMaps, recordTableCompiledUpdateSet.getUpdateSetMap(),
+            recordTableHandler.updateOrAdd(timestamp, compiledCondition, updateConditionParameterMaps, updateSetMap,
                     updateSetParameterMaps, addingRecords);
         } else {
-            updateOrAdd(recordStoreCompiledCondition.compiledCondition, updateConditionParameterMaps,
-                    recordTableCompiledUpdateSet.getUpdateSetMap(), updateSetParameterMaps, addingRecords);
+            updateOrAdd(compiledCondition, updateConditionParameterMaps, updateSetMap, updateSetParameterMaps,
+                    addingRecords);
         }
+    }
 
+    /**
+     * Writes the buffered writes to the store before reading it, so that the reads observe them.
+     */
+    void flushPendingWrites() throws ConnectionUnavailableException {
+        if (writeBehindBuffer != null && !writeBehindBuffer.isEmpty()) {
+            writeBehindBuffer.flush();
+        }
+    }
+
+    /**
+     * Reads the store, passing the buffered records matching the condition to overlay on the result when writing
+     * behind, and none otherwise.
+     *
+     * @param recordStoreCompiledCondition condition of the read
+     * @param matchingEvent                event the records are matched with
+     * @param read                         read of the store
+     * @return the result of the read
+     * @throws ConnectionUnavailableException if the store is not reachable
+     */
+    <T> T readStore(RecordStoreCompiledCondition recordStoreCompiledCondition, StateEvent matchingEvent,
+                    RecordTableWriteBehindBuffer.BufferedRead<T> read) throws ConnectionUnavailableException {
+        if (writeBehindBuffer == null) {
+            return read.read(Collections.emptyList());
+        }
+        return writeBehindBuffer.read(recordStoreCompiledCondition.bufferedRecordCondition != null,
+                bufferedRecords -> read.read(matchBufferedRecords(bufferedRecords, recordStoreCompiledCondition,
+                        matchingEvent)));
+    }
+
+    private List<Object[]> matchBufferedRecords(List<Object[]> bufferedRecords,
+                                                RecordStoreCompiledCondition recordStoreCompiledCondition,
+                                                StateEvent matchingEvent) {
+        if (bufferedRecords.isEmpty()) {
+            return bufferedRecords;
+        }
+        List<Object[]> matchingRecords = new ArrayList<>();
+        int storeEventIndex = recordStoreCompiledCondition.storeEventIndex;
+        StreamEvent matchedEvent = matchingEvent.getStreamEvent(storeEventIndex);
+        StreamEvent storeEvent = storeEventPool.newInstance();
+        try {
+            matchingEvent.setEvent(storeEventIndex, storeEvent);
+            for (Object[] record : bufferedRecords) {
+                System.arraycopy(record, 0, storeEvent.getOutputData(), 0, record.length);
+                if ((Boolean) recordStoreCompiledCondition.bufferedRecordCondition.execute(matchingEvent)) {
+                    matchingRecords.add(record);
+                }
+            }
+        } finally {
+            matchingEvent.setEvent(storeEventIndex, matchedEvent);
+        }
+        return matchingRecords;
+    }
+
+    @Override
+    public void shutdown() {
+        if (writeBehindBuffer != null) {
+            writeBehindBuffer.shutdown();
+        }
+        super.shutdown();
     }
 
     /**
@@ -353,7 +606,34 @@ public abstract class AbstractRecordTable extends Table {
                 variableExpressionExecutors, tableMap, siddhiQueryContext);
         CompiledCondition compileCondition = compileCondition(expressionBuilder);
         Map<String, ExpressionExecutor> expressionExecutorMap = expressionBuilder.getVariableExpressionExecutorMap();
-        return new RecordStoreCompiledCondition(expressionExecutorMap, compileCondition);
+        return compileBufferedRecordCondition(new RecordStoreCompiledCondition(expressionExecutorMap,
+                        compileCondition, TableConditionHelper.getTableAttributes(condition, matchingMetaInfoHolder,
+                        tableDefinition)), condition, matchingMetaInfoHolder, variableExpressionExecutors, tableMap,
+                siddhiQueryContext);
+    }
+
+    /**
+     * Compiles the condition to match the buffered records in memory when writing behind, such that the reads
+     * overlay them instead of waiting for them to be written. Reads flush the buffer when the condition cannot be
+     * executed in memory.
+     */
+    RecordStoreCompiledCondition compileBufferedRecordCondition(
+            RecordStoreCompiledCondition recordStoreCompiledCondition, Expression condition,
+            MatchingMetaInfoHolder matchingMetaInfoHolder, List<VariableExpressionExecutor> variableExpressionExecutors,
+            Map<String, Table> tableMap, SiddhiQueryContext siddhiQueryContext) {
+        if (writeBehindBuffer == null) {
+            return recordStoreCompiledCondition;
+        }
+        try {
+            recordStoreCompiledCondition.bufferedRecordCondition = ExpressionParser.parseExpression(condition,
+                    matchingMetaInfoHolder.getMetaStateEvent(), matchingMetaInfoHolder.getCurrentState(), tableMap,
+                    variableExpressionExecutors, false, 0, ProcessingMode.BATCH, false, siddhiQueryContext);
+            recordStoreCompiledCondition.storeEventIndex = matchingMetaInfoHolder.getStoreEventIndex();
+        } catch (RuntimeException e) {
+            log.debug("Buffered records of '" + tableDefinition.getId() + "' cannot be matched in memory, hence " +
+                    "reads flush them", e);
+        }
+        return recordStoreCompiledCondition;
     }
 
     public CompiledUpdateSet compileUpdateSet(UpdateSet updateSet,
@@ -362,6 +642,7 @@ public abstract class AbstractRecordTable extends Table {
                                               Map<String, Table> tableMap, SiddhiQueryContext siddhiQueryContext) {
         RecordTableCompiledUpdateSet recordTableCompiledUpdateSet = new RecordTableCompiledUpdateSet();
         Map<String, ExpressionExecutor> parentExecutorMap = new HashMap<>();
+        boolean tableIndependent = true;
         for (UpdateSet.SetAttribute setAttribute : updateSet.getSetAttributeList()) {
             ExpressionBuilder expressionBuilder = new ExpressionBuilder(setAttribute.getAssignmentExpression(),
                     matchingMetaInfoHolder, variableExpressionExecutors, tableMap, siddhiQueryContext);
@@ -370,8 +651,12 @@ public abstract class AbstractRecordTable extends Table {
             Map<String, ExpressionExecutor> expressionExecutorMap =
                     expressionBuilder.getVariableExpressionExecutorMap();
             parentExecutorMap.putAll(expressionExecutorMap);
+            Set<String> tableAttributes = TableConditionHelper.getTableAttributes(
+                    setAttribute.getAssignmentExpression(), matchingMetaInfoHolder, tableDefinition);
+            tableIndependent &= tableAttributes != null && tableAttributes.isEmpty();
         }
         recordTableCompiledUpdateSet.setExpressionExecutorMap(parentExecutorMap);
+        recordTableCompiledUpdateSet.setTableIndependent(tableIndependent);
         return recordTableCompiledUpdateSet;
     }
 
@@ -399,11 +684,21 @@ public abstract class AbstractRecordTable extends Table {
     protected class RecordStoreCompiledCondition implements CompiledCondition {
         protected Map<String, ExpressionExecutor> variableExpressionExecutorMap;
         protected CompiledCondition compiledCondition;
+        protected Set<String> tableAttributes;
+        // matches the buffered records in memory when writing behind, or null if they cannot be matched
+        private ExpressionExecutor bufferedRecordCondition;
+        private int storeEventIndex;
 
         RecordStoreCompiledCondition(Map<String, ExpressionExecutor> variableExpressionExecutorMap,
                                      CompiledCondition compiledCondition) {
+            this(variableExpressionExecutorMap, compiledCondition, null);
+        }
+
+        RecordStoreCompiledCondition(Map<String, ExpressionExecutor> variableExpressionExecutorMap,
+                                     CompiledCondition compiledCondition, Set<String> tableAttributes) {
             this.variableExpressionExecutorMap = variableExpressionExecutorMap;
             this.compiledCondition = compiledCondition;
+            this.tableAttributes = tableAttributes;
         }
 
     }
@@ -60,6 +60,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import static io.siddhi.core.util.SiddhiConstants.STORE_QUERY_PARAMETER_ID;
 import static io.siddhi.core.util.SiddhiConstants.UNKNOWN_STATE;
 
 /**
@@ -271,6 +272,11 @@ public class ExpressionBuilder {
                         ((AttributeFunction) expression).getNamespace(),
                         ((AttributeFunction) expression).getName());
 
+            } else if (isStoreQueryParameter(expression)) {
+                Variable variable = ((Variable) expression);
+                buildStreamVariableExecutor(variable, matchingMetaInfoHolder.getCurrentState(), expressionVisitor,
+                        siddhiQueryContext.getStoreQueryParameters().getType(variable.getAttributeName()));
+
             } else if (expression instanceof Variable) {
                 Variable variable = ((Variable) expression);
                 String attributeName = variable.getAttributeName();
@@ -377,6 +383,11 @@ public class ExpressionBuilder {
         }
     }
 
+    private boolean isStoreQueryParameter(Expression expression) {
+        return expression instanceof Variable && siddhiQueryContext.getStoreQueryParameters() != null &&
+                STORE_QUERY_PARAMETER_ID.equals(((Variable) expression).getStreamId());
+    }
+
     private void buildStoreVariableExecutor(Variable variable, ExpressionVisitor expressionVisitor, Attribute.Type type,
                                             AbstractDefinition storeDefinition) {
         expressionVisitor.beginVisitStoreVariable(storeDefinition.getId(), variable.getAttributeName(), type);
@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.core.table.record;
+
+import io.siddhi.core.exception.ConnectionUnavailableException;
+import io.siddhi.core.exception.SiddhiAppRuntimeException;
+import io.siddhi.core.util.timestamp.TimestampGenerator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces concurrent identical finds on a record table into a single find on the store, and remembers the finds
+ * that matched no records for a retention period. Any write through the table forgets the remembered misses, while
+ * writes made to the store by other clients are only observed once the misses expire.
+ */
+class RecordFindCoalescer {
+
+    private final int missCacheSize;
+    private final long missRetentionPeriod;
+    private final TimestampGenerator timestampGenerator;
+    private final Map<FindKey, CompletableFuture<List<Object[]>>> inFlightFinds = new ConcurrentHashMap<>();
+    private final Map<FindKey, Long> misses;
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * @param missCacheSize       maximum number of misses remembered, or 0 to not remember misses
+     * @param missRetentionPeriod time in milliseconds a miss is remembered
+     * @param timestampGenerator  generator of the current time
+     */
+    RecordFindCoalescer(int missCacheSize, long missRetentionPeriod, TimestampGenerator timestampGenerator) {
+        this.missCacheSize = missCacheSize;
+        this.missRetentionPeriod = missRetentionPeriod;
+        this.timestampGenerator = timestampGenerator;
+        this.misses = new LinkedHashMap<FindKey, Long>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<FindKey, Long> eldest) {
+                return size() > missCacheSize;
+            }
+        };
+    }
+
+    /**
+     * Finds the records matching the condition and parameters, joining an identical find in progress if any.
+     *
+     * @param compiledCondition condition of the find
+     * @param parameterMap      values of the condition parameters
+     * @param storeFind         find on the store
+     * @return the matching records
+     * @throws ConnectionUnavailableException if the store is not reachable
+     */
+    List<Object[]> find(Object compiledCondition, Map<String, Object> parameterMap, StoreFind storeFind)
+            throws ConnectionUnavailableException {
+        FindKey findKey = new FindKey(compiledCondition, parameterMap, version.get());
+        if (missCacheSize > 0) {
+            synchronized (misses) {
+                Long expiryTime = misses.get(findKey);
+                if (expiryTime != null) {
+                    if (expiryTime > timestampGenerator.currentTime()) {
+                        return Collections.emptyList();
+                    }
+                    misses.remove(findKey);
+                }
+            }
+        }
+        CompletableFuture<List<Object[]>> find = new CompletableFuture<>();
+        CompletableFuture<List<Object[]>> inFlightFind = inFlightFinds.putIfAbsent(findKey, find);
+        if (inFlightFind != null) {
+            return await(inFlightFind);
+        }
+        try {
+            List<Object[]> records = new ArrayList<>();
+            Iterator<Object[]> iterator = storeFind.find();
+            if (iterator != null) {
+                while (iterator.hasNext()) {
+                    records.add(iterator.next());
+                }
+            }
+            if (records.isEmpty() && missCacheSize > 0 && version.get() == findKey.version) {
+                synchronized (misses) {
+                    misses.put(findKey, timestampGenerator.currentTime() + missRetentionPeriod);
+                }
+            }
+            find.complete(records);
+            return records;
+        } catch (ConnectionUnavailableException | RuntimeException e) {
+            find.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightFinds.remove(findKey, find);
+        }
+    }
+
+    /**
+     * Forgets the remembered misses, and keeps the finds in progress from being joined, as a write may have added
+     * matching records.
+     */
+    void invalidate() {
+        version.incrementAndGet();
+        if (missCacheSize > 0) {
+            synchronized (misses) {
+                misses.clear();
+            }
+        }
+    }
+
+    private List<Object[]> await(CompletableFuture<List<Object[]>> inFlightFind)
+            throws ConnectionUnavailableException {
+        try {
+            return inFlightFind.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SiddhiAppRuntimeException("Interrupted while waiting for the find on the store", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ConnectionUnavailableException) {
+                throw (ConnectionUnavailableException) e.getCause();
+            } else if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new SiddhiAppRuntimeException(e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * Find on the store.
+     */
+    interface StoreFind {
+        Iterator<Object[]> find() throws ConnectionUnavailableException;
+    }
+
+    /**
+     * Condition, parameters and table version identifying a find.
+     */
+    private static class FindKey {
+        private final Object compiledCondition;
+        private final Map<String, Object> parameterMap;
+        private final long version;
+        private final int hashCode;
+
+        private FindKey(Object compiledCondition, Map<String, Object> parameterMap, long version) {
+            this.compiledCondition = compiledCondition;
+            this.parameterMap = parameterMap;
+            this.version = version;
+            this.hashCode = 31 * (31 * System.identityHashCode(compiledCondition) + parameterMap.hashCode()) +
+                    Long.hashCode(version);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof FindKey)) {
+                return false;
+            }
+            FindKey findKey = (FindKey) o;
+            return compiledCondition == findKey.compiledCondition && version == findKey.version &&
+                    parameterMap.equals(findKey.parameterMap);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
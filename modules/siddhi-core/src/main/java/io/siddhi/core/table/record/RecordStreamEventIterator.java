@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.core.table.record;
+
+import io.siddhi.core.event.stream.StreamEvent;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+/**
+ * Iterator converting the records read from a store to {@link StreamEvent}s only as they are consumed.
+ */
+class RecordStreamEventIterator implements RecordIterator<StreamEvent> {
+
+    private final Iterator<Object[]> records;
+    private final Function<Object[], StreamEvent> converter;
+
+    RecordStreamEventIterator(Iterator<Object[]> records, Function<Object[], StreamEvent> converter) {
+        this.records = records;
+        this.converter = converter;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return records != null && records.hasNext();
+    }
+
+    @Override
+    public StreamEvent next() {
+        if (records == null) {
+            throw new NoSuchElementException();
+        }
+        return converter.apply(records.next());
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (records instanceof Closeable) {
+            ((Closeable) records).close();
+        }
+    }
+}
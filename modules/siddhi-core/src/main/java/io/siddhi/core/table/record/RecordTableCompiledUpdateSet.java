@@ -32,6 +32,7 @@ import java.util.Map;
 public class RecordTableCompiledUpdateSet implements CompiledUpdateSet {
     private LinkedHashMap<String, CompiledExpression> updateSetMap = new LinkedHashMap<>();
     private Map<String, ExpressionExecutor> expressionExecutorMap = new HashMap<>();
+    private boolean tableIndependent;
 
     public LinkedHashMap<String, CompiledExpression> getUpdateSetMap() {
         return updateSetMap;
@@ -48,4 +49,15 @@ public class RecordTableCompiledUpdateSet implements CompiledUpdateSet {
     public void setExpressionExecutorMap(Map<String, ExpressionExecutor> expressionExecutorMap) {
         this.expressionExecutorMap = expressionExecutorMap;
     }
+
+    /**
+     * @return true if none of the assignments read attributes of the table
+     */
+    public boolean isTableIndependent() {
+        return tableIndependent;
+    }
+
+    public void setTableIndependent(boolean tableIndependent) {
+        this.tableIndependent = tableIndependent;
+    }
 }
@@ -0,0 +1,492 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.core.table.record;
+
+import io.siddhi.core.exception.ConnectionUnavailableException;
+import io.siddhi.core.exception.SiddhiAppRuntimeException;
+import io.siddhi.core.util.collection.operator.CompiledCondition;
+import io.siddhi.core.util.collection.operator.CompiledExpression;
+import org.apache.log4j.Logger;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Buffers the writes of an {@link AbstractRecordTable} and writes them to the store in batches from a scheduled
+ * executor service of its own, such that slow store calls do not delay the timers of the Siddhi App.
+ * <p>
+ * Consecutive writes of the same kind and condition are merged into a single store call of up to the batch size.
+ * Within such a batch, an update overwrites the pending update having the same condition parameters when its set
+ * clause neither reads the table nor assigns the attributes of its condition. Writers are blocked while the buffer
+ * holds more than its size.
+ * <p>
+ * Reads observe all the preceding writes. While only adds are buffered, the store is read as it is and the buffered
+ * records are overlaid on the result, without waiting for them to be written. Deletes and updates can change records
+ * the store would not return for the read, hence the buffer is flushed before reading while they are buffered.
+ */
+class RecordTableWriteBehindBuffer {
+
+    private static final Logger log = Logger.getLogger(RecordTableWriteBehindBuffer.class);
+
+    private final AbstractRecordTable recordTable;
+    private final String tableId;
+    private final int batchSize;
+    private final int bufferSize;
+    private final long flushInterval;
+    private final Deque<PendingWrite> pendingWrites = new ArrayDeque<>();
+    // held for writing while buffered writes are written to the store, and for reading while the store is read
+    private final ReadWriteLock flushLock = new ReentrantReadWriteLock();
+    private final AtomicBoolean flushRequested = new AtomicBoolean(false);
+    private final ScheduledExecutorService flusher;
+    private final ScheduledFuture<?> periodicFlush;
+    private int pendingRecords;
+    private volatile boolean shutdown;
+
+    /**
+     * @param recordTable   table whose writes are buffered
+     * @param flusher       scheduled executor service writing the buffer to the store, which is shut down along with
+     *                      the buffer
+     * @param batchSize     maximum number of records written to the store in a single call
+     * @param bufferSize    maximum number of records buffered before the writers are blocked
+     * @param flushInterval time in milliseconds between the flushes of the buffer
+     */
+    RecordTableWriteBehindBuffer(AbstractRecordTable recordTable, ScheduledExecutorService flusher, int batchSize,
+                                 int bufferSize, long flushInterval) {
+        this.recordTable = recordTable;
+        this.tableId = recordTable.getTableDefinition().getId();
+        this.flusher = flusher;
+        this.batchSize = batchSize;
+        this.bufferSize = bufferSize;
+        this.flushInterval = flushInterval;
+        this.periodicFlush = flusher.scheduleWithFixedDelay(this::flushPeriodically, flushInterval, flushInterval,
+                TimeUnit.MILLISECONDS);
+    }
+
+    void add(long timestamp, List<Object[]> records) {
+        enqueue(new AddWrite(timestamp, copy(records)));
+    }
+
+    void delete(long timestamp, List<Map<String, Object>> deleteConditionParameterMaps,
+                CompiledCondition compiledCondition) {
+        enqueue(new DeleteWrite(timestamp, compiledCondition, deleteConditionParameterMaps));
+    }
+
+    void update(long timestamp, CompiledCondition compiledCondition,
+                List<Map<String, Object>> updateConditionParameterMaps,
+                LinkedHashMap<String, CompiledExpression> updateSetMap,
+                List<Map<String, Object>> updateSetParameterMaps, boolean overwriting) {
+        enqueue(new UpdateWrite(timestamp, compiledCondition, updateSetMap, overwriting,
+                updateConditionParameterMaps, updateSetParameterMaps));
+    }
+
+    void updateOrAdd(long timestamp, CompiledCondition compiledCondition,
+                     List<Map<String, Object>> updateConditionParameterMaps,
+                     LinkedHashMap<String, CompiledExpression> updateSetMap,
+                     List<Map<String, Object>> updateSetParameterMaps, List<Object[]> addingRecords) {
+        enqueue(new UpdateOrAddWrite(timestamp, compiledCondition, updateSetMap, updateConditionParameterMaps,
+                updateSetParameterMaps, copy(addingRecords)));
+    }
+
+    /**
+     * Writes all the buffered writes to the store.
+     *
+     * @throws ConnectionUnavailableException if the store is not reachable, leaving the unwritten writes buffered
+     */
+    void flush() throws ConnectionUnavailableException {
+        flushLock.writeLock().lock();
+        try {
+            while (true) {
+                PendingWrite pendingWrite;
+                synchronized (pendingWrites) {
+                    pendingWrite = pendingWrites.peekFirst();
+                    if (pendingWrite == null) {
+                        return;
+                    }
+                    pendingWrite.sealed = true;
+                }
+                try {
+                    pendingWrite.write();
+                } catch (RuntimeException e) {
+                    log.error("Error on '" + tableId + "' while writing " + pendingWrite.size() +
+                            " buffered records to the store, hence dropping them.", e);
+                }
+                synchronized (pendingWrites) {
+                    pendingWrites.pollFirst();
+                    pendingRecords -= pendingWrite.size();
+                    pendingWrites.notifyAll();
+                }
+            }
+        } finally {
+            flushLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reads the store while none of the buffered writes is being written to it, passing the buffered records to
+     * overlay on the result. The buffer is flushed first when it holds writes that cannot be overlaid.
+     *
+     * @param overlaid whether the read can overlay the records of the buffered adds, else the buffer is flushed
+     *                 unless it is empty
+     * @param read     read of the store
+     * @return the result of the read
+     * @throws ConnectionUnavailableException if the store is not reachable
+     */
+    <T> T read(boolean overlaid, BufferedRead<T> read) throws ConnectionUnavailableException {
+        while (true) {
+            flushLock.readLock().lock();
+            try {
+                List<Object[]> bufferedRecords = getBufferedRecords(overlaid);
+                if (bufferedRecords != null) {
+                    return read.read(bufferedRecords);
+                }
+            } finally {
+                flushLock.readLock().unlock();
+            }
+            flush();
+        }
+    }
+
+    /**
+     * @return the records of the buffered adds in their order, or null if other writes are buffered or the records
+     * cannot be overlaid
+     */
+    private List<Object[]> getBufferedRecords(boolean overlaid) {
+        synchronized (pendingWrites) {
+            if (pendingWrites.isEmpty()) {
+                return Collections.emptyList();
+            }
+            if (!overlaid) {
+                return null;
+            }
+            List<Object[]> bufferedRecords = new ArrayList<>(pendingRecords);
+            for (PendingWrite pendingWrite : pendingWrites) {
+                if (!(pendingWrite instanceof AddWrite)) {
+                    return null;
+                }
+                bufferedRecords.addAll(((AddWrite) pendingWrite).records);
+            }
+            return bufferedRecords;
+        }
+    }
+
+    boolean isEmpty() {
+        synchronized (pendingWrites) {
+            return pendingWrites.isEmpty();
+        }
+    }
+
+    /**
+     * Stops flushing periodically after writing the buffered writes to the store.
+     */
+    void shutdown() {
+        shutdown = true;
+        periodicFlush.cancel(false);
+        synchronized (pendingWrites) {
+            pendingWrites.notifyAll();
+        }
+        try {
+            flush();
+        } catch (ConnectionUnavailableException e) {
+            synchronized (pendingWrites) {
+                log.error("Error on '" + tableId + "' while writing the buffered records at shutdown, hence " +
+                        pendingRecords + " records are lost.", e);
+                pendingWrites.clear();
+                pendingRecords = 0;
+            }
+        } finally {
+            flusher.shutdown();
+        }
+    }
+
+    private void enqueue(PendingWrite pendingWrite) {
+        synchronized (pendingWrites) {
+            PendingWrite lastWrite = pendingWrites.peekLast();
+            if (lastWrite != null && !lastWrite.sealed && lastWrite.size() + pendingWrite.size() <= batchSize) {
+                int size = lastWrite.size();
+                if (lastWrite.merge(pendingWrite)) {
+                    pendingRecords += lastWrite.size() - size;
+                } else {
+                    pendingWrites.addLast(pendingWrite);
+                    pendingRecords += pendingWrite.size();
+                }
+            } else {
+                pendingWrites.addLast(pendingWrite);
+                pendingRecords += pendingWrite.size();
+            }
+            if (pendingRecords >= batchSize) {
+                requestFlush();
+            }
+            while (pendingRecords > bufferSize && !shutdown) {
+                requestFlush();
+                try {
+                    pendingWrites.wait(flushInterval);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SiddhiAppRuntimeException("Interrupted while waiting for the buffered records of '" +
+                            tableId + "' to be written to the store", e);
+                }
+            }
+        }
+    }
+
+    private void requestFlush() {
+        if (!shutdown && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(this::flushPeriodically);
+        }
+    }
+
+    private void flushPeriodically() {
+        flushRequested.set(false);
+        try {
+            flush();
+        } catch (ConnectionUnavailableException e) {
+            log.warn("Connection unavailable at '" + tableId + "' while writing the buffered records, will retry " +
+                    "in " + flushInterval + " milliseconds.", e);
+        } catch (Throwable t) {
+            log.error("Error on '" + tableId + "' while writing the buffered records.", t);
+        }
+    }
+
+    private static List<Object[]> copy(List<Object[]> records) {
+        List<Object[]> copiedRecords = new ArrayList<>(records.size());
+        for (Object[] record : records) {
+            copiedRecords.add(record.clone());
+        }
+        return copiedRecords;
+    }
+
+    /**
+     * Read of the store, given the buffered records to overlay on its result.
+     *
+     * @param <T> result of the read
+     */
+    interface BufferedRead<T> {
+        T read(List<Object[]> bufferedRecords) throws ConnectionUnavailableException;
+    }
+
+    /**
+     * Write waiting in the buffer, which can no longer be merged once sealed for writing.
+     */
+    private abstract static class PendingWrite {
+        protected long timestamp;
+        private boolean sealed;
+
+        PendingWrite(long timestamp) {
+            this.timestamp = timestamp;
+        }
+
+        abstract int size();
+
+        abstract boolean merge(PendingWrite pendingWrite);
+
+        abstract void write() throws ConnectionUnavailableException;
+    }
+
+    private class AddWrite extends PendingWrite {
+        private final List<Object[]> records;
+
+        AddWrite(long timestamp, List<Object[]> records) {
+            super(timestamp);
+            this.records = records;
+        }
+
+        @Override
+        int size() {
+            return records.size();
+        }
+
+        @Override
+        boolean merge(PendingWrite pendingWrite) {
+            if (!(pendingWrite instanceof AddWrite)) {
+                return false;
+            }
+            records.addAll(((AddWrite) pendingWrite).records);
+            timestamp = pendingWrite.timestamp;
+            return true;
+        }
+
+        @Override
+        void write() throws ConnectionUnavailableException {
+            recordTable.addToStore(timestamp, records);
+        }
+    }
+
+    private class DeleteWrite extends PendingWrite {
+        private final CompiledCondition compiledCondition;
+        private final List<Map<String, Object>> deleteConditionParameterMaps;
+
+        DeleteWrite(long timestamp, CompiledCondition compiledCondition,
+                    List<Map<String, Object>> deleteConditionParameterMaps) {
+            super(timestamp);
+            this.compiledCondition = compiledCondition;
+            this.deleteConditionParameterMaps = deleteConditionParameterMaps;
+        }
+
+        @Override
+        int size() {
+            return deleteConditionParameterMaps.size();
+        }
+
+        @Override
+        boolean merge(PendingWrite pendingWrite) {
+            if (!(pendingWrite instanceof DeleteWrite) ||
+                    ((DeleteWrite) pendingWrite).compiledCondition != compiledCondition) {
+                return false;
+            }
+            deleteConditionParameterMaps.addAll(((DeleteWrite) pendingWrite).deleteConditionParameterMaps);
+            timestamp = pendingWrite.timestamp;
+            return true;
+        }
+
+        @Override
+        void write() throws ConnectionUnavailableException {
+            recordTable.deleteFromStore(timestamp, deleteConditionParameterMaps, compiledCondition);
+        }
+    }
+
+    private class UpdateWrite extends PendingWrite {
+        private final CompiledCondition compiledCondition;
+        private final LinkedHashMap<String, CompiledExpression> updateSetMap;
+        private final boolean overwriting;
+        private final LinkedHashMap<Map<String, Object>, Map<String, Object>> updates = new LinkedHashMap<>();
+        private final List<Map<String, Object>> updateConditionParameterMaps = new ArrayList<>();
+        private final List<Map<String, Object>> updateSetParameterMaps = new ArrayList<>();
+
+        UpdateWrite(long timestamp, CompiledCondition compiledCondition,
+                    LinkedHashMap<String, CompiledExpression> updateSetMap, boolean overwriting,
+                    List<Map<String, Object>> updateConditionParameterMaps,
+                    List<Map<String, Object>> updateSetParameterMaps) {
+            super(timestamp);
+            this.compiledCondition = compiledCondition;
+            this.updateSetMap = updateSetMap;
+            this.overwriting = overwriting;
+            put(updateConditionParameterMaps, updateSetParameterMaps);
+        }
+
+        private void put(List<Map<String, Object>> updateConditionParameterMaps,
+                         List<Map<String, Object>> updateSetParameterMaps) {
+            if (overwriting) {
+                for (int i = 0; i < updateConditionParameterMaps.size(); i++) {
+                    updates.remove(updateConditionParameterMaps.get(i));
+                    updates.put(updateConditionParameterMaps.get(i), updateSetParameterMaps.get(i));
+                }
+            } else {
+                this.updateConditionParameterMaps.addAll(updateConditionParameterMaps);
+                this.updateSetParameterMaps.addAll(updateSetParameterMaps);
+            }
+        }
+
+        @Override
+        int size() {
+            return overwriting ? updates.size() : updateConditionParameterMaps.size();
+        }
+
+        @Override
+        boolean merge(PendingWrite pendingWrite) {
+            if (!(pendingWrite instanceof UpdateWrite)) {
+                return false;
+            }
+            UpdateWrite updateWrite = (UpdateWrite) pendingWrite;
+            if (updateWrite.compiledCondition != compiledCondition || updateWrite.updateSetMap != updateSetMap ||
+                    updateWrite.overwriting != overwriting) {
+                return false;
+            }
+            if (overwriting) {
+                for (Map.Entry<Map<String, Object>, Map<String, Object>> update : updateWrite.updates.entrySet()) {
+                    updates.remove(update.getKey());
+                    updates.put(update.getKey(), update.getValue());
+                }
+            } else {
+                put(updateWrite.updateConditionParameterMaps, updateWrite.updateSetParameterMaps);
+            }
+            timestamp = pendingWrite.timestamp;
+            return true;
+        }
+
+        @Override
+        void write() throws ConnectionUnavailableException {
+            if (overwriting) {
+                recordTable.updateInStore(timestamp, compiledCondition, new ArrayList<>(updates.keySet()),
+                        updateSetMap, new ArrayList<>(updates.values()));
+            } else {
+                recordTable.updateInStore(timestamp, compiledCondition, updateConditionParameterMaps, updateSetMap,
+                        updateSetParameterMaps);
+            }
+        }
+    }
+
+    private class UpdateOrAddWrite extends PendingWrite {
+        private final CompiledCondition compiledCondition;
+        private final LinkedHashMap<String, CompiledExpression> updateSetMap;
+        private final List<Map<String, Object>> updateConditionParameterMaps;
+        private final List<Map<String, Object>> updateSetParameterMaps;
+        private final List<Object[]> addingRecords;
+
+        UpdateOrAddWrite(long timestamp, CompiledCondition compiledCondition,
+                         LinkedHashMap<String, CompiledExpression> updateSetMap,
+                         List<Map<String, Object>> updateConditionParameterMaps,
+                         List<Map<String, Object>> updateSetParameterMaps, List<Object[]> addingRecords) {
+            super(timestamp);
+            this.compiledCondition = compiledCondition;
+            this.updateSetMap = updateSetMap;
+            this.updateConditionParameterMaps = updateConditionParameterMaps;
+            this.updateSetParameterMaps = updateSetParameterMaps;
+            this.addingRecords = addingRecords;
+        }
+
+        @Override
+        int size() {
+            return addingRecords.size();
+        }
+
+        @Override
+        boolean merge(PendingWrite pendingWrite) {
+            if (!(pendingWrite instanceof UpdateOrAddWrite)) {
+                return false;
+            }
+            UpdateOrAddWrite updateOrAddWrite = (UpdateOrAddWrite) pendingWrite;
+            if (updateOrAddWrite.compiledCondition != compiledCondition ||
+                    updateOrAddWrite.updateSetMap != updateSetMap) {
+                return false;
+            }
+            updateConditionParameterMaps.addAll(updateOrAddWrite.updateConditionParameterMaps);
+            updateSetParameterMaps.addAll(updateOrAddWrite.updateSetParameterMaps);
+            addingRecords.addAll(updateOrAddWrite.addingRecords);
+            timestamp = pendingWrite.timestamp;
+            return true;
+        }
+
+        @Override
+        void write() throws ConnectionUnavailableException {
+            recordTable.updateOrAddInStore(timestamp, compiledCondition, updateConditionParameterMaps, updateSetMap,
+                    updateSetParameterMaps, addingRecords);
+        }
+    }
+}
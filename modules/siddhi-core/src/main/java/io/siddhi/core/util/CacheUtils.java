@@ -7,11 +7,9 @@ import io.siddhi.core.event.stream.StreamEvent;
  */
 public class CacheUtils {
     public static int findEventChunkSize(StreamEvent streamEvent) {
-        int chunkSize = 1;
-        StreamEvent streamEventCopy = streamEvent;
-        while (streamEvent.hasNext()) {
-            chunkSize = chunkSize + 1;
-            streamEventCopy = streamEventCopy.getNext();
+        int chunkSize = 0;
+        for (StreamEvent event = streamEvent; event != null; event = event.getNext()) {
+            chunkSize++;
         }
         return chunkSize;
     }
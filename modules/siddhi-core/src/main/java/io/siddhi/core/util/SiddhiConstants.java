@@ -55,6 +55,19 @@ public final class SiddhiConstants {
     public static final String ANNOTATION_ELEMENT_ON_ERROR = "on.error";
 
     public static final String ANNOTATION_STATISTICS = "Statistics";
+    public static final String ANNOTATION_SNAPSHOT = "Snapshot";
+    public static final String ANNOTATION_ELEMENT_MODE = "mode";
+    public static final String SNAPSHOT_MODE_BLOCKING = "blocking";
+    public static final String SNAPSHOT_MODE_COPY = "copy";
+    public static final String ANNOTATION_ELEMENT_SERIALIZER = "serializer";
+    public static final String SNAPSHOT_SERIALIZER_JAVA = "java";
+    public static final String SNAPSHOT_SERIALIZER_BINARY = "binary";
+    public static final String ANNOTATION_ELEMENT_PARALLELISM = "parallelism";
+    public static final String ANNOTATION_ELEMENT_CHANGE_LOG_BUDGET = "change.log.budget";
+    public static final String ANNOTATION_ELEMENT_MAX_IN_FLIGHT = "max.in.flight";
+    public static final String ANNOTATION_ELEMENT_RESTORE = "restore";
+    public static final String SNAPSHOT_RESTORE_EAGER = "eager";
+    public static final String SNAPSHOT_RESTORE_LAZY = "lazy";
     public static final String ANNOTATION_INDEX_BY = "IndexBy";
     public static final String ANNOTATION_INDEX = "Index";
     public static final String ANNOTATION_PRIMARY_KEY = "PrimaryKey";
@@ -85,6 +98,8 @@ public final class SiddhiConstants {
     public static final String TRUE = "true";
     public static final String TRIGGER_START = "start";
     public static final int DEFAULT_EVENT_BUFFER_SIZE = 1024;
+    public static final long DEFAULT_OPERATION_CHANGE_LOG_BUDGET = 8 * 1024 * 1024;
+    public static final int DEFAULT_MAX_IN_FLIGHT_CHECKPOINTS = 4;
     public static final int HAVING_STATE = -2;
     public static final int UNKNOWN_STATE = -1;
     public static final int CURRENT = -1;
@@ -107,12 +122,16 @@ public final class SiddhiConstants {
     public static final String METRIC_INFIX_SOURCE_MAPPERS = "SourceMappers";
     public static final String METRIC_INFIX_SINKS = "Sinks";
     public static final String METRIC_INFIX_SINK_MAPPERS = "SinkMappers";
+    public static final String METRIC_INFIX_SNAPSHOTS = "Snapshots";
     public static final String METRIC_TYPE_FIND = "find";
     public static final String METRIC_TYPE_INSERT = "insert";
     public static final String METRIC_TYPE_UPDATE = "update";
     public static final String METRIC_TYPE_DELETE = "delete";
     public static final String METRIC_TYPE_UPDATE_OR_INSERT = "updateOrInsert";
     public static final String METRIC_TYPE_CONTAINS = "contains";
+    public static final String METRIC_TYPE_CACHE_HIT = "cacheHit";
+    public static final String METRIC_TYPE_CACHE_MISS = "cacheMiss";
+    public static final String METRIC_TYPE_CACHE_EVICTION = "cacheEviction";
     public static final String METRIC_DELIMITER = ".";
     public static final String METRIC_AGGREGATE_ANNOTATION = "[+]";
     public static final String EXTENSION_SEPARATOR = ":";
@@ -127,7 +146,17 @@ public final class SiddhiConstants {
 
     public static final String ANNOTATION_CACHE = "Cache";
     public static final String CACHE_TABLE_SIZE = "Size";
+    public static final String CACHE_TABLE_POLICY = "policy";
+    public static final String CACHE_TABLE_RETENTION_PERIOD = "retention.period";
+    public static final String CACHE_TABLE_PURGE_INTERVAL = "purge.interval";
     public static final String CACHE_QUERY_NAME = "table_cache_";
+    public static final String STORE_MISS_CACHE_SIZE = "miss.cache.size";
+    public static final String STORE_MISS_CACHE_RETENTION_PERIOD = "miss.cache.retention.period";
+    public static final String STORE_WRITE_MODE = "write.mode";
+    public static final String STORE_WRITE_BATCH_SIZE = "batch.size";
+    public static final String STORE_WRITE_FLUSH_INTERVAL = "flush.interval";
+    public static final String STORE_WRITE_BUFFER_SIZE = "buffer.size";
+    public static final String STORE_QUERY_PARAMETER_ID = "_storeQueryParameter";
 
     public static final String AGG_START_TIMESTAMP_COL = "AGG_TIMESTAMP";
     public static final String AGG_EXTERNAL_TIMESTAMP_COL = "AGG_EVENT_TIMESTAMP";
@@ -37,6 +37,22 @@ public class StoreQueryRuntimeUtil {
     public static Event[] executeSelector(StreamEvent streamEvents, QuerySelector selector,
                                           StateEventFactory stateEventFactory,
                                           MetaStreamEvent.EventType eventType) {
+        return executeSelector(streamEvents, selector, stateEventFactory, eventType, false);
+    }
+
+    /**
+     * Executes the selector on a part of a larger result, leaving the offset and limit of the whole result to the
+     * caller.
+     */
+    public static Event[] executeSelectorPart(StreamEvent streamEvents, QuerySelector selector,
+                                              StateEventFactory stateEventFactory,
+                                              MetaStreamEvent.EventType eventType) {
+        return executeSelector(streamEvents, selector, stateEventFactory, eventType, true);
+    }
+
+    private static Event[] executeSelector(StreamEvent streamEvents, QuerySelector selector,
+                                           StateEventFactory stateEventFactory,
+                                           MetaStreamEvent.EventType eventType, boolean isPart) {
         ComplexEventChunk<StateEvent> complexEventChunk = new ComplexEventChunk<>(true);
         while (streamEvents != null) {
 
@@ -52,7 +68,8 @@ public class StoreQueryRuntimeUtil {
             }
             complexEventChunk.add(stateEvent);
         }
-        ComplexEventChunk outputComplexEventChunk = selector.execute(complexEventChunk);
+        ComplexEventChunk outputComplexEventChunk = isPart ? selector.executePart(complexEventChunk) :
+                selector.execute(complexEventChunk);
         if (outputComplexEventChunk != null) {
             List<Event> events = new ArrayList<>();
             outputComplexEventChunk.reset();
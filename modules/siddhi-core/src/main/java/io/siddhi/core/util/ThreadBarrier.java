@@ -18,7 +18,9 @@
 
 package io.siddhi.core.util;
 
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
@@ -28,6 +30,8 @@ public class ThreadBarrier {
 
     private ReentrantLock lock = new ReentrantLock();
     private AtomicInteger counter = new AtomicInteger();
+    private ReentrantLock quiescenceLock = new ReentrantLock();
+    private Condition quiescent = quiescenceLock.newCondition();
 
     public void enter() {
         if (lock.isLocked()) {
@@ -39,13 +43,45 @@ public class ThreadBarrier {
 
 
     public void exit() {
-        counter.decrementAndGet();
+        if (counter.decrementAndGet() == 0 && lock.isLocked()) {
+            quiescenceLock.lock();
+            try {
+                quiescent.signalAll();
+            } finally {
+                quiescenceLock.unlock();
+            }
+        }
     }
 
     public int getActiveThreads() {
         return counter.get();
     }
 
+    /**
+     * Waits till the last active thread exits the barrier. Should be called while the barrier is locked, such that
+     * no new threads can enter.
+     *
+     * @param timeout maximum time to wait
+     * @param unit    time unit of the timeout
+     * @return true if no threads are active, false if the timeout elapsed before the active threads exited
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     */
+    public boolean awaitQuiescence(long timeout, TimeUnit unit) throws InterruptedException {
+        long remainingNanos = unit.toNanos(timeout);
+        quiescenceLock.lock();
+        try {
+            while (counter.get() != 0) {
+                if (remainingNanos <= 0) {
+                    return false;
+                }
+                remainingNanos = quiescent.awaitNanos(remainingNanos);
+            }
+            return true;
+        } finally {
+            quiescenceLock.unlock();
+        }
+    }
+
     public void lock() {
         lock.lock();
     }
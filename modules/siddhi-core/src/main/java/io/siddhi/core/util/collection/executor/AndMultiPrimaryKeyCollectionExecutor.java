@@ -23,8 +23,9 @@ import io.siddhi.core.event.state.StateEvent;
 import io.siddhi.core.event.stream.StreamEvent;
 import io.siddhi.core.event.stream.StreamEventCloner;
 import io.siddhi.core.executor.ExpressionExecutor;
+import io.siddhi.core.table.holder.CompositePrimaryKey;
 import io.siddhi.core.table.holder.IndexedEventHolder;
-import io.siddhi.core.util.SiddhiConstants;
+import io.siddhi.query.api.definition.Attribute;
 import io.siddhi.query.api.expression.condition.Compare;
 
 import java.util.Collection;
@@ -38,11 +39,14 @@ public class AndMultiPrimaryKeyCollectionExecutor implements CollectionExecutor
 
     private final String compositePrimaryKey;
     private final List<ExpressionExecutor> multiPrimaryKeyExpressionExecutors;
+    private final Attribute.Type[] primaryKeyTypes;
 
     public AndMultiPrimaryKeyCollectionExecutor(String compositePrimaryKey,
-                                                List<ExpressionExecutor> multiPrimaryKeyExpressionExecutors) {
+                                                List<ExpressionExecutor> multiPrimaryKeyExpressionExecutors,
+                                                Attribute.Type[] primaryKeyTypes) {
         this.compositePrimaryKey = compositePrimaryKey;
         this.multiPrimaryKeyExpressionExecutors = multiPrimaryKeyExpressionExecutors;
+        this.primaryKeyTypes = primaryKeyTypes;
     }
 
     public StreamEvent find(StateEvent matchingEvent, IndexedEventHolder indexedEventHolder, StreamEventCloner
@@ -92,12 +96,12 @@ public class AndMultiPrimaryKeyCollectionExecutor implements CollectionExecutor
         if (multiPrimaryKeyExpressionExecutors.size() == 1) {
             return multiPrimaryKeyExpressionExecutors.get(0).execute(matchingEvent);
         } else {
-            StringBuilder stringBuilder = new StringBuilder();
-            for (ExpressionExecutor expressionExecutor : multiPrimaryKeyExpressionExecutors) {
-                stringBuilder.append(expressionExecutor.execute(matchingEvent))
-                        .append(SiddhiConstants.KEY_DELIMITER);
+            Object[] values = new Object[multiPrimaryKeyExpressionExecutors.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = CompositePrimaryKey.toAttributeType(
+                        multiPrimaryKeyExpressionExecutors.get(i).execute(matchingEvent), primaryKeyTypes[i]);
             }
-            return stringBuilder.toString();
+            return new CompositePrimaryKey(values);
         }
     }
 }
@@ -72,55 +72,58 @@ public class AnyAndCollectionExecutor implements CollectionExecutor {
         }
     }
 
+    /**
+     * Finds the events matching both conditions. The smaller of the two index results is iterated and each of its
+     * events is probed against the other result, hence only the matching events are collected. When either
+     * condition cannot be served by the indexes the events of the other condition are filtered per event.
+     */
     public Collection<StreamEvent> findEvents(StateEvent matchingEvent, IndexedEventHolder indexedEventHolder) {
         //limit for 10 is a magic number identified via performance test
         Collection<StreamEvent> lowCostStreamEvents = lowCollectionExecutor.findEvents(matchingEvent,
                 indexedEventHolder);
         if (lowCostStreamEvents == null) {
-            return null;
-        } else if (lowCostStreamEvents.size() > 0) {
-            if (lowCostStreamEvents.size() <= 10) {
-                return exhaustiveCollectionExecutor.findEvents(matchingEvent, lowCostStreamEvents);
-            } else {
-                Collection<StreamEvent> highCostStreamEvents = highCostCollectionExecutor.findEvents(
-                        matchingEvent, indexedEventHolder);
-
-                if (highCostStreamEvents == null) {
-                    return null;
-                } else if (highCostStreamEvents.size() > 0) {
-                    if (lowCostStreamEvents.size() <= 10) {
-                        return exhaustiveCollectionExecutor.findEvents(matchingEvent, highCostStreamEvents);
-                    } else {
-                        Set<StreamEvent> returnSet = new HashSet<StreamEvent>();
-                        if (highCostStreamEvents.size() > lowCostStreamEvents.size()) {
-                            for (StreamEvent aStreamEvent : lowCostStreamEvents) {
-                                if (highCostStreamEvents.contains(aStreamEvent)) {
-                                    returnSet.add(aStreamEvent);
-                                }
-                            }
-                        } else {
-                            for (StreamEvent aStreamEvent : highCostStreamEvents) {
-                                if (lowCostStreamEvents.contains(aStreamEvent)) {
-                                    returnSet.add(aStreamEvent);
-                                }
-                            }
-                        }
-                        return returnSet;
-                    }
-                } else {
-                    return highCostStreamEvents;
-                }
+            Collection<StreamEvent> highCostStreamEvents = highCostCollectionExecutor.findEvents(matchingEvent,
+                    indexedEventHolder);
+            if (highCostStreamEvents == null) {
+                return null;
+            } else if (highCostStreamEvents.isEmpty()) {
+                return highCostStreamEvents;
             }
-        } else {
+            return exhaustiveCollectionExecutor.findEvents(matchingEvent, highCostStreamEvents);
+        } else if (lowCostStreamEvents.isEmpty()) {
             return lowCostStreamEvents;
+        } else if (lowCostStreamEvents.size() <= 10) {
+            return exhaustiveCollectionExecutor.findEvents(matchingEvent, lowCostStreamEvents);
+        }
+        Collection<StreamEvent> highCostStreamEvents = highCostCollectionExecutor.findEvents(matchingEvent,
+                indexedEventHolder);
+        if (highCostStreamEvents == null) {
+            return exhaustiveCollectionExecutor.findEvents(matchingEvent, lowCostStreamEvents);
+        } else if (highCostStreamEvents.isEmpty()) {
+            return highCostStreamEvents;
+        } else if (highCostStreamEvents.size() <= 10) {
+            return exhaustiveCollectionExecutor.findEvents(matchingEvent, highCostStreamEvents);
+        }
+        Collection<StreamEvent> probingStreamEvents = lowCostStreamEvents;
+        Collection<StreamEvent> probedStreamEvents = highCostStreamEvents;
+        if (highCostStreamEvents.size() < lowCostStreamEvents.size()) {
+            probingStreamEvents = highCostStreamEvents;
+            probedStreamEvents = lowCostStreamEvents;
+        }
+        Set<StreamEvent> returnSet = new HashSet<StreamEvent>();
+        for (StreamEvent aStreamEvent : probingStreamEvents) {
+            if (probedStreamEvents.contains(aStreamEvent)) {
+                returnSet.add(aStreamEvent);
+            }
         }
+        return returnSet;
     }
 
     @Override
     public boolean contains(StateEvent matchingEvent, IndexedEventHolder indexedEventHolder) {
         Collection<StreamEvent> resultEventSet = findEvents(matchingEvent, indexedEventHolder);
         if (resultEventSet != null) {
-            return resultEventSet.size() > 0;
+            return !resultEventSet.isEmpty();
         } else {
             return exhaustiveCollectionExecutor.contains(matchingEvent, indexedEventHolder);
         }
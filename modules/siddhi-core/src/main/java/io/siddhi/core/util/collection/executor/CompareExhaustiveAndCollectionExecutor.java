@@ -46,7 +46,7 @@ public class CompareExhaustiveAndCollectionExecutor implements CollectionExecuto
                 indexedEventHolder);
         if (compareStreamEvents == null) {
             return exhaustiveCollectionExecutor.find(matchingEvent, indexedEventHolder, storeEventCloner);
-        } else if (compareStreamEvents.size() > 0) {
+        } else if (!compareStreamEvents.isEmpty()) {
             compareStreamEvents = exhaustiveCollectionExecutor.findEvents(matchingEvent, compareStreamEvents);
             ComplexEventChunk<StreamEvent> returnEventChunk = new ComplexEventChunk<StreamEvent>(false);
             for (StreamEvent resultEvent : compareStreamEvents) {
@@ -67,7 +67,7 @@ public class CompareExhaustiveAndCollectionExecutor implements CollectionExecuto
                 indexedEventHolder);
         if (compareStreamEvents == null) {
             return null;
-        } else if (compareStreamEvents.size() > 0) {
+        } else if (!compareStreamEvents.isEmpty()) {
             if (exhaustiveCollectionExecutor != null) {
                 return exhaustiveCollectionExecutor.findEvents(matchingEvent, compareStreamEvents);
             } else {
@@ -84,7 +84,7 @@ public class CompareExhaustiveAndCollectionExecutor implements CollectionExecuto
         if (compareStreamEvents == null) {
             return exhaustiveCollectionExecutor.contains(matchingEvent, indexedEventHolder);
         } else {
-            return compareStreamEvents.size() > 0;
+            return !compareStreamEvents.isEmpty();
         }
     }
 
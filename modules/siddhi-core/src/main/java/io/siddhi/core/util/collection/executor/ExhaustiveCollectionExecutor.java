@@ -24,9 +24,11 @@ import io.siddhi.core.event.stream.StreamEvent;
 import io.siddhi.core.event.stream.StreamEventCloner;
 import io.siddhi.core.executor.ExpressionExecutor;
 import io.siddhi.core.table.holder.IndexedEventHolder;
+import io.siddhi.core.util.collection.operator.MatchingStreamEventIterator;
 
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Set;
 
 /**
@@ -61,6 +63,16 @@ public class ExhaustiveCollectionExecutor implements CollectionExecutor {
         return returnEventChunk.getFirst();
     }
 
+    /**
+     * Finds the matching events as {@link #find(StateEvent, IndexedEventHolder, StreamEventCloner)} does, matching
+     * and copying each event only as it is consumed.
+     */
+    public Iterator<StreamEvent> findEvents(StateEvent matchingEvent, IndexedEventHolder indexedEventHolder,
+                                            StreamEventCloner storeEventCloner) {
+        return new MatchingStreamEventIterator(indexedEventHolder.getAllEvents().iterator(), matchingEvent,
+                expressionExecutor, storeEventIndex, storeEventCloner);
+    }
+
     public Collection<StreamEvent> findEvents(StateEvent matchingEvent, Collection<StreamEvent>
             preProcessedstoreEvents) {
         HashSet<StreamEvent> streamEvents = new HashSet<StreamEvent>();
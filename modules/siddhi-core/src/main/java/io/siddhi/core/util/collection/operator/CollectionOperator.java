@@ -57,6 +57,13 @@ public class CollectionOperator implements Operator {
 
     }
 
+    @Override
+    public Iterator<StreamEvent> findEvents(StateEvent matchingEvent, Object storeEvents,
+                                            StreamEventCloner storeEventCloner) {
+        return new MatchingStreamEventIterator(((Collection<StreamEvent>) storeEvents).iterator(), matchingEvent,
+                expressionExecutor, storeEventPosition, storeEventCloner);
+    }
+
     @Override
     public boolean contains(StateEvent matchingEvent, Object storeEvents) {
         try {
@@ -28,9 +28,11 @@ import io.siddhi.core.table.holder.IndexedEventHolder;
 import io.siddhi.core.table.holder.PrimaryKeyReferenceHolder;
 import io.siddhi.core.util.collection.AddingStreamEventExtractor;
 import io.siddhi.core.util.collection.executor.CollectionExecutor;
+import io.siddhi.core.util.collection.executor.ExhaustiveCollectionExecutor;
 import org.apache.log4j.Logger;
 
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 
@@ -53,6 +55,19 @@ public class IndexOperator implements Operator {
         return collectionExecutor.find(matchingEvent, (IndexedEventHolder) storeEvents, storeEventCloner);
     }
 
+    /**
+     * Scans the events lazily when the condition cannot use the indexes, else finds them through the indexes.
+     */
+    @Override
+    public Iterator<StreamEvent> findEvents(StateEvent matchingEvent, Object storeEvents,
+                                            StreamEventCloner storeEventCloner) {
+        if (collectionExecutor instanceof ExhaustiveCollectionExecutor) {
+            return ((ExhaustiveCollectionExecutor) collectionExecutor).findEvents(matchingEvent,
+                    (IndexedEventHolder) storeEvents, storeEventCloner);
+        }
+        return Operator.super.findEvents(matchingEvent, storeEvents, storeEventCloner);
+    }
+
     @Override
     public boolean contains(StateEvent matchingEvent, Object storeEvents) {
         return collectionExecutor.contains(matchingEvent, (IndexedEventHolder) storeEvents);
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.core.util.collection.operator;
+
+import io.siddhi.core.event.state.StateEvent;
+import io.siddhi.core.event.stream.StreamEvent;
+import io.siddhi.core.event.stream.StreamEventCloner;
+import io.siddhi.core.executor.ExpressionExecutor;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Iterator over copies of the store events matching an event, which matches and copies each store event only as it
+ * is consumed. The store events must not be modified while the iterator is in use.
+ */
+public class MatchingStreamEventIterator implements Iterator<StreamEvent> {
+
+    private final Iterator<StreamEvent> storeEvents;
+    private final StateEvent matchingEvent;
+    private final ExpressionExecutor expressionExecutor;
+    private final int storeEventPosition;
+    private final StreamEventCloner storeEventCloner;
+    private StreamEvent next;
+
+    public MatchingStreamEventIterator(Iterator<StreamEvent> storeEvents, StateEvent matchingEvent,
+                                       ExpressionExecutor expressionExecutor, int storeEventPosition,
+                                       StreamEventCloner storeEventCloner) {
+        this.storeEvents = storeEvents;
+        this.matchingEvent = matchingEvent;
+        this.expressionExecutor = expressionExecutor;
+        this.storeEventPosition = storeEventPosition;
+        this.storeEventCloner = storeEventCloner;
+    }
+
+    /**
+     * @param firstStoreEvent first of the chain of store events, which is traversed without being modified
+     */
+    public MatchingStreamEventIterator(StreamEvent firstStoreEvent, StateEvent matchingEvent,
+                                       ExpressionExecutor expressionExecutor, int storeEventPosition,
+                                       StreamEventCloner storeEventCloner) {
+        this(new ChainIterator(firstStoreEvent), matchingEvent, expressionExecutor, storeEventPosition,
+                storeEventCloner);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (next == null && storeEvents.hasNext()) {
+            StreamEvent storeEvent = storeEvents.next();
+            matchingEvent.setEvent(storeEventPosition, storeEvent);
+            try {
+                if ((Boolean) expressionExecutor.execute(matchingEvent)) {
+                    next = storeEvent;
+                }
+            } finally {
+                matchingEvent.setEvent(storeEventPosition, null);
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public StreamEvent next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        StreamEvent storeEvent = next;
+        next = null;
+        return storeEventCloner.copyStreamEvent(storeEvent);
+    }
+
+    private static class ChainIterator implements Iterator<StreamEvent> {
+        private StreamEvent next;
+
+        private ChainIterator(StreamEvent first) {
+            this.next = first;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public StreamEvent next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            StreamEvent streamEvent = next;
+            next = streamEvent.getNext();
+            return streamEvent;
+        }
+    }
+}
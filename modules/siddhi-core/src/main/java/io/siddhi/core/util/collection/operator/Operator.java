@@ -22,9 +22,12 @@ import io.siddhi.core.event.ComplexEventChunk;
 import io.siddhi.core.event.state.StateEvent;
 import io.siddhi.core.event.stream.StreamEvent;
 import io.siddhi.core.event.stream.StreamEventCloner;
+import io.siddhi.core.event.stream.StreamEventIterator;
 import io.siddhi.core.table.InMemoryCompiledUpdateSet;
 import io.siddhi.core.util.collection.AddingStreamEventExtractor;
 
+import java.util.Iterator;
+
 /**
  * Interface for Operators related to collection of events. These will be used by in-memory table implementation.
  */
@@ -33,6 +36,21 @@ public interface Operator extends CompiledCondition {
 
     StreamEvent find(StateEvent matchingEvent, Object storeEvents, StreamEventCloner storeEventCloner);
 
+    /**
+     * Finds the store events matching the event as {@link #find(StateEvent, Object, StreamEventCloner)} does, but
+     * returns an iterator, which operators scanning the store events implement by matching and copying each event
+     * only as it is consumed. The store events must not be modified until the iterator is read.
+     *
+     * @param matchingEvent    event the store events are matched with
+     * @param storeEvents      store events
+     * @param storeEventCloner cloner copying the matching store events
+     * @return iterator over the copies of the matching store events
+     */
+    default Iterator<StreamEvent> findEvents(StateEvent matchingEvent, Object storeEvents,
+                                             StreamEventCloner storeEventCloner) {
+        return new StreamEventIterator(find(matchingEvent, storeEvents, storeEventCloner));
+    }
+
     boolean contains(StateEvent matchingEvent, Object storeEvents);
 
     void delete(ComplexEventChunk<StateEvent> deletingEventChunk, Object storeEvents);
@@ -27,6 +27,7 @@ import io.siddhi.core.executor.ExpressionExecutor;
 import io.siddhi.core.table.InMemoryCompiledUpdateSet;
 import io.siddhi.core.util.collection.AddingStreamEventExtractor;
 
+import java.util.Iterator;
 import java.util.Map;
 
 /**
@@ -59,6 +60,13 @@ public class SnapshotableEventQueueOperator implements Operator {
 
     }
 
+    @Override
+    public Iterator<StreamEvent> findEvents(StateEvent matchingEvent, Object storeEvents,
+                                            StreamEventCloner storeEventCloner) {
+        return new MatchingStreamEventIterator(((SnapshotableStreamEventQueue) storeEvents).getFirst(),
+                matchingEvent, expressionExecutor, storeEventPosition, storeEventCloner);
+    }
+
     @Override
     public boolean contains(StateEvent matchingEvent, Object storeEvents) {
         SnapshotableStreamEventQueue storeEventQueue = (SnapshotableStreamEventQueue) storeEvents;
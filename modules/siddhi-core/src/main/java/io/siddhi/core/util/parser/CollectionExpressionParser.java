@@ -461,14 +461,17 @@ public class CollectionExpressionParser {
             List<Attribute> attributes = matchingMetaInfoHolder.getStoreDefinition().getAttributeList();
             StringBuilder compositePrimaryKey = new StringBuilder();
             List<ExpressionExecutor> sortedExecutors = new ArrayList<ExpressionExecutor>();
+            List<Attribute.Type> primaryKeyTypes = new ArrayList<Attribute.Type>();
             for (Attribute attribute : attributes) {
                 ExpressionExecutor expressionExecutor = multiPrimaryKeyExpressionExecutors.get(attribute.getName());
                 if (expressionExecutor != null) {
                     sortedExecutors.add(expressionExecutor);
+                    primaryKeyTypes.add(attribute.getType());
                     compositePrimaryKey.append(attribute.getName()).append(SiddhiConstants.KEY_DELIMITER);
                 }
             }
-            return new AndMultiPrimaryKeyCollectionExecutor(compositePrimaryKey.toString(), sortedExecutors);
+            return new AndMultiPrimaryKeyCollectionExecutor(compositePrimaryKey.toString(), sortedExecutors,
+                    primaryKeyTypes.toArray(new Attribute.Type[0]));
         } else if (collectionExpression instanceof AndCollectionExpression) {
             CollectionExpression leftCollectionExpression = ((AndCollectionExpression) collectionExpression)
                     .getLeftCollectionExpression();
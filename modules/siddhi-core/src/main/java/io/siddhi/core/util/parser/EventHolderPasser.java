@@ -122,7 +122,7 @@ public class EventHolderPasser {
             }
             StreamEventCloner streamEventCloner = new StreamEventCloner(metaStreamEvent, tableStreamEventFactory);
             return new ListEventHolder(tableStreamEventFactory, eventConverter,
-                    new StreamEventClonerHolder(streamEventCloner));
+                    new StreamEventClonerHolder(streamEventCloner), siddhiAppContext.getOperationChangeLogBudget());
         }
     }
 
@@ -462,7 +462,8 @@ public class ExpressionParser {
                             currentState, tableMap, executorList, groupBy, defaultStreamEventIndex,
                             processingMode, outputExpectsExpiredEvents, siddhiQueryContext);
                     attributeAggregatorExecutor.initAggregator(innerExpressionExecutors, processingMode,
-                            outputExpectsExpiredEvents, configReader, groupBy, siddhiQueryContext);
+                            outputExpectsExpiredEvents, configReader, groupBy,
+                            siddhiQueryContext.getSharedPanes(expression), siddhiQueryContext);
 //                    AbstractAggregationAttributeExecutor aggregationAttributeProcessor;
 //                    if (groupBy) {
 //                        aggregationAttributeProcessor = new GroupByAggregationAttributeExecutor(attributeAggregatorExecutor,
@@ -1253,6 +1254,10 @@ public class ExpressionParser {
                                                     List<VariableExpressionExecutor> executorList,
                                                     int defaultStreamEventIndex,
                                                     SiddhiQueryContext siddhiQueryContext) {
+        if (siddhiQueryContext != null && siddhiQueryContext.getStoreQueryParameters() != null &&
+                SiddhiConstants.STORE_QUERY_PARAMETER_ID.equals(variable.getStreamId())) {
+            return siddhiQueryContext.getStoreQueryParameters().createExecutor(variable.getAttributeName());
+        }
         String attributeName = variable.getAttributeName();
         int[] eventPosition = new int[2];
         if (variable.getStreamIndex() != null) {
@@ -0,0 +1,323 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.core.util.parser;
+
+import io.siddhi.core.aggregation.AggregationRuntime;
+import io.siddhi.core.config.SiddhiAppContext;
+import io.siddhi.core.exception.StoreQueryCreationException;
+import io.siddhi.core.query.PreparedStoreQuery;
+import io.siddhi.core.table.Table;
+import io.siddhi.core.util.SiddhiConstants;
+import io.siddhi.core.util.statistics.LatencyTracker;
+import io.siddhi.core.window.Window;
+import io.siddhi.query.api.definition.AbstractDefinition;
+import io.siddhi.query.api.definition.Attribute;
+import io.siddhi.query.api.execution.query.StoreQuery;
+import io.siddhi.query.api.execution.query.input.store.ConditionInputStore;
+import io.siddhi.query.api.execution.query.output.stream.DeleteStream;
+import io.siddhi.query.api.execution.query.output.stream.UpdateOrInsertStream;
+import io.siddhi.query.api.execution.query.output.stream.UpdateSet;
+import io.siddhi.query.api.execution.query.output.stream.UpdateStream;
+import io.siddhi.query.api.execution.query.selection.OutputAttribute;
+import io.siddhi.query.api.expression.AttributeFunction;
+import io.siddhi.query.api.expression.Expression;
+import io.siddhi.query.api.expression.Variable;
+import io.siddhi.query.api.expression.condition.And;
+import io.siddhi.query.api.expression.condition.Compare;
+import io.siddhi.query.api.expression.condition.In;
+import io.siddhi.query.api.expression.condition.IsNull;
+import io.siddhi.query.api.expression.condition.Not;
+import io.siddhi.query.api.expression.condition.Or;
+import io.siddhi.query.api.expression.constant.BoolConstant;
+import io.siddhi.query.api.expression.constant.DoubleConstant;
+import io.siddhi.query.api.expression.constant.FloatConstant;
+import io.siddhi.query.api.expression.constant.IntConstant;
+import io.siddhi.query.api.expression.constant.LongConstant;
+import io.siddhi.query.api.expression.constant.StringConstant;
+import io.siddhi.query.api.expression.math.Add;
+import io.siddhi.query.api.expression.math.Divide;
+import io.siddhi.query.api.expression.math.Mod;
+import io.siddhi.query.api.expression.math.Multiply;
+import io.siddhi.query.api.expression.math.Subtract;
+import io.siddhi.query.compiler.SiddhiCompiler;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Class to parse {@link PreparedStoreQuery}s, whose parameters are written as '?name' in the store query.
+ */
+public class PreparedStoreQueryParser {
+
+    private PreparedStoreQueryParser() {
+
+    }
+
+    /**
+     * Parse a store query with parameters and return the corresponding PreparedStoreQuery.
+     *
+     * @param storeQueryString store query with parameters written as '?name'.
+     * @param parameterTypes   types of the parameters whose types cannot be inferred from the query.
+     * @param siddhiAppContext associated Siddhi app context.
+     * @param tableMap         keyvalue containing tables.
+     * @param windowMap        keyvalue containing windows.
+     * @param aggregationMap   keyvalue containing aggregation runtimes.
+     * @param latencyTracker   latency tracker of the store queries, or null.
+     * @return PreparedStoreQuery
+     */
+    public static PreparedStoreQuery parse(String storeQueryString, Map<String, Attribute.Type> parameterTypes,
+                                           SiddhiAppContext siddhiAppContext, Map<String, Table> tableMap,
+                                           Map<String, Window> windowMap,
+                                           Map<String, AggregationRuntime> aggregationMap,
+                                           LatencyTracker latencyTracker) {
+        Set<String> parameterNames = new LinkedHashSet<>();
+        StoreQuery storeQuery = SiddhiCompiler.parseStoreQuery(replaceParameters(storeQueryString,
+                parameterNames));
+        for (String name : parameterTypes.keySet()) {
+            if (!parameterNames.contains(name)) {
+                throw new StoreQueryCreationException("Parameter '?" + name + "' is not used in the store query '" +
+                        storeQueryString + "'");
+            }
+        }
+        Map<String, Attribute.Type> inferredTypes = new LinkedHashMap<>(parameterTypes);
+        inferParameterTypes(storeQuery, inferredTypes, tableMap, windowMap, aggregationMap);
+        Map<String, Attribute.Type> resolvedTypes = new LinkedHashMap<>();
+        for (String name : parameterNames) {
+            Attribute.Type type = inferredTypes.get(name);
+            if (type == null) {
+                throw new StoreQueryCreationException("Type of the parameter '?" + name + "' cannot be inferred " +
+                        "from the store query '" + storeQueryString + "', hence it should be given when " +
+                        "preparing the query");
+            }
+            resolvedTypes.put(name, type);
+        }
+        return new PreparedStoreQuery(storeQuery, storeQueryString, resolvedTypes, siddhiAppContext, tableMap,
+                windowMap, aggregationMap, latencyTracker);
+    }
+
+    /**
+     * Replaces the '?name' parameters outside quotes and comments with variables of a reserved stream id, which the
+     * expression parsers resolve to the parameters.
+     */
+    private static String replaceParameters(String storeQueryString, Set<String> parameterNames) {
+        StringBuilder replaced = new StringBuilder(storeQueryString.length());
+        int length = storeQueryString.length();
+        int i = 0;
+        while (i < length) {
+            char c = storeQueryString.charAt(i);
+            int end;
+            if (storeQueryString.startsWith("\"\"\"", i)) {
+                end = indexAfter(storeQueryString, "\"\"\"", i + 3);
+            } else if (c == '\'' || c == '"' || c == '`') {
+                end = indexAfter(storeQueryString, String.valueOf(c), i + 1);
+            } else if (storeQueryString.startsWith("--", i)) {
+                end = indexAfter(storeQueryString, "\n", i + 2);
+            } else if (storeQueryString.startsWith("/*", i)) {
+                end = indexAfter(storeQueryString, "*/", i + 2);
+            } else if (c == '?' && i + 1 < length && isIdStart(storeQueryString.charAt(i + 1))) {
+                end = i + 2;
+                while (end < length && isIdPart(storeQueryString.charAt(end))) {
+                    end++;
+                }
+                String name = storeQueryString.substring(i + 1, end);
+                parameterNames.add(name);
+                replaced.append(SiddhiConstants.STORE_QUERY_PARAMETER_ID).append('.').append(name);
+                i = end;
+                continue;
+            } else {
+                end = i + 1;
+            }
+            replaced.append(storeQueryString, i, end);
+            i = end;
+        }
+        return replaced.toString();
+    }
+
+    private static int indexAfter(String string, String token, int fromIndex) {
+        int index = string.indexOf(token, fromIndex);
+        return index < 0 ? string.length() : index + token.length();
+    }
+
+    private static boolean isIdStart(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_';
+    }
+
+    private static boolean isIdPart(char c) {
+        return isIdStart(c) || (c >= '0' && c <= '9');
+    }
+
+    /**
+     * Infers the types of the parameters compared or computed with attributes of the queried store or constants, and
+     * of the parameters selected into the attributes of the store being written.
+     */
+    private static void inferParameterTypes(StoreQuery storeQuery, Map<String, Attribute.Type> parameterTypes,
+                                            Map<String, Table> tableMap, Map<String, Window> windowMap,
+                                            Map<String, AggregationRuntime> aggregationMap) {
+        AbstractDefinition storeDefinition;
+        Expression onCondition = null;
+        UpdateSet updateSet = null;
+        if (storeQuery.getType() == StoreQuery.StoreQueryType.FIND) {
+            String storeId = storeQuery.getInputStore().getStoreId();
+            if (tableMap.containsKey(storeId)) {
+                storeDefinition = tableMap.get(storeId).getTableDefinition();
+            } else if (windowMap.containsKey(storeId)) {
+                storeDefinition = windowMap.get(storeId).getWindowDefinition();
+            } else if (aggregationMap.containsKey(storeId)) {
+                storeDefinition = aggregationMap.get(storeId).getAggregationDefinition();
+            } else {
+                return;
+            }
+            if (storeQuery.getInputStore() instanceof ConditionInputStore) {
+                onCondition = ((ConditionInputStore) storeQuery.getInputStore()).getOnCondition();
+            }
+        } else {
+            Table table = tableMap.get(storeQuery.getOutputStream().getId());
+            if (table == null) {
+                return;
+            }
+            storeDefinition = table.getTableDefinition();
+            if (storeQuery.getOutputStream() instanceof DeleteStream) {
+                onCondition = ((DeleteStream) storeQuery.getOutputStream()).getOnDeleteExpression();
+            } else if (storeQuery.getOutputStream() instanceof UpdateStream) {
+                onCondition = ((UpdateStream) storeQuery.getOutputStream()).getOnUpdateExpression();
+                updateSet = ((UpdateStream) storeQuery.getOutputStream()).getUpdateSet();
+            } else if (storeQuery.getOutputStream() instanceof UpdateOrInsertStream) {
+                onCondition = ((UpdateOrInsertStream) storeQuery.getOutputStream()).getOnUpdateExpression();
+                updateSet = ((UpdateOrInsertStream) storeQuery.getOutputStream()).getUpdateSet();
+            }
+            for (OutputAttribute outputAttribute : storeQuery.getSelector().getSelectionList()) {
+                if (isParameter(outputAttribute.getExpression())) {
+                    inferParameterType((Variable) outputAttribute.getExpression(),
+                            new Variable(outputAttribute.getRename()), storeDefinition, parameterTypes);
+                }
+            }
+        }
+        if (onCondition != null) {
+            inferParameterTypes(onCondition, storeDefinition, parameterTypes);
+        }
+        if (updateSet != null) {
+            for (UpdateSet.SetAttribute setAttribute : updateSet.getSetAttributeList()) {
+                if (isParameter(setAttribute.getAssignmentExpression())) {
+                    inferParameterType((Variable) setAttribute.getAssignmentExpression(),
+                            setAttribute.getTableVariable(), storeDefinition, parameterTypes);
+                } else {
+                    inferParameterTypes(setAttribute.getAssignmentExpression(), storeDefinition, parameterTypes);
+                }
+            }
+        }
+        for (OutputAttribute outputAttribute : storeQuery.getSelector().getSelectionList()) {
+            inferParameterTypes(outputAttribute.getExpression(), storeDefinition, parameterTypes);
+        }
+        if (storeQuery.getSelector().getHavingExpression() != null) {
+            inferParameterTypes(storeQuery.getSelector().getHavingExpression(), storeDefinition, parameterTypes);
+        }
+    }
+
+    private static void inferParameterTypes(Expression expression, AbstractDefinition storeDefinition,
+                                            Map<String, Attribute.Type> parameterTypes) {
+        if (expression instanceof And) {
+            inferParameterTypes(((And) expression).getLeftExpression(), storeDefinition, parameterTypes);
+            inferParameterTypes(((And) expression).getRightExpression(), storeDefinition, parameterTypes);
+        } else if (expression instanceof Or) {
+            inferParameterTypes(((Or) expression).getLeftExpression(), storeDefinition, parameterTypes);
+            inferParameterTypes(((Or) expression).getRightExpression(), storeDefinition, parameterTypes);
+        } else if (expression instanceof Not) {
+            inferParameterTypes(((Not) expression).getExpression(), storeDefinition, parameterTypes);
+        } else if (expression instanceof IsNull) {
+            inferParameterTypes(((IsNull) expression).getExpression(), storeDefinition, parameterTypes);
+        } else if (expression instanceof In) {
+            inferParameterTypes(((In) expression).getExpression(), storeDefinition, parameterTypes);
+        } else if (expression instanceof Compare) {
+            inferOperandTypes(((Compare) expression).getLeftExpression(), ((Compare) expression).getRightExpression(),
+                    storeDefinition, parameterTypes);
+        } else if (expression instanceof Add) {
+            inferOperandTypes(((Add) expression).getLeftValue(), ((Add) expression).getRightValue(),
+                    storeDefinition, parameterTypes);
+        } else if (expression instanceof Subtract) {
+            inferOperandTypes(((Subtract) expression).getLeftValue(), ((Subtract) expression).getRightValue(),
+                    storeDefinition, parameterTypes);
+        } else if (expression instanceof Multiply) {
+            inferOperandTypes(((Multiply) expression).getLeftValue(), ((Multiply) expression).getRightValue(),
+                    storeDefinition, parameterTypes);
+        } else if (expression instanceof Divide) {
+            inferOperandTypes(((Divide) expression).getLeftValue(), ((Divide) expression).getRightValue(),
+                    storeDefinition, parameterTypes);
+        } else if (expression instanceof Mod) {
+            inferOperandTypes(((Mod) expression).getLeftValue(), ((Mod) expression).getRightValue(),
+                    storeDefinition, parameterTypes);
+        } else if (expression instanceof AttributeFunction &&
+                ((AttributeFunction) expression).getParameters() != null) {
+            for (Expression parameter : ((AttributeFunction) expression).getParameters()) {
+                inferParameterTypes(parameter, storeDefinition, parameterTypes);
+            }
+        }
+    }
+
+    private static void inferOperandTypes(Expression left, Expression right, AbstractDefinition storeDefinition,
+                                          Map<String, Attribute.Type> parameterTypes) {
+        if (isParameter(left)) {
+            inferParameterType((Variable) left, right, storeDefinition, parameterTypes);
+        } else {
+            inferParameterTypes(left, storeDefinition, parameterTypes);
+        }
+        if (isParameter(right)) {
+            inferParameterType((Variable) right, left, storeDefinition, parameterTypes);
+        } else {
+            inferParameterTypes(right, storeDefinition, parameterTypes);
+        }
+    }
+
+    private static void inferParameterType(Variable parameter, Expression operand,
+                                           AbstractDefinition storeDefinition,
+                                           Map<String, Attribute.Type> parameterTypes) {
+        if (parameterTypes.containsKey(parameter.getAttributeName())) {
+            return;
+        }
+        Attribute.Type type = null;
+        if (operand instanceof Variable && !isParameter(operand)) {
+            String attributeName = ((Variable) operand).getAttributeName();
+            if (Arrays.asList(storeDefinition.getAttributeNameArray()).contains(attributeName)) {
+                type = storeDefinition.getAttributeType(attributeName);
+            }
+        } else if (operand instanceof StringConstant) {
+            type = Attribute.Type.STRING;
+        } else if (operand instanceof IntConstant) {
+            type = Attribute.Type.INT;
+        } else if (operand instanceof LongConstant) {
+            type = Attribute.Type.LONG;
+        } else if (operand instanceof FloatConstant) {
+            type = Attribute.Type.FLOAT;
+        } else if (operand instanceof DoubleConstant) {
+            type = Attribute.Type.DOUBLE;
+        } else if (operand instanceof BoolConstant) {
+            type = Attribute.Type.BOOL;
+        }
+        if (type != null) {
+            parameterTypes.put(parameter.getAttributeName(), type);
+        }
+    }
+
+    private static boolean isParameter(Expression expression) {
+        return expression instanceof Variable &&
+                SiddhiConstants.STORE_QUERY_PARAMETER_ID.equals(((Variable) expression).getStreamId());
+    }
+}
@@ -52,11 +52,17 @@ import io.siddhi.query.api.execution.query.input.stream.JoinInputStream;
 import io.siddhi.query.api.execution.query.input.stream.SingleInputStream;
 import io.siddhi.query.api.execution.query.output.ratelimit.SnapshotOutputRate;
 import io.siddhi.query.api.execution.query.output.stream.OutputStream;
+import io.siddhi.query.api.execution.query.selection.OutputAttribute;
+import io.siddhi.query.api.expression.AttributeFunction;
+import io.siddhi.query.api.expression.Expression;
 import io.siddhi.query.api.util.AnnotationHelper;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
@@ -132,6 +138,9 @@ public class QueryParser {
                     streamDefinitionMap, tableDefinitionMap, windowDefinitionMap,
                     aggregationDefinitionMap, tableMap, windowMap, aggregationMap, executors,
                     outputExpectsExpiredEvents, siddhiQueryContext);
+            if (siddhiQueryContext.isPaned() && !partitioned) {
+                setPaneSharing(query, streamDefinitionMap, siddhiQueryContext);
+            }
             QuerySelector selector = SelectorParser.parse(query.getSelector(), query.getOutputStream(),
                     streamRuntime.getMetaComplexEvent(), tableMap, executors,
                     SiddhiConstants.UNKNOWN_STATE, streamRuntime.getProcessingMode(), outputExpectsExpiredEvents,
@@ -251,4 +260,30 @@ public class QueryParser {
         }
         return queryRuntime;
     }
+
+    /**
+     * Let the aggregations of a query consuming a stream only through a sliding time window in pane mode share
+     * their panes with the queries doing the same. Only the aggregations directly selected are shared, as they are
+     * evaluated for every event.
+     */
+    private static void setPaneSharing(Query query, Map<String, AbstractDefinition> streamDefinitionMap,
+                                       SiddhiQueryContext siddhiQueryContext) {
+        if (!(query.getInputStream() instanceof SingleInputStream)) {
+            return;
+        }
+        SingleInputStream inputStream = (SingleInputStream) query.getInputStream();
+        if (inputStream.isInnerStream() || inputStream.isFaultStream() ||
+                !streamDefinitionMap.containsKey(inputStream.getStreamId()) ||
+                inputStream.getStreamHandlers().size() != 1) {
+            return;
+        }
+        Set<Expression> paneSharableAggregations = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (OutputAttribute outputAttribute : query.getSelector().getSelectionList()) {
+            if (outputAttribute.getExpression() instanceof AttributeFunction) {
+                paneSharableAggregations.add(outputAttribute.getExpression());
+            }
+        }
+        siddhiQueryContext.setPaneSharing(inputStream.getStreamId() + ":" + siddhiQueryContext.getPaneTime() +
+                ":" + query.getSelector().getGroupByList(), paneSharableAggregations);
+    }
 }
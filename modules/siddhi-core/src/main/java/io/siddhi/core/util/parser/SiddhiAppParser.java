@@ -29,6 +29,8 @@ import io.siddhi.core.util.IdGenerator;
 import io.siddhi.core.util.SiddhiAppRuntimeBuilder;
 import io.siddhi.core.util.SiddhiConstants;
 import io.siddhi.core.util.ThreadBarrier;
+import io.siddhi.core.util.snapshot.BinaryStateSerializer;
+import io.siddhi.core.util.snapshot.PersistencePipeline;
 import io.siddhi.core.util.snapshot.SnapshotService;
 import io.siddhi.core.util.statistics.metrics.Level;
 import io.siddhi.core.util.timestamp.TimestampGenerator;
@@ -216,6 +218,81 @@ public class SiddhiAppParser {
                 siddhiAppContext.setTimestampGenerator(new TimestampGeneratorImpl(siddhiAppContext));
             }
             siddhiAppContext.setSnapshotService(new SnapshotService(siddhiAppContext));
+            siddhiAppContext.setPersistencePipeline(new PersistencePipeline(siddhiAppContext));
+            annotation = AnnotationHelper.getAnnotation(SiddhiConstants.ANNOTATION_SNAPSHOT,
+                    siddhiApp.getAnnotations());
+            if (annotation != null) {
+                for (Element e : annotation.getElements()) {
+                    if (SiddhiConstants.ANNOTATION_ELEMENT_MODE.equalsIgnoreCase(e.getKey())) {
+                        if (SiddhiConstants.SNAPSHOT_MODE_COPY.equalsIgnoreCase(e.getValue())) {
+                            siddhiAppContext.setSnapshotCopyEnabled(true);
+                        } else if (!SiddhiConstants.SNAPSHOT_MODE_BLOCKING.equalsIgnoreCase(e.getValue())) {
+                            throw new SiddhiAppValidationException("Snapshot annotation accepts only '" +
+                                    SiddhiConstants.SNAPSHOT_MODE_BLOCKING + "' and '" +
+                                    SiddhiConstants.SNAPSHOT_MODE_COPY + "' as mode but found '" + e.getValue() +
+                                    "'");
+                        }
+                    } else if (SiddhiConstants.ANNOTATION_ELEMENT_SERIALIZER.equalsIgnoreCase(e.getKey())) {
+                        if (SiddhiConstants.SNAPSHOT_SERIALIZER_BINARY.equalsIgnoreCase(e.getValue())) {
+                            siddhiAppContext.getSnapshotService().setStateSerializer(new BinaryStateSerializer());
+                        } else if (!SiddhiConstants.SNAPSHOT_SERIALIZER_JAVA.equalsIgnoreCase(e.getValue())) {
+                            throw new SiddhiAppValidationException("Snapshot annotation accepts only '" +
+                                    SiddhiConstants.SNAPSHOT_SERIALIZER_JAVA + "' and '" +
+                                    SiddhiConstants.SNAPSHOT_SERIALIZER_BINARY + "' as serializer but found '" +
+                                    e.getValue() + "'");
+                        }
+                    } else if (SiddhiConstants.ANNOTATION_ELEMENT_PARALLELISM.equalsIgnoreCase(e.getKey())) {
+                        int parallelism;
+                        try {
+                            parallelism = Integer.parseInt(e.getValue());
+                        } catch (NumberFormatException ex) {
+                            parallelism = 0;
+                        }
+                        if (parallelism < 1) {
+                            throw new SiddhiAppValidationException("Snapshot annotation accepts only a positive " +
+                                    "integer as parallelism but found '" + e.getValue() + "'");
+                        }
+                        siddhiAppContext.getSnapshotService().setParallelism(parallelism);
+                    } else if (SiddhiConstants.ANNOTATION_ELEMENT_CHANGE_LOG_BUDGET.equalsIgnoreCase(e.getKey())) {
+                        long changeLogBudget;
+                        try {
+                            changeLogBudget = Long.parseLong(e.getValue());
+                        } catch (NumberFormatException ex) {
+                            changeLogBudget = 0;
+                        }
+                        if (changeLogBudget < 1) {
+                            throw new SiddhiAppValidationException("Snapshot annotation accepts only a positive " +
+                                    "number of bytes as change.log.budget but found '" + e.getValue() + "'");
+                        }
+                        siddhiAppContext.setOperationChangeLogBudget(changeLogBudget);
+                    } else if (SiddhiConstants.ANNOTATION_ELEMENT_MAX_IN_FLIGHT.equalsIgnoreCase(e.getKey())) {
+                        int maxInFlight;
+                        try {
+                            maxInFlight = Integer.parseInt(e.getValue());
+                        } catch (NumberFormatException ex) {
+                            maxInFlight = 0;
+                        }
+                        if (maxInFlight < 1) {
+                            throw new SiddhiAppValidationException("Snapshot annotation accepts only a positive " +
+                                    "integer as max.in.flight but found '" + e.getValue() + "'");
+                        }
+                        siddhiAppContext.getPersistencePipeline().setMaxInFlightCheckpoints(maxInFlight);
+                    } else if (SiddhiConstants.ANNOTATION_ELEMENT_RESTORE.equalsIgnoreCase(e.getKey())) {
+                        if (SiddhiConstants.SNAPSHOT_RESTORE_LAZY.equalsIgnoreCase(e.getValue())) {
+                            siddhiAppContext.getSnapshotService().setLazyRestore(true);
+                        } else if (!SiddhiConstants.SNAPSHOT_RESTORE_EAGER.equalsIgnoreCase(e.getValue())) {
+                            throw new SiddhiAppValidationException("Snapshot annotation accepts only '" +
+                                    SiddhiConstants.SNAPSHOT_RESTORE_EAGER + "' and '" +
+                                    SiddhiConstants.SNAPSHOT_RESTORE_LAZY + "' as restore but found '" +
+                                    e.getValue() + "'");
+                        }
+                    } else {
+                        throw new SiddhiAppValidationException("Snapshot annotation accepts only mode, " +
+                                "serializer, parallelism, change.log.budget, max.in.flight and restore but found " +
+                                e.getKey());
+                    }
+                }
+            }
             siddhiAppContext.setIdGenerator(new IdGenerator());
 
         } catch (DuplicateAnnotationException e) {
@@ -36,6 +36,7 @@ import io.siddhi.core.query.DeleteStoreQueryRuntime;
 import io.siddhi.core.query.FindStoreQueryRuntime;
 import io.siddhi.core.query.InsertStoreQueryRuntime;
 import io.siddhi.core.query.SelectStoreQueryRuntime;
+import io.siddhi.core.query.StoreQueryParameters;
 import io.siddhi.core.query.StoreQueryRuntime;
 import io.siddhi.core.query.UpdateOrInsertStoreQueryRuntime;
 import io.siddhi.core.query.UpdateStoreQueryRuntime;
@@ -99,6 +100,25 @@ public class StoreQueryParser {
     public static StoreQueryRuntime parse(StoreQuery storeQuery, SiddhiAppContext siddhiAppContext,
                                           Map<String, Table> tableMap, Map<String, Window> windowMap,
                                           Map<String, AggregationRuntime> aggregationMap) {
+        return parse(storeQuery, siddhiAppContext, tableMap, windowMap, aggregationMap, null);
+    }
+
+    /**
+     * Parse a prepared storeQuery and return corresponding StoreQueryRuntime, binding its parameters to the given
+     * holder.
+     *
+     * @param storeQuery           storeQuery to be parsed.
+     * @param siddhiAppContext     associated Siddhi app context.
+     * @param tableMap             keyvalue containing tables.
+     * @param windowMap            keyvalue containing windows.
+     * @param aggregationMap       keyvalue containing aggregation runtimes.
+     * @param storeQueryParameters parameters of the prepared storeQuery, or null if it has none.
+     * @return StoreQueryRuntime
+     */
+    public static StoreQueryRuntime parse(StoreQuery storeQuery, SiddhiAppContext siddhiAppContext,
+                                          Map<String, Table> tableMap, Map<String, Window> windowMap,
+                                          Map<String, AggregationRuntime> aggregationMap,
+                                          StoreQueryParameters storeQueryParameters) {
 
         final LockWrapper lockWrapper = new LockWrapper("StoreQueryLock");
         lockWrapper.setLock(new ReentrantLock());
@@ -119,6 +139,7 @@ public class StoreQueryParser {
                 Expression per = null;
                 queryName = "store_select_query_" + storeQuery.getInputStore().getStoreId();
                 siddhiQueryContext = new SiddhiQueryContext(siddhiAppContext, queryName);
+                siddhiQueryContext.setStoreQueryParameters(storeQueryParameters);
                 InputStore inputStore = storeQuery.getInputStore();
                 try {
                     onCondition = Expression.value(true);
@@ -179,6 +200,7 @@ public class StoreQueryParser {
                 InsertIntoStream inserIntoStreamt = (InsertIntoStream) storeQuery.getOutputStream();
                 queryName = "store_insert_query_" + inserIntoStreamt.getId();
                 siddhiQueryContext = new SiddhiQueryContext(siddhiAppContext, queryName);
+                siddhiQueryContext.setStoreQueryParameters(storeQueryParameters);
                 onCondition = Expression.value(true);
 
                 return getStoreQueryRuntime(storeQuery, tableMap, windowMap, metaPosition,
@@ -187,6 +209,7 @@ public class StoreQueryParser {
                 DeleteStream deleteStream = (DeleteStream) storeQuery.getOutputStream();
                 queryName = "store_delete_query_" + deleteStream.getId();
                 siddhiQueryContext = new SiddhiQueryContext(siddhiAppContext, queryName);
+                siddhiQueryContext.setStoreQueryParameters(storeQueryParameters);
                 onCondition = deleteStream.getOnDeleteExpression();
 
                 return getStoreQueryRuntime(storeQuery, tableMap, windowMap, metaPosition,
@@ -195,6 +218,7 @@ public class StoreQueryParser {
                 UpdateStream outputStream = (UpdateStream) storeQuery.getOutputStream();
                 queryName = "store_update_query_" + outputStream.getId();
                 siddhiQueryContext = new SiddhiQueryContext(siddhiAppContext, queryName);
+                siddhiQueryContext.setStoreQueryParameters(storeQueryParameters);
                 onCondition = outputStream.getOnUpdateExpression();
 
                 return getStoreQueryRuntime(storeQuery, tableMap, windowMap, metaPosition,
@@ -203,6 +227,7 @@ public class StoreQueryParser {
                 UpdateOrInsertStream storeQueryOutputStream = (UpdateOrInsertStream) storeQuery.getOutputStream();
                 queryName = "store_update_or_insert_query_" + storeQueryOutputStream.getId();
                 siddhiQueryContext = new SiddhiQueryContext(siddhiAppContext, queryName);
+                siddhiQueryContext.setStoreQueryParameters(storeQueryParameters);
                 onCondition = storeQueryOutputStream.getOnUpdateExpression();
 
                 return getStoreQueryRuntime(storeQuery, tableMap, windowMap, metaPosition,
@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.core.util.parser.helper;
+
+import io.siddhi.core.event.stream.MetaStreamEvent;
+import io.siddhi.core.util.collection.operator.MatchingMetaInfoHolder;
+import io.siddhi.query.api.definition.AbstractDefinition;
+import io.siddhi.query.api.expression.AttributeFunction;
+import io.siddhi.query.api.expression.Expression;
+import io.siddhi.query.api.expression.Variable;
+import io.siddhi.query.api.expression.condition.And;
+import io.siddhi.query.api.expression.condition.Compare;
+import io.siddhi.query.api.expression.condition.IsNull;
+import io.siddhi.query.api.expression.condition.Not;
+import io.siddhi.query.api.expression.condition.Or;
+import io.siddhi.query.api.expression.constant.Constant;
+import io.siddhi.query.api.expression.math.Add;
+import io.siddhi.query.api.expression.math.Divide;
+import io.siddhi.query.api.expression.math.Mod;
+import io.siddhi.query.api.expression.math.Multiply;
+import io.siddhi.query.api.expression.math.Subtract;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Helper for analysing the conditions of table operations
+ */
+public class TableConditionHelper {
+
+    private TableConditionHelper() {
+
+    }
+
+    /**
+     * Collects the table attributes the condition requires to be equal to a value of the matching event or a
+     * constant, considering only the comparisons joined by 'and' at the top of the condition.
+     *
+     * @param condition              condition of the table operation
+     * @param matchingMetaInfoHolder meta information of the matching and table events
+     * @param tableDefinition        definition of the table
+     * @return map of table attribute names to the expressions they are compared with
+     */
+    public static Map<String, Expression> getTableEqualities(Expression condition,
+                                                             MatchingMetaInfoHolder matchingMetaInfoHolder,
+                                                             AbstractDefinition tableDefinition) {
+        Map<String, Expression> equalities = new HashMap<>();
+        collectTableEqualities(condition, matchingMetaInfoHolder, tableDefinition, equalities);
+        return equalities;
+    }
+
+    /**
+     * Collects the table attributes the expression reads.
+     *
+     * @param expression             expression of the table operation
+     * @param matchingMetaInfoHolder meta information of the matching and table events
+     * @param tableDefinition        definition of the table
+     * @return names of the table attributes read, or null if the expression reads other tables or uses constructs
+     * whose reads are not known
+     */
+    public static Set<String> getTableAttributes(Expression expression, MatchingMetaInfoHolder matchingMetaInfoHolder,
+                                                 AbstractDefinition tableDefinition) {
+        Set<String> attributes = new HashSet<>();
+        if (collectTableAttributes(expression, matchingMetaInfoHolder, tableDefinition, attributes)) {
+            return attributes;
+        }
+        return null;
+    }
+
+    private static boolean collectTableAttributes(Expression expression,
+                                                  MatchingMetaInfoHolder matchingMetaInfoHolder,
+                                                  AbstractDefinition tableDefinition, Set<String> attributes) {
+        if (expression instanceof Constant) {
+            return true;
+        } else if (expression instanceof Variable) {
+            if (isTableVariable(expression, matchingMetaInfoHolder, tableDefinition)) {
+                attributes.add(((Variable) expression).getAttributeName());
+            }
+            return true;
+        } else if (expression instanceof And) {
+            return collectTableAttributes(((And) expression).getLeftExpression(), matchingMetaInfoHolder,
+                    tableDefinition, attributes) && collectTableAttributes(((And) expression).getRightExpression(),
+                    matchingMetaInfoHolder, tableDefinition, attributes);
+        } else if (expression instanceof Or) {
+            return collectTableAttributes(((Or) expression).getLeftExpression(), matchingMetaInfoHolder,
+                    tableDefinition, attributes) && collectTableAttributes(((Or) expression).getRightExpression(),
+                    matchingMetaInfoHolder, tableDefinition, attributes);
+        } else if (expression instanceof Compare) {
+            return collectTableAttributes(((Compare) expression).getLeftExpression(), matchingMetaInfoHolder,
+                    tableDefinition, attributes) && collectTableAttributes(((Compare) expression)
+                    .getRightExpression(), matchingMetaInfoHolder, tableDefinition, attributes);
+        } else if (expression instanceof Not) {
+            return collectTableAttributes(((Not) expression).getExpression(), matchingMetaInfoHolder,
+                    tableDefinition, attributes);
+        } else if (expression instanceof IsNull) {
+            return ((IsNull) expression).getExpression() != null && collectTableAttributes(
+                    ((IsNull) expression).getExpression(), matchingMetaInfoHolder, tableDefinition, attributes);
+        } else if (expression instanceof Add) {
+            return collectTableAttributes(((Add) expression).getLeftValue(), matchingMetaInfoHolder,
+                    tableDefinition, attributes) && collectTableAttributes(((Add) expression).getRightValue(),
+                    matchingMetaInfoHolder, tableDefinition, attributes);
+        } else if (expression instanceof Subtract) {
+            return collectTableAttributes(((Subtract) expression).getLeftValue(), matchingMetaInfoHolder,
+                    tableDefinition, attributes) && collectTableAttributes(((Subtract) expression).getRightValue(),
+                    matchingMetaInfoHolder, tableDefinition, attributes);
+        } else if (expression instanceof Multiply) {
+            return collectTableAttributes(((Multiply) expression).getLeftValue(), matchingMetaInfoHolder,
+                    tableDefinition, attributes) && collectTableAttributes(((Multiply) expression).getRightValue(),
+                    matchingMetaInfoHolder, tableDefinition, attributes);
+        } else if (expression instanceof Divide) {
+            return collectTableAttributes(((Divide) expression).getLeftValue(), matchingMetaInfoHolder,
+                    tableDefinition, attributes) && collectTableAttributes(((Divide) expression).getRightValue(),
+                    matchingMetaInfoHolder, tableDefinition, attributes);
+        } else if (expression instanceof Mod) {
+            return collectTableAttributes(((Mod) expression).getLeftValue(), matchingMetaInfoHolder,
+                    tableDefinition, attributes) && collectTableAttributes(((Mod) expression).getRightValue(),
+                    matchingMetaInfoHolder, tableDefinition, attributes);
+        } else if (expression instanceof AttributeFunction) {
+            if (((AttributeFunction) expression).getParameters() == null) {
+                return true;
+            }
+            for (Expression parameter : ((AttributeFunction) expression).getParameters()) {
+                if (!collectTableAttributes(parameter, matchingMetaInfoHolder, tableDefinition, attributes)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static void collectTableEqualities(Expression expression, MatchingMetaInfoHolder matchingMetaInfoHolder,
+                                               AbstractDefinition tableDefinition,
+                                               Map<String, Expression> equalities) {
+        if (expression instanceof And) {
+            collectTableEqualities(((And) expression).getLeftExpression(), matchingMetaInfoHolder, tableDefinition,
+                    equalities);
+            collectTableEqualities(((And) expression).getRightExpression(), matchingMetaInfoHolder, tableDefinition,
+                    equalities);
+        } else if (expression instanceof Compare &&
+                ((Compare) expression).getOperator() == Compare.Operator.EQUAL) {
+            Expression left = ((Compare) expression).getLeftExpression();
+            Expression right = ((Compare) expression).getRightExpression();
+            if (isTableVariable(left, matchingMetaInfoHolder, tableDefinition) &&
+                    isMatchingValue(right, matchingMetaInfoHolder, tableDefinition)) {
+                equalities.put(((Variable) left).getAttributeName(), right);
+            } else if (isTableVariable(right, matchingMetaInfoHolder, tableDefinition) &&
+                    isMatchingValue(left, matchingMetaInfoHolder, tableDefinition)) {
+                equalities.put(((Variable) right).getAttributeName(), left);
+            }
+        }
+    }
+
+    private static boolean isMatchingValue(Expression expression, MatchingMetaInfoHolder matchingMetaInfoHolder,
+                                           AbstractDefinition tableDefinition) {
+        return expression instanceof Constant || (expression instanceof Variable &&
+                matchingMetaInfoHolder.getMatchingStreamEventIndex() >= 0 &&
+                !isTableVariable(expression, matchingMetaInfoHolder, tableDefinition));
+    }
+
+    private static boolean isTableVariable(Expression expression, MatchingMetaInfoHolder matchingMetaInfoHolder,
+                                           AbstractDefinition tableDefinition) {
+        if (!(expression instanceof Variable)) {
+            return false;
+        }
+        Variable variable = (Variable) expression;
+        if (variable.getStreamId() == null) {
+            boolean isTableAttribute = Arrays.asList(tableDefinition.getAttributeNameArray())
+                    .contains(variable.getAttributeName());
+            if (matchingMetaInfoHolder.getMatchingStreamEventIndex() < 0) {
+                return isTableAttribute;
+            }
+            return isTableAttribute && !Arrays.asList(matchingMetaInfoHolder.getMatchingStreamDefinition()
+                    .getAttributeNameArray()).contains(variable.getAttributeName());
+        }
+        MetaStreamEvent tableStreamEvent = matchingMetaInfoHolder.getMetaStateEvent()
+                .getMetaStreamEvent(matchingMetaInfoHolder.getStoreEventIndex());
+        return tableStreamEvent != null &&
+                (variable.getStreamId().equals(tableStreamEvent.getInputReferenceId()) ||
+                        variable.getStreamId().equals(tableStreamEvent.getLastInputDefinition().getId()));
+    }
+}
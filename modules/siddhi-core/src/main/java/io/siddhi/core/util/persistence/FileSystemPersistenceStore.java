@@ -18,37 +18,61 @@
 
 package io.siddhi.core.util.persistence;
 
+import com.google.common.io.ByteStreams;
 import com.google.common.io.Files;
 import io.siddhi.core.exception.CannotClearSiddhiAppStateException;
 import io.siddhi.core.util.persistence.util.PersistenceConstants;
+import io.siddhi.core.util.persistence.util.SnapshotCodec;
 import org.apache.log4j.Logger;
 
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Implementation of Persistence Store that would persist snapshots to the file system
+ * Implementation of Persistence Store that would persist snapshots to the file system. Revisions are written
+ * atomically, and the revisions of each Siddhi app are kept in an index file, which the retention of revisions and
+ * the lookup of the last revision are served from, instead of listing the directory of the Siddhi app.
  */
-public class FileSystemPersistenceStore implements PersistenceStore {
+public class FileSystemPersistenceStore implements StreamingPersistenceStore {
 
     private static final Logger log = Logger.getLogger(FileSystemPersistenceStore.class);
+    private static final String REVISION_INDEX_FILE = "revisions";
     private int numberOfRevisionsToSave;
     private String folder;
+    private SnapshotCodec codec = SnapshotCodec.NONE;
+    private final Map<String, TreeSet<String>> revisionIndexes = new ConcurrentHashMap<>();
 
     @Override
     public void save(String siddhiAppName, String revision, byte[] snapshot) {
+        save(siddhiAppName, revision, outputStream -> outputStream.write(snapshot));
+    }
+
+    @Override
+    public void save(String siddhiAppName, String revision, SnapshotWriter snapshotWriter) {
         File file = new File(folder + File.separator + siddhiAppName + File.separator + revision);
         try {
-            Files.createParentDirs(file);
-            Files.write(snapshot, file);
-            cleanOldRevisions(siddhiAppName);
-            if (log.isDebugEnabled()) {
-                log.debug("Periodic persistence of " + siddhiAppName + " persisted successfully.");
-            }
+            SnapshotFiles.write(file, codec, snapshotWriter);
         } catch (IOException e) {
             log.error("Cannot save the revision " + revision + " of SiddhiApp: " + siddhiAppName +
                     " to the file system.", e);
+            return;
+        }
+        try {
+            addRevision(siddhiAppName, revision);
+        } catch (IOException e) {
+            log.error("Saved the revision " + revision + " of SiddhiApp: " + siddhiAppName + ", but cannot " +
+                    "write the revision index to the file system.", e);
+            return;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Periodic persistence of " + siddhiAppName + " persisted successfully.");
         }
     }
 
@@ -67,6 +91,10 @@ public class FileSystemPersistenceStore implements PersistenceStore {
         }
 
         if (configurationMap != null) {
+            Object compressionObject = configurationMap.get(PersistenceConstants.STATE_PERSISTENCE_COMPRESSION);
+            if (compressionObject != null) {
+                codec = SnapshotCodec.fromName(String.valueOf(compressionObject));
+            }
             Object folderObject = configurationMap.get("location");
             if (folderObject == null || !(folderObject instanceof String)) {
                 folder = PersistenceConstants.DEFAULT_FILE_PERSISTENCE_FOLDER;
@@ -89,7 +117,10 @@ public class FileSystemPersistenceStore implements PersistenceStore {
     public byte[] load(String siddhiAppName, String revision) {
         File file = new File(folder + File.separator + siddhiAppName + File.separator + revision);
         try {
-            byte[] bytes = Files.toByteArray(file);
+            byte[] bytes;
+            try (InputStream inputStream = openSnapshot(file)) {
+                bytes = ByteStreams.toByteArray(inputStream);
+            }
             log.info("State loaded for " + siddhiAppName + " revision " + revision + " from the file system.");
             return bytes;
         } catch (IOException e) {
@@ -100,26 +131,30 @@ public class FileSystemPersistenceStore implements PersistenceStore {
     }
 
     @Override
-    public String getLastRevision(String siddhiAppName) {
-        File dir = new File(folder + File.separator + siddhiAppName);
-        File[] files = dir.listFiles();
-
-        if (files == null || files.length == 0) {
-            return null;
+    public InputStream loadAsStream(String siddhiAppName, String revision) {
+        File file = new File(folder + File.separator + siddhiAppName + File.separator + revision);
+        try {
+            InputStream inputStream = openSnapshot(file);
+            log.info("State loading for " + siddhiAppName + " revision " + revision + " from the file system.");
+            return inputStream;
+        } catch (IOException e) {
+            log.error("Cannot load the revision " + revision + " of SiddhiApp: " + siddhiAppName +
+                    " from file system.", e);
         }
+        return null;
+    }
 
-        String lastRevision = null;
-        for (File file : files) {
-            String fileName = file.getName();
-            if (lastRevision == null || fileName.compareTo(lastRevision) > 0) {
-                lastRevision = fileName;
-            }
+    @Override
+    public String getLastRevision(String siddhiAppName) {
+        TreeSet<String> revisions = getRevisionIndex(siddhiAppName);
+        synchronized (revisions) {
+            return revisions.isEmpty() ? null : revisions.last();
         }
-        return lastRevision;
     }
 
     @Override
     public void clearAllRevisions(String siddhiAppName) {
+        revisionIndexes.remove(siddhiAppName);
         File targetDirectory = new File(folder + File.separator + siddhiAppName);
         File[] files = targetDirectory.listFiles();
 
@@ -141,35 +176,77 @@ public class FileSystemPersistenceStore implements PersistenceStore {
     }
 
     /**
-     * Method to remove revisions that are older than the user specified amount
+     * Adds a revision to the index of the Siddhi app, removing the revisions that are older than the user specified
+     * amount.
      *
-     * @param siddhiAppName is the name of the Siddhi Application whose old revisions to remove
+     * @param siddhiAppName is the name of the Siddhi Application whose revision is saved
+     * @param revision      is the saved revision
      */
-
-    private void cleanOldRevisions(String siddhiAppName) {
+    private void addRevision(String siddhiAppName, String revision) throws IOException {
         File targetDirectory = new File(folder + File.separator + siddhiAppName);
-        File[] files = targetDirectory.listFiles();
-        if (files != null) {
-            while (files.length > numberOfRevisionsToSave) {
-                String firstRevision = null;
-                for (File file : files) {
-                    String fileName = file.getName();
-                    if (firstRevision == null || fileName.compareTo(firstRevision) < 0) {
-                        firstRevision = fileName;
-                    }
+        TreeSet<String> revisions = getRevisionIndex(siddhiAppName);
+        synchronized (revisions) {
+            revisions.add(revision);
+            while (revisions.size() > numberOfRevisionsToSave) {
+                String firstRevision = revisions.pollFirst();
+                File fileToDelete = new File(targetDirectory, firstRevision);
+                if (fileToDelete.exists() && !fileToDelete.delete()) {
+                    log.error("Error deleting old revision " + firstRevision);
                 }
-                File fileToDelete = new File(targetDirectory + File.separator + firstRevision);
-                if (fileToDelete.exists()) {
-                    Boolean isDeleted = fileToDelete.delete();
-                    if (!isDeleted) {
-                        log.error("Error deleting old revision " + firstRevision);
+            }
+            SnapshotFiles.write(SnapshotFiles.getHiddenFile(targetDirectory, REVISION_INDEX_FILE), SnapshotCodec.NONE,
+                    outputStream -> {
+                        for (String indexedRevision : revisions) {
+                            outputStream.write((indexedRevision + "\n").getBytes(StandardCharsets.UTF_8));
+                        }
+                    });
+        }
+    }
+
+    private TreeSet<String> getRevisionIndex(String siddhiAppName) {
+        return revisionIndexes.computeIfAbsent(siddhiAppName, this::loadRevisionIndex);
+    }
+
+    /**
+     * Loads the revision index of a Siddhi app. Directories persisted before revisions were indexed, or whose index
+     * cannot be read, are listed once to build the index.
+     */
+    private TreeSet<String> loadRevisionIndex(String siddhiAppName) {
+        File targetDirectory = new File(folder + File.separator + siddhiAppName);
+        TreeSet<String> revisions = new TreeSet<>();
+        File indexFile = SnapshotFiles.getHiddenFile(targetDirectory, REVISION_INDEX_FILE);
+        if (indexFile.exists()) {
+            try {
+                for (String revision : Files.readLines(indexFile, StandardCharsets.UTF_8)) {
+                    if (!revision.isEmpty() && new File(targetDirectory, revision).exists()) {
+                        revisions.add(revision);
                     }
                 }
-                files = targetDirectory.listFiles();
-                if (files == null || files.length < 1) {
-                    break;
-                }
+                return revisions;
+            } catch (IOException e) {
+                log.error("Cannot read the revision index of SiddhiApp: " + siddhiAppName + ", hence the " +
+                        "revisions are listed from the file system.", e);
+            }
+        }
+        File[] files = SnapshotFiles.listRevisionFiles(targetDirectory);
+        if (files != null) {
+            for (File file : files) {
+                revisions.add(file.getName());
             }
         }
+        return revisions;
+    }
+
+    /**
+     * Opens the file of a snapshot, decompressing it if it is compressed.
+     */
+    private InputStream openSnapshot(File file) throws IOException {
+        InputStream inputStream = new BufferedInputStream(new FileInputStream(file));
+        try {
+            return SnapshotCodec.decode(inputStream);
+        } catch (IOException e) {
+            inputStream.close();
+            throw e;
+        }
     }
 }
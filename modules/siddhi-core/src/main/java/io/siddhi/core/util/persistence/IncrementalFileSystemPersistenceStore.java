@@ -18,15 +18,20 @@
 
 package io.siddhi.core.util.persistence;
 
-import com.google.common.io.Files;
+import com.google.common.io.ByteStreams;
 import io.siddhi.core.exception.CannotClearSiddhiAppStateException;
+import io.siddhi.core.exception.PersistenceStoreException;
 import io.siddhi.core.util.persistence.util.IncrementalSnapshotInfo;
 import io.siddhi.core.util.persistence.util.PersistenceConstants;
 import io.siddhi.core.util.persistence.util.PersistenceHelper;
+import io.siddhi.core.util.persistence.util.SnapshotCodec;
 import org.apache.log4j.Logger;
 
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -34,10 +39,11 @@ import java.util.Map;
 /**
  * Implementation of Persistence Store that would persist snapshots to the file system
  */
-public class IncrementalFileSystemPersistenceStore implements IncrementalPersistenceStore {
+public class IncrementalFileSystemPersistenceStore implements StreamingIncrementalPersistenceStore {
 
     private static final Logger log = Logger.getLogger(IncrementalFileSystemPersistenceStore.class);
     private String folder;
+    private SnapshotCodec codec = SnapshotCodec.NONE;
 
     public IncrementalFileSystemPersistenceStore() {
     }
@@ -46,13 +52,22 @@ public class IncrementalFileSystemPersistenceStore implements IncrementalPersist
         folder = storageFilePath;
     }
 
+    public IncrementalFileSystemPersistenceStore(String storageFilePath, SnapshotCodec codec) {
+        folder = storageFilePath;
+        this.codec = codec;
+    }
+
     @Override
     public void save(IncrementalSnapshotInfo snapshotInfo, byte[] snapshot) {
+        save(snapshotInfo, outputStream -> outputStream.write(snapshot));
+    }
+
+    @Override
+    public void save(IncrementalSnapshotInfo snapshotInfo, SnapshotWriter snapshotWriter) {
         File file = new File(folder + File.separator + snapshotInfo.getSiddhiAppId() + File.separator +
                 snapshotInfo.getRevision());
         try {
-            Files.createParentDirs(file);
-            Files.write(snapshot, file);
+            SnapshotFiles.write(file, codec, snapshotWriter);
             cleanOldRevisions(snapshotInfo);
             if (log.isDebugEnabled()) {
                 log.debug("Incremental persistence of '" + snapshotInfo.getSiddhiAppId() +
@@ -61,12 +76,21 @@ public class IncrementalFileSystemPersistenceStore implements IncrementalPersist
         } catch (IOException e) {
             log.error("Cannot save the revision '" + snapshotInfo.getRevision() + "' of SiddhiApp: '" +
                     snapshotInfo.getSiddhiAppId() + "' to the file system.", e);
+            // fails the checkpoint, such that the states of the revision are captured again by the next one
+            throw new PersistenceStoreException("Cannot save the revision '" + snapshotInfo.getRevision() +
+                    "' of SiddhiApp: '" + snapshotInfo.getSiddhiAppId() + "' to the file system.", e);
         }
     }
 
     @Override
     public void setProperties(Map properties) {
-        //nothing to do
+        Map configurationMap = (Map) properties.get(PersistenceConstants.STATE_PERSISTENCE_CONFIGS);
+        if (configurationMap != null) {
+            Object compressionObject = configurationMap.get(PersistenceConstants.STATE_PERSISTENCE_COMPRESSION);
+            if (compressionObject != null) {
+                codec = SnapshotCodec.fromName(String.valueOf(compressionObject));
+            }
+        }
     }
 
     @Override
@@ -75,7 +99,9 @@ public class IncrementalFileSystemPersistenceStore implements IncrementalPersist
                 snapshotInfo.getRevision());
         byte[] bytes = null;
         try {
-            bytes = Files.toByteArray(file);
+            try (InputStream inputStream = openSnapshot(file)) {
+                bytes = ByteStreams.toByteArray(inputStream);
+            }
             if (log.isDebugEnabled()) {
                 log.debug("State loaded for SiddhiApp '" + snapshotInfo.getSiddhiAppId() + "' revision '" +
                         snapshotInfo.getRevision() + "' from file system.");
@@ -87,11 +113,29 @@ public class IncrementalFileSystemPersistenceStore implements IncrementalPersist
         return bytes;
     }
 
+    @Override
+    public InputStream loadAsStream(IncrementalSnapshotInfo snapshotInfo) {
+        File file = new File(folder + File.separator + snapshotInfo.getSiddhiAppId() + File.separator +
+                snapshotInfo.getRevision());
+        try {
+            InputStream inputStream = openSnapshot(file);
+            if (log.isDebugEnabled()) {
+                log.debug("State loading for SiddhiApp '" + snapshotInfo.getSiddhiAppId() + "' revision '" +
+                        snapshotInfo.getRevision() + "' from file system.");
+            }
+            return inputStream;
+        } catch (IOException e) {
+            log.error("Cannot load the revision '" + snapshotInfo.getRevision() + "' of SiddhiApp '" +
+                    snapshotInfo.getSiddhiAppId() + "' from file system.", e);
+        }
+        return null;
+    }
+
     @Override
     public List<IncrementalSnapshotInfo> getListOfRevisionsToLoad(long restoreTime, String siddhiAppName) {
 
         File dir = new File(folder + File.separator + siddhiAppName);
-        File[] files = dir.listFiles();
+        File[] files = SnapshotFiles.listRevisionFiles(dir);
         if (files == null || files.length == 0) {
             return null;
         }
@@ -119,7 +163,7 @@ public class IncrementalFileSystemPersistenceStore implements IncrementalPersist
         long restoreTime = -1;
         IncrementalSnapshotInfo lastSnapshotInfo = null;
         File dir = new File(folder + File.separator + siddhiAppName);
-        File[] files = dir.listFiles();
+        File[] files = SnapshotFiles.listRevisionFiles(dir);
         if (files == null || files.length == 0) {
             return null;
         }
@@ -170,7 +214,7 @@ public class IncrementalFileSystemPersistenceStore implements IncrementalPersist
     private void cleanOldRevisions(IncrementalSnapshotInfo incrementalSnapshotInfo) {
         if (incrementalSnapshotInfo.getType() != IncrementalSnapshotInfo.SnapshotType.INCREMENT) {
             File dir = new File(folder + File.separator + incrementalSnapshotInfo.getSiddhiAppId());
-            File[] files = dir.listFiles();
+            File[] files = SnapshotFiles.listRevisionFiles(dir);
             if (files != null) {
                 long baseTimeStamp = (incrementalSnapshotInfo.getTime());
                 for (File file : files) {
@@ -200,4 +244,17 @@ public class IncrementalFileSystemPersistenceStore implements IncrementalPersist
             }
         }
     }
+
+    /**
+     * Opens the file of a snapshot, decompressing it if it is compressed.
+     */
+    private InputStream openSnapshot(File file) throws IOException {
+        InputStream inputStream = new BufferedInputStream(new FileInputStream(file));
+        try {
+            return SnapshotCodec.decode(inputStream);
+        } catch (IOException e) {
+            inputStream.close();
+            throw e;
+        }
+    }
 }
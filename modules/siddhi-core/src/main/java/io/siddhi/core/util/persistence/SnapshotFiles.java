@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.siddhi.core.util.persistence;
+
+import io.siddhi.core.util.persistence.util.SnapshotCodec;
+import org.apache.log4j.Logger;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes the files of file system persistence stores, such that a file is either fully written or not present at
+ * all. A file is written to a temporary file next to it, synced to the disk, and renamed atomically to its name.
+ * Temporary files, and the other files of the stores that are not revisions, are named starting with a dot.
+ */
+final class SnapshotFiles {
+
+    private static final Logger log = Logger.getLogger(SnapshotFiles.class);
+    private static final String HIDDEN_FILE_PREFIX = ".";
+    private static final String TEMPORARY_FILE_SUFFIX = ".tmp";
+
+    private SnapshotFiles() {
+
+    }
+
+    /**
+     * @param file           file to write
+     * @param codec          codec to compress the written content with
+     * @param snapshotWriter writer of the content
+     * @throws IOException if the file cannot be written, in which case the file is left as it was
+     */
+    static void write(File file, SnapshotCodec codec, SnapshotWriter snapshotWriter) throws IOException {
+        File directory = file.getAbsoluteFile().getParentFile();
+        Files.createDirectories(directory.toPath());
+        File temporaryFile = new File(directory, HIDDEN_FILE_PREFIX + file.getName() + TEMPORARY_FILE_SUFFIX);
+        try {
+            try (OutputStream fileOutputStream = new BufferedOutputStream(new FileOutputStream(temporaryFile));
+                 OutputStream outputStream = codec.encode(fileOutputStream)) {
+                snapshotWriter.writeTo(outputStream);
+            }
+            try (FileChannel fileChannel = FileChannel.open(temporaryFile.toPath(), StandardOpenOption.WRITE)) {
+                fileChannel.force(true);
+            }
+            try {
+                Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            if (temporaryFile.exists() && !temporaryFile.delete()) {
+                log.error("Error deleting temporary file " + temporaryFile.getName());
+            }
+        }
+        syncDirectory(directory);
+    }
+
+    /**
+     * Syncs the renaming of a file to the disk. Directories cannot be opened on every platform, hence the renaming is
+     * left to the file system when the directory cannot be synced.
+     */
+    private static void syncDirectory(File directory) {
+        try (FileChannel directoryChannel = FileChannel.open(directory.toPath(), StandardOpenOption.READ)) {
+            directoryChannel.force(true);
+        } catch (IOException e) {
+            if (log.isDebugEnabled()) {
+                log.debug("Cannot sync the directory " + directory, e);
+            }
+        }
+    }
+
+    /**
+     * @param directory directory of a Siddhi app in a store
+     * @return the revision files in the directory, or null if the directory does not exist
+     */
+    static File[] listRevisionFiles(File directory) {
+        return directory.listFiles(file -> !file.getName().startsWith(HIDDEN_FILE_PREFIX));
+    }
+
+    /**
+     * @param directory directory of a Siddhi app in a store
+     * @param name      name of the file, which is hidden from the revisions
+     * @return the file
+     */
+    static File getHiddenFile(File directory, String name) {
+        return new File(directory, HIDDEN_FILE_PREFIX + name);
+    }
+}
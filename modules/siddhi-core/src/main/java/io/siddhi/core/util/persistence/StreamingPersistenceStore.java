@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.siddhi.core.util.persistence;
+
+import java.io.InputStream;
+
+/**
+ * {@link PersistenceStore} which writes and reads snapshots as streams, such that snapshots are not materialized as
+ * byte arrays when they are persisted and restored.
+ */
+public interface StreamingPersistenceStore extends PersistenceStore {
+
+    void save(String siddhiAppId, String revision, SnapshotWriter snapshotWriter);
+
+    /**
+     * @param siddhiAppId id of the Siddhi app
+     * @param revision    revision to load
+     * @return stream of the snapshot which the caller should close, or null if the revision cannot be loaded
+     */
+    InputStream loadAsStream(String siddhiAppId, String revision);
+
+}
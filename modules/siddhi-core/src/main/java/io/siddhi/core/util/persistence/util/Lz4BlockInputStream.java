@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.siddhi.core.util.persistence.util;
+
+import java.io.DataInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StreamCorruptedException;
+
+/**
+ * Input stream decompressing the blocks written by {@link Lz4BlockOutputStream}.
+ */
+class Lz4BlockInputStream extends FilterInputStream {
+
+    private final DataInputStream dataInputStream;
+    private final byte[] block = new byte[Lz4BlockOutputStream.BLOCK_SIZE];
+    private final byte[] compressedBlock = new byte[Lz4BlockOutputStream.BLOCK_SIZE +
+            Lz4BlockOutputStream.BLOCK_SIZE / 255 + 16];
+    private int blockLength;
+    private int blockPosition;
+    private boolean ended;
+
+    Lz4BlockInputStream(InputStream inputStream) {
+        super(inputStream);
+        this.dataInputStream = new DataInputStream(inputStream);
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return block[blockPosition++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        int readLength = Math.min(length, blockLength - blockPosition);
+        System.arraycopy(block, blockPosition, bytes, offset, readLength);
+        blockPosition += readLength;
+        return readLength;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = 0;
+        while (skipped < n && fill()) {
+            int skipLength = (int) Math.min(n - skipped, blockLength - blockPosition);
+            blockPosition += skipLength;
+            skipped += skipLength;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return blockLength - blockPosition;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    private boolean fill() throws IOException {
+        while (blockPosition == blockLength) {
+            if (ended) {
+                return false;
+            }
+            int length = dataInputStream.readInt();
+            if (length == 0) {
+                ended = true;
+                return false;
+            }
+            int compressedLength = dataInputStream.readInt();
+            if (length < 0 || length > block.length) {
+                throw new StreamCorruptedException("Invalid compressed block length " + length);
+            }
+            if ((compressedLength & Lz4BlockOutputStream.RAW_BLOCK) != 0) {
+                dataInputStream.readFully(block, 0, length);
+            } else {
+                if (compressedLength < 0 || compressedLength > compressedBlock.length) {
+                    throw new StreamCorruptedException("Invalid compressed block length " + compressedLength);
+                }
+                dataInputStream.readFully(compressedBlock, 0, compressedLength);
+                decompress(compressedLength, length);
+            }
+            blockLength = length;
+            blockPosition = 0;
+        }
+        return true;
+    }
+
+    private void decompress(int compressedLength, int length) throws IOException {
+        int sourcePosition = 0;
+        int targetPosition = 0;
+        try {
+            while (true) {
+                int token = compressedBlock[sourcePosition++] & 0xFF;
+                int literalsLength = token >>> 4;
+                if (literalsLength == 15) {
+                    int lengthByte;
+                    do {
+                        lengthByte = compressedBlock[sourcePosition++] & 0xFF;
+                        literalsLength += lengthByte;
+                    } while (lengthByte == 255);
+                }
+                System.arraycopy(compressedBlock, sourcePosition, block, targetPosition, literalsLength);
+                sourcePosition += literalsLength;
+                targetPosition += literalsLength;
+                if (sourcePosition >= compressedLength) {
+                    break;
+                }
+                int offset = (compressedBlock[sourcePosition++] & 0xFF) |
+                        (compressedBlock[sourcePosition++] & 0xFF) << 8;
+                int matchLength = token & 0x0F;
+                if (matchLength == 15) {
+                    int lengthByte;
+                    do {
+                        lengthByte = compressedBlock[sourcePosition++] & 0xFF;
+                        matchLength += lengthByte;
+                    } while (lengthByte == 255);
+                }
+                matchLength += Lz4BlockOutputStream.MIN_MATCH;
+                int matchPosition = targetPosition - offset;
+                if (offset == 0 || matchPosition < 0) {
+                    throw new StreamCorruptedException("Invalid compressed block match offset " + offset);
+                }
+                for (int i = 0; i < matchLength; i++) {
+                    block[targetPosition++] = block[matchPosition + i];
+                }
+            }
+        } catch (IndexOutOfBoundsException e) {
+            throw new StreamCorruptedException("Malformed compressed block");
+        }
+        if (targetPosition != length) {
+            throw new StreamCorruptedException("Compressed block decompressed to " + targetPosition +
+                    " bytes instead of " + length);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        ended = true;
+        super.close();
+    }
+}
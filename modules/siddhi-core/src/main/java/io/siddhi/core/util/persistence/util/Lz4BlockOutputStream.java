@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.siddhi.core.util.persistence.util;
+
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Output stream compressing the bytes written to it in blocks using the LZ4 block format. Each block is written as
+ * its length, its compressed length, and its compressed bytes, or its raw bytes when it does not compress, while a
+ * block of length zero marks the end of the stream.
+ */
+class Lz4BlockOutputStream extends FilterOutputStream {
+
+    static final int BLOCK_SIZE = 65536;
+    static final int MIN_MATCH = 4;
+    static final int RAW_BLOCK = 0x80000000;
+    private static final int HASH_LOG = 14;
+    private static final int LAST_LITERALS = 5;
+    private static final int MATCH_FIND_LIMIT = 12;
+    private static final int MAX_OFFSET = 65535;
+
+    private final DataOutputStream dataOutputStream;
+    private final byte[] block = new byte[BLOCK_SIZE];
+    private final byte[] compressedBlock = new byte[BLOCK_SIZE + BLOCK_SIZE / 255 + 16];
+    private final int[] hashTable = new int[1 << HASH_LOG];
+    private int blockLength;
+    private boolean closed;
+
+    Lz4BlockOutputStream(OutputStream outputStream) {
+        super(outputStream);
+        this.dataOutputStream = new DataOutputStream(outputStream);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (blockLength == BLOCK_SIZE) {
+            writeBlock();
+        }
+        block[blockLength++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0) {
+            if (blockLength == BLOCK_SIZE) {
+                writeBlock();
+            }
+            int copyLength = Math.min(length, BLOCK_SIZE - blockLength);
+            System.arraycopy(bytes, offset, block, blockLength, copyLength);
+            blockLength += copyLength;
+            offset += copyLength;
+            length -= copyLength;
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (blockLength > 0) {
+            writeBlock();
+        }
+        dataOutputStream.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (blockLength > 0) {
+                writeBlock();
+            }
+            dataOutputStream.writeInt(0);
+            dataOutputStream.flush();
+        } finally {
+            out.close();
+        }
+    }
+
+    private void writeBlock() throws IOException {
+        int compressedLength = compress(block, blockLength, compressedBlock);
+        dataOutputStream.writeInt(blockLength);
+        if (compressedLength < blockLength) {
+            dataOutputStream.writeInt(compressedLength);
+            dataOutputStream.write(compressedBlock, 0, compressedLength);
+        } else {
+            dataOutputStream.writeInt(blockLength | RAW_BLOCK);
+            dataOutputStream.write(block, 0, blockLength);
+        }
+        blockLength = 0;
+    }
+
+    private int compress(byte[] source, int length, byte[] target) {
+        Arrays.fill(hashTable, -1);
+        int targetPosition = 0;
+        int anchor = 0;
+        int position = 0;
+        int matchFindLimit = length - MATCH_FIND_LIMIT;
+        while (position < matchFindLimit) {
+            int sequence = readInt(source, position);
+            int hash = (sequence * -1640531535) >>> (32 - HASH_LOG);
+            int reference = hashTable[hash];
+            hashTable[hash] = position;
+            if (reference < 0 || position - reference > MAX_OFFSET || readInt(source, reference) != sequence) {
+                position++;
+                continue;
+            }
+            int matchLength = MIN_MATCH;
+            int matchLimit = length - LAST_LITERALS;
+            while (position + matchLength < matchLimit && source[reference + matchLength] ==
+                    source[position + matchLength]) {
+                matchLength++;
+            }
+            targetPosition = writeSequence(source, anchor, position - anchor, matchLength, target,
+                    targetPosition);
+            target[targetPosition++] = (byte) (position - reference);
+            target[targetPosition++] = (byte) ((position - reference) >>> 8);
+            if (matchLength - MIN_MATCH >= 15) {
+                targetPosition = writeLength(matchLength - MIN_MATCH - 15, target, targetPosition);
+            }
+            position += matchLength;
+            anchor = position;
+        }
+        return writeSequence(source, anchor, length - anchor, 0, target, targetPosition);
+    }
+
+    /**
+     * Writes the token and the literals of a sequence. The match offset and the rest of the match length of a
+     * sequence followed by a match are written by the caller.
+     */
+    private int writeSequence(byte[] source, int literalsStart, int literalsLength, int matchLength, byte[] target,
+                              int targetPosition) {
+        int tokenPosition = targetPosition++;
+        int token = Math.min(literalsLength, 15) << 4;
+        if (matchLength > 0) {
+            token |= Math.min(matchLength - MIN_MATCH, 15);
+        }
+        if (literalsLength >= 15) {
+            targetPosition = writeLength(literalsLength - 15, target, targetPosition);
+        }
+        System.arraycopy(source, literalsStart, target, targetPosition, literalsLength);
+        targetPosition += literalsLength;
+        target[tokenPosition] = (byte) token;
+        return targetPosition;
+    }
+
+    private static int writeLength(int length, byte[] target, int targetPosition) {
+        while (length >= 255) {
+            target[targetPosition++] = (byte) 255;
+            length -= 255;
+        }
+        target[targetPosition++] = (byte) length;
+        return targetPosition;
+    }
+
+    private static int readInt(byte[] bytes, int position) {
+        return (bytes[position] & 0xFF) | (bytes[position + 1] & 0xFF) << 8 | (bytes[position + 2] & 0xFF) << 16 |
+                (bytes[position + 3] & 0xFF) << 24;
+    }
+}
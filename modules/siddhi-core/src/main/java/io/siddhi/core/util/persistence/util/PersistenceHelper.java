@@ -22,13 +22,12 @@ import io.siddhi.core.config.SiddhiAppContext;
 import io.siddhi.core.exception.PersistenceStoreException;
 import io.siddhi.core.util.snapshot.AsyncIncrementalSnapshotPersistor;
 import io.siddhi.core.util.snapshot.AsyncSnapshotPersistor;
+import io.siddhi.core.util.snapshot.CapturedSnapshot;
 import io.siddhi.core.util.snapshot.IncrementalSnapshot;
+import io.siddhi.core.util.snapshot.PersistencePipeline;
 import io.siddhi.core.util.snapshot.PersistenceReference;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Map;
-import java.util.concurrent.Future;
 
 /**
  * Helper Class to persist snapshots
@@ -50,71 +49,74 @@ public final class PersistenceHelper {
     }
 
     public static PersistenceReference persist(byte[] serializeObj, SiddhiAppContext siddhiAppContext) {
-        long revisionTime = System.currentTimeMillis();
-        // start the snapshot persisting task asynchronously
-        AsyncSnapshotPersistor asyncSnapshotPersistor = new AsyncSnapshotPersistor(serializeObj,
-                siddhiAppContext.getSiddhiContext().getPersistenceStore(), siddhiAppContext.getName(),
-                revisionTime);
-        Future future = siddhiAppContext.getExecutorService().submit(asyncSnapshotPersistor);
-        return new PersistenceReference(future, asyncSnapshotPersistor.getRevision());
+        return persist(new CapturedSnapshot(serializeObj, siddhiAppContext), siddhiAppContext);
+    }
+
+    public static PersistenceReference persist(CapturedSnapshot capturedSnapshot,
+                                               SiddhiAppContext siddhiAppContext) {
+        return persist(capturedSnapshot, siddhiAppContext,
+                siddhiAppContext.getPersistencePipeline().startCheckpoint(false));
+    }
+
+    public static PersistenceReference persist(CapturedSnapshot capturedSnapshot, SiddhiAppContext siddhiAppContext,
+                                               PersistencePipeline.Checkpoint checkpoint) {
+        try {
+            // start the snapshot serializing and persisting task asynchronously
+            AsyncSnapshotPersistor asyncSnapshotPersistor = new AsyncSnapshotPersistor(capturedSnapshot,
+                    siddhiAppContext.getSiddhiContext().getPersistenceStore(), siddhiAppContext.getName(),
+                    checkpoint.getRevisionTime());
+            checkpoint.submit(asyncSnapshotPersistor, asyncSnapshotPersistor::getPersistedSize);
+        } finally {
+            checkpoint.seal();
+        }
+        return checkpoint.getReference();
     }
 
     public static PersistenceReference persist(IncrementalSnapshot serializeObj, SiddhiAppContext siddhiAppContext) {
-        long revisionTime = System.currentTimeMillis();
-        List<Future> incrementalFutures = new ArrayList<>();
-        //Periodic state
-        Map<String, Map<String, byte[]>> periodicStateBase = serializeObj.getPeriodicState();
-        if (periodicStateBase != null) {
-            periodicStateBase.forEach((partitionId, value) -> {
-                value.forEach((id, value1) -> {
-                    String[] items = id.split(PersistenceConstants.REVISION_SEPARATOR);
-                    AsyncIncrementalSnapshotPersistor asyncIncrementSnapshotPersistor = new
-                            AsyncIncrementalSnapshotPersistor(value1,
-                            siddhiAppContext.getSiddhiContext().getIncrementalPersistenceStore(),
-                            new IncrementalSnapshotInfo(siddhiAppContext.getName(), partitionId, items[1], items[2],
-                                    revisionTime, IncrementalSnapshotInfo.SnapshotType.PERIODIC, items[0]));
-                    Future future = siddhiAppContext.getExecutorService().
-                            submit(asyncIncrementSnapshotPersistor);
-                    incrementalFutures.add(future);
-                });
-            });
+        return persist(serializeObj, siddhiAppContext,
+                siddhiAppContext.getPersistencePipeline().startCheckpoint(true));
+    }
+
+    public static PersistenceReference persist(IncrementalSnapshot serializeObj, SiddhiAppContext siddhiAppContext,
+                                               PersistencePipeline.Checkpoint checkpoint) {
+        if (serializeObj.getCapturedStates() != null) {
+            checkpoint.onFailure(() -> siddhiAppContext.getSnapshotService().markUnpersisted(
+                    serializeObj.getCapturedStates()));
         }
-        //Incremental base state
-        Map<String, Map<String, byte[]>> incrementalStateBase = serializeObj.getIncrementalStateBase();
-        if (incrementalStateBase != null) {
-            incrementalStateBase.forEach((partitionId, value) -> {
-                value.forEach((id, value1) -> {
-                    String[] items = id.split(PersistenceConstants.REVISION_SEPARATOR);
-                    AsyncIncrementalSnapshotPersistor asyncIncrementSnapshotPersistor = new
-                            AsyncIncrementalSnapshotPersistor(value1,
-                            siddhiAppContext.getSiddhiContext().getIncrementalPersistenceStore(),
-                            new IncrementalSnapshotInfo(siddhiAppContext.getName(), partitionId, items[1], items[2],
-                                    revisionTime, IncrementalSnapshotInfo.SnapshotType.BASE, items[0]));
-                    Future future = siddhiAppContext.getExecutorService().
-                            submit(asyncIncrementSnapshotPersistor);
-                    incrementalFutures.add(future);
-                });
-            });
+        try {
+            //Periodic state
+            persist(serializeObj.getPeriodicState(), IncrementalSnapshotInfo.SnapshotType.PERIODIC,
+                    siddhiAppContext, checkpoint);
+            //Incremental base state
+            persist(serializeObj.getIncrementalStateBase(), IncrementalSnapshotInfo.SnapshotType.BASE,
+                    siddhiAppContext, checkpoint);
+            //Next, handle the increment persistence scenarios
+            //Incremental state
+            persist(serializeObj.getIncrementalState(), IncrementalSnapshotInfo.SnapshotType.INCREMENT,
+                    siddhiAppContext, checkpoint);
+        } finally {
+            checkpoint.seal();
         }
-        //Next, handle the increment persistence scenarios
-        //Incremental state
-        Map<String, Map<String, byte[]>> incrementalState = serializeObj.getIncrementalState();
-        if (incrementalState != null) {
-            incrementalState.forEach((partitionId, value) -> {
-                value.forEach((id, value1) -> {
-                    String[] items = id.split(PersistenceConstants.REVISION_SEPARATOR);
-                    AsyncIncrementalSnapshotPersistor asyncIncrementSnapshotPersistor = new
-                            AsyncIncrementalSnapshotPersistor(value1,
-                            siddhiAppContext.getSiddhiContext().getIncrementalPersistenceStore(),
-                            new IncrementalSnapshotInfo(siddhiAppContext.getName(), partitionId, items[1], items[2],
-                                    revisionTime, IncrementalSnapshotInfo.SnapshotType.INCREMENT, items[0]));
-                    Future future = siddhiAppContext.getExecutorService().
-                            submit(asyncIncrementSnapshotPersistor);
-                    incrementalFutures.add(future);
-                });
-            });
+        return checkpoint.getReference();
+    }
+
+    private static void persist(Map<String, Map<String, byte[]>> state,
+                                IncrementalSnapshotInfo.SnapshotType snapshotType,
+                                SiddhiAppContext siddhiAppContext, PersistencePipeline.Checkpoint checkpoint) {
+        if (state == null) {
+            return;
         }
-        return new PersistenceReference(incrementalFutures,
-                revisionTime + PersistenceConstants.REVISION_SEPARATOR + siddhiAppContext.getName());
+        state.forEach((partitionId, value) -> {
+            value.forEach((id, value1) -> {
+                String[] items = id.split(PersistenceConstants.REVISION_SEPARATOR);
+                AsyncIncrementalSnapshotPersistor asyncIncrementSnapshotPersistor = new
+                        AsyncIncrementalSnapshotPersistor(value1,
+                        siddhiAppContext.getSiddhiContext().getIncrementalPersistenceStore(),
+                        new IncrementalSnapshotInfo(siddhiAppContext.getName(), partitionId, items[1], items[2],
+                                checkpoint.getRevisionTime(), snapshotType, items[0]));
+                checkpoint.submit(asyncIncrementSnapshotPersistor,
+                        asyncIncrementSnapshotPersistor::getPersistedSize);
+            });
+        });
     }
 }
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.siddhi.core.util.persistence.util;
+
+import io.siddhi.core.exception.PersistenceStoreException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Codecs persistence stores compress snapshots with. A compressed snapshot starts with a header recording its codec,
+ * such that it is decompressed on restore irrespective of the codec the store is configured with, while snapshots
+ * without the header, including those persisted before compression was configured, are read as they are.
+ */
+public enum SnapshotCodec {
+
+    NONE {
+        @Override
+        OutputStream compress(OutputStream outputStream) {
+            return outputStream;
+        }
+
+        @Override
+        InputStream decompress(InputStream inputStream) {
+            return inputStream;
+        }
+    },
+    DEFLATE {
+        @Override
+        OutputStream compress(OutputStream outputStream) {
+            return new DeflaterOutputStream(outputStream, new Deflater(Deflater.BEST_SPEED), BUFFER_SIZE) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        def.end();
+                    }
+                }
+            };
+        }
+
+        @Override
+        InputStream decompress(InputStream inputStream) {
+            return new InflaterInputStream(inputStream, new Inflater(), BUFFER_SIZE) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        inf.end();
+                    }
+                }
+            };
+        }
+    },
+    LZ4 {
+        @Override
+        OutputStream compress(OutputStream outputStream) {
+            return new Lz4BlockOutputStream(outputStream);
+        }
+
+        @Override
+        InputStream decompress(InputStream inputStream) {
+            return new Lz4BlockInputStream(inputStream);
+        }
+    };
+
+    private static final int BUFFER_SIZE = 65536;
+    private static final byte[] MAGIC = {'S', 'C', 'Z', 1};
+
+    abstract OutputStream compress(OutputStream outputStream);
+
+    abstract InputStream decompress(InputStream inputStream);
+
+    /**
+     * @param name name of the codec, case insensitive
+     * @return the codec, or {@link #NONE} if the name is null
+     */
+    public static SnapshotCodec fromName(String name) {
+        if (name == null) {
+            return NONE;
+        }
+        for (SnapshotCodec codec : values()) {
+            if (codec.name().equalsIgnoreCase(name)) {
+                return codec;
+            }
+        }
+        throw new PersistenceStoreException("Unknown snapshot compression '" + name + "', supported values are " +
+                "'none', 'deflate' and 'lz4'");
+    }
+
+    /**
+     * @param outputStream stream to write the snapshot to
+     * @return stream compressing the snapshot written to it, which must be closed to complete the snapshot
+     * @throws IOException if the header cannot be written
+     */
+    public OutputStream encode(OutputStream outputStream) throws IOException {
+        if (this == NONE) {
+            return outputStream;
+        }
+        outputStream.write(MAGIC);
+        outputStream.write(ordinal());
+        return new BufferedOutputStream(compress(outputStream), BUFFER_SIZE);
+    }
+
+    /**
+     * @param inputStream stream of a snapshot, compressed or not
+     * @return stream of the decompressed snapshot
+     * @throws IOException if the header cannot be read
+     */
+    public static InputStream decode(InputStream inputStream) throws IOException {
+        PushbackInputStream pushbackInputStream = new PushbackInputStream(inputStream, MAGIC.length + 1);
+        byte[] header = new byte[MAGIC.length + 1];
+        int length = 0;
+        while (length < header.length) {
+            int read = pushbackInputStream.read(header, length, header.length - length);
+            if (read < 0) {
+                break;
+            }
+            length += read;
+        }
+        if (length == header.length && hasMagic(header)) {
+            SnapshotCodec[] codecs = values();
+            if (header[MAGIC.length] < 0 || header[MAGIC.length] >= codecs.length) {
+                throw new IOException("Unknown snapshot codec " + header[MAGIC.length]);
+            }
+            return new BufferedInputStream(codecs[header[MAGIC.length]].decompress(pushbackInputStream),
+                    BUFFER_SIZE);
+        }
+        pushbackInputStream.unread(header, 0, length);
+        return pushbackInputStream;
+    }
+
+    private static boolean hasMagic(byte[] header) {
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (header[i] != MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -47,6 +47,10 @@ public class AsyncIncrementalSnapshotPersistor implements Runnable {
         return snapshotInfo.getRevision();
     }
 
+    public long getPersistedSize() {
+        return snapshots.length;
+    }
+
     @Override
     public void run() {
         if (incrementalPersistenceStore != null) {
@@ -18,8 +18,10 @@
 
 package io.siddhi.core.util.snapshot;
 
+import com.google.common.io.CountingOutputStream;
 import io.siddhi.core.exception.NoPersistenceStoreException;
 import io.siddhi.core.util.persistence.PersistenceStore;
+import io.siddhi.core.util.persistence.StreamingPersistenceStore;
 import io.siddhi.core.util.persistence.util.PersistenceConstants;
 import org.apache.log4j.Logger;
 
@@ -28,19 +30,25 @@ import org.apache.log4j.Logger;
  */
 public class AsyncSnapshotPersistor implements Runnable {
     private static final Logger log = Logger.getLogger(AsyncSnapshotPersistor.class);
-    private byte[] snapshots;
+    private CapturedSnapshot snapshot;
     private PersistenceStore persistenceStore;
     private String siddhiAppName;
     private String revision;
     private long time;
+    private volatile long persistedSize;
 
     public AsyncSnapshotPersistor(byte[] snapshots, PersistenceStore persistenceStore,
                                   String siddhiAppName, long time) {
+        this(new CapturedSnapshot(snapshots, null), persistenceStore, siddhiAppName, time);
+    }
+
+    public AsyncSnapshotPersistor(CapturedSnapshot snapshot, PersistenceStore persistenceStore,
+                                  String siddhiAppName, long time) {
         if (persistenceStore == null) {
             throw new NoPersistenceStoreException("No persistence store assigned for siddhi app '" +
                     siddhiAppName + "'");
         }
-        this.snapshots = snapshots;
+        this.snapshot = snapshot;
         this.persistenceStore = persistenceStore;
         this.siddhiAppName = siddhiAppName;
         this.time = time;
@@ -51,13 +59,31 @@ public class AsyncSnapshotPersistor implements Runnable {
         return revision;
     }
 
+    /**
+     * @return size of the persisted snapshot in bytes before it is compressed by the store, which is known once the
+     * snapshot is persisted
+     */
+    public long getPersistedSize() {
+        return persistedSize;
+    }
+
     @Override
     public void run() {
         if (persistenceStore != null) {
             if (log.isDebugEnabled()) {
                 log.debug("Persisting...");
             }
-            persistenceStore.save(siddhiAppName, revision, snapshots);
+            if (persistenceStore instanceof StreamingPersistenceStore) {
+                ((StreamingPersistenceStore) persistenceStore).save(siddhiAppName, revision, outputStream -> {
+                    CountingOutputStream countingOutputStream = new CountingOutputStream(outputStream);
+                    snapshot.writeTo(countingOutputStream);
+                    persistedSize = countingOutputStream.getCount();
+                });
+            } else {
+                byte[] serializedSnapshot = snapshot.serialize();
+                persistenceStore.save(siddhiAppName, revision, serializedSnapshot);
+                persistedSize = serializedSnapshot.length;
+            }
             if (log.isDebugEnabled()) {
                 log.debug("Persisted.");
             }
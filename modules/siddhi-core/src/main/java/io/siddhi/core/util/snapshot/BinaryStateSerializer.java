@@ -0,0 +1,687 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.siddhi.core.util.snapshot;
+
+import io.siddhi.core.config.SiddhiAppContext;
+import io.siddhi.core.event.ComplexEvent;
+import io.siddhi.core.event.state.StateEvent;
+import io.siddhi.core.event.stream.Operation;
+import io.siddhi.core.event.stream.StreamEvent;
+import io.siddhi.core.util.ExceptionUtil;
+import io.siddhi.core.util.snapshot.state.Snapshot;
+import io.siddhi.core.util.snapshot.state.SnapshotStateList;
+import org.apache.log4j.Logger;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link StateSerializer} writing a compact binary encoding of the states. Events, snapshots, operation logs, the
+ * common collections and attribute values are written with a one byte type tag, variable length integers and
+ * timestamps delta encoded against the previously written timestamp. Objects referenced more than once, including
+ * the events chained after another, are written once and referred to afterwards, as done by Java serialization. Any
+ * other object, such as the state of an extension, is written using a single Java serialization stream per state, so
+ * that the objects they share are restored shared. Bytes not written by this serializer are read using Java
+ * serialization, such that snapshots taken before switching to this serializer can still be restored.
+ */
+public class BinaryStateSerializer implements StateSerializer {
+
+    private static final Logger log = Logger.getLogger(BinaryStateSerializer.class);
+    private static final byte[] MAGIC = {'S', 'B', 'S', 2};
+
+    private static final byte NULL = 0;
+    private static final byte REFERENCE = 1;
+    private static final byte STRING = 2;
+    private static final byte INT = 3;
+    private static final byte LONG = 4;
+    private static final byte DOUBLE = 5;
+    private static final byte FLOAT = 6;
+    private static final byte TRUE = 7;
+    private static final byte FALSE = 8;
+    private static final byte BYTES = 9;
+    private static final byte OBJECTS = 10;
+    private static final byte STREAM_EVENT = 11;
+    private static final byte STATE_EVENT = 12;
+    private static final byte SNAPSHOT = 13;
+    private static final byte SNAPSHOT_STATE_LIST = 14;
+    private static final byte OPERATION = 15;
+    private static final byte HASH_MAP = 16;
+    private static final byte LINKED_HASH_MAP = 17;
+    private static final byte CONCURRENT_HASH_MAP = 18;
+    private static final byte TREE_MAP = 19;
+    private static final byte ARRAY_LIST = 20;
+    private static final byte LINKED_LIST = 21;
+    private static final byte ARRAY_DEQUE = 22;
+    private static final byte HASH_SET = 23;
+    private static final byte LINKED_HASH_SET = 24;
+    private static final byte JAVA_OBJECT = 25;
+
+    private static final byte CHAIN_END = 0;
+    private static final byte CHAINED_EVENT = 1;
+    private static final byte CHAINED_REFERENCE = 2;
+
+    private static final ComplexEvent.Type[] EVENT_TYPES = ComplexEvent.Type.values();
+    private static final Operation.Operator[] OPERATORS = Operation.Operator.values();
+
+    @Override
+    public byte[] serialize(Object state, SiddhiAppContext siddhiAppContext) {
+        if (state == null) {
+            return null;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+            serialize(state, byteArrayOutputStream, siddhiAppContext);
+            byte[] bytes = byteArrayOutputStream.toByteArray();
+            if (log.isDebugEnabled()) {
+                log.debug("For SiddhiApp '" + siddhiAppContext.getName() + "'. Encoded " + bytes.length +
+                        " bytes in :" + (System.currentTimeMillis() - start) + " msec");
+            }
+            return bytes;
+        } catch (IOException e) {
+            log.error(ExceptionUtil.getMessageWithContext(e, siddhiAppContext) +
+                    " Error when writing byte array.", e);
+            return null;
+        }
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes, SiddhiAppContext siddhiAppContext) {
+        if (bytes == null) {
+            return null;
+        }
+        if (!isEncoded(bytes)) {
+            return ByteSerializer.byteToObject(bytes, siddhiAppContext);
+        }
+        long start = System.currentTimeMillis();
+        try {
+            Object state = deserialize(new ByteArrayInputStream(bytes), siddhiAppContext);
+            if (log.isDebugEnabled()) {
+                log.debug("SiddhiApp '" + siddhiAppContext.getName() + "' decoded in: " +
+                        (System.currentTimeMillis() - start) + " milliseconds");
+            }
+            return state;
+        } catch (IOException | ClassNotFoundException | RuntimeException e) {
+            log.error(ExceptionUtil.getMessageWithContext(e, siddhiAppContext) +
+                    " Error when writing to object.", e);
+            return null;
+        }
+    }
+
+    @Override
+    public void serialize(Object state, OutputStream outputStream, SiddhiAppContext siddhiAppContext)
+            throws IOException {
+        DataOutputStream dataOutputStream = new DataOutputStream(outputStream);
+        dataOutputStream.write(MAGIC);
+        new Writer(dataOutputStream).writeValue(state);
+        dataOutputStream.flush();
+    }
+
+    @Override
+    public Object deserialize(InputStream inputStream, SiddhiAppContext siddhiAppContext)
+            throws IOException, ClassNotFoundException {
+        PushbackInputStream pushbackInputStream = new PushbackInputStream(inputStream, MAGIC.length);
+        byte[] header = new byte[MAGIC.length];
+        int length = 0;
+        while (length < header.length) {
+            int read = pushbackInputStream.read(header, length, header.length - length);
+            if (read < 0) {
+                break;
+            }
+            length += read;
+        }
+        if (length < header.length || !isEncoded(header)) {
+            pushbackInputStream.unread(header, 0, length);
+            return new ObjectInputStream(pushbackInputStream).readObject();
+        }
+        return new Reader(new DataInputStream(pushbackInputStream)).readValue();
+    }
+
+    /**
+     * @param bytes serialized state
+     * @return true if the state is serialized by this serializer
+     */
+    public static boolean isEncoded(byte[] bytes) {
+        if (bytes == null || bytes.length < MAGIC.length) {
+            return false;
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (bytes[i] != MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static class Writer {
+
+        private final DataOutputStream out;
+        private final Map<Object, Integer> references = new IdentityHashMap<>();
+        private ByteArrayOutputStream javaObjectBytes;
+        private ObjectOutputStream javaObjectOutputStream;
+        private long lastTimestamp;
+
+        private Writer(DataOutputStream out) {
+            this.out = out;
+        }
+
+        private void writeValue(Object value) throws IOException {
+            if (value == null) {
+                out.writeByte(NULL);
+                return;
+            }
+            Class<?> type = value.getClass();
+            if (type == String.class) {
+                out.writeByte(STRING);
+                byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+                writeVarLong(bytes.length);
+                out.write(bytes);
+            } else if (type == Integer.class) {
+                out.writeByte(INT);
+                writeVarLong(zigZag((Integer) value));
+            } else if (type == Long.class) {
+                out.writeByte(LONG);
+                writeVarLong(zigZag((Long) value));
+            } else if (type == Double.class) {
+                out.writeByte(DOUBLE);
+                out.writeDouble((Double) value);
+            } else if (type == Float.class) {
+                out.writeByte(FLOAT);
+                out.writeFloat((Float) value);
+            } else if (type == Boolean.class) {
+                out.writeByte((Boolean) value ? TRUE : FALSE);
+            } else {
+                Integer reference = references.get(value);
+                if (reference != null) {
+                    out.writeByte(REFERENCE);
+                    writeVarLong(reference);
+                    return;
+                }
+                references.put(value, references.size());
+                writeReferenceValue(value, type);
+            }
+        }
+
+        private void writeReferenceValue(Object value, Class<?> type) throws IOException {
+            if (type == byte[].class) {
+                out.writeByte(BYTES);
+                writeVarLong(((byte[]) value).length);
+                out.write((byte[]) value);
+            } else if (type == Object[].class) {
+                out.writeByte(OBJECTS);
+                writeData((Object[]) value);
+            } else if (type == StreamEvent.class) {
+                out.writeByte(STREAM_EVENT);
+                writeStreamEvents((StreamEvent) value);
+            } else if (type == StateEvent.class) {
+                out.writeByte(STATE_EVENT);
+                writeStateEvent((StateEvent) value);
+            } else if (type == Snapshot.class) {
+                out.writeByte(SNAPSHOT);
+                out.writeBoolean(((Snapshot) value).isIncrementalSnapshot());
+                writeValue(((Snapshot) value).getState());
+            } else if (type == SnapshotStateList.class) {
+                out.writeByte(SNAPSHOT_STATE_LIST);
+                TreeMap<Long, Snapshot> snapshotStates = ((SnapshotStateList) value).getSnapshotStates();
+                writeVarLong(snapshotStates.size());
+                for (Map.Entry<Long, Snapshot> entry : snapshotStates.entrySet()) {
+                    writeTimestamp(entry.getKey());
+                    writeValue(entry.getValue());
+                }
+            } else if (type == Operation.class) {
+                out.writeByte(OPERATION);
+                Operation.Operator operator = ((Operation) value).operation;
+                writeVarLong(operator == null ? 0 : operator.ordinal() + 1);
+                writeValue(((Operation) value).parameters);
+            } else if (type == HashMap.class) {
+                out.writeByte(HASH_MAP);
+                writeMap((Map<?, ?>) value);
+            } else if (type == LinkedHashMap.class) {
+                out.writeByte(LINKED_HASH_MAP);
+                writeMap((Map<?, ?>) value);
+            } else if (type == ConcurrentHashMap.class) {
+                out.writeByte(CONCURRENT_HASH_MAP);
+                writeMap((Map<?, ?>) value);
+            } else if (type == TreeMap.class && ((TreeMap<?, ?>) value).comparator() == null) {
+                out.writeByte(TREE_MAP);
+                writeMap((Map<?, ?>) value);
+            } else if (type == ArrayList.class) {
+                out.writeByte(ARRAY_LIST);
+                writeCollection((Collection<?>) value);
+            } else if (type == LinkedList.class) {
+                out.writeByte(LINKED_LIST);
+                writeCollection((Collection<?>) value);
+            } else if (type == ArrayDeque.class) {
+                out.writeByte(ARRAY_DEQUE);
+                writeCollection((Collection<?>) value);
+            } else if (type == HashSet.class) {
+                out.writeByte(HASH_SET);
+                writeCollection((Collection<?>) value);
+            } else if (type == LinkedHashSet.class) {
+                out.writeByte(LINKED_HASH_SET);
+                writeCollection((Collection<?>) value);
+            } else {
+                out.writeByte(JAVA_OBJECT);
+                writeJavaObject(value);
+            }
+        }
+
+        /**
+         * Writes the object to the Java serialization stream of the state, writing the bytes it appended.
+         */
+        private void writeJavaObject(Object value) throws IOException {
+            if (javaObjectOutputStream == null) {
+                javaObjectBytes = new ByteArrayOutputStream();
+                javaObjectOutputStream = new ObjectOutputStream(javaObjectBytes);
+            }
+            javaObjectOutputStream.writeObject(value);
+            javaObjectOutputStream.flush();
+            writeVarLong(javaObjectBytes.size());
+            javaObjectBytes.writeTo(out);
+            javaObjectBytes.reset();
+        }
+
+        private void writeStreamEvents(StreamEvent streamEvent) throws IOException {
+            while (true) {
+                writeData(streamEvent.getBeforeWindowData());
+                writeData(streamEvent.getOnAfterWindowData());
+                writeData(streamEvent.getOutputData());
+                writeEventType(streamEvent.getType());
+                writeTimestamp(streamEvent.getTimestamp());
+                streamEvent = streamEvent.getNext();
+                if (streamEvent == null) {
+                    out.writeByte(CHAIN_END);
+                    return;
+                }
+                Integer reference = references.get(streamEvent);
+                if (reference != null) {
+                    out.writeByte(CHAINED_REFERENCE);
+                    writeVarLong(reference);
+                    return;
+                }
+                references.put(streamEvent, references.size());
+                out.writeByte(CHAINED_EVENT);
+            }
+        }
+
+        private void writeStateEvent(StateEvent stateEvent) throws IOException {
+            StreamEvent[] streamEvents = stateEvent.getStreamEvents();
+            Object[] outputData = stateEvent.getOutputData();
+            writeVarLong(streamEvents.length);
+            writeVarLong(outputData.length);
+            for (StreamEvent streamEvent : streamEvents) {
+                writeValue(streamEvent);
+            }
+            for (Object value : outputData) {
+                writeValue(value);
+            }
+            writeEventType(stateEvent.getType());
+            writeTimestamp(stateEvent.getTimestamp());
+            writeVarLong(zigZag(stateEvent.getId()));
+            writeValue(stateEvent.getNext());
+        }
+
+        private void writeData(Object[] data) throws IOException {
+            if (data == null) {
+                writeVarLong(0);
+                return;
+            }
+            writeVarLong(data.length + 1);
+            for (Object value : data) {
+                writeValue(value);
+            }
+        }
+
+        private void writeMap(Map<?, ?> map) throws IOException {
+            List<Map.Entry<?, ?>> entries = new ArrayList<>(map.entrySet());
+            writeVarLong(entries.size());
+            for (Map.Entry<?, ?> entry : entries) {
+                writeValue(entry.getKey());
+                writeValue(entry.getValue());
+            }
+        }
+
+        private void writeCollection(Collection<?> collection) throws IOException {
+            Object[] elements = collection.toArray();
+            writeVarLong(elements.length);
+            for (Object element : elements) {
+                writeValue(element);
+            }
+        }
+
+        private void writeEventType(ComplexEvent.Type type) throws IOException {
+            out.writeByte(type == null ? -1 : type.ordinal());
+        }
+
+        private void writeTimestamp(long timestamp) throws IOException {
+            writeVarLong(zigZag(timestamp - lastTimestamp));
+            lastTimestamp = timestamp;
+        }
+
+        private void writeVarLong(long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                out.writeByte((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.writeByte((int) value);
+        }
+
+        private static long zigZag(long value) {
+            return (value << 1) ^ (value >> 63);
+        }
+    }
+
+    private static class Reader {
+
+        private final DataInputStream in;
+        private final List<Object> references = new ArrayList<>();
+        private JavaObjectInputStream javaObjectBytes;
+        private ObjectInputStream javaObjectInputStream;
+        private long lastTimestamp;
+
+        private Reader(DataInputStream in) {
+            this.in = in;
+        }
+
+        private Object readValue() throws IOException, ClassNotFoundException {
+            byte tag = in.readByte();
+            switch (tag) {
+                case NULL:
+                    return null;
+                case REFERENCE:
+                    return references.get((int) readVarLong());
+                case STRING: {
+                    byte[] bytes = new byte[(int) readVarLong()];
+                    in.readFully(bytes);
+                    return new String(bytes, StandardCharsets.UTF_8);
+                }
+                case INT:
+                    return (int) unZigZag(readVarLong());
+                case LONG:
+                    return unZigZag(readVarLong());
+                case DOUBLE:
+                    return in.readDouble();
+                case FLOAT:
+                    return in.readFloat();
+                case TRUE:
+                    return Boolean.TRUE;
+                case FALSE:
+                    return Boolean.FALSE;
+                default:
+                    return readReferenceValue(tag);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private Object readReferenceValue(byte tag) throws IOException, ClassNotFoundException {
+            int reference = references.size();
+            references.add(null);
+            switch (tag) {
+                case BYTES: {
+                    byte[] bytes = new byte[(int) readVarLong()];
+                    in.readFully(bytes);
+                    references.set(reference, bytes);
+                    return bytes;
+                }
+                case OBJECTS: {
+                    int length = (int) readVarLong() - 1;
+                    Object[] objects = new Object[length];
+                    references.set(reference, objects);
+                    for (int i = 0; i < length; i++) {
+                        objects[i] = readValue();
+                    }
+                    return objects;
+                }
+                case STREAM_EVENT:
+                    return readStreamEvents(reference);
+                case STATE_EVENT:
+                    return readStateEvent(reference);
+                case SNAPSHOT: {
+                    boolean isIncrementalSnapshot = in.readBoolean();
+                    Snapshot snapshot = new Snapshot(readValue(), isIncrementalSnapshot);
+                    references.set(reference, snapshot);
+                    return snapshot;
+                }
+                case SNAPSHOT_STATE_LIST: {
+                    SnapshotStateList snapshotStateList = new SnapshotStateList();
+                    references.set(reference, snapshotStateList);
+                    long size = readVarLong();
+                    for (long i = 0; i < size; i++) {
+                        long id = readTimestamp();
+                        snapshotStateList.putSnapshotState(id, (Snapshot) readValue());
+                    }
+                    return snapshotStateList;
+                }
+                case OPERATION: {
+                    int operator = (int) readVarLong();
+                    Operation operation = new Operation(operator == 0 ? null : OPERATORS[operator - 1]);
+                    references.set(reference, operation);
+                    operation.parameters = readValue();
+                    return operation;
+                }
+                case HASH_MAP:
+                    return readMap(reference, new HashMap<>());
+                case LINKED_HASH_MAP:
+                    return readMap(reference, new LinkedHashMap<>());
+                case CONCURRENT_HASH_MAP:
+                    return readMap(reference, new ConcurrentHashMap<>());
+                case TREE_MAP:
+                    return readMap(reference, new TreeMap<>());
+                case ARRAY_LIST:
+                    return readCollection(reference, new ArrayList<>());
+                case LINKED_LIST:
+                    return readCollection(reference, new LinkedList<>());
+                case ARRAY_DEQUE:
+                    return readCollection(reference, new ArrayDeque<>());
+                case HASH_SET:
+                    return readCollection(reference, new HashSet<>());
+                case LINKED_HASH_SET:
+                    return readCollection(reference, new LinkedHashSet<>());
+                case JAVA_OBJECT: {
+                    Object object = readJavaObject();
+                    references.set(reference, object);
+                    return object;
+                }
+                default:
+                    throw new StreamCorruptedException("Unknown type tag " + tag);
+            }
+        }
+
+        private Object readJavaObject() throws IOException, ClassNotFoundException {
+            byte[] bytes = new byte[(int) readVarLong()];
+            in.readFully(bytes);
+            if (javaObjectInputStream == null) {
+                javaObjectBytes = new JavaObjectInputStream(bytes);
+                javaObjectInputStream = new ObjectInputStream(javaObjectBytes);
+            } else {
+                javaObjectBytes.append(bytes);
+            }
+            return javaObjectInputStream.readObject();
+        }
+
+        private StreamEvent readStreamEvents(int reference) throws IOException, ClassNotFoundException {
+            StreamEvent first = new StreamEvent(0, 0, 0);
+            references.set(reference, first);
+            StreamEvent streamEvent = first;
+            while (true) {
+                streamEvent.setBeforeWindowData(readData());
+                streamEvent.setOnAfterWindowData(readData());
+                streamEvent.setOutputData(readData());
+                streamEvent.setType(readEventType());
+                streamEvent.setTimestamp(readTimestamp());
+                byte chain = in.readByte();
+                if (chain == CHAIN_END) {
+                    return first;
+                } else if (chain == CHAINED_REFERENCE) {
+                    streamEvent.setNext((StreamEvent) references.get((int) readVarLong()));
+                    return first;
+                }
+                StreamEvent next = new StreamEvent(0, 0, 0);
+                references.add(next);
+                streamEvent.setNext(next);
+                streamEvent = next;
+            }
+        }
+
+        private StateEvent readStateEvent(int reference) throws IOException, ClassNotFoundException {
+            int streamEventsSize = (int) readVarLong();
+            int outputSize = (int) readVarLong();
+            StateEvent stateEvent = new StateEvent(streamEventsSize, outputSize);
+            references.set(reference, stateEvent);
+            for (int i = 0; i < streamEventsSize; i++) {
+                stateEvent.setEvent(i, (StreamEvent) readValue());
+            }
+            for (int i = 0; i < outputSize; i++) {
+                stateEvent.setOutputData(readValue(), i);
+            }
+            stateEvent.setType(readEventType());
+            stateEvent.setTimestamp(readTimestamp());
+            stateEvent.setId(unZigZag(readVarLong()));
+            stateEvent.setNext((StateEvent) readValue());
+            return stateEvent;
+        }
+
+        private Object[] readData() throws IOException, ClassNotFoundException {
+            int length = (int) readVarLong() - 1;
+            if (length < 0) {
+                return null;
+            }
+            Object[] data = new Object[length];
+            for (int i = 0; i < length; i++) {
+                data[i] = readValue();
+            }
+            return data;
+        }
+
+        private Map<Object, Object> readMap(int reference, Map<Object, Object> map)
+                throws IOException, ClassNotFoundException {
+            references.set(reference, map);
+            long size = readVarLong();
+            for (long i = 0; i < size; i++) {
+                Object key = readValue();
+                map.put(key, readValue());
+            }
+            return map;
+        }
+
+        private Collection<Object> readCollection(int reference, Collection<Object> collection)
+                throws IOException, ClassNotFoundException {
+            references.set(reference, collection);
+            long size = readVarLong();
+            for (long i = 0; i < size; i++) {
+                collection.add(readValue());
+            }
+            return collection;
+        }
+
+        private ComplexEvent.Type readEventType() throws IOException {
+            byte type = in.readByte();
+            return type < 0 ? null : EVENT_TYPES[type];
+        }
+
+        private long readTimestamp() throws IOException {
+            lastTimestamp += unZigZag(readVarLong());
+            return lastTimestamp;
+        }
+
+        private long readVarLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = in.readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new StreamCorruptedException("Malformed variable length integer");
+        }
+
+        private static long unZigZag(long value) {
+            return (value >>> 1) ^ -(value & 1);
+        }
+    }
+
+    /**
+     * Bytes of the Java serialization stream of a state, which are appended as they are read from the state.
+     */
+    private static class JavaObjectInputStream extends InputStream {
+
+        private byte[] bytes;
+        private int position;
+
+        private JavaObjectInputStream(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        private void append(byte[] appendedBytes) {
+            int remaining = bytes.length - position;
+            byte[] newBytes = new byte[remaining + appendedBytes.length];
+            System.arraycopy(bytes, position, newBytes, 0, remaining);
+            System.arraycopy(appendedBytes, 0, newBytes, remaining, appendedBytes.length);
+            bytes = newBytes;
+            position = 0;
+        }
+
+        @Override
+        public int read() {
+            return position < bytes.length ? bytes[position++] & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (position == bytes.length) {
+                return -1;
+            }
+            int read = Math.min(length, bytes.length - position);
+            System.arraycopy(bytes, position, buffer, offset, read);
+            position += read;
+            return read;
+        }
+
+        @Override
+        public int available() {
+            return bytes.length - position;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.core.util.snapshot;
+
+import io.siddhi.core.config.SiddhiAppContext;
+import io.siddhi.core.util.persistence.SnapshotWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Full snapshot of a Siddhi app, captured while the app is paused. When the app copies its states on snapshots, the
+ * captured states are serialized only when {@link #serialize()} is called, such that the serialization does not
+ * pause the app, or when it is written to a stream through {@link #writeTo(OutputStream)}, such that it is not
+ * materialized as a byte array. When the app takes snapshots in parallel, the states of its elements are serialized
+ * in parallel as independent segments.
+ */
+public class CapturedSnapshot implements SnapshotWriter {
+
+    private final SiddhiAppContext siddhiAppContext;
+    private Object states;
+    private byte[] serializedStates;
+
+    CapturedSnapshot(Object states, SiddhiAppContext siddhiAppContext) {
+        this.states = states;
+        this.siddhiAppContext = siddhiAppContext;
+    }
+
+    public CapturedSnapshot(byte[] serializedStates, SiddhiAppContext siddhiAppContext) {
+        this.serializedStates = serializedStates;
+        this.siddhiAppContext = siddhiAppContext;
+    }
+
+    /**
+     * @return the serialized snapshot
+     */
+    public synchronized byte[] serialize() {
+        if (states != null) {
+            SnapshotService snapshotService = siddhiAppContext.getSnapshotService();
+            serializedStates = snapshotService.getStateSerializer().serialize(
+                    snapshotService.serializeSegments(states), siddhiAppContext);
+            states = null;
+        }
+        return serializedStates;
+    }
+
+    @Override
+    public synchronized void writeTo(OutputStream outputStream) throws IOException {
+        if (states != null) {
+            SnapshotService snapshotService = siddhiAppContext.getSnapshotService();
+            snapshotService.getStateSerializer().serialize(snapshotService.serializeSegments(states), outputStream,
+                    siddhiAppContext);
+        } else if (serializedStates != null) {
+            outputStream.write(serializedStates);
+        } else {
+            throw new IOException("No serialized snapshot available to write");
+        }
+    }
+}
@@ -18,6 +18,9 @@
 
 package io.siddhi.core.util.snapshot;
 
+import io.siddhi.core.util.snapshot.state.State;
+
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -27,7 +30,7 @@ public class IncrementalSnapshot {
     private Map<String, Map<String, byte[]>> incrementalState;
     private Map<String, Map<String, byte[]>> incrementalStateBase;
     private Map<String, Map<String, byte[]>> periodicState;
-
+    private List<State> capturedStates;
 
     public Map<String, Map<String, byte[]>> getIncrementalState() {
         return incrementalState;
@@ -53,6 +56,17 @@ public class IncrementalSnapshot {
         this.periodicState = periodicState;
     }
 
+    /**
+     * @return states captured by the snapshot, which are to be captured again if the snapshot fails to persist
+     */
+    public List<State> getCapturedStates() {
+        return capturedStates;
+    }
+
+    public void setCapturedStates(List<State> capturedStates) {
+        this.capturedStates = capturedStates;
+    }
+
     @Override
     public String toString() {
         return "IncrementalSnapshot{" +
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.siddhi.core.util.snapshot;
+
+import io.siddhi.core.config.SiddhiAppContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+
+/**
+ * {@link StateSerializer} using Java serialization.
+ */
+public class JavaStateSerializer implements StateSerializer {
+
+    @Override
+    public byte[] serialize(Object state, SiddhiAppContext siddhiAppContext) {
+        return ByteSerializer.objectToByte(state, siddhiAppContext);
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes, SiddhiAppContext siddhiAppContext) {
+        return ByteSerializer.byteToObject(bytes, siddhiAppContext);
+    }
+
+    @Override
+    public void serialize(Object state, OutputStream outputStream, SiddhiAppContext siddhiAppContext)
+            throws IOException {
+        ObjectOutputStream objectOutputStream = new ObjectOutputStream(outputStream);
+        objectOutputStream.writeObject(state);
+        objectOutputStream.flush();
+    }
+
+    @Override
+    public Object deserialize(InputStream inputStream, SiddhiAppContext siddhiAppContext)
+            throws IOException, ClassNotFoundException {
+        return new ObjectInputStream(inputStream).readObject();
+    }
+}
@@ -0,0 +1,290 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.siddhi.core.util.snapshot;
+
+import io.siddhi.core.config.SiddhiAppContext;
+import io.siddhi.core.exception.SiddhiAppRuntimeException;
+import io.siddhi.core.util.SiddhiConstants;
+import io.siddhi.core.util.persistence.util.PersistenceConstants;
+import io.siddhi.core.util.statistics.LatencyTracker;
+import io.siddhi.core.util.statistics.ThroughputTracker;
+import io.siddhi.core.util.statistics.metrics.Level;
+import org.apache.log4j.Logger;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Pipeline the checkpoints of a Siddhi app are persisted through. A checkpoint is persisted asynchronously by one or
+ * more persistors, and completes once all of them complete, such that checkpoints overlap with the processing of the
+ * Siddhi app and with each other. The number of checkpoints in flight is bounded, by default to
+ * {@link SiddhiConstants#DEFAULT_MAX_IN_FLIGHT_CHECKPOINTS}, and a checkpoint requested while the bound is reached
+ * waits for a checkpoint in flight to complete before it captures the state, such that a slow persistence store
+ * pushes back on the callers persisting instead of letting checkpoints queue up without bound.
+ */
+public class PersistencePipeline {
+
+    private static final Logger log = Logger.getLogger(PersistencePipeline.class);
+    private final SiddhiAppContext siddhiAppContext;
+    private final AtomicInteger inFlightCheckpoints = new AtomicInteger();
+    private final AtomicLong delayedCheckpoints = new AtomicLong();
+    private final Object checkpointSlots = new Object();
+    private int maxInFlightCheckpoints = SiddhiConstants.DEFAULT_MAX_IN_FLIGHT_CHECKPOINTS;
+    private volatile long lastCheckpointDuration = -1;
+    private volatile long lastCheckpointSize = -1;
+    private LatencyTracker writeLatencyTracker;
+    private ThroughputTracker persistedBytesTracker;
+
+    public PersistencePipeline(SiddhiAppContext siddhiAppContext) {
+        this.siddhiAppContext = siddhiAppContext;
+    }
+
+    /**
+     * @param maxInFlightCheckpoints maximum number of checkpoints in flight, where a value less than one leaves the
+     *                               number of checkpoints unbounded
+     */
+    public void setMaxInFlightCheckpoints(int maxInFlightCheckpoints) {
+        this.maxInFlightCheckpoints = maxInFlightCheckpoints;
+    }
+
+    public int getMaxInFlightCheckpoints() {
+        return maxInFlightCheckpoints;
+    }
+
+    /**
+     * Starts a checkpoint, waiting while the number of checkpoints in flight is bounded and reached.
+     *
+     * @param incremental whether the checkpoint persists incremental snapshots
+     * @return the started checkpoint
+     * @throws SiddhiAppRuntimeException if the thread is interrupted while waiting
+     */
+    public Checkpoint awaitCheckpoint(boolean incremental) {
+        synchronized (checkpointSlots) {
+            boolean delayed = false;
+            while (maxInFlightCheckpoints > 0 && inFlightCheckpoints.get() >= maxInFlightCheckpoints) {
+                if (!delayed) {
+                    delayed = true;
+                    delayedCheckpoints.incrementAndGet();
+                    if (log.isDebugEnabled()) {
+                        log.debug("Checkpoint of Siddhi app '" + siddhiAppContext.getName() + "' waits, as " +
+                                inFlightCheckpoints.get() + " checkpoints are still being persisted.");
+                    }
+                }
+                try {
+                    checkpointSlots.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new SiddhiAppRuntimeException("Interrupted while waiting for the checkpoints of Siddhi " +
+                            "app '" + siddhiAppContext.getName() + "' in flight to complete.", e);
+                }
+            }
+            return startCheckpoint(incremental);
+        }
+    }
+
+    /**
+     * Starts a checkpoint irrespective of the number of checkpoints in flight.
+     *
+     * @param incremental whether the checkpoint persists incremental snapshots
+     * @return the started checkpoint
+     */
+    public Checkpoint startCheckpoint(boolean incremental) {
+        inFlightCheckpoints.incrementAndGet();
+        return new Checkpoint(incremental);
+    }
+
+    public int getInFlightCheckpoints() {
+        return inFlightCheckpoints.get();
+    }
+
+    /**
+     * @return number of checkpoints that waited for the checkpoints in flight to complete before starting
+     */
+    public long getDelayedCheckpoints() {
+        return delayedCheckpoints.get();
+    }
+
+    /**
+     * @return time taken by the last completed checkpoint from its start to the completion of its persistors in
+     * milliseconds, or -1 if no checkpoint has completed
+     */
+    public long getLastCheckpointDuration() {
+        return lastCheckpointDuration;
+    }
+
+    /**
+     * @return size of the snapshots persisted by the last completed checkpoint in bytes, or -1 if no checkpoint has
+     * completed
+     */
+    public long getLastCheckpointSize() {
+        return lastCheckpointSize;
+    }
+
+    public void setWriteLatencyTracker(LatencyTracker writeLatencyTracker) {
+        this.writeLatencyTracker = writeLatencyTracker;
+    }
+
+    public void setPersistedBytesTracker(ThroughputTracker persistedBytesTracker) {
+        this.persistedBytesTracker = persistedBytesTracker;
+    }
+
+    private boolean isTrackingEnabled() {
+        return Level.BASIC.compareTo(siddhiAppContext.getRootMetricsLevel()) <= 0;
+    }
+
+    /**
+     * Checkpoint in flight, which is completed once it is sealed and all the persistors submitted to it complete.
+     */
+    public final class Checkpoint {
+
+        private final boolean incremental;
+        private final long revisionTime = System.currentTimeMillis();
+        private final long startTime = System.nanoTime();
+        // one more than the persistors in flight, until the checkpoint is sealed
+        private final AtomicInteger pendingPersistors = new AtomicInteger(1);
+        private final AtomicLong persistedSize = new AtomicLong();
+        private final CompletableFuture<Void> completion = new CompletableFuture<>();
+        private final List<Runnable> failureActions = new ArrayList<>();
+        private volatile Throwable failure;
+
+        private Checkpoint(boolean incremental) {
+            this.incremental = incremental;
+        }
+
+        public long getRevisionTime() {
+            return revisionTime;
+        }
+
+        public String getRevision() {
+            return revisionTime + PersistenceConstants.REVISION_SEPARATOR + siddhiAppContext.getName();
+        }
+
+        /**
+         * Submits a persistor of the checkpoint to the executor service of the Siddhi app.
+         *
+         * @param persistor     persistor of a snapshot of the checkpoint
+         * @param persistedSize size of the snapshot persisted by the persistor, known once it completes
+         * @return future of the persistor
+         */
+        public Future submit(Runnable persistor, LongSupplier persistedSize) {
+            pendingPersistors.incrementAndGet();
+            try {
+                return siddhiAppContext.getExecutorService().submit(() -> {
+                    boolean trackLatency = writeLatencyTracker != null && isTrackingEnabled();
+                    if (trackLatency) {
+                        writeLatencyTracker.markIn();
+                    }
+                    try {
+                        persistor.run();
+                        this.persistedSize.addAndGet(persistedSize.getAsLong());
+                    } catch (RuntimeException | Error e) {
+                        failure = e;
+                        throw e;
+                    } finally {
+                        if (trackLatency) {
+                            writeLatencyTracker.markOut();
+                        }
+                        persistorCompleted();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                failure = e;
+                persistorCompleted();
+                throw e;
+            }
+        }
+
+        /**
+         * Marks that all the persistors of the checkpoint are submitted.
+         */
+        public void seal() {
+            persistorCompleted();
+        }
+
+        /**
+         * Marks that the checkpoint failed before all its persistors are submitted.
+         *
+         * @param failure cause of the failure
+         */
+        public void abort(Throwable failure) {
+            this.failure = failure;
+            persistorCompleted();
+        }
+
+        /**
+         * Registers an action to run if the checkpoint fails, once all its persistors complete and before its
+         * reference completes. Actions are to be registered before the checkpoint is sealed.
+         *
+         * @param action action to run on failure
+         */
+        public void onFailure(Runnable action) {
+            failureActions.add(action);
+        }
+
+        /**
+         * @return reference to the checkpoint, which completes when the checkpoint completes
+         */
+        public PersistenceReference getReference() {
+            if (incremental) {
+                return new PersistenceReference(Collections.singletonList(completion), getRevision());
+            } else {
+                return new PersistenceReference(completion, getRevision());
+            }
+        }
+
+        private void persistorCompleted() {
+            if (pendingPersistors.decrementAndGet() != 0) {
+                return;
+            }
+            synchronized (checkpointSlots) {
+                inFlightCheckpoints.decrementAndGet();
+                checkpointSlots.notifyAll();
+            }
+            long size = persistedSize.get();
+            lastCheckpointDuration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+            lastCheckpointSize = size;
+            if (persistedBytesTracker != null && isTrackingEnabled()) {
+                persistedBytesTracker.eventsIn((int) Math.min(size, Integer.MAX_VALUE));
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Checkpoint '" + getRevision() + "' persisted " + size + " bytes in " +
+                        lastCheckpointDuration + " ms.");
+            }
+            if (failure != null) {
+                for (Runnable failureAction : failureActions) {
+                    try {
+                        failureAction.run();
+                    } catch (RuntimeException e) {
+                        log.error("Error while handling the failure of checkpoint '" + getRevision() + "'.", e);
+                    }
+                }
+                completion.completeExceptionally(failure);
+            } else {
+                completion.complete(null);
+            }
+        }
+    }
+}
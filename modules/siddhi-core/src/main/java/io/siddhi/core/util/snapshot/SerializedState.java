@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.core.util.snapshot;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+
+/**
+ * State serialized while the Siddhi app is paused, as it cannot be copied for a later serialization. It is
+ * replaced by the state it holds when a snapshot is deserialized, such that restoring is unaware of it.
+ */
+class SerializedState implements Serializable {
+
+    private static final long serialVersionUID = -3275620945081512064L;
+    private final byte[] state;
+
+    SerializedState(byte[] state) {
+        this.state = state;
+    }
+
+    private Object readResolve() throws ObjectStreamException {
+        if (state == null) {
+            return null;
+        }
+        try (ObjectInputStream objectInputStream = new ObjectInputStream(new ByteArrayInputStream(state))) {
+            return objectInputStream.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            InvalidObjectException exception = new InvalidObjectException("Error when reading serialized state, " +
+                    e.getMessage());
+            exception.initCause(e);
+            throw exception;
+        }
+    }
+}
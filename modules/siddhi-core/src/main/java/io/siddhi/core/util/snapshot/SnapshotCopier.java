@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.core.util.snapshot;
+
+import io.siddhi.core.config.SiddhiAppContext;
+import io.siddhi.core.event.stream.Operation;
+import io.siddhi.core.event.stream.StreamEvent;
+import io.siddhi.core.table.holder.CompositePrimaryKey;
+import io.siddhi.core.util.snapshot.state.Snapshot;
+import io.siddhi.core.util.snapshot.state.SnapshotCopyable;
+
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Copies the item states of a state captured for a snapshot while the Siddhi app is paused, such that the copy can
+ * be serialized after the app resumes. Event chains, {@link SnapshotCopyable} objects, operation logs, arrays and
+ * the common collections are copied, keeping objects referenced more than once shared in the copy, while immutable
+ * values are shared with the state. The attribute values of events are shared as well. A state holding any other
+ * object is serialized instead, as it cannot be copied safely.
+ */
+final class SnapshotCopier {
+
+    private static final Object NOT_COPYABLE = new Object();
+    private final Map<Object, Object> copies = new IdentityHashMap<>();
+
+    private SnapshotCopier() {
+
+    }
+
+    /**
+     * @param itemStates       item states of a state
+     * @param siddhiAppContext context of the Siddhi app
+     * @return a copy of the item states, or the item states serialized if they cannot be copied
+     */
+    static Object capture(Map<String, Object> itemStates, SiddhiAppContext siddhiAppContext) {
+        Object copy = new SnapshotCopier().copy(itemStates);
+        if (copy != NOT_COPYABLE) {
+            return copy;
+        }
+        return new SerializedState(ByteSerializer.objectToByte(itemStates, siddhiAppContext));
+    }
+
+    private Object copy(Object value) {
+        if (value == null || isImmutable(value)) {
+            return value;
+        }
+        Object copy = copies.get(value);
+        if (copy != null) {
+            return copy;
+        }
+        if (value.getClass() == StreamEvent.class) {
+            return copyEvents((StreamEvent) value);
+        } else if (value instanceof SnapshotCopyable) {
+            copy = ((SnapshotCopyable) value).copyForSnapshot();
+        } else if (value.getClass() == Snapshot.class) {
+            Object state = copy(((Snapshot) value).getState());
+            if (state == NOT_COPYABLE) {
+                return NOT_COPYABLE;
+            }
+            copy = new Snapshot(state, ((Snapshot) value).isIncrementalSnapshot());
+        } else if (value.getClass() == Operation.class) {
+            Object parameters = copy(((Operation) value).parameters);
+            if (parameters == NOT_COPYABLE) {
+                return NOT_COPYABLE;
+            }
+            copy = new Operation(((Operation) value).operation, parameters);
+        } else if (value.getClass().isArray()) {
+            return copyArray(value);
+        } else if (value instanceof Map) {
+            return copyMap((Map<?, ?>) value);
+        } else if (value instanceof Collection) {
+            return copyCollection((Collection<?>) value);
+        } else {
+            return NOT_COPYABLE;
+        }
+        copies.put(value, copy);
+        return copy;
+    }
+
+    private StreamEvent copyEvents(StreamEvent first) {
+        StreamEvent firstCopy = copyEvent(first);
+        StreamEvent lastCopy = firstCopy;
+        for (StreamEvent streamEvent = first.getNext(); streamEvent != null; streamEvent = streamEvent.getNext()) {
+            StreamEvent copy = (StreamEvent) copies.get(streamEvent);
+            if (copy != null) {
+                lastCopy.setNext(copy);
+                break;
+            }
+            copy = copyEvent(streamEvent);
+            lastCopy.setNext(copy);
+            lastCopy = copy;
+        }
+        return firstCopy;
+    }
+
+    private StreamEvent copyEvent(StreamEvent streamEvent) {
+        StreamEvent copy = new StreamEvent(0, 0, 0);
+        copy.setBeforeWindowData(copyData(streamEvent.getBeforeWindowData()));
+        copy.setOnAfterWindowData(copyData(streamEvent.getOnAfterWindowData()));
+        copy.setOutputData(copyData(streamEvent.getOutputData()));
+        copy.setTimestamp(streamEvent.getTimestamp());
+        copy.setType(streamEvent.getType());
+        copies.put(streamEvent, copy);
+        return copy;
+    }
+
+    private Object[] copyData(Object[] data) {
+        return data == null ? null : data.clone();
+    }
+
+    private Object copyArray(Object array) {
+        int length = Array.getLength(array);
+        Object copy = Array.newInstance(array.getClass().getComponentType(), length);
+        copies.put(array, copy);
+        if (array.getClass().getComponentType().isPrimitive()) {
+            System.arraycopy(array, 0, copy, 0, length);
+            return copy;
+        }
+        for (int i = 0; i < length; i++) {
+            Object element = copy(Array.get(array, i));
+            if (element == NOT_COPYABLE) {
+                return NOT_COPYABLE;
+            }
+            Array.set(copy, i, element);
+        }
+        return copy;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object copyMap(Map<?, ?> map) {
+        Map<Object, Object> copy;
+        if (map.getClass() == HashMap.class) {
+            copy = new HashMap<>();
+        } else if (map.getClass() == LinkedHashMap.class) {
+            copy = new LinkedHashMap<>();
+        } else if (map.getClass() == ConcurrentHashMap.class) {
+            copy = new ConcurrentHashMap<>();
+        } else if (map.getClass() == TreeMap.class) {
+            copy = new TreeMap<>(((TreeMap<Object, Object>) map).comparator());
+        } else if (map.getClass() == ConcurrentSkipListMap.class) {
+            copy = new ConcurrentSkipListMap<>(((ConcurrentSkipListMap<Object, Object>) map).comparator());
+        } else {
+            return NOT_COPYABLE;
+        }
+        copies.put(map, copy);
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            Object key = copy(entry.getKey());
+            Object value = copy(entry.getValue());
+            if (key == NOT_COPYABLE || value == NOT_COPYABLE) {
+                return NOT_COPYABLE;
+            }
+            copy.put(key, value);
+        }
+        return copy;
+    }
+
+    private Object copyCollection(Collection<?> collection) {
+        Collection<Object> copy;
+        if (collection.getClass() == ArrayList.class) {
+            copy = new ArrayList<>(collection.size());
+        } else if (collection.getClass() == LinkedList.class) {
+            copy = new LinkedList<>();
+        } else if (collection.getClass() == ArrayDeque.class) {
+            copy = new ArrayDeque<>(collection.size());
+        } else if (collection.getClass() == HashSet.class) {
+            copy = new HashSet<>();
+        } else if (collection.getClass() == LinkedHashSet.class) {
+            copy = new LinkedHashSet<>();
+        } else {
+            return NOT_COPYABLE;
+        }
+        copies.put(collection, copy);
+        for (Object element : collection) {
+            Object elementCopy = copy(element);
+            if (elementCopy == NOT_COPYABLE) {
+                return NOT_COPYABLE;
+            }
+            copy.add(elementCopy);
+        }
+        return copy;
+    }
+
+    private static boolean isImmutable(Object value) {
+        Class<?> type = value.getClass();
+        return type == String.class || type == Integer.class || type == Long.class || type == Double.class ||
+                type == Float.class || type == Boolean.class || type == Short.class || type == Byte.class ||
+                type == Character.class || type == BigInteger.class || type == BigDecimal.class ||
+                type == CompositePrimaryKey.class || value instanceof Enum;
+    }
+}
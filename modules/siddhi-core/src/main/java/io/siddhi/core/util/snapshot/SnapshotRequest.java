@@ -30,6 +30,14 @@ public class SnapshotRequest {
                 }
             };
 
+    private static final ThreadLocal<Boolean> requestForSnapshot =
+            new ThreadLocal<Boolean>() {
+                @Override
+                protected Boolean initialValue() {
+                    return false;
+                }
+            };
+
     public static void requestForFullSnapshot(boolean enable) {
         requestForFullSnapshot.set(enable);
     }
@@ -38,4 +46,16 @@ public class SnapshotRequest {
         return requestForFullSnapshot.get();
     }
 
+    /**
+     * @param enable whether the states are accessed to take a snapshot, such that the state holders do not mark
+     *               them as modified
+     */
+    public static void requestForSnapshot(boolean enable) {
+        requestForSnapshot.set(enable);
+    }
+
+    public static boolean isRequestForSnapshot() {
+        return requestForSnapshot.get();
+    }
+
 }
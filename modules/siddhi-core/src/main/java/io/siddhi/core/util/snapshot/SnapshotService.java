@@ -26,22 +26,42 @@ import io.siddhi.core.exception.SiddhiAppRuntimeException;
 import io.siddhi.core.util.ThreadBarrier;
 import io.siddhi.core.util.persistence.IncrementalPersistenceStore;
 import io.siddhi.core.util.persistence.PersistenceStore;
+import io.siddhi.core.util.persistence.StreamingIncrementalPersistenceStore;
+import io.siddhi.core.util.persistence.StreamingPersistenceStore;
 import io.siddhi.core.util.persistence.util.IncrementalSnapshotInfo;
 import io.siddhi.core.util.persistence.util.PersistenceConstants;
 import io.siddhi.core.util.persistence.util.PersistenceHelper;
+import io.siddhi.core.util.snapshot.state.LazyRestorableStateHolder;
 import io.siddhi.core.util.snapshot.state.Snapshot;
 import io.siddhi.core.util.snapshot.state.SnapshotStateList;
 import io.siddhi.core.util.snapshot.state.State;
 import io.siddhi.core.util.snapshot.state.StateHolder;
+import io.siddhi.core.util.statistics.LatencyTracker;
+import io.siddhi.core.util.statistics.metrics.Level;
 import org.apache.log4j.Logger;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * Service level implementation to take/restore snapshots of processing elements.
@@ -51,9 +71,19 @@ import java.util.concurrent.ConcurrentHashMap;
 public class SnapshotService {
     private static final Logger log = Logger.getLogger(SnapshotService.class);
     private static final ThreadLocal<Boolean> skipStateStorageThreadLocal = new ThreadLocal<Boolean>();
+    private static final long STABILIZATION_TIMEOUT = 100;
+    private static final int LAZY_RESTORE_BATCH_SIZE = 1000;
     private final ThreadBarrier threadBarrier;
     private ConcurrentHashMap<String, PartitionIdStateHolder> partitionIdStates;
     private SiddhiAppContext siddhiAppContext;
+    private LatencyTracker pauseLatencyTracker;
+    private LatencyTracker barrierWaitLatencyTracker;
+    private volatile long lastPauseTime;
+    private StateSerializer stateSerializer = new JavaStateSerializer();
+    private ForkJoinPool snapshotPool;
+    private boolean lazyRestore;
+    private volatile Future pendingStatesWarmer;
+    private final Queue<State> unpersistedStates = new ConcurrentLinkedQueue<>();
 
     public SnapshotService(SiddhiAppContext siddhiAppContext) {
         this.siddhiAppContext = siddhiAppContext;
@@ -88,186 +118,192 @@ public class SnapshotService {
     }
 
     public byte[] fullSnapshot() {
+        return captureFullSnapshot().serialize();
+    }
+
+    /**
+     * Captures a full snapshot of the Siddhi app while pausing its processing. When the app copies its states on
+     * snapshots, the states are only copied during the pause, and serialized when the captured snapshot is
+     * serialized; otherwise they are serialized during the pause.
+     *
+     * @return the captured snapshot
+     */
+    public CapturedSnapshot captureFullSnapshot() {
         try {
             SnapshotRequest.requestForFullSnapshot(true);
-            Map<String, Map<String, Map<String, Map<String, Map<String, Object>>>>> fullSnapshot = new HashMap<>();
-            byte[] serializedFullState = null;
+            Map<String, Map<String, Map<String, Map<String, Object>>>> fullSnapshot = new HashMap<>();
+            CapturedSnapshot capturedSnapshot;
             if (log.isDebugEnabled()) {
                 log.debug("Taking snapshot ...");
             }
+            long pauseStartTime = pause();
             try {
-                threadBarrier.lock();
-                waitForSystemStabilization();
+                List<String[]> elementIds = new ArrayList<>();
+                List<Callable<Map<String, Object>>> captures = new ArrayList<>();
                 for (Map.Entry<String, PartitionIdStateHolder> partitionIdState : partitionIdStates.entrySet()) {
                     for (Map.Entry<String, ElementStateHolder> queryState :
                             partitionIdState.getValue().queryStateHolderMap.entrySet()) {
                         for (Map.Entry<String, StateHolder> elementState :
                                 queryState.getValue().elementHolderMap.entrySet()) {
-                            Map<String, Map<String, State>> partitionKeyStates = elementState.getValue().getAllStates();
-                            try {
-                                for (Map.Entry<String, Map<String, State>> partitionKeyState :
-                                        partitionKeyStates.entrySet()) {
-                                    for (Map.Entry<String, State> groupByKeyState :
-                                            partitionKeyState.getValue().entrySet()) {
-                                        String partitionAndGroupByKey = partitionKeyState.getKey() + "--" +
-                                                groupByKeyState.getKey();
-                                        State state = groupByKeyState.getValue();
-                                        Map<String, Object> itemStates = state.snapshot();
-                                        if (itemStates != null) {
-                                            Map<String, Object> itemSnapshots = new HashMap<>();
-                                            for (Map.Entry<String, Object> itemState : itemStates.entrySet()) {
-                                                if (itemState.getValue() instanceof Snapshot) {
-                                                    if (((Snapshot) itemState.getValue()).isIncrementalSnapshot()) {
-                                                        throw new NoPersistenceStoreException("No incremental " +
-                                                                "persistence store exist to store incremental " +
-                                                                "snapshot of siddhiApp:'"
-                                                                + siddhiAppContext.getName()
-                                                                + "' subElement:'" + queryState.getKey()
-                                                                + "' elementId:'" + elementState.getKey()
-                                                                + "' partitionKey:'" + partitionKeyState.getKey()
-                                                                + "' groupByKey:'" + groupByKeyState.getKey()
-                                                                + "' and itemKey:'" + itemState.getKey() + "'");
-                                                    } else {
-                                                        itemSnapshots.put(itemState.getKey(), itemState.getValue());
-                                                    }
-                                                } else {
-                                                    itemSnapshots.put(itemState.getKey(), itemState.getValue());
-                                                }
-                                            }
-                                            Map<String, Map<String, Map<String, Map<String, Object>>>>
-                                                    partitionIdSnapshot = fullSnapshot.computeIfAbsent(
-                                                    partitionIdState.getKey(),
-                                                    k -> new HashMap<>());
-                                            Map<String, Map<String, Map<String, Object>>> partitionGroupByKeySnapshot =
-                                                    partitionIdSnapshot.computeIfAbsent(
-                                                            partitionAndGroupByKey,
-                                                            k -> new HashMap<>());
-                                            Map<String, Map<String, Object>> querySnapshot =
-                                                    partitionGroupByKeySnapshot.computeIfAbsent(
-                                                            queryState.getKey(),
-                                                            k -> new HashMap<>());
-                                            Map<String, Object> elementSnapshot =
-                                                    querySnapshot.get(elementState.getKey());
-                                            if (elementSnapshot == null) {
-                                                querySnapshot.put(elementState.getKey(), itemSnapshots);
-                                            } else {
-                                                throw new SiddhiAppRuntimeException("Duplicate state exist for " +
-                                                        "siddhiApp:'" + siddhiAppContext.getName()
-                                                        + "' partitionKey:'" + partitionKeyState.getKey()
-                                                        + "' groupByKey:'" + groupByKeyState.getKey()
-                                                        + "' subElement:'" + queryState.getKey()
-                                                        + "' elementId:'" + elementState.getKey() + "'");
-                                            }
-                                        }
-                                    }
-                                }
-                            } finally {
-                                elementState.getValue().returnAllStates(partitionKeyStates);
-                            }
+                            elementIds.add(new String[]{partitionIdState.getKey(), queryState.getKey(),
+                                    elementState.getKey()});
+                            captures.add(() -> captureElementStates(queryState.getKey(), elementState.getKey(),
+                                    elementState.getValue()));
                         }
                     }
                 }
-                if (log.isDebugEnabled()) {
-                    log.debug("Snapshot serialization started ...");
+                List<Map<String, Object>> elementSnapshots = invokeAll(captures);
+                for (int i = 0; i < elementSnapshots.size(); i++) {
+                    String[] elementId = elementIds.get(i);
+                    for (Map.Entry<String, Object> partitionGroupByKeySnapshot :
+                            elementSnapshots.get(i).entrySet()) {
+                        fullSnapshot.computeIfAbsent(elementId[0], k -> new HashMap<>())
+                                .computeIfAbsent(partitionGroupByKeySnapshot.getKey(), k -> new HashMap<>())
+                                .computeIfAbsent(elementId[1], k -> new HashMap<>())
+                                .put(elementId[2], partitionGroupByKeySnapshot.getValue());
+                    }
                 }
-                serializedFullState = ByteSerializer.objectToByte(fullSnapshot, siddhiAppContext);
-                if (log.isDebugEnabled()) {
-                    log.debug("Snapshot serialization finished.");
+                if (siddhiAppContext.isSnapshotCopyEnabled()) {
+                    capturedSnapshot = new CapturedSnapshot(fullSnapshot, siddhiAppContext);
+                } else {
+                    if (log.isDebugEnabled()) {
+                        log.debug("Snapshot serialization started ...");
+                    }
+                    capturedSnapshot = new CapturedSnapshot(stateSerializer.serialize(fullSnapshot,
+                            siddhiAppContext), siddhiAppContext);
+                    if (log.isDebugEnabled()) {
+                        log.debug("Snapshot serialization finished.");
+                    }
                 }
             } finally {
-                threadBarrier.unlock();
+                resume(pauseStartTime);
             }
             if (log.isDebugEnabled()) {
                 log.debug("Snapshot taken for Siddhi app '" + siddhiAppContext.getName() + "'");
             }
-            return serializedFullState;
+            return capturedSnapshot;
         } finally {
             SnapshotRequest.requestForFullSnapshot(false);
         }
     }
 
+    /**
+     * Captures the states of an element for a full snapshot, such that the states of the elements can be captured
+     * in parallel.
+     *
+     * @return the captured item states of the element by its partition and group by keys
+     */
+    private Map<String, Object> captureElementStates(String queryName, String elementId, StateHolder stateHolder) {
+        boolean requestForFullSnapshot = SnapshotRequest.isRequestForFullSnapshot();
+        boolean requestForSnapshot = SnapshotRequest.isRequestForSnapshot();
+        SnapshotRequest.requestForFullSnapshot(true);
+        SnapshotRequest.requestForSnapshot(true);
+        Map<String, Object> elementSnapshots = new HashMap<>();
+        Map<String, Map<String, State>> partitionKeyStates;
+        try {
+            partitionKeyStates = stateHolder.getAllStates();
+        } finally {
+            SnapshotRequest.requestForSnapshot(requestForSnapshot);
+        }
+        try {
+            for (Map.Entry<String, Map<String, State>> partitionKeyState : partitionKeyStates.entrySet()) {
+                for (Map.Entry<String, State> groupByKeyState : partitionKeyState.getValue().entrySet()) {
+                    String partitionAndGroupByKey = partitionKeyState.getKey() + "--" + groupByKeyState.getKey();
+                    Map<String, Object> itemStates = groupByKeyState.getValue().snapshot();
+                    if (itemStates == null) {
+                        continue;
+                    }
+                    Map<String, Object> itemSnapshots = new HashMap<>();
+                    for (Map.Entry<String, Object> itemState : itemStates.entrySet()) {
+                        if (itemState.getValue() instanceof Snapshot &&
+                                ((Snapshot) itemState.getValue()).isIncrementalSnapshot()) {
+                            throw new NoPersistenceStoreException("No incremental persistence store exist to " +
+                                    "store incremental snapshot of siddhiApp:'" + siddhiAppContext.getName()
+                                    + "' subElement:'" + queryName
+                                    + "' elementId:'" + elementId
+                                    + "' partitionKey:'" + partitionKeyState.getKey()
+                                    + "' groupByKey:'" + groupByKeyState.getKey()
+                                    + "' and itemKey:'" + itemState.getKey() + "'");
+                        }
+                        itemSnapshots.put(itemState.getKey(), itemState.getValue());
+                    }
+                    if (elementSnapshots.containsKey(partitionAndGroupByKey)) {
+                        throw new SiddhiAppRuntimeException("Duplicate state exist for " +
+                                "siddhiApp:'" + siddhiAppContext.getName()
+                                + "' partitionKey:'" + partitionKeyState.getKey()
+                                + "' groupByKey:'" + groupByKeyState.getKey()
+                                + "' subElement:'" + queryName
+                                + "' elementId:'" + elementId + "'");
+                    }
+                    elementSnapshots.put(partitionAndGroupByKey, captureItemStates(itemSnapshots));
+                }
+            }
+        } finally {
+            stateHolder.returnAllStates(partitionKeyStates);
+            SnapshotRequest.requestForFullSnapshot(requestForFullSnapshot);
+        }
+        return elementSnapshots;
+    }
+
     public IncrementalSnapshot incrementalSnapshot() {
         try {
             SnapshotRequest.requestForFullSnapshot(false);
-            Map<String, Map<String, byte[]>> incrementalSnapshotMap = new HashMap<>();
-            Map<String, Map<String, byte[]>> incrementalBaseSnapshotMap = new HashMap<>();
-            Map<String, Map<String, byte[]>> periodicSnapshotMap = new HashMap<>();
+            Map<String, Map<String, Object>> incrementalSnapshotMap = new HashMap<>();
+            Map<String, Map<String, Object>> incrementalBaseSnapshotMap = new HashMap<>();
+            Map<String, Map<String, Object>> periodicSnapshotMap = new HashMap<>();
             if (log.isDebugEnabled()) {
                 log.debug("Taking snapshot ...");
             }
+            List<State> capturedStates = new ArrayList<>();
+            long pauseStartTime = pause();
             try {
-                threadBarrier.lock();
-                waitForSystemStabilization();
+                for (State state = unpersistedStates.poll(); state != null; state = unpersistedStates.poll()) {
+                    state.markDirty();
+                }
+                List<String> partitionIds = new ArrayList<>();
+                List<Callable<ElementIncrements>> captures = new ArrayList<>();
                 for (Map.Entry<String, PartitionIdStateHolder> partitionIdState : partitionIdStates.entrySet()) {
                     for (Map.Entry<String, ElementStateHolder> queryState :
                             partitionIdState.getValue().queryStateHolderMap.entrySet()) {
                         for (Map.Entry<String, StateHolder> elementState :
                                 queryState.getValue().elementHolderMap.entrySet()) {
-                            Map<String, Map<String, State>> partitionKeyStates = elementState.getValue().getAllStates();
-                            try {
-                                for (Map.Entry<String, Map<String, State>> partitionKeyState :
-                                        partitionKeyStates.entrySet()) {
-                                    for (Map.Entry<String, State> groupByKeyState :
-                                            partitionKeyState.getValue().entrySet()) {
-                                        State state = groupByKeyState.getValue();
-                                        Map<String, Object> itemStates = state.snapshot();
-                                        if (itemStates != null) {
-                                            Map<String, Object> itemSnapshotsIncremental = new HashMap<>();
-                                            Map<String, Object> itemSnapshotsIncrementalBase = new HashMap<>();
-                                            Map<String, Object> itemSnapshotsPeriodic = new HashMap<>();
-                                            for (Map.Entry<String, Object> itemState : itemStates.entrySet()) {
-                                                if (itemState.getValue() instanceof Snapshot) {
-                                                    if (((Snapshot) itemState.getValue()).isIncrementalSnapshot()) {
-                                                        itemSnapshotsIncremental.put(itemState.getKey(),
-                                                                itemState.getValue());
-                                                    } else {
-                                                        itemSnapshotsIncrementalBase.put(
-                                                                itemState.getKey(), itemState.getValue());
-                                                    }
-                                                } else {
-                                                    itemSnapshotsPeriodic.put(itemState.getKey(), itemState.getValue());
-                                                }
-                                            }
-                                            if (!itemSnapshotsIncremental.isEmpty()) {
-                                                addToSnapshotIncrements(incrementalSnapshotMap, partitionIdState,
-                                                        queryState, elementState, partitionKeyState, groupByKeyState,
-                                                        itemSnapshotsIncremental);
-                                            }
-                                            if (!itemSnapshotsIncrementalBase.isEmpty()) {
-                                                addToSnapshotIncrements(incrementalBaseSnapshotMap, partitionIdState,
-                                                        queryState, elementState, partitionKeyState, groupByKeyState,
-                                                        itemSnapshotsIncrementalBase);
-                                            }
-                                            if (!itemSnapshotsPeriodic.isEmpty()) {
-                                                addToSnapshotIncrements(periodicSnapshotMap, partitionIdState,
-                                                        queryState, elementState, partitionKeyState, groupByKeyState,
-                                                        itemSnapshotsPeriodic);
-                                            }
-                                        }
-                                    }
-                                }
-                            } finally {
-                                elementState.getValue().returnAllStates(partitionKeyStates);
-                            }
+                            partitionIds.add(partitionIdState.getKey());
+                            captures.add(() -> captureElementIncrements(queryState.getKey(), elementState.getKey(),
+                                    elementState.getValue()));
                         }
                     }
                 }
-
+                List<ElementIncrements> elementIncrements = invokeAll(captures);
+                for (int i = 0; i < elementIncrements.size(); i++) {
+                    addToSnapshotIncrements(incrementalSnapshotMap, partitionIds.get(i),
+                            elementIncrements.get(i).incremental);
+                    addToSnapshotIncrements(incrementalBaseSnapshotMap, partitionIds.get(i),
+                            elementIncrements.get(i).incrementalBase);
+                    addToSnapshotIncrements(periodicSnapshotMap, partitionIds.get(i),
+                            elementIncrements.get(i).periodic);
+                    capturedStates.addAll(elementIncrements.get(i).states);
+                }
             } finally {
-                threadBarrier.unlock();
+                resume(pauseStartTime);
             }
             if (log.isDebugEnabled()) {
                 log.debug("Snapshot taken for Siddhi app '" + siddhiAppContext.getName() + "'");
             }
             IncrementalSnapshot snapshot = new IncrementalSnapshot();
-            if (!incrementalSnapshotMap.isEmpty()) {
-                snapshot.setIncrementalState(incrementalSnapshotMap);
-            }
-            if (!incrementalBaseSnapshotMap.isEmpty()) {
-                snapshot.setIncrementalStateBase(incrementalBaseSnapshotMap);
-            }
-            if (!periodicSnapshotMap.isEmpty()) {
-                snapshot.setPeriodicState(periodicSnapshotMap);
+            snapshot.setCapturedStates(capturedStates);
+            try {
+                if (!incrementalSnapshotMap.isEmpty()) {
+                    snapshot.setIncrementalState(serializeIncrements(incrementalSnapshotMap));
+                }
+                if (!incrementalBaseSnapshotMap.isEmpty()) {
+                    snapshot.setIncrementalStateBase(serializeIncrements(incrementalBaseSnapshotMap));
+                }
+                if (!periodicSnapshotMap.isEmpty()) {
+                    snapshot.setPeriodicState(serializeIncrements(periodicSnapshotMap));
+                }
+            } catch (RuntimeException | Error e) {
+                markUnpersisted(capturedStates);
+                throw e;
             }
             return snapshot;
         } finally {
@@ -275,22 +311,303 @@ public class SnapshotService {
         }
     }
 
-    private void addToSnapshotIncrements(Map<String, Map<String, byte[]>> incrementalSnapshotMap,
-                                         Map.Entry<String, PartitionIdStateHolder> partitionIdState,
-                                         Map.Entry<String, ElementStateHolder> queryState,
-                                         Map.Entry<String, StateHolder> elementState,
-                                         Map.Entry<String, Map<String, State>> partitionKeyState,
-                                         Map.Entry<String, State> groupByKeyState,
-                                         Map<String, Object> itemSnapshotsIncremental) {
-        String id = partitionKeyState.getKey() + "--" + groupByKeyState.getKey() +
-                PersistenceConstants.REVISION_SEPARATOR + queryState.getKey() +
-                PersistenceConstants.REVISION_SEPARATOR + elementState.getKey();
-        Map<String, byte[]> partitionIdSnapshot =
-                incrementalSnapshotMap.computeIfAbsent(
-                        partitionIdState.getKey(),
-                        k -> new HashMap<>());
-        partitionIdSnapshot.put(id, ByteSerializer.objectToByte(
-                itemSnapshotsIncremental, siddhiAppContext));
+    /**
+     * Marks the states captured by an incremental snapshot that failed to persist, such that they are captured
+     * again by the next incremental snapshot even if they are not modified until then.
+     *
+     * @param states states captured by the incremental snapshot
+     */
+    public void markUnpersisted(List<State> states) {
+        unpersistedStates.addAll(states);
+    }
+
+    /**
+     * Captures the states of an element for an incremental snapshot, such that the states of the elements can be
+     * captured in parallel.
+     */
+    private ElementIncrements captureElementIncrements(String queryName, String elementId, StateHolder stateHolder) {
+        boolean requestForFullSnapshot = SnapshotRequest.isRequestForFullSnapshot();
+        boolean requestForSnapshot = SnapshotRequest.isRequestForSnapshot();
+        SnapshotRequest.requestForFullSnapshot(false);
+        SnapshotRequest.requestForSnapshot(true);
+        ElementIncrements elementIncrements = new ElementIncrements();
+        Map<String, Map<String, State>> partitionKeyStates;
+        try {
+            partitionKeyStates = stateHolder.getAllStates();
+        } finally {
+            SnapshotRequest.requestForSnapshot(requestForSnapshot);
+        }
+        try {
+            for (Map.Entry<String, Map<String, State>> partitionKeyState : partitionKeyStates.entrySet()) {
+                for (Map.Entry<String, State> groupByKeyState : partitionKeyState.getValue().entrySet()) {
+                    State state = groupByKeyState.getValue();
+                    if (!state.isDirty()) {
+                        // not modified since its last incremental snapshot, which is loaded when restoring
+                        continue;
+                    }
+                    Map<String, Object> itemStates = state.snapshot();
+                    state.clearDirty();
+                    elementIncrements.states.add(state);
+                    if (itemStates == null) {
+                        continue;
+                    }
+                    Map<String, Object> itemSnapshotsIncremental = new HashMap<>();
+                    Map<String, Object> itemSnapshotsIncrementalBase = new HashMap<>();
+                    Map<String, Object> itemSnapshotsPeriodic = new HashMap<>();
+                    for (Map.Entry<String, Object> itemState : itemStates.entrySet()) {
+                        if (itemState.getValue() instanceof Snapshot) {
+                            if (((Snapshot) itemState.getValue()).isIncrementalSnapshot()) {
+                                itemSnapshotsIncremental.put(itemState.getKey(), itemState.getValue());
+                            } else {
+                                itemSnapshotsIncrementalBase.put(itemState.getKey(), itemState.getValue());
+                            }
+                        } else {
+                            itemSnapshotsPeriodic.put(itemState.getKey(), itemState.getValue());
+                        }
+                    }
+                    String id = partitionKeyState.getKey() + "--" + groupByKeyState.getKey() +
+                            PersistenceConstants.REVISION_SEPARATOR + queryName +
+                            PersistenceConstants.REVISION_SEPARATOR + elementId;
+                    if (!itemSnapshotsIncremental.isEmpty()) {
+                        elementIncrements.incremental.put(id, captureIncrement(itemSnapshotsIncremental));
+                    }
+                    if (!itemSnapshotsIncrementalBase.isEmpty()) {
+                        elementIncrements.incrementalBase.put(id, captureIncrement(itemSnapshotsIncrementalBase));
+                    }
+                    if (!itemSnapshotsPeriodic.isEmpty()) {
+                        elementIncrements.periodic.put(id, captureIncrement(itemSnapshotsPeriodic));
+                    }
+                }
+            }
+        } finally {
+            stateHolder.returnAllStates(partitionKeyStates);
+            SnapshotRequest.requestForFullSnapshot(requestForFullSnapshot);
+        }
+        return elementIncrements;
+    }
+
+    private Object captureIncrement(Map<String, Object> itemSnapshots) {
+        if (siddhiAppContext.isSnapshotCopyEnabled()) {
+            return SnapshotCopier.capture(itemSnapshots, siddhiAppContext);
+        }
+        return stateSerializer.serialize(itemSnapshots, siddhiAppContext);
+    }
+
+    private void addToSnapshotIncrements(Map<String, Map<String, Object>> incrementalSnapshotMap, String partitionId,
+                                         Map<String, Object> elementIncrements) {
+        if (!elementIncrements.isEmpty()) {
+            incrementalSnapshotMap.computeIfAbsent(partitionId, k -> new HashMap<>()).putAll(elementIncrements);
+        }
+    }
+
+    private Map<String, Map<String, byte[]>> serializeIncrements(
+            Map<String, Map<String, Object>> incrementalSnapshotMap) {
+        Map<String, Map<String, byte[]>> serializedSnapshotMap = new HashMap<>();
+        List<Map<String, byte[]>> serializedPartitionIdSnapshots = new ArrayList<>();
+        List<String> ids = new ArrayList<>();
+        List<Callable<byte[]>> serializations = new ArrayList<>();
+        for (Map.Entry<String, Map<String, Object>> partitionIdSnapshot : incrementalSnapshotMap.entrySet()) {
+            Map<String, byte[]> serializedPartitionIdSnapshot = new HashMap<>();
+            for (Map.Entry<String, Object> snapshot : partitionIdSnapshot.getValue().entrySet()) {
+                if (snapshot.getValue() instanceof byte[]) {
+                    serializedPartitionIdSnapshot.put(snapshot.getKey(), (byte[]) snapshot.getValue());
+                } else {
+                    serializedPartitionIdSnapshots.add(serializedPartitionIdSnapshot);
+                    ids.add(snapshot.getKey());
+                    serializations.add(() -> stateSerializer.serialize(snapshot.getValue(), siddhiAppContext));
+                }
+            }
+            serializedSnapshotMap.put(partitionIdSnapshot.getKey(), serializedPartitionIdSnapshot);
+        }
+        List<byte[]> serializedSnapshots = invokeAll(serializations);
+        for (int i = 0; i < serializedSnapshots.size(); i++) {
+            serializedPartitionIdSnapshots.get(i).put(ids.get(i), serializedSnapshots.get(i));
+        }
+        return serializedSnapshotMap;
+    }
+
+    private Object captureItemStates(Map<String, Object> itemStates) {
+        if (siddhiAppContext.isSnapshotCopyEnabled()) {
+            return SnapshotCopier.capture(itemStates, siddhiAppContext);
+        } else if (snapshotPool != null) {
+            return stateSerializer.serialize(itemStates, siddhiAppContext);
+        }
+        return itemStates;
+    }
+
+    /**
+     * Serializes the captured item states of a full snapshot into independent segments in parallel, such that the
+     * serialization of the snapshot only writes the segments, and the segments can be deserialized in parallel
+     * when restoring. The snapshot is returned as it is when the snapshots are not taken in parallel.
+     *
+     * @param fullSnapshot captured full snapshot
+     * @return the full snapshot with its item states serialized as segments
+     */
+    Object serializeSegments(Object fullSnapshot) {
+        if (snapshotPool == null) {
+            return fullSnapshot;
+        }
+        List<Map<String, Object>> querySnapshots = new ArrayList<>();
+        List<String> elementIds = new ArrayList<>();
+        List<Callable<byte[]>> serializations = new ArrayList<>();
+        for (Map<String, Map<String, Map<String, Object>>> partitionIdSnapshot :
+                ((Map<String, Map<String, Map<String, Map<String, Object>>>>) fullSnapshot).values()) {
+            for (Map<String, Map<String, Object>> partitionGroupByKeySnapshot : partitionIdSnapshot.values()) {
+                for (Map<String, Object> querySnapshot : partitionGroupByKeySnapshot.values()) {
+                    for (Map.Entry<String, Object> elementSnapshot : querySnapshot.entrySet()) {
+                        if (!(elementSnapshot.getValue() instanceof byte[])) {
+                            querySnapshots.add(querySnapshot);
+                            elementIds.add(elementSnapshot.getKey());
+                            serializations.add(() -> stateSerializer.serialize(elementSnapshot.getValue(),
+                                    siddhiAppContext));
+                        }
+                    }
+                }
+            }
+        }
+        List<byte[]> segments = invokeAll(serializations);
+        for (int i = 0; i < segments.size(); i++) {
+            querySnapshots.get(i).put(elementIds.get(i), segments.get(i));
+        }
+        return fullSnapshot;
+    }
+
+    /**
+     * Runs the given tasks in the snapshot pool when the snapshots are taken in parallel, or else in the current
+     * thread.
+     *
+     * @return the results of the tasks, in the order of the tasks
+     */
+    private <T> List<T> invokeAll(List<Callable<T>> tasks) {
+        List<T> results = new ArrayList<>(tasks.size());
+        if (snapshotPool == null || tasks.size() < 2) {
+            for (Callable<T> task : tasks) {
+                try {
+                    results.add(task.call());
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new SiddhiAppRuntimeException(e.getMessage(), e);
+                }
+            }
+            return results;
+        }
+        for (Future<T> future : snapshotPool.invokeAll(tasks)) {
+            try {
+                results.add(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SiddhiAppRuntimeException("Snapshot/restore of Siddhi App " + siddhiAppContext.getName() +
+                        " interrupted. " + e.getMessage(), e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                } else if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                throw new SiddhiAppRuntimeException(e.getCause().getMessage(), e.getCause());
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Pauses the processing of the Siddhi app, and waits for the events being processed to complete.
+     *
+     * @return the time the pause started at
+     */
+    private long pause() {
+        if (pauseLatencyTracker != null && Level.BASIC.compareTo(siddhiAppContext.getRootMetricsLevel()) <= 0) {
+            pauseLatencyTracker.markIn();
+        }
+        long pauseStartTime = System.nanoTime();
+        threadBarrier.lock();
+        try {
+            waitForSystemStabilization();
+        } catch (RuntimeException e) {
+            resume(pauseStartTime);
+            throw e;
+        }
+        return pauseStartTime;
+    }
+
+    private void resume(long pauseStartTime) {
+        threadBarrier.unlock();
+        lastPauseTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - pauseStartTime);
+        if (pauseLatencyTracker != null && Level.BASIC.compareTo(siddhiAppContext.getRootMetricsLevel()) <= 0) {
+            pauseLatencyTracker.markOut();
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Siddhi app '" + siddhiAppContext.getName() + "' paused for " + lastPauseTime +
+                    " ms to take a snapshot.");
+        }
+    }
+
+    /**
+     * @return the time in milliseconds the last snapshot paused the processing of the Siddhi app for
+     */
+    public long getLastPauseTime() {
+        return lastPauseTime;
+    }
+
+    public void setPauseLatencyTracker(LatencyTracker pauseLatencyTracker) {
+        this.pauseLatencyTracker = pauseLatencyTracker;
+    }
+
+    public StateSerializer getStateSerializer() {
+        return stateSerializer;
+    }
+
+    public void setStateSerializer(StateSerializer stateSerializer) {
+        this.stateSerializer = stateSerializer;
+    }
+
+    /**
+     * Sets the number of threads the states of the elements are snapshotted and restored with. The states are
+     * captured, serialized, deserialized and restored in parallel by element when it is greater than one.
+     *
+     * @param parallelism number of threads
+     */
+    public void setParallelism(int parallelism) {
+        if (snapshotPool != null) {
+            snapshotPool.shutdown();
+            snapshotPool = null;
+        }
+        if (parallelism > 1) {
+            snapshotPool = new ForkJoinPool(parallelism);
+        }
+    }
+
+    public int getParallelism() {
+        return snapshotPool == null ? 1 : snapshotPool.getParallelism();
+    }
+
+    /**
+     * Sets whether the partition and group by states of a full snapshot are restored lazily. When restored lazily,
+     * the states are indexed by their keys and each state is restored when it is first accessed, while the rest are
+     * restored in batches in the background, such that the Siddhi app resumes processing without waiting for all its
+     * states to be restored. The segment of each state is also only deserialized when the state is restored, when
+     * the snapshots are taken in parallel, while otherwise the whole snapshot is deserialized before restoring.
+     *
+     * @param lazyRestore whether to restore the states lazily
+     */
+    public void setLazyRestore(boolean lazyRestore) {
+        this.lazyRestore = lazyRestore;
+    }
+
+    public boolean isLazyRestore() {
+        return lazyRestore;
+    }
+
+    public void shutdown() {
+        stopWarmingPendingStates();
+        if (snapshotPool != null) {
+            snapshotPool.shutdownNow();
+        }
+    }
+
+    public void setBarrierWaitLatencyTracker(LatencyTracker barrierWaitLatencyTracker) {
+        this.barrierWaitLatencyTracker = barrierWaitLatencyTracker;
     }
 
     public Map<String, Object> queryState(String queryName) {
@@ -335,13 +652,43 @@ public class SnapshotService {
             throw new CannotRestoreSiddhiAppStateException("Restoring of Siddhi app " + siddhiAppContext.
                     getName() + " failed due to no snapshot.");
         }
-        Map<String, Map<String, Map<String, Map<String, Map<String, Object>>>>> fullSnapshot =
-                (Map<String, Map<String, Map<String, Map<String, Map<String, Object>>>>>)
-                        ByteSerializer.byteToObject(snapshot, siddhiAppContext);
+        restoreFullSnapshot((Map<String, Map<String, Map<String, Map<String, Map<String, Object>>>>>)
+                stateSerializer.deserialize(snapshot, siddhiAppContext));
+    }
+
+    /**
+     * Restores a full snapshot read from the given stream, without reading it to a byte array.
+     *
+     * @param snapshot stream of the snapshot, which is left open
+     * @throws CannotRestoreSiddhiAppStateException if the snapshot cannot be read or restored
+     */
+    public void restore(InputStream snapshot) throws CannotRestoreSiddhiAppStateException {
+        Map<String, Map<String, Map<String, Map<String, Map<String, Object>>>>> fullSnapshot;
+        try {
+            fullSnapshot = (Map<String, Map<String, Map<String, Map<String, Map<String, Object>>>>>)
+                    stateSerializer.deserialize(snapshot, siddhiAppContext);
+        } catch (IOException | ClassNotFoundException | RuntimeException e) {
+            throw new CannotRestoreSiddhiAppStateException("Restoring of Siddhi app " + siddhiAppContext.
+                    getName() + " failed due to invalid snapshot.", e);
+        }
+        restoreFullSnapshot(fullSnapshot);
+    }
+
+    private void restoreFullSnapshot(
+            Map<String, Map<String, Map<String, Map<String, Map<String, Object>>>>> fullSnapshot)
+            throws CannotRestoreSiddhiAppStateException {
         if (fullSnapshot == null) {
             throw new CannotRestoreSiddhiAppStateException("Restoring of Siddhi app " + siddhiAppContext.
                     getName() + " failed due to invalid snapshot.");
         }
+        try {
+            deserializeSegments(fullSnapshot, lazyRestore);
+        } catch (RuntimeException e) {
+            throw new CannotRestoreSiddhiAppStateException("Restoring of Siddhi app " + siddhiAppContext.
+                    getName() + " failed due to invalid snapshot.", e);
+        }
+        stopWarmingPendingStates();
+        List<LazyRestorableStateHolder> lazyRestorableStateHolders = new ArrayList<>();
         try {
             threadBarrier.lock();
             waitForSystemStabilization();
@@ -349,6 +696,7 @@ public class SnapshotService {
                 //cleaning old group by states
                 cleanGroupByStates();
                 //restore data
+                Map<StateHolder, Map<String, Object>> elementSnapshots = new LinkedHashMap<>();
                 for (Map.Entry<String, Map<String, Map<String, Map<String, Map<String, Object>>>>> partitionIdSnapshot :
                         fullSnapshot.entrySet()) {
                     PartitionIdStateHolder partitionStateHolder = partitionIdStates.get(partitionIdSnapshot.getKey());
@@ -364,60 +712,32 @@ public class SnapshotService {
                             if (elementStateHolder == null) {
                                 continue;
                             }
-                            for (Map.Entry<String, Map<String, Object>> elementSnapshot :
-                                    querySnapshot.getValue().entrySet()) {
+                            for (Map.Entry<String, ?> elementSnapshot : querySnapshot.getValue().entrySet()) {
                                 StateHolder stateHolder =
                                         elementStateHolder.elementHolderMap.get(elementSnapshot.getKey());
                                 if (stateHolder == null) {
                                     continue;
                                 }
-                                try {
-                                    String partitionKey = null;
-                                    String groupByKey = null;
-                                    if (partitionGroupByKeySnapshot.getKey() != null) {
-                                        String[] keys = partitionGroupByKeySnapshot.getKey().split("--");
-                                        if (keys.length == 2) {
-                                            if (!keys[0].equals("null")) {
-                                                partitionKey = keys[0];
-                                            }
-                                            if (!keys[1].equals("null")) {
-                                                groupByKey = keys[1];
-                                            }
-                                        }
-                                    }
-                                    SiddhiAppContext.startPartitionFlow(partitionKey);
-                                    SiddhiAppContext.startGroupByFlow(groupByKey);
-                                    State state = stateHolder.getState();
-                                    try {
-                                        if (state == null) {
-                                            continue;
-                                        }
-                                        Map<String, Object> snapshotRestores = new HashMap<>();
-                                        for (Map.Entry<String, Object> itemSnapshot :
-                                                elementSnapshot.getValue().entrySet()) {
-                                            if (itemSnapshot.getValue() instanceof Snapshot) {
-                                                SnapshotStateList snapshotStateList = new SnapshotStateList();
-                                                snapshotStateList.putSnapshotState(0L,
-                                                        (Snapshot) itemSnapshot.getValue());
-                                                snapshotRestores.put(itemSnapshot.getKey(), snapshotStateList);
-                                            } else {
-                                                snapshotRestores.put(itemSnapshot.getKey(),
-                                                        itemSnapshot.getValue());
-                                            }
-                                        }
-                                        state.restore(snapshotRestores);
-                                    } finally {
-                                        stateHolder.returnState(state);
-                                    }
-                                } finally {
-                                    SiddhiAppContext.stopPartitionFlow();
-                                    SiddhiAppContext.stopGroupByFlow();
-                                }
+                                elementSnapshots.computeIfAbsent(stateHolder, k -> new LinkedHashMap<>())
+                                        .put(partitionGroupByKeySnapshot.getKey(), elementSnapshot.getValue());
                             }
                         }
                     }
-
                 }
+                List<Callable<Object>> restores = new ArrayList<>();
+                for (Map.Entry<StateHolder, Map<String, Object>> elementSnapshot : elementSnapshots.entrySet()) {
+                    if (lazyRestore && elementSnapshot.getKey() instanceof LazyRestorableStateHolder) {
+                        LazyRestorableStateHolder stateHolder = (LazyRestorableStateHolder) elementSnapshot.getKey();
+                        stateHolder.restoreLazily(indexStateRestores(elementSnapshot.getValue()));
+                        lazyRestorableStateHolders.add(stateHolder);
+                        continue;
+                    }
+                    restores.add(() -> {
+                        restoreElementStates(elementSnapshot.getKey(), elementSnapshot.getValue());
+                        return null;
+                    });
+                }
+                invokeAll(restores);
             } catch (Throwable t) {
                 throw new CannotRestoreSiddhiAppStateException("Restoring of Siddhi app " +
                         siddhiAppContext.getName() + " not completed properly because content of Siddhi " +
@@ -427,11 +747,187 @@ public class SnapshotService {
         } finally {
             threadBarrier.unlock();
         }
+        if (!lazyRestorableStateHolders.isEmpty()) {
+            warmPendingStates(lazyRestorableStateHolders);
+        }
+    }
+
+    /**
+     * Restores the states of an element from a full snapshot, such that the states of the elements can be restored
+     * in parallel.
+     *
+     * @param stateHolder      state holder of the element
+     * @param elementSnapshots item states of the element by its partition and group by keys
+     */
+    private void restoreElementStates(StateHolder stateHolder, Map<String, Object> elementSnapshots) {
+        for (Map.Entry<String, Object> elementSnapshot : elementSnapshots.entrySet()) {
+            try {
+                String[] keys = splitPartitionGroupByKey(elementSnapshot.getKey());
+                SiddhiAppContext.startPartitionFlow(keys[0]);
+                SiddhiAppContext.startGroupByFlow(keys[1]);
+                State state = stateHolder.getState();
+                try {
+                    if (state == null) {
+                        continue;
+                    }
+                    state.restore(toStateRestores((Map<String, Object>) elementSnapshot.getValue()));
+                } finally {
+                    stateHolder.returnState(state);
+                }
+            } finally {
+                SiddhiAppContext.stopPartitionFlow();
+                SiddhiAppContext.stopGroupByFlow();
+            }
+        }
+    }
+
+    /**
+     * Indexes the item states of an element from a full snapshot by their partition and group by keys, such that the
+     * states can be restored lazily. The item states of a state, which may still be serialized as a segment, are
+     * only deserialized and prepared for restoring when the state is restored.
+     */
+    private Map<String, Map<String, Supplier<Map<String, Object>>>> indexStateRestores(
+            Map<String, Object> elementSnapshots) {
+        Map<String, Map<String, Supplier<Map<String, Object>>>> stateRestores = new HashMap<>();
+        for (Map.Entry<String, Object> elementSnapshot : elementSnapshots.entrySet()) {
+            String[] keys = splitPartitionGroupByKey(elementSnapshot.getKey());
+            Object itemSnapshots = elementSnapshot.getValue();
+            stateRestores.computeIfAbsent(keys[0], k -> new HashMap<>())
+                    .put(keys[1], () -> toStateRestores(itemSnapshots instanceof byte[] ?
+                            (Map<String, Object>) stateSerializer.deserialize((byte[]) itemSnapshots,
+                                    siddhiAppContext) : (Map<String, Object>) itemSnapshots));
+        }
+        return stateRestores;
+    }
+
+    /**
+     * @return partition key and group by key of the given partition group by key, where absent keys are null
+     */
+    private static String[] splitPartitionGroupByKey(String partitionGroupByKey) {
+        String[] partitionAndGroupByKeys = new String[2];
+        if (partitionGroupByKey != null) {
+            String[] keys = partitionGroupByKey.split("--");
+            if (keys.length == 2) {
+                if (!keys[0].equals("null")) {
+                    partitionAndGroupByKeys[0] = keys[0];
+                }
+                if (!keys[1].equals("null")) {
+                    partitionAndGroupByKeys[1] = keys[1];
+                }
+            }
+        }
+        return partitionAndGroupByKeys;
+    }
+
+    private static Map<String, Object> toStateRestores(Map<String, Object> itemSnapshots) {
+        Map<String, Object> snapshotRestores = new HashMap<>();
+        for (Map.Entry<String, Object> itemSnapshot : itemSnapshots.entrySet()) {
+            if (itemSnapshot.getValue() instanceof Snapshot) {
+                SnapshotStateList snapshotStateList = new SnapshotStateList();
+                snapshotStateList.putSnapshotState(0L, (Snapshot) itemSnapshot.getValue());
+                snapshotRestores.put(itemSnapshot.getKey(), snapshotStateList);
+            } else {
+                snapshotRestores.put(itemSnapshot.getKey(), itemSnapshot.getValue());
+            }
+        }
+        return snapshotRestores;
+    }
+
+    /**
+     * Restores the states pending in the given state holders in batches in the background, pausing the Siddhi app
+     * only while each batch is restored. The states not restored when the warming stops are restored when they are
+     * first accessed.
+     */
+    private void warmPendingStates(List<LazyRestorableStateHolder> stateHolders) {
+        pendingStatesWarmer = siddhiAppContext.getExecutorService().submit(() -> {
+            int restoredStates = LAZY_RESTORE_BATCH_SIZE;
+            while (restoredStates == LAZY_RESTORE_BATCH_SIZE && !Thread.currentThread().isInterrupted()) {
+                restoredStates = 0;
+                try {
+                    threadBarrier.lock();
+                    waitForSystemStabilization();
+                    for (LazyRestorableStateHolder stateHolder : stateHolders) {
+                        restoredStates += stateHolder.restorePendingStates(LAZY_RESTORE_BATCH_SIZE - restoredStates);
+                        if (restoredStates == LAZY_RESTORE_BATCH_SIZE) {
+                            break;
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    if (!Thread.currentThread().isInterrupted()) {
+                        log.error("Warming of the lazily restored states of Siddhi app " +
+                                siddhiAppContext.getName() + " stopped, hence the remaining states are restored " +
+                                "when they are first accessed. " + e.getMessage(), e);
+                    }
+                    return;
+                } finally {
+                    threadBarrier.unlock();
+                }
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Warming of the lazily restored states of Siddhi app " + siddhiAppContext.getName() +
+                        " completed.");
+            }
+        });
+    }
+
+    private void stopWarmingPendingStates() {
+        Future warmer = pendingStatesWarmer;
+        if (warmer != null) {
+            warmer.cancel(true);
+            pendingStatesWarmer = null;
+        }
+    }
+
+    /**
+     * Deserializes the item states of a full snapshot that are serialized as independent segments, in parallel when
+     * the snapshots are taken in parallel.
+     *
+     * @param fullSnapshot     full snapshot to deserialize the segments of
+     * @param skipLazyRestores whether to leave the segments of the elements restored lazily to be deserialized when
+     *                         their states are restored
+     */
+    private void deserializeSegments(
+            Map<String, Map<String, Map<String, Map<String, Map<String, Object>>>>> fullSnapshot,
+            boolean skipLazyRestores) {
+        List<Map<String, Map<String, Object>>> querySnapshots = new ArrayList<>();
+        List<String> elementIds = new ArrayList<>();
+        List<Callable<Map<String, Object>>> deserializations = new ArrayList<>();
+        for (Map.Entry<String, Map<String, Map<String, Map<String, Map<String, Object>>>>> partitionIdSnapshot :
+                fullSnapshot.entrySet()) {
+            PartitionIdStateHolder partitionIdStateHolder = partitionIdStates.get(partitionIdSnapshot.getKey());
+            for (Map<String, Map<String, Map<String, Object>>> partitionGroupByKeySnapshot :
+                    partitionIdSnapshot.getValue().values()) {
+                for (Map.Entry<String, Map<String, Map<String, Object>>> queryEntry :
+                        partitionGroupByKeySnapshot.entrySet()) {
+                    Map<String, Map<String, Object>> querySnapshot = queryEntry.getValue();
+                    ElementStateHolder elementStateHolder = partitionIdStateHolder != null ?
+                            partitionIdStateHolder.queryStateHolderMap.get(queryEntry.getKey()) : null;
+                    for (Map.Entry<String, ?> elementSnapshot : querySnapshot.entrySet()) {
+                        if (skipLazyRestores && elementStateHolder != null && elementStateHolder.elementHolderMap
+                                .get(elementSnapshot.getKey()) instanceof LazyRestorableStateHolder) {
+                            continue;
+                        }
+                        if (elementSnapshot.getValue() instanceof byte[]) {
+                            querySnapshots.add(querySnapshot);
+                            elementIds.add(elementSnapshot.getKey());
+                            deserializations.add(() -> (Map<String, Object>) stateSerializer.deserialize(
+                                    (byte[]) elementSnapshot.getValue(), siddhiAppContext));
+                        }
+                    }
+                }
+            }
+        }
+        List<Map<String, Object>> elementSnapshots = invokeAll(deserializations);
+        for (int i = 0; i < elementSnapshots.size(); i++) {
+            querySnapshots.get(i).put(elementIds.get(i), elementSnapshots.get(i));
+        }
     }
 
     public void restore(Map<String, Map<String, Map<String, Map<Long, Map<IncrementalSnapshotInfo, byte[]>>>>>
                                 snapshot)
             throws CannotRestoreSiddhiAppStateException {
+        IncrementDeserializer increments = snapshotPool != null ? new IncrementDeserializer(snapshot) : null;
+        stopWarmingPendingStates();
         try {
             threadBarrier.lock();
             waitForSystemStabilization();
@@ -449,7 +945,8 @@ public class SnapshotService {
                          iterator = partitionIdSnapshot.getValue().entrySet().iterator(); iterator.hasNext(); ) {
                         Map.Entry<String, Map<String, Map<Long, Map<IncrementalSnapshotInfo, byte[]>>>>
                                 partitionGroupByKeySnapshot = iterator.next();
-                        restoreIncrementalSnapshot(partitionStateHolder, partitionGroupByKeySnapshot.getValue());
+                        restoreIncrementalSnapshot(partitionStateHolder, partitionGroupByKeySnapshot.getValue(),
+                                increments);
                         iterator.remove();
                     }
 
@@ -461,13 +958,18 @@ public class SnapshotService {
                         "fresh deployment.", t);
             }
         } finally {
+            if (increments != null) {
+                increments.close();
+            }
             threadBarrier.unlock();
         }
     }
 
     private void restoreIncrementalSnapshot(PartitionIdStateHolder partitionIdStateHolder,
                                             Map<String, Map<Long, Map<IncrementalSnapshotInfo,
-                                                    byte[]>>> incrementalStateByTime) {
+                                                    byte[]>>> incrementalStateByTime,
+                                            IncrementDeserializer increments)
+            throws IOException, ClassNotFoundException {
         if (incrementalStateByTime != null) {
             String id = null;
             State state = null;
@@ -492,9 +994,10 @@ public class SnapshotService {
                             iterator1.remove();
                             IncrementalSnapshotInfo incrementalSnapshotInfo = incrementalStateByInfoEntry.getKey();
                             Map<String, Object> singleIncrementSnapshot = (Map<String, Object>)
-                                    ByteSerializer.byteToObject(
-                                            incrementalStateByInfoEntry.getValue(),
-                                            siddhiAppContext);
+                                    (increments != null ? increments.take(incrementalSnapshotInfo,
+                                            incrementalStateByInfoEntry.getValue()) :
+                                            deserializeIncrement(incrementalSnapshotInfo,
+                                                    incrementalStateByInfoEntry.getValue()));
                             if (singleIncrementSnapshot != null) {
                                 if (!incrementalSnapshotInfo.getId().equals(id)) {
                                     if (id != null) {
@@ -604,6 +1107,30 @@ public class SnapshotService {
         }
     }
 
+    /**
+     * Deserializes an increment, loading it as a stream from the incremental persistence store when it is not
+     * loaded as bytes.
+     */
+    private Object deserializeIncrement(IncrementalSnapshotInfo incrementalSnapshotInfo, byte[] increment)
+            throws IOException, ClassNotFoundException {
+        if (increment != null) {
+            return stateSerializer.deserialize(increment, siddhiAppContext);
+        }
+        IncrementalPersistenceStore incrementalPersistenceStore =
+                siddhiAppContext.getSiddhiContext().getIncrementalPersistenceStore();
+        if (!(incrementalPersistenceStore instanceof StreamingIncrementalPersistenceStore)) {
+            return null;
+        }
+        InputStream inputStream = ((StreamingIncrementalPersistenceStore) incrementalPersistenceStore)
+                .loadAsStream(incrementalSnapshotInfo);
+        if (inputStream == null) {
+            return null;
+        }
+        try (InputStream snapshot = inputStream) {
+            return stateSerializer.deserialize(snapshot, siddhiAppContext);
+        }
+    }
+
     public void restoreRevision(String revision) throws CannotRestoreSiddhiAppStateException {
         PersistenceStore persistenceStore = siddhiAppContext.getSiddhiContext().getPersistenceStore();
         IncrementalPersistenceStore incrementalPersistenceStore =
@@ -613,6 +1140,22 @@ public class SnapshotService {
             if (log.isDebugEnabled()) {
                 log.debug("Restoring revision: " + revision + " ...");
             }
+            if (persistenceStore instanceof StreamingPersistenceStore) {
+                InputStream inputStream = ((StreamingPersistenceStore) persistenceStore).loadAsStream(
+                        siddhiAppContext.getName(), revision);
+                if (inputStream == null) {
+                    throw new PersistenceStoreException("No data found for revision: " + revision);
+                }
+                try (InputStream snapshot = inputStream) {
+                    restore(snapshot);
+                } catch (IOException e) {
+                    log.warn("Error closing the snapshot of revision: " + revision, e);
+                }
+                if (log.isDebugEnabled()) {
+                    log.debug("Restored revision: " + revision);
+                }
+                return;
+            }
             byte[] snapshot = persistenceStore.load(siddhiAppContext.getName(), revision);
             if (snapshot != null) {
                 restore(snapshot);
@@ -685,7 +1228,12 @@ public class SnapshotService {
                                     k -> new TreeMap<>());
                     Map<IncrementalSnapshotInfo, byte[]> incrementalStateByInfo = idByTime.
                             computeIfAbsent(snapshotInfo.getTime(), k -> new HashMap<>());
-                    incrementalStateByInfo.put(snapshotInfo, incrementalPersistenceStore.load(snapshotInfo));
+                    if (incrementalPersistenceStore instanceof StreamingIncrementalPersistenceStore) {
+                        // loaded as a stream when restoring
+                        incrementalStateByInfo.put(snapshotInfo, null);
+                    } else {
+                        incrementalStateByInfo.put(snapshotInfo, incrementalPersistenceStore.load(snapshotInfo));
+                    }
                 }
                 restore(incrementalState);
                 if (log.isDebugEnabled()) {
@@ -745,6 +1293,9 @@ public class SnapshotService {
                     partitionIdState.getValue().queryStateHolderMap.entrySet()) {
                 for (Map.Entry<String, StateHolder> elementState :
                         queryState.getValue().elementHolderMap.entrySet()) {
+                    if (elementState.getValue() instanceof LazyRestorableStateHolder) {
+                        ((LazyRestorableStateHolder) elementState.getValue()).clearPendingStates();
+                    }
                     elementState.getValue().cleanGroupByStates();
                 }
             }
@@ -752,22 +1303,25 @@ public class SnapshotService {
     }
 
     private void waitForSystemStabilization() {
-        int retryCount = 100;
-        int activeThreads = siddhiAppContext.getThreadBarrier().getActiveThreads();
-        while (activeThreads != 0 && retryCount > 0) {
-            try {
-                Thread.sleep(1000);
-            } catch (InterruptedException e) {
-                throw new SiddhiAppRuntimeException("Stabilization of Siddhi App " + siddhiAppContext.getName() +
-                        " for snapshot/restore interrupted. " + e.getMessage(), e);
-            }
-            activeThreads = siddhiAppContext.getThreadBarrier().getActiveThreads();
-            retryCount--;
+        boolean trackLatency = barrierWaitLatencyTracker != null &&
+                Level.BASIC.compareTo(siddhiAppContext.getRootMetricsLevel()) <= 0;
+        if (trackLatency) {
+            barrierWaitLatencyTracker.markIn();
         }
-        if (retryCount == 0) {
-            throw new SiddhiAppRuntimeException("Siddhi App " + siddhiAppContext.getName() +
-                    " not stabilized for snapshot/restore, Active thread count is " +
-                    activeThreads);
+        try {
+            if (!threadBarrier.awaitQuiescence(STABILIZATION_TIMEOUT, TimeUnit.SECONDS)) {
+                throw new SiddhiAppRuntimeException("Siddhi App " + siddhiAppContext.getName() +
+                        " not stabilized for snapshot/restore, Active thread count is " +
+                        threadBarrier.getActiveThreads());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SiddhiAppRuntimeException("Stabilization of Siddhi App " + siddhiAppContext.getName() +
+                    " for snapshot/restore interrupted. " + e.getMessage(), e);
+        } finally {
+            if (trackLatency) {
+                barrierWaitLatencyTracker.markOut();
+            }
         }
     }
 
@@ -788,6 +1342,95 @@ public class SnapshotService {
         }
     }
 
+    private static class ElementIncrements {
+        private final Map<String, Object> incremental = new HashMap<>();
+        private final Map<String, Object> incrementalBase = new HashMap<>();
+        private final Map<String, Object> periodic = new HashMap<>();
+        private final List<State> states = new ArrayList<>();
+    }
+
+    /**
+     * Deserializes the increments of an incremental snapshot in the snapshot pool ahead of them being restored, in
+     * the order they are restored, keeping at most twice the parallelism of the pool in flight so that the restore
+     * does not hold every deserialized increment at once.
+     */
+    private class IncrementDeserializer {
+        private final List<Map.Entry<IncrementalSnapshotInfo, byte[]>> increments = new ArrayList<>();
+        private final Deque<Map.Entry<IncrementalSnapshotInfo, Future<Object>>> inFlight = new ArrayDeque<>();
+        private final int maxInFlight;
+        private int next;
+
+        private IncrementDeserializer(Map<String, Map<String, Map<String, Map<Long, Map<IncrementalSnapshotInfo,
+                byte[]>>>>> snapshot) {
+            for (Map<String, Map<String, Map<Long, Map<IncrementalSnapshotInfo, byte[]>>>> partitionIdSnapshot :
+                    snapshot.values()) {
+                for (Map<String, Map<Long, Map<IncrementalSnapshotInfo, byte[]>>> partitionGroupByKeySnapshot :
+                        partitionIdSnapshot.values()) {
+                    for (Map<Long, Map<IncrementalSnapshotInfo, byte[]>> idSnapshot :
+                            partitionGroupByKeySnapshot.values()) {
+                        for (Map<IncrementalSnapshotInfo, byte[]> timeSnapshot : idSnapshot.values()) {
+                            increments.addAll(timeSnapshot.entrySet());
+                        }
+                    }
+                }
+            }
+            this.maxInFlight = 2 * snapshotPool.getParallelism();
+        }
+
+        /**
+         * Returns the deserialized increment, skipping the increments ahead of it that were not restored.
+         */
+        private Object take(IncrementalSnapshotInfo incrementalSnapshotInfo, byte[] increment)
+                throws IOException, ClassNotFoundException {
+            submit();
+            while (!inFlight.isEmpty()) {
+                Map.Entry<IncrementalSnapshotInfo, Future<Object>> deserialization = inFlight.poll();
+                submit();
+                if (deserialization.getKey() == incrementalSnapshotInfo) {
+                    return await(deserialization.getValue());
+                }
+                deserialization.getValue().cancel(false);
+            }
+            return deserializeIncrement(incrementalSnapshotInfo, increment);
+        }
+
+        private void submit() {
+            while (inFlight.size() < maxInFlight && next < increments.size()) {
+                Map.Entry<IncrementalSnapshotInfo, byte[]> increment = increments.set(next++, null);
+                inFlight.add(new AbstractMap.SimpleEntry<>(increment.getKey(), snapshotPool.submit(
+                        () -> deserializeIncrement(increment.getKey(), increment.getValue()))));
+            }
+        }
+
+        private Object await(Future<Object> deserialization) throws IOException, ClassNotFoundException {
+            try {
+                return deserialization.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SiddhiAppRuntimeException("Restore of Siddhi App " + siddhiAppContext.getName() +
+                        " interrupted. " + e.getMessage(), e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                } else if (e.getCause() instanceof ClassNotFoundException) {
+                    throw (ClassNotFoundException) e.getCause();
+                } else if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                } else if (e.getCause() instanceof Error) {
+                    throw (Error) e.getCause();
+                }
+                throw new SiddhiAppRuntimeException(e.getCause().getMessage(), e.getCause());
+            }
+        }
+
+        private void close() {
+            for (Map.Entry<IncrementalSnapshotInfo, Future<Object>> deserialization : inFlight) {
+                deserialization.getValue().cancel(false);
+            }
+            inFlight.clear();
+        }
+    }
+
     class ElementStateHolder {
         private final String elementId;
         private final Map<String, StateHolder> elementHolderMap;
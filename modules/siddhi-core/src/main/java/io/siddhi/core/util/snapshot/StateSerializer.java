@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.siddhi.core.util.snapshot;
+
+import io.siddhi.core.config.SiddhiAppContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Serializer used by {@link SnapshotService} to convert the states of a Siddhi app to bytes and back. Returns null,
+ * after logging the cause, when the conversion fails.
+ */
+public interface StateSerializer {
+
+    /**
+     * @param state            state to serialize
+     * @param siddhiAppContext context of the Siddhi app
+     * @return the serialized state, or null if the state cannot be serialized
+     */
+    byte[] serialize(Object state, SiddhiAppContext siddhiAppContext);
+
+    /**
+     * @param bytes            serialized state
+     * @param siddhiAppContext context of the Siddhi app
+     * @return the state, or null if the bytes cannot be deserialized
+     */
+    Object deserialize(byte[] bytes, SiddhiAppContext siddhiAppContext);
+
+    /**
+     * @param state            state to serialize
+     * @param outputStream     stream to write the serialized state to, which is left open
+     * @param siddhiAppContext context of the Siddhi app
+     * @throws IOException if the state cannot be serialized
+     */
+    void serialize(Object state, OutputStream outputStream, SiddhiAppContext siddhiAppContext) throws IOException;
+
+    /**
+     * @param inputStream      stream to read the serialized state from, which is left open
+     * @param siddhiAppContext context of the Siddhi app
+     * @return the state
+     * @throws IOException            if the state cannot be deserialized
+     * @throws ClassNotFoundException if the class of a serialized object cannot be found
+     */
+    Object deserialize(InputStream inputStream, SiddhiAppContext siddhiAppContext)
+            throws IOException, ClassNotFoundException;
+}
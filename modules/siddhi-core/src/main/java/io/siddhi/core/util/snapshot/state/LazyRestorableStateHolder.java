@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.siddhi.core.util.snapshot.state;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * State holder whose states can be restored lazily, where a state is restored when it is first accessed or when
+ * the pending states are warmed.
+ */
+public interface LazyRestorableStateHolder {
+
+    /**
+     * Replaces the states of the given keys with states that are restored when they are first accessed.
+     *
+     * @param stateRestores suppliers of the item states to restore by the partition and group by keys of the states,
+     *                      which are only called when the states are restored
+     */
+    void restoreLazily(Map<String, Map<String, Supplier<Map<String, Object>>>> stateRestores);
+
+    /**
+     * Restores the pending states, up to the given number of states.
+     *
+     * @param maxStates maximum number of states to restore
+     * @return number of states restored
+     */
+    int restorePendingStates(int maxStates);
+
+    /**
+     * Drops the states pending to be restored.
+     */
+    void clearPendingStates();
+}
@@ -20,20 +20,25 @@ package io.siddhi.core.util.snapshot.state;
 
 import io.siddhi.core.config.SiddhiAppContext;
 import io.siddhi.core.exception.SiddhiAppRuntimeException;
+import io.siddhi.core.util.snapshot.SnapshotRequest;
 import org.apache.log4j.Logger;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Supplier;
 
 /**
  * State holder for  partitioned use case
  */
-public class PartitionStateHolder implements StateHolder {
+public class PartitionStateHolder implements StateHolder, LazyRestorableStateHolder {
     private static final Logger log = Logger.getLogger(PartitionStateHolder.class);
     private StateFactory stateFactory;
     private Map<String, Map<String, State>> states = new HashMap<>();
+    // item states pending to be restored by the partition and group by keys, null when none are pending
+    private Map<String, Map<String, Supplier<Map<String, Object>>>> pendingStates;
 
     public PartitionStateHolder(StateFactory stateFactory) {
         this.stateFactory = stateFactory;
@@ -44,7 +49,16 @@ public class PartitionStateHolder implements StateHolder {
         String partitionFlowId = SiddhiAppContext.getPartitionFlowId();
         String groupByFlowId = SiddhiAppContext.getGroupByFlowId();
         Map<String, State> partitionStates = states.computeIfAbsent(partitionFlowId, k -> new HashMap<>());
-        return partitionStates.computeIfAbsent(groupByFlowId, s -> stateFactory.createNewState());
+        State state = partitionStates.get(groupByFlowId);
+        if (state == null) {
+            state = stateFactory.createNewState();
+            partitionStates.put(groupByFlowId, state);
+            if (pendingStates != null) {
+                restorePendingState(partitionFlowId, groupByFlowId, state);
+            }
+        }
+        state.markDirty();
+        return state;
     }
 
     @Override
@@ -79,18 +93,45 @@ public class PartitionStateHolder implements StateHolder {
     }
 
     public Map<String, Map<String, State>> getAllStates() {
+        if (pendingStates != null) {
+            restorePendingStates(Integer.MAX_VALUE);
+        }
+        if (!SnapshotRequest.isRequestForSnapshot()) {
+            for (Map<String, State> groupByStates : states.values()) {
+                markDirty(groupByStates);
+            }
+        }
         return states;
     }
 
     @Override
     public Map<String, State> getAllGroupByStates() {
         String partitionFlowId = SiddhiAppContext.getPartitionFlowId();
-        return states.computeIfAbsent(partitionFlowId, k -> new HashMap<>());
+        if (pendingStates != null && pendingStates.containsKey(partitionFlowId)) {
+            for (String groupByKey : new ArrayList<>(pendingStates.get(partitionFlowId).keySet())) {
+                restorePendingState(partitionFlowId, groupByKey);
+            }
+        }
+        Map<String, State> groupByStates = states.computeIfAbsent(partitionFlowId, k -> new HashMap<>());
+        markDirty(groupByStates);
+        return groupByStates;
+    }
+
+    private void markDirty(Map<String, State> groupByStates) {
+        for (State state : groupByStates.values()) {
+            state.markDirty();
+        }
     }
 
     @Override
     public State cleanGroupByStates() {
         String partitionFlowId = SiddhiAppContext.getPartitionFlowId();
+        if (pendingStates != null) {
+            pendingStates.remove(partitionFlowId);
+            if (pendingStates.isEmpty()) {
+                pendingStates = null;
+            }
+        }
         Map<String, State> groupByStates = states.remove(partitionFlowId);
         if (groupByStates != null) {
             return groupByStates.values().stream().findFirst().orElse(null);
@@ -161,5 +202,70 @@ public class PartitionStateHolder implements StateHolder {
         }
     }
 
+    @Override
+    public void restoreLazily(Map<String, Map<String, Supplier<Map<String, Object>>>> stateRestores) {
+        for (Map.Entry<String, Map<String, Supplier<Map<String, Object>>>> partitionStateRestores :
+                stateRestores.entrySet()) {
+            for (String groupByKey : partitionStateRestores.getValue().keySet()) {
+                removeState(partitionStateRestores.getKey(), groupByKey);
+            }
+        }
+        pendingStates = stateRestores.isEmpty() ? null : stateRestores;
+    }
+
+    @Override
+    public int restorePendingStates(int maxStates) {
+        int restoredStates = 0;
+        while (pendingStates != null && restoredStates < maxStates) {
+            Map.Entry<String, Map<String, Supplier<Map<String, Object>>>> partitionStateRestores =
+                    pendingStates.entrySet().iterator().next();
+            restorePendingState(partitionStateRestores.getKey(),
+                    partitionStateRestores.getValue().keySet().iterator().next());
+            restoredStates++;
+        }
+        return restoredStates;
+    }
+
+    @Override
+    public void clearPendingStates() {
+        pendingStates = null;
+    }
+
+    private void restorePendingState(String partitionKey, String groupByKey) {
+        String partitionFlowId = SiddhiAppContext.getPartitionFlowId();
+        String groupByFlowId = SiddhiAppContext.getGroupByFlowId();
+        SiddhiAppContext.startPartitionFlow(partitionKey);
+        SiddhiAppContext.startGroupByFlow(groupByKey);
+        try {
+            State state = states.computeIfAbsent(partitionKey, k -> new HashMap<>())
+                    .computeIfAbsent(groupByKey, k -> stateFactory.createNewState());
+            restorePendingState(partitionKey, groupByKey, state);
+            returnState(state);
+        } finally {
+            SiddhiAppContext.startPartitionFlow(partitionFlowId);
+            SiddhiAppContext.startGroupByFlow(groupByFlowId);
+        }
+    }
+
+    private void restorePendingState(String partitionKey, String groupByKey, State state) {
+        Map<String, Supplier<Map<String, Object>>> groupByStateRestores = pendingStates.get(partitionKey);
+        if (groupByStateRestores == null || !groupByStateRestores.containsKey(groupByKey)) {
+            return;
+        }
+        Supplier<Map<String, Object>> stateRestores = groupByStateRestores.remove(groupByKey);
+        if (groupByStateRestores.isEmpty()) {
+            pendingStates.remove(partitionKey);
+            if (pendingStates.isEmpty()) {
+                pendingStates = null;
+            }
+        }
+        try {
+            state.restore(stateRestores.get());
+        } catch (Throwable t) {
+            log.error("Dropping restored partition state for partition key '" + partitionKey +
+                    "' and the group by key '" + groupByKey + "', due to error! " + t.getMessage(), t);
+        }
+    }
+
 
 }
@@ -19,11 +19,12 @@
 package io.siddhi.core.util.snapshot.state;
 
 import java.util.Map;
+import java.util.function.Supplier;
 
 /**
  * State holder for  partitioned use case
  */
-public class PartitionSyncStateHolder implements StateHolder {
+public class PartitionSyncStateHolder implements StateHolder, LazyRestorableStateHolder {
     private PartitionStateHolder partitionStateHolder;
 
     public PartitionSyncStateHolder(StateFactory stateFactory) {
@@ -85,4 +86,19 @@ public class PartitionSyncStateHolder implements StateHolder {
         }
         partitionStateHolder.returnAllStates(states);
     }
+
+    @Override
+    public synchronized void restoreLazily(Map<String, Map<String, Supplier<Map<String, Object>>>> stateRestores) {
+        partitionStateHolder.restoreLazily(stateRestores);
+    }
+
+    @Override
+    public synchronized int restorePendingStates(int maxStates) {
+        return partitionStateHolder.restorePendingStates(maxStates);
+    }
+
+    @Override
+    public synchronized void clearPendingStates() {
+        partitionStateHolder.clearPendingStates();
+    }
 }
@@ -18,6 +18,7 @@
 
 package io.siddhi.core.util.snapshot.state;
 
+import io.siddhi.core.util.snapshot.SnapshotRequest;
 import org.apache.log4j.Logger;
 
 import java.util.HashMap;
@@ -45,6 +46,7 @@ public class SingleStateHolder implements StateHolder {
             state = stateFactory.createNewState();
             groupByStates.put(null, state);
         }
+        state.markDirty();
         return state;
     }
 
@@ -58,6 +60,9 @@ public class SingleStateHolder implements StateHolder {
             state = stateFactory.createNewState();
             groupByStates.put(null, state);
         }
+        if (!SnapshotRequest.isRequestForSnapshot()) {
+            state.markDirty();
+        }
         return allStates;
     }
 
@@ -73,6 +78,7 @@ public class SingleStateHolder implements StateHolder {
             state = stateFactory.createNewState();
             groupByStates.put(null, state);
         }
+        state.markDirty();
         return groupByStates;
     }
 
@@ -18,6 +18,7 @@
 
 package io.siddhi.core.util.snapshot.state;
 
+import io.siddhi.core.util.snapshot.SnapshotRequest;
 import org.apache.log4j.Logger;
 
 import java.util.HashMap;
@@ -49,6 +50,7 @@ public class SingleSyncStateHolder implements StateHolder {
                 }
             }
         }
+        state.markDirty();
         return state;
     }
 
@@ -66,6 +68,9 @@ public class SingleSyncStateHolder implements StateHolder {
                 }
             }
         }
+        if (!SnapshotRequest.isRequestForSnapshot()) {
+            state.markDirty();
+        }
         return allStates;
     }
 
@@ -85,6 +90,7 @@ public class SingleSyncStateHolder implements StateHolder {
                 }
             }
         }
+        state.markDirty();
         return groupByStates;
     }
 
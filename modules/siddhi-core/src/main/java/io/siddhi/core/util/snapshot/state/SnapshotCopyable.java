@@ -0,0 +1,31 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.core.util.snapshot.state;
+
+/**
+ * Implemented by objects placed in snapshots that can be copied cheaply while the Siddhi app is paused, such that
+ * the copy can be serialized after the app resumes processing and keeps changing the original.
+ */
+public interface SnapshotCopyable {
+
+    /**
+     * @return a copy of the object, sharing no mutable structure with it
+     */
+    Object copyForSnapshot();
+}
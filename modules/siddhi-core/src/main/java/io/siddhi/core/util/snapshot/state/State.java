@@ -26,6 +26,8 @@ import java.util.Map;
 public abstract class State {
 
     int activeUseCount = 0;
+    private boolean dirty = true;
+    private volatile boolean held;
 
     public abstract boolean canDestroy();
 
@@ -33,4 +35,39 @@ public abstract class State {
 
     public abstract void restore(Map<String, Object> state);
 
+    /**
+     * Marks the state as modified since its last incremental snapshot. The state holders mark the states they hand
+     * out for processing, hence states only need to mark themselves when they are modified otherwise.
+     */
+    public void markDirty() {
+        dirty = true;
+    }
+
+    /**
+     * @return true if the state may have been modified since its last incremental snapshot, such that states that
+     * are not modified are skipped by incremental snapshots
+     */
+    public boolean isDirty() {
+        return dirty || held;
+    }
+
+    public void clearDirty() {
+        dirty = false;
+    }
+
+    /**
+     * Marks the state as held beyond a single round of processing, such as the state of a connected source, which
+     * may be modified without being handed out again. Held states are captured by every incremental snapshot.
+     */
+    public void hold() {
+        held = true;
+    }
+
+    /**
+     * Marks the state as no longer held, after it is returned to its state holder.
+     */
+    public void release() {
+        held = false;
+    }
+
 }
@@ -0,0 +1,298 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.siddhi.core.managment;
+
+import io.siddhi.core.SiddhiAppRuntime;
+import io.siddhi.core.SiddhiManager;
+import io.siddhi.core.event.Event;
+import io.siddhi.core.exception.CannotRestoreSiddhiAppStateException;
+import io.siddhi.core.stream.input.InputHandler;
+import io.siddhi.core.stream.output.StreamCallback;
+import io.siddhi.core.util.EventPrinter;
+import io.siddhi.core.util.persistence.IncrementalFileSystemPersistenceStore;
+import io.siddhi.core.util.persistence.SnapshotWriter;
+import io.siddhi.core.util.persistence.util.IncrementalSnapshotInfo;
+import io.siddhi.core.util.snapshot.PersistenceReference;
+import org.apache.log4j.Logger;
+import org.testng.Assert;
+import org.testng.AssertJUnit;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+public class ChangeLogSnapshotTestCase {
+    private static final Logger log = Logger.getLogger(ChangeLogSnapshotTestCase.class);
+    private String storageFilePath = "./target/temp-change-log";
+    private Map<IncrementalSnapshotInfo, Integer> savedSnapshotSizes;
+    private long lastCount;
+
+    @BeforeMethod
+    public void init() {
+        savedSnapshotSizes = new HashMap<>();
+        lastCount = 0;
+    }
+
+    @Test
+    public void changeLogSnapshotTest1() throws InterruptedException, ExecutionException {
+        log.info("change log snapshot test 1 - operations on the same primary key are coalesced");
+
+        SiddhiManager siddhiManager = createSiddhiManager();
+        String siddhiApp = "" +
+                "@app:name('ChangeLogSnapshotTest1') " +
+                "" +
+                "define stream StockStream ( symbol string, price float, volume long );" +
+                "define stream DeleteStockStream ( symbol string );" +
+                "@PrimaryKey('symbol') " +
+                "define table StockTable ( symbol string, price float, volume long );" +
+                "" +
+                "@info(name = 'query1') " +
+                "from StockStream " +
+                "insert into StockTable ;" +
+                "" +
+                "@info(name = 'query2') " +
+                "from DeleteStockStream " +
+                "delete StockTable " +
+                "   on StockTable.symbol == symbol ;";
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        InputHandler stockStream = siddhiAppRuntime.getInputHandler("StockStream");
+        InputHandler deleteStockStream = siddhiAppRuntime.getInputHandler("DeleteStockStream");
+        siddhiAppRuntime.start();
+        siddhiAppRuntime.clearAllRevisions();
+
+        stockStream.send(new Object[]{"WSO2", 55.6f, 100L});
+        stockStream.send(new Object[]{"IBM", 75.6f, 100L});
+        persist(siddhiAppRuntime);
+
+        for (int i = 0; i < 500; i++) {
+            deleteStockStream.send(new Object[]{"WSO2"});
+            stockStream.send(new Object[]{"WSO2", (float) i, 100L});
+        }
+        stockStream.send(new Object[]{"ORACLE", 45.6f, 100L});
+        deleteStockStream.send(new Object[]{"IBM"});
+        persist(siddhiAppRuntime);
+
+        AssertJUnit.assertTrue(getSavedSize("StockTable", IncrementalSnapshotInfo.SnapshotType.INCREMENT) < 10000);
+
+        //restarting siddhi app
+        siddhiAppRuntime.shutdown();
+        siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        siddhiAppRuntime.start();
+
+        //loading
+        try {
+            siddhiAppRuntime.restoreLastRevision();
+        } catch (CannotRestoreSiddhiAppStateException e) {
+            Assert.fail("Restoring of Siddhi app " + siddhiAppRuntime.getName() + " failed", e);
+        }
+
+        Event[] events = siddhiAppRuntime.query("from StockTable select symbol, price");
+        EventPrinter.print(events);
+        siddhiAppRuntime.clearAllRevisions();
+        siddhiAppRuntime.shutdown();
+
+        AssertJUnit.assertEquals(2, events.length);
+        Map<Object, Object> prices = new HashMap<>();
+        for (Event event : events) {
+            prices.put(event.getData(0), event.getData(1));
+        }
+        AssertJUnit.assertEquals(499f, prices.get("WSO2"));
+        AssertJUnit.assertEquals(45.6f, prices.get("ORACLE"));
+    }
+
+    @Test
+    public void changeLogSnapshotTest2() throws InterruptedException, ExecutionException {
+        log.info("change log snapshot test 2 - change logs exceeding the budget are snapshotted as bases");
+
+        SiddhiManager siddhiManager = createSiddhiManager();
+        String siddhiApp = "" +
+                "@app:name('ChangeLogSnapshotTest2') " +
+                "@app:snapshot(change.log.budget='2048') " +
+                "" +
+                "define stream StockStream ( symbol string, price float, volume long );" +
+                "define table StockTable ( symbol string, price float, volume long );" +
+                "" +
+                "@info(name = 'query1') " +
+                "from StockStream " +
+                "insert into StockTable ;";
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        InputHandler stockStream = siddhiAppRuntime.getInputHandler("StockStream");
+        siddhiAppRuntime.start();
+        siddhiAppRuntime.clearAllRevisions();
+
+        stockStream.send(new Object[]{"WSO2", 55.6f, 100L});
+        persist(siddhiAppRuntime);
+
+        stockStream.send(new Object[]{"IBM", 75.6f, 100L});
+        persist(siddhiAppRuntime);
+        AssertJUnit.assertTrue(getSavedSize("StockTable", IncrementalSnapshotInfo.SnapshotType.INCREMENT) > 0);
+
+        for (int i = 0; i < 100; i++) {
+            stockStream.send(new Object[]{"ORACLE", (float) i, 100L});
+        }
+        persist(siddhiAppRuntime);
+        AssertJUnit.assertTrue(getSavedSize("StockTable", IncrementalSnapshotInfo.SnapshotType.BASE) > 0);
+        AssertJUnit.assertEquals(0, getSavedSize("StockTable", IncrementalSnapshotInfo.SnapshotType.INCREMENT));
+
+        stockStream.send(new Object[]{"IBM", 76.6f, 100L});
+        persist(siddhiAppRuntime);
+        AssertJUnit.assertTrue(getSavedSize("StockTable", IncrementalSnapshotInfo.SnapshotType.INCREMENT) > 0);
+
+        //restarting siddhi app
+        siddhiAppRuntime.shutdown();
+        siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        siddhiAppRuntime.start();
+
+        //loading
+        try {
+            siddhiAppRuntime.restoreLastRevision();
+        } catch (CannotRestoreSiddhiAppStateException e) {
+            Assert.fail("Restoring of Siddhi app " + siddhiAppRuntime.getName() + " failed", e);
+        }
+
+        Event[] events = siddhiAppRuntime.query("from StockTable select symbol");
+        siddhiAppRuntime.clearAllRevisions();
+        siddhiAppRuntime.shutdown();
+
+        AssertJUnit.assertEquals(103, events.length);
+    }
+
+    @Test
+    public void changeLogSnapshotTest3() throws InterruptedException, ExecutionException {
+        log.info("change log snapshot test 3 - events added and expired between snapshots cancel out");
+
+        SiddhiManager siddhiManager = createSiddhiManager();
+        String siddhiApp = "" +
+                "@app:name('ChangeLogSnapshotTest3') " +
+                "" +
+                "define stream StockStream ( symbol string, volume long, timestamp long );" +
+                "" +
+                "@info(name = 'query1') " +
+                "from StockStream#window.externalTime(timestamp, 1 sec) " +
+                "select symbol, count() as totalCount " +
+                "insert into OutStream ;";
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        addCallback(siddhiAppRuntime);
+        InputHandler stockStream = siddhiAppRuntime.getInputHandler("StockStream");
+        siddhiAppRuntime.start();
+        siddhiAppRuntime.clearAllRevisions();
+
+        long timestamp = 0;
+        for (; timestamp < 300; timestamp += 100) {
+            stockStream.send(new Object[]{"WSO2", 100L, timestamp});
+        }
+        persist(siddhiAppRuntime);
+
+        for (; timestamp < 50000; timestamp += 100) {
+            stockStream.send(new Object[]{"WSO2", 100L, timestamp});
+        }
+        long windowCount = lastCount;
+        persist(siddhiAppRuntime);
+
+        int savedSize = 0;
+        for (Map.Entry<IncrementalSnapshotInfo, Integer> entry : savedSnapshotSizes.entrySet()) {
+            if ("query1".equals(entry.getKey().getQueryName())) {
+                savedSize += entry.getValue();
+            }
+        }
+        AssertJUnit.assertTrue(savedSize > 0);
+        AssertJUnit.assertTrue(savedSize < 20000);
+
+        //restarting siddhi app
+        siddhiAppRuntime.shutdown();
+        siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        addCallback(siddhiAppRuntime);
+        stockStream = siddhiAppRuntime.getInputHandler("StockStream");
+        siddhiAppRuntime.start();
+
+        //loading
+        try {
+            siddhiAppRuntime.restoreLastRevision();
+        } catch (CannotRestoreSiddhiAppStateException e) {
+            Assert.fail("Restoring of Siddhi app " + siddhiAppRuntime.getName() + " failed", e);
+        }
+
+        stockStream.send(new Object[]{"WSO2", 100L, timestamp});
+        siddhiAppRuntime.clearAllRevisions();
+        siddhiAppRuntime.shutdown();
+
+        AssertJUnit.assertEquals(windowCount, lastCount);
+    }
+
+    private SiddhiManager createSiddhiManager() {
+        SiddhiManager siddhiManager = new SiddhiManager();
+        siddhiManager.setIncrementalPersistenceStore(new IncrementalFileSystemPersistenceStore(storageFilePath) {
+            @Override
+            public void save(IncrementalSnapshotInfo snapshotInfo, SnapshotWriter snapshotWriter) {
+                ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                try {
+                    snapshotWriter.writeTo(outputStream);
+                } catch (IOException e) {
+                    throw new AssertionError(e);
+                }
+                byte[] snapshot = outputStream.toByteArray();
+                synchronized (savedSnapshotSizes) {
+                    savedSnapshotSizes.put(snapshotInfo, snapshot.length);
+                }
+                super.save(snapshotInfo, stream -> stream.write(snapshot));
+            }
+        });
+        return siddhiManager;
+    }
+
+    private void persist(SiddhiAppRuntime siddhiAppRuntime) throws InterruptedException, ExecutionException {
+        synchronized (savedSnapshotSizes) {
+            savedSnapshotSizes.clear();
+        }
+        PersistenceReference persistenceReference = siddhiAppRuntime.persist();
+        for (Future future : persistenceReference.getIncrementalStateFuture()) {
+            future.get();
+        }
+    }
+
+    private int getSavedSize(String elementIdPrefix, IncrementalSnapshotInfo.SnapshotType type) {
+        int savedSize = 0;
+        synchronized (savedSnapshotSizes) {
+            for (Map.Entry<IncrementalSnapshotInfo, Integer> entry : savedSnapshotSizes.entrySet()) {
+                if (entry.getKey().getElementId().startsWith(elementIdPrefix) && entry.getKey().getType() == type) {
+                    savedSize += entry.getValue();
+                }
+            }
+        }
+        return savedSize;
+    }
+
+    private void addCallback(SiddhiAppRuntime siddhiAppRuntime) {
+        siddhiAppRuntime.addCallback("OutStream", new StreamCallback() {
+            @Override
+            public void receive(Event[] events) {
+                for (Event event : events) {
+                    lastCount = (Long) event.getData(1);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.siddhi.core.managment;
+
+import io.siddhi.core.SiddhiAppRuntime;
+import io.siddhi.core.SiddhiManager;
+import io.siddhi.core.event.Event;
+import io.siddhi.core.exception.CannotRestoreSiddhiAppStateException;
+import io.siddhi.core.exception.PersistenceStoreException;
+import io.siddhi.core.stream.input.InputHandler;
+import io.siddhi.core.stream.output.StreamCallback;
+import io.siddhi.core.util.EventPrinter;
+import io.siddhi.core.util.persistence.IncrementalFileSystemPersistenceStore;
+import io.siddhi.core.util.persistence.SnapshotWriter;
+import io.siddhi.core.util.persistence.util.IncrementalSnapshotInfo;
+import io.siddhi.core.util.snapshot.PersistenceReference;
+import org.apache.log4j.Logger;
+import org.testng.Assert;
+import org.testng.AssertJUnit;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class DirtyStateSnapshotTestCase {
+    private static final Logger log = Logger.getLogger(DirtyStateSnapshotTestCase.class);
+    private String storageFilePath = "./target/temp-dirty-state";
+    private Map<String, Long> lastCounts;
+    private List<IncrementalSnapshotInfo> savedSnapshotInfos;
+
+    @BeforeMethod
+    public void init() {
+        lastCounts = new HashMap<>();
+        savedSnapshotInfos = new ArrayList<>();
+    }
+
+    @Test
+    public void dirtyStateSnapshotTest1() throws InterruptedException, ExecutionException {
+        log.info("dirty state snapshot test 1 - incremental snapshots skip states not modified");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        siddhiManager.setIncrementalPersistenceStore(new IncrementalFileSystemPersistenceStore(storageFilePath) {
+            @Override
+            public void save(IncrementalSnapshotInfo snapshotInfo, SnapshotWriter snapshotWriter) {
+                synchronized (savedSnapshotInfos) {
+                    savedSnapshotInfos.add(snapshotInfo);
+                }
+                super.save(snapshotInfo, snapshotWriter);
+            }
+        });
+
+        String siddhiApp = "" +
+                "@app:name('DirtyStateSnapshotTest') " +
+                "" +
+                "define stream StockStream ( symbol string, price float, volume int );" +
+                "" +
+                "partition with ( symbol of StockStream ) " +
+                "begin " +
+                "@info(name = 'query1') " +
+                "from StockStream#window.length(10) " +
+                "select symbol, count() as totalCount " +
+                "insert into OutStream ;" +
+                "end ;";
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        addCallback(siddhiAppRuntime);
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("StockStream");
+        siddhiAppRuntime.start();
+        siddhiAppRuntime.clearAllRevisions();
+
+        inputHandler.send(new Object[]{"IBM", 75.6f, 100});
+        inputHandler.send(new Object[]{"WSO2", 57.6f, 200});
+        inputHandler.send(new Object[]{"ORACLE", 45.6f, 300});
+        List<IncrementalSnapshotInfo> firstSnapshotInfos = persist(siddhiAppRuntime);
+
+        inputHandler.send(new Object[]{"IBM", 75.6f, 100});
+        List<IncrementalSnapshotInfo> secondSnapshotInfos = persist(siddhiAppRuntime);
+
+        AssertJUnit.assertFalse(secondSnapshotInfos.isEmpty());
+        AssertJUnit.assertTrue(secondSnapshotInfos.size() < firstSnapshotInfos.size());
+        for (IncrementalSnapshotInfo snapshotInfo : secondSnapshotInfos) {
+            AssertJUnit.assertFalse(snapshotInfo.getPartitionGroupByKey().startsWith("WSO2"));
+            AssertJUnit.assertFalse(snapshotInfo.getPartitionGroupByKey().startsWith("ORACLE"));
+        }
+
+        //restarting siddhi app
+        siddhiAppRuntime.shutdown();
+        siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        addCallback(siddhiAppRuntime);
+        inputHandler = siddhiAppRuntime.getInputHandler("StockStream");
+        siddhiAppRuntime.start();
+
+        //loading
+        try {
+            siddhiAppRuntime.restoreLastRevision();
+        } catch (CannotRestoreSiddhiAppStateException e) {
+            Assert.fail("Restoring of Siddhi app " + siddhiAppRuntime.getName() + " failed", e);
+        }
+
+        inputHandler.send(new Object[]{"IBM", 75.6f, 100});
+        inputHandler.send(new Object[]{"WSO2", 57.6f, 200});
+        inputHandler.send(new Object[]{"ORACLE", 45.6f, 300});
+        siddhiAppRuntime.clearAllRevisions();
+        siddhiAppRuntime.shutdown();
+
+        AssertJUnit.assertEquals(Long.valueOf(3), lastCounts.get("IBM"));
+        AssertJUnit.assertEquals(Long.valueOf(2), lastCounts.get("WSO2"));
+        AssertJUnit.assertEquals(Long.valueOf(2), lastCounts.get("ORACLE"));
+    }
+
+    @Test
+    public void dirtyStateSnapshotTest2() throws InterruptedException, ExecutionException {
+        log.info("dirty state snapshot test 2 - states of a failed incremental snapshot are captured again");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        AtomicBoolean failSaves = new AtomicBoolean(true);
+        siddhiManager.setIncrementalPersistenceStore(new IncrementalFileSystemPersistenceStore(storageFilePath) {
+            @Override
+            public void save(IncrementalSnapshotInfo snapshotInfo, SnapshotWriter snapshotWriter) {
+                if (failSaves.get() && snapshotInfo.getPartitionGroupByKey().startsWith("WSO2")) {
+                    throw new PersistenceStoreException("Cannot save " + snapshotInfo.getRevision());
+                }
+                synchronized (savedSnapshotInfos) {
+                    savedSnapshotInfos.add(snapshotInfo);
+                }
+                super.save(snapshotInfo, snapshotWriter);
+            }
+        });
+
+        String siddhiApp = "" +
+                "@app:name('DirtyStateSnapshotTest') " +
+                "" +
+                "define stream StockStream ( symbol string, price float, volume int );" +
+                "" +
+                "partition with ( symbol of StockStream ) " +
+                "begin " +
+                "@info(name = 'query1') " +
+                "from StockStream#window.length(10) " +
+                "select symbol, count() as totalCount " +
+                "insert into OutStream ;" +
+                "end ;";
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        addCallback(siddhiAppRuntime);
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("StockStream");
+        siddhiAppRuntime.start();
+        siddhiAppRuntime.clearAllRevisions();
+
+        inputHandler.send(new Object[]{"IBM", 75.6f, 100});
+        inputHandler.send(new Object[]{"WSO2", 57.6f, 200});
+        try {
+            persist(siddhiAppRuntime);
+            Assert.fail("Persisting the WSO2 states did not fail");
+        } catch (ExecutionException e) {
+            AssertJUnit.assertTrue(e.getCause() instanceof PersistenceStoreException);
+        }
+        synchronized (savedSnapshotInfos) {
+            savedSnapshotInfos.clear();
+        }
+
+        failSaves.set(false);
+        inputHandler.send(new Object[]{"IBM", 75.6f, 100});
+        List<IncrementalSnapshotInfo> snapshotInfos = persist(siddhiAppRuntime);
+        boolean wso2Persisted = false;
+        for (IncrementalSnapshotInfo snapshotInfo : snapshotInfos) {
+            wso2Persisted |= snapshotInfo.getPartitionGroupByKey().startsWith("WSO2");
+        }
+        AssertJUnit.assertTrue("WSO2 states are persisted again", wso2Persisted);
+
+        //restarting siddhi app
+        siddhiAppRuntime.shutdown();
+        siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        addCallback(siddhiAppRuntime);
+        inputHandler = siddhiAppRuntime.getInputHandler("StockStream");
+        siddhiAppRuntime.start();
+
+        //loading
+        try {
+            siddhiAppRuntime.restoreLastRevision();
+        } catch (CannotRestoreSiddhiAppStateException e) {
+            Assert.fail("Restoring of Siddhi app " + siddhiAppRuntime.getName() + " failed", e);
+        }
+
+        inputHandler.send(new Object[]{"WSO2", 57.6f, 200});
+        siddhiAppRuntime.clearAllRevisions();
+        siddhiAppRuntime.shutdown();
+
+        AssertJUnit.assertEquals(Long.valueOf(2), lastCounts.get("WSO2"));
+    }
+
+    private List<IncrementalSnapshotInfo> persist(SiddhiAppRuntime siddhiAppRuntime)
+            throws InterruptedException, ExecutionException {
+        PersistenceReference persistenceReference = siddhiAppRuntime.persist();
+        for (Future future : persistenceReference.getIncrementalStateFuture()) {
+            future.get();
+        }
+        synchronized (savedSnapshotInfos) {
+            List<IncrementalSnapshotInfo> snapshotInfos = new ArrayList<>(savedSnapshotInfos);
+            savedSnapshotInfos.clear();
+            return snapshotInfos;
+        }
+    }
+
+    private void addCallback(SiddhiAppRuntime siddhiAppRuntime) {
+        siddhiAppRuntime.addCallback("OutStream", new StreamCallback() {
+            @Override
+            public void receive(Event[] events) {
+                EventPrinter.print(events);
+                for (Event event : events) {
+                    lastCounts.put((String) event.getData(0), (Long) event.getData(1));
+                }
+            }
+        });
+    }
+}
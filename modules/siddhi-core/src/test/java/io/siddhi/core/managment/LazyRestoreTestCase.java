@@ -0,0 +1,272 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.siddhi.core.managment;
+
+import io.siddhi.core.SiddhiAppRuntime;
+import io.siddhi.core.SiddhiManager;
+import io.siddhi.core.event.Event;
+import io.siddhi.core.exception.CannotRestoreSiddhiAppStateException;
+import io.siddhi.core.query.extension.util.RestoreTrackingCountFunctionExtension;
+import io.siddhi.core.stream.input.InputHandler;
+import io.siddhi.core.stream.output.StreamCallback;
+import io.siddhi.core.util.EventPrinter;
+import io.siddhi.query.api.exception.SiddhiAppValidationException;
+import org.apache.log4j.Logger;
+import org.testng.AssertJUnit;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class LazyRestoreTestCase {
+    private static final Logger log = Logger.getLogger(LazyRestoreTestCase.class);
+    private static final String PARTITIONED_APP = "" +
+            "define stream StockStream ( symbol string, price float, volume int );" +
+            "" +
+            "partition with ( symbol of StockStream ) " +
+            "begin " +
+            "@info(name = 'query1') " +
+            "from StockStream#window.length(10) " +
+            "select symbol, count() as totalCount " +
+            "insert into OutStream ;" +
+            "end ;" +
+            "" +
+            "@info(name = 'query2') " +
+            "from StockStream " +
+            "select symbol, sum(volume) as totalVolume " +
+            "group by symbol " +
+            "insert into VolumeStream ;";
+    private static final String TRACKED_APP = "" +
+            "define stream StockStream ( symbol string, price float, volume int );" +
+            "" +
+            "partition with ( symbol of StockStream ) " +
+            "begin " +
+            "@info(name = 'query1') " +
+            "from StockStream " +
+            "select symbol, custom:trackedCount(symbol) as totalCount " +
+            "insert into OutStream ;" +
+            "end ;";
+    private static final int TRACKED_KEYS = 1500;
+    private Map<String, Long> lastCounts;
+    private Map<String, Long> lastVolumes;
+
+    @BeforeMethod
+    public void init() {
+        lastCounts = new HashMap<>();
+        lastVolumes = new HashMap<>();
+        RestoreTrackingCountFunctionExtension.setRestoreListener(null);
+    }
+
+    @Test
+    public void lazyRestoreTest1() throws InterruptedException, CannotRestoreSiddhiAppStateException {
+        log.info("lazy restore test 1 - partitioned states restored when first accessed");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime("@app:name('Test') " +
+                PARTITIONED_APP);
+        addCallbacks(siddhiAppRuntime);
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("StockStream");
+        siddhiAppRuntime.start();
+
+        inputHandler.send(new Object[]{"IBM", 75.6f, 100});
+        inputHandler.send(new Object[]{"WSO2", 57.6f, 200});
+        inputHandler.send(new Object[]{"IBM", 75.6f, 100});
+        byte[] snapshot = siddhiAppRuntime.snapshot();
+        siddhiAppRuntime.shutdown();
+
+        siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime("@app:name('Test') @app:snapshot(restore='lazy') " +
+                PARTITIONED_APP);
+        addCallbacks(siddhiAppRuntime);
+        inputHandler = siddhiAppRuntime.getInputHandler("StockStream");
+        siddhiAppRuntime.start();
+        siddhiAppRuntime.restore(snapshot);
+
+        inputHandler.send(new Object[]{"IBM", 75.6f, 100});
+        inputHandler.send(new Object[]{"WSO2", 57.6f, 200});
+        inputHandler.send(new Object[]{"ORACLE", 45.6f, 300});
+        siddhiAppRuntime.shutdown();
+
+        AssertJUnit.assertEquals(Long.valueOf(3), lastCounts.get("IBM"));
+        AssertJUnit.assertEquals(Long.valueOf(2), lastCounts.get("WSO2"));
+        AssertJUnit.assertEquals(Long.valueOf(1), lastCounts.get("ORACLE"));
+        AssertJUnit.assertEquals(Long.valueOf(300), lastVolumes.get("IBM"));
+        AssertJUnit.assertEquals(Long.valueOf(400), lastVolumes.get("WSO2"));
+    }
+
+    @Test
+    public void lazyRestoreTest2() throws InterruptedException, CannotRestoreSiddhiAppStateException {
+        log.info("lazy restore test 2 - states pending to be restored are included in snapshots");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime("@app:name('Test') " +
+                PARTITIONED_APP);
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("StockStream");
+        siddhiAppRuntime.start();
+        for (int i = 0; i < 2500; i++) {
+            inputHandler.send(new Object[]{"S" + i, 10f, 10});
+        }
+        byte[] snapshot = siddhiAppRuntime.snapshot();
+        siddhiAppRuntime.shutdown();
+
+        siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime("@app:name('Test') @app:snapshot(restore='lazy') " +
+                PARTITIONED_APP);
+        siddhiAppRuntime.start();
+        siddhiAppRuntime.restore(snapshot);
+        snapshot = siddhiAppRuntime.snapshot();
+        siddhiAppRuntime.shutdown();
+
+        siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime("@app:name('Test') " + PARTITIONED_APP);
+        addCallbacks(siddhiAppRuntime);
+        inputHandler = siddhiAppRuntime.getInputHandler("StockStream");
+        siddhiAppRuntime.start();
+        siddhiAppRuntime.restore(snapshot);
+
+        inputHandler.send(new Object[]{"S0", 10f, 10});
+        inputHandler.send(new Object[]{"S1500", 10f, 10});
+        inputHandler.send(new Object[]{"S2499", 10f, 10});
+        siddhiAppRuntime.shutdown();
+
+        AssertJUnit.assertEquals(Long.valueOf(2), lastCounts.get("S0"));
+        AssertJUnit.assertEquals(Long.valueOf(2), lastCounts.get("S1500"));
+        AssertJUnit.assertEquals(Long.valueOf(2), lastCounts.get("S2499"));
+        AssertJUnit.assertEquals(Long.valueOf(20), lastVolumes.get("S2499"));
+    }
+
+    @Test(expectedExceptions = SiddhiAppValidationException.class)
+    public void lazyRestoreTest3() {
+        log.info("lazy restore test 3 - invalid restore");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        siddhiManager.createSiddhiAppRuntime("@app:name('Test') @app:snapshot(restore='later') " + PARTITIONED_APP);
+    }
+
+    @Test
+    public void lazyRestoreTest4() throws InterruptedException, CannotRestoreSiddhiAppStateException {
+        log.info("lazy restore test 4 - states are still pending to be restored after restore returns");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        siddhiManager.setExtension("custom:trackedCount", RestoreTrackingCountFunctionExtension.class);
+        byte[] snapshot = snapshotTrackedCounts(siddhiManager);
+        Map<String, Thread> restoringThreads = trackRestores();
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime("@app:name('Test') " +
+                "@app:snapshot(restore='lazy') " + TRACKED_APP);
+        addCountCallback(siddhiAppRuntime);
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("StockStream");
+        siddhiAppRuntime.start();
+        siddhiAppRuntime.restore(snapshot);
+        AssertJUnit.assertTrue("States pending after restore", restoringThreads.size() < TRACKED_KEYS);
+        Thread.sleep(1000);
+        AssertJUnit.assertTrue("States pending after the warming stopped", restoringThreads.size() < TRACKED_KEYS);
+
+        for (int i = 0; i < TRACKED_KEYS; i++) {
+            inputHandler.send(new Object[]{"S" + i, 10f, 10});
+        }
+        siddhiAppRuntime.shutdown();
+
+        AssertJUnit.assertEquals(TRACKED_KEYS, restoringThreads.size());
+        for (int i = 0; i < TRACKED_KEYS; i++) {
+            AssertJUnit.assertEquals(Long.valueOf(2), lastCounts.get("S" + i));
+        }
+    }
+
+    @Test
+    public void lazyRestoreTest5() throws InterruptedException, CannotRestoreSiddhiAppStateException {
+        log.info("lazy restore test 5 - a pending state is restored when it is first accessed");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        siddhiManager.setExtension("custom:trackedCount", RestoreTrackingCountFunctionExtension.class);
+        byte[] snapshot = snapshotTrackedCounts(siddhiManager);
+        Map<String, Thread> restoringThreads = trackRestores();
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime("@app:name('Test') " +
+                "@app:snapshot(restore='lazy') " + TRACKED_APP);
+        addCountCallback(siddhiAppRuntime);
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("StockStream");
+        siddhiAppRuntime.start();
+        siddhiAppRuntime.restore(snapshot);
+        Thread.sleep(1000);
+
+        String pendingKey = null;
+        for (int i = 0; i < TRACKED_KEYS && pendingKey == null; i++) {
+            if (!restoringThreads.containsKey("S" + i)) {
+                pendingKey = "S" + i;
+            }
+        }
+        AssertJUnit.assertNotNull("A state is pending to be restored", pendingKey);
+        inputHandler.send(new Object[]{pendingKey, 10f, 10});
+        siddhiAppRuntime.shutdown();
+
+        AssertJUnit.assertEquals(Thread.currentThread(), restoringThreads.get(pendingKey));
+        AssertJUnit.assertEquals(Long.valueOf(2), lastCounts.get(pendingKey));
+    }
+
+    private byte[] snapshotTrackedCounts(SiddhiManager siddhiManager) throws InterruptedException {
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime("@app:name('Test') " + TRACKED_APP);
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("StockStream");
+        siddhiAppRuntime.start();
+        for (int i = 0; i < TRACKED_KEYS; i++) {
+            inputHandler.send(new Object[]{"S" + i, 10f, 10});
+        }
+        byte[] snapshot = siddhiAppRuntime.snapshot();
+        siddhiAppRuntime.shutdown();
+        return snapshot;
+    }
+
+    /**
+     * Tracks the threads restoring the counts by their partition keys, stopping the background warming of the
+     * pending states after its first batch, such that more states than a batch are left to be restored on access.
+     */
+    private Map<String, Thread> trackRestores() {
+        Map<String, Thread> restoringThreads = new ConcurrentHashMap<>();
+        Thread testThread = Thread.currentThread();
+        RestoreTrackingCountFunctionExtension.setRestoreListener(partitionKey -> {
+            restoringThreads.put(partitionKey, Thread.currentThread());
+            if (Thread.currentThread() != testThread) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        return restoringThreads;
+    }
+
+    private void addCallbacks(SiddhiAppRuntime siddhiAppRuntime) {
+        addCountCallback(siddhiAppRuntime);
+        siddhiAppRuntime.addCallback("VolumeStream", new StreamCallback() {
+            @Override
+            public void receive(Event[] events) {
+                EventPrinter.print(events);
+                for (Event event : events) {
+                    lastVolumes.put((String) event.getData(0), (Long) event.getData(1));
+                }
+            }
+        });
+    }
+
+    private void addCountCallback(SiddhiAppRuntime siddhiAppRuntime) {
+        siddhiAppRuntime.addCallback("OutStream", new StreamCallback() {
+            @Override
+            public void receive(Event[] events) {
+                for (Event event : events) {
+                    lastCounts.put((String) event.getData(0), (Long) event.getData(1));
+                }
+            }
+        });
+    }
+}
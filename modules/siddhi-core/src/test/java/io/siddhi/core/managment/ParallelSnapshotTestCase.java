@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.siddhi.core.managment;
+
+import io.siddhi.core.SiddhiAppRuntime;
+import io.siddhi.core.SiddhiManager;
+import io.siddhi.core.event.Event;
+import io.siddhi.core.exception.CannotRestoreSiddhiAppStateException;
+import io.siddhi.core.stream.input.InputHandler;
+import io.siddhi.core.stream.output.StreamCallback;
+import io.siddhi.core.util.EventPrinter;
+import io.siddhi.core.util.persistence.InMemoryPersistenceStore;
+import io.siddhi.core.util.persistence.PersistenceStore;
+import io.siddhi.query.api.exception.SiddhiAppValidationException;
+import org.apache.log4j.Logger;
+import org.testng.Assert;
+import org.testng.AssertJUnit;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class ParallelSnapshotTestCase {
+    private static final Logger log = Logger.getLogger(ParallelSnapshotTestCase.class);
+    private static final String PARTITIONED_APP = "" +
+            "define stream StockStream ( symbol string, price float, volume int );" +
+            "" +
+            "partition with ( symbol of StockStream ) " +
+            "begin " +
+            "@info(name = 'query1') " +
+            "from StockStream#window.length(10) " +
+            "select symbol, count() as totalCount " +
+            "insert into OutStream ;" +
+            "end ;" +
+            "" +
+            "@info(name = 'query2') " +
+            "from StockStream " +
+            "select symbol, sum(volume) as totalVolume " +
+            "group by symbol " +
+            "insert into VolumeStream ;";
+    private Map<String, Long> lastCounts;
+
+    @BeforeMethod
+    public void init() {
+        lastCounts = new HashMap<>();
+    }
+
+    @Test
+    public void parallelSnapshotTest1() throws InterruptedException {
+        log.info("parallel snapshot test 1 - partitioned states snapshotted in parallel");
+
+        assertRestoredCounts("@app:name('Test') @app:snapshot(parallelism='4') ");
+    }
+
+    @Test
+    public void parallelSnapshotTest2() throws InterruptedException {
+        log.info("parallel snapshot test 2 - partitioned states copied and serialized in parallel");
+
+        assertRestoredCounts("@app:name('Test') @app:snapshot(mode='copy', parallelism='4') ");
+    }
+
+    @Test
+    public void parallelSnapshotTest3() throws InterruptedException, CannotRestoreSiddhiAppStateException {
+        log.info("parallel snapshot test 3 - parallel snapshot restored without parallelism");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(
+                "@app:name('Test') @app:snapshot(parallelism='4') " + PARTITIONED_APP);
+        addCallback(siddhiAppRuntime);
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("StockStream");
+        siddhiAppRuntime.start();
+
+        inputHandler.send(new Object[]{"IBM", 75.6f, 100});
+        inputHandler.send(new Object[]{"WSO2", 57.6f, 200});
+        inputHandler.send(new Object[]{"IBM", 75.6f, 100});
+        byte[] snapshot = siddhiAppRuntime.snapshot();
+        siddhiAppRuntime.shutdown();
+
+        siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime("@app:name('Test') " + PARTITIONED_APP);
+        addCallback(siddhiAppRuntime);
+        inputHandler = siddhiAppRuntime.getInputHandler("StockStream");
+        siddhiAppRuntime.start();
+        siddhiAppRuntime.restore(snapshot);
+
+        inputHandler.send(new Object[]{"IBM", 75.6f, 100});
+        inputHandler.send(new Object[]{"WSO2", 57.6f, 200});
+        siddhiAppRuntime.shutdown();
+
+        AssertJUnit.assertEquals(Long.valueOf(3), lastCounts.get("IBM"));
+        AssertJUnit.assertEquals(Long.valueOf(2), lastCounts.get("WSO2"));
+    }
+
+    @Test(expectedExceptions = SiddhiAppValidationException.class)
+    public void parallelSnapshotTest4() {
+        log.info("parallel snapshot test 4 - invalid parallelism");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        siddhiManager.createSiddhiAppRuntime("@app:name('Test') @app:snapshot(parallelism='none') " +
+                PARTITIONED_APP);
+    }
+
+    private void assertRestoredCounts(String annotations) throws InterruptedException {
+        PersistenceStore persistenceStore = new InMemoryPersistenceStore();
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        siddhiManager.setPersistenceStore(persistenceStore);
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(annotations + PARTITIONED_APP);
+        addCallback(siddhiAppRuntime);
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("StockStream");
+        siddhiAppRuntime.start();
+
+        inputHandler.send(new Object[]{"IBM", 75.6f, 100});
+        inputHandler.send(new Object[]{"WSO2", 57.6f, 200});
+        inputHandler.send(new Object[]{"ORACLE", 45.6f, 300});
+        inputHandler.send(new Object[]{"IBM", 75.6f, 100});
+
+        //persisting
+        siddhiAppRuntime.persist();
+
+        //events after the snapshot must not be restored
+        inputHandler.send(new Object[]{"WSO2", 57.6f, 200});
+        AssertJUnit.assertEquals(Long.valueOf(2), lastCounts.get("WSO2"));
+
+        //restarting siddhi app
+        Thread.sleep(500);
+        siddhiAppRuntime.shutdown();
+        siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(annotations + PARTITIONED_APP);
+        addCallback(siddhiAppRuntime);
+        inputHandler = siddhiAppRuntime.getInputHandler("StockStream");
+        siddhiAppRuntime.start();
+
+        //loading
+        try {
+            siddhiAppRuntime.restoreLastRevision();
+        } catch (CannotRestoreSiddhiAppStateException e) {
+            Assert.fail("Restoring of Siddhi app " + siddhiAppRuntime.getName() + " failed", e);
+        }
+
+        inputHandler.send(new Object[]{"IBM", 75.6f, 100});
+        inputHandler.send(new Object[]{"WSO2", 57.6f, 200});
+        inputHandler.send(new Object[]{"ORACLE", 45.6f, 300});
+        siddhiAppRuntime.shutdown();
+
+        AssertJUnit.assertEquals(Long.valueOf(3), lastCounts.get("IBM"));
+        AssertJUnit.assertEquals(Long.valueOf(2), lastCounts.get("WSO2"));
+        AssertJUnit.assertEquals(Long.valueOf(2), lastCounts.get("ORACLE"));
+    }
+
+    private void addCallback(SiddhiAppRuntime siddhiAppRuntime) {
+        siddhiAppRuntime.addCallback("OutStream", new StreamCallback() {
+            @Override
+            public void receive(Event[] events) {
+                EventPrinter.print(events);
+                for (Event event : events) {
+                    lastCounts.put((String) event.getData(0), (Long) event.getData(1));
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.siddhi.core.managment;
+
+import io.siddhi.core.SiddhiAppRuntime;
+import io.siddhi.core.SiddhiManager;
+import io.siddhi.core.event.Event;
+import io.siddhi.core.exception.CannotRestoreSiddhiAppStateException;
+import io.siddhi.core.stream.input.InputHandler;
+import io.siddhi.core.stream.output.StreamCallback;
+import io.siddhi.core.util.persistence.FileSystemPersistenceStore;
+import io.siddhi.core.util.persistence.InMemoryPersistenceStore;
+import io.siddhi.core.util.persistence.PersistenceStore;
+import io.siddhi.core.util.persistence.util.PersistenceConstants;
+import io.siddhi.core.util.snapshot.PersistenceReference;
+import io.siddhi.query.api.exception.SiddhiAppValidationException;
+import org.apache.log4j.Logger;
+import org.testng.AssertJUnit;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class PersistencePipelineTestCase {
+    private static final Logger log = Logger.getLogger(PersistencePipelineTestCase.class);
+    private static final String APP = "" +
+            "define stream StockStream ( symbol string, price float, volume int );" +
+            "" +
+            "@info(name = 'query1')" +
+            "from StockStream#window.length(10) " +
+            "select symbol, sum(volume) as totalVol " +
+            "insert into OutStream ";
+    private String storageFilePath = "./target/temp-pipeline";
+
+    @Test
+    public void persistencePipelineTest1() throws InterruptedException, ExecutionException {
+        log.info("persistence pipeline test 1 - revisions are written atomically and retained through the index");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        siddhiManager.setPersistenceStore(createFileSystemPersistenceStore(2));
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(
+                "@app:name('PersistencePipelineTest') " + APP);
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("StockStream");
+        siddhiAppRuntime.start();
+        siddhiAppRuntime.clearAllRevisions();
+
+        String lastRevision = null;
+        for (int i = 0; i < 4; i++) {
+            inputHandler.send(new Object[]{"IBM", 75.6f, 100});
+            PersistenceReference persistenceReference = siddhiAppRuntime.persist();
+            persistenceReference.getFuture().get();
+            lastRevision = persistenceReference.getRevision();
+            Thread.sleep(5);
+        }
+
+        File[] files = new File(storageFilePath + File.separator + "PersistencePipelineTest").listFiles();
+        AssertJUnit.assertNotNull(files);
+        int revisions = 0;
+        for (File file : files) {
+            AssertJUnit.assertFalse("Temporary file left behind " + file.getName(),
+                    file.getName().endsWith(".tmp"));
+            if (!file.getName().startsWith(".")) {
+                revisions++;
+            }
+        }
+        AssertJUnit.assertEquals(2, revisions);
+        AssertJUnit.assertEquals(lastRevision,
+                createFileSystemPersistenceStore(2).getLastRevision("PersistencePipelineTest"));
+
+        siddhiAppRuntime.clearAllRevisions();
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void persistencePipelineTest2() throws InterruptedException, ExecutionException, TimeoutException,
+            CannotRestoreSiddhiAppStateException {
+        log.info("persistence pipeline test 2 - checkpoints beyond max.in.flight wait for a checkpoint to complete");
+
+        SlowPersistenceStore persistenceStore = new SlowPersistenceStore();
+        SiddhiManager siddhiManager = new SiddhiManager();
+        siddhiManager.setPersistenceStore(persistenceStore);
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(
+                "@app:name('PersistencePipelineTest') @app:snapshot(max.in.flight='1') " + APP);
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("StockStream");
+        siddhiAppRuntime.start();
+
+        inputHandler.send(new Object[]{"IBM", 75.6f, 100});
+        PersistenceReference persistenceReference1 = siddhiAppRuntime.persist();
+        Thread.sleep(5);
+        inputHandler.send(new Object[]{"WSO2", 57.6f, 200});
+        AtomicReference<PersistenceReference> persistenceReference2 = new AtomicReference<>();
+        CountDownLatch persisted = new CountDownLatch(1);
+        new Thread(() -> {
+            persistenceReference2.set(siddhiAppRuntime.persist());
+            persisted.countDown();
+        }).start();
+        AssertJUnit.assertFalse(persisted.await(500, TimeUnit.MILLISECONDS));
+
+        persistenceStore.latch.countDown();
+        AssertJUnit.assertTrue(persisted.await(10, TimeUnit.SECONDS));
+        persistenceReference2.get().getFuture().get(10, TimeUnit.SECONDS);
+        AssertJUnit.assertTrue(persistenceReference1.getFuture().isDone());
+        AssertJUnit.assertFalse(persistenceReference1.getRevision().equals(persistenceReference2.get().getRevision()));
+        AssertJUnit.assertEquals(2, persistenceStore.saveCount.get());
+        siddhiAppRuntime.shutdown();
+
+        SiddhiAppRuntime restoredAppRuntime = siddhiManager.createSiddhiAppRuntime(
+                "@app:name('PersistencePipelineTest') @app:snapshot(max.in.flight='1') " + APP);
+        AtomicLong totalVolume = new AtomicLong();
+        restoredAppRuntime.addCallback("OutStream", new StreamCallback() {
+            @Override
+            public void receive(Event[] events) {
+                totalVolume.set((Long) events[events.length - 1].getData(1));
+            }
+        });
+        restoredAppRuntime.start();
+        restoredAppRuntime.restoreLastRevision();
+        restoredAppRuntime.getInputHandler("StockStream").send(new Object[]{"IBM", 75.6f, 300});
+        AssertJUnit.assertEquals(600, totalVolume.get());
+        restoredAppRuntime.shutdown();
+    }
+
+    @Test(expectedExceptions = SiddhiAppValidationException.class)
+    public void persistencePipelineTest3() {
+        log.info("persistence pipeline test 3 - invalid max.in.flight");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        siddhiManager.createSiddhiAppRuntime("@app:name('Test') @app:snapshot(max.in.flight='0') " + APP);
+    }
+
+    private PersistenceStore createFileSystemPersistenceStore(int revisionsToKeep) {
+        Map<String, Object> configs = new HashMap<>();
+        configs.put("location", storageFilePath);
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(PersistenceConstants.STATE_PERSISTENCE_CONFIGS, configs);
+        properties.put(PersistenceConstants.STATE_PERSISTENCE_REVISIONS_TO_KEEP, revisionsToKeep);
+        PersistenceStore persistenceStore = new FileSystemPersistenceStore();
+        persistenceStore.setProperties(properties);
+        return persistenceStore;
+    }
+
+    private static class SlowPersistenceStore extends InMemoryPersistenceStore {
+        private final CountDownLatch latch = new CountDownLatch(1);
+        private final AtomicInteger saveCount = new AtomicInteger();
+
+        @Override
+        public void save(String siddhiAppId, String revision, byte[] data) {
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            saveCount.incrementAndGet();
+            super.save(siddhiAppId, revision, data);
+        }
+    }
+}
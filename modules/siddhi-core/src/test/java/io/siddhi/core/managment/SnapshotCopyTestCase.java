@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.core.managment;
+
+import io.siddhi.core.SiddhiAppRuntime;
+import io.siddhi.core.SiddhiManager;
+import io.siddhi.core.event.Event;
+import io.siddhi.core.exception.CannotRestoreSiddhiAppStateException;
+import io.siddhi.core.query.output.callback.QueryCallback;
+import io.siddhi.core.stream.input.InputHandler;
+import io.siddhi.core.util.EventPrinter;
+import io.siddhi.core.util.persistence.InMemoryPersistenceStore;
+import io.siddhi.core.util.persistence.PersistenceStore;
+import io.siddhi.query.api.exception.SiddhiAppValidationException;
+import org.apache.log4j.Logger;
+import org.testng.Assert;
+import org.testng.AssertJUnit;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class SnapshotCopyTestCase {
+    private static final Logger log = Logger.getLogger(SnapshotCopyTestCase.class);
+    private int count;
+    private Long lastValue;
+
+    @BeforeMethod
+    public void init() {
+        count = 0;
+        lastValue = 0L;
+    }
+
+    @Test
+    public void snapshotCopyTest1() throws InterruptedException {
+        log.info("snapshot copy test 1 - window query");
+
+        PersistenceStore persistenceStore = new InMemoryPersistenceStore();
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        siddhiManager.setPersistenceStore(persistenceStore);
+
+        String siddhiApp = "" +
+                "@app:name('Test') " +
+                "@app:snapshot(mode='copy') " +
+                "" +
+                "define stream StockStream ( symbol string, price float, volume int );" +
+                "" +
+                "@info(name = 'query1')" +
+                "from StockStream[price>10]#window.length(10) " +
+                "select symbol, price, sum(volume) as totalVol " +
+                "insert into OutStream ";
+
+        QueryCallback queryCallback = new QueryCallback() {
+            @Override
+            public void receive(long timestamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timestamp, inEvents, removeEvents);
+                for (Event inEvent : inEvents) {
+                    count++;
+                    lastValue = (Long) inEvent.getData(2);
+                }
+            }
+        };
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        siddhiAppRuntime.addCallback("query1", queryCallback);
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("StockStream");
+        siddhiAppRuntime.start();
+
+        inputHandler.send(new Object[]{"IBM", 75.6f, 100});
+        inputHandler.send(new Object[]{"WSO2", 75.6f, 100});
+        AssertJUnit.assertEquals(new Long(200), lastValue);
+
+        //persisting
+        siddhiAppRuntime.persist();
+
+        //events after the copy must not leak into the persisted state
+        inputHandler.send(new Object[]{"IBM", 75.6f, 100});
+        inputHandler.send(new Object[]{"WSO2", 75.6f, 100});
+        AssertJUnit.assertEquals(new Long(400), lastValue);
+
+        //restarting siddhi app
+        Thread.sleep(500);
+        siddhiAppRuntime.shutdown();
+        siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        siddhiAppRuntime.addCallback("query1", queryCallback);
+        inputHandler = siddhiAppRuntime.getInputHandler("StockStream");
+        siddhiAppRuntime.start();
+
+        //loading
+        try {
+            siddhiAppRuntime.restoreLastRevision();
+        } catch (CannotRestoreSiddhiAppStateException e) {
+            Assert.fail("Restoring of Siddhi app " + siddhiAppRuntime.getName() + " failed", e);
+        }
+
+        inputHandler.send(new Object[]{"IBM", 75.6f, 100});
+        siddhiAppRuntime.shutdown();
+
+        AssertJUnit.assertEquals(5, count);
+        AssertJUnit.assertEquals(new Long(300), lastValue);
+    }
+
+    @Test
+    public void snapshotCopyTest2() throws InterruptedException {
+        log.info("snapshot copy test 2 - primary key table");
+
+        PersistenceStore persistenceStore = new InMemoryPersistenceStore();
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        siddhiManager.setPersistenceStore(persistenceStore);
+
+        String siddhiApp = "" +
+                "@app:name('Test') " +
+                "@app:snapshot(mode='copy') " +
+                "" +
+                "define stream StockStream ( symbol string, price float, volume int );" +
+                "@PrimaryKey('symbol') " +
+                "@Index('volume') " +
+                "define table StockTable ( symbol string, price float, volume int );" +
+                "" +
+                "from StockStream " +
+                "insert into StockTable ;";
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("StockStream");
+        siddhiAppRuntime.start();
+
+        inputHandler.send(new Object[]{"IBM", 75.6f, 100});
+        inputHandler.send(new Object[]{"WSO2", 57.6f, 200});
+
+        siddhiAppRuntime.persist();
+
+        inputHandler.send(new Object[]{"ORACLE", 45.6f, 300});
+        AssertJUnit.assertEquals(3, siddhiAppRuntime.query("from StockTable select *").length);
+
+        Thread.sleep(500);
+        siddhiAppRuntime.shutdown();
+        siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        siddhiAppRuntime.start();
+
+        try {
+            siddhiAppRuntime.restoreLastRevision();
+        } catch (CannotRestoreSiddhiAppStateException e) {
+            Assert.fail("Restoring of Siddhi app " + siddhiAppRuntime.getName() + " failed", e);
+        }
+
+        Event[] events = siddhiAppRuntime.query("from StockTable on volume == 200 select symbol");
+        AssertJUnit.assertEquals(1, events.length);
+        AssertJUnit.assertEquals("WSO2", events[0].getData(0));
+        AssertJUnit.assertEquals(2, siddhiAppRuntime.query("from StockTable select *").length);
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test(expectedExceptions = SiddhiAppValidationException.class)
+    public void snapshotCopyTest3() {
+        log.info("snapshot copy test 3 - invalid snapshot mode");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        String siddhiApp = "" +
+                "@app:name('Test') " +
+                "@app:snapshot(mode='lazy') " +
+                "define stream StockStream ( symbol string, price float, volume int );" +
+                "from StockStream select * insert into OutStream ;";
+        siddhiManager.createSiddhiAppRuntime(siddhiApp);
+    }
+}
@@ -0,0 +1,263 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.core.managment;
+
+import io.siddhi.core.SiddhiAppRuntime;
+import io.siddhi.core.SiddhiManager;
+import io.siddhi.core.config.SiddhiAppContext;
+import io.siddhi.core.event.ComplexEvent;
+import io.siddhi.core.event.Event;
+import io.siddhi.core.event.state.StateEvent;
+import io.siddhi.core.event.stream.Operation;
+import io.siddhi.core.event.stream.StreamEvent;
+import io.siddhi.core.exception.CannotRestoreSiddhiAppStateException;
+import io.siddhi.core.query.output.callback.QueryCallback;
+import io.siddhi.core.stream.input.InputHandler;
+import io.siddhi.core.util.EventPrinter;
+import io.siddhi.core.util.persistence.InMemoryPersistenceStore;
+import io.siddhi.core.util.persistence.PersistenceStore;
+import io.siddhi.core.util.snapshot.BinaryStateSerializer;
+import io.siddhi.core.util.snapshot.ByteSerializer;
+import io.siddhi.core.util.snapshot.state.Snapshot;
+import io.siddhi.core.util.snapshot.state.SnapshotStateList;
+import org.apache.log4j.Logger;
+import org.testng.Assert;
+import org.testng.AssertJUnit;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class StateSerializerTestCase {
+    private static final Logger log = Logger.getLogger(StateSerializerTestCase.class);
+    private int count;
+    private Long lastValue;
+
+    @BeforeMethod
+    public void init() {
+        count = 0;
+        lastValue = 0L;
+    }
+
+    @Test
+    public void stateSerializerTest1() {
+        log.info("state serializer test 1 - binary round trip");
+
+        SiddhiAppContext siddhiAppContext = new SiddhiAppContext();
+        BinaryStateSerializer stateSerializer = new BinaryStateSerializer();
+
+        StreamEvent first = new StreamEvent(0, 1, 2);
+        first.setOnAfterWindowData(new Object[]{"IBM"});
+        first.setOutputData(new Object[]{75.6f, 100L});
+        first.setTimestamp(1500000000000L);
+        StreamEvent second = new StreamEvent(0, 1, 2);
+        second.setOnAfterWindowData(new Object[]{"WSO2"});
+        second.setOutputData(new Object[]{null, -5L});
+        second.setTimestamp(1500000000010L);
+        second.setType(ComplexEvent.Type.EXPIRED);
+        first.setNext(second);
+
+        StateEvent stateEvent = new StateEvent(2, 1);
+        stateEvent.setEvent(0, first);
+        stateEvent.setOutputData(true, 0);
+        stateEvent.setTimestamp(1500000000020L);
+        stateEvent.setId(7);
+
+        List<Operation> operations = new ArrayList<>();
+        operations.add(new Operation(Operation.Operator.ADD, first));
+        operations.add(new Operation(Operation.Operator.CLEAR));
+
+        SnapshotStateList snapshotStateList = new SnapshotStateList();
+        snapshotStateList.putSnapshotState(3L, new Snapshot(operations, true));
+
+        Map<String, Object> state = new HashMap<>();
+        state.put("Events", first);
+        state.put("StateEvent", stateEvent);
+        state.put("SnapshotStateList", snapshotStateList);
+        state.put("Count", 42);
+        state.put("Average", 12.5d);
+        state.put("Total", new BigDecimal("1234.5678"));
+
+        byte[] bytes = stateSerializer.serialize(state, siddhiAppContext);
+        AssertJUnit.assertTrue(BinaryStateSerializer.isEncoded(bytes));
+        AssertJUnit.assertTrue(bytes.length < ByteSerializer.objectToByte(state, siddhiAppContext).length);
+
+        Map<String, Object> restored = (Map<String, Object>) stateSerializer.deserialize(bytes, siddhiAppContext);
+        StreamEvent restoredFirst = (StreamEvent) restored.get("Events");
+        AssertJUnit.assertEquals("IBM", restoredFirst.getOnAfterWindowData()[0]);
+        AssertJUnit.assertEquals(75.6f, restoredFirst.getOutputData()[0]);
+        AssertJUnit.assertEquals(100L, restoredFirst.getOutputData()[1]);
+        AssertJUnit.assertEquals(1500000000000L, restoredFirst.getTimestamp());
+        StreamEvent restoredSecond = restoredFirst.getNext();
+        AssertJUnit.assertEquals("WSO2", restoredSecond.getOnAfterWindowData()[0]);
+        AssertJUnit.assertNull(restoredSecond.getOutputData()[0]);
+        AssertJUnit.assertEquals(-5L, restoredSecond.getOutputData()[1]);
+        AssertJUnit.assertEquals(1500000000010L, restoredSecond.getTimestamp());
+        AssertJUnit.assertEquals(ComplexEvent.Type.EXPIRED, restoredSecond.getType());
+        AssertJUnit.assertNull(restoredSecond.getNext());
+
+        StateEvent restoredStateEvent = (StateEvent) restored.get("StateEvent");
+        AssertJUnit.assertSame(restoredFirst, restoredStateEvent.getStreamEvent(0));
+        AssertJUnit.assertNull(restoredStateEvent.getStreamEvent(1));
+        AssertJUnit.assertEquals(true, restoredStateEvent.getOutputData()[0]);
+        AssertJUnit.assertEquals(1500000000020L, restoredStateEvent.getTimestamp());
+        AssertJUnit.assertEquals(7, restoredStateEvent.getId());
+
+        Snapshot restoredSnapshot = ((SnapshotStateList) restored.get("SnapshotStateList")).getSnapshotStates()
+                .get(3L);
+        AssertJUnit.assertTrue(restoredSnapshot.isIncrementalSnapshot());
+        List<Operation> restoredOperations = (List<Operation>) restoredSnapshot.getState();
+        AssertJUnit.assertEquals(Operation.Operator.ADD, restoredOperations.get(0).operation);
+        AssertJUnit.assertSame(restoredFirst, restoredOperations.get(0).parameters);
+        AssertJUnit.assertEquals(Operation.Operator.CLEAR, restoredOperations.get(1).operation);
+        AssertJUnit.assertNull(restoredOperations.get(1).parameters);
+
+        AssertJUnit.assertEquals(42, restored.get("Count"));
+        AssertJUnit.assertEquals(12.5d, restored.get("Average"));
+        AssertJUnit.assertEquals(new BigDecimal("1234.5678"), restored.get("Total"));
+    }
+
+    @Test
+    public void stateSerializerTest2() {
+        log.info("state serializer test 2 - reading java serialized states");
+
+        SiddhiAppContext siddhiAppContext = new SiddhiAppContext();
+        Map<String, Object> state = new HashMap<>();
+        state.put("Count", 42L);
+        byte[] bytes = ByteSerializer.objectToByte(state, siddhiAppContext);
+        AssertJUnit.assertFalse(BinaryStateSerializer.isEncoded(bytes));
+        AssertJUnit.assertEquals(state, new BinaryStateSerializer().deserialize(bytes, siddhiAppContext));
+    }
+
+    @Test
+    public void stateSerializerTest3() throws InterruptedException {
+        log.info("state serializer test 3 - persisting window query with binary serializer");
+
+        PersistenceStore persistenceStore = new InMemoryPersistenceStore();
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        siddhiManager.setPersistenceStore(persistenceStore);
+
+        String siddhiApp = "" +
+                "@app:name('Test') " +
+                "@app:snapshot(serializer='binary') " +
+                "" +
+                "define stream StockStream ( symbol string, price float, volume int );" +
+                "" +
+                "@info(name = 'query1')" +
+                "from StockStream[price>10]#window.length(10) " +
+                "select symbol, price, sum(volume) as totalVol " +
+                "insert into OutStream ";
+
+        QueryCallback queryCallback = new QueryCallback() {
+            @Override
+            public void receive(long timestamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timestamp, inEvents, removeEvents);
+                for (Event inEvent : inEvents) {
+                    count++;
+                    lastValue = (Long) inEvent.getData(2);
+                }
+            }
+        };
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        siddhiAppRuntime.addCallback("query1", queryCallback);
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("StockStream");
+        siddhiAppRuntime.start();
+
+        inputHandler.send(new Object[]{"IBM", 75.6f, 100});
+        inputHandler.send(new Object[]{"WSO2", 75.6f, 100});
+        AssertJUnit.assertTrue(BinaryStateSerializer.isEncoded(siddhiAppRuntime.snapshot()));
+
+        Thread.sleep(100);
+        siddhiAppRuntime.persist();
+        inputHandler.send(new Object[]{"IBM", 75.6f, 100});
+
+        Thread.sleep(500);
+        siddhiAppRuntime.shutdown();
+        siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        siddhiAppRuntime.addCallback("query1", queryCallback);
+        inputHandler = siddhiAppRuntime.getInputHandler("StockStream");
+        siddhiAppRuntime.start();
+
+        try {
+            siddhiAppRuntime.restoreLastRevision();
+        } catch (CannotRestoreSiddhiAppStateException e) {
+            Assert.fail("Restoring of Siddhi app " + siddhiAppRuntime.getName() + " failed", e);
+        }
+
+        inputHandler.send(new Object[]{"WSO2", 75.6f, 100});
+        siddhiAppRuntime.shutdown();
+
+        AssertJUnit.assertEquals(4, count);
+        AssertJUnit.assertEquals(new Long(300), lastValue);
+    }
+
+    @Test
+    public void stateSerializerTest4() {
+        log.info("state serializer test 4 - chained events and java serialized objects shared by several holders");
+
+        SiddhiAppContext siddhiAppContext = new SiddhiAppContext();
+        BinaryStateSerializer stateSerializer = new BinaryStateSerializer();
+
+        StreamEvent first = new StreamEvent(0, 0, 1);
+        first.setOutputData(new Object[]{"IBM"});
+        StreamEvent second = new StreamEvent(0, 0, 1);
+        second.setOutputData(new Object[]{"WSO2"});
+        StreamEvent third = new StreamEvent(0, 0, 1);
+        third.setOutputData(new Object[]{"GOOG"});
+        first.setNext(second);
+        second.setNext(third);
+
+        List<StreamEvent> lastEvents = new ArrayList<>();
+        lastEvents.add(third);
+        List<StreamEvent> middleEvents = new ArrayList<>();
+        middleEvents.add(second);
+        BigDecimal total = new BigDecimal("1234.5678");
+
+        Map<String, Object> state = new LinkedHashMap<>();
+        state.put("LastEvents", lastEvents);
+        state.put("Events", first);
+        state.put("MiddleEvents", middleEvents);
+        state.put("Total", new AtomicReference<>(total));
+        state.put("SameTotal", new AtomicReference<>(total));
+
+        Map<String, Object> restored = (Map<String, Object>) stateSerializer.deserialize(
+                stateSerializer.serialize(state, siddhiAppContext), siddhiAppContext);
+        StreamEvent restoredFirst = (StreamEvent) restored.get("Events");
+        StreamEvent restoredSecond = restoredFirst.getNext();
+        StreamEvent restoredThird = restoredSecond.getNext();
+        AssertJUnit.assertEquals("IBM", restoredFirst.getOutputData()[0]);
+        AssertJUnit.assertEquals("WSO2", restoredSecond.getOutputData()[0]);
+        AssertJUnit.assertEquals("GOOG", restoredThird.getOutputData()[0]);
+        AssertJUnit.assertNull(restoredThird.getNext());
+        AssertJUnit.assertSame(restoredThird, ((List<StreamEvent>) restored.get("LastEvents")).get(0));
+        AssertJUnit.assertSame(restoredSecond, ((List<StreamEvent>) restored.get("MiddleEvents")).get(0));
+
+        BigDecimal restoredTotal = ((AtomicReference<BigDecimal>) restored.get("Total")).get();
+        AssertJUnit.assertEquals(total, restoredTotal);
+        AssertJUnit.assertSame(restoredTotal, ((AtomicReference<BigDecimal>) restored.get("SameTotal")).get());
+    }
+}
@@ -0,0 +1,383 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.core.managment;
+
+import io.siddhi.core.SiddhiAppRuntime;
+import io.siddhi.core.SiddhiManager;
+import io.siddhi.core.event.Event;
+import io.siddhi.core.exception.CannotRestoreSiddhiAppStateException;
+import io.siddhi.core.query.output.callback.QueryCallback;
+import io.siddhi.core.stream.input.InputHandler;
+import io.siddhi.core.util.EventPrinter;
+import io.siddhi.core.util.persistence.FileSystemPersistenceStore;
+import io.siddhi.core.util.persistence.IncrementalFileSystemPersistenceStore;
+import io.siddhi.core.util.persistence.PersistenceStore;
+import io.siddhi.core.util.persistence.util.PersistenceConstants;
+import io.siddhi.core.util.persistence.util.SnapshotCodec;
+import io.siddhi.core.util.snapshot.PersistenceReference;
+import org.apache.log4j.Logger;
+import org.testng.Assert;
+import org.testng.AssertJUnit;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+
+public class StreamingPersistenceTestCase {
+    private static final Logger log = Logger.getLogger(StreamingPersistenceTestCase.class);
+    private int count;
+    private Long lastValue;
+    private String storageFilePath = "./target/temp-streaming";
+
+    @BeforeMethod
+    public void init() {
+        count = 0;
+        lastValue = 0L;
+    }
+
+    @Test
+    public void streamingPersistenceTest1() throws InterruptedException, ExecutionException {
+        log.info("streaming persistence test 1 - window query persisted to the file system");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        siddhiManager.setPersistenceStore(createFileSystemPersistenceStore("none"));
+
+        String siddhiApp = "" +
+                "@app:name('StreamingPersistenceTest') " +
+                "@app:snapshot(mode='copy', serializer='binary') " +
+                "" +
+                "define stream StockStream ( symbol string, price float, volume int );" +
+                "" +
+                "@info(name = 'query1')" +
+                "from StockStream[price>10]#window.length(10) " +
+                "select symbol, price, sum(volume) as totalVol " +
+                "insert into OutStream ";
+
+        QueryCallback queryCallback = new QueryCallback() {
+            @Override
+            public void receive(long timestamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timestamp, inEvents, removeEvents);
+                for (Event inEvent : inEvents) {
+                    count++;
+                    lastValue = (Long) inEvent.getData(2);
+                }
+            }
+        };
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        siddhiAppRuntime.addCallback("query1", queryCallback);
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("StockStream");
+        siddhiAppRuntime.start();
+        siddhiAppRuntime.clearAllRevisions();
+
+        inputHandler.send(new Object[]{"IBM", 75.6f, 100});
+        inputHandler.send(new Object[]{"WSO2", 75.6f, 100});
+
+        PersistenceReference persistenceReference = siddhiAppRuntime.persist();
+        persistenceReference.getFuture().get();
+        inputHandler.send(new Object[]{"IBM", 75.6f, 100});
+
+        siddhiAppRuntime.shutdown();
+        siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        siddhiAppRuntime.addCallback("query1", queryCallback);
+        inputHandler = siddhiAppRuntime.getInputHandler("StockStream");
+        siddhiAppRuntime.start();
+
+        try {
+            siddhiAppRuntime.restoreLastRevision();
+        } catch (CannotRestoreSiddhiAppStateException e) {
+            Assert.fail("Restoring of Siddhi app " + siddhiAppRuntime.getName() + " failed", e);
+        }
+
+        inputHandler.send(new Object[]{"WSO2", 75.6f, 100});
+        siddhiAppRuntime.clearAllRevisions();
+        siddhiAppRuntime.shutdown();
+
+        AssertJUnit.assertEquals(4, count);
+        AssertJUnit.assertEquals(new Long(300), lastValue);
+    }
+
+    @Test
+    public void streamingPersistenceTest2() throws InterruptedException, IOException {
+        log.info("streaming persistence test 2 - snapshot written to and restored from a stream");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+
+        String siddhiApp = "" +
+                "@app:name('StreamingPersistenceTest') " +
+                "" +
+                "define stream StockStream ( symbol string, price float, volume int );" +
+                "" +
+                "@info(name = 'query1')" +
+                "from StockStream[price>10]#window.length(10) " +
+                "select symbol, price, sum(volume) as totalVol " +
+                "insert into OutStream ";
+
+        QueryCallback queryCallback = new QueryCallback() {
+            @Override
+            public void receive(long timestamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timestamp, inEvents, removeEvents);
+                for (Event inEvent : inEvents) {
+                    count++;
+                    lastValue = (Long) inEvent.getData(2);
+                }
+            }
+        };
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        siddhiAppRuntime.addCallback("query1", queryCallback);
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("StockStream");
+        siddhiAppRuntime.start();
+
+        inputHandler.send(new Object[]{"IBM", 75.6f, 100});
+        inputHandler.send(new Object[]{"WSO2", 75.6f, 100});
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        siddhiAppRuntime.snapshot(outputStream);
+        inputHandler.send(new Object[]{"IBM", 75.6f, 100});
+
+        try {
+            siddhiAppRuntime.restore(new ByteArrayInputStream(outputStream.toByteArray()));
+        } catch (CannotRestoreSiddhiAppStateException e) {
+            Assert.fail("Restoring of Siddhi app " + siddhiAppRuntime.getName() + " failed", e);
+        }
+
+        inputHandler.send(new Object[]{"WSO2", 75.6f, 100});
+        siddhiAppRuntime.shutdown();
+
+        AssertJUnit.assertEquals(4, count);
+        AssertJUnit.assertEquals(new Long(300), lastValue);
+    }
+
+    @Test
+    public void streamingPersistenceTest3() throws InterruptedException, ExecutionException {
+        log.info("streaming persistence test 3 - compressed snapshots restored by a store using another codec");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        siddhiManager.setPersistenceStore(createFileSystemPersistenceStore("lz4"));
+
+        String siddhiApp = "" +
+                "@app:name('CompressedPersistenceTest') " +
+                "" +
+                "define stream StockStream ( symbol string, price float, volume int );" +
+                "" +
+                "@info(name = 'query1')" +
+                "from StockStream[price>10]#window.length(10) " +
+                "select symbol, price, sum(volume) as totalVol " +
+                "insert into OutStream ";
+
+        QueryCallback queryCallback = new QueryCallback() {
+            @Override
+            public void receive(long timestamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timestamp, inEvents, removeEvents);
+                for (Event inEvent : inEvents) {
+                    count++;
+                    lastValue = (Long) inEvent.getData(2);
+                }
+            }
+        };
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        siddhiAppRuntime.addCallback("query1", queryCallback);
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("StockStream");
+        siddhiAppRuntime.start();
+        siddhiAppRuntime.clearAllRevisions();
+
+        for (int i = 0; i < 10; i++) {
+            inputHandler.send(new Object[]{"IBM", 75.6f, 100});
+        }
+        siddhiAppRuntime.persist().getFuture().get();
+        inputHandler.send(new Object[]{"WSO2", 75.6f, 200});
+        siddhiAppRuntime.shutdown();
+
+        siddhiManager.setPersistenceStore(createFileSystemPersistenceStore("deflate"));
+        siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        siddhiAppRuntime.addCallback("query1", queryCallback);
+        inputHandler = siddhiAppRuntime.getInputHandler("StockStream");
+        siddhiAppRuntime.start();
+
+        try {
+            siddhiAppRuntime.restoreLastRevision();
+        } catch (CannotRestoreSiddhiAppStateException e) {
+            Assert.fail("Restoring of Siddhi app " + siddhiAppRuntime.getName() + " failed", e);
+        }
+
+        inputHandler.send(new Object[]{"WSO2", 75.6f, 200});
+        siddhiAppRuntime.clearAllRevisions();
+        siddhiAppRuntime.shutdown();
+
+        AssertJUnit.assertEquals(12, count);
+        AssertJUnit.assertEquals(new Long(1100), lastValue);
+    }
+
+    @Test
+    public void streamingPersistenceTest4() throws InterruptedException, ExecutionException {
+        log.info("streaming persistence test 4 - compressed incremental snapshots");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        siddhiManager.setIncrementalPersistenceStore(new IncrementalFileSystemPersistenceStore(storageFilePath,
+                SnapshotCodec.DEFLATE));
+
+        String siddhiApp = "" +
+                "@app:name('CompressedIncrementalPersistenceTest') " +
+                "" +
+                "define stream StockStream ( symbol string, price float, volume int );" +
+                "" +
+                "@info(name = 'query1')" +
+                "from StockStream[price>10]#window.length(10) " +
+                "select symbol, price, sum(volume) as totalVol " +
+                "insert into OutStream ";
+
+        QueryCallback queryCallback = new QueryCallback() {
+            @Override
+            public void receive(long timestamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timestamp, inEvents, removeEvents);
+                for (Event inEvent : inEvents) {
+                    count++;
+                    lastValue = (Long) inEvent.getData(2);
+                }
+            }
+        };
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        siddhiAppRuntime.addCallback("query1", queryCallback);
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("StockStream");
+        siddhiAppRuntime.start();
+        siddhiAppRuntime.clearAllRevisions();
+
+        inputHandler.send(new Object[]{"IBM", 75.6f, 100});
+        inputHandler.send(new Object[]{"WSO2", 75.6f, 100});
+        siddhiAppRuntime.persist();
+        Thread.sleep(1000);
+        inputHandler.send(new Object[]{"IBM", 75.6f, 100});
+        siddhiAppRuntime.persist();
+        Thread.sleep(1000);
+        siddhiAppRuntime.shutdown();
+
+        siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        siddhiAppRuntime.addCallback("query1", queryCallback);
+        inputHandler = siddhiAppRuntime.getInputHandler("StockStream");
+        siddhiAppRuntime.start();
+
+        try {
+            siddhiAppRuntime.restoreLastRevision();
+        } catch (CannotRestoreSiddhiAppStateException e) {
+            Assert.fail("Restoring of Siddhi app " + siddhiAppRuntime.getName() + " failed", e);
+        }
+
+        inputHandler.send(new Object[]{"WSO2", 75.6f, 100});
+        siddhiAppRuntime.clearAllRevisions();
+        siddhiAppRuntime.shutdown();
+
+        AssertJUnit.assertEquals(4, count);
+        AssertJUnit.assertEquals(new Long(400), lastValue);
+    }
+
+    @Test
+    public void streamingPersistenceTest5() throws IOException {
+        log.info("streamingPersistenceTest5 - lz4 round trip of compressible data spanning several blocks");
+
+        Random random = new Random(42);
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        while (data.size() < 200000) {
+            byte[] literals = new byte[20 + random.nextInt(300)];
+            random.nextBytes(literals);
+            data.write(literals);
+            // a run of a single byte is compressed to a match overlapping the bytes it copies
+            byte[] run = new byte[1 + random.nextInt(1000)];
+            Arrays.fill(run, (byte) random.nextInt());
+            data.write(run);
+            // a repeat of the literals is compressed to a match longer than 15 bytes
+            data.write(literals);
+        }
+        byte[] bytes = data.toByteArray();
+
+        byte[] encoded = encode(SnapshotCodec.LZ4, bytes);
+        AssertJUnit.assertTrue("Data is compressed", encoded.length < bytes.length * 3 / 4);
+        Assert.assertEquals(decode(encoded), bytes);
+    }
+
+    @Test
+    public void streamingPersistenceTest6() throws IOException {
+        log.info("streamingPersistenceTest6 - lz4 round trip of incompressible data stored in raw blocks");
+
+        byte[] bytes = new byte[150000];
+        new Random(42).nextBytes(bytes);
+
+        byte[] encoded = encode(SnapshotCodec.LZ4, bytes);
+        DataInputStream blocks = new DataInputStream(new ByteArrayInputStream(encoded, 5, encoded.length - 5));
+        AssertJUnit.assertEquals("Block length", 65536, blocks.readInt());
+        AssertJUnit.assertEquals("Block is raw", 65536 | 0x80000000, blocks.readInt());
+        AssertJUnit.assertTrue("Raw blocks add little overhead", encoded.length < bytes.length + 64);
+        Assert.assertEquals(decode(encoded), bytes);
+
+        Assert.assertEquals(decode(encode(SnapshotCodec.LZ4, new byte[0])), new byte[0]);
+    }
+
+    private byte[] encode(SnapshotCodec codec, byte[] bytes) throws IOException {
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        try (OutputStream outputStream = codec.encode(encoded)) {
+            outputStream.write(bytes, 0, Math.min(bytes.length, 1000));
+            for (int i = 1000; i < Math.min(bytes.length, 1100); i++) {
+                outputStream.write(bytes[i]);
+            }
+            if (bytes.length > 1100) {
+                outputStream.write(bytes, 1100, bytes.length - 1100);
+            }
+        }
+        return encoded.toByteArray();
+    }
+
+    private byte[] decode(byte[] encoded) throws IOException {
+        ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+        try (InputStream inputStream = SnapshotCodec.decode(new ByteArrayInputStream(encoded))) {
+            byte[] buffer = new byte[7001];
+            int read;
+            while ((read = inputStream.read(buffer)) >= 0) {
+                decoded.write(buffer, 0, read);
+                int b = inputStream.read();
+                if (b >= 0) {
+                    decoded.write(b);
+                }
+            }
+        }
+        return decoded.toByteArray();
+    }
+
+    private PersistenceStore createFileSystemPersistenceStore(String compression) {
+        Map<String, Object> configs = new HashMap<>();
+        configs.put("location", storageFilePath);
+        configs.put(PersistenceConstants.STATE_PERSISTENCE_COMPRESSION, compression);
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(PersistenceConstants.STATE_PERSISTENCE_CONFIGS, configs);
+        PersistenceStore persistenceStore = new FileSystemPersistenceStore();
+        persistenceStore.setProperties(properties);
+        return persistenceStore;
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.core.managment;
+
+import io.siddhi.core.util.ThreadBarrier;
+import org.apache.log4j.Logger;
+import org.testng.AssertJUnit;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class ThreadBarrierTestCase {
+    private static final Logger log = Logger.getLogger(ThreadBarrierTestCase.class);
+
+    @Test
+    public void threadBarrierTest1() throws InterruptedException {
+        log.info("thread barrier test 1 - quiescence after the last active thread exits");
+
+        final ThreadBarrier threadBarrier = new ThreadBarrier();
+        final CountDownLatch entered = new CountDownLatch(1);
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                threadBarrier.enter();
+                entered.countDown();
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    threadBarrier.exit();
+                }
+            }
+        });
+        thread.start();
+        entered.await();
+
+        threadBarrier.lock();
+        try {
+            long start = System.currentTimeMillis();
+            AssertJUnit.assertTrue(threadBarrier.awaitQuiescence(10, TimeUnit.SECONDS));
+            AssertJUnit.assertTrue(System.currentTimeMillis() - start < 1000);
+            AssertJUnit.assertEquals(0, threadBarrier.getActiveThreads());
+        } finally {
+            threadBarrier.unlock();
+        }
+        thread.join();
+    }
+
+    @Test
+    public void threadBarrierTest2() throws InterruptedException {
+        log.info("thread barrier test 2 - quiescence timeout");
+
+        ThreadBarrier threadBarrier = new ThreadBarrier();
+        threadBarrier.enter();
+        threadBarrier.lock();
+        try {
+            AssertJUnit.assertFalse(threadBarrier.awaitQuiescence(50, TimeUnit.MILLISECONDS));
+            AssertJUnit.assertEquals(1, threadBarrier.getActiveThreads());
+        } finally {
+            threadBarrier.unlock();
+            threadBarrier.exit();
+        }
+        AssertJUnit.assertTrue(threadBarrier.awaitQuiescence(0, TimeUnit.MILLISECONDS));
+    }
+}
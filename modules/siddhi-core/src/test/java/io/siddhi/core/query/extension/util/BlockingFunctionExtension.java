@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.core.query.extension.util;
+
+import io.siddhi.core.config.SiddhiQueryContext;
+import io.siddhi.core.executor.ExpressionExecutor;
+import io.siddhi.core.executor.function.FunctionExecutor;
+import io.siddhi.core.util.config.ConfigReader;
+import io.siddhi.core.util.snapshot.state.State;
+import io.siddhi.core.util.snapshot.state.StateFactory;
+import io.siddhi.query.api.definition.Attribute;
+
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Function returning its argument, which blocks until released once latches are set, used to hold a query in the
+ * middle of its processing.
+ */
+public class BlockingFunctionExtension extends FunctionExecutor {
+
+    private static volatile CountDownLatch blockedLatch;
+    private static volatile CountDownLatch releaseLatch;
+
+    private Attribute.Type returnType;
+
+    /**
+     * Sets the latches of the next call, null latches disable blocking.
+     *
+     * @param blockedLatch counted down when the call blocks
+     * @param releaseLatch awaited by the call
+     */
+    public static void setLatches(CountDownLatch blockedLatch, CountDownLatch releaseLatch) {
+        BlockingFunctionExtension.blockedLatch = blockedLatch;
+        BlockingFunctionExtension.releaseLatch = releaseLatch;
+    }
+
+    @Override
+    protected StateFactory init(ExpressionExecutor[] attributeExpressionExecutors, ConfigReader configReader,
+                                SiddhiQueryContext siddhiQueryContext) {
+        returnType = attributeExpressionExecutors[0].getReturnType();
+        return null;
+    }
+
+    @Override
+    protected Object execute(Object[] data, State state) {
+        return execute(data[0], state);
+    }
+
+    @Override
+    protected Object execute(Object data, State state) {
+        CountDownLatch blocked = blockedLatch;
+        CountDownLatch release = releaseLatch;
+        if (blocked != null && release != null) {
+            blocked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return data;
+    }
+
+    @Override
+    public Attribute.Type getReturnType() {
+        return returnType;
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.core.query.extension.util;
+
+import io.siddhi.core.config.SiddhiAppContext;
+import io.siddhi.core.config.SiddhiQueryContext;
+import io.siddhi.core.executor.ExpressionExecutor;
+import io.siddhi.core.executor.function.FunctionExecutor;
+import io.siddhi.core.util.config.ConfigReader;
+import io.siddhi.core.util.snapshot.state.State;
+import io.siddhi.core.util.snapshot.state.StateFactory;
+import io.siddhi.query.api.definition.Attribute;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Function counting the events it is called for, which notifies the listener with the partition key of each of its
+ * states that is restored.
+ */
+public class RestoreTrackingCountFunctionExtension
+        extends FunctionExecutor<RestoreTrackingCountFunctionExtension.CountState> {
+
+    private static volatile Consumer<String> restoreListener;
+
+    public static void setRestoreListener(Consumer<String> restoreListener) {
+        RestoreTrackingCountFunctionExtension.restoreListener = restoreListener;
+    }
+
+    @Override
+    protected StateFactory<CountState> init(ExpressionExecutor[] attributeExpressionExecutors,
+                                            ConfigReader configReader, SiddhiQueryContext siddhiQueryContext) {
+        return CountState::new;
+    }
+
+    @Override
+    protected Object execute(Object[] data, CountState state) {
+        return ++state.count;
+    }
+
+    @Override
+    protected Object execute(Object data, CountState state) {
+        return ++state.count;
+    }
+
+    @Override
+    public Attribute.Type getReturnType() {
+        return Attribute.Type.LONG;
+    }
+
+    static class CountState extends State {
+        private long count;
+
+        @Override
+        public boolean canDestroy() {
+            return false;
+        }
+
+        @Override
+        public Map<String, Object> snapshot() {
+            Map<String, Object> state = new HashMap<>();
+            state.put("Count", count);
+            return state;
+        }
+
+        @Override
+        public void restore(Map<String, Object> state) {
+            count = (long) state.get("Count");
+            Consumer<String> listener = restoreListener;
+            if (listener != null) {
+                listener.accept(SiddhiAppContext.getPartitionFlowId());
+            }
+        }
+    }
+}
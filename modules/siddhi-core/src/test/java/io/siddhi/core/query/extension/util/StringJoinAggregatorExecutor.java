@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.siddhi.core.query.extension.util;
+
+import io.siddhi.annotation.Example;
+import io.siddhi.annotation.Extension;
+import io.siddhi.annotation.Parameter;
+import io.siddhi.annotation.ReturnAttribute;
+import io.siddhi.annotation.util.DataType;
+import io.siddhi.core.config.SiddhiQueryContext;
+import io.siddhi.core.executor.ExpressionExecutor;
+import io.siddhi.core.query.selector.attribute.aggregator.AssociativeAttributeAggregatorExecutor;
+import io.siddhi.core.util.config.ConfigReader;
+import io.siddhi.query.api.definition.Attribute.Type;
+
+@Extension(
+        name = "join",
+        namespace = "custom",
+        description = "Return the values joined with ',' in their arrival order.",
+        parameters = {
+                @Parameter(name = "arg",
+                        description = "The value that need to be joined.",
+                        type = {DataType.STRING})
+        },
+        returnAttributes = @ReturnAttribute(
+                description = "Returns the joined value as a string.",
+                type = {DataType.STRING}),
+        examples = @Example(
+                syntax = "from inputStream#window.length(3)\n" +
+                        "select custom:join(symbol) as symbols\n" +
+                        "insert into outputStream;",
+                description = "This will join the symbols of the last 3 events."
+        )
+)
+public class StringJoinAggregatorExecutor extends AssociativeAttributeAggregatorExecutor<String> {
+
+    @Override
+    protected void init(ExpressionExecutor[] attributeExpressionExecutors, ConfigReader configReader,
+                        SiddhiQueryContext siddhiQueryContext) {
+    }
+
+    @Override
+    protected String lift(Object data) {
+        return (String) data;
+    }
+
+    @Override
+    protected String lift(Object[] data) {
+        StringBuilder stringBuilder = new StringBuilder();
+        for (Object aData : data) {
+            stringBuilder.append(aData);
+        }
+        return stringBuilder.toString();
+    }
+
+    @Override
+    protected String combine(String older, String newer) {
+        return older + "," + newer;
+    }
+
+    @Override
+    protected Object lower(String aggregate) {
+        return aggregate == null ? "" : aggregate;
+    }
+
+    @Override
+    public Type getReturnType() {
+        return Type.STRING;
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.core.query.selector.attribute.aggregator;
+
+import io.siddhi.core.SiddhiAppRuntime;
+import io.siddhi.core.SiddhiManager;
+import io.siddhi.core.event.Event;
+import io.siddhi.core.query.extension.util.StringJoinAggregatorExecutor;
+import io.siddhi.core.stream.input.InputHandler;
+import io.siddhi.core.stream.output.StreamCallback;
+import io.siddhi.core.util.EventPrinter;
+import org.apache.log4j.Logger;
+import org.testng.AssertJUnit;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+public class AssociativeAttributeAggregatorExecutorTestCase {
+
+    private static final Logger log = Logger.getLogger(AssociativeAttributeAggregatorExecutorTestCase.class);
+    private List<Object> results;
+
+    @BeforeMethod
+    public void init() {
+        results = new ArrayList<>();
+    }
+
+    @Test
+    public void associativeAggregatorTest1() throws InterruptedException {
+        log.info("Associative aggregator over length window");
+        SiddhiManager siddhiManager = new SiddhiManager();
+        siddhiManager.setExtension("custom:join", StringJoinAggregatorExecutor.class);
+
+        String inStreamDefinition = "" +
+                "define stream inputStream (symbol string, price float); ";
+        String query = "" +
+                "@info(name = 'query1') " +
+                "from inputStream#window.length(3) " +
+                "select custom:join(symbol) as symbols " +
+                "insert into outputStream; ";
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(inStreamDefinition + query);
+        siddhiAppRuntime.addCallback("outputStream", new StreamCallback() {
+            @Override
+            public void receive(Event[] events) {
+                EventPrinter.print(events);
+                for (Event event : events) {
+                    results.add(event.getData(0));
+                }
+            }
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("inputStream");
+        siddhiAppRuntime.start();
+        inputHandler.send(new Object[]{"A", 10f});
+        inputHandler.send(new Object[]{"B", 20f});
+        inputHandler.send(new Object[]{"C", 30f});
+        inputHandler.send(new Object[]{"D", 40f});
+        inputHandler.send(new Object[]{"A", 50f});
+        siddhiAppRuntime.shutdown();
+
+        AssertJUnit.assertEquals(5, results.size());
+        AssertJUnit.assertEquals("A", results.get(0));
+        AssertJUnit.assertEquals("A,B", results.get(1));
+        AssertJUnit.assertEquals("A,B,C", results.get(2));
+        AssertJUnit.assertEquals("B,C,D", results.get(3));
+        AssertJUnit.assertEquals("C,D,A", results.get(4));
+    }
+
+    @Test
+    public void associativeAggregatorTest2() throws InterruptedException {
+        log.info("Associative aggregator over length window with group by");
+        SiddhiManager siddhiManager = new SiddhiManager();
+        siddhiManager.setExtension("custom:join", StringJoinAggregatorExecutor.class);
+
+        String inStreamDefinition = "" +
+                "define stream inputStream (symbol string, user string); ";
+        String query = "" +
+                "@info(name = 'query1') " +
+                "from inputStream#window.length(4) " +
+                "select user, custom:join(symbol) as symbols " +
+                "group by user " +
+                "insert into outputStream; ";
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(inStreamDefinition + query);
+        siddhiAppRuntime.addCallback("outputStream", new StreamCallback() {
+            @Override
+            public void receive(Event[] events) {
+                EventPrinter.print(events);
+                for (Event event : events) {
+                    results.add(event.getData(0) + ":" + event.getData(1));
+                }
+            }
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("inputStream");
+        siddhiAppRuntime.start();
+        inputHandler.send(new Object[]{"A", "u1"});
+        inputHandler.send(new Object[]{"B", "u2"});
+        inputHandler.send(new Object[]{"C", "u1"});
+        inputHandler.send(new Object[]{"D", "u2"});
+        inputHandler.send(new Object[]{"E", "u1"});
+        inputHandler.send(new Object[]{"F", "u1"});
+        siddhiAppRuntime.shutdown();
+
+        AssertJUnit.assertEquals(6, results.size());
+        AssertJUnit.assertEquals("u1:A", results.get(0));
+        AssertJUnit.assertEquals("u2:B", results.get(1));
+        AssertJUnit.assertEquals("u1:A,C", results.get(2));
+        AssertJUnit.assertEquals("u2:B,D", results.get(3));
+        AssertJUnit.assertEquals("u1:C,E", results.get(4));
+        AssertJUnit.assertEquals("u1:C,E,F", results.get(5));
+    }
+
+    @Test
+    public void associativeAggregatorTest3() throws InterruptedException {
+        log.info("Associative aggregator over length batch window");
+        SiddhiManager siddhiManager = new SiddhiManager();
+        siddhiManager.setExtension("custom:join", StringJoinAggregatorExecutor.class);
+
+        String inStreamDefinition = "" +
+                "define stream inputStream (symbol string, price float); ";
+        String query = "" +
+                "@info(name = 'query1') " +
+                "from inputStream#window.lengthBatch(2) " +
+                "select custom:join(symbol) as symbols " +
+                "insert into outputStream; ";
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(inStreamDefinition + query);
+        siddhiAppRuntime.addCallback("outputStream", new StreamCallback() {
+            @Override
+            public void receive(Event[] events) {
+                EventPrinter.print(events);
+                for (Event event : events) {
+                    results.add(event.getData(0));
+                }
+            }
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("inputStream");
+        siddhiAppRuntime.start();
+        inputHandler.send(new Object[]{"A", 10f});
+        inputHandler.send(new Object[]{"B", 20f});
+        inputHandler.send(new Object[]{"C", 30f});
+        inputHandler.send(new Object[]{"D", 40f});
+        siddhiAppRuntime.shutdown();
+
+        AssertJUnit.assertEquals(2, results.size());
+        AssertJUnit.assertEquals("A,B", results.get(0));
+        AssertJUnit.assertEquals("C,D", results.get(1));
+    }
+
+    @Test
+    public void twoStacksSlidingAggregatorTest() {
+        log.info("Two stacks sliding aggregator against a recomputed aggregate");
+        TwoStacksSlidingAggregator<String> slidingAggregator =
+                new TwoStacksSlidingAggregator<>((older, newer) -> older + newer, true);
+        LinkedList<String> window = new LinkedList<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 10000; i++) {
+            if (window.isEmpty() || random.nextInt(3) != 0) {
+                String value = String.valueOf((char) ('a' + random.nextInt(26)));
+                window.addLast(value);
+                slidingAggregator.add(value);
+            } else if (random.nextInt(10) == 0) {
+                String value = window.get(random.nextInt(window.size()));
+                window.removeFirstOccurrence(value);
+                AssertJUnit.assertTrue(slidingAggregator.evict(value));
+            } else {
+                AssertJUnit.assertTrue(slidingAggregator.evict(window.removeFirst()));
+            }
+            StringBuilder expected = new StringBuilder();
+            for (String value : window) {
+                expected.append(value);
+            }
+            AssertJUnit.assertEquals(window.size(), slidingAggregator.size());
+            AssertJUnit.assertEquals(expected.length() == 0 ? null : expected.toString(), slidingAggregator.query());
+        }
+    }
+
+    @Test
+    public void twoStacksSlidingAggregatorEvictAbsentTest() {
+        log.info("Two stacks sliding aggregator evicting a value not in the window");
+        TwoStacksSlidingAggregator<String> slidingAggregator =
+                new TwoStacksSlidingAggregator<>((older, newer) -> older + newer, true);
+        slidingAggregator.add("a");
+        slidingAggregator.add("b");
+        slidingAggregator.add("c");
+        AssertJUnit.assertFalse(slidingAggregator.evict("x"));
+        AssertJUnit.assertEquals(3, slidingAggregator.size());
+        AssertJUnit.assertEquals("abc", slidingAggregator.query());
+        AssertJUnit.assertTrue(slidingAggregator.evict("a"));
+        AssertJUnit.assertFalse(slidingAggregator.evict("a"));
+        AssertJUnit.assertEquals("bc", slidingAggregator.query());
+    }
+}
@@ -2233,4 +2233,72 @@ public class IndexTableTestCase {
         }
     }
 
+    @Test
+    public void indexTableTest34() throws InterruptedException {
+        log.info("indexTableTest34");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        String streams = "" +
+                "define stream StockStream (symbol string, price float, volume long); " +
+                "define stream CheckStockStream (minPrice float, maxVolume long); " +
+                "@Index('price', 'volume') " +
+                "define table StockTable (symbol string, price float, volume long); ";
+        String query = "" +
+                "@info(name = 'query1') " +
+                "from StockStream " +
+                "insert into StockTable ;" +
+                "" +
+                "@info(name = 'query2') " +
+                "from CheckStockStream join StockTable " +
+                " on StockTable.price > CheckStockStream.minPrice and StockTable.volume < CheckStockStream.maxVolume " +
+                "select StockTable.symbol " +
+                "insert into OutStream;";
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams + query);
+        try {
+            siddhiAppRuntime.addCallback("query2", new QueryCallback() {
+                @Override
+                public void receive(long timestamp, Event[] inEvents, Event[] removeEvents) {
+                    EventPrinter.print(timestamp, inEvents, removeEvents);
+                    if (inEvents != null) {
+                        for (Event event : inEvents) {
+                            inEventsList.add(event.getData());
+                            inEventCount.incrementAndGet();
+                        }
+                        eventArrived = true;
+                    }
+                    if (removeEvents != null) {
+                        removeEventCount = removeEventCount + removeEvents.length;
+                    }
+                    eventArrived = true;
+                }
+            });
+
+            InputHandler stockStream = siddhiAppRuntime.getInputHandler("StockStream");
+            InputHandler checkStockStream = siddhiAppRuntime.getInputHandler("CheckStockStream");
+
+            siddhiAppRuntime.start();
+            for (int i = 0; i < 100; i++) {
+                stockStream.send(new Object[]{"S" + i, (float) i, (long) (100 - i)});
+            }
+            checkStockStream.send(new Object[]{20f, 75L});
+            checkStockStream.send(new Object[]{97f, 50L});
+
+            List<Object[]> expected = new ArrayList<>();
+            for (int i = 26; i < 100; i++) {
+                expected.add(new Object[]{"S" + i});
+            }
+            expected.add(new Object[]{"S98"});
+            expected.add(new Object[]{"S99"});
+            SiddhiTestHelper.waitForEvents(100, 76, inEventCount, 60000);
+            AssertJUnit.assertEquals("In events matched", true, SiddhiTestHelper.isUnsortedEventsMatch(inEventsList,
+                    expected));
+            AssertJUnit.assertEquals("Number of success events", 76, inEventCount.get());
+            AssertJUnit.assertEquals("Number of remove events", 0, removeEventCount);
+            AssertJUnit.assertEquals("Event arrived", true, eventArrived);
+        } finally {
+            siddhiAppRuntime.shutdown();
+        }
+    }
+
 }
@@ -0,0 +1,314 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.core.query.table;
+
+import io.siddhi.core.SiddhiAppRuntime;
+import io.siddhi.core.SiddhiManager;
+import io.siddhi.core.event.Event;
+import io.siddhi.core.query.output.callback.QueryCallback;
+import io.siddhi.core.stream.input.InputHandler;
+import io.siddhi.core.util.EventPrinter;
+import io.siddhi.core.util.SiddhiTestHelper;
+import org.apache.log4j.Logger;
+import org.testng.AssertJUnit;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class MemoryMappedTableTestCase {
+    private static final Logger log = Logger.getLogger(MemoryMappedTableTestCase.class);
+    private AtomicInteger inEventCount = new AtomicInteger(0);
+    private List<Object[]> inEventsList;
+    private File directory;
+
+    @BeforeMethod
+    public void init() throws IOException {
+        inEventCount.set(0);
+        inEventsList = new ArrayList<Object[]>();
+        directory = Files.createTempDirectory("siddhi-mmap-table").toFile();
+    }
+
+    @AfterMethod
+    public void cleanUp() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    private String siddhiApp() {
+        return "" +
+                "define stream StockStream (symbol string, price float, volume long); " +
+                "define stream UpdateStockStream (symbol string, volume long); " +
+                "define stream DeleteStockStream (symbol string); " +
+                "define stream CheckStockStream (minVolume long); " +
+                "@store(type='mmap', path='" + directory.getAbsolutePath().replace("\\", "/") + "', " +
+                "   segment.size='1024') " +
+                "@PrimaryKey('symbol') " +
+                "define table StockTable (symbol string, price float, volume long); " +
+                "" +
+                "@info(name = 'query1') " +
+                "from StockStream " +
+                "insert into StockTable ;" +
+                "" +
+                "@info(name = 'query2') " +
+                "from UpdateStockStream " +
+                "update StockTable " +
+                "   set StockTable.volume = volume " +
+                "   on StockTable.symbol == symbol ;" +
+                "" +
+                "@info(name = 'query3') " +
+                "from DeleteStockStream " +
+                "delete StockTable " +
+                "   on StockTable.symbol == symbol ;" +
+                "" +
+                "@info(name = 'query4') " +
+                "from CheckStockStream join StockTable " +
+                " on StockTable.volume >= CheckStockStream.minVolume " +
+                "select StockTable.symbol, StockTable.price, StockTable.volume " +
+                "insert into OutStream;";
+    }
+
+    private SiddhiAppRuntime createSiddhiAppRuntime(SiddhiManager siddhiManager) {
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp());
+        siddhiAppRuntime.addCallback("query4", new QueryCallback() {
+            @Override
+            public void receive(long timestamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timestamp, inEvents, removeEvents);
+                if (inEvents != null) {
+                    for (Event event : inEvents) {
+                        inEventsList.add(event.getData());
+                        inEventCount.incrementAndGet();
+                    }
+                }
+            }
+        });
+        siddhiAppRuntime.start();
+        return siddhiAppRuntime;
+    }
+
+    @Test
+    public void memoryMappedTableTest1() throws InterruptedException {
+        log.info("memoryMappedTableTest1 - rows survive a restart after updates, deletes and compactions");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = createSiddhiAppRuntime(siddhiManager);
+        try {
+            InputHandler stockStream = siddhiAppRuntime.getInputHandler("StockStream");
+            InputHandler updateStockStream = siddhiAppRuntime.getInputHandler("UpdateStockStream");
+            InputHandler deleteStockStream = siddhiAppRuntime.getInputHandler("DeleteStockStream");
+            for (int i = 0; i < 30; i++) {
+                stockStream.send(new Object[]{"S" + i, 1.5f, (long) i});
+            }
+            for (int k = 1; k <= 10; k++) {
+                for (int i = 0; i < 30; i++) {
+                    updateStockStream.send(new Object[]{"S" + i, (long) (k * 100 + i)});
+                }
+            }
+            for (int i = 0; i < 10; i++) {
+                deleteStockStream.send(new Object[]{"S" + i});
+            }
+        } finally {
+            siddhiAppRuntime.shutdown();
+        }
+
+        siddhiAppRuntime = createSiddhiAppRuntime(siddhiManager);
+        try {
+            siddhiAppRuntime.getInputHandler("CheckStockStream").send(new Object[]{0L});
+
+            List<Object[]> expected = new ArrayList<>();
+            for (int i = 10; i < 30; i++) {
+                expected.add(new Object[]{"S" + i, 1.5f, (long) (1000 + i)});
+            }
+            SiddhiTestHelper.waitForEvents(100, 20, inEventCount, 60000);
+            AssertJUnit.assertEquals("In events matched", true,
+                    SiddhiTestHelper.isUnsortedEventsMatch(inEventsList, expected));
+            AssertJUnit.assertEquals("Number of success events", 20, inEventCount.get());
+        } finally {
+            siddhiAppRuntime.shutdown();
+        }
+    }
+
+    @Test
+    public void memoryMappedTableTest2() throws InterruptedException, IOException {
+        log.info("memoryMappedTableTest2 - stray bytes after the last record are discarded on recovery");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = createSiddhiAppRuntime(siddhiManager);
+        try {
+            InputHandler stockStream = siddhiAppRuntime.getInputHandler("StockStream");
+            stockStream.send(new Object[]{"WSO2", 55.6f, 100L});
+            stockStream.send(new Object[]{"IBM", 75.6f, 10L});
+        } finally {
+            siddhiAppRuntime.shutdown();
+        }
+
+        File[] segments = directory.listFiles((dir, name) -> name.endsWith(".seg"));
+        AssertJUnit.assertNotNull(segments);
+        Arrays.sort(segments);
+        try (RandomAccessFile segment = new RandomAccessFile(segments[segments.length - 1], "rw")) {
+            segment.seek(segment.length() - 16);
+            segment.write(new byte[]{1, 0, 0, 0, 7, 1, 2, 3, 4, 0, 0, 0, 64, 1, 1, 1});
+        }
+
+        siddhiAppRuntime = createSiddhiAppRuntime(siddhiManager);
+        try {
+            siddhiAppRuntime.getInputHandler("StockStream").send(new Object[]{"GOOG", 20.5f, 5L});
+        } finally {
+            siddhiAppRuntime.shutdown();
+        }
+
+        siddhiAppRuntime = createSiddhiAppRuntime(siddhiManager);
+        try {
+            siddhiAppRuntime.getInputHandler("CheckStockStream").send(new Object[]{0L});
+
+            List<Object[]> expected = Arrays.asList(
+                    new Object[]{"WSO2", 55.6f, 100L},
+                    new Object[]{"IBM", 75.6f, 10L},
+                    new Object[]{"GOOG", 20.5f, 5L}
+            );
+            SiddhiTestHelper.waitForEvents(100, 3, inEventCount, 60000);
+            AssertJUnit.assertEquals("In events matched", true,
+                    SiddhiTestHelper.isUnsortedEventsMatch(inEventsList, expected));
+            AssertJUnit.assertEquals("Number of success events", 3, inEventCount.get());
+        } finally {
+            siddhiAppRuntime.shutdown();
+        }
+    }
+
+    @Test
+    public void memoryMappedTableTest3() throws InterruptedException, IOException {
+        log.info("memoryMappedTableTest3 - recovery stops at a corrupt record, discarding the later segments");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = createSiddhiAppRuntime(siddhiManager);
+        try {
+            InputHandler stockStream = siddhiAppRuntime.getInputHandler("StockStream");
+            for (int i = 0; i < 30; i++) {
+                stockStream.send(new Object[]{"S" + i, 1.5f, (long) i});
+            }
+        } finally {
+            siddhiAppRuntime.shutdown();
+        }
+
+        File[] segments = directory.listFiles((dir, name) -> name.endsWith(".seg"));
+        AssertJUnit.assertNotNull(segments);
+        AssertJUnit.assertTrue("Rows span several segments", segments.length > 1);
+        Arrays.sort(segments);
+        try (RandomAccessFile segment = new RandomAccessFile(segments[0], "rw")) {
+            // skips the frames of the first five records, each holding its type, row id and checksum
+            long position = 0;
+            for (int i = 0; i < 5; i++) {
+                segment.seek(position + 9);
+                position += 9 + segment.readInt();
+            }
+            segment.seek(position + 9 + 12);
+            byte value = segment.readByte();
+            segment.seek(position + 9 + 12);
+            segment.write(~value);
+        }
+
+        siddhiAppRuntime = createSiddhiAppRuntime(siddhiManager);
+        try {
+            siddhiAppRuntime.getInputHandler("StockStream").send(new Object[]{"GOOG", 20.5f, 100L});
+        } finally {
+            siddhiAppRuntime.shutdown();
+        }
+        segments = directory.listFiles((dir, name) -> name.endsWith(".seg"));
+        AssertJUnit.assertNotNull(segments);
+        AssertJUnit.assertEquals("Segments after the corrupt record are deleted", 1, segments.length);
+
+        siddhiAppRuntime = createSiddhiAppRuntime(siddhiManager);
+        try {
+            siddhiAppRuntime.getInputHandler("CheckStockStream").send(new Object[]{0L});
+
+            List<Object[]> expected = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                expected.add(new Object[]{"S" + i, 1.5f, (long) i});
+            }
+            expected.add(new Object[]{"GOOG", 20.5f, 100L});
+            SiddhiTestHelper.waitForEvents(100, 6, inEventCount, 60000);
+            AssertJUnit.assertEquals("In events matched", true,
+                    SiddhiTestHelper.isUnsortedEventsMatch(inEventsList, expected));
+            AssertJUnit.assertEquals("Number of success events", 6, inEventCount.get());
+        } finally {
+            siddhiAppRuntime.shutdown();
+        }
+    }
+
+    @Test
+    public void memoryMappedTableTest4() throws InterruptedException, IOException {
+        log.info("memoryMappedTableTest4 - recovery stops at a record whose row id is corrupt");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = createSiddhiAppRuntime(siddhiManager);
+        try {
+            InputHandler stockStream = siddhiAppRuntime.getInputHandler("StockStream");
+            for (int i = 0; i < 10; i++) {
+                stockStream.send(new Object[]{"S" + i, 1.5f, (long) i});
+            }
+        } finally {
+            siddhiAppRuntime.shutdown();
+        }
+
+        File[] segments = directory.listFiles((dir, name) -> name.endsWith(".seg"));
+        AssertJUnit.assertNotNull(segments);
+        Arrays.sort(segments);
+        try (RandomAccessFile segment = new RandomAccessFile(segments[0], "rw")) {
+            // points the sixth record, which puts the row id 5, to the row id of the first record
+            long position = 0;
+            for (int i = 0; i < 5; i++) {
+                segment.seek(position + 9);
+                position += 9 + segment.readInt();
+            }
+            segment.seek(position + 1);
+            AssertJUnit.assertEquals(5, segment.readInt());
+            segment.seek(position + 1);
+            segment.writeInt(0);
+        }
+
+        siddhiAppRuntime = createSiddhiAppRuntime(siddhiManager);
+        try {
+            siddhiAppRuntime.getInputHandler("CheckStockStream").send(new Object[]{0L});
+
+            List<Object[]> expected = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                expected.add(new Object[]{"S" + i, 1.5f, (long) i});
+            }
+            SiddhiTestHelper.waitForEvents(100, 5, inEventCount, 60000);
+            AssertJUnit.assertEquals("In events matched", true,
+                    SiddhiTestHelper.isUnsortedEventsMatch(inEventsList, expected));
+            AssertJUnit.assertEquals("Number of success events", 5, inEventCount.get());
+        } finally {
+            siddhiAppRuntime.shutdown();
+        }
+    }
+}
@@ -0,0 +1,429 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.core.query.table;
+
+import io.siddhi.core.SiddhiAppRuntime;
+import io.siddhi.core.SiddhiManager;
+import io.siddhi.core.event.Event;
+import io.siddhi.core.exception.CannotRestoreSiddhiAppStateException;
+import io.siddhi.core.exception.SiddhiAppCreationException;
+import io.siddhi.core.query.output.callback.QueryCallback;
+import io.siddhi.core.stream.input.InputHandler;
+import io.siddhi.core.util.EventPrinter;
+import io.siddhi.core.util.SiddhiTestHelper;
+import io.siddhi.core.util.persistence.InMemoryPersistenceStore;
+import org.apache.log4j.Logger;
+import org.testng.AssertJUnit;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class OffHeapTableTestCase {
+    private static final Logger log = Logger.getLogger(OffHeapTableTestCase.class);
+    private AtomicInteger inEventCount = new AtomicInteger(0);
+    private List<Object[]> inEventsList;
+
+    @BeforeMethod
+    public void init() {
+        inEventCount.set(0);
+        inEventsList = new ArrayList<Object[]>();
+    }
+
+    private QueryCallback queryCallback() {
+        return new QueryCallback() {
+            @Override
+            public void receive(long timestamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timestamp, inEvents, removeEvents);
+                if (inEvents != null) {
+                    for (Event event : inEvents) {
+                        inEventsList.add(event.getData());
+                        inEventCount.incrementAndGet();
+                    }
+                }
+            }
+        };
+    }
+
+    @Test
+    public void offHeapTableTest1() throws InterruptedException {
+        log.info("offHeapTableTest1 - insert and join by primary key");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        String siddhiApp = "" +
+                "define stream StockStream (symbol string, price float, volume long); " +
+                "define stream CheckStockStream (symbol string); " +
+                "@store(type='offheap') " +
+                "@PrimaryKey('symbol') " +
+                "define table StockTable (symbol string, price float, volume long); " +
+                "" +
+                "@info(name = 'query1') " +
+                "from StockStream " +
+                "insert into StockTable ;" +
+                "" +
+                "@info(name = 'query2') " +
+                "from CheckStockStream join StockTable " +
+                " on CheckStockStream.symbol == StockTable.symbol " +
+                "select StockTable.symbol, StockTable.price, StockTable.volume " +
+                "insert into OutStream;";
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        try {
+            siddhiAppRuntime.addCallback("query2", queryCallback());
+            InputHandler stockStream = siddhiAppRuntime.getInputHandler("StockStream");
+            InputHandler checkStockStream = siddhiAppRuntime.getInputHandler("CheckStockStream");
+            siddhiAppRuntime.start();
+
+            stockStream.send(new Object[]{"WSO2", 55.6f, 100L});
+            stockStream.send(new Object[]{"IBM", 75.6f, 10L});
+            stockStream.send(new Object[]{"WSO2", 57.6f, 200L});
+            checkStockStream.send(new Object[]{"WSO2"});
+            checkStockStream.send(new Object[]{"IBM"});
+            checkStockStream.send(new Object[]{"GOOG"});
+
+            List<Object[]> expected = Arrays.asList(
+                    new Object[]{"WSO2", 55.6f, 100L},
+                    new Object[]{"IBM", 75.6f, 10L}
+            );
+            SiddhiTestHelper.waitForEvents(100, 2, inEventCount, 60000);
+            AssertJUnit.assertEquals("In events matched", true, SiddhiTestHelper.isEventsMatch(inEventsList, expected));
+            AssertJUnit.assertEquals("Number of success events", 2, inEventCount.get());
+        } finally {
+            siddhiAppRuntime.shutdown();
+        }
+    }
+
+    @Test
+    public void offHeapTableTest2() throws InterruptedException {
+        log.info("offHeapTableTest2 - update by primary key and delete by scanning");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        String siddhiApp = "" +
+                "define stream StockStream (symbol string, price float, volume long); " +
+                "define stream UpdateStockStream (symbol string, price float); " +
+                "define stream DeleteStockStream (price float); " +
+                "define stream CheckStockStream (symbol string); " +
+                "@store(type='offheap') " +
+                "@PrimaryKey('symbol') " +
+                "define table StockTable (symbol string, price float, volume long); " +
+                "" +
+                "@info(name = 'query1') " +
+                "from StockStream " +
+                "insert into StockTable ;" +
+                "" +
+                "@info(name = 'query2') " +
+                "from UpdateStockStream " +
+                "update StockTable " +
+                "   set StockTable.price = price " +
+                "   on StockTable.symbol == symbol ;" +
+                "" +
+                "@info(name = 'query3') " +
+                "from DeleteStockStream " +
+                "delete StockTable " +
+                "   on StockTable.price < price ;" +
+                "" +
+                "@info(name = 'query4') " +
+                "from CheckStockStream join StockTable " +
+                " on CheckStockStream.symbol == StockTable.symbol " +
+                "select StockTable.symbol, StockTable.price, StockTable.volume " +
+                "insert into OutStream;";
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        try {
+            siddhiAppRuntime.addCallback("query4", queryCallback());
+            InputHandler stockStream = siddhiAppRuntime.getInputHandler("StockStream");
+            InputHandler updateStockStream = siddhiAppRuntime.getInputHandler("UpdateStockStream");
+            InputHandler deleteStockStream = siddhiAppRuntime.getInputHandler("DeleteStockStream");
+            InputHandler checkStockStream = siddhiAppRuntime.getInputHandler("CheckStockStream");
+            siddhiAppRuntime.start();
+
+            stockStream.send(new Object[]{"WSO2", 55.6f, 100L});
+            stockStream.send(new Object[]{"IBM", 75.6f, 10L});
+            stockStream.send(new Object[]{"GOOG", 20.5f, 5L});
+            updateStockStream.send(new Object[]{"IBM", 80.5f});
+            deleteStockStream.send(new Object[]{30f});
+            checkStockStream.send(new Object[]{"WSO2"});
+            checkStockStream.send(new Object[]{"IBM"});
+            checkStockStream.send(new Object[]{"GOOG"});
+
+            List<Object[]> expected = Arrays.asList(
+                    new Object[]{"WSO2", 55.6f, 100L},
+                    new Object[]{"IBM", 80.5f, 10L}
+            );
+            SiddhiTestHelper.waitForEvents(100, 2, inEventCount, 60000);
+            AssertJUnit.assertEquals("In events matched", true, SiddhiTestHelper.isEventsMatch(inEventsList, expected));
+            AssertJUnit.assertEquals("Number of success events", 2, inEventCount.get());
+        } finally {
+            siddhiAppRuntime.shutdown();
+        }
+    }
+
+    @Test
+    public void offHeapTableTest3() throws InterruptedException {
+        log.info("offHeapTableTest3 - update or insert on a composite primary key");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        String siddhiApp = "" +
+                "define stream StockStream (symbol string, price float, volume long); " +
+                "define stream CheckStockStream (symbol string); " +
+                "@store(type='offheap') " +
+                "@PrimaryKey('symbol', 'volume') " +
+                "define table StockTable (symbol string, price float, volume long); " +
+                "" +
+                "@info(name = 'query1') " +
+                "from StockStream " +
+                "update or insert into StockTable " +
+                "   set StockTable.price = price " +
+                "   on StockTable.symbol == symbol and StockTable.volume == volume ;" +
+                "" +
+                "@info(name = 'query2') " +
+                "from CheckStockStream join StockTable " +
+                " on CheckStockStream.symbol == StockTable.symbol " +
+                "select StockTable.symbol, StockTable.price, StockTable.volume " +
+                "insert into OutStream;";
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        try {
+            siddhiAppRuntime.addCallback("query2", queryCallback());
+            InputHandler stockStream = siddhiAppRuntime.getInputHandler("StockStream");
+            InputHandler checkStockStream = siddhiAppRuntime.getInputHandler("CheckStockStream");
+            siddhiAppRuntime.start();
+
+            stockStream.send(new Object[]{"WSO2", 55.6f, 100L});
+            stockStream.send(new Object[]{"WSO2", 57.6f, 100L});
+            stockStream.send(new Object[]{"WSO2", 60.6f, 200L});
+            stockStream.send(new Object[]{"IBM", 75.6f, 100L});
+            checkStockStream.send(new Object[]{"WSO2"});
+
+            List<Object[]> expected = Arrays.asList(
+                    new Object[]{"WSO2", 57.6f, 100L},
+                    new Object[]{"WSO2", 60.6f, 200L}
+            );
+            SiddhiTestHelper.waitForEvents(100, 2, inEventCount, 60000);
+            AssertJUnit.assertEquals("In events matched", true,
+                    SiddhiTestHelper.isUnsortedEventsMatch(inEventsList, expected));
+            AssertJUnit.assertEquals("Number of success events", 2, inEventCount.get());
+        } finally {
+            siddhiAppRuntime.shutdown();
+        }
+    }
+
+    @Test
+    public void offHeapTableTest4() throws InterruptedException {
+        log.info("offHeapTableTest4 - rows rewritten across compacted segments");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        String siddhiApp = "" +
+                "define stream StockStream (symbol string, price float, volume long); " +
+                "define stream UpdateStockStream (symbol string, volume long); " +
+                "define stream DeleteStockStream (symbol string); " +
+                "define stream CheckStockStream (minVolume long); " +
+                "@store(type='offheap', segment.size='256') " +
+                "@PrimaryKey('symbol') " +
+                "define table StockTable (symbol string, price float, volume long); " +
+                "" +
+                "@info(name = 'query1') " +
+                "from StockStream " +
+                "insert into StockTable ;" +
+                "" +
+                "@info(name = 'query2') " +
+                "from UpdateStockStream " +
+                "update StockTable " +
+                "   set StockTable.volume = volume " +
+                "   on StockTable.symbol == symbol ;" +
+                "" +
+                "@info(name = 'query3') " +
+                "from DeleteStockStream " +
+                "delete StockTable " +
+                "   on StockTable.symbol == symbol ;" +
+                "" +
+                "@info(name = 'query4') " +
+                "from CheckStockStream join StockTable " +
+                " on StockTable.volume >= CheckStockStream.minVolume " +
+                "select StockTable.symbol, StockTable.price, StockTable.volume " +
+                "insert into OutStream;";
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        try {
+            siddhiAppRuntime.addCallback("query4", queryCallback());
+            InputHandler stockStream = siddhiAppRuntime.getInputHandler("StockStream");
+            InputHandler updateStockStream = siddhiAppRuntime.getInputHandler("UpdateStockStream");
+            InputHandler deleteStockStream = siddhiAppRuntime.getInputHandler("DeleteStockStream");
+            InputHandler checkStockStream = siddhiAppRuntime.getInputHandler("CheckStockStream");
+            siddhiAppRuntime.start();
+
+            for (int i = 0; i < 50; i++) {
+                stockStream.send(new Object[]{"S" + i, i == 1 ? null : 1.5f, (long) i});
+            }
+            for (int k = 1; k <= 20; k++) {
+                for (int i = 0; i < 50; i++) {
+                    updateStockStream.send(new Object[]{"S" + i, (long) (k * 100 + i)});
+                }
+            }
+            for (int i = 0; i < 50; i += 2) {
+                deleteStockStream.send(new Object[]{"S" + i});
+            }
+            checkStockStream.send(new Object[]{0L});
+
+            List<Object[]> expected = new ArrayList<>();
+            for (int i = 1; i < 50; i += 2) {
+                expected.add(new Object[]{"S" + i, i == 1 ? null : 1.5f, (long) (2000 + i)});
+            }
+            SiddhiTestHelper.waitForEvents(100, 25, inEventCount, 60000);
+            AssertJUnit.assertEquals("In events matched", true,
+                    SiddhiTestHelper.isUnsortedEventsMatch(inEventsList, expected));
+            AssertJUnit.assertEquals("Number of success events", 25, inEventCount.get());
+        } finally {
+            siddhiAppRuntime.shutdown();
+        }
+    }
+
+    @Test
+    public void offHeapTableTest5() throws InterruptedException, CannotRestoreSiddhiAppStateException {
+        log.info("offHeapTableTest5 - persist and restore");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        siddhiManager.setPersistenceStore(new InMemoryPersistenceStore());
+        String siddhiApp = "" +
+                "@app:name('OffHeapTableTest') " +
+                "define stream StockStream (symbol string, price float, volume long); " +
+                "define stream CheckStockStream (symbol string); " +
+                "@store(type='offheap') " +
+                "@PrimaryKey('symbol') " +
+                "define table StockTable (symbol string, price float, volume long); " +
+                "" +
+                "@info(name = 'query1') " +
+                "from StockStream " +
+                "insert into StockTable ;" +
+                "" +
+                "@info(name = 'query2') " +
+                "from CheckStockStream join StockTable " +
+                " on CheckStockStream.symbol == StockTable.symbol " +
+                "select StockTable.symbol, StockTable.price, StockTable.volume " +
+                "insert into OutStream;";
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        InputHandler stockStream = siddhiAppRuntime.getInputHandler("StockStream");
+        siddhiAppRuntime.start();
+        stockStream.send(new Object[]{"WSO2", 55.6f, 100L});
+        stockStream.send(new Object[]{"IBM", 75.6f, 10L});
+        siddhiAppRuntime.persist();
+        stockStream.send(new Object[]{"GOOG", 20.5f, 5L});
+        siddhiAppRuntime.shutdown();
+
+        siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        try {
+            siddhiAppRuntime.addCallback("query2", queryCallback());
+            InputHandler checkStockStream = siddhiAppRuntime.getInputHandler("CheckStockStream");
+            siddhiAppRuntime.start();
+            siddhiAppRuntime.restoreLastRevision();
+
+            checkStockStream.send(new Object[]{"WSO2"});
+            checkStockStream.send(new Object[]{"IBM"});
+            checkStockStream.send(new Object[]{"GOOG"});
+
+            List<Object[]> expected = Arrays.asList(
+                    new Object[]{"WSO2", 55.6f, 100L},
+                    new Object[]{"IBM", 75.6f, 10L}
+            );
+            SiddhiTestHelper.waitForEvents(100, 2, inEventCount, 60000);
+            AssertJUnit.assertEquals("In events matched", true, SiddhiTestHelper.isEventsMatch(inEventsList, expected));
+            AssertJUnit.assertEquals("Number of success events", 2, inEventCount.get());
+        } finally {
+            siddhiAppRuntime.shutdown();
+        }
+    }
+
+    @Test
+    public void offHeapTableTest7() throws InterruptedException, CannotRestoreSiddhiAppStateException {
+        log.info("offHeapTableTest7 - persist and restore rows spanning several snapshot chunks");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        siddhiManager.setPersistenceStore(new InMemoryPersistenceStore());
+        String siddhiApp = "" +
+                "@app:name('OffHeapTableTest') " +
+                "define stream StockStream (symbol string, price float, volume long); " +
+                "define stream CheckStockStream (volume long); " +
+                "@store(type='offheap', segment.size='256') " +
+                "@PrimaryKey('symbol') " +
+                "define table StockTable (symbol string, price float, volume long); " +
+                "" +
+                "@info(name = 'query1') " +
+                "from StockStream " +
+                "insert into StockTable ;" +
+                "" +
+                "@info(name = 'query2') " +
+                "from CheckStockStream join StockTable " +
+                " on StockTable.volume >= CheckStockStream.volume " +
+                "select StockTable.symbol, StockTable.price, StockTable.volume " +
+                "insert into OutStream;";
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        InputHandler stockStream = siddhiAppRuntime.getInputHandler("StockStream");
+        siddhiAppRuntime.start();
+        List<Object[]> expected = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            stockStream.send(new Object[]{"S" + i, 1.5f, (long) i});
+            expected.add(new Object[]{"S" + i, 1.5f, (long) i});
+        }
+        siddhiAppRuntime.persist();
+        siddhiAppRuntime.shutdown();
+
+        siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        try {
+            siddhiAppRuntime.addCallback("query2", queryCallback());
+            siddhiAppRuntime.start();
+            siddhiAppRuntime.restoreLastRevision();
+            siddhiAppRuntime.getInputHandler("CheckStockStream").send(new Object[]{0L});
+
+            SiddhiTestHelper.waitForEvents(100, 100, inEventCount, 60000);
+            AssertJUnit.assertEquals("In events matched", true,
+                    SiddhiTestHelper.isUnsortedEventsMatch(inEventsList, expected));
+            AssertJUnit.assertEquals("Number of success events", 100, inEventCount.get());
+        } finally {
+            siddhiAppRuntime.shutdown();
+        }
+    }
+
+    @Test(expectedExceptions = SiddhiAppCreationException.class)
+    public void offHeapTableTest6() {
+        log.info("offHeapTableTest6 - secondary index is rejected");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        String siddhiApp = "" +
+                "define stream StockStream (symbol string, price float, volume long); " +
+                "@store(type='offheap') " +
+                "@PrimaryKey('symbol') " +
+                "@Index('volume') " +
+                "define table StockTable (symbol string, price float, volume long); " +
+                "" +
+                "@info(name = 'query1') " +
+                "from StockStream " +
+                "insert into StockTable ;";
+
+        try {
+            siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        } finally {
+            siddhiManager.shutdown();
+        }
+    }
+}
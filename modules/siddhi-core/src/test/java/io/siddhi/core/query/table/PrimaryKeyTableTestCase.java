@@ -21,6 +21,7 @@ package io.siddhi.core.query.table;
 import io.siddhi.core.SiddhiAppRuntime;
 import io.siddhi.core.SiddhiManager;
 import io.siddhi.core.event.Event;
+import io.siddhi.core.query.extension.util.BlockingFunctionExtension;
 import io.siddhi.core.query.output.callback.QueryCallback;
 import io.siddhi.core.stream.input.InputHandler;
 import io.siddhi.core.util.EventPrinter;
@@ -36,6 +37,10 @@ import org.testng.annotations.Test;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class PrimaryKeyTableTestCase {
@@ -2531,6 +2536,262 @@ public class PrimaryKeyTableTestCase {
         }
     }
 
+    @Test
+    public void primaryKeyTableTest40() throws InterruptedException {
+        log.info("primaryKeyTableTest40 - concurrent updates and joins");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        String streams = "" +
+                "define stream UpdateStockStream (symbol string, price float, volume long); " +
+                "define stream CheckStockStream (symbol string); " +
+                "@PrimaryKey('symbol') " +
+                "define table StockTable (symbol string, price float, volume long); ";
+        String query = "" +
+                "@info(name = 'query1') " +
+                "from UpdateStockStream " +
+                "update or insert into StockTable " +
+                "   set StockTable.price = price, StockTable.volume = volume " +
+                "   on StockTable.symbol == symbol ;" +
+                "" +
+                "@info(name = 'query2') " +
+                "from CheckStockStream join StockTable " +
+                " on CheckStockStream.symbol==StockTable.symbol " +
+                "select StockTable.symbol, StockTable.price, StockTable.volume " +
+                "insert into OutStream;";
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams + query);
+        AtomicInteger inconsistentEventCount = new AtomicInteger(0);
+        try {
+            siddhiAppRuntime.addCallback("query2", new QueryCallback() {
+                @Override
+                public void receive(long timestamp, Event[] inEvents, Event[] removeEvents) {
+                    if (inEvents != null) {
+                        for (Event event : inEvents) {
+                            if (((Float) event.getData(1)).longValue() != (Long) event.getData(2)) {
+                                inconsistentEventCount.incrementAndGet();
+                            }
+                            inEventCount.incrementAndGet();
+                        }
+                    }
+                }
+            });
+
+            InputHandler updateStockStream = siddhiAppRuntime.getInputHandler("UpdateStockStream");
+            InputHandler checkStockStream = siddhiAppRuntime.getInputHandler("CheckStockStream");
+            siddhiAppRuntime.start();
+            String[] symbols = new String[]{"WSO2", "IBM", "ORACLE", "GOOGLE"};
+            for (String symbol : symbols) {
+                updateStockStream.send(new Object[]{symbol, 0f, 0L});
+            }
+
+            List<Thread> threads = new ArrayList<>();
+            threads.add(new Thread(() -> {
+                try {
+                    for (int i = 1; i <= 20000; i++) {
+                        updateStockStream.send(new Object[]{symbols[i % symbols.length], (float) i, (long) i});
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            for (int j = 0; j < 3; j++) {
+                threads.add(new Thread(() -> {
+                    try {
+                        for (int i = 0; i < 5000; i++) {
+                            checkStockStream.send(new Object[]{symbols[i % symbols.length]});
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }));
+            }
+            for (Thread thread : threads) {
+                thread.start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            SiddhiTestHelper.waitForEvents(100, 15000, inEventCount, 60000);
+            AssertJUnit.assertEquals("Number of success events", 15000, inEventCount.get());
+            AssertJUnit.assertEquals("Number of inconsistent events", 0, inconsistentEventCount.get());
+        } finally {
+            siddhiAppRuntime.shutdown();
+        }
+    }
+
+    @Test
+    public void primaryKeyTableTest41() throws InterruptedException {
+        log.info("primaryKeyTableTest41 - composite primary key matched with a different numeric type");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        String streams = "" +
+                "define stream StockStream (symbol string, price float, volume long); " +
+                "define stream CheckStockStream (symbol string, volume int); " +
+                "@PrimaryKey('symbol','volume') " +
+                "define table StockTable (symbol string, price float, volume long); ";
+        String query = "" +
+                "@info(name = 'query1') " +
+                "from StockStream " +
+                "update or insert into StockTable " +
+                "   on StockTable.symbol == symbol and StockTable.volume == volume ;" +
+                "" +
+                "@info(name = 'query2') " +
+                "from CheckStockStream join StockTable " +
+                " on CheckStockStream.symbol==StockTable.symbol and CheckStockStream.volume==StockTable.volume " +
+                "select CheckStockStream.symbol, StockTable.price, StockTable.volume " +
+                "insert into OutStream;";
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams + query);
+        try {
+            siddhiAppRuntime.addCallback("query2", new QueryCallback() {
+                @Override
+                public void receive(long timestamp, Event[] inEvents, Event[] removeEvents) {
+                    EventPrinter.print(timestamp, inEvents, removeEvents);
+                    if (inEvents != null) {
+                        for (Event event : inEvents) {
+                            inEventsList.add(event.getData());
+                            inEventCount.incrementAndGet();
+                        }
+                        eventArrived = true;
+                    }
+                    if (removeEvents != null) {
+                        removeEventCount = removeEventCount + removeEvents.length;
+                    }
+                    eventArrived = true;
+                }
+            });
+
+            InputHandler stockStream = siddhiAppRuntime.getInputHandler("StockStream");
+            InputHandler checkStockStream = siddhiAppRuntime.getInputHandler("CheckStockStream");
+
+            siddhiAppRuntime.start();
+            stockStream.send(new Object[]{"WSO2", 55.6f, 100L});
+            stockStream.send(new Object[]{"IBM", 55.6f, 100L});
+            stockStream.send(new Object[]{"IBM", 57.6f, 100L});
+            stockStream.send(new Object[]{"IBM", 60.6f, 200L});
+            checkStockStream.send(new Object[]{"IBM", 100});
+            checkStockStream.send(new Object[]{"WSO2", 200});
+            checkStockStream.send(new Object[]{"IBM", 200});
+
+            List<Object[]> expected = Arrays.asList(
+                    new Object[]{"IBM", 57.6f, 100L},
+                    new Object[]{"IBM", 60.6f, 200L}
+            );
+            SiddhiTestHelper.waitForEvents(100, 2, inEventCount, 60000);
+            AssertJUnit.assertEquals("In events matched", true, SiddhiTestHelper.isEventsMatch(inEventsList, expected));
+            AssertJUnit.assertEquals("Number of success events", 2, inEventCount.get());
+            AssertJUnit.assertEquals("Number of remove events", 0, removeEventCount);
+            AssertJUnit.assertEquals("Event arrived", true, eventArrived);
+        } finally {
+            siddhiAppRuntime.shutdown();
+        }
+    }
+
+    @Test
+    public void primaryKeyTableTest42() throws InterruptedException {
+        log.info("primaryKeyTableTest42 - null string primary key");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        String streams = "" +
+                "define stream StockStream (symbol string, price float, volume long); " +
+                "@PrimaryKey('symbol') " +
+                "define table StockTable (symbol string, price float, volume long); ";
+        String query = "" +
+                "@info(name = 'query1') " +
+                "from StockStream " +
+                "insert into StockTable ;";
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams + query);
+        try {
+            InputHandler stockStream = siddhiAppRuntime.getInputHandler("StockStream");
+            siddhiAppRuntime.start();
+            stockStream.send(new Object[]{null, 55.6f, 100L});
+            stockStream.send(new Object[]{"WSO2", 57.6f, 200L});
+            stockStream.send(new Object[]{null, 75.6f, 300L});
+
+            Event[] events = siddhiAppRuntime.query("from StockTable select symbol, price, volume ");
+            EventPrinter.print(events);
+            AssertJUnit.assertNotNull(events);
+            AssertJUnit.assertEquals(2, events.length);
+            List<Object[]> expected = Arrays.asList(
+                    new Object[]{null, 55.6f, 100L},
+                    new Object[]{"WSO2", 57.6f, 200L}
+            );
+            List<Object[]> actual = new ArrayList<>();
+            for (Event event : events) {
+                actual.add(event.getData());
+            }
+            AssertJUnit.assertEquals("Events matched", true, SiddhiTestHelper.isUnsortedEventsMatch(actual, expected));
+        } finally {
+            siddhiAppRuntime.shutdown();
+        }
+    }
+
+    @Test
+    public void primaryKeyTableTest43() throws InterruptedException {
+        log.info("primaryKeyTableTest43 - composite int primary key probed with fractional doubles");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        String streams = "" +
+                "define stream StockStream (symbol string, price float, volume int); " +
+                "define stream CheckStockStream (symbol string, volume double); " +
+                "@PrimaryKey('symbol','volume') " +
+                "define table StockTable (symbol string, price float, volume int); ";
+        String query = "" +
+                "@info(name = 'query1') " +
+                "from StockStream " +
+                "insert into StockTable ;" +
+                "" +
+                "@info(name = 'query2') " +
+                "from CheckStockStream join StockTable " +
+                " on CheckStockStream.symbol==StockTable.symbol and CheckStockStream.volume==StockTable.volume " +
+                "select CheckStockStream.symbol, StockTable.price, StockTable.volume " +
+                "insert into OutStream;";
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams + query);
+        try {
+            siddhiAppRuntime.addCallback("query2", new QueryCallback() {
+                @Override
+                public void receive(long timestamp, Event[] inEvents, Event[] removeEvents) {
+                    EventPrinter.print(timestamp, inEvents, removeEvents);
+                    if (inEvents != null) {
+                        for (Event event : inEvents) {
+                            inEventsList.add(event.getData());
+                            inEventCount.incrementAndGet();
+                        }
+                        eventArrived = true;
+                    }
+                    if (removeEvents != null) {
+                        removeEventCount = removeEventCount + removeEvents.length;
+                    }
+                    eventArrived = true;
+                }
+            });
+
+            InputHandler stockStream = siddhiAppRuntime.getInputHandler("StockStream");
+            InputHandler checkStockStream = siddhiAppRuntime.getInputHandler("CheckStockStream");
+
+            siddhiAppRuntime.start();
+            stockStream.send(new Object[]{"WSO2", 55.6f, 1});
+            stockStream.send(new Object[]{"IBM", 75.6f, 100});
+            checkStockStream.send(new Object[]{"WSO2", 1.5});
+            checkStockStream.send(new Object[]{"IBM", 100.25});
+            checkStockStream.send(new Object[]{"IBM", 1.0E12});
+            checkStockStream.send(new Object[]{"WSO2", 1.0});
+
+            List<Object[]> expected = Arrays.<Object[]>asList(
+                    new Object[]{"WSO2", 55.6f, 1}
+            );
+            SiddhiTestHelper.waitForEvents(100, 1, inEventCount, 60000);
+            AssertJUnit.assertEquals("In events matched", true, SiddhiTestHelper.isEventsMatch(inEventsList, expected));
+            AssertJUnit.assertEquals("Number of success events", 1, inEventCount.get());
+            AssertJUnit.assertEquals("Number of remove events", 0, removeEventCount);
+        } finally {
+            siddhiAppRuntime.shutdown();
+        }
+    }
+
 //
 //    @Test
 //    public void primaryKeyTableTest33() throws InterruptedException {
@@ -2690,4 +2951,99 @@ public class PrimaryKeyTableTestCase {
         }
     }
 
+    @Test
+    public void primaryKeyTableTest44() throws InterruptedException {
+        log.info("primaryKeyTableTest44 - primary key lookup not blocked by an update of another key");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+        siddhiManager.setExtension("custom:block", BlockingFunctionExtension.class);
+        String streams = "" +
+                "define stream StockStream (symbol string, price float, volume long); " +
+                "define stream UpdateStockStream (symbol string, price float); " +
+                "define stream CheckStockStream (symbol string); " +
+                "@PrimaryKey('symbol') " +
+                "define table StockTable (symbol string, price float, volume long); ";
+        String query = "" +
+                "@info(name = 'query1') " +
+                "from StockStream " +
+                "insert into StockTable ;" +
+                "" +
+                "@info(name = 'query2') " +
+                "from UpdateStockStream " +
+                "update StockTable " +
+                "   set StockTable.price = custom:block(price) " +
+                "   on StockTable.symbol == symbol ;" +
+                "" +
+                "@info(name = 'query3') " +
+                "from CheckStockStream join StockTable " +
+                " on CheckStockStream.symbol == StockTable.symbol " +
+                "select CheckStockStream.symbol, StockTable.price " +
+                "insert into OutStream;";
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams + query);
+        CountDownLatch blockedLatch = new CountDownLatch(1);
+        CountDownLatch releaseLatch = new CountDownLatch(1);
+        ExecutorService executorService = Executors.newFixedThreadPool(3);
+        try {
+            siddhiAppRuntime.addCallback("query3", new QueryCallback() {
+                @Override
+                public void receive(long timestamp, Event[] inEvents, Event[] removeEvents) {
+                    EventPrinter.print(timestamp, inEvents, removeEvents);
+                    if (inEvents != null) {
+                        for (Event event : inEvents) {
+                            inEventsList.add(event.getData());
+                            inEventCount.incrementAndGet();
+                        }
+                        eventArrived = true;
+                    }
+                }
+            });
+
+            InputHandler stockStream = siddhiAppRuntime.getInputHandler("StockStream");
+            InputHandler updateStockStream = siddhiAppRuntime.getInputHandler("UpdateStockStream");
+            InputHandler checkStockStream = siddhiAppRuntime.getInputHandler("CheckStockStream");
+
+            siddhiAppRuntime.start();
+            // IBM and WSO2 fall on different primary key stripes
+            stockStream.send(new Object[]{"IBM", 55.6f, 100L});
+            stockStream.send(new Object[]{"WSO2", 57.6f, 200L});
+
+            BlockingFunctionExtension.setLatches(blockedLatch, releaseLatch);
+            executorService.submit(() -> {
+                updateStockStream.send(new Object[]{"IBM", 75.6f});
+                return null;
+            });
+            AssertJUnit.assertTrue("Update blocked", blockedLatch.await(10, TimeUnit.SECONDS));
+
+            executorService.submit(() -> {
+                checkStockStream.send(new Object[]{"WSO2"});
+                return null;
+            });
+            SiddhiTestHelper.waitForEvents(100, 1, inEventCount, 10000);
+            AssertJUnit.assertEquals("Lookup of another key completed during the update", 1, inEventCount.get());
+
+            executorService.submit(() -> {
+                checkStockStream.send(new Object[]{"IBM"});
+                return null;
+            });
+            Thread.sleep(500);
+            AssertJUnit.assertEquals("Lookup of the updated key waits for the update", 1, inEventCount.get());
+
+            releaseLatch.countDown();
+            SiddhiTestHelper.waitForEvents(100, 2, inEventCount, 10000);
+            List<Object[]> expected = Arrays.asList(
+                    new Object[]{"WSO2", 57.6f},
+                    new Object[]{"IBM", 75.6f}
+            );
+            AssertJUnit.assertEquals("In events matched", true, SiddhiTestHelper.isEventsMatch(inEventsList, expected));
+            AssertJUnit.assertEquals("Number of success events", 2, inEventCount.get());
+            AssertJUnit.assertEquals("Event arrived", true, eventArrived);
+        } finally {
+            BlockingFunctionExtension.setLatches(null, null);
+            releaseLatch.countDown();
+            executorService.shutdown();
+            siddhiAppRuntime.shutdown();
+        }
+    }
+
 }
@@ -0,0 +1,246 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.siddhi.core.query.table.cache;
+
+import io.siddhi.core.SiddhiAppRuntime;
+import io.siddhi.core.SiddhiManager;
+import io.siddhi.core.event.Event;
+import io.siddhi.core.exception.SiddhiAppCreationException;
+import io.siddhi.core.query.table.util.TestStoreWithRecords;
+import io.siddhi.core.stream.input.InputHandler;
+import io.siddhi.core.table.CacheTable;
+import io.siddhi.core.table.Table;
+import io.siddhi.core.table.record.AbstractQueryableRecordTable;
+import io.siddhi.core.util.EventPrinter;
+import org.apache.log4j.Logger;
+import org.testng.AssertJUnit;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+public class CacheEvictionTestCase {
+    private static final Logger log = Logger.getLogger(CacheEvictionTestCase.class);
+
+    @BeforeClass
+    public static void startTest() {
+        log.info("== Table with cache eviction tests started ==");
+    }
+
+    @AfterClass
+    public static void shutdown() {
+        log.info("== Table with cache eviction tests completed ==");
+    }
+
+    private SiddhiAppRuntime createSiddhiAppRuntime(String cache) {
+        return createSiddhiAppRuntime("testWithCache", cache);
+    }
+
+    private SiddhiAppRuntime createSiddhiAppRuntime(String store, String cache) {
+        SiddhiManager siddhiManager = new SiddhiManager();
+        String streams = "" +
+                "define stream StockStream (symbol string, price float, volume long); " +
+                "define stream CheckStockStream (symbol string); " +
+                "@Store(type=\"" + store + "\", " + cache + ")\n" +
+                "@PrimaryKey(\"symbol\")" +
+                "define table StockTable (symbol string, volume long); ";
+
+        String query1 = "" +
+                "@info(name = 'query1') " +
+                "from StockStream\n" +
+                "select symbol, volume\n" +
+                "insert into StockTable ;";
+        String query2 = "" +
+                "@info(name = 'query2') " +
+                "from CheckStockStream[(StockTable.symbol == symbol) in StockTable]\n" +
+                "insert into OutStream ;";
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams + query1 + query2);
+        siddhiAppRuntime.start();
+        return siddhiAppRuntime;
+    }
+
+    private CacheTable getCachedTable(SiddhiAppRuntime siddhiAppRuntime) {
+        for (Table table : siddhiAppRuntime.getTables()) {
+            if (table instanceof AbstractQueryableRecordTable) {
+                return ((AbstractQueryableRecordTable) table).getCachedTable();
+            }
+        }
+        return null;
+    }
+
+    private Event[] find(SiddhiAppRuntime siddhiAppRuntime, String symbol) {
+        Event[] events = siddhiAppRuntime.query("" +
+                "from StockTable " +
+                "on symbol == \"" + symbol + "\" ");
+        EventPrinter.print(events);
+        return events;
+    }
+
+    @Test
+    public void cacheEvictionTest1() throws InterruptedException {
+        log.info("cacheEvictionTest1 - FIFO evicts the row loaded first");
+        SiddhiAppRuntime siddhiAppRuntime = createSiddhiAppRuntime("@Cache(size=\"2\")");
+        InputHandler stockStream = siddhiAppRuntime.getInputHandler("StockStream");
+
+        stockStream.send(new Object[]{"WSO2", 55.6f, 100L});
+        stockStream.send(new Object[]{"IBM", 75.6f, 100L});
+        AssertJUnit.assertEquals(1, find(siddhiAppRuntime, "WSO2").length);
+        stockStream.send(new Object[]{"GOOG", 75.6f, 100L});
+
+        AssertJUnit.assertEquals(null, find(siddhiAppRuntime, "WSO2"));
+        AssertJUnit.assertEquals(1, find(siddhiAppRuntime, "IBM").length);
+        AssertJUnit.assertEquals(1, find(siddhiAppRuntime, "GOOG").length);
+
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void cacheEvictionTest2() throws InterruptedException {
+        log.info("cacheEvictionTest2 - LRU evicts the least recently used row");
+        SiddhiAppRuntime siddhiAppRuntime = createSiddhiAppRuntime("@Cache(size=\"2\", policy=\"LRU\")");
+        InputHandler stockStream = siddhiAppRuntime.getInputHandler("StockStream");
+
+        stockStream.send(new Object[]{"WSO2", 55.6f, 100L});
+        stockStream.send(new Object[]{"IBM", 75.6f, 100L});
+        AssertJUnit.assertEquals(1, find(siddhiAppRuntime, "WSO2").length);
+        stockStream.send(new Object[]{"GOOG", 75.6f, 100L});
+
+        AssertJUnit.assertEquals(null, find(siddhiAppRuntime, "IBM"));
+        AssertJUnit.assertEquals(1, find(siddhiAppRuntime, "WSO2").length);
+        AssertJUnit.assertEquals(1, find(siddhiAppRuntime, "GOOG").length);
+
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void cacheEvictionTest3() throws InterruptedException {
+        log.info("cacheEvictionTest3 - LFU evicts the least frequently used row");
+        SiddhiAppRuntime siddhiAppRuntime = createSiddhiAppRuntime("@Cache(size=\"2\", policy=\"LFU\")");
+        InputHandler stockStream = siddhiAppRuntime.getInputHandler("StockStream");
+
+        stockStream.send(new Object[]{"WSO2", 55.6f, 100L});
+        AssertJUnit.assertEquals(1, find(siddhiAppRuntime, "WSO2").length);
+        stockStream.send(new Object[]{"IBM", 75.6f, 100L});
+        stockStream.send(new Object[]{"GOOG", 75.6f, 100L});
+
+        AssertJUnit.assertEquals(null, find(siddhiAppRuntime, "IBM"));
+        AssertJUnit.assertEquals(1, find(siddhiAppRuntime, "WSO2").length);
+        AssertJUnit.assertEquals(1, find(siddhiAppRuntime, "GOOG").length);
+
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void cacheEvictionTest4() throws InterruptedException {
+        log.info("cacheEvictionTest4 - rows are purged after the retention period");
+        SiddhiAppRuntime siddhiAppRuntime = createSiddhiAppRuntime("@Cache(size=\"2\", " +
+                "retention.period=\"1 sec\", purge.interval=\"1 sec\")");
+        InputHandler stockStream = siddhiAppRuntime.getInputHandler("StockStream");
+
+        stockStream.send(new Object[]{"WSO2", 55.6f, 100L});
+        AssertJUnit.assertEquals(1, find(siddhiAppRuntime, "WSO2").length);
+        Thread.sleep(2500);
+        AssertJUnit.assertEquals(null, find(siddhiAppRuntime, "WSO2"));
+
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test(expectedExceptions = SiddhiAppCreationException.class)
+    public void cacheEvictionTest5() {
+        log.info("cacheEvictionTest5 - unknown cache policy");
+        createSiddhiAppRuntime("@Cache(size=\"2\", policy=\"MRU\")");
+    }
+
+    @Test
+    public void cacheEvictionTest6() throws InterruptedException {
+        log.info("cacheEvictionTest6 - evicted rows are read through from the store");
+        TestStoreWithRecords.findCount.set(0);
+        SiddhiAppRuntime siddhiAppRuntime = createSiddhiAppRuntime("testWithRecords", "@Cache(size=\"2\")");
+        InputHandler stockStream = siddhiAppRuntime.getInputHandler("StockStream");
+        CacheTable cachedTable = getCachedTable(siddhiAppRuntime);
+
+        stockStream.send(new Object[]{"WSO2", 55.6f, 100L});
+        stockStream.send(new Object[]{"IBM", 75.6f, 200L});
+        stockStream.send(new Object[]{"GOOG", 75.6f, 300L});
+        AssertJUnit.assertEquals(1, cachedTable.getEvictionCount());
+
+        Event[] events = find(siddhiAppRuntime, "WSO2");
+        AssertJUnit.assertEquals(1, events.length);
+        AssertJUnit.assertEquals(100L, events[0].getData(1));
+        AssertJUnit.assertEquals(1, TestStoreWithRecords.findCount.get());
+        AssertJUnit.assertEquals(1, cachedTable.getMissCount());
+        AssertJUnit.assertEquals(2, cachedTable.getEvictionCount());
+
+        AssertJUnit.assertEquals(1, find(siddhiAppRuntime, "WSO2").length);
+        AssertJUnit.assertEquals(1, find(siddhiAppRuntime, "GOOG").length);
+        AssertJUnit.assertEquals(1, TestStoreWithRecords.findCount.get());
+        AssertJUnit.assertEquals(2, cachedTable.getHitCount());
+
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void cacheEvictionTest7() throws InterruptedException {
+        log.info("cacheEvictionTest7 - contains counts as a use for LRU eviction");
+        TestStoreWithRecords.findCount.set(0);
+        SiddhiAppRuntime siddhiAppRuntime = createSiddhiAppRuntime("testWithRecords",
+                "@Cache(size=\"2\", policy=\"LRU\")");
+        InputHandler stockStream = siddhiAppRuntime.getInputHandler("StockStream");
+        InputHandler checkStockStream = siddhiAppRuntime.getInputHandler("CheckStockStream");
+        CacheTable cachedTable = getCachedTable(siddhiAppRuntime);
+
+        stockStream.send(new Object[]{"WSO2", 55.6f, 100L});
+        stockStream.send(new Object[]{"IBM", 75.6f, 200L});
+        checkStockStream.send(new Object[]{"WSO2"});
+        stockStream.send(new Object[]{"GOOG", 75.6f, 300L});
+        AssertJUnit.assertEquals(1, cachedTable.getEvictionCount());
+
+        AssertJUnit.assertEquals(1, find(siddhiAppRuntime, "WSO2").length);
+        AssertJUnit.assertEquals(0, TestStoreWithRecords.findCount.get());
+        AssertJUnit.assertEquals(1, find(siddhiAppRuntime, "IBM").length);
+        AssertJUnit.assertEquals(1, TestStoreWithRecords.findCount.get());
+
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void cacheEvictionTest8() throws InterruptedException {
+        log.info("cacheEvictionTest8 - expired rows are read through from the store");
+        TestStoreWithRecords.findCount.set(0);
+        SiddhiAppRuntime siddhiAppRuntime = createSiddhiAppRuntime("testWithRecords", "@Cache(size=\"2\", " +
+                "retention.period=\"1 sec\", purge.interval=\"1 min\")");
+        InputHandler stockStream = siddhiAppRuntime.getInputHandler("StockStream");
+        CacheTable cachedTable = getCachedTable(siddhiAppRuntime);
+
+        stockStream.send(new Object[]{"WSO2", 55.6f, 100L});
+        stockStream.send(new Object[]{"IBM", 75.6f, 200L});
+        AssertJUnit.assertEquals(1, find(siddhiAppRuntime, "WSO2").length);
+        AssertJUnit.assertEquals(0, TestStoreWithRecords.findCount.get());
+        Thread.sleep(1500);
+
+        Event[] events = find(siddhiAppRuntime, "WSO2");
+        AssertJUnit.assertEquals(1, events.length);
+        AssertJUnit.assertEquals(100L, events[0].getData(1));
+        AssertJUnit.assertEquals(1, TestStoreWithRecords.findCount.get());
+        AssertJUnit.assertEquals(1, cachedTable.getMissCount());
+
+        AssertJUnit.assertEquals(1, find(siddhiAppRuntime, "WSO2").length);
+        AssertJUnit.assertEquals(1, TestStoreWithRecords.findCount.get());
+
+        siddhiAppRuntime.shutdown();
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.siddhi.core.query.table.cache;
+
+import io.siddhi.core.SiddhiAppRuntime;
+import io.siddhi.core.SiddhiManager;
+import io.siddhi.core.event.Event;
+import io.siddhi.core.query.table.util.TestStoreWithCache;
+import io.siddhi.core.query.table.util.TestStoreWithRecords;
+import io.siddhi.core.stream.input.InputHandler;
+import io.siddhi.core.stream.output.StreamCallback;
+import org.apache.log4j.Logger;
+import org.testng.AssertJUnit;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class RecordTableFindCoalescingTestCase {
+    private static final Logger log = Logger.getLogger(RecordTableFindCoalescingTestCase.class);
+
+    private AtomicInteger outEventCount = new AtomicInteger();
+
+    @BeforeMethod
+    public void init() {
+        TestStoreWithCache.findCount.set(0);
+        TestStoreWithRecords.findCount.set(0);
+        outEventCount.set(0);
+    }
+
+    private SiddhiAppRuntime createSiddhiAppRuntime(String missCache) {
+        return createSiddhiAppRuntime("testWithCache", missCache);
+    }
+
+    private SiddhiAppRuntime createSiddhiAppRuntime(String store, String missCache) {
+        SiddhiManager siddhiManager = new SiddhiManager();
+        String streams = "" +
+                "define stream StockStream (symbol string, volume long); " +
+                "define stream CheckStockStream (symbol string); " +
+                "@Store(type=\"" + store + "\"" + missCache + ")\n" +
+                "define table StockTable (symbol string, volume long); ";
+        String query = "" +
+                "@info(name = 'query1') " +
+                "from StockStream " +
+                "insert into StockTable ;" +
+                "" +
+                "@info(name = 'query2') " +
+                "@synchronized('false') " +
+                "from CheckStockStream join StockTable " +
+                "   on StockTable.symbol == CheckStockStream.symbol " +
+                "select CheckStockStream.symbol, StockTable.volume " +
+                "insert into OutStream ;";
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams + query);
+        siddhiAppRuntime.addCallback("OutStream", new StreamCallback() {
+            @Override
+            public void receive(Event[] events) {
+                outEventCount.addAndGet(events.length);
+            }
+        });
+        siddhiAppRuntime.start();
+        return siddhiAppRuntime;
+    }
+
+    @Test
+    public void recordTableFindCoalescingTest1() throws InterruptedException {
+        log.info("recordTableFindCoalescingTest1 - misses are remembered until the table is written");
+        SiddhiAppRuntime siddhiAppRuntime = createSiddhiAppRuntime(", miss.cache.size=\"10\"");
+        InputHandler stockStream = siddhiAppRuntime.getInputHandler("StockStream");
+        InputHandler checkStockStream = siddhiAppRuntime.getInputHandler("CheckStockStream");
+
+        for (int i = 0; i < 5; i++) {
+            checkStockStream.send(new Object[]{"IBM"});
+        }
+        AssertJUnit.assertEquals(1, TestStoreWithCache.findCount.get());
+        checkStockStream.send(new Object[]{"WSO2"});
+        AssertJUnit.assertEquals(2, TestStoreWithCache.findCount.get());
+
+        stockStream.send(new Object[]{"IBM", 100L});
+        checkStockStream.send(new Object[]{"IBM"});
+        checkStockStream.send(new Object[]{"IBM"});
+        AssertJUnit.assertEquals(3, TestStoreWithCache.findCount.get());
+
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void recordTableFindCoalescingTest2() throws InterruptedException {
+        log.info("recordTableFindCoalescingTest2 - misses expire after the retention period");
+        SiddhiAppRuntime siddhiAppRuntime = createSiddhiAppRuntime(", miss.cache.size=\"10\", " +
+                "miss.cache.retention.period=\"1 sec\"");
+        InputHandler checkStockStream = siddhiAppRuntime.getInputHandler("CheckStockStream");
+
+        checkStockStream.send(new Object[]{"IBM"});
+        checkStockStream.send(new Object[]{"IBM"});
+        AssertJUnit.assertEquals(1, TestStoreWithCache.findCount.get());
+        Thread.sleep(1500);
+        checkStockStream.send(new Object[]{"IBM"});
+        AssertJUnit.assertEquals(2, TestStoreWithCache.findCount.get());
+
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void recordTableFindCoalescingTest3() throws InterruptedException {
+        log.info("recordTableFindCoalescingTest3 - misses are not remembered by default");
+        SiddhiAppRuntime siddhiAppRuntime = createSiddhiAppRuntime("");
+        InputHandler checkStockStream = siddhiAppRuntime.getInputHandler("CheckStockStream");
+
+        for (int i = 0; i < 3; i++) {
+            checkStockStream.send(new Object[]{"IBM"});
+        }
+        AssertJUnit.assertEquals(3, TestStoreWithCache.findCount.get());
+
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void recordTableFindCoalescingTest4() throws InterruptedException {
+        log.info("recordTableFindCoalescingTest4 - concurrent identical finds share a single find on the store");
+        int threadCount = 8;
+        SiddhiAppRuntime siddhiAppRuntime = createSiddhiAppRuntime("testWithRecords", "");
+        InputHandler stockStream = siddhiAppRuntime.getInputHandler("StockStream");
+        InputHandler checkStockStream = siddhiAppRuntime.getInputHandler("CheckStockStream");
+        stockStream.send(new Object[]{"IBM", 100L});
+
+        CountDownLatch findLatch = new CountDownLatch(1);
+        TestStoreWithRecords.findLatch = findLatch;
+        try {
+            List<Thread> threads = new ArrayList<>();
+            for (int i = 0; i < threadCount; i++) {
+                Thread thread = new Thread(() -> {
+                    try {
+                        checkStockStream.send(new Object[]{"IBM"});
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+                threads.add(thread);
+                thread.start();
+            }
+            // every thread blocks, either in the find on the store or waiting for it
+            long deadline = System.currentTimeMillis() + 10000;
+            while (System.currentTimeMillis() < deadline && (TestStoreWithRecords.findCount.get() == 0 ||
+                    threads.stream().anyMatch(thread -> thread.getState() != Thread.State.WAITING))) {
+                Thread.sleep(10);
+            }
+            findLatch.countDown();
+            for (Thread thread : threads) {
+                thread.join(10000);
+            }
+        } finally {
+            TestStoreWithRecords.findLatch = null;
+            findLatch.countDown();
+        }
+
+        AssertJUnit.assertEquals(1, TestStoreWithRecords.findCount.get());
+        AssertJUnit.assertEquals(threadCount, outEventCount.get());
+
+        siddhiAppRuntime.shutdown();
+    }
+}
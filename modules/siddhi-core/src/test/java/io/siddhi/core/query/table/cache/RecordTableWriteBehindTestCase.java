@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.siddhi.core.query.table.cache;
+
+import io.siddhi.core.SiddhiAppRuntime;
+import io.siddhi.core.SiddhiManager;
+import io.siddhi.core.event.Event;
+import io.siddhi.core.exception.SiddhiAppCreationException;
+import io.siddhi.core.query.table.util.TestStoreWithCache;
+import io.siddhi.core.stream.input.InputHandler;
+import io.siddhi.core.stream.output.StreamCallback;
+import org.apache.log4j.Logger;
+import org.testng.AssertJUnit;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class RecordTableWriteBehindTestCase {
+    private static final Logger log = Logger.getLogger(RecordTableWriteBehindTestCase.class);
+    private List<Object[]> outEventsList;
+
+    @BeforeMethod
+    public void init() {
+        outEventsList = new ArrayList<>();
+        TestStoreWithCache.findCount.set(0);
+        TestStoreWithCache.addCount.set(0);
+        TestStoreWithCache.addedRecordCount.set(0);
+        TestStoreWithCache.updatedRecordCount.set(0);
+    }
+
+    private SiddhiAppRuntime createSiddhiAppRuntime(String writeBehind) {
+        SiddhiManager siddhiManager = new SiddhiManager();
+        String streams = "" +
+                "define stream StockStream (symbol string, volume long); " +
+                "define stream UpdateStockStream (symbol string, volume long); " +
+                "define stream CheckStockStream (symbol string); " +
+                "@Store(type=\"testWithCache\"" + writeBehind + ")\n" +
+                "define table StockTable (symbol string, volume long); ";
+        String query = "" +
+                "@info(name = 'query1') " +
+                "from StockStream " +
+                "insert into StockTable ;" +
+                "" +
+                "@info(name = 'query2') " +
+                "from UpdateStockStream " +
+                "update StockTable " +
+                "   set StockTable.volume = volume " +
+                "   on StockTable.symbol == symbol ;" +
+                "" +
+                "@info(name = 'query3') " +
+                "from CheckStockStream join StockTable " +
+                "   on StockTable.symbol == CheckStockStream.symbol " +
+                "select CheckStockStream.symbol, StockTable.volume " +
+                "insert into OutStream ;";
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams + query);
+        siddhiAppRuntime.addCallback("OutStream", new StreamCallback() {
+            @Override
+            public void receive(Event[] events) {
+                for (Event event : events) {
+                    outEventsList.add(event.getData());
+                }
+            }
+        });
+        siddhiAppRuntime.start();
+        return siddhiAppRuntime;
+    }
+
+    @Test
+    public void recordTableWriteBehindTest1() throws InterruptedException {
+        log.info("recordTableWriteBehindTest1 - adds are written to the store in batches");
+        SiddhiAppRuntime siddhiAppRuntime = createSiddhiAppRuntime(", write.mode=\"async\", batch.size=\"10\", " +
+                "flush.interval=\"1 min\"");
+        InputHandler stockStream = siddhiAppRuntime.getInputHandler("StockStream");
+
+        for (int i = 0; i < 25; i++) {
+            stockStream.send(new Object[]{"IBM", (long) i});
+        }
+        siddhiAppRuntime.shutdown();
+        AssertJUnit.assertEquals(25, TestStoreWithCache.addedRecordCount.get());
+        AssertJUnit.assertTrue(TestStoreWithCache.addCount.get() < 25);
+    }
+
+    @Test
+    public void recordTableWriteBehindTest2() throws InterruptedException {
+        log.info("recordTableWriteBehindTest2 - buffered adds are read without writing them to the store");
+        SiddhiAppRuntime siddhiAppRuntime = createSiddhiAppRuntime(", write.mode=\"async\", " +
+                "batch.size=\"100\", flush.interval=\"1 min\"");
+        InputHandler stockStream = siddhiAppRuntime.getInputHandler("StockStream");
+        InputHandler checkStockStream = siddhiAppRuntime.getInputHandler("CheckStockStream");
+
+        stockStream.send(new Object[]{"IBM", 100L});
+        stockStream.send(new Object[]{"WSO2", 200L});
+        stockStream.send(new Object[]{"GOOG", 300L});
+        AssertJUnit.assertEquals(0, TestStoreWithCache.addedRecordCount.get());
+        checkStockStream.send(new Object[]{"IBM"});
+        AssertJUnit.assertEquals(0, TestStoreWithCache.addCount.get());
+        AssertJUnit.assertEquals(1, TestStoreWithCache.findCount.get());
+        AssertJUnit.assertEquals(1, outEventsList.size());
+        AssertJUnit.assertArrayEquals(new Object[]{"IBM", 100L}, outEventsList.get(0));
+
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void recordTableWriteBehindTest3() throws InterruptedException {
+        log.info("recordTableWriteBehindTest3 - buffered updates of the same key are coalesced");
+        SiddhiAppRuntime siddhiAppRuntime = createSiddhiAppRuntime(", write.mode=\"async\", " +
+                "batch.size=\"100\", flush.interval=\"1 min\"");
+        InputHandler updateStockStream = siddhiAppRuntime.getInputHandler("UpdateStockStream");
+        InputHandler checkStockStream = siddhiAppRuntime.getInputHandler("CheckStockStream");
+
+        for (int i = 0; i < 5; i++) {
+            updateStockStream.send(new Object[]{"IBM", (long) i});
+            updateStockStream.send(new Object[]{"WSO2", (long) i});
+        }
+        checkStockStream.send(new Object[]{"IBM"});
+        AssertJUnit.assertEquals(2, TestStoreWithCache.updatedRecordCount.get());
+        AssertJUnit.assertEquals(1, TestStoreWithCache.findCount.get());
+
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void recordTableWriteBehindTest4() throws InterruptedException {
+        log.info("recordTableWriteBehindTest4 - buffered writes are flushed at shutdown");
+        SiddhiAppRuntime siddhiAppRuntime = createSiddhiAppRuntime(", write.mode=\"async\", " +
+                "batch.size=\"100\", flush.interval=\"1 min\"");
+        InputHandler stockStream = siddhiAppRuntime.getInputHandler("StockStream");
+
+        stockStream.send(new Object[]{"IBM", 100L});
+        stockStream.send(new Object[]{"WSO2", 200L});
+        AssertJUnit.assertEquals(0, TestStoreWithCache.addedRecordCount.get());
+        siddhiAppRuntime.shutdown();
+        AssertJUnit.assertEquals(2, TestStoreWithCache.addedRecordCount.get());
+    }
+
+    @Test(expectedExceptions = SiddhiAppCreationException.class)
+    public void recordTableWriteBehindTest5() {
+        log.info("recordTableWriteBehindTest5 - invalid write mode");
+        createSiddhiAppRuntime(", write.mode=\"later\"");
+    }
+}
@@ -32,6 +32,7 @@ import io.siddhi.query.api.definition.TableDefinition;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Custom store for testing of in memory cache for store tables.
@@ -49,6 +50,11 @@ import java.util.Map;
         }
 )
 public class TestStoreWithCache extends AbstractQueryableRecordTable {
+    public static AtomicInteger findCount = new AtomicInteger();
+    public static AtomicInteger addCount = new AtomicInteger();
+    public static AtomicInteger addedRecordCount = new AtomicInteger();
+    public static AtomicInteger updatedRecordCount = new AtomicInteger();
+
     @Override
     protected void connect() throws ConnectionUnavailableException {
 
@@ -77,12 +83,14 @@ public class TestStoreWithCache extends AbstractQueryableRecordTable {
 
     @Override
     protected void add(List<Object[]> records) throws ConnectionUnavailableException {
-
+        addCount.incrementAndGet();
+        addedRecordCount.addAndGet(records.size());
     }
 
     @Override
     protected RecordIterator<Object[]> find(Map<String, Object> findConditionParameterMap,
                                             CompiledCondition compiledCondition) throws ConnectionUnavailableException {
+        findCount.incrementAndGet();
         return null;
     }
 
@@ -102,7 +110,7 @@ public class TestStoreWithCache extends AbstractQueryableRecordTable {
     protected void update(CompiledCondition updateCondition, List<Map<String, Object>> updateConditionParameterMaps,
                           Map<String, CompiledExpression> updateSetExpressions,
                           List<Map<String, Object>> updateSetParameterMaps) throws ConnectionUnavailableException {
-
+        updatedRecordCount.addAndGet(updateConditionParameterMaps.size());
     }
 
     @Override
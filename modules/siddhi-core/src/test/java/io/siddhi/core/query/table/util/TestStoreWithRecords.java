@@ -0,0 +1,292 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.siddhi.core.query.table.util;
+
+import io.siddhi.annotation.Example;
+import io.siddhi.annotation.Extension;
+import io.siddhi.core.exception.ConnectionUnavailableException;
+import io.siddhi.core.exception.QueryableRecordTableException;
+import io.siddhi.core.table.record.AbstractQueryableRecordTable;
+import io.siddhi.core.table.record.BaseExpressionVisitor;
+import io.siddhi.core.table.record.ExpressionBuilder;
+import io.siddhi.core.table.record.RecordIterator;
+import io.siddhi.core.util.collection.operator.CompiledCondition;
+import io.siddhi.core.util.collection.operator.CompiledExpression;
+import io.siddhi.core.util.collection.operator.CompiledSelection;
+import io.siddhi.core.util.config.ConfigReader;
+import io.siddhi.query.api.definition.Attribute;
+import io.siddhi.query.api.definition.TableDefinition;
+import io.siddhi.query.api.expression.condition.Compare;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Custom store for testing of store tables, keeping its records in memory. Conditions are matched by the equalities
+ * between the store attributes and constants or stream attributes, other comparisons are ignored.
+ */
+@Extension(
+        name = "testWithRecords",
+        namespace = "store",
+        description = "Using this implementation a testing for store extension holding records can be done.",
+        examples = {
+                @Example(
+                        syntax = "@store(type='testWithRecords')" +
+                                "define table testTable (symbol string, price int, volume float); ",
+                        description = "The above syntax initializes a test type store holding records."
+                )
+        }
+)
+public class TestStoreWithRecords extends AbstractQueryableRecordTable {
+    public static AtomicInteger findCount = new AtomicInteger();
+    public static volatile CountDownLatch findLatch;
+    public static volatile boolean selectionUnsupported;
+    private final List<Object[]> records = new ArrayList<>();
+    private TableDefinition tableDefinition;
+
+    @Override
+    protected void connect() throws ConnectionUnavailableException {
+
+    }
+
+    @Override
+    protected RecordIterator<Object[]> query(Map<String, Object> parameterMap, CompiledCondition compiledCondition,
+                                             CompiledSelection compiledSelection, Attribute[] outputAttributes)
+            throws ConnectionUnavailableException {
+        return match(parameterMap, compiledCondition);
+    }
+
+    @Override
+    protected CompiledSelection compileSelection(List<SelectAttributeBuilder> selectAttributeBuilders,
+                                                 List<ExpressionBuilder> groupByExpressionBuilder,
+                                                 ExpressionBuilder havingExpressionBuilder,
+                                                 List<OrderByAttributeBuilder> orderByAttributeBuilders, Long limit,
+                                                 Long offset) {
+        if (selectionUnsupported) {
+            throw new QueryableRecordTableException("Selections are not supported");
+        }
+        return null;
+    }
+
+    @Override
+    protected void init(TableDefinition tableDefinition, ConfigReader configReader) {
+        this.tableDefinition = tableDefinition;
+    }
+
+    @Override
+    protected void add(List<Object[]> records) throws ConnectionUnavailableException {
+        synchronized (this.records) {
+            for (Object[] record : records) {
+                this.records.add(record.clone());
+            }
+        }
+    }
+
+    @Override
+    protected RecordIterator<Object[]> find(Map<String, Object> findConditionParameterMap,
+                                            CompiledCondition compiledCondition) throws ConnectionUnavailableException {
+        findCount.incrementAndGet();
+        CountDownLatch latch = findLatch;
+        if (latch != null) {
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return match(findConditionParameterMap, compiledCondition);
+    }
+
+    @Override
+    protected boolean contains(Map<String, Object> containsConditionParameterMap,
+                               CompiledCondition compiledCondition) throws ConnectionUnavailableException {
+        return match(containsConditionParameterMap, compiledCondition).hasNext();
+    }
+
+    @Override
+    protected void delete(List<Map<String, Object>> deleteConditionParameterMaps,
+                          CompiledCondition compiledCondition) throws ConnectionUnavailableException {
+        synchronized (records) {
+            for (Map<String, Object> parameterMap : deleteConditionParameterMaps) {
+                records.removeIf(record -> ((EqualityCondition) compiledCondition).matches(record, parameterMap));
+            }
+        }
+    }
+
+    @Override
+    protected void update(CompiledCondition updateCondition, List<Map<String, Object>> updateConditionParameterMaps,
+                          Map<String, CompiledExpression> updateSetExpressions,
+                          List<Map<String, Object>> updateSetParameterMaps) throws ConnectionUnavailableException {
+        synchronized (records) {
+            for (int i = 0; i < updateConditionParameterMaps.size(); i++) {
+                update(updateCondition, updateConditionParameterMaps.get(i), updateSetExpressions,
+                        updateSetParameterMaps.get(i));
+            }
+        }
+    }
+
+    @Override
+    protected void updateOrAdd(CompiledCondition updateCondition,
+                               List<Map<String, Object>> updateConditionParameterMaps,
+                               Map<String, CompiledExpression> updateSetExpressions,
+                               List<Map<String, Object>> updateSetParameterMaps,
+                               List<Object[]> addingRecords) throws ConnectionUnavailableException {
+        synchronized (records) {
+            for (int i = 0; i < updateConditionParameterMaps.size(); i++) {
+                if (!update(updateCondition, updateConditionParameterMaps.get(i), updateSetExpressions,
+                        updateSetParameterMaps.get(i))) {
+                    records.add(addingRecords.get(i).clone());
+                }
+            }
+        }
+    }
+
+    @Override
+    protected CompiledCondition compileCondition(ExpressionBuilder expressionBuilder) {
+        EqualityCondition equalityCondition = new EqualityCondition();
+        expressionBuilder.build(equalityCondition);
+        return equalityCondition;
+    }
+
+    @Override
+    protected CompiledExpression compileSetAttribute(ExpressionBuilder expressionBuilder) {
+        EqualityCondition setValue = new EqualityCondition();
+        expressionBuilder.build(setValue);
+        return setValue;
+    }
+
+    @Override
+    protected void disconnect() {
+
+    }
+
+    @Override
+    protected void destroy() {
+
+    }
+
+    private RecordIterator<Object[]> match(Map<String, Object> parameterMap, CompiledCondition compiledCondition) {
+        List<Object[]> matchingRecords = new ArrayList<>();
+        synchronized (records) {
+            for (Object[] record : records) {
+                if (((EqualityCondition) compiledCondition).matches(record, parameterMap)) {
+                    matchingRecords.add(record.clone());
+                }
+            }
+        }
+        Iterator<Object[]> iterator = matchingRecords.iterator();
+        return new RecordIterator<Object[]>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public Object[] next() {
+                return iterator.next();
+            }
+
+            @Override
+            public void close() {
+
+            }
+        };
+    }
+
+    private boolean update(CompiledCondition updateCondition, Map<String, Object> conditionParameterMap,
+                           Map<String, CompiledExpression> updateSetExpressions,
+                           Map<String, Object> setParameterMap) {
+        boolean updated = false;
+        for (Object[] record : records) {
+            if (((EqualityCondition) updateCondition).matches(record, conditionParameterMap)) {
+                for (Map.Entry<String, CompiledExpression> setExpression : updateSetExpressions.entrySet()) {
+                    record[tableDefinition.getAttributePosition(setExpression.getKey())] =
+                            ((EqualityCondition) setExpression.getValue()).value(setParameterMap);
+                }
+                updated = true;
+            }
+        }
+        return updated;
+    }
+
+    /**
+     * Equalities between the store attributes and constants or stream attributes found in a condition, or the value
+     * of a set attribute.
+     */
+    private class EqualityCondition extends BaseExpressionVisitor implements CompiledCondition {
+        private final List<Integer> attributePositions = new ArrayList<>();
+        private final List<Object> constants = new ArrayList<>();
+        private final List<String> parameterIds = new ArrayList<>();
+        private boolean inEquality;
+        private Integer attributePosition;
+        private Object constant;
+        private String parameterId;
+
+        @Override
+        public void beginVisitCompare(Compare.Operator operator) {
+            inEquality = operator == Compare.Operator.EQUAL;
+            attributePosition = null;
+            constant = null;
+            parameterId = null;
+        }
+
+        @Override
+        public void endVisitCompare(Compare.Operator operator) {
+            if (inEquality && attributePosition != null && (constant != null || parameterId != null)) {
+                attributePositions.add(attributePosition);
+                constants.add(constant);
+                parameterIds.add(parameterId);
+            }
+            inEquality = false;
+        }
+
+        @Override
+        public void beginVisitStoreVariable(String storeId, String attributeName, Attribute.Type type) {
+            attributePosition = tableDefinition.getAttributePosition(attributeName);
+        }
+
+        @Override
+        public void beginVisitConstant(Object value, Attribute.Type type) {
+            constant = value;
+        }
+
+        @Override
+        public void beginVisitStreamVariable(String id, String streamId, String attributeName, Attribute.Type type) {
+            parameterId = id;
+        }
+
+        private boolean matches(Object[] record, Map<String, Object> parameterMap) {
+            for (int i = 0; i < attributePositions.size(); i++) {
+                Object value = parameterIds.get(i) != null ? parameterMap.get(parameterIds.get(i)) : constants.get(i);
+                if (!Objects.equals(record[attributePositions.get(i)], value)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private Object value(Map<String, Object> parameterMap) {
+            return parameterId != null ? parameterMap.get(parameterId) : constant;
+        }
+    }
+}
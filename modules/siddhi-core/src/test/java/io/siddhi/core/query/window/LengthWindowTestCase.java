@@ -279,4 +279,48 @@ public class LengthWindowTestCase {
         AssertJUnit.assertTrue(eventArrived);
         siddhiAppRuntime.shutdown();
     }
+
+    @Test
+    public void lengthWindowTest6() throws InterruptedException {
+        log.info("Testing length window larger than the initial ring buffer size");
+
+        final int length = 1000;
+        SiddhiManager siddhiManager = new SiddhiManager();
+
+        String cseEventStream = "define stream cseEventStream (symbol string, price float, volume int);";
+        String query = "@info(name = 'query1') from cseEventStream#window.length(" + length + ") " +
+                "select symbol, volume, count() as count " +
+                "insert all events into outputStream ;";
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(cseEventStream + query);
+
+        siddhiAppRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timestamp, Event[] inEvents, Event[] removeEvents) {
+                if (removeEvents != null) {
+                    for (Event event : removeEvents) {
+                        AssertJUnit.assertEquals("Remove event order", removeEventCount, event.getData(1));
+                        removeEventCount++;
+                    }
+                }
+                if (inEvents != null) {
+                    for (Event event : inEvents) {
+                        AssertJUnit.assertEquals("In event order", inEventCount, event.getData(1));
+                        AssertJUnit.assertEquals("Window size", (long) Math.min(length, inEventCount + 1),
+                                event.getData(2));
+                        inEventCount++;
+                    }
+                }
+            }
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("cseEventStream");
+        siddhiAppRuntime.start();
+        for (int i = 0; i < 2500; i++) {
+            inputHandler.send(new Object[]{"IBM", 700f, i});
+        }
+        AssertJUnit.assertEquals(2500, inEventCount);
+        AssertJUnit.assertEquals(1500, removeEventCount);
+        siddhiAppRuntime.shutdown();
+    }
 }
@@ -32,6 +32,8 @@ import org.testng.AssertJUnit;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class SortWindowTestCase {
@@ -228,4 +230,56 @@ public class SortWindowTestCase {
         SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(cseEventStream + query);
     }
 
+    @Test
+    public void sortWindowTest7() throws InterruptedException {
+        log.info("sortWindow test7");
+
+        SiddhiManager siddhiManager = new SiddhiManager();
+
+        String cseEventStream = "" +
+                "define stream cseEventStream (symbol string, price float, volume long);";
+        String query = "" +
+                "@info(name = 'query1') " +
+                "from cseEventStream#window.sort(3, volume, 'desc') " +
+                "select symbol, volume " +
+                "insert all events into outputStream ;";
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(cseEventStream + query);
+
+        List<Object[]> removedEvents = new ArrayList<>();
+        siddhiAppRuntime.addCallback("query1", new QueryCallback() {
+            @Override
+            public void receive(long timestamp, Event[] inEvents, Event[] removeEvents) {
+                EventPrinter.print(timestamp, inEvents, removeEvents);
+                if (inEvents != null) {
+                    inEventCount = inEventCount + inEvents.length;
+                }
+                if (removeEvents != null) {
+                    for (Event event : removeEvents) {
+                        removedEvents.add(event.getData());
+                    }
+                }
+                eventArrived = true;
+            }
+
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("cseEventStream");
+        siddhiAppRuntime.start();
+        inputHandler.send(new Object[]{"A", 55.6f, 100L});
+        inputHandler.send(new Object[]{"B", 75.6f, 10L});
+        inputHandler.send(new Object[]{"C", 57.6f, 200L});
+        inputHandler.send(new Object[]{"D", 55.6f, 10L});
+        inputHandler.send(new Object[]{"E", 57.6f, 300L});
+        inputHandler.send(new Object[]{"F", 57.6f, 5L});
+        AssertJUnit.assertEquals(6, inEventCount);
+        AssertJUnit.assertEquals(3, removedEvents.size());
+        AssertJUnit.assertArrayEquals(new Object[]{"D", 10L}, removedEvents.get(0));
+        AssertJUnit.assertArrayEquals(new Object[]{"B", 10L}, removedEvents.get(1));
+        AssertJUnit.assertArrayEquals(new Object[]{"F", 5L}, removedEvents.get(2));
+        AssertJUnit.assertTrue(eventArrived);
+        siddhiAppRuntime.shutdown();
+
+    }
+
 }
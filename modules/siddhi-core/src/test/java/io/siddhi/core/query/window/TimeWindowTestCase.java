@@ -25,11 +25,15 @@ import io.siddhi.core.query.output.callback.QueryCallback;
 import io.siddhi.core.stream.input.InputHandler;
 import io.siddhi.core.stream.output.StreamCallback;
 import io.siddhi.core.util.EventPrinter;
+import io.siddhi.core.util.persistence.InMemoryPersistenceStore;
 import org.apache.log4j.Logger;
 import org.testng.AssertJUnit;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class TimeWindowTestCase {
     private static final Logger log = Logger.getLogger(TimeWindowTestCase.class);
     private int inEventCount;
@@ -222,4 +226,203 @@ public class TimeWindowTestCase {
         SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(cseEventStream + query);
     }
 
+    @Test
+    public void timeWindowTest7() throws InterruptedException {
+        log.info("Time window in pane mode");
+        SiddhiManager siddhiManager = new SiddhiManager();
+
+        String cseEventStream = "" +
+                "define stream cseEventStream (symbol string, price int, volume int);";
+        String query = "" +
+                "@info(name = 'query1') " +
+                "from cseEventStream#window.time(1 sec, 100) " +
+                "select sum(price) as totalPrice, count() as totalCount, avg(price) as avgPrice, " +
+                "max(price) as maxPrice, min(price) as minPrice " +
+                "insert into outputStream ;";
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(cseEventStream + query);
+        List<Object[]> results = new ArrayList<>();
+        siddhiAppRuntime.addCallback("outputStream", new StreamCallback() {
+            @Override
+            public void receive(Event[] events) {
+                EventPrinter.print(events);
+                for (Event event : events) {
+                    results.add(event.getData());
+                }
+            }
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("cseEventStream");
+        siddhiAppRuntime.start();
+        inputHandler.send(1000, new Object[]{"IBM", 10, 0});
+        inputHandler.send(1050, new Object[]{"IBM", 20, 1});
+        inputHandler.send(1150, new Object[]{"IBM", 30, 2});
+        inputHandler.send(2050, new Object[]{"IBM", 40, 3});
+        inputHandler.send(2120, new Object[]{"IBM", 50, 4});
+        inputHandler.send(3500, new Object[]{"IBM", 5, 5});
+        siddhiAppRuntime.shutdown();
+
+        AssertJUnit.assertEquals(6, results.size());
+        AssertJUnit.assertArrayEquals(new Object[]{10L, 1L, 10.0, 10, 10}, results.get(0));
+        AssertJUnit.assertArrayEquals(new Object[]{30L, 2L, 15.0, 20, 10}, results.get(1));
+        AssertJUnit.assertArrayEquals(new Object[]{60L, 3L, 20.0, 30, 10}, results.get(2));
+        AssertJUnit.assertArrayEquals(new Object[]{100L, 4L, 25.0, 40, 10}, results.get(3));
+        AssertJUnit.assertArrayEquals(new Object[]{120L, 3L, 40.0, 50, 30}, results.get(4));
+        AssertJUnit.assertArrayEquals(new Object[]{5L, 1L, 5.0, 5, 5}, results.get(5));
+    }
+
+    @Test
+    public void timeWindowTest8() throws InterruptedException {
+        log.info("Time window in pane mode with group by");
+        SiddhiManager siddhiManager = new SiddhiManager();
+
+        String cseEventStream = "" +
+                "define stream cseEventStream (symbol string, price float, volume int);";
+        String query = "" +
+                "@info(name = 'query1') " +
+                "from cseEventStream#window.time(1 sec, 500) " +
+                "select symbol, sum(price) as totalPrice " +
+                "group by symbol " +
+                "insert into outputStream ;";
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(cseEventStream + query);
+        List<Object[]> results = new ArrayList<>();
+        siddhiAppRuntime.addCallback("outputStream", new StreamCallback() {
+            @Override
+            public void receive(Event[] events) {
+                EventPrinter.print(events);
+                for (Event event : events) {
+                    results.add(event.getData());
+                }
+            }
+        });
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("cseEventStream");
+        siddhiAppRuntime.start();
+        inputHandler.send(1000, new Object[]{"IBM", 10f, 0});
+        inputHandler.send(1100, new Object[]{"WSO2", 20f, 1});
+        inputHandler.send(1600, new Object[]{"IBM", 30f, 2});
+        inputHandler.send(2600, new Object[]{"IBM", 40f, 3});
+        inputHandler.send(2700, new Object[]{"WSO2", 50f, 4});
+        siddhiAppRuntime.shutdown();
+
+        AssertJUnit.assertEquals(5, results.size());
+        AssertJUnit.assertArrayEquals(new Object[]{"IBM", 10.0}, results.get(0));
+        AssertJUnit.assertArrayEquals(new Object[]{"WSO2", 20.0}, results.get(1));
+        AssertJUnit.assertArrayEquals(new Object[]{"IBM", 40.0}, results.get(2));
+        AssertJUnit.assertArrayEquals(new Object[]{"IBM", 70.0}, results.get(3));
+        AssertJUnit.assertArrayEquals(new Object[]{"WSO2", 50.0}, results.get(4));
+    }
+
+    @Test(expectedExceptions = SiddhiAppCreationException.class)
+    public void timeWindowTest9() throws InterruptedException {
+        log.info("Time window in pane mode with an aggregator not supporting panes");
+        SiddhiManager siddhiManager = new SiddhiManager();
+
+        String cseEventStream = "" +
+                "define stream cseEventStream (symbol string, price float, volume int);";
+        String query = "" +
+                "@info(name = 'query1') " +
+                "from cseEventStream#window.time(1 sec, 100) " +
+                "select stdDev(price) as deviation " +
+                "insert into outputStream ;";
+
+        siddhiManager.createSiddhiAppRuntime(cseEventStream + query);
+    }
+
+    @Test(expectedExceptions = SiddhiAppCreationException.class)
+    public void timeWindowTest10() throws InterruptedException {
+        log.info("Time window in pane mode with pane time larger than the window time");
+        SiddhiManager siddhiManager = new SiddhiManager();
+
+        String cseEventStream = "" +
+                "define stream cseEventStream (symbol string, price float, volume int);";
+        String query = "" +
+                "@info(name = 'query1') " +
+                "from cseEventStream#window.time(1 sec, 2 sec) " +
+                "select sum(price) as totalPrice " +
+                "insert into outputStream ;";
+
+        siddhiManager.createSiddhiAppRuntime(cseEventStream + query);
+    }
+
+    @Test
+    public void timeWindowTest11() throws Exception {
+        log.info("Time window in pane mode with panes shared by queries of different window times");
+        SiddhiManager siddhiManager = new SiddhiManager();
+        siddhiManager.setPersistenceStore(new InMemoryPersistenceStore());
+
+        String cseEventStream = "" +
+                "define stream cseEventStream (symbol string, price float, volume int);";
+        String query = "" +
+                "@info(name = 'query1') " +
+                "from cseEventStream#window.time(1 sec, 500) " +
+                "select symbol, sum(price) as totalPrice " +
+                "group by symbol " +
+                "insert into outputStream1 ;" +
+                "" +
+                "@info(name = 'query2') " +
+                "from cseEventStream#window.time(2 sec, 500) " +
+                "select symbol, sum(price) as totalPrice " +
+                "group by symbol " +
+                "insert into outputStream2 ;";
+
+        List<Object[]> results1 = new ArrayList<>();
+        List<Object[]> results2 = new ArrayList<>();
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(cseEventStream + query);
+        addCallbacks(siddhiAppRuntime, results1, results2);
+        siddhiAppRuntime.start();
+        siddhiAppRuntime.getInputHandler("cseEventStream").send(new Event[]{
+                new Event(1000, new Object[]{"IBM", 10f, 0}),
+                new Event(1100, new Object[]{"WSO2", 20f, 1}),
+                new Event(1600, new Object[]{"IBM", 30f, 2}),
+                new Event(2600, new Object[]{"IBM", 40f, 3}),
+                new Event(2700, new Object[]{"WSO2", 50f, 4})});
+        siddhiAppRuntime.persist().getFuture().get();
+        siddhiAppRuntime.shutdown();
+
+        SiddhiAppRuntime restoredAppRuntime = siddhiManager.createSiddhiAppRuntime(cseEventStream + query);
+        addCallbacks(restoredAppRuntime, results1, results2);
+        restoredAppRuntime.start();
+        restoredAppRuntime.restoreLastRevision();
+        restoredAppRuntime.getInputHandler("cseEventStream").send(3100, new Object[]{"IBM", 5f, 5});
+        restoredAppRuntime.shutdown();
+
+        AssertJUnit.assertEquals(6, results1.size());
+        AssertJUnit.assertArrayEquals(new Object[]{"IBM", 10.0}, results1.get(0));
+        AssertJUnit.assertArrayEquals(new Object[]{"WSO2", 20.0}, results1.get(1));
+        AssertJUnit.assertArrayEquals(new Object[]{"IBM", 40.0}, results1.get(2));
+        AssertJUnit.assertArrayEquals(new Object[]{"IBM", 70.0}, results1.get(3));
+        AssertJUnit.assertArrayEquals(new Object[]{"WSO2", 50.0}, results1.get(4));
+        AssertJUnit.assertArrayEquals(new Object[]{"IBM", 45.0}, results1.get(5));
+
+        AssertJUnit.assertEquals(6, results2.size());
+        AssertJUnit.assertArrayEquals(new Object[]{"IBM", 10.0}, results2.get(0));
+        AssertJUnit.assertArrayEquals(new Object[]{"WSO2", 20.0}, results2.get(1));
+        AssertJUnit.assertArrayEquals(new Object[]{"IBM", 40.0}, results2.get(2));
+        AssertJUnit.assertArrayEquals(new Object[]{"IBM", 80.0}, results2.get(3));
+        AssertJUnit.assertArrayEquals(new Object[]{"WSO2", 70.0}, results2.get(4));
+        AssertJUnit.assertArrayEquals(new Object[]{"IBM", 85.0}, results2.get(5));
+    }
+
+    private void addCallbacks(SiddhiAppRuntime siddhiAppRuntime, List<Object[]> results1, List<Object[]> results2) {
+        siddhiAppRuntime.addCallback("outputStream1", new StreamCallback() {
+            @Override
+            public void receive(Event[] events) {
+                EventPrinter.print(events);
+                for (Event event : events) {
+                    results1.add(event.getData());
+                }
+            }
+        });
+        siddhiAppRuntime.addCallback("outputStream2", new StreamCallback() {
+            @Override
+            public void receive(Event[] events) {
+                EventPrinter.print(events);
+                for (Event event : events) {
+                    results2.add(event.getData());
+                }
+            }
+        });
+    }
 }
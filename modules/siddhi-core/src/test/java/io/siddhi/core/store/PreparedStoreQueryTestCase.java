@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.core.store;
+
+import io.siddhi.core.SiddhiAppRuntime;
+import io.siddhi.core.SiddhiManager;
+import io.siddhi.core.event.Event;
+import io.siddhi.core.exception.StoreQueryCreationException;
+import io.siddhi.core.query.PreparedStoreQuery;
+import io.siddhi.core.stream.input.InputHandler;
+import io.siddhi.core.util.EventPrinter;
+import io.siddhi.query.api.definition.Attribute;
+import org.apache.log4j.Logger;
+import org.testng.AssertJUnit;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class PreparedStoreQueryTestCase {
+
+    private static final Logger log = Logger.getLogger(PreparedStoreQueryTestCase.class);
+    private SiddhiAppRuntime siddhiAppRuntime;
+
+    @BeforeMethod
+    public void init() throws InterruptedException {
+        SiddhiManager siddhiManager = new SiddhiManager();
+        String streams = "" +
+                "define stream StockStream (symbol string, price float, volume long); " +
+                "define table StockTable (symbol string, price float, volume long); ";
+        String query = "" +
+                "@info(name = 'query1') " +
+                "from StockStream " +
+                "insert into StockTable ;";
+        siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams + query);
+        InputHandler stockStream = siddhiAppRuntime.getInputHandler("StockStream");
+        siddhiAppRuntime.start();
+        stockStream.send(new Object[]{"WSO2", 55.6f, 100L});
+        stockStream.send(new Object[]{"IBM", 75.6f, 200L});
+        stockStream.send(new Object[]{"WSO2", 57.6f, 300L});
+    }
+
+    @AfterMethod
+    public void shutdown() {
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void preparedStoreQueryTest1() {
+        log.info("preparedStoreQueryTest1 - find with a parameter");
+        PreparedStoreQuery preparedStoreQuery = siddhiAppRuntime.prepareQuery("" +
+                "from StockTable " +
+                "on symbol == ?symbol " +
+                "select symbol, volume ");
+        AssertJUnit.assertEquals(Attribute.Type.STRING, preparedStoreQuery.getParameterTypes().get("symbol"));
+        AssertJUnit.assertEquals(2, preparedStoreQuery.getStoreQueryOutputAttributes().length);
+
+        Event[] events = preparedStoreQuery.execute(Collections.singletonMap("symbol", "WSO2"));
+        EventPrinter.print(events);
+        AssertJUnit.assertEquals(2, events.length);
+
+        events = preparedStoreQuery.execute(Collections.singletonMap("symbol", "IBM"));
+        EventPrinter.print(events);
+        AssertJUnit.assertEquals(1, events.length);
+        AssertJUnit.assertEquals(200L, events[0].getData()[1]);
+    }
+
+    @Test
+    public void preparedStoreQueryTest2() {
+        log.info("preparedStoreQueryTest2 - find with parameters of several types");
+        PreparedStoreQuery preparedStoreQuery = siddhiAppRuntime.prepareQuery("" +
+                "from StockTable " +
+                "on price > ?minPrice and volume < ?maxVolume and symbol != '?symbol' " +
+                "select symbol, price ");
+        AssertJUnit.assertEquals(2, preparedStoreQuery.getParameterTypes().size());
+        AssertJUnit.assertEquals(Attribute.Type.FLOAT, preparedStoreQuery.getParameterTypes().get("minPrice"));
+        AssertJUnit.assertEquals(Attribute.Type.LONG, preparedStoreQuery.getParameterTypes().get("maxVolume"));
+
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("minPrice", 56f);
+        parameters.put("maxVolume", 250L);
+        Event[] events = preparedStoreQuery.execute(parameters);
+        EventPrinter.print(events);
+        AssertJUnit.assertEquals(1, events.length);
+        AssertJUnit.assertEquals("IBM", events[0].getData()[0]);
+
+        parameters.put("maxVolume", 400L);
+        events = preparedStoreQuery.execute(parameters);
+        AssertJUnit.assertEquals(2, events.length);
+    }
+
+    @Test
+    public void preparedStoreQueryTest3() {
+        log.info("preparedStoreQueryTest3 - insert and delete with parameters");
+        PreparedStoreQuery insertQuery = siddhiAppRuntime.prepareQuery("" +
+                "select ?symbol as symbol, ?price as price, ?volume as volume " +
+                "insert into StockTable ");
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("symbol", "GOOG");
+        parameters.put("price", 95.5f);
+        parameters.put("volume", 400L);
+        insertQuery.execute(parameters);
+        parameters.put("symbol", "ORCL");
+        insertQuery.execute(parameters);
+        AssertJUnit.assertEquals(5, siddhiAppRuntime.query("from StockTable").length);
+
+        PreparedStoreQuery deleteQuery = siddhiAppRuntime.prepareQuery("" +
+                "delete StockTable on StockTable.symbol == ?symbol ");
+        deleteQuery.execute(Collections.singletonMap("symbol", "WSO2"));
+        Event[] events = siddhiAppRuntime.query("from StockTable");
+        EventPrinter.print(events);
+        AssertJUnit.assertEquals(3, events.length);
+    }
+
+    @Test
+    public void preparedStoreQueryTest4() throws Exception {
+        log.info("preparedStoreQueryTest4 - concurrent executions");
+        PreparedStoreQuery preparedStoreQuery = siddhiAppRuntime.prepareQuery("" +
+                "from StockTable " +
+                "on symbol == ?symbol " +
+                "select symbol, sum(volume) as totalVolume " +
+                "group by symbol ");
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                String symbol = i % 2 == 0 ? "WSO2" : "IBM";
+                long totalVolume = i % 2 == 0 ? 400L : 200L;
+                results.add(executorService.submit(() -> {
+                    for (int j = 0; j < 200; j++) {
+                        Event[] events = preparedStoreQuery.execute(Collections.singletonMap("symbol", symbol));
+                        if (events.length != 1 || !events[0].getData()[1].equals(totalVolume)) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                AssertJUnit.assertTrue(result.get());
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void preparedStoreQueryTest5() {
+        log.info("preparedStoreQueryTest5 - parameter types given when preparing");
+        PreparedStoreQuery preparedStoreQuery = siddhiAppRuntime.prepareQuery("" +
+                "from StockTable " +
+                "on symbol == ?symbol " +
+                "select symbol, volume * ?factor as scaledVolume ",
+                Collections.singletonMap("factor", Attribute.Type.LONG));
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("symbol", "IBM");
+        parameters.put("factor", 3L);
+        Event[] events = preparedStoreQuery.execute(parameters);
+        AssertJUnit.assertEquals(1, events.length);
+        AssertJUnit.assertEquals(600L, events[0].getData()[1]);
+    }
+
+    @Test(expectedExceptions = StoreQueryCreationException.class)
+    public void preparedStoreQueryTest6() {
+        log.info("preparedStoreQueryTest6 - parameter type cannot be inferred");
+        siddhiAppRuntime.prepareQuery("" +
+                "from StockTable " +
+                "select symbol, ?label as label ");
+    }
+
+    @Test(expectedExceptions = StoreQueryCreationException.class)
+    public void preparedStoreQueryTest7() {
+        log.info("preparedStoreQueryTest7 - parameter value missing");
+        PreparedStoreQuery preparedStoreQuery = siddhiAppRuntime.prepareQuery("" +
+                "from StockTable " +
+                "on symbol == ?symbol ");
+        preparedStoreQuery.execute(Collections.emptyMap());
+    }
+
+    @Test(expectedExceptions = StoreQueryCreationException.class)
+    public void preparedStoreQueryTest8() {
+        log.info("preparedStoreQueryTest8 - parameter value of a wrong type");
+        PreparedStoreQuery preparedStoreQuery = siddhiAppRuntime.prepareQuery("" +
+                "from StockTable " +
+                "on volume == ?volume ");
+        preparedStoreQuery.execute(Collections.singletonMap("volume", 100));
+    }
+}
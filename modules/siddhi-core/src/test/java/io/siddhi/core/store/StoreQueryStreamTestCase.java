@@ -0,0 +1,239 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.siddhi.core.store;
+
+import io.siddhi.core.SiddhiAppRuntime;
+import io.siddhi.core.SiddhiManager;
+import io.siddhi.core.event.Event;
+import io.siddhi.core.exception.StoreQueryCreationException;
+import io.siddhi.core.query.StoreQueryResultIterator;
+import io.siddhi.core.query.table.util.TestStoreWithRecords;
+import io.siddhi.core.stream.input.InputHandler;
+import org.apache.log4j.Logger;
+import org.testng.AssertJUnit;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class StoreQueryStreamTestCase {
+
+    private static final Logger log = Logger.getLogger(StoreQueryStreamTestCase.class);
+    private SiddhiAppRuntime siddhiAppRuntime;
+
+    @BeforeMethod
+    public void init() throws InterruptedException {
+        SiddhiManager siddhiManager = new SiddhiManager();
+        String streams = "" +
+                "define stream StockStream (symbol string, price float, volume long); " +
+                "define table StockTable (symbol string, price float, volume long); " +
+                "define window StockWindow (symbol string, price float, volume long) length(5); ";
+        String query = "" +
+                "@info(name = 'query1') " +
+                "from StockStream " +
+                "insert into StockTable ;" +
+                "" +
+                "@info(name = 'query2') " +
+                "from StockStream " +
+                "insert into StockWindow ;";
+        siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(streams + query);
+        InputHandler stockStream = siddhiAppRuntime.getInputHandler("StockStream");
+        siddhiAppRuntime.start();
+        for (long i = 0; i < 10; i++) {
+            stockStream.send(new Object[]{i % 2 == 0 ? "WSO2" : "IBM", 50f + i, i});
+        }
+    }
+
+    @AfterMethod
+    public void shutdown() {
+        siddhiAppRuntime.shutdown();
+    }
+
+    @Test
+    public void storeQueryStreamTest1() {
+        log.info("storeQueryStreamTest1 - read a table in parts");
+        List<Event> events = new ArrayList<>();
+        try (StoreQueryResultIterator iterator = siddhiAppRuntime.queryStream("" +
+                "from StockTable " +
+                "select symbol, volume ", 3)) {
+            iterator.forEachRemaining(events::add);
+        }
+        AssertJUnit.assertEquals(10, events.size());
+        for (int i = 0; i < events.size(); i++) {
+            AssertJUnit.assertEquals((long) i, events.get(i).getData()[1]);
+        }
+    }
+
+    @Test
+    public void storeQueryStreamTest2() {
+        log.info("storeQueryStreamTest2 - offset and limit across parts");
+        List<Event> events = new ArrayList<>();
+        try (StoreQueryResultIterator iterator = siddhiAppRuntime.queryStream("" +
+                "from StockTable " +
+                "on volume > 0 " +
+                "select symbol, volume " +
+                "having symbol == 'WSO2' " +
+                "offset 1 " +
+                "limit 2 ", 2)) {
+            iterator.forEachRemaining(events::add);
+        }
+        AssertJUnit.assertEquals(2, events.size());
+        AssertJUnit.assertEquals(4L, events.get(0).getData()[1]);
+        AssertJUnit.assertEquals(6L, events.get(1).getData()[1]);
+    }
+
+    @Test
+    public void storeQueryStreamTest3() {
+        log.info("storeQueryStreamTest3 - aggregations read the result at once");
+        try (Stream<Event> events = siddhiAppRuntime.queryStream("" +
+                "from StockTable " +
+                "select symbol, sum(volume) as totalVolume " +
+                "group by symbol " +
+                "order by symbol ", 1).stream()) {
+            List<Object> totalVolumes = events.map(event -> event.getData()[1]).collect(Collectors.toList());
+            AssertJUnit.assertEquals(2, totalVolumes.size());
+            AssertJUnit.assertEquals(25L, totalVolumes.get(0));
+            AssertJUnit.assertEquals(20L, totalVolumes.get(1));
+        }
+    }
+
+    @Test
+    public void storeQueryStreamTest4() {
+        log.info("storeQueryStreamTest4 - read a window in parts");
+        try (Stream<Event> events = siddhiAppRuntime.queryStream("" +
+                "from StockWindow " +
+                "on price > 51 " +
+                "select symbol, price ", 2).stream()) {
+            AssertJUnit.assertEquals(5, events.count());
+        }
+    }
+
+    @Test
+    public void storeQueryStreamTest5() {
+        log.info("storeQueryStreamTest5 - stop reading before the end");
+        StoreQueryResultIterator iterator = siddhiAppRuntime.queryStream("from StockTable select *", 4);
+        AssertJUnit.assertTrue(iterator.hasNext());
+        AssertJUnit.assertEquals("WSO2", iterator.next().getData()[0]);
+        iterator.close();
+        AssertJUnit.assertFalse(iterator.hasNext());
+    }
+
+    @Test(timeOut = 60000)
+    public void storeQueryStreamTest7() throws InterruptedException {
+        log.info("storeQueryStreamTest7 - a table read in parts accepts writes once the result is closed");
+        StoreQueryResultIterator iterator = siddhiAppRuntime.queryStream("from StockTable select *", 4);
+        AssertJUnit.assertTrue(iterator.hasNext());
+        iterator.next();
+        iterator.close();
+        siddhiAppRuntime.getInputHandler("StockStream").send(new Object[]{"IBM", 60f, 10L});
+        try (Stream<Event> events = siddhiAppRuntime.queryStream("from StockTable select *", 4).stream()) {
+            AssertJUnit.assertEquals(11, events.count());
+        }
+    }
+
+    @Test
+    public void storeQueryStreamTest8() throws InterruptedException {
+        log.info("storeQueryStreamTest8 - read a cached record table whose store cannot compile the selection");
+        SiddhiAppRuntime recordTableRuntime = new SiddhiManager().createSiddhiAppRuntime("" +
+                "define stream StockStream (symbol string, volume long); " +
+                "@Store(type=\"testWithRecords\", @Cache(size=\"10\")) " +
+                "@PrimaryKey(\"symbol\") " +
+                "define table StockTable (symbol string, volume long); " +
+                "from StockStream " +
+                "insert into StockTable ;");
+        try {
+            recordTableRuntime.start();
+            InputHandler stockStream = recordTableRuntime.getInputHandler("StockStream");
+            stockStream.send(new Object[]{"WSO2", 100L});
+            stockStream.send(new Object[]{"IBM", 200L});
+            TestStoreWithRecords.selectionUnsupported = true;
+            List<Event> events = new ArrayList<>();
+            try (StoreQueryResultIterator iterator = recordTableRuntime.queryStream("" +
+                    "from StockTable " +
+                    "on symbol == 'IBM' " +
+                    "select symbol, volume ", 1)) {
+                iterator.forEachRemaining(events::add);
+            }
+            AssertJUnit.assertEquals(1, events.size());
+            AssertJUnit.assertEquals("IBM", events.get(0).getData()[0]);
+            AssertJUnit.assertEquals(200L, events.get(0).getData()[1]);
+        } finally {
+            TestStoreWithRecords.selectionUnsupported = false;
+            recordTableRuntime.shutdown();
+        }
+    }
+
+    @Test(timeOut = 60000)
+    public void storeQueryStreamTest9() throws InterruptedException {
+        log.info("storeQueryStreamTest9 - a table read in parts accepts writes while the result is not closed");
+        StoreQueryResultIterator iterator = siddhiAppRuntime.queryStream("from StockTable select *", 4);
+        AssertJUnit.assertTrue(iterator.hasNext());
+        iterator.next();
+        siddhiAppRuntime.getInputHandler("StockStream").send(new Object[]{"IBM", 60f, 10L});
+        try (Stream<Event> events = siddhiAppRuntime.queryStream("from StockTable select *", 4).stream()) {
+            AssertJUnit.assertEquals(11, events.count());
+        }
+    }
+
+    @Test(timeOut = 60000)
+    public void storeQueryStreamTest10() throws InterruptedException {
+        log.info("storeQueryStreamTest10 - an indexed table accepts writes while a limited stream of it is open");
+        SiddhiAppRuntime indexedTableRuntime = new SiddhiManager().createSiddhiAppRuntime("" +
+                "define stream StockStream (symbol string, volume long); " +
+                "@PrimaryKey(\"volume\") " +
+                "define table StockTable (symbol string, volume long); " +
+                "from StockStream " +
+                "insert into StockTable ;");
+        try {
+            indexedTableRuntime.start();
+            InputHandler stockStream = indexedTableRuntime.getInputHandler("StockStream");
+            for (long i = 0; i < 2500; i++) {
+                stockStream.send(new Object[]{"WSO2", i});
+            }
+            Stream<Event> limitedEvents = indexedTableRuntime.queryStream("from StockTable select *", 10).stream();
+            AssertJUnit.assertEquals(5, limitedEvents.limit(5).count());
+            Iterator<Event> events = indexedTableRuntime.queryStream("from StockTable select *", 10);
+            AssertJUnit.assertTrue(events.hasNext());
+            events.next();
+            stockStream.send(new Object[]{"IBM", 2500L});
+            int count = 1;
+            while (events.hasNext()) {
+                events.next();
+                count++;
+            }
+            AssertJUnit.assertTrue(count >= 2500);
+            try (Stream<Event> allEvents = indexedTableRuntime.queryStream("from StockTable select *", 10).stream()) {
+                AssertJUnit.assertEquals(2501, allEvents.count());
+            }
+        } finally {
+            indexedTableRuntime.shutdown();
+        }
+    }
+
+    @Test(expectedExceptions = StoreQueryCreationException.class)
+    public void storeQueryStreamTest6() {
+        log.info("storeQueryStreamTest6 - fetch size should be positive");
+        siddhiAppRuntime.queryStream("from StockTable select *", 0);
+    }
+}
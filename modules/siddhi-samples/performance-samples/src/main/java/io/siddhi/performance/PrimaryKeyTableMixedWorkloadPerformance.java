@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.siddhi.performance;
+
+import io.siddhi.core.SiddhiAppRuntime;
+import io.siddhi.core.SiddhiManager;
+import io.siddhi.core.event.Event;
+import io.siddhi.core.stream.input.InputHandler;
+import io.siddhi.core.stream.output.StreamCallback;
+
+/**
+ * Primary key table updated by one thread while several threads join against it by primary key.
+ */
+public class PrimaryKeyTableMixedWorkloadPerformance {
+
+    private static final int KEY_COUNT = 100000;
+    private static final int READER_COUNT = 4;
+
+    public static void main(String[] args) throws InterruptedException {
+        SiddhiManager siddhiManager = new SiddhiManager();
+
+        String siddhiApp = "" +
+                "define stream UpdateStockStream (symbol string, price float, volume long); " +
+                "define stream CheckStockStream (symbol string, timestamp long); " +
+                "@PrimaryKey('symbol') " +
+                "define table StockTable (symbol string, price float, volume long); " +
+                "" +
+                "@info(name = 'query1') " +
+                "from UpdateStockStream " +
+                "update or insert into StockTable " +
+                "   on StockTable.symbol == symbol ;" +
+                "" +
+                "@info(name = 'query2') " +
+                "from CheckStockStream join StockTable " +
+                "   on CheckStockStream.symbol == StockTable.symbol " +
+                "select StockTable.symbol, StockTable.price, CheckStockStream.timestamp " +
+                "insert into outputStream ;";
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        siddhiAppRuntime.addCallback("outputStream", new StreamCallback() {
+            public int eventCount = 0;
+            public long timeSpent = 0;
+            long startTime = System.currentTimeMillis();
+
+            @Override
+            public synchronized void receive(Event[] events) {
+                for (Event event : events) {
+                    eventCount++;
+                    timeSpent += (System.currentTimeMillis() - (Long) event.getData(2));
+                    if (eventCount % 10000000 == 0) {
+                        System.out.println("Join throughput : " + (eventCount * 1000L) /
+                                ((System.currentTimeMillis()) - startTime));
+                        System.out.println("Time spent :  " + (timeSpent * 1.0 / eventCount));
+                        startTime = System.currentTimeMillis();
+                        eventCount = 0;
+                        timeSpent = 0;
+                    }
+                }
+            }
+        });
+
+        String[] symbols = new String[KEY_COUNT];
+        for (int i = 0; i < KEY_COUNT; i++) {
+            symbols[i] = "symbol" + i;
+        }
+
+        InputHandler updateStockStream = siddhiAppRuntime.getInputHandler("UpdateStockStream");
+        InputHandler checkStockStream = siddhiAppRuntime.getInputHandler("CheckStockStream");
+        siddhiAppRuntime.start();
+        for (int i = 0; i < KEY_COUNT; i++) {
+            updateStockStream.send(new Object[]{symbols[i], 55.6f, (long) i});
+        }
+
+        for (int j = 0; j < READER_COUNT; j++) {
+            new Thread(() -> {
+                try {
+                    long i = 0;
+                    while (true) {
+                        checkStockStream.send(new Object[]{symbols[(int) (i++ % KEY_COUNT)],
+                                System.currentTimeMillis()});
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }).start();
+        }
+
+        long i = 0;
+        while (true) {
+            updateStockStream.send(new Object[]{symbols[(int) (i % KEY_COUNT)], 75.6f, i});
+            i++;
+        }
+    }
+}
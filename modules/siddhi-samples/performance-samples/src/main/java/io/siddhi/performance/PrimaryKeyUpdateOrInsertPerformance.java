@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.siddhi.performance;
+
+import io.siddhi.core.SiddhiAppRuntime;
+import io.siddhi.core.SiddhiManager;
+import io.siddhi.core.stream.input.InputHandler;
+
+/**
+ * Update heavy workload on tables with a composite primary key and a single numeric primary key, where each event
+ * updates or inserts a row by its primary key.
+ */
+public class PrimaryKeyUpdateOrInsertPerformance {
+
+    private static final int KEY_COUNT = 100000;
+    private static final int WARM_UP_EVENT_COUNT = 2000000;
+    private static final int EVENT_COUNT = 10000000;
+
+    public static void main(String[] args) throws InterruptedException {
+        String compositeKeyApp = "" +
+                "define stream StockStream (symbol string, price float, volume long); " +
+                "@PrimaryKey('symbol', 'volume') " +
+                "define table StockTable (symbol string, price float, volume long); " +
+                "" +
+                "@info(name = 'query1') " +
+                "from StockStream " +
+                "update or insert into StockTable " +
+                "   set StockTable.price = price " +
+                "   on StockTable.symbol == symbol and StockTable.volume == volume ;";
+        String numericKeyApp = "" +
+                "define stream StockStream (symbol string, price float, volume long); " +
+                "@PrimaryKey('volume') " +
+                "define table StockTable (symbol string, price float, volume long); " +
+                "" +
+                "@info(name = 'query1') " +
+                "from StockStream " +
+                "update or insert into StockTable " +
+                "   set StockTable.price = price " +
+                "   on StockTable.volume == volume ;";
+
+        run("Composite primary key", compositeKeyApp);
+        run("Numeric primary key", numericKeyApp);
+    }
+
+    private static void run(String name, String siddhiApp) throws InterruptedException {
+        SiddhiManager siddhiManager = new SiddhiManager();
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        InputHandler stockStream = siddhiAppRuntime.getInputHandler("StockStream");
+        siddhiAppRuntime.start();
+
+        String[] symbols = new String[KEY_COUNT];
+        for (int i = 0; i < KEY_COUNT; i++) {
+            symbols[i] = "symbol" + i;
+        }
+        send(stockStream, symbols, WARM_UP_EVENT_COUNT);
+
+        long startTime = System.nanoTime();
+        send(stockStream, symbols, EVENT_COUNT);
+        long timeSpent = System.nanoTime() - startTime;
+        System.out.println(name + " update or insert throughput : " + (EVENT_COUNT * 1000000000L) / timeSpent +
+                " events/s, average latency : " + (timeSpent * 1.0 / EVENT_COUNT) + " ns");
+        siddhiAppRuntime.shutdown();
+        siddhiManager.shutdown();
+    }
+
+    private static void send(InputHandler stockStream, String[] symbols, int eventCount)
+            throws InterruptedException {
+        for (int i = 0; i < eventCount; i++) {
+            int key = i % KEY_COUNT;
+            stockStream.send(new Object[]{symbols[key], (float) i, (long) key});
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.siddhi.performance;
+
+import io.siddhi.core.SiddhiAppRuntime;
+import io.siddhi.core.SiddhiManager;
+import io.siddhi.core.event.Event;
+import io.siddhi.core.stream.input.InputHandler;
+import io.siddhi.core.stream.output.StreamCallback;
+
+/**
+ * Session window with one million concurrent sessions. Events are played back one millisecond apart, hence the
+ * session window handles a timer on every event while one million sessions are alive.
+ */
+public class SessionWindowPerformance {
+
+    private static final int SESSION_COUNT = 1000000;
+
+    public static void main(String[] args) throws InterruptedException {
+        SiddhiManager siddhiManager = new SiddhiManager();
+
+        String siddhiApp = "" +
+                "@app:playback " +
+                "define stream PurchaseStream (user string, price float, timestamp long);" +
+                "" +
+                "@info(name = 'query1') " +
+                "from PurchaseStream#window.session(" + (SESSION_COUNT + SESSION_COUNT / 2) + ", user) " +
+                "select user, sum(price) as total, timestamp " +
+                "group by user " +
+                "insert into outputStream ;";
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        siddhiAppRuntime.addCallback("outputStream", new StreamCallback() {
+            public int eventCount = 0;
+            long startTime = System.currentTimeMillis();
+
+            @Override
+            public void receive(Event[] events) {
+                for (Event event : events) {
+                    eventCount++;
+                    if (eventCount % 1000000 == 0) {
+                        System.out.println("Throughput : " + (eventCount * 1000L) / ((System.currentTimeMillis()) -
+                                startTime));
+                        startTime = System.currentTimeMillis();
+                        eventCount = 0;
+                    }
+                }
+            }
+        });
+
+        String[] users = new String[SESSION_COUNT];
+        for (int i = 0; i < SESSION_COUNT; i++) {
+            users[i] = "user" + i;
+        }
+
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("PurchaseStream");
+        siddhiAppRuntime.start();
+        long timestamp = 0;
+        while (true) {
+            timestamp++;
+            inputHandler.send(timestamp, new Object[]{users[(int) (timestamp % SESSION_COUNT)], 55.6f, timestamp});
+        }
+
+    }
+}
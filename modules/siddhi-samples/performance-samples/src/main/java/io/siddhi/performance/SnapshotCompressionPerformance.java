@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.siddhi.performance;
+
+import io.siddhi.core.SiddhiAppRuntime;
+import io.siddhi.core.SiddhiManager;
+import io.siddhi.core.stream.input.InputHandler;
+import io.siddhi.core.util.persistence.util.SnapshotCodec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Compares the size of a window snapshot and the throughput of compressing and decompressing it with each
+ * {@link SnapshotCodec}.
+ */
+public class SnapshotCompressionPerformance {
+
+    private static final int EVENT_COUNT = 1000000;
+    private static final int ITERATIONS = 10;
+
+    public static void main(String[] args) throws Exception {
+        for (String serializer : new String[]{"java", "binary"}) {
+            byte[] snapshot = takeSnapshot(serializer);
+            System.out.println("Serializer : " + serializer + ", snapshot size : " + snapshot.length + " bytes");
+            for (SnapshotCodec codec : SnapshotCodec.values()) {
+                measure(codec, snapshot);
+            }
+        }
+    }
+
+    private static byte[] takeSnapshot(String serializer) throws InterruptedException {
+        SiddhiManager siddhiManager = new SiddhiManager();
+
+        String siddhiApp = "" +
+                "@app:snapshot(serializer='" + serializer + "') " +
+                "define stream StockStream (symbol string, price float, volume long); " +
+                "" +
+                "@info(name = 'query1') " +
+                "from StockStream#window.length(" + EVENT_COUNT + ") " +
+                "select symbol, avg(price) as avgPrice, sum(volume) as totalVolume " +
+                "group by symbol " +
+                "insert into OutStream ;";
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("StockStream");
+        siddhiAppRuntime.start();
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            inputHandler.send(new Object[]{"symbol" + (i % 1000), 55.6f + i % 10, 100L});
+        }
+        byte[] snapshot = siddhiAppRuntime.snapshot();
+        siddhiAppRuntime.shutdown();
+        siddhiManager.shutdown();
+        return snapshot;
+    }
+
+    private static void measure(SnapshotCodec codec, byte[] snapshot) throws Exception {
+        byte[] compressed = null;
+        long compressionTime = 0;
+        long decompressionTime = 0;
+        byte[] buffer = new byte[65536];
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+            try (OutputStream outputStream = codec.encode(byteArrayOutputStream)) {
+                outputStream.write(snapshot);
+            }
+            compressed = byteArrayOutputStream.toByteArray();
+            compressionTime += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            try (InputStream inputStream = SnapshotCodec.decode(new ByteArrayInputStream(compressed))) {
+                while (inputStream.read(buffer) > 0) {
+                    // only measuring the throughput
+                }
+            }
+            decompressionTime += System.nanoTime() - start;
+        }
+        double megaBytes = snapshot.length * (double) ITERATIONS / (1024 * 1024);
+        System.out.println("Codec : " + codec +
+                ", compressed size : " + compressed.length + " bytes" +
+                ", ratio : " + String.format("%.2f", snapshot.length / (double) compressed.length) +
+                ", compression : " + String.format("%.1f", megaBytes / (compressionTime / 1e9)) + " MB/s" +
+                ", decompression : " + String.format("%.1f", megaBytes / (decompressionTime / 1e9)) + " MB/s");
+    }
+}
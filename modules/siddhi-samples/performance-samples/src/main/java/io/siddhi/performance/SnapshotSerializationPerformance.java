@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2019, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package io.siddhi.performance;
+
+import io.siddhi.core.SiddhiAppRuntime;
+import io.siddhi.core.SiddhiManager;
+import io.siddhi.core.stream.input.InputHandler;
+
+/**
+ * Compares the size of snapshots and the time taken to take and restore them with the Java and the binary state
+ * serializers, for a length window and a primary key table.
+ */
+public class SnapshotSerializationPerformance {
+
+    private static final int EVENT_COUNT = 1000000;
+    private static final int ITERATIONS = 10;
+
+    public static void main(String[] args) throws Exception {
+        for (String serializer : new String[]{"java", "binary"}) {
+            measure(serializer);
+        }
+    }
+
+    private static void measure(String serializer) throws Exception {
+        SiddhiManager siddhiManager = new SiddhiManager();
+
+        String siddhiApp = "" +
+                "@app:snapshot(serializer='" + serializer + "') " +
+                "define stream StockStream (symbol string, price float, volume long, timestamp long); " +
+                "@PrimaryKey('symbol') " +
+                "define table StockTable (symbol string, price float, volume long); " +
+                "" +
+                "@info(name = 'query1') " +
+                "from StockStream#window.length(" + EVENT_COUNT + ") " +
+                "select symbol, sum(volume) as totalVolume " +
+                "insert into OutStream ;" +
+                "" +
+                "@info(name = 'query2') " +
+                "from StockStream " +
+                "select symbol, price, volume " +
+                "update or insert into StockTable " +
+                "   on StockTable.symbol == symbol ;";
+
+        SiddhiAppRuntime siddhiAppRuntime = siddhiManager.createSiddhiAppRuntime(siddhiApp);
+        InputHandler inputHandler = siddhiAppRuntime.getInputHandler("StockStream");
+        siddhiAppRuntime.start();
+        long timestamp = System.currentTimeMillis();
+        for (int i = 0; i < EVENT_COUNT; i++) {
+            inputHandler.send(new Object[]{"symbol" + (i % 100000), 55.6f + i % 10, (long) i, timestamp + i});
+        }
+
+        byte[] snapshot = null;
+        long snapshotTime = 0;
+        long restoreTime = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            snapshot = siddhiAppRuntime.snapshot();
+            snapshotTime += System.nanoTime() - start;
+            start = System.nanoTime();
+            siddhiAppRuntime.restore(snapshot);
+            restoreTime += System.nanoTime() - start;
+        }
+        System.out.println("Serializer : " + serializer);
+        System.out.println("Snapshot size : " + snapshot.length + " bytes");
+        System.out.println("Snapshot time : " + snapshotTime / ITERATIONS / 1000000 + " ms");
+        System.out.println("Restore time : " + restoreTime / ITERATIONS / 1000000 + " ms");
+        siddhiAppRuntime.shutdown();
+        siddhiManager.shutdown();
+    }
+}